@@ -0,0 +1,49 @@
+package io.github.dhi13man.spring.datasource.annotations;
+
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.DataSourceConfig;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Bounded executor of a single data source, running its asynchronous repository methods (ie. the
+ * methods annotated with {@link TargetSecondaryDataSource} which return a
+ * {@code CompletableFuture}).
+ * <p>
+ * It can not be applied directly anywhere other than in the
+ * {@link DataSourceConfig#asyncExecutor()} attribute. The concurrency of the executor is capped at
+ * the maximum pool size of the data source, so that a slow data source can only ever tie up its
+ * own threads, and tasks beyond the concurrency and the {@link #queueCapacity()} are rejected
+ * instead of piling up on the callers.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({})
+public @interface AsyncExecutor {
+
+  /**
+   * Whether the data source gets an executor for its asynchronous repository methods.
+   *
+   * @return whether the executor is enabled.
+   */
+  boolean enabled() default false;
+
+  /**
+   * The number of tasks which may wait for a thread of the executor, once all of them are busy.
+   * <p>
+   * Tasks submitted while the queue is full are rejected straight away, with a
+   * {@code TaskRejectedException}.
+   *
+   * @return the non-negative capacity of the queue of the executor.
+   */
+  int queueCapacity() default 0;
+
+  /**
+   * Whether the threads of the executor are virtual threads, on JDKs supporting them.
+   * <p>
+   * The concurrency of the executor stays capped at the maximum pool size of the data source
+   * either way. Platform threads are used on JDKs without virtual threads.
+   *
+   * @return whether the executor uses virtual threads.
+   */
+  boolean virtualThreads() default false;
+}
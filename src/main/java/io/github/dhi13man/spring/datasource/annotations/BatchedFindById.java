@@ -0,0 +1,41 @@
+package io.github.dhi13man.spring.datasource.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation marking the {@code findById} override of a repository, annotated with
+ * {@link TargetSecondaryDataSource}, whose point lookups on the generated repository copies are
+ * batched into {@code findAllById} queries (DataLoader-style).
+ * <p>
+ * The first lookup opens a batch and waits up to {@link #maxWaitMillis()} for concurrent lookups
+ * of other callers to join it, or until it holds {@link #maxBatchSize()} ids. It then loads the
+ * whole batch with one {@code findAllById} query on the data source of the copy, and every caller
+ * gets its own entity from the result. Lookups made inside a transaction are never batched, as
+ * they must load the entities into their own persistence context.
+ * <p>
+ * The {@code findAllById} method of the generated repository copies batching their lookups is kept
+ * enabled for this. Batching is only supported in
+ * {@link EnableMultiDataSourceConfig.RoutingMode#REPOSITORY_COPIES}.
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface BatchedFindById {
+
+  /**
+   * The highest number of ids loaded by one batch, which is dispatched as soon as it is full.
+   *
+   * @return the maximum batch size, at least 2.
+   */
+  int maxBatchSize() default 100;
+
+  /**
+   * The longest time the first lookup of a batch waits for other lookups to join it, in
+   * milliseconds.
+   *
+   * @return the positive maximum wait in milliseconds.
+   */
+  int maxWaitMillis() default 2;
+}
@@ -0,0 +1,44 @@
+package io.github.dhi13man.spring.datasource.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation marking a repository method as a read of slowly changing data, whose results are
+ * cached in memory for each data source.
+ * <p>
+ * The results of the method are cached by its arguments, for up to {@link #ttlMillis()}, and the
+ * least recently used results are evicted beyond {@link #maxEntries()}. The generated repository
+ * copies keep this annotation, so each copy caches the results of its own data source. Calls made
+ * inside a transaction neither use nor fill the cache, as they must see the entities of their own
+ * persistence context.
+ * <p>
+ * The cache of the method is cleared by every write (a {@code save*} or {@code delete*} method, or
+ * a {@code @Modifying} query) through any repository of the same entity, such as the primary
+ * repository, and again when the transaction of the write completes. Writes made to the data
+ * sources by other means are only picked up once the results expire.
+ * <p>
+ * The cached results are shared by all the callers, so they must not be modified. Methods
+ * returning a {@code CompletableFuture} or nothing can not be cached.
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CachedRead {
+
+  /**
+   * The time a result stays cached for after it is loaded, in milliseconds.
+   *
+   * @return the positive time to live of the results in milliseconds.
+   */
+  long ttlMillis() default 60000;
+
+  /**
+   * The highest number of results cached for the method on each data source, beyond which the least
+   * recently used results are evicted.
+   *
+   * @return the positive maximum number of cached results.
+   */
+  int maxEntries() default 1000;
+}
@@ -0,0 +1,68 @@
+package io.github.dhi13man.spring.datasource.annotations;
+
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.DataSourceConfig;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import javax.annotation.Nonnull;
+
+/**
+ * Circuit breaker of a single data source, failing over from it while it is down instead of
+ * waiting for the connection timeout on every request.
+ * <p>
+ * It can not be applied directly anywhere other than in the
+ * {@link DataSourceConfig#circuitBreaker()} attribute. The circuit opens after
+ * {@link #failureThreshold()} consecutive connection failures, either while opening a connection or
+ * while using it (ie. a {@code java.sql.SQLNonTransientConnectionException},
+ * {@code java.sql.SQLTransientConnectionException}, {@code java.sql.SQLRecoverableException} or any
+ * SQL state of class {@code 08}). Other errors, like constraint violations, do not count.
+ * <p>
+ * While the circuit is open, connections are opened on the {@link #failoverDataSourceName()} data
+ * source, or fail straight away. After {@link #openDurationMillis()}, the circuit is half-open, and
+ * up to {@link #halfOpenProbes()} connections at a time probe the data source again: the circuit
+ * closes on the first successful probe and opens again on the first failed one.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({})
+public @interface CircuitBreaker {
+
+  /**
+   * Whether the data source has a circuit breaker.
+   *
+   * @return whether the circuit breaker is enabled.
+   */
+  boolean enabled() default false;
+
+  /**
+   * The number of consecutive connection failures which open the circuit.
+   *
+   * @return the positive failure threshold.
+   */
+  int failureThreshold() default 5;
+
+  /**
+   * The time the circuit stays open for before probing the data source again, in milliseconds.
+   *
+   * @return the positive open duration in milliseconds.
+   */
+  int openDurationMillis() default 10000;
+
+  /**
+   * The number of connections at a time which probe the data source while the circuit is
+   * half-open. The others are handled as if the circuit was open.
+   *
+   * @return the positive number of half-open probes.
+   */
+  int halfOpenProbes() default 1;
+
+  /**
+   * The name of the data source (another secondary data source or the primary data source) to
+   * open connections on while the circuit is open, whose schema must then match.
+   * <p>
+   * If this is not provided, connections fail straight away with a
+   * {@code java.sql.SQLTransientConnectionException} while the circuit is open.
+   *
+   * @return the name of the failover data source, or an empty string for none.
+   */
+  @Nonnull String failoverDataSourceName() default "";
+}
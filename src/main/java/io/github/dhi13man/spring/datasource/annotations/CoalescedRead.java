@@ -0,0 +1,25 @@
+package io.github.dhi13man.spring.datasource.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation marking a repository method as a read whose identical concurrent calls are coalesced
+ * into one (single-flight).
+ * <p>
+ * While a call of the method is in flight, further calls with equal arguments on the same data
+ * source do not query the data source again, but wait for the call in flight and share its result
+ * or exception. The generated repository copies keep this annotation, so each copy coalesces the
+ * calls of its own data source. Calls made inside a transaction are never coalesced, as they must
+ * see the entities of their own persistence context.
+ * <p>
+ * The coalesced calls share the same result instance, so it must not be modified by the callers.
+ * Methods returning a {@code CompletableFuture} or nothing can not be coalesced.
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CoalescedRead {
+
+}
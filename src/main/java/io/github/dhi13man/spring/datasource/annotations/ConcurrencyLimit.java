@@ -0,0 +1,92 @@
+package io.github.dhi13man.spring.datasource.annotations;
+
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.DataSourceConfig;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import javax.annotation.Nonnull;
+
+/**
+ * Adaptive limit of the connections of a single data source in use at the same time, shedding the
+ * load beyond it.
+ * <p>
+ * It can not be applied directly anywhere other than in the
+ * {@link DataSourceConfig#concurrencyLimit()} attribute. The limit follows an AIMD (additive
+ * increase, multiplicative decrease) algorithm on the observed latency: every connection whose
+ * opening plus slowest statement took longer than the {@link #latencyThresholdMillis()}, or
+ * failing to open, cuts the limit by the {@link #backoffPercent()}, and the limit grows by one
+ * again while it is being used and the latency stays below the threshold.
+ * <p>
+ * Connections requested while the limit is reached are not queued for the connection pool, but are
+ * handled by the {@link #overloadAction()} straight away, so that a degraded data source sheds its
+ * load instead of piling up requests waiting for connections.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({})
+public @interface ConcurrencyLimit {
+
+  /**
+   * Whether the connections of the data source are limited.
+   *
+   * @return whether the concurrency limit is enabled.
+   */
+  boolean enabled() default false;
+
+  /**
+   * The lowest limit the latency can cut the limit down to.
+   *
+   * @return the positive minimum limit.
+   */
+  int minLimit() default 1;
+
+  /**
+   * The highest limit, which is also the initial limit.
+   * <p>
+   * If this is not provided, it is the maximum pool size of the data source, as more connections
+   * could only wait for the connection pool.
+   *
+   * @return the positive maximum limit, or {@link PerformanceProfile#UNSET} for the maximum pool
+   * size.
+   */
+  int maxLimit() default PerformanceProfile.UNSET;
+
+  /**
+   * The time a connection may take to open plus execute its slowest statement before it counts as
+   * a sign of congestion, in milliseconds. The time the application holds the connection between
+   * statements is not counted.
+   *
+   * @return the positive latency threshold in milliseconds.
+   */
+  int latencyThresholdMillis() default 1000;
+
+  /**
+   * The percentage of the limit kept on every sign of congestion.
+   *
+   * @return the percentage of the limit kept, between 1 and 99.
+   */
+  int backoffPercent() default 90;
+
+  /**
+   * What happens to connections requested while the limit is reached.
+   *
+   * @return the {@link OverloadAction} of the data source.
+   */
+  @Nonnull OverloadAction overloadAction() default OverloadAction.FAIL_FAST;
+
+  /**
+   * The ways of handling connections requested while the limit is reached.
+   */
+  enum OverloadAction {
+
+    /**
+     * Fail straight away with a {@code java.sql.SQLTransientConnectionException}.
+     */
+    FAIL_FAST,
+
+    /**
+     * Open the connection on the primary data source instead, whose schema must then match. Only
+     * secondary data sources can divert to the primary data source.
+     */
+    DIVERT_TO_PRIMARY
+  }
+}
@@ -0,0 +1,39 @@
+package io.github.dhi13man.spring.datasource.annotations;
+
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.DataSourceConfig;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Global budget of database connections of a single application instance, shared by all of its
+ * data sources.
+ * <p>
+ * It can not be applied directly anywhere other than in the
+ * {@link EnableMultiDataSourceConfig#connectionBudget()} attribute. The {@link #maxConnections()}
+ * are partitioned across the data sources by their {@link DataSourceConfig#connectionBudgetWeight()}
+ * during the build, and each share becomes the default maximum pool size of the data source.
+ * <p>
+ * The maximum pool sizes actually configured are checked against the budget at startup, which
+ * fails with a report of every data source if the budget is exceeded.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({})
+public @interface ConnectionBudget {
+
+  /**
+   * Value of {@link #maxConnections()} when there is no budget.
+   */
+  int UNLIMITED = -1;
+
+  /**
+   * The maximum number of connections all the data sources of one application instance may open
+   * together.
+   * <p>
+   * This should usually be the connection limit of the database server divided by the maximum
+   * number of application instances.
+   *
+   * @return the maximum number of connections, or {@link #UNLIMITED}.
+   */
+  int maxConnections() default UNLIMITED;
+}
@@ -64,6 +64,130 @@ public @interface EnableMultiDataSourceConfig {
    */
   @Nonnull DataSourceConfig[] secondaryDataSourceConfigs() default {};
 
+  /**
+   * The global budget of database connections shared by all the data sources.
+   * <p>
+   * If provided, the budget is partitioned across the data sources by their
+   * {@link DataSourceConfig#connectionBudgetWeight()} to get their default maximum pool sizes, and
+   * it is enforced at startup.
+   *
+   * @return the {@link ConnectionBudget} of the data sources.
+   * @see ConnectionBudget
+   */
+  @Nonnull ConnectionBudget connectionBudget() default @ConnectionBudget;
+
+  /**
+   * Whether data sources with the same connection identity (JDBC URL and username) share one
+   * connection pool.
+   * <p>
+   * Such data sources are always detected and reported at startup. When enabled, the data source
+   * declared first (primary first) keeps its connection pool, and the data sources declared after
+   * it use that pool instead of opening their own, while keeping their own entity manager factories
+   * and transaction managers. The pool settings of the later data sources are then ignored.
+   *
+   * @return whether data sources with the same connection identity share one connection pool.
+   */
+  boolean shareConnectionPools() default false;
+
+  /**
+   * How the repository methods annotated with {@link TargetSecondaryDataSource} are routed to their
+   * secondary data sources.
+   *
+   * @return the {@link RoutingMode} of the repositories.
+   * @see RoutingMode
+   */
+  @Nonnull RoutingMode routingMode() default RoutingMode.REPOSITORY_COPIES;
+
+  /**
+   * Whether the queries of the derived query methods (eg. {@code findByCustomIdAndDate}) of the
+   * generated repository copies are derived at compile time rather than at startup.
+   * <p>
+   * Spring Data parses the name of every derived query method of every repository copy at startup.
+   * When enabled, the name of every such method of a copy of a repository of an {@code @Entity} is
+   * parsed while generating the copy instead, and the JPQL Spring Data JPA would derive from it is
+   * added to the copy as a {@code @Query}. Names which can not be parsed, or refer to properties
+   * the entity does not have, then fail the build instead of the startup. Methods which already
+   * have a {@code @Query}, are backed by a {@code @NamedQuery} of the entity, return projections,
+   * limit their results ({@code First} or {@code Top}), or use {@code AllIgnoreCase}, are still
+   * derived at startup.
+   * <p>
+   * As in the derived queries, the {@code null} arguments of the equality criteria match the
+   * {@code null} properties, eg. {@code (?1 is null and e.code is null or e.code = ?1)}, but for
+   * the primitive parameters, which can not be {@code null}. This has no effect with
+   * {@link RoutingMode#RUNTIME_ROUTING}, as no repository copies are generated.
+   *
+   * @return whether the queries of the derived query methods of the copies are derived at compile
+   * time.
+   */
+  boolean precomputeDerivedQueries() default false;
+
+  /**
+   * Whether the query plans of the generated repository copies are prepared at startup.
+   * <p>
+   * Hibernate compiles the plan of a query the first time it is created on an entity manager
+   * factory. Spring Data JPA already creates the {@code @Query} and named queries of every
+   * repository when validating them at startup, but the criteria queries of derived query methods
+   * are only built on their first call, so that call after a deploy is slower. When enabled, once
+   * the application context is refreshed, every derived query method of the copies of every
+   * secondary data source without a {@code @Query} (including those left to Spring Data JPA by
+   * {@link #precomputeDerivedQueries()}) is looked up as Spring Data JPA looks it up, and its
+   * criteria query (and the {@code count} query of a {@code Page} method) is created with sample
+   * arguments, unpaged and unsorted, but not executed, on the entity manager factory of the data
+   * source, the data sources in parallel. The time taken by every data source is logged. Queries
+   * sorted dynamically are not warmed up. This has no effect with
+   * {@link RoutingMode#RUNTIME_ROUTING}, as no repository copies are generated.
+   *
+   * @return whether the query plans of the repository copies are prepared at startup.
+   */
+  boolean warmUpQueryPlans() default false;
+
+  /**
+   * Whether the entity manager factory of every secondary data source only registers the entities
+   * its generated repository copies use.
+   * <p>
+   * By default, every entity in the {@link DataSourceConfig#exactEntityPackages()} of a data source
+   * is registered, and has its metamodel built, in its entity manager factory. When enabled, the
+   * entities of the repositories copied for every secondary data source are found at compile time,
+   * along with the entities, embeddables and mapped superclasses they reference through their
+   * superclasses and persistent fields, transitively, and the entity subclasses of those entities
+   * in the same compilation unit. Only these, the scanned subclasses of the entities, and the
+   * scanned types which are not entities (eg. attribute converters) are then registered. A
+   * secondary data source without repository copies registers no entities.
+   * <p>
+   * The entity manager factories of the secondary data sources then can not be used for other
+   * entities, eg. through an injected {@code EntityManager}. The repositories must be compiled
+   * with this annotation, else nothing is minimized. This has no effect with
+   * {@link RoutingMode#RUNTIME_ROUTING}, as no repository copies are generated.
+   *
+   * @return whether the entity manager factories of the secondary data sources only register the
+   * entities of their repository copies.
+   */
+  boolean minimizeEntitySets() default false;
+
+  /**
+   * The ways of routing the repository methods annotated with {@link TargetSecondaryDataSource} to
+   * their secondary data sources.
+   */
+  enum RoutingMode {
+
+    /**
+     * A copy of every repository with the annotated methods is generated for every secondary data
+     * source, and bound to the entity manager factory of that data source.
+     */
+    REPOSITORY_COPIES,
+
+    /**
+     * No repository copies are generated. The annotation is read at runtime, and the original
+     * repository beans switch the data source of the primary entity manager factory around every
+     * annotated method call instead, so one repository bean serves all the data sources.
+     * <p>
+     * The primary entity manager factory is given a routing data source for this, so the entities
+     * of all the data sources must be in its {@link DataSourceConfig#exactEntityPackages()}, and
+     * the schemas of the secondary data sources must match the primary schema.
+     */
+    RUNTIME_ROUTING
+  }
+
   @Retention(RetentionPolicy.RUNTIME)
   @Target({})
   @interface DataSourceConfig {
@@ -85,12 +209,28 @@ public @interface EnableMultiDataSourceConfig {
     @Nonnull String dataSourceName() default "";
 
     /**
-     * The application properties key/path of the data source class properties.
+     * The application properties key/path of the data source class properties (eg. the connection
+     * pool settings).
+     * <p>
+     * If this is not provided, the data source class properties will be read from the shared
+     * spring.datasource.hikari path, unless {@link #poolPropertiesPerDataSource()} is enabled.
      *
      * @return the prefix of the data source class properties in the application properties file.
      */
     @Nonnull String dataSourceClassPropertiesPath() default "spring.datasource.hikari";
 
+    /**
+     * Whether this data source reads its own pool settings, from the data source properties path
+     * followed by .hikari, ie. {datasourcePropertiesPrefix}.{kebab-case-data-source-name}.hikari.
+     * <p>
+     * Only applies when {@link #dataSourceClassPropertiesPath()} is left to its default, and is
+     * disabled by default so that the data sources keep sharing the spring.datasource.hikari
+     * settings.
+     *
+     * @return whether the data source reads its own pool settings.
+     */
+    boolean poolPropertiesPerDataSource() default false;
+
     /**
      * The application properties key/path under which the JPA properties to override for this data
      * source are located.
@@ -114,5 +254,189 @@ public @interface EnableMultiDataSourceConfig {
      * @return the array of exact packages to scan for entities.
      */
     @Nonnull String[] exactEntityPackages() default {};
+
+    /**
+     * Whether this data source only serves reads (eg. a read replica).
+     * <p>
+     * When enabled, the generated transaction manager begins every transaction as read-only, so
+     * that Hibernate does not keep dirty-checking snapshots of loaded entities, uses
+     * {@code FlushMode.MANUAL} and marks the JDBC connection read-only. The generated repository
+     * methods for this data source are also given the Hibernate read-only query hint, so that
+     * entities loaded outside a transaction are not snapshotted either.
+     *
+     * @return whether the data source is read-only.
+     */
+    boolean readOnly() default false;
+
+    /**
+     * The typed Hibernate performance tuning of this data source.
+     * <p>
+     * This is validated during the build and written into the JPA property map of the generated
+     * entity manager factory, instead of maintaining free-form properties under
+     * {@link #overridingJpaPropertiesPath()}.
+     *
+     * @return the {@link PerformanceProfile} of the data source.
+     * @see PerformanceProfile
+     */
+    @Nonnull PerformanceProfile performanceProfile() default @PerformanceProfile;
+
+    /**
+     * The weight of this data source in the {@link EnableMultiDataSourceConfig#connectionBudget()}.
+     * <p>
+     * Each data source gets a share of the budget proportional to its weight. This is ignored if
+     * no budget is provided.
+     *
+     * @return the positive weight of the data source in the connection budget.
+     */
+    int connectionBudgetWeight() default 1;
+
+    /**
+     * The default timeout of every query of this data source, in milliseconds
+     * ({@code javax.persistence.query.timeout}).
+     * <p>
+     * This bounds how long one slow query can hold a connection of this data source. Hibernate
+     * applies query timeouts in whole seconds, so this is rounded down to seconds, and values below
+     * one second fail the build.
+     *
+     * @return the query timeout in milliseconds, or {@link PerformanceProfile#UNSET} for none.
+     */
+    int queryTimeoutMillis() default PerformanceProfile.UNSET;
+
+    /**
+     * The default timeout of acquiring pessimistic locks on this data source, in milliseconds
+     * ({@code javax.persistence.lock.timeout}).
+     * <p>
+     * Like the query timeout, this is applied in whole seconds by most dialects, so values below
+     * one second fail the build.
+     *
+     * @return the lock timeout in milliseconds, or {@link PerformanceProfile#UNSET} for none.
+     */
+    int lockTimeoutMillis() default PerformanceProfile.UNSET;
+
+    /**
+     * The SQL statement executed on every new physical connection of this data source, before it
+     * is used (eg. {@code SET statement_timeout = 5000} or
+     * {@code SET SESSION CHARACTERISTICS AS TRANSACTION READ ONLY}).
+     * <p>
+     * This is set as the connection init SQL of the connection pool, and can still be overridden by
+     * the data source class properties.
+     *
+     * @return the connection init SQL, or an empty string for none.
+     */
+    @Nonnull String connectionInitSql() default "";
+
+    /**
+     * The bounded executor running the repository methods of this data source which return a
+     * {@code CompletableFuture}.
+     * <p>
+     * When enabled, the generated repository copies run such methods with {@code @Async} on this
+     * executor, whose concurrency is capped at the maximum pool size of this data source.
+     *
+     * @return the {@link AsyncExecutor} of the data source.
+     * @see AsyncExecutor
+     */
+    @Nonnull AsyncExecutor asyncExecutor() default @AsyncExecutor;
+
+    /**
+     * The adaptive limit of the connections of this data source in use at the same time.
+     * <p>
+     * When enabled, the generated entity manager factory opens its connections through the limit,
+     * and the state of the limit is exposed as metrics tagged with the name of this data source.
+     *
+     * @return the {@link ConcurrencyLimit} of the data source.
+     * @see ConcurrencyLimit
+     */
+    @Nonnull ConcurrencyLimit concurrencyLimit() default @ConcurrencyLimit;
+
+    /**
+     * The circuit breaker of this data source, failing over from it while it is down.
+     * <p>
+     * When enabled, the generated entity manager factory opens its connections through the circuit
+     * breaker, so that a data source which is down is detected straight away instead of waiting for
+     * the connection timeout on every request.
+     *
+     * @return the {@link CircuitBreaker} of the data source.
+     * @see CircuitBreaker
+     */
+    @Nonnull CircuitBreaker circuitBreaker() default @CircuitBreaker;
+
+    /**
+     * The read-your-writes stickiness of this secondary data source, reading from the primary data
+     * source for a while after the current session wrote to it.
+     * <p>
+     * When enabled, the generated entity manager factory opens its connections on the primary data
+     * source during that window, so that replication lag does not show stale data to the session
+     * which made the write, while the other sessions keep reading from this data source.
+     *
+     * @return the {@link ReadYourWrites} of the data source.
+     * @see ReadYourWrites
+     */
+    @Nonnull ReadYourWrites readYourWrites() default @ReadYourWrites;
+
+    /**
+     * The name of the shard set this secondary data source is a shard of.
+     * <p>
+     * The secondary data sources with the same shard set name form the shards of that set, across
+     * which the repository methods with a {@link ShardKey} parameter of that set are spread by
+     * consistent hashing. Adding a data source to the set adds a shard.
+     *
+     * @return the name of the shard set, or an empty string if the data source is not a shard.
+     * @see ShardKey
+     */
+    @Nonnull String shardSet() default "";
+
+    /**
+     * The number of rows the JDBC driver fetches per round trip for the repository methods of this
+     * data source returning a {@code Stream} or {@code Slice} ({@code org.hibernate.fetchSize}).
+     * <p>
+     * The generated repository copies give such methods this fetch size and the Hibernate
+     * read-only query hint, so that large results are streamed from the database instead of being
+     * buffered or fetched a few rows at a time. MySQL Connector/J only streams rows one by one with
+     * a fetch size of {@link Integer#MIN_VALUE}, unless {@code useCursorFetch} is enabled.
+     *
+     * @return the streaming fetch size, {@link Integer#MIN_VALUE} for MySQL row-by-row streaming,
+     * or {@link PerformanceProfile#UNSET} for the default fetch size of the data source.
+     */
+    int streamFetchSize() default PerformanceProfile.UNSET;
+
+    /**
+     * Whether the schema of this secondary data source is identical to the primary schema, in
+     * {@link RoutingMode#RUNTIME_ROUTING}.
+     * <p>
+     * When enabled, no entity manager factory is built for this data source. Its entity manager
+     * factory bean name becomes an alias of the primary entity manager factory, which already
+     * routes to it, so the metamodel, query plan cache and second-level cache are built once for
+     * all the schema-equivalent data sources. Its transaction manager begins every transaction
+     * routed to this data source on the shared entity manager factory, so that the whole
+     * transaction runs on a connection of this data source.
+     * <p>
+     * The JPA properties of the primary entity manager factory then apply to this data source. This
+     * has no effect on the primary data source.
+     *
+     * @return whether the data source shares the primary entity manager factory.
+     */
+    boolean schemaEquivalent() default false;
+
+    /**
+     * Whether the repository copies of this secondary data source are generated as plain JDBC
+     * repositories, instead of Spring Data JPA repositories.
+     * <p>
+     * When enabled, no entity manager factory is built for this data source: only its data source,
+     * a {@code NamedParameterJdbcTemplate} and a {@code DataSourceTransactionManager}. The
+     * repository copies are generated as classes implementing only the annotated methods, with the
+     * SQL of their native queries or of their derived queries and the row mappers of their entity
+     * generated at compile time, so that no Hibernate metamodel or reflection is needed at runtime.
+     * <p>
+     * Only native {@code @Query} methods and derived query methods on the columns of the entity
+     * table are supported, reading entities whose basic properties have public setters. The table
+     * and column names follow the {@code @Table} and {@code @Column} names of the entity, or else
+     * the snake case default naming strategy of Spring Boot. This can not be enabled in
+     * {@link RoutingMode#RUNTIME_ROUTING}, with an {@link #asyncExecutor()}, with the wrappers of
+     * the connections of the entity manager factory ({@link #concurrencyLimit()},
+     * {@link #circuitBreaker()} and {@link #readYourWrites()}), or on the primary data source.
+     *
+     * @return whether the repository copies of the data source are generated as JDBC repositories.
+     */
+    boolean jdbcOnly() default false;
   }
 }
@@ -0,0 +1,51 @@
+package io.github.dhi13man.spring.datasource.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation marking a repository method annotated with several {@link TargetSecondaryDataSource}
+ * data sources as an idempotent read, which may be hedged across them to cut its tail latency.
+ * <p>
+ * Every call runs on one of the data sources, in a round-robin. If it has not returned within the
+ * {@link #delayPercentile()} of the recent latencies of the method, the same call is issued to the
+ * next data source, the first successful result wins, and the other call is cancelled. The extra
+ * calls are capped at {@link #maxExtraLoadPercent()} of the calls of the method.
+ * <p>
+ * The calls run on a shared thread pool, outside the transaction of the caller, so the method must
+ * only read. In {@link EnableMultiDataSourceConfig.RoutingMode#REPOSITORY_COPIES}, a
+ * {@code <RepositoryName>HedgedReads} component is generated next to the repository copies, whose
+ * methods hedge the calls across the copies. In
+ * {@link EnableMultiDataSourceConfig.RoutingMode#RUNTIME_ROUTING}, the original repository hedges
+ * the calls itself. Methods returning a {@code CompletableFuture} or nothing can not be hedged.
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface HedgedRead {
+
+  /**
+   * The percentile of the recent latencies of the method after which the call is hedged.
+   * <p>
+   * No calls are hedged until enough latencies of the method have been observed.
+   *
+   * @return the delay percentile, between 1 and 99.
+   */
+  int delayPercentile() default 95;
+
+  /**
+   * The lowest delay after which the call is hedged, in milliseconds, however fast the method
+   * usually is.
+   *
+   * @return the non-negative minimum delay in milliseconds.
+   */
+  int minDelayMillis() default 5;
+
+  /**
+   * The cap on the extra calls issued by hedging, as a percentage of the calls of the method.
+   *
+   * @return the maximum extra load percentage, between 1 and 100.
+   */
+  int maxExtraLoadPercent() default 10;
+}
@@ -0,0 +1,51 @@
+package io.github.dhi13man.spring.datasource.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation marking a paged repository method for keyset ("seek") pagination on its secondary
+ * data sources.
+ * <p>
+ * Offset pagination makes the database read and skip every row before the requested page, so
+ * deep pages get slower, and a {@code Page} also runs a {@code count} query. The generated
+ * repository copies of the data sources of the method (see {@link TargetSecondaryDataSource}) get
+ * a keyset variant of it besides the method itself: a derived query with the same criteria, the
+ * same parameters before the {@code Pageable}, and a parameter for the key of the last row of the
+ * previous page, returning a {@code Slice} ordered by the key. Eg. for
+ * {@code Page<Order> findAllByStatus(String status, Pageable pageable)} keyed by {@code id}:
+ * <pre>{@code
+ * Slice<Order> findAllByStatusAndIdGreaterThanOrderByIdAsc(
+ *     String status, Long lastId, Pageable pageable);
+ * }</pre>
+ * Every page is read with {@code PageRequest.of(0, size)} (no sort of its own) from the key of the
+ * last row of the previous one (or a key below every row for the first page), so it costs the
+ * same however deep it is, and no {@code count} query is run.
+ * <p>
+ * The method must be a derived query returning a {@code Page} or {@code Slice}, with a
+ * {@code Pageable} as its last parameter, and without {@code Or} criteria or an {@code OrderBy}
+ * clause. The key must be unique, or ties would be skipped across pages.
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface KeysetPaged {
+
+  /**
+   * The name of the unique property of the entity the pages are keyed and ordered by.
+   * <p>
+   * The id of the entity is the property whose field or getter is annotated with {@code @Id}, in
+   * the entity or its superclasses, and the build fails if there is none.
+   *
+   * @return the name of the key property, or an empty string for the id of the entity.
+   */
+  String key() default "";
+
+  /**
+   * Whether the pages are ordered by descending keys, reading the keys below the last one.
+   *
+   * @return whether the keyset variant is ordered by descending keys.
+   */
+  boolean descending() default false;
+}
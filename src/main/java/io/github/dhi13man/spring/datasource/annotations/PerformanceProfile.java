@@ -0,0 +1,161 @@
+package io.github.dhi13man.spring.datasource.annotations;
+
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.DataSourceConfig;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import javax.annotation.Nonnull;
+
+/**
+ * Typed Hibernate performance tuning of a single data source.
+ * <p>
+ * It can not be applied directly anywhere other than in the
+ * {@link DataSourceConfig#performanceProfile()} attribute. The values are validated during the build
+ * and written into the JPA property map of the generated entity manager factory of the data source.
+ * <p>
+ * The values of the {@link #preset()} are used for every attribute left at {@link #UNSET}. JPA
+ * properties explicitly provided under {@link DataSourceConfig#overridingJpaPropertiesPath()} take
+ * precedence over the profile.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({})
+public @interface PerformanceProfile {
+
+  /**
+   * Value of the numeric attributes which are not set, and hence taken from the {@link #preset()}.
+   */
+  int UNSET = -1;
+
+  /**
+   * The preset to start from.
+   *
+   * @return the preset to start from.
+   */
+  @Nonnull Preset preset() default Preset.NONE;
+
+  /**
+   * The number of statements Hibernate batches together in one JDBC batch
+   * ({@code hibernate.jdbc.batch_size}).
+   *
+   * @return the JDBC batch size, or {@link #UNSET}.
+   */
+  int jdbcBatchSize() default UNSET;
+
+  /**
+   * The number of rows the JDBC driver fetches from the database per round trip
+   * ({@code hibernate.jdbc.fetch_size}).
+   *
+   * @return the JDBC fetch size, or {@link #UNSET}.
+   */
+  int jdbcFetchSize() default UNSET;
+
+  /**
+   * The number of lazy associations and proxies Hibernate initialises in one query
+   * ({@code hibernate.default_batch_fetch_size}).
+   *
+   * @return the default batch fetch size, or {@link #UNSET}.
+   */
+  int defaultBatchFetchSize() default UNSET;
+
+  /**
+   * The maximum number of entries in the Hibernate query plan cache
+   * ({@code hibernate.query.plan_cache_max_size}).
+   *
+   * @return the query plan cache size, or {@link #UNSET}.
+   */
+  int queryPlanCacheMaxSize() default UNSET;
+
+  /**
+   * Whether Hibernate orders inserts by entity so that they can be batched
+   * ({@code hibernate.order_inserts}). Enabled if either this or the {@link #preset()} enables it.
+   *
+   * @return whether inserts are ordered.
+   */
+  boolean orderInserts() default false;
+
+  /**
+   * Whether Hibernate orders updates by entity and primary key so that they can be batched
+   * ({@code hibernate.order_updates}). Enabled if either this or the {@link #preset()} enables it.
+   *
+   * @return whether updates are ordered.
+   */
+  boolean orderUpdates() default false;
+
+  /**
+   * Presets of the {@link PerformanceProfile} for common workloads.
+   */
+  enum Preset {
+
+    /**
+     * No tuning, Hibernate defaults are used for every attribute that is not set.
+     */
+    NONE(UNSET, UNSET, UNSET, UNSET, false, false),
+
+    /**
+     * Write heavy transactional workloads: batched and ordered inserts and updates.
+     */
+    OLTP_WRITE(50, UNSET, 16, UNSET, true, true),
+
+    /**
+     * Read heavy transactional workloads: batched lazy loading and a larger query plan cache.
+     */
+    OLTP_READ(UNSET, 100, 32, 4096, false, false),
+
+    /**
+     * Large scans (eg. reporting or exports): large fetch sizes to minimise round trips.
+     */
+    ANALYTIC_SCAN(UNSET, 1000, 64, UNSET, false, false);
+
+    private final int jdbcBatchSize;
+
+    private final int jdbcFetchSize;
+
+    private final int defaultBatchFetchSize;
+
+    private final int queryPlanCacheMaxSize;
+
+    private final boolean orderInserts;
+
+    private final boolean orderUpdates;
+
+    Preset(
+        int jdbcBatchSize,
+        int jdbcFetchSize,
+        int defaultBatchFetchSize,
+        int queryPlanCacheMaxSize,
+        boolean orderInserts,
+        boolean orderUpdates
+    ) {
+      this.jdbcBatchSize = jdbcBatchSize;
+      this.jdbcFetchSize = jdbcFetchSize;
+      this.defaultBatchFetchSize = defaultBatchFetchSize;
+      this.queryPlanCacheMaxSize = queryPlanCacheMaxSize;
+      this.orderInserts = orderInserts;
+      this.orderUpdates = orderUpdates;
+    }
+
+    public int getJdbcBatchSize() {
+      return jdbcBatchSize;
+    }
+
+    public int getJdbcFetchSize() {
+      return jdbcFetchSize;
+    }
+
+    public int getDefaultBatchFetchSize() {
+      return defaultBatchFetchSize;
+    }
+
+    public int getQueryPlanCacheMaxSize() {
+      return queryPlanCacheMaxSize;
+    }
+
+    public boolean isOrderInserts() {
+      return orderInserts;
+    }
+
+    public boolean isOrderUpdates() {
+      return orderUpdates;
+    }
+  }
+}
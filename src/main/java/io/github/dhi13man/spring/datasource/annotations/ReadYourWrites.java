@@ -0,0 +1,43 @@
+package io.github.dhi13man.spring.datasource.annotations;
+
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.DataSourceConfig;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Read-your-writes stickiness of a single secondary data source (eg. a lagging read replica),
+ * reading from the primary data source for a while after the current session wrote to it.
+ * <p>
+ * It can not be applied directly anywhere other than in the
+ * {@link DataSourceConfig#readYourWrites()} attribute. Every write through a repository on the
+ * primary data source (a {@code save*} or {@code delete*} method, or a {@code @Modifying} query) is
+ * recorded in the read-your-writes context of the current thread, when it is made and again when
+ * its transaction commits. For the {@link #windowMillis()} after the last write, connections of
+ * this data source requested on that thread are opened on the primary data source instead, whose
+ * schema must then match.
+ * <p>
+ * The context is bound to the thread serving the request. To keep a session sticky across
+ * requests, its last write time can be carried over with the
+ * {@code MultiDataSourceReadYourWritesContext} (eg. in the HTTP session or a cookie).
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({})
+public @interface ReadYourWrites {
+
+  /**
+   * Whether reads of the data source stick to the primary data source after writes.
+   *
+   * @return whether read-your-writes stickiness is enabled.
+   */
+  boolean enabled() default false;
+
+  /**
+   * The time after the last write of the session during which its reads of the data source are
+   * made on the primary data source, in milliseconds. This should cover the replication lag of the
+   * data source.
+   *
+   * @return the positive stickiness window in milliseconds.
+   */
+  int windowMillis() default 1000;
+}
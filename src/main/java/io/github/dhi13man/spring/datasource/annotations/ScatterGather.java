@@ -0,0 +1,91 @@
+package io.github.dhi13man.spring.datasource.annotations;
+
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.DataSourceConfig;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import javax.annotation.Nonnull;
+
+/**
+ * Annotation marking a repository method as a fan-out read, run concurrently on every data source
+ * of a group with its results merged, so that its latency is bounded by the slowest data source
+ * rather than the sum of them.
+ * <p>
+ * The group is the shard set named by {@link #shardSet()}, or else the data sources of the
+ * {@link TargetSecondaryDataSource} annotations of the method. The results are merged by the
+ * {@link #merge()} strategy. A {@code Pageable} parameter is pushed down to every data source as
+ * its first page covering the requested one, and the merged results are cut down to the requested
+ * page again.
+ * <p>
+ * The calls run on a shared thread pool, outside the transaction of the caller, so the method must
+ * only read. A {@code <RepositoryName>ScatterGather} component is generated next to the repository
+ * copies, whose methods scatter the calls across the copies in
+ * {@link EnableMultiDataSourceConfig.RoutingMode#REPOSITORY_COPIES}, or across the original
+ * repository routed to each data source in
+ * {@link EnableMultiDataSourceConfig.RoutingMode#RUNTIME_ROUTING}.
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ScatterGather {
+
+  /**
+   * The name of the shard set whose shards the method is run on.
+   * <p>
+   * If this is not provided, the method is run on the data sources of its
+   * {@link TargetSecondaryDataSource} annotations instead.
+   *
+   * @return the name of the shard set, or an empty string for the targeted data sources.
+   * @see DataSourceConfig#shardSet()
+   */
+  @Nonnull String shardSet() default "";
+
+  /**
+   * How the results of the data sources are merged into the result of the method.
+   *
+   * @return the {@link Merge} strategy of the method.
+   */
+  @Nonnull Merge merge() default Merge.CONCATENATE;
+
+  /**
+   * The properties of the results the {@link Merge#SORTED} merge orders them by, ascending, if the
+   * method has no {@code Sort} or {@code Pageable} parameter with a sort of its own.
+   * <p>
+   * If neither is provided, the results are merged in their natural order.
+   *
+   * @return the names of the properties to merge the results by.
+   */
+  @Nonnull String[] sortBy() default {};
+
+  /**
+   * The strategies of merging the results of the data sources.
+   */
+  enum Merge {
+
+    /**
+     * The {@code List} or {@code Page} results are concatenated in the order of the data sources.
+     */
+    CONCATENATE,
+
+    /**
+     * The {@code List} or {@code Page} results, each sorted by the data source, are merged into one
+     * sorted result (k-way merge).
+     */
+    SORTED,
+
+    /**
+     * The numeric results (eg. counts) are summed up. Null results are skipped.
+     */
+    SUM,
+
+    /**
+     * The lowest of the {@code Comparable} results is kept. Null results are skipped.
+     */
+    MIN,
+
+    /**
+     * The highest of the {@code Comparable} results is kept. Null results are skipped.
+     */
+    MAX
+  }
+}
@@ -0,0 +1,36 @@
+package io.github.dhi13man.spring.datasource.annotations;
+
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.DataSourceConfig;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import javax.annotation.Nonnull;
+
+/**
+ * Annotation marking the parameter of a repository method whose value picks the shard of a shard
+ * set the call runs on.
+ * <p>
+ * A shard set is the group of secondary data sources sharing the same
+ * {@link DataSourceConfig#shardSet()}. The shard key is placed on a consistent hash ring of the
+ * shards, so every key always runs on the same shard, and adding a shard to the set only moves
+ * about a share of the keys proportional to the new shard onto it.
+ * <p>
+ * A {@code <RepositoryName>Shards} component is generated next to the repository copies, whose
+ * methods run every call on the shard of its key: on the repository copy of that shard in
+ * {@link EnableMultiDataSourceConfig.RoutingMode#REPOSITORY_COPIES}, or on the original
+ * repository routed to that shard in {@link EnableMultiDataSourceConfig.RoutingMode#RUNTIME_ROUTING}.
+ * The shard set must be declared in the {@link EnableMultiDataSourceConfig} of the same module, and
+ * only one parameter of a method can be its shard key.
+ */
+@Target({ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardKey {
+
+  /**
+   * The name of the shard set the method is sharded across.
+   *
+   * @return the name of the shard set.
+   */
+  @Nonnull String value();
+}
@@ -11,10 +11,12 @@ import org.springframework.core.annotation.AliasFor;
  * Annotation to create copies of the repositories in the relevant packages, and autoconfigure them
  * to use the relevant secondary data sources.
  * <p>
- * Will generate all relevant boilerplate code and beans.
+ * Will generate all relevant boilerplate code and beans. It is retained at runtime for
+ * {@link EnableMultiDataSourceConfig.RoutingMode#RUNTIME_ROUTING}, where the original repository
+ * switches to the data source around the annotated method instead of being copied.
  */
 @Target({ElementType.METHOD})
-@Retention(RetentionPolicy.CLASS)
+@Retention(RetentionPolicy.RUNTIME)
 @Repeatable(TargetSecondaryDataSources.class)
 public @interface TargetSecondaryDataSource {
 
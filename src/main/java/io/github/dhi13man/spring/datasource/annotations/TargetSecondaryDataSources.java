@@ -9,10 +9,12 @@ import java.lang.annotation.Target;
  * Annotation to create copies of the repositories in the relevant packages, and autoconfigure them
  * to use the relevant secondary data sources.
  * <p>
- * Will generate all relevant boilerplate code and beans.
+ * Will generate all relevant boilerplate code and beans. It is retained at runtime for
+ * {@link EnableMultiDataSourceConfig.RoutingMode#RUNTIME_ROUTING}, where the original repository
+ * switches to the data source around the annotated method instead of being copied.
  */
 @Target({ElementType.METHOD})
-@Retention(RetentionPolicy.CLASS)
+@Retention(RetentionPolicy.RUNTIME)
 public @interface TargetSecondaryDataSources {
 
   /**
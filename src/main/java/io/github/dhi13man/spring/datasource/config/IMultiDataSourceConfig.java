@@ -2,14 +2,17 @@ package io.github.dhi13man.spring.datasource.config;
 
 import java.util.Properties;
 import javax.sql.DataSource;
-import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
-import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.transaction.PlatformTransactionManager;
 
 /**
- * This interface is implemented by all the generated Multi Data Source Config classes.
+ * This interface is implemented by all the generated Multi Data Source Config classes, except those
+ * of the {@code jdbcOnly} data sources.
+ * <p>
+ * The configs building an entity manager factory of their own implement
+ * {@link IMultiDataSourceEntityManagerFactoryConfig}, and the configs of the schema-equivalent data
+ * sources sharing the entity manager factory of the primary data source implement only this one.
  */
 public interface IMultiDataSourceConfig {
 
@@ -40,24 +43,6 @@ public interface IMultiDataSourceConfig {
    */
   DataSource dataSource(DataSourceProperties dataSourceProperties);
 
-  /**
-   * Get the entity manager factory to be used to interface with the data source.
-   *
-   * @param builder               The entity manager factory builder, used to build the entity
-   *                              manager
-   * @param beanFactory           The bean factory, used to create the entity manager factory bean
-   * @param dataSource            The data source, used to create the entity manager factory bean
-   * @param overrideJpaProperties The JPA properties, used to create the entity manager factory
-   *                              bean
-   * @return The entity manager factory bean.
-   */
-  LocalContainerEntityManagerFactoryBean entityManagerFactory(
-      Properties overrideJpaProperties,
-      DataSource dataSource,
-      EntityManagerFactoryBuilder builder,
-      ConfigurableListableBeanFactory beanFactory
-  );
-
   /**
    * Get the transaction manager to be used for the data source.
    *
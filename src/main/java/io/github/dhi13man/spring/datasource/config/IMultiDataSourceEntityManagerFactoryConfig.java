@@ -0,0 +1,33 @@
+package io.github.dhi13man.spring.datasource.config;
+
+import java.util.Properties;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+
+/**
+ * This interface is implemented by the generated Multi Data Source Config classes which build an
+ * entity manager factory of their own, which are all of them but the configs of the
+ * schema-equivalent data sources sharing the entity manager factory of the primary data source.
+ */
+public interface IMultiDataSourceEntityManagerFactoryConfig extends IMultiDataSourceConfig {
+
+  /**
+   * Get the entity manager factory to be used to interface with the data source.
+   *
+   * @param builder               The entity manager factory builder, used to build the entity
+   *                              manager
+   * @param beanFactory           The bean factory, used to create the entity manager factory bean
+   * @param dataSource            The data source, used to create the entity manager factory bean
+   * @param overrideJpaProperties The JPA properties, used to create the entity manager factory
+   *                              bean
+   * @return The entity manager factory bean.
+   */
+  LocalContainerEntityManagerFactoryBean entityManagerFactory(
+      Properties overrideJpaProperties,
+      DataSource dataSource,
+      EntityManagerFactoryBuilder builder,
+      ConfigurableListableBeanFactory beanFactory
+  );
+}
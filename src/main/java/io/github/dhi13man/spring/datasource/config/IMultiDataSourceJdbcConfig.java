@@ -0,0 +1,48 @@
+package io.github.dhi13man.spring.datasource.config;
+
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.DataSourceConfig;
+import javax.sql.DataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * This interface is implemented by the generated Multi Data Source Config classes of the
+ * {@link DataSourceConfig#jdbcOnly()} secondary data sources, which have no entity manager
+ * factory.
+ */
+public interface IMultiDataSourceJdbcConfig {
+
+  /**
+   * Get the {@link DataSourceProperties} properties for the data source to be used.
+   *
+   * @return The data source properties.
+   */
+  DataSourceProperties dataSourceProperties();
+
+  /**
+   * Get the {@link DataSource} instance for the data source to be used.
+   * <p>
+   * This is instantiated using the data source properties.
+   *
+   * @param dataSourceProperties The data source properties.
+   * @return The data source.
+   */
+  DataSource dataSource(DataSourceProperties dataSourceProperties);
+
+  /**
+   * Get the JDBC template the generated JDBC repositories of the data source run their queries on.
+   *
+   * @param dataSource The data source, used to create the JDBC template
+   * @return The JDBC template.
+   */
+  NamedParameterJdbcTemplate jdbcTemplate(DataSource dataSource);
+
+  /**
+   * Get the transaction manager to be used for the data source.
+   *
+   * @param dataSource The data source, used to create the transaction manager
+   * @return The transaction manager.
+   */
+  PlatformTransactionManager transactionManager(DataSource dataSource);
+}
@@ -0,0 +1,132 @@
+package io.github.dhi13man.spring.datasource.config;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.orm.jpa.persistenceunit.MutablePersistenceUnitInfo;
+import org.springframework.orm.jpa.persistenceunit.PersistenceUnitPostProcessor;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Narrows the managed types of the persistence unit of a secondary data source to the entity
+ * types its generated repository copies use, computed at compile time.
+ * <p>
+ * The types scanned from the entity packages of the data source are replaced by the computed
+ * types, so that the entity manager factory only builds the metamodels of the entities it can
+ * query. The scanned types which are not entities, embeddables or mapped superclasses (eg.
+ * attribute converters) are kept, as are the scanned subclasses of the computed entities, which
+ * their queries may return.
+ */
+public class MultiDataSourceManagedTypesPostProcessor implements PersistenceUnitPostProcessor {
+
+  private static final Log LOGGER = LogFactory
+      .getLog(MultiDataSourceManagedTypesPostProcessor.class);
+
+  private static final Set<String> ENTITY_ANNOTATION_NAMES = Set.of(
+      "jakarta.persistence.Entity",
+      "javax.persistence.Entity"
+  );
+
+  private static final Set<String> PERSISTENT_TYPE_ANNOTATION_NAMES = Set.of(
+      "jakarta.persistence.Entity",
+      "jakarta.persistence.Embeddable",
+      "jakarta.persistence.MappedSuperclass",
+      "javax.persistence.Entity",
+      "javax.persistence.Embeddable",
+      "javax.persistence.MappedSuperclass"
+  );
+
+  private final @Nonnull List<String> managedTypeNames;
+
+  /**
+   * Constructor for the managed types post processor.
+   *
+   * @param managedTypeNames the binary names of the entities, embeddables and mapped superclasses
+   *                         the repository copies of the data source use
+   */
+  public MultiDataSourceManagedTypesPostProcessor(@Nonnull String... managedTypeNames) {
+    this.managedTypeNames = List.of(managedTypeNames);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Replaces the scanned managed types of the persistence unit with the computed ones, keeping the
+   * scanned types which are not persistent types or subclass a computed entity.
+   *
+   * @param persistenceUnitInfo the persistence unit to narrow the managed types of
+   */
+  @Override
+  public void postProcessPersistenceUnitInfo(
+      @Nonnull MutablePersistenceUnitInfo persistenceUnitInfo
+  ) {
+    final ClassLoader classLoader = persistenceUnitInfo.getClassLoader() != null
+        ? persistenceUnitInfo.getClassLoader() : ClassUtils.getDefaultClassLoader();
+    final List<Class<?>> managedEntities = managedTypeNames.stream()
+        .map(managedTypeName -> this.loadClass(managedTypeName, classLoader))
+        .filter(managedType -> managedType != null
+            && this.hasAnyAnnotation(managedType, ENTITY_ANNOTATION_NAMES))
+        .collect(Collectors.toList());
+
+    final List<String> scannedTypeNames = new ArrayList<>(
+        persistenceUnitInfo.getManagedClassNames()
+    );
+    final Set<String> keptTypeNames = new LinkedHashSet<>(managedTypeNames);
+    for (final String scannedTypeName : scannedTypeNames) {
+      final Class<?> scannedType = this.loadClass(scannedTypeName, classLoader);
+      final boolean isKept = scannedType == null
+          || !this.hasAnyAnnotation(scannedType, PERSISTENT_TYPE_ANNOTATION_NAMES)
+          || managedEntities.stream().anyMatch(entity -> entity.isAssignableFrom(scannedType));
+      if (isKept) {
+        keptTypeNames.add(scannedTypeName);
+      }
+    }
+
+    persistenceUnitInfo.getManagedClassNames().clear();
+    keptTypeNames.forEach(persistenceUnitInfo::addManagedClassName);
+    persistenceUnitInfo.setExcludeUnlistedClasses(true);
+    LOGGER.info("Narrowed the managed types of persistence unit "
+        + persistenceUnitInfo.getPersistenceUnitName() + " from " + scannedTypeNames.size()
+        + " scanned to " + keptTypeNames.size() + " used by its repository copies");
+  }
+
+  /**
+   * Load a class, without initializing it.
+   *
+   * @param className   the binary name of the class
+   * @param classLoader the {@link ClassLoader} to load the class with
+   * @return the class, or null if it can not be loaded
+   */
+  private @Nullable Class<?> loadClass(
+      @Nonnull String className,
+      @Nullable ClassLoader classLoader
+  ) {
+    try {
+      return Class.forName(className, false, classLoader);
+    } catch (ClassNotFoundException | LinkageError e) {
+      LOGGER.warn("Could not load managed type " + className, e);
+      return null;
+    }
+  }
+
+  /**
+   * Whether a class is annotated with any of the given annotations.
+   *
+   * @param type            the class to check
+   * @param annotationNames the names of the annotations
+   * @return whether the class is annotated with any of the annotations
+   */
+  private boolean hasAnyAnnotation(@Nonnull Class<?> type, @Nonnull Set<String> annotationNames) {
+    return Arrays.stream(type.getAnnotations())
+        .map(Annotation::annotationType)
+        .anyMatch(annotationType -> annotationNames.contains(annotationType.getName()));
+  }
+}
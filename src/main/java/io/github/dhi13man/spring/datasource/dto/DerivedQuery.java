@@ -0,0 +1,222 @@
+package io.github.dhi13man.spring.datasource.dto;
+
+import java.util.List;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Model of a Spring Data derived query method name (eg. {@code findByCustomIdAndDate}), parsed at
+ * compile time, from which the query itself can be rendered.
+ * <p>
+ * The criteria are held in disjunctive normal form, as in the method name: the query matches the
+ * rows matching all the criteria of any of its criteria groups. The property paths are resolved
+ * against the entity, with {@code .} between the properties of nested paths, and the paths of the
+ * collection properties they go through are kept apart, as they can not be navigated with a
+ * {@code .} in JPQL.
+ */
+public class DerivedQuery {
+
+  private final @Nonnull Action action;
+
+  private final boolean distinct;
+
+  private final @Nullable Integer maxResults;
+
+  private final boolean allIgnoringCase;
+
+  private final @Nonnull List<List<Criterion>> criteriaGroups;
+
+  private final @Nonnull List<Order> orders;
+
+  private final @Nonnull Set<String> collectionPropertyPaths;
+
+  public DerivedQuery(
+      @Nonnull Action action,
+      boolean distinct,
+      @Nullable Integer maxResults,
+      boolean allIgnoringCase,
+      @Nonnull List<List<Criterion>> criteriaGroups,
+      @Nonnull List<Order> orders,
+      @Nonnull Set<String> collectionPropertyPaths
+  ) {
+    this.action = action;
+    this.distinct = distinct;
+    this.maxResults = maxResults;
+    this.allIgnoringCase = allIgnoringCase;
+    this.criteriaGroups = criteriaGroups;
+    this.orders = orders;
+    this.collectionPropertyPaths = collectionPropertyPaths;
+  }
+
+  public @Nonnull Action getAction() {
+    return action;
+  }
+
+  public boolean isDistinct() {
+    return distinct;
+  }
+
+  public @Nullable Integer getMaxResults() {
+    return maxResults;
+  }
+
+  public boolean isAllIgnoringCase() {
+    return allIgnoringCase;
+  }
+
+  public @Nonnull List<List<Criterion>> getCriteriaGroups() {
+    return criteriaGroups;
+  }
+
+  public @Nonnull List<Order> getOrders() {
+    return orders;
+  }
+
+  /**
+   * The paths of the collection properties the property paths of the criteria and orders go
+   * through or end at, eg. {@code orders} for {@code orders.status}.
+   *
+   * @return the paths of the collection properties
+   */
+  public @Nonnull Set<String> getCollectionPropertyPaths() {
+    return collectionPropertyPaths;
+  }
+
+  /**
+   * The number of method arguments bound by the criteria of the query.
+   *
+   * @return the number of arguments of the criteria
+   */
+  public int getArgumentCount() {
+    return criteriaGroups.stream()
+        .flatMap(List::stream)
+        .mapToInt(criterion -> criterion.getOperator().getArgumentCount())
+        .sum();
+  }
+
+  /**
+   * What a derived query does with the rows it matches, from the prefix of its method name.
+   */
+  public enum Action {
+    /**
+     * Return the rows ({@code find}, {@code read}, {@code get}, {@code query}, {@code search} or
+     * {@code stream}).
+     */
+    FIND,
+
+    /**
+     * Return the number of rows ({@code count}).
+     */
+    COUNT,
+
+    /**
+     * Return whether any row matches ({@code exists}).
+     */
+    EXISTS
+  }
+
+  /**
+   * The comparison of a criterion, with the keywords of a method name selecting it, in the order
+   * Spring Data matches them.
+   */
+  public enum Operator {
+    IS_NOT_NULL(0, "IsNotNull", "NotNull"),
+    IS_NULL(0, "IsNull", "Null"),
+    BETWEEN(2, "IsBetween", "Between"),
+    LESS_THAN(1, "IsLessThan", "LessThan"),
+    LESS_THAN_EQUAL(1, "IsLessThanEqual", "LessThanEqual"),
+    GREATER_THAN(1, "IsGreaterThan", "GreaterThan"),
+    GREATER_THAN_EQUAL(1, "IsGreaterThanEqual", "GreaterThanEqual"),
+    BEFORE(1, "IsBefore", "Before"),
+    AFTER(1, "IsAfter", "After"),
+    NOT_LIKE(1, "IsNotLike", "NotLike"),
+    LIKE(1, "IsLike", "Like"),
+    STARTING_WITH(1, "IsStartingWith", "StartingWith", "StartsWith"),
+    ENDING_WITH(1, "IsEndingWith", "EndingWith", "EndsWith"),
+    IS_NOT_EMPTY(0, "IsNotEmpty", "NotEmpty"),
+    IS_EMPTY(0, "IsEmpty", "Empty"),
+    NOT_CONTAINING(1, "IsNotContaining", "NotContaining", "NotContains"),
+    CONTAINING(1, "IsContaining", "Containing", "Contains"),
+    NOT_IN(1, "IsNotIn", "NotIn"),
+    IN(1, "IsIn", "In"),
+    TRUE(0, "IsTrue", "True"),
+    FALSE(0, "IsFalse", "False"),
+    NEGATING_SIMPLE_PROPERTY(1, "IsNot", "Not"),
+    SIMPLE_PROPERTY(1, "Is", "Equals");
+
+    private final int argumentCount;
+
+    private final @Nonnull List<String> keywords;
+
+    Operator(int argumentCount, @Nonnull String... keywords) {
+      this.argumentCount = argumentCount;
+      this.keywords = List.of(keywords);
+    }
+
+    public int getArgumentCount() {
+      return argumentCount;
+    }
+
+    public @Nonnull List<String> getKeywords() {
+      return keywords;
+    }
+  }
+
+  /**
+   * A criterion of a derived query on a property of the entity.
+   */
+  public static class Criterion {
+
+    private final @Nonnull String propertyPath;
+
+    private final @Nonnull Operator operator;
+
+    private final boolean ignoringCase;
+
+    public Criterion(
+        @Nonnull String propertyPath,
+        @Nonnull Operator operator,
+        boolean ignoringCase
+    ) {
+      this.propertyPath = propertyPath;
+      this.operator = operator;
+      this.ignoringCase = ignoringCase;
+    }
+
+    public @Nonnull String getPropertyPath() {
+      return propertyPath;
+    }
+
+    public @Nonnull Operator getOperator() {
+      return operator;
+    }
+
+    public boolean isIgnoringCase() {
+      return ignoringCase;
+    }
+  }
+
+  /**
+   * An order of the results of a derived query by a property of the entity.
+   */
+  public static class Order {
+
+    private final @Nonnull String propertyPath;
+
+    private final boolean descending;
+
+    public Order(@Nonnull String propertyPath, boolean descending) {
+      this.propertyPath = propertyPath;
+      this.descending = descending;
+    }
+
+    public @Nonnull String getPropertyPath() {
+      return propertyPath;
+    }
+
+    public boolean isDescending() {
+      return descending;
+    }
+  }
+}
@@ -4,35 +4,85 @@ package io.github.dhi13man.spring.datasource.generators;
 import static io.github.dhi13man.spring.datasource.processor.TargetDataSourceAnnotationProcessor.GENERATED_REPOSITORIES_PACKAGE_SUFFIX;
 
 import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterSpec;
 import com.squareup.javapoet.TypeSpec;
+import io.github.dhi13man.spring.datasource.annotations.AsyncExecutor;
+import io.github.dhi13man.spring.datasource.annotations.CircuitBreaker;
+import io.github.dhi13man.spring.datasource.annotations.CoalescedRead;
+import io.github.dhi13man.spring.datasource.annotations.ConcurrencyLimit;
+import io.github.dhi13man.spring.datasource.annotations.ConcurrencyLimit.OverloadAction;
+import io.github.dhi13man.spring.datasource.annotations.ConnectionBudget;
 import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.DataSourceConfig;
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.RoutingMode;
+import io.github.dhi13man.spring.datasource.annotations.PerformanceProfile;
+import io.github.dhi13man.spring.datasource.annotations.ReadYourWrites;
 import io.github.dhi13man.spring.datasource.annotations.TargetSecondaryDataSource;
 import io.github.dhi13man.spring.datasource.config.IGeneratedDataSourceRepository;
 import io.github.dhi13man.spring.datasource.config.IMultiDataSourceConfig;
+import io.github.dhi13man.spring.datasource.config.IMultiDataSourceEntityManagerFactoryConfig;
+import io.github.dhi13man.spring.datasource.config.IMultiDataSourceJdbcConfig;
+import io.github.dhi13man.spring.datasource.config.MultiDataSourceManagedTypesPostProcessor;
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceBulkheadExecutor;
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceCircuitBreaker;
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceCircuitBreakerDataSource;
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceConcurrencyLimitedDataSource;
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceConcurrencyLimiter;
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceConcurrencyLimiterMetrics;
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceConnectionBudgetValidator;
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceSharedConnectionPoolPostProcessor;
+import io.github.dhi13man.spring.datasource.repository.MultiDataSourceQueryPlanWarmer;
+import io.github.dhi13man.spring.datasource.repository.MultiDataSourceJdbcRepository;
+import io.github.dhi13man.spring.datasource.repository.MultiDataSourceRepositoryMetrics;
+import io.github.dhi13man.spring.datasource.repository.MultiDataSourceRepositoryPostProcessor;
+import io.github.dhi13man.spring.datasource.routing.MultiDataSourceBeanAliasRegistrar;
+import io.github.dhi13man.spring.datasource.routing.MultiDataSourceReadYourWrites;
+import io.github.dhi13man.spring.datasource.routing.MultiDataSourceReadYourWritesDataSource;
+import io.github.dhi13man.spring.datasource.routing.MultiDataSourceRoutingDataSource;
+import io.github.dhi13man.spring.datasource.routing.MultiDataSourceRoutingRepositoryPostProcessor;
+import io.github.dhi13man.spring.datasource.routing.MultiDataSourceRoutingTransactionManager;
 import io.github.dhi13man.spring.datasource.utils.MultiDataSourceCommonStringUtils;
+import io.github.dhi13man.spring.datasource.utils.MultiDataSourceConnectionPoolUtils;
 import io.github.dhi13man.spring.datasource.utils.MultiDataSourceGeneratorUtils;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.lang.model.element.Modifier;
 import javax.sql.DataSource;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ListableBeanFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.ComponentScan.Filter;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.FilterType;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.orm.hibernate5.SpringBeanContainer;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.util.StringUtils;
 
 /**
  * Annotation processor to generate config classes for all the repositories annotated with
@@ -59,10 +109,90 @@ public class MultiDataSourceConfigGenerator {
 
   private static final String TRANSACTION_MANAGER_BEAN_NAME_CONSTANT_NAME = "TRANSACTION_MANAGER_BEAN_NAME";
 
+  private static final String ASYNC_EXECUTOR_BEAN_NAME_CONSTANT_NAME = "ASYNC_EXECUTOR_BEAN_NAME";
+
+  private static final String CONCURRENCY_LIMITER_BEAN_NAME_CONSTANT_NAME = "CONCURRENCY_LIMITER_BEAN_NAME";
+
+  private static final String CIRCUIT_BREAKER_BEAN_NAME_CONSTANT_NAME = "CIRCUIT_BREAKER_BEAN_NAME";
+
+  private static final String READ_YOUR_WRITES_BEAN_NAME_CONSTANT_NAME = "READ_YOUR_WRITES_BEAN_NAME";
+
+  private static final String CONCURRENCY_LIMITER_METRICS_BEAN_NAME_CONSTANT_NAME = "CONCURRENCY_LIMITER_METRICS_BEAN_NAME";
+
+  private static final String CONCURRENCY_LIMITER_METRICS_BEAN_SUFFIX = "-concurrency-limiter-metrics";
+
+  private static final String CONCURRENCY_LIMITER_METRICS_CONFIG_CLASS_NAME = "ConcurrencyLimiterMetricsConfig";
+
+  private static final String MICROMETER_METER_BINDER_CLASS_NAME = "io.micrometer.core.instrument.binder.MeterBinder";
+
   private static final String DATA_SOURCE_ENTITY_PACKAGES_CONSTANT_NAME = "DATA_SOURCE_ENTITY_PACKAGES";
 
+  private static final String DATA_SOURCE_MANAGED_TYPES_CONSTANT_NAME = "DATA_SOURCE_MANAGED_TYPES";
+
+  private static final String JDBC_TEMPLATE_BEAN_NAME_CONSTANT_NAME = "JDBC_TEMPLATE_BEAN_NAME";
+
+  private static final String MAXIMUM_POOL_SIZE_CONSTANT_NAME = "MAXIMUM_POOL_SIZE";
+
+  private static final String MAX_CONNECTIONS_CONSTANT_NAME = "MAX_CONNECTIONS";
+
+  private static final String CONNECTION_BUDGET_VALIDATOR_BEAN_NAME_CONSTANT_NAME = "CONNECTION_BUDGET_VALIDATOR_BEAN_NAME";
+
+  private static final String CONNECTION_BUDGET_VALIDATOR_BEAN_NAME = "multi-data-source-connection-budget-validator";
+
+  private static final String SHARED_CONNECTION_POOL_POST_PROCESSOR_BEAN_NAME_CONSTANT_NAME = "SHARED_CONNECTION_POOL_POST_PROCESSOR_BEAN_NAME";
+
+  private static final String SHARED_CONNECTION_POOL_POST_PROCESSOR_BEAN_NAME = "multi-data-source-shared-connection-pool-post-processor";
+
+  private static final String ROUTING_DATA_SOURCE_BEAN_NAME_CONSTANT_NAME = "ROUTING_DATA_SOURCE_BEAN_NAME";
+
+  private static final String ROUTING_DATA_SOURCE_BEAN_NAME = "multi-data-source-routing-data-source";
+
+  private static final String ROUTING_REPOSITORY_POST_PROCESSOR_BEAN_NAME_CONSTANT_NAME = "ROUTING_REPOSITORY_POST_PROCESSOR_BEAN_NAME";
+
+  private static final String ROUTING_REPOSITORY_POST_PROCESSOR_BEAN_NAME = "multi-data-source-routing-repository-post-processor";
+
+  private static final String ENTITY_MANAGER_FACTORY_ALIAS_REGISTRAR_BEAN_NAME_CONSTANT_NAME = "ENTITY_MANAGER_FACTORY_ALIAS_REGISTRAR_BEAN_NAME";
+
+  private static final String ENTITY_MANAGER_FACTORY_ALIAS_REGISTRAR_BEAN_NAME = "multi-data-source-entity-manager-factory-alias-registrar";
+
+  private static final String REPOSITORY_POST_PROCESSOR_BEAN_NAME_CONSTANT_NAME = "REPOSITORY_POST_PROCESSOR_BEAN_NAME";
+
+  private static final String REPOSITORY_POST_PROCESSOR_BEAN_NAME = "multi-data-source-repository-post-processor";
+
+  private static final String QUERY_PLAN_WARMER_BEAN_NAME_CONSTANT_NAME = "QUERY_PLAN_WARMER_BEAN_NAME";
+
+  private static final String QUERY_PLAN_WARMER_BEAN_NAME = "multi-data-source-query-plan-warmer";
+
+  private static final String REPOSITORY_METRICS_BEAN_NAME_CONSTANT_NAME = "REPOSITORY_METRICS_BEAN_NAME";
+
+  private static final String REPOSITORY_METRICS_BEAN_NAME = "multi-data-source-repository-metrics";
+
+  private static final String REPOSITORY_METRICS_CONFIG_CLASS_NAME = "RepositoryMetricsConfig";
+
+  private static final String DATA_SOURCE_CLASS_PROPERTIES_PATH_SUFFIX = ".hikari";
+
+  private static final String DEFAULT_DATA_SOURCE_CLASS_PROPERTIES_PATH = "spring.datasource.hikari";
+
   private static final String ADD_THE_SPRING_BEAN_CONTAINER_TO_THE_HIBERNATE_PROPERTIES = "Adds the SpringBeanContainer to the hibernate properties to allow the use of Spring beans in JPQL queries";
 
+  private static final String ADD_THE_PERFORMANCE_PROFILE_TO_THE_JPA_PROPERTIES = "Performance profile of the data source, overridable by the overriding JPA properties";
+
+  private static final String REGISTER_ONLY_THE_MANAGED_TYPES_OF_THE_REPOSITORY_COPIES = "Register only the managed types used by the repository copies of the data source";
+
+  private static final String ROUTE_ALL_TRANSACTIONS_TO_THE_DATA_SOURCE = "Schema-equivalent data source: every transaction on the shared entity manager factory is routed to this data source";
+
+  private static final String REJECT_JOINING_THE_ROUTED_TRANSACTIONS = "Primary data source on the routing data source: transactions never join those routed to the schema-equivalent data sources";
+
+  private static final String ADD_THE_TIMEOUTS_TO_THE_JPA_PROPERTIES = "Default query and lock timeouts of the data source, overridable by the overriding JPA properties";
+
+  private static final String CONNECTION_INIT_SQL_CONSTANT_NAME = "CONNECTION_INIT_SQL";
+
+  private static final String SET_THE_PER_DATA_SOURCE_POOL_DEFAULTS = "Per data source pool defaults, overridable by the data source class properties";
+
+  private static final String BEGIN_ALL_TRANSACTIONS_AS_READ_ONLY = "Read-only data source: Hibernate skips dirty-checking snapshots, uses FlushMode.MANUAL and marks the JDBC connection read-only";
+
+  private static final String BEGIN_ALL_JDBC_TRANSACTIONS_AS_READ_ONLY = "Read-only data source: every transaction marks its JDBC connection read-only";
+
   private static final String VALUE_FIELD_NAME_STRING = "value";
 
   private static final String HIBERNATE_BEAN_CONTAINER_PROPERTY_CONSTANT_NAME = "HIBERNATE_BEAN_CONTAINER_PROPERTY";
@@ -89,6 +219,9 @@ public class MultiDataSourceConfigGenerator {
    * This configuration class will contain beans for the data source properties, data source, entity
    * manager factory and transaction manager and provide the proper constants for the bean names, to
    * conveniently auto-wire them where needed.
+   * <p>
+   * If the {@link AsyncExecutor} of the data source is enabled, it also contains the executor bean
+   * for its asynchronous repository methods, and enables {@link EnableAsync}.
    *
    * @param dataSourceConfig            the {@link DataSourceConfig} for which the configuration
    *                                    class is being generated
@@ -103,6 +236,19 @@ public class MultiDataSourceConfigGenerator {
    *                                    {@link EnableJpaRepositories} annotation)
    * @param dataSourceEntityPackages    the exact packages where the entities associated with the
    *                                    data source are located
+   * @param maximumPoolSize             the share of the {@link ConnectionBudget} of the data source
+   *                                    to use as its default maximum pool size, or
+   *                                    {@link ConnectionBudget#UNLIMITED} if there is no budget
+   * @param routingConfigClassName      the name of the generated routing configuration class in
+   *                                    the same package, whose routing data source the entity
+   *                                    manager factory uses in {@link RoutingMode#RUNTIME_ROUTING},
+   *                                    or null to use the data source of this configuration class.
+   *                                    A secondary data source given it is
+   *                                    {@link DataSourceConfig#schemaEquivalent()}, and shares the
+   *                                    primary entity manager factory instead
+   * @param managedTypeNames            the binary names of the only managed types to register in
+   *                                    the entity manager factory, or null to register all the
+   *                                    types in the entity packages
    * @return the {@link TypeSpec} for a data source Spring Configuration class
    */
   public @Nonnull TypeSpec generateMultiDataSourceConfigTypeElement(
@@ -111,7 +257,10 @@ public class MultiDataSourceConfigGenerator {
       @Nonnull String dataSourceConfigClassName,
       @Nonnull String dataSourcePropertiesPath,
       @Nonnull String[] repositoryPackagesToInclude,
-      @Nonnull String[] dataSourceEntityPackages
+      @Nonnull String[] dataSourceEntityPackages,
+      int maximumPoolSize,
+      @Nullable String routingConfigClassName,
+      @Nullable String[] managedTypeNames
   ) {
     // Constants exposing important bean names
     final FieldSpec dataSourcePropertiesBeanNameField = multiDataSourceGeneratorUtils.createConstantStringFieldSpec(
@@ -138,10 +287,49 @@ public class MultiDataSourceConfigGenerator {
         DATA_SOURCE_ENTITY_PACKAGES_CONSTANT_NAME,
         dataSourceEntityPackages
     );
+    final FieldSpec managedTypesField = managedTypeNames == null ? null
+        : multiDataSourceGeneratorUtils.createConstantStringFieldSpec(
+            DATA_SOURCE_MANAGED_TYPES_CONSTANT_NAME,
+            managedTypeNames
+        );
     final FieldSpec hibernateBeanContainerPropertyField = multiDataSourceGeneratorUtils.createConstantStringFieldSpec(
         HIBERNATE_BEAN_CONTAINER_PROPERTY_CONSTANT_NAME,
         HIBERNATE_BEAN_CONTAINER_PROPERTY_PATH
     );
+    final FieldSpec maximumPoolSizeField = maximumPoolSize == ConnectionBudget.UNLIMITED ? null
+        : multiDataSourceGeneratorUtils
+            .createConstantIntFieldSpec(MAXIMUM_POOL_SIZE_CONSTANT_NAME, maximumPoolSize);
+    final AsyncExecutor asyncExecutor = dataSourceConfig.asyncExecutor();
+    final FieldSpec asyncExecutorBeanNameField = !asyncExecutor.enabled() ? null
+        : multiDataSourceGeneratorUtils.createConstantStringFieldSpec(
+            ASYNC_EXECUTOR_BEAN_NAME_CONSTANT_NAME,
+            dataSourceConfig.dataSourceName() + MultiDataSourceBulkheadExecutor.BEAN_NAME_SUFFIX
+        );
+    final ConcurrencyLimit concurrencyLimit = dataSourceConfig.concurrencyLimit();
+    final FieldSpec concurrencyLimiterBeanNameField = !concurrencyLimit.enabled() ? null
+        : multiDataSourceGeneratorUtils.createConstantStringFieldSpec(
+            CONCURRENCY_LIMITER_BEAN_NAME_CONSTANT_NAME,
+            dataSourceConfig.dataSourceName() + MultiDataSourceConcurrencyLimiter.BEAN_NAME_SUFFIX
+        );
+    final CircuitBreaker circuitBreaker = dataSourceConfig.circuitBreaker();
+    final FieldSpec circuitBreakerBeanNameField = !circuitBreaker.enabled() ? null
+        : multiDataSourceGeneratorUtils.createConstantStringFieldSpec(
+            CIRCUIT_BREAKER_BEAN_NAME_CONSTANT_NAME,
+            dataSourceConfig.dataSourceName() + MultiDataSourceCircuitBreaker.BEAN_NAME_SUFFIX
+        );
+    final ReadYourWrites readYourWrites = dataSourceConfig.readYourWrites();
+    final FieldSpec readYourWritesBeanNameField = isPrimaryConfig || !readYourWrites.enabled()
+        ? null
+        : multiDataSourceGeneratorUtils.createConstantStringFieldSpec(
+            READ_YOUR_WRITES_BEAN_NAME_CONSTANT_NAME,
+            dataSourceConfig.dataSourceName() + MultiDataSourceReadYourWrites.BEAN_NAME_SUFFIX
+        );
+    final FieldSpec connectionInitSqlField = !StringUtils
+        .hasText(dataSourceConfig.connectionInitSql()) ? null
+        : multiDataSourceGeneratorUtils.createConstantStringFieldSpec(
+            CONNECTION_INIT_SQL_CONSTANT_NAME,
+            dataSourceConfig.connectionInitSql()
+        );
 
     // Create the config class level annotations
     final AnnotationSpec enableJpaRepositoriesAnnotation = this.generateEnableJpaRepositoriesAnnotation(
@@ -177,35 +365,61 @@ public class MultiDataSourceConfigGenerator {
         isPrimaryConfig,
         this.createDataSourceBeanMethod(
             dataSourceBeanNameField,
-            dataSourceConfig.dataSourceClassPropertiesPath(),
-            dataSourcePropertiesBeanNameField
+            this.getDataSourceClassPropertiesPath(dataSourceConfig, dataSourcePropertiesPath),
+            dataSourcePropertiesBeanNameField,
+            maximumPoolSizeField,
+            connectionInitSqlField
         )
     );
 
-    // EntityManagerFactory bean
-    final MethodSpec entityManagerFactoryMethod = this.addPrimaryAnnotationIfPrimaryConfigAndBuild(
-        isPrimaryConfig,
-        this.createEntityManagerFactoryBeanMethod(
-            entityManagerFactoryBeanNameField,
-            dataSourceBeanNameField,
-            overrideJpaPropertiesBeanNameField,
-            dataSourceEntityPackageField,
-            hibernateBeanContainerPropertyField
-        )
-    );
+    // EntityManagerFactory bean, on the routing data source in runtime routing mode, which breaks
+    // the circuit of and limits the concurrency of each data source itself. Schema-equivalent
+    // secondary data sources share the primary entity manager factory instead of building one.
+    final boolean isSharingPrimaryEntityManagerFactory = !isPrimaryConfig
+        && routingConfigClassName != null;
+    final boolean isOnRoutingDataSource = isPrimaryConfig && routingConfigClassName != null;
+    final CodeBlock entityManagerFactoryDataSourceBeanName = !isOnRoutingDataSource
+        ? CodeBlock.of("$N", dataSourceBeanNameField)
+        : CodeBlock
+            .of("$L.$L", routingConfigClassName, ROUTING_DATA_SOURCE_BEAN_NAME_CONSTANT_NAME);
+    final MethodSpec entityManagerFactoryMethod = isSharingPrimaryEntityManagerFactory ? null
+        : this.addPrimaryAnnotationIfPrimaryConfigAndBuild(
+            isPrimaryConfig,
+            this.createEntityManagerFactoryBeanMethod(
+                entityManagerFactoryBeanNameField,
+                dataSourceBeanNameField,
+                entityManagerFactoryDataSourceBeanName,
+                !isOnRoutingDataSource ? circuitBreakerBeanNameField : null,
+                !isOnRoutingDataSource ? concurrencyLimiterBeanNameField : null,
+                readYourWritesBeanNameField,
+                overrideJpaPropertiesBeanNameField,
+                dataSourceEntityPackageField,
+                managedTypesField,
+                hibernateBeanContainerPropertyField,
+                multiDataSourceGeneratorUtils
+                    .getPerformanceProfileJpaProperties(dataSourceConfig.performanceProfile()),
+                multiDataSourceGeneratorUtils.getTimeoutJpaProperties(dataSourceConfig)
+            )
+        );
 
     // TransactionManager bean
     final MethodSpec transactionManagerMethod = this.addPrimaryAnnotationIfPrimaryConfigAndBuild(
         isPrimaryConfig,
         this.createTransactionManagerBeanMethod(
             transactionManagerBeanNameField,
-            entityManagerFactoryBeanNameField
+            entityManagerFactoryBeanNameField,
+            dataSourceConfig.readOnly(),
+            isOnRoutingDataSource,
+            isSharingPrimaryEntityManagerFactory ? dataSourceConfig.dataSourceName() : null
         )
     );
 
     // Create the config class
-    return TypeSpec.classBuilder(dataSourceConfigClassName)
-        .addSuperinterface(IMultiDataSourceConfig.class)
+    final TypeSpec.Builder configTypeSpecBuilder = TypeSpec.classBuilder(dataSourceConfigClassName)
+        .addSuperinterface(
+            isSharingPrimaryEntityManagerFactory ? IMultiDataSourceConfig.class
+                : IMultiDataSourceEntityManagerFactoryConfig.class
+        )
         .addAnnotation(Configuration.class)
         .addAnnotation(enableJpaRepositoriesAnnotation)
         .addModifiers(Modifier.PUBLIC)
@@ -215,15 +429,626 @@ public class MultiDataSourceConfigGenerator {
         .addField(entityManagerFactoryBeanNameField)
         .addField(transactionManagerBeanNameField)
         .addField(dataSourceEntityPackageField)
-        .addField(hibernateBeanContainerPropertyField)
+        .addField(hibernateBeanContainerPropertyField);
+    if (managedTypesField != null) {
+      configTypeSpecBuilder.addField(managedTypesField);
+    }
+    if (maximumPoolSizeField != null) {
+      configTypeSpecBuilder.addField(maximumPoolSizeField);
+    }
+    if (connectionInitSqlField != null) {
+      configTypeSpecBuilder.addField(connectionInitSqlField);
+    }
+    configTypeSpecBuilder
         .addMethod(dataSourcePropertiesMethod)
         .addMethod(overridingJpaPropertiesMethod)
+        .addMethod(dataSourceMethod);
+    if (entityManagerFactoryMethod != null) {
+      configTypeSpecBuilder.addMethod(entityManagerFactoryMethod);
+    }
+    configTypeSpecBuilder.addMethod(transactionManagerMethod);
+
+    // Concurrency limiter bean, with its metrics if Micrometer is available
+    if (concurrencyLimiterBeanNameField != null) {
+      configTypeSpecBuilder.addField(concurrencyLimiterBeanNameField)
+          .addMethod(
+              this.createConcurrencyLimiterBeanMethod(
+                  concurrencyLimiterBeanNameField,
+                  dataSourceBeanNameField,
+                  dataSourceConfig.dataSourceName(),
+                  concurrencyLimit
+              ).build()
+          )
+          .addType(
+              this.createConcurrencyLimiterMetricsConfigType(
+                  dataSourceConfig.dataSourceName(),
+                  concurrencyLimiterBeanNameField
+              )
+          );
+    }
+
+    // Circuit breaker bean
+    if (circuitBreakerBeanNameField != null) {
+      configTypeSpecBuilder.addField(circuitBreakerBeanNameField)
+          .addMethod(
+              this.createCircuitBreakerBeanMethod(
+                  circuitBreakerBeanNameField,
+                  dataSourceConfig.dataSourceName(),
+                  circuitBreaker
+              ).build()
+          );
+    }
+
+    // Read-your-writes stickiness bean
+    if (readYourWritesBeanNameField != null) {
+      configTypeSpecBuilder.addField(readYourWritesBeanNameField)
+          .addMethod(
+              this.createReadYourWritesBeanMethod(
+                  readYourWritesBeanNameField,
+                  dataSourceConfig.dataSourceName(),
+                  readYourWrites
+              ).build()
+          );
+    }
+
+    // Async executor bean, never primary so that it is only used by the methods naming it
+    if (asyncExecutorBeanNameField != null) {
+      configTypeSpecBuilder.addAnnotation(EnableAsync.class)
+          .addField(asyncExecutorBeanNameField)
+          .addMethod(
+              this.createAsyncExecutorBeanMethod(
+                  asyncExecutorBeanNameField,
+                  dataSourceBeanNameField,
+                  asyncExecutor
+              ).build()
+          );
+    }
+    return configTypeSpecBuilder.build();
+  }
+
+  /**
+   * Generate the {@link TypeSpec} for the Spring Configuration class of a
+   * {@link DataSourceConfig#jdbcOnly()} secondary data source.
+   * <p>
+   * This configuration class contains beans for the data source properties, data source,
+   * {@link NamedParameterJdbcTemplate} and {@link DataSourceTransactionManager}, with the same bean
+   * name constants as the other data source configuration classes, but no entity manager factory.
+   * It scans the generated JDBC repositories of the data source, instead of enabling JPA
+   * repositories.
+   *
+   * @param dataSourceConfig            the {@link DataSourceConfig} for which the configuration
+   *                                    class is being generated
+   * @param dataSourceConfigClassName   the name of the data source configuration class being
+   *                                    generated
+   * @param dataSourcePropertiesPath    the path of where the properties of the data source are
+   *                                    located in application.properties
+   * @param repositoryPackagesToInclude the packages where the repositories associated with the data
+   *                                    source are located (to be scanned for its generated JDBC
+   *                                    repositories)
+   * @param maximumPoolSize             the share of the {@link ConnectionBudget} of the data source
+   *                                    to use as its default maximum pool size, or
+   *                                    {@link ConnectionBudget#UNLIMITED} if there is no budget
+   * @return the {@link TypeSpec} for a JDBC data source Spring Configuration class
+   */
+  public @Nonnull TypeSpec generateJdbcDataSourceConfigTypeElement(
+      @Nonnull DataSourceConfig dataSourceConfig,
+      @Nonnull String dataSourceConfigClassName,
+      @Nonnull String dataSourcePropertiesPath,
+      @Nonnull String[] repositoryPackagesToInclude,
+      int maximumPoolSize
+  ) {
+    // Constants exposing important bean names
+    final FieldSpec dataSourcePropertiesBeanNameField = multiDataSourceGeneratorUtils.createConstantStringFieldSpec(
+        DATA_SOURCE_PROPERTIES_BEAN_NAME_CONSTANT_NAME,
+        dataSourceConfig.dataSourceName() + DATA_SOURCE_PROPERTIES_BEAN_SUFFIX
+    );
+    final FieldSpec dataSourceBeanNameField = multiDataSourceGeneratorUtils.createConstantStringFieldSpec(
+        DATA_SOURCE_BEAN_NAME_CONSTANT_NAME,
+        dataSourceConfig.dataSourceName() + DATA_SOURCE_BEAN_SUFFIX
+    );
+    final FieldSpec jdbcTemplateBeanNameField = multiDataSourceGeneratorUtils.createConstantStringFieldSpec(
+        JDBC_TEMPLATE_BEAN_NAME_CONSTANT_NAME,
+        dataSourceConfig.dataSourceName()
+            + MultiDataSourceJdbcRepository.JDBC_TEMPLATE_BEAN_NAME_SUFFIX
+    );
+    final FieldSpec transactionManagerBeanNameField = multiDataSourceGeneratorUtils.createConstantStringFieldSpec(
+        TRANSACTION_MANAGER_BEAN_NAME_CONSTANT_NAME,
+        dataSourceConfig.dataSourceName() + TRANSACTION_MANAGER_BEAN_SUFFIX
+    );
+    final FieldSpec maximumPoolSizeField = maximumPoolSize == ConnectionBudget.UNLIMITED ? null
+        : multiDataSourceGeneratorUtils
+            .createConstantIntFieldSpec(MAXIMUM_POOL_SIZE_CONSTANT_NAME, maximumPoolSize);
+    final FieldSpec connectionInitSqlField = !StringUtils
+        .hasText(dataSourceConfig.connectionInitSql()) ? null
+        : multiDataSourceGeneratorUtils.createConstantStringFieldSpec(
+            CONNECTION_INIT_SQL_CONSTANT_NAME,
+            dataSourceConfig.connectionInitSql()
+        );
+
+    // Scan only the generated JDBC repositories of this data source
+    final AnnotationSpec generatedRepositoryFilter = AnnotationSpec.builder(Filter.class)
+        .addMember("type", "$T.REGEX", FilterType.class)
+        .addMember("pattern", "$S", REGEX_ALL_MATCH + GENERATED_REPOSITORIES_PACKAGE_SUFFIX + "."
+            + commonStringUtils.toSnakeCase(dataSourceConfig.dataSourceName()) + "\\.[^.]+")
+        .build();
+    final AnnotationSpec componentScanAnnotation = AnnotationSpec.builder(ComponentScan.class)
+        .addMember(
+            "basePackages",
+            "$L",
+            stringArrayToGeneratedStringArray(repositoryPackagesToInclude)
+        )
+        .addMember("useDefaultFilters", "$L", false)
+        .addMember("includeFilters", "$L", generatedRepositoryFilter)
+        .build();
+
+    // Create the config class bean creation methods
+    final MethodSpec dataSourcePropertiesMethod = this.createDataSourcePropertiesBeanMethod(
+        dataSourcePropertiesBeanNameField,
+        dataSourcePropertiesPath
+    ).build();
+    final MethodSpec dataSourceMethod = this.createDataSourceBeanMethod(
+        dataSourceBeanNameField,
+        this.getDataSourceClassPropertiesPath(dataSourceConfig, dataSourcePropertiesPath),
+        dataSourcePropertiesBeanNameField,
+        maximumPoolSizeField,
+        connectionInitSqlField
+    ).build();
+    final MethodSpec jdbcTemplateMethod = this.createJdbcTemplateBeanMethod(
+        jdbcTemplateBeanNameField,
+        dataSourceBeanNameField,
+        dataSourceConfig.queryTimeoutMillis()
+    ).build();
+    final MethodSpec transactionManagerMethod = this.createJdbcTransactionManagerBeanMethod(
+        transactionManagerBeanNameField,
+        dataSourceBeanNameField,
+        dataSourceConfig.readOnly()
+    ).build();
+
+    // Create the config class
+    final TypeSpec.Builder configTypeSpecBuilder = TypeSpec.classBuilder(dataSourceConfigClassName)
+        .addSuperinterface(IMultiDataSourceJdbcConfig.class)
+        .addAnnotation(Configuration.class)
+        .addAnnotation(componentScanAnnotation)
+        .addModifiers(Modifier.PUBLIC)
+        .addField(dataSourcePropertiesBeanNameField)
+        .addField(dataSourceBeanNameField)
+        .addField(jdbcTemplateBeanNameField)
+        .addField(transactionManagerBeanNameField);
+    if (maximumPoolSizeField != null) {
+      configTypeSpecBuilder.addField(maximumPoolSizeField);
+    }
+    if (connectionInitSqlField != null) {
+      configTypeSpecBuilder.addField(connectionInitSqlField);
+    }
+    return configTypeSpecBuilder
+        .addMethod(dataSourcePropertiesMethod)
         .addMethod(dataSourceMethod)
-        .addMethod(entityManagerFactoryMethod)
+        .addMethod(jdbcTemplateMethod)
         .addMethod(transactionManagerMethod)
         .build();
   }
 
+  /**
+   * Generate the {@link TypeSpec} for the Spring Configuration class enforcing the
+   * {@link ConnectionBudget} of all the data sources.
+   * <p>
+   * This configuration class contains the {@link MultiDataSourceConnectionBudgetValidator} bean,
+   * which checks the maximum pool sizes of all the generated data sources against the budget at
+   * startup.
+   *
+   * @param connectionBudgetConfigClassName the name of the configuration class being generated
+   * @param maxConnections                  the {@link ConnectionBudget#maxConnections()}
+   * @param dataSourceConfigClassNames      the names of the generated data source configuration
+   *                                        classes in the same package, each of which has a
+   *                                        maximum pool size constant
+   * @return the {@link TypeSpec} for the connection budget Spring Configuration class
+   */
+  public @Nonnull TypeSpec generateConnectionBudgetConfigTypeElement(
+      @Nonnull String connectionBudgetConfigClassName,
+      int maxConnections,
+      @Nonnull List<String> dataSourceConfigClassNames
+  ) {
+    final FieldSpec validatorBeanNameField = multiDataSourceGeneratorUtils
+        .createConstantStringFieldSpec(
+            CONNECTION_BUDGET_VALIDATOR_BEAN_NAME_CONSTANT_NAME,
+            CONNECTION_BUDGET_VALIDATOR_BEAN_NAME
+        );
+    final FieldSpec maxConnectionsField = multiDataSourceGeneratorUtils
+        .createConstantIntFieldSpec(MAX_CONNECTIONS_CONSTANT_NAME, maxConnections);
+
+    // Create the validator bean method, mapping each data source bean to its share of the budget
+    final MethodSpec.Builder validatorMethodBuilder = MethodSpec
+        .methodBuilder("connectionBudgetValidator")
+        .addAnnotation(createBeanAnnotationFromFieldSpec(validatorBeanNameField))
+        .addModifiers(Modifier.PUBLIC)
+        .returns(MultiDataSourceConnectionBudgetValidator.class)
+        .addParameter(BeanFactory.class, "beanFactory")
+        .addStatement(
+            "final $T<String, Integer> dataSourceBeanNameToShare = new $T<>()",
+            Map.class,
+            LinkedHashMap.class
+        );
+    for (final String dataSourceConfigClassName : dataSourceConfigClassNames) {
+      validatorMethodBuilder.addStatement(
+          "dataSourceBeanNameToShare.put($L.$L, $L.$L)",
+          dataSourceConfigClassName,
+          DATA_SOURCE_BEAN_NAME_CONSTANT_NAME,
+          dataSourceConfigClassName,
+          MAXIMUM_POOL_SIZE_CONSTANT_NAME
+      );
+    }
+    validatorMethodBuilder.addStatement(
+        "return new $T(beanFactory, $N, dataSourceBeanNameToShare)",
+        MultiDataSourceConnectionBudgetValidator.class,
+        maxConnectionsField
+    );
+
+    // Create the config class
+    return TypeSpec.classBuilder(connectionBudgetConfigClassName)
+        .addAnnotation(Configuration.class)
+        .addModifiers(Modifier.PUBLIC)
+        .addField(validatorBeanNameField)
+        .addField(maxConnectionsField)
+        .addMethod(validatorMethodBuilder.build())
+        .build();
+  }
+
+  /**
+   * Generate the {@link TypeSpec} for the Spring Configuration class detecting, and optionally
+   * sharing, the connection pools of data sources with the same connection identity.
+   * <p>
+   * This configuration class contains the {@link MultiDataSourceSharedConnectionPoolPostProcessor}
+   * bean, declared static as it is a bean post processor.
+   *
+   * @param sharedConnectionPoolConfigClassName the name of the configuration class being generated
+   * @param isSharingConnectionPools            whether data sources with the same connection
+   *                                            identity share one connection pool
+   * @param dataSourceConfigClassNames          the names of the generated data source configuration
+   *                                            classes in the same package, in order of
+   *                                            declaration
+   * @return the {@link TypeSpec} for the shared connection pool Spring Configuration class
+   */
+  public @Nonnull TypeSpec generateSharedConnectionPoolConfigTypeElement(
+      @Nonnull String sharedConnectionPoolConfigClassName,
+      boolean isSharingConnectionPools,
+      @Nonnull List<String> dataSourceConfigClassNames
+  ) {
+    final FieldSpec postProcessorBeanNameField = multiDataSourceGeneratorUtils
+        .createConstantStringFieldSpec(
+            SHARED_CONNECTION_POOL_POST_PROCESSOR_BEAN_NAME_CONSTANT_NAME,
+            SHARED_CONNECTION_POOL_POST_PROCESSOR_BEAN_NAME
+        );
+
+    // Create the post processor bean method with the data source bean names in order
+    final String dataSourceBeanNames = dataSourceConfigClassNames.stream()
+        .map(className -> className + "." + DATA_SOURCE_BEAN_NAME_CONSTANT_NAME)
+        .collect(Collectors.joining(",\n"));
+    final MethodSpec postProcessorMethod = MethodSpec
+        .methodBuilder("sharedConnectionPoolPostProcessor")
+        .addAnnotation(createBeanAnnotationFromFieldSpec(postProcessorBeanNameField))
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        .returns(MultiDataSourceSharedConnectionPoolPostProcessor.class)
+        .addStatement(
+            "return new $T(\n$T.of(\n$>$L$<\n),\n$L)",
+            MultiDataSourceSharedConnectionPoolPostProcessor.class,
+            List.class,
+            dataSourceBeanNames,
+            isSharingConnectionPools
+        )
+        .build();
+
+    // Create the config class
+    return TypeSpec.classBuilder(sharedConnectionPoolConfigClassName)
+        .addAnnotation(Configuration.class)
+        .addModifiers(Modifier.PUBLIC)
+        .addField(postProcessorBeanNameField)
+        .addMethod(postProcessorMethod)
+        .build();
+  }
+
+  /**
+   * Generate the {@link TypeSpec} for the Spring Configuration class routing the repositories to
+   * their data sources at runtime, in {@link RoutingMode#RUNTIME_ROUTING}.
+   * <p>
+   * This configuration class contains the {@link MultiDataSourceRoutingDataSource} bean used by the
+   * primary entity manager factory, and the {@link MultiDataSourceRoutingRepositoryPostProcessor}
+   * bean, declared static as it is a bean post processor.
+   * <p>
+   * If any secondary data source is {@link DataSourceConfig#schemaEquivalent()}, it also contains
+   * the static {@link MultiDataSourceBeanAliasRegistrar} bean, registering the entity manager
+   * factory bean names of those data sources as aliases of the primary entity manager factory.
+   *
+   * @param routingConfigClassName      the name of the configuration class being generated
+   * @param configClassNameToDataSource the names of the generated data source configuration
+   *                                    classes in the same package mapped to their
+   *                                    {@link DataSourceConfig}, primary first
+   * @return the {@link TypeSpec} for the routing Spring Configuration class
+   */
+  public @Nonnull TypeSpec generateRoutingConfigTypeElement(
+      @Nonnull String routingConfigClassName,
+      @Nonnull Map<String, DataSourceConfig> configClassNameToDataSource
+  ) {
+    final FieldSpec routingDataSourceBeanNameField = multiDataSourceGeneratorUtils
+        .createConstantStringFieldSpec(
+            ROUTING_DATA_SOURCE_BEAN_NAME_CONSTANT_NAME,
+            ROUTING_DATA_SOURCE_BEAN_NAME
+        );
+    final FieldSpec postProcessorBeanNameField = multiDataSourceGeneratorUtils
+        .createConstantStringFieldSpec(
+            ROUTING_REPOSITORY_POST_PROCESSOR_BEAN_NAME_CONSTANT_NAME,
+            ROUTING_REPOSITORY_POST_PROCESSOR_BEAN_NAME
+        );
+
+    // Create the routing data source bean method, mapping each data source name to its bean
+    final MethodSpec.Builder routingDataSourceMethodBuilder = MethodSpec
+        .methodBuilder("routingDataSource")
+        .addAnnotation(createBeanAnnotationFromFieldSpec(routingDataSourceBeanNameField))
+        .addModifiers(Modifier.PUBLIC)
+        .returns(DataSource.class)
+        .addParameter(BeanFactory.class, "beanFactory")
+        .addStatement(
+            "final $T<String, String> dataSourceNameToBeanName = new $T<>()",
+            Map.class,
+            LinkedHashMap.class
+        );
+    final List<CodeBlock> readOnlyDataSourceNames = new ArrayList<>();
+    for (final Map.Entry<String, DataSourceConfig> entry : configClassNameToDataSource.entrySet()) {
+      final String dataSourceName = entry.getValue().dataSourceName();
+      routingDataSourceMethodBuilder.addStatement(
+          "dataSourceNameToBeanName.put($S, $L.$L)",
+          dataSourceName,
+          entry.getKey(),
+          DATA_SOURCE_BEAN_NAME_CONSTANT_NAME
+      );
+      if (entry.getValue().readOnly()) {
+        readOnlyDataSourceNames.add(CodeBlock.of("$S", dataSourceName));
+      }
+    }
+    routingDataSourceMethodBuilder.addStatement(
+        "return new $T(\nbeanFactory,\n$L.$L,\ndataSourceNameToBeanName,\n$T.of($L)\n)",
+        MultiDataSourceRoutingDataSource.class,
+        configClassNameToDataSource.keySet().iterator().next(),
+        DATA_SOURCE_BEAN_NAME_CONSTANT_NAME,
+        Set.class,
+        CodeBlock.join(readOnlyDataSourceNames, ", ")
+    );
+
+    // Create the repository post processor bean method
+    final MethodSpec postProcessorMethod = MethodSpec
+        .methodBuilder("routingRepositoryPostProcessor")
+        .addAnnotation(createBeanAnnotationFromFieldSpec(postProcessorBeanNameField))
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        .returns(MultiDataSourceRoutingRepositoryPostProcessor.class)
+        .addStatement("return new $T()", MultiDataSourceRoutingRepositoryPostProcessor.class)
+        .build();
+
+    // Create the config class
+    final TypeSpec.Builder routingConfigTypeSpecBuilder = TypeSpec
+        .classBuilder(routingConfigClassName)
+        .addAnnotation(Configuration.class)
+        .addModifiers(Modifier.PUBLIC)
+        .addField(routingDataSourceBeanNameField)
+        .addField(postProcessorBeanNameField)
+        .addMethod(routingDataSourceMethodBuilder.build())
+        .addMethod(postProcessorMethod);
+
+    // Create the alias registrar bean method, if any secondary data source shares the primary
+    // entity manager factory
+    final String primaryConfigClassName = configClassNameToDataSource.keySet().iterator().next();
+    final List<String> schemaEquivalentConfigClassNames = configClassNameToDataSource.entrySet()
+        .stream()
+        .filter(entry -> !entry.getKey().equals(primaryConfigClassName)
+            && entry.getValue().schemaEquivalent())
+        .map(Map.Entry::getKey)
+        .collect(Collectors.toList());
+    if (schemaEquivalentConfigClassNames.isEmpty()) {
+      return routingConfigTypeSpecBuilder.build();
+    }
+    final FieldSpec aliasRegistrarBeanNameField = multiDataSourceGeneratorUtils
+        .createConstantStringFieldSpec(
+            ENTITY_MANAGER_FACTORY_ALIAS_REGISTRAR_BEAN_NAME_CONSTANT_NAME,
+            ENTITY_MANAGER_FACTORY_ALIAS_REGISTRAR_BEAN_NAME
+        );
+    final MethodSpec.Builder aliasRegistrarMethodBuilder = MethodSpec
+        .methodBuilder("entityManagerFactoryAliasRegistrar")
+        .addAnnotation(createBeanAnnotationFromFieldSpec(aliasRegistrarBeanNameField))
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        .returns(MultiDataSourceBeanAliasRegistrar.class)
+        .addStatement(
+            "final $T<String, String> aliasToBeanName = new $T<>()",
+            Map.class,
+            LinkedHashMap.class
+        );
+    for (final String schemaEquivalentConfigClassName : schemaEquivalentConfigClassNames) {
+      aliasRegistrarMethodBuilder.addStatement(
+          "aliasToBeanName.put($L.$L, $L.$L)",
+          schemaEquivalentConfigClassName,
+          ENTITY_MANAGER_FACTORY_BEAN_NAME_CONSTANT_NAME,
+          primaryConfigClassName,
+          ENTITY_MANAGER_FACTORY_BEAN_NAME_CONSTANT_NAME
+      );
+    }
+    aliasRegistrarMethodBuilder.addStatement(
+        "return new $T(aliasToBeanName)",
+        MultiDataSourceBeanAliasRegistrar.class
+    );
+    return routingConfigTypeSpecBuilder
+        .addField(aliasRegistrarBeanNameField)
+        .addMethod(aliasRegistrarMethodBuilder.build())
+        .build();
+  }
+
+  /**
+   * Generate the {@link TypeSpec} for the Spring Configuration class warming up the query plans of
+   * the repository copies of the secondary data sources at startup.
+   * <p>
+   * This configuration class contains the {@link MultiDataSourceQueryPlanWarmer} bean, mapping the
+   * entity manager factory of every secondary data source to the package suffix of its repository
+   * copies.
+   *
+   * @param queryPlanWarmUpConfigClassName       the name of the configuration class being generated
+   * @param secondaryConfigClassNameToDataSource the names of the generated secondary data source
+   *                                             configuration classes in the same package mapped
+   *                                             to their {@link DataSourceConfig}
+   * @return the {@link TypeSpec} for the query plan warm-up Spring Configuration class
+   */
+  public @Nonnull TypeSpec generateQueryPlanWarmUpConfigTypeElement(
+      @Nonnull String queryPlanWarmUpConfigClassName,
+      @Nonnull Map<String, DataSourceConfig> secondaryConfigClassNameToDataSource
+  ) {
+    final FieldSpec queryPlanWarmerBeanNameField = multiDataSourceGeneratorUtils
+        .createConstantStringFieldSpec(
+            QUERY_PLAN_WARMER_BEAN_NAME_CONSTANT_NAME,
+            QUERY_PLAN_WARMER_BEAN_NAME
+        );
+
+    // Create the warmer bean method, mapping each entity manager factory to its repository copies
+    final MethodSpec.Builder queryPlanWarmerMethodBuilder = MethodSpec
+        .methodBuilder("queryPlanWarmer")
+        .addAnnotation(createBeanAnnotationFromFieldSpec(queryPlanWarmerBeanNameField))
+        .addModifiers(Modifier.PUBLIC)
+        .returns(MultiDataSourceQueryPlanWarmer.class)
+        .addParameter(ListableBeanFactory.class, "beanFactory")
+        .addStatement(
+            "final $T<String, String> entityManagerFactoryBeanNameToRepositoryPackageSuffix"
+                + " = new $T<>()",
+            Map.class,
+            LinkedHashMap.class
+        );
+    for (final var entry : secondaryConfigClassNameToDataSource.entrySet()) {
+      queryPlanWarmerMethodBuilder.addStatement(
+          "entityManagerFactoryBeanNameToRepositoryPackageSuffix.put($L.$L, $S)",
+          entry.getKey(),
+          ENTITY_MANAGER_FACTORY_BEAN_NAME_CONSTANT_NAME,
+          GENERATED_REPOSITORIES_PACKAGE_SUFFIX + "."
+              + commonStringUtils.toSnakeCase(entry.getValue().dataSourceName())
+      );
+    }
+    queryPlanWarmerMethodBuilder.addStatement(
+        "return new $T(beanFactory, entityManagerFactoryBeanNameToRepositoryPackageSuffix)",
+        MultiDataSourceQueryPlanWarmer.class
+    );
+
+    // Create the config class
+    return TypeSpec.classBuilder(queryPlanWarmUpConfigClassName)
+        .addAnnotation(Configuration.class)
+        .addModifiers(Modifier.PUBLIC)
+        .addField(queryPlanWarmerBeanNameField)
+        .addMethod(queryPlanWarmerMethodBuilder.build())
+        .build();
+  }
+
+  /**
+   * Generate the {@link TypeSpec} for the Spring Configuration class adding the interceptors of the
+   * read optimizations (eg. {@link CoalescedRead}) to the repositories with methods annotated for
+   * them.
+   * <p>
+   * This configuration class contains the {@link MultiDataSourceRepositoryPostProcessor} bean,
+   * declared static as it is a bean post processor, and a nested configuration class exposing the
+   * metrics of its interceptors, conditional on Micrometer being on the classpath.
+   *
+   * @param repositoryConfigClassName the name of the configuration class being generated
+   * @param isRecordingPrimaryWrites  whether the writes through the original repositories are
+   *                                  recorded, as a data source has {@link ReadYourWrites}
+   *                                  stickiness
+   * @return the {@link TypeSpec} for the repository Spring Configuration class
+   */
+  public @Nonnull TypeSpec generateRepositoryConfigTypeElement(
+      @Nonnull String repositoryConfigClassName,
+      boolean isRecordingPrimaryWrites
+  ) {
+    final FieldSpec postProcessorBeanNameField = multiDataSourceGeneratorUtils
+        .createConstantStringFieldSpec(
+            REPOSITORY_POST_PROCESSOR_BEAN_NAME_CONSTANT_NAME,
+            REPOSITORY_POST_PROCESSOR_BEAN_NAME
+        );
+    final MethodSpec postProcessorMethod = MethodSpec
+        .methodBuilder("repositoryPostProcessor")
+        .addAnnotation(createBeanAnnotationFromFieldSpec(postProcessorBeanNameField))
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        .returns(MultiDataSourceRepositoryPostProcessor.class)
+        .addStatement(
+            "return new $T($L)",
+            MultiDataSourceRepositoryPostProcessor.class,
+            isRecordingPrimaryWrites
+        )
+        .build();
+
+    // Create the nested config class of the metrics of the interceptors
+    final FieldSpec metricsBeanNameField = multiDataSourceGeneratorUtils
+        .createConstantStringFieldSpec(
+            REPOSITORY_METRICS_BEAN_NAME_CONSTANT_NAME,
+            REPOSITORY_METRICS_BEAN_NAME
+        );
+    final ParameterSpec postProcessorParameter = ParameterSpec
+        .builder(MultiDataSourceRepositoryPostProcessor.class, "repositoryPostProcessor")
+        .addAnnotation(
+            AnnotationSpec.builder(Qualifier.class)
+                .addMember(
+                    VALUE_FIELD_NAME_STRING,
+                    "$L.$N",
+                    repositoryConfigClassName,
+                    postProcessorBeanNameField
+                )
+                .build()
+        )
+        .build();
+    final MethodSpec metricsMethod = MethodSpec.methodBuilder("repositoryMetrics")
+        .addAnnotation(createBeanAnnotationFromFieldSpec(metricsBeanNameField))
+        .addModifiers(Modifier.PUBLIC)
+        .returns(MultiDataSourceRepositoryMetrics.class)
+        .addParameter(postProcessorParameter)
+        .addStatement(
+            "return new $T($N)",
+            MultiDataSourceRepositoryMetrics.class,
+            postProcessorParameter
+        )
+        .build();
+    final TypeSpec metricsConfigType = TypeSpec.classBuilder(REPOSITORY_METRICS_CONFIG_CLASS_NAME)
+        .addAnnotation(Configuration.class)
+        .addAnnotation(
+            AnnotationSpec.builder(ConditionalOnClass.class)
+                .addMember("name", "$S", MICROMETER_METER_BINDER_CLASS_NAME)
+                .build()
+        )
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        .addField(metricsBeanNameField)
+        .addMethod(metricsMethod)
+        .build();
+
+    // Create the config class
+    return TypeSpec.classBuilder(repositoryConfigClassName)
+        .addAnnotation(Configuration.class)
+        .addModifiers(Modifier.PUBLIC)
+        .addField(postProcessorBeanNameField)
+        .addMethod(postProcessorMethod)
+        .addType(metricsConfigType)
+        .build();
+  }
+
+  /**
+   * Get the application properties path of the data source class properties of a data source.
+   * <p>
+   * Defaults to the shared path of {@link DataSourceConfig#dataSourceClassPropertiesPath()}, or
+   * to the data source properties path followed by .hikari if the data source reads its own pool
+   * settings.
+   *
+   * @param dataSourceConfig         the {@link DataSourceConfig} of the data source
+   * @param dataSourcePropertiesPath the path of where the properties of the data source are
+   *                                 located in application.properties
+   * @return the application properties path of the data source class properties
+   */
+  private @Nonnull String getDataSourceClassPropertiesPath(
+      @Nonnull DataSourceConfig dataSourceConfig,
+      @Nonnull String dataSourcePropertiesPath
+  ) {
+    final String dataSourceClassPropertiesPath = dataSourceConfig.dataSourceClassPropertiesPath();
+    return dataSourceConfig.poolPropertiesPerDataSource()
+        && DEFAULT_DATA_SOURCE_CLASS_PROPERTIES_PATH.equals(dataSourceClassPropertiesPath)
+        ? dataSourcePropertiesPath + DATA_SOURCE_CLASS_PROPERTIES_PATH_SUFFIX
+        : dataSourceClassPropertiesPath;
+  }
+
   /**
    * Generate the {@link AnnotationSpec} for the {@link EnableJpaRepositories} annotation for the
    * data source configuration class.
@@ -393,12 +1218,19 @@ public class MultiDataSourceConfigGenerator {
    * @param dataSourcePropertiesBeanNameFieldSpec the {@link FieldSpec} for the
    *                                              {@link DataSourceProperties} dependency bean name
    *                                              constant
+   * @param maximumPoolSizeFieldSpec              the {@link FieldSpec} for the default maximum
+   *                                              pool size constant, or null if there is no
+   *                                              connection budget
+   * @param connectionInitSqlFieldSpec            the {@link FieldSpec} for the connection init
+   *                                              SQL constant, or null if there is none
    * @return the {@link MethodSpec} builder for the {@link DataSource} bean
    */
   private @Nonnull MethodSpec.Builder createDataSourceBeanMethod(
       @Nonnull FieldSpec beanNameFieldSpec,
       @Nonnull String dataSourceClassPropertiesPrefix,
-      @Nonnull FieldSpec dataSourcePropertiesBeanNameFieldSpec
+      @Nonnull FieldSpec dataSourcePropertiesBeanNameFieldSpec,
+      @Nullable FieldSpec maximumPoolSizeFieldSpec,
+      @Nullable FieldSpec connectionInitSqlFieldSpec
   ) {
     // Create the method annotations
     final AnnotationSpec beanAnnotation = createBeanAnnotationFromFieldSpec(beanNameFieldSpec);
@@ -419,15 +1251,40 @@ public class MultiDataSourceConfigGenerator {
         .addAnnotation(qualifierAnnotation)
         .build();
 
-    // Create the method body
-    return MethodSpec.methodBuilder("dataSource")
+    // Create the method body, the pool defaults are set before the data source class properties
+    // are bound to the returned data source
+    final MethodSpec.Builder dataSourceMethodBuilder = MethodSpec.methodBuilder("dataSource")
         .addAnnotation(beanAnnotation)
         .addAnnotation(configurationPropertiesAnnotation)
         .addAnnotation(Override.class)
         .addModifiers(Modifier.PUBLIC)
         .returns(DataSource.class)
         .addParameter(dataSourcePropertiesParameter)
-        .addStatement("return dataSourceProperties.initializeDataSourceBuilder().build()");
+        .addStatement(
+            "final $T dataSource = dataSourceProperties.initializeDataSourceBuilder().build()",
+            DataSource.class
+        )
+        .addComment(SET_THE_PER_DATA_SOURCE_POOL_DEFAULTS)
+        .addStatement(
+            "$T.getInstance().setPoolName(dataSource, $N)",
+            MultiDataSourceConnectionPoolUtils.class,
+            beanNameFieldSpec
+        );
+    if (maximumPoolSizeFieldSpec != null) {
+      dataSourceMethodBuilder.addStatement(
+          "$T.getInstance().setMaximumPoolSize(dataSource, $N)",
+          MultiDataSourceConnectionPoolUtils.class,
+          maximumPoolSizeFieldSpec
+      );
+    }
+    if (connectionInitSqlFieldSpec != null) {
+      dataSourceMethodBuilder.addStatement(
+          "$T.getInstance().setConnectionInitSql(dataSource, $N)",
+          MultiDataSourceConnectionPoolUtils.class,
+          connectionInitSqlFieldSpec
+      );
+    }
+    return dataSourceMethodBuilder.addStatement("return dataSource");
   }
 
   /**
@@ -441,27 +1298,57 @@ public class MultiDataSourceConfigGenerator {
    *                                                constant
    * @param dataSourceEntityPackagesFieldSpec       the packages to scan for entities for this
    *                                                entity manager
+   * @param managedTypesFieldSpec                   the {@link FieldSpec} for the constant of the
+   *                                                only managed types to register, or null to
+   *                                                register all the scanned types
    * @param overrideJpaPropertiesFieldSpec          the {@link FieldSpec} for the JPA properties to
    *                                                override
    * @param dataSourceBeanNameFieldSpec             the {@link FieldSpec} for the {@link DataSource}
-   *                                                dependency bean name constant
+   *                                                bean name constant of this data source, naming
+   *                                                the persistence unit
+   * @param dataSourceDependencyBeanName            the bean name of the {@link DataSource}
+   *                                                dependency, which is either this data source or
+   *                                                the routing data source
+   * @param circuitBreakerBeanNameFieldSpec         the {@link FieldSpec} for the
+   *                                                {@link MultiDataSourceCircuitBreaker} bean name
+   *                                                constant, got from the bean factory, or null if
+   *                                                the circuit is not broken
+   * @param concurrencyLimiterBeanNameFieldSpec     the {@link FieldSpec} for the
+   *                                                {@link MultiDataSourceConcurrencyLimiter} bean
+   *                                                name constant, got from the bean factory, or
+   *                                                null if the connections are not limited
+   * @param readYourWritesBeanNameFieldSpec         the {@link FieldSpec} for the
+   *                                                {@link MultiDataSourceReadYourWrites} bean name
+   *                                                constant, got from the bean factory, or null if
+   *                                                the reads do not stick to the primary
    * @param hibernateBeanContainerPropertyFieldSpec the {@link FieldSpec} for the hibernate bean
    *                                                container property constant
+   * @param performanceProfileJpaProperties         the JPA properties resolved from the
+   *                                                {@link PerformanceProfile} of the data source
+   * @param timeoutJpaProperties                    the JPA properties resolved from the query and
+   *                                                lock timeouts of the data source
    * @return the {@link MethodSpec} builder for the {@link LocalContainerEntityManagerFactoryBean}
    * bean
    */
   private @Nonnull MethodSpec.Builder createEntityManagerFactoryBeanMethod(
       @Nonnull FieldSpec beanNameFieldSpece,
       @Nonnull FieldSpec dataSourceBeanNameFieldSpec,
+      @Nonnull CodeBlock dataSourceDependencyBeanName,
+      @Nullable FieldSpec circuitBreakerBeanNameFieldSpec,
+      @Nullable FieldSpec concurrencyLimiterBeanNameFieldSpec,
+      @Nullable FieldSpec readYourWritesBeanNameFieldSpec,
       @Nonnull FieldSpec overrideJpaPropertiesFieldSpec,
       @Nonnull FieldSpec dataSourceEntityPackagesFieldSpec,
-      @Nonnull FieldSpec hibernateBeanContainerPropertyFieldSpec
+      @Nullable FieldSpec managedTypesFieldSpec,
+      @Nonnull FieldSpec hibernateBeanContainerPropertyFieldSpec,
+      @Nonnull Map<String, String> performanceProfileJpaProperties,
+      @Nonnull Map<String, String> timeoutJpaProperties
   ) {
     // Create the method annotations
     final AnnotationSpec beanAnnotation =
         createBeanAnnotationFromFieldSpec(beanNameFieldSpece);
     final AnnotationSpec datasourceQualifierAnnotation = AnnotationSpec.builder(Qualifier.class)
-        .addMember(VALUE_FIELD_NAME_STRING, "$N", dataSourceBeanNameFieldSpec)
+        .addMember(VALUE_FIELD_NAME_STRING, dataSourceDependencyBeanName)
         .build();
     final AnnotationSpec jpaPropertiesFieldAnnotation = AnnotationSpec.builder(Qualifier.class)
         .addMember(VALUE_FIELD_NAME_STRING, "$N", overrideJpaPropertiesFieldSpec)
@@ -484,7 +1371,8 @@ public class MultiDataSourceConfigGenerator {
         .build();
 
     // Create the method body
-    return MethodSpec.methodBuilder("entityManagerFactory")
+    final MethodSpec.Builder entityManagerFactoryMethodBuilder = MethodSpec
+        .methodBuilder("entityManagerFactory")
         .addAnnotation(beanAnnotation)
         .addAnnotation(Override.class)
         .addModifiers(Modifier.PUBLIC)
@@ -492,11 +1380,51 @@ public class MultiDataSourceConfigGenerator {
         .addParameter(jpaPropertiesParameter)
         .addParameter(dataSourceParameter)
         .addParameter(builderParameter)
-        .addParameter(beanFactoryParameter)
+        .addParameter(beanFactoryParameter);
+    CodeBlock entityManagerFactoryDataSource = CodeBlock.of("$N", dataSourceParameter);
+    if (circuitBreakerBeanNameFieldSpec != null) {
+      // Connections are opened through the circuit breaker, failing over to its failover data source
+      entityManagerFactoryDataSource = CodeBlock.of(
+          "new $T($L, $N.getBean($N, $T.class), $N)",
+          MultiDataSourceCircuitBreakerDataSource.class,
+          entityManagerFactoryDataSource,
+          beanFactoryParameter,
+          circuitBreakerBeanNameFieldSpec,
+          MultiDataSourceCircuitBreaker.class,
+          beanFactoryParameter
+      );
+    }
+    if (concurrencyLimiterBeanNameFieldSpec != null) {
+      // Connections are opened through the concurrency limiter, diverting to the primary data source
+      entityManagerFactoryDataSource = CodeBlock.of(
+          "new $T($L, $N.getBean($N, $T.class), () -> $N.getBean($T.class))",
+          MultiDataSourceConcurrencyLimitedDataSource.class,
+          entityManagerFactoryDataSource,
+          beanFactoryParameter,
+          concurrencyLimiterBeanNameFieldSpec,
+          MultiDataSourceConcurrencyLimiter.class,
+          beanFactoryParameter,
+          DataSource.class
+      );
+    }
+    if (readYourWritesBeanNameFieldSpec != null) {
+      // Connections stick to the primary data source after the writes of the current session
+      entityManagerFactoryDataSource = CodeBlock.of(
+          "new $T($L, $N.getBean($N, $T.class), () -> $N.getBean($T.class))",
+          MultiDataSourceReadYourWritesDataSource.class,
+          entityManagerFactoryDataSource,
+          beanFactoryParameter,
+          readYourWritesBeanNameFieldSpec,
+          MultiDataSourceReadYourWrites.class,
+          beanFactoryParameter,
+          DataSource.class
+      );
+    }
+    entityManagerFactoryMethodBuilder
         .addStatement(
-            "final $T emfb = builder.dataSource($N).packages($N).persistenceUnit($N).build()",
+            "final $T emfb = builder.dataSource($L).packages($N).persistenceUnit($N).build()",
             LocalContainerEntityManagerFactoryBean.class,
-            dataSourceParameter,
+            entityManagerFactoryDataSource,
             dataSourceEntityPackagesFieldSpec,
             dataSourceBeanNameFieldSpec
         )
@@ -506,7 +1434,32 @@ public class MultiDataSourceConfigGenerator {
             hibernateBeanContainerPropertyFieldSpec,
             SpringBeanContainer.class,
             beanFactoryParameter
-        )
+        );
+    if (managedTypesFieldSpec != null) {
+      entityManagerFactoryMethodBuilder
+          .addComment(REGISTER_ONLY_THE_MANAGED_TYPES_OF_THE_REPOSITORY_COPIES)
+          .addStatement(
+              "emfb.setPersistenceUnitPostProcessors(new $T($N))",
+              MultiDataSourceManagedTypesPostProcessor.class,
+              managedTypesFieldSpec
+          );
+    }
+    if (!performanceProfileJpaProperties.isEmpty()) {
+      entityManagerFactoryMethodBuilder
+          .addComment(ADD_THE_PERFORMANCE_PROFILE_TO_THE_JPA_PROPERTIES);
+      performanceProfileJpaProperties.forEach(
+          (propertyName, propertyValue) -> entityManagerFactoryMethodBuilder
+              .addStatement("emfb.getJpaPropertyMap().put($S, $S)", propertyName, propertyValue)
+      );
+    }
+    if (!timeoutJpaProperties.isEmpty()) {
+      entityManagerFactoryMethodBuilder.addComment(ADD_THE_TIMEOUTS_TO_THE_JPA_PROPERTIES);
+      timeoutJpaProperties.forEach(
+          (propertyName, propertyValue) -> entityManagerFactoryMethodBuilder
+              .addStatement("emfb.getJpaPropertyMap().put($S, $S)", propertyName, propertyValue)
+      );
+    }
+    return entityManagerFactoryMethodBuilder
         .addStatement("emfb.setJpaProperties($N)", jpaPropertiesParameter)
         .addStatement("return emfb");
   }
@@ -518,11 +1471,24 @@ public class MultiDataSourceConfigGenerator {
    * @param entityManagerFactoryBeanNameFieldSpec the {@link FieldSpec} for the
    *                                              {@link LocalContainerEntityManagerFactoryBean}
    *                                              dependency bean
+   * @param isReadOnly                            whether the data source is read-only, in which
+   *                                              case every transaction is begun as read-only
+   * @param isOnRoutingDataSource                 whether the entity manager factory is the primary
+   *                                              one on the routing data source, whose
+   *                                              transactions must not join the routed ones of the
+   *                                              schema-equivalent data sources
+   * @param routedDataSourceName                  the name of the data source every transaction is
+   *                                              routed to on the shared primary entity manager
+   *                                              factory, or null if the entity manager factory is
+   *                                              not shared
    * @return the {@link MethodSpec} builder for the {@link PlatformTransactionManager} bean
    */
   private @Nonnull MethodSpec.Builder createTransactionManagerBeanMethod(
       @Nonnull FieldSpec beanNamefieldSpec,
-      @Nonnull FieldSpec entityManagerFactoryBeanNameFieldSpec
+      @Nonnull FieldSpec entityManagerFactoryBeanNameFieldSpec,
+      boolean isReadOnly,
+      boolean isOnRoutingDataSource,
+      @Nullable String routedDataSourceName
   ) {
     // Create the method annotations
     final AnnotationSpec beanAnnotation = createBeanAnnotationFromFieldSpec(beanNamefieldSpec);
@@ -541,16 +1507,403 @@ public class MultiDataSourceConfigGenerator {
         .build();
 
     // Create the method body
-    return MethodSpec.methodBuilder("transactionManager")
+    final MethodSpec.Builder transactionManagerMethodBuilder = MethodSpec
+        .methodBuilder("transactionManager")
+        .addAnnotation(beanAnnotation)
+        .addAnnotation(Override.class)
+        .addModifiers(Modifier.PUBLIC)
+        .returns(PlatformTransactionManager.class)
+        .addParameter(entityManagerFactoryParameter);
+    if (routedDataSourceName != null) {
+      return transactionManagerMethodBuilder
+          .addComment(ROUTE_ALL_TRANSACTIONS_TO_THE_DATA_SOURCE)
+          .addStatement(
+              "return new $T($N.getObject(), $S, $L)",
+              MultiDataSourceRoutingTransactionManager.class,
+              entityManagerFactoryParameter,
+              routedDataSourceName,
+              isReadOnly
+          );
+    }
+    if (isOnRoutingDataSource) {
+      return transactionManagerMethodBuilder
+          .addComment(REJECT_JOINING_THE_ROUTED_TRANSACTIONS)
+          .addStatement(
+              "return new $T($N.getObject(), $L)",
+              MultiDataSourceRoutingTransactionManager.class,
+              entityManagerFactoryParameter,
+              isReadOnly
+          );
+    }
+    if (!isReadOnly) {
+      return transactionManagerMethodBuilder.addStatement(
+          "return new $T($N.getObject())",
+          JpaTransactionManager.class,
+          entityManagerFactoryParameter
+      );
+    }
+
+    // Read-only data sources begin every transaction as read-only
+    final TypeSpec readOnlyTransactionManager = TypeSpec
+        .anonymousClassBuilder("$N.getObject()", entityManagerFactoryParameter)
+        .superclass(JpaTransactionManager.class)
+        .addMethod(
+            MethodSpec.methodBuilder("doBegin")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PROTECTED)
+                .addParameter(Object.class, "transaction")
+                .addParameter(TransactionDefinition.class, "definition")
+                .addStatement(
+                    "final $T readOnlyDefinition = new $T(definition)",
+                    DefaultTransactionDefinition.class,
+                    DefaultTransactionDefinition.class
+                )
+                .addStatement("readOnlyDefinition.setReadOnly(true)")
+                .addStatement("super.doBegin(transaction, readOnlyDefinition)")
+                .build()
+        )
+        .build();
+    return transactionManagerMethodBuilder
+        .addComment(BEGIN_ALL_TRANSACTIONS_AS_READ_ONLY)
+        .addStatement("return $L", readOnlyTransactionManager);
+  }
+
+  /**
+   * Create the {@link MethodSpec} builder for the {@link NamedParameterJdbcTemplate} bean of a
+   * {@link DataSourceConfig#jdbcOnly()} data source.
+   *
+   * @param beanNameFieldSpec           the {@link FieldSpec} for this bean name constant
+   * @param dataSourceBeanNameFieldSpec the {@link FieldSpec} for the {@link DataSource} dependency
+   *                                    bean name constant
+   * @param queryTimeoutMillis          the query timeout of the data source in milliseconds, or
+   *                                    {@link PerformanceProfile#UNSET} for none
+   * @return the {@link MethodSpec} builder for the {@link NamedParameterJdbcTemplate} bean
+   */
+  private @Nonnull MethodSpec.Builder createJdbcTemplateBeanMethod(
+      @Nonnull FieldSpec beanNameFieldSpec,
+      @Nonnull FieldSpec dataSourceBeanNameFieldSpec,
+      int queryTimeoutMillis
+  ) {
+    // Create the method annotations
+    final AnnotationSpec beanAnnotation = createBeanAnnotationFromFieldSpec(beanNameFieldSpec);
+    final AnnotationSpec dataSourceQualifierAnnotation = AnnotationSpec.builder(Qualifier.class)
+        .addMember(VALUE_FIELD_NAME_STRING, "$N", dataSourceBeanNameFieldSpec)
+        .build();
+
+    // Create the method parameters (DataSource dependency)
+    final ParameterSpec dataSourceParameter = ParameterSpec
+        .builder(DataSource.class, "dataSource")
+        .addAnnotation(dataSourceQualifierAnnotation)
+        .build();
+
+    // Create the method body, with the query timeout rounded up to the seconds of JDBC
+    final MethodSpec.Builder jdbcTemplateMethodBuilder = MethodSpec.methodBuilder("jdbcTemplate")
+        .addAnnotation(beanAnnotation)
+        .addAnnotation(Override.class)
+        .addModifiers(Modifier.PUBLIC)
+        .returns(NamedParameterJdbcTemplate.class)
+        .addParameter(dataSourceParameter)
+        .addStatement(
+            "final $T jdbcTemplate = new $T($N)",
+            JdbcTemplate.class,
+            JdbcTemplate.class,
+            dataSourceParameter
+        );
+    if (queryTimeoutMillis != PerformanceProfile.UNSET) {
+      jdbcTemplateMethodBuilder.addStatement(
+          "jdbcTemplate.setQueryTimeout($L)",
+          (queryTimeoutMillis + 999) / 1000
+      );
+    }
+    return jdbcTemplateMethodBuilder
+        .addStatement("return new $T(jdbcTemplate)", NamedParameterJdbcTemplate.class);
+  }
+
+  /**
+   * Create the {@link MethodSpec} builder for the {@link DataSourceTransactionManager} bean of a
+   * {@link DataSourceConfig#jdbcOnly()} data source.
+   *
+   * @param beanNameFieldSpec           the {@link FieldSpec} for this bean name constant
+   * @param dataSourceBeanNameFieldSpec the {@link FieldSpec} for the {@link DataSource} dependency
+   *                                    bean name constant
+   * @param isReadOnly                  whether the data source is read-only, in which case every
+   *                                    transaction is begun as read-only
+   * @return the {@link MethodSpec} builder for the {@link PlatformTransactionManager} bean
+   */
+  private @Nonnull MethodSpec.Builder createJdbcTransactionManagerBeanMethod(
+      @Nonnull FieldSpec beanNameFieldSpec,
+      @Nonnull FieldSpec dataSourceBeanNameFieldSpec,
+      boolean isReadOnly
+  ) {
+    // Create the method annotations
+    final AnnotationSpec beanAnnotation = createBeanAnnotationFromFieldSpec(beanNameFieldSpec);
+    final AnnotationSpec dataSourceQualifierAnnotation = AnnotationSpec.builder(Qualifier.class)
+        .addMember(VALUE_FIELD_NAME_STRING, "$N", dataSourceBeanNameFieldSpec)
+        .build();
+
+    // Create the method parameters (DataSource dependency)
+    final ParameterSpec dataSourceParameter = ParameterSpec
+        .builder(DataSource.class, "dataSource")
+        .addAnnotation(dataSourceQualifierAnnotation)
+        .build();
+
+    // Create the method body
+    final MethodSpec.Builder transactionManagerMethodBuilder = MethodSpec
+        .methodBuilder("transactionManager")
         .addAnnotation(beanAnnotation)
         .addAnnotation(Override.class)
         .addModifiers(Modifier.PUBLIC)
         .returns(PlatformTransactionManager.class)
-        .addParameter(entityManagerFactoryParameter)
+        .addParameter(dataSourceParameter);
+    if (!isReadOnly) {
+      return transactionManagerMethodBuilder.addStatement(
+          "return new $T($N)",
+          DataSourceTransactionManager.class,
+          dataSourceParameter
+      );
+    }
+    // Read-only data sources begin every transaction as read-only
+    final TypeSpec readOnlyTransactionManager = TypeSpec
+        .anonymousClassBuilder("$N", dataSourceParameter)
+        .superclass(DataSourceTransactionManager.class)
+        .addMethod(
+            MethodSpec.methodBuilder("doBegin")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PROTECTED)
+                .addParameter(Object.class, "transaction")
+                .addParameter(TransactionDefinition.class, "definition")
+                .addStatement(
+                    "final $T readOnlyDefinition = new $T(definition)",
+                    DefaultTransactionDefinition.class,
+                    DefaultTransactionDefinition.class
+                )
+                .addStatement("readOnlyDefinition.setReadOnly(true)")
+                .addStatement("super.doBegin(transaction, readOnlyDefinition)")
+                .build()
+        )
+        .build();
+    return transactionManagerMethodBuilder
+        .addComment(BEGIN_ALL_JDBC_TRANSACTIONS_AS_READ_ONLY)
+        .addStatement("return $L", readOnlyTransactionManager);
+  }
+
+  /**
+   * Create the {@link MethodSpec} builder for the {@link MultiDataSourceCircuitBreaker} bean of the
+   * data source.
+   *
+   * @param beanNameFieldSpec the {@link FieldSpec} for this bean name constant
+   * @param dataSourceName    the name of the data source
+   * @param circuitBreaker    the {@link CircuitBreaker} of the data source
+   * @return the {@link MethodSpec} builder for the {@link MultiDataSourceCircuitBreaker} bean
+   */
+  private @Nonnull MethodSpec.Builder createCircuitBreakerBeanMethod(
+      @Nonnull FieldSpec beanNameFieldSpec,
+      @Nonnull String dataSourceName,
+      @Nonnull CircuitBreaker circuitBreaker
+  ) {
+    // The failover data source is referenced by its bean name, as it may not be created yet
+    final String failoverDataSourceName = circuitBreaker.failoverDataSourceName();
+    final CodeBlock failoverDataSourceBeanName = StringUtils.hasText(failoverDataSourceName)
+        ? CodeBlock.of("$S", failoverDataSourceName + DATA_SOURCE_BEAN_SUFFIX)
+        : CodeBlock.of("null");
+
+    return MethodSpec.methodBuilder("circuitBreaker")
+        .addAnnotation(createBeanAnnotationFromFieldSpec(beanNameFieldSpec))
+        .addModifiers(Modifier.PUBLIC)
+        .returns(MultiDataSourceCircuitBreaker.class)
         .addStatement(
-            "return new $T($N.getObject())",
-            JpaTransactionManager.class,
-            entityManagerFactoryParameter
+            "return new $T(\n$S,\n$L,\n$L,\n$L,\n$L\n)",
+            MultiDataSourceCircuitBreaker.class,
+            dataSourceName,
+            circuitBreaker.failureThreshold(),
+            circuitBreaker.openDurationMillis(),
+            circuitBreaker.halfOpenProbes(),
+            failoverDataSourceBeanName
+        );
+  }
+
+  /**
+   * Create the {@link MethodSpec} builder for the {@link MultiDataSourceReadYourWrites} bean of the
+   * data source.
+   *
+   * @param beanNameFieldSpec the {@link FieldSpec} for this bean name constant
+   * @param dataSourceName    the name of the data source
+   * @param readYourWrites    the {@link ReadYourWrites} of the data source
+   * @return the {@link MethodSpec} builder for the {@link MultiDataSourceReadYourWrites} bean
+   */
+  private @Nonnull MethodSpec.Builder createReadYourWritesBeanMethod(
+      @Nonnull FieldSpec beanNameFieldSpec,
+      @Nonnull String dataSourceName,
+      @Nonnull ReadYourWrites readYourWrites
+  ) {
+    return MethodSpec.methodBuilder("readYourWrites")
+        .addAnnotation(createBeanAnnotationFromFieldSpec(beanNameFieldSpec))
+        .addModifiers(Modifier.PUBLIC)
+        .returns(MultiDataSourceReadYourWrites.class)
+        .addStatement(
+            "return new $T($S, $L)",
+            MultiDataSourceReadYourWrites.class,
+            dataSourceName,
+            readYourWrites.windowMillis()
+        );
+  }
+
+  /**
+   * Create the {@link MethodSpec} builder for the {@link MultiDataSourceConcurrencyLimiter} bean of
+   * the data source.
+   *
+   * @param beanNameFieldSpec           the {@link FieldSpec} for this bean name constant
+   * @param dataSourceBeanNameFieldSpec the {@link FieldSpec} for the {@link DataSource} dependency
+   *                                    bean name constant, whose pool size is the maximum limit if
+   *                                    none is provided
+   * @param dataSourceName              the name of the data source, tagging the metrics
+   * @param concurrencyLimit            the {@link ConcurrencyLimit} of the data source
+   * @return the {@link MethodSpec} builder for the {@link MultiDataSourceConcurrencyLimiter} bean
+   */
+  private @Nonnull MethodSpec.Builder createConcurrencyLimiterBeanMethod(
+      @Nonnull FieldSpec beanNameFieldSpec,
+      @Nonnull FieldSpec dataSourceBeanNameFieldSpec,
+      @Nonnull String dataSourceName,
+      @Nonnull ConcurrencyLimit concurrencyLimit
+  ) {
+    // Create the method parameters (DataSource dependency)
+    final ParameterSpec dataSourceParameter = ParameterSpec
+        .builder(DataSource.class, "dataSource")
+        .addAnnotation(
+            AnnotationSpec.builder(Qualifier.class)
+                .addMember(VALUE_FIELD_NAME_STRING, "$N", dataSourceBeanNameFieldSpec)
+                .build()
+        )
+        .build();
+
+    final MethodSpec.Builder concurrencyLimiterMethodBuilder = MethodSpec
+        .methodBuilder("concurrencyLimiter")
+        .addAnnotation(createBeanAnnotationFromFieldSpec(beanNameFieldSpec))
+        .addModifiers(Modifier.PUBLIC)
+        .returns(MultiDataSourceConcurrencyLimiter.class);
+
+    // The maximum limit defaults to the maximum pool size of the data source
+    final CodeBlock maxLimit;
+    if (concurrencyLimit.maxLimit() == PerformanceProfile.UNSET) {
+      concurrencyLimiterMethodBuilder.addParameter(dataSourceParameter);
+      maxLimit = CodeBlock.of(
+          "$T.getInstance().getMaximumPoolSizeOrDefault($N)",
+          MultiDataSourceConnectionPoolUtils.class,
+          dataSourceParameter
+      );
+    } else {
+      maxLimit = CodeBlock.of("$L", concurrencyLimit.maxLimit());
+    }
+
+    // Create the method body
+    return concurrencyLimiterMethodBuilder
+        .addStatement(
+            "return new $T(\n$S,\n$L,\n$L,\n$L,\n$L,\n$L\n)",
+            MultiDataSourceConcurrencyLimiter.class,
+            dataSourceName,
+            concurrencyLimit.minLimit(),
+            maxLimit,
+            concurrencyLimit.latencyThresholdMillis(),
+            concurrencyLimit.backoffPercent(),
+            concurrencyLimit.overloadAction() == OverloadAction.DIVERT_TO_PRIMARY
+        );
+  }
+
+  /**
+   * Create the {@link TypeSpec} for the nested Spring Configuration class exposing the metrics of
+   * the {@link MultiDataSourceConcurrencyLimiter} of the data source.
+   * <p>
+   * It is conditional on Micrometer being on the classpath, so that the data source config class
+   * can be loaded without it.
+   *
+   * @param dataSourceName                      the name of the data source
+   * @param concurrencyLimiterBeanNameFieldSpec the {@link FieldSpec} for the
+   *                                            {@link MultiDataSourceConcurrencyLimiter}
+   *                                            dependency bean name constant
+   * @return the {@link TypeSpec} for the nested metrics Spring Configuration class
+   */
+  private @Nonnull TypeSpec createConcurrencyLimiterMetricsConfigType(
+      @Nonnull String dataSourceName,
+      @Nonnull FieldSpec concurrencyLimiterBeanNameFieldSpec
+  ) {
+    final FieldSpec metricsBeanNameField = multiDataSourceGeneratorUtils
+        .createConstantStringFieldSpec(
+            CONCURRENCY_LIMITER_METRICS_BEAN_NAME_CONSTANT_NAME,
+            dataSourceName + CONCURRENCY_LIMITER_METRICS_BEAN_SUFFIX
+        );
+    final ParameterSpec concurrencyLimiterParameter = ParameterSpec
+        .builder(MultiDataSourceConcurrencyLimiter.class, "concurrencyLimiter")
+        .addAnnotation(
+            AnnotationSpec.builder(Qualifier.class)
+                .addMember(VALUE_FIELD_NAME_STRING, "$N", concurrencyLimiterBeanNameFieldSpec)
+                .build()
+        )
+        .build();
+    final MethodSpec metricsMethod = MethodSpec.methodBuilder("concurrencyLimiterMetrics")
+        .addAnnotation(createBeanAnnotationFromFieldSpec(metricsBeanNameField))
+        .addModifiers(Modifier.PUBLIC)
+        .returns(MultiDataSourceConcurrencyLimiterMetrics.class)
+        .addParameter(concurrencyLimiterParameter)
+        .addStatement(
+            "return new $T($N)",
+            MultiDataSourceConcurrencyLimiterMetrics.class,
+            concurrencyLimiterParameter
+        )
+        .build();
+
+    return TypeSpec.classBuilder(CONCURRENCY_LIMITER_METRICS_CONFIG_CLASS_NAME)
+        .addAnnotation(Configuration.class)
+        .addAnnotation(
+            AnnotationSpec.builder(ConditionalOnClass.class)
+                .addMember("name", "$S", MICROMETER_METER_BINDER_CLASS_NAME)
+                .build()
+        )
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        .addField(metricsBeanNameField)
+        .addMethod(metricsMethod)
+        .build();
+  }
+
+  /**
+   * Create the {@link MethodSpec} builder for the {@link MultiDataSourceBulkheadExecutor} bean
+   * running the asynchronous repository methods of the data source.
+   *
+   * @param beanNameFieldSpec           the {@link FieldSpec} for this bean name constant
+   * @param dataSourceBeanNameFieldSpec the {@link FieldSpec} for the {@link DataSource} dependency
+   *                                    bean name constant, whose pool size caps the concurrency
+   * @param asyncExecutor               the {@link AsyncExecutor} of the data source
+   * @return the {@link MethodSpec} builder for the {@link MultiDataSourceBulkheadExecutor} bean
+   */
+  private @Nonnull MethodSpec.Builder createAsyncExecutorBeanMethod(
+      @Nonnull FieldSpec beanNameFieldSpec,
+      @Nonnull FieldSpec dataSourceBeanNameFieldSpec,
+      @Nonnull AsyncExecutor asyncExecutor
+  ) {
+    // Create the method annotations
+    final AnnotationSpec beanAnnotation = createBeanAnnotationFromFieldSpec(beanNameFieldSpec);
+    final AnnotationSpec dataSourceQualifierAnnotation = AnnotationSpec.builder(Qualifier.class)
+        .addMember(VALUE_FIELD_NAME_STRING, "$N", dataSourceBeanNameFieldSpec)
+        .build();
+
+    // Create the method parameters (DataSource dependency)
+    final ParameterSpec dataSourceParameter = ParameterSpec
+        .builder(DataSource.class, "dataSource")
+        .addAnnotation(dataSourceQualifierAnnotation)
+        .build();
+
+    // Create the method body
+    return MethodSpec.methodBuilder("asyncExecutor")
+        .addAnnotation(beanAnnotation)
+        .addModifiers(Modifier.PUBLIC)
+        .returns(MultiDataSourceBulkheadExecutor.class)
+        .addParameter(dataSourceParameter)
+        .addStatement(
+            "return new $T($N, $N, $L, $L)",
+            MultiDataSourceBulkheadExecutor.class,
+            dataSourceBeanNameFieldSpec,
+            dataSourceParameter,
+            asyncExecutor.queueCapacity(),
+            asyncExecutor.virtualThreads()
         );
   }
 
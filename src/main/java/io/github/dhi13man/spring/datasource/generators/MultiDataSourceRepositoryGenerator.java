@@ -1,6 +1,8 @@
 package io.github.dhi13man.spring.datasource.generators;
 
 import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterSpec;
@@ -8,28 +10,89 @@ import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 import com.squareup.javapoet.TypeVariableName;
+import io.github.dhi13man.spring.datasource.annotations.AsyncExecutor;
+import io.github.dhi13man.spring.datasource.annotations.BatchedFindById;
+import io.github.dhi13man.spring.datasource.annotations.CachedRead;
+import io.github.dhi13man.spring.datasource.annotations.CoalescedRead;
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.DataSourceConfig;
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig;
+import io.github.dhi13man.spring.datasource.annotations.HedgedRead;
+import io.github.dhi13man.spring.datasource.annotations.KeysetPaged;
+import io.github.dhi13man.spring.datasource.annotations.PerformanceProfile;
+import io.github.dhi13man.spring.datasource.annotations.ScatterGather;
+import io.github.dhi13man.spring.datasource.annotations.ShardKey;
 import io.github.dhi13man.spring.datasource.annotations.TargetSecondaryDataSource;
 import io.github.dhi13man.spring.datasource.annotations.TargetSecondaryDataSources;
 import io.github.dhi13man.spring.datasource.config.IGeneratedDataSourceRepository;
+import io.github.dhi13man.spring.datasource.dto.DerivedQuery.Action;
+import io.github.dhi13man.spring.datasource.dto.DerivedQuery;
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceBulkheadExecutor;
+import io.github.dhi13man.spring.datasource.repository.MultiDataSourceJdbcRepository;
+import io.github.dhi13man.spring.datasource.routing.MultiDataSourceHedgedRead;
+import io.github.dhi13man.spring.datasource.routing.MultiDataSourceRoutingContext;
+import io.github.dhi13man.spring.datasource.routing.MultiDataSourceScatterGather;
+import io.github.dhi13man.spring.datasource.routing.MultiDataSourceShardRouter;
 import io.github.dhi13man.spring.datasource.utils.MultiDataSourceCommonStringUtils;
+import io.github.dhi13man.spring.datasource.utils.MultiDataSourceDerivedQueryUtils.PropertyResolver;
+import io.github.dhi13man.spring.datasource.utils.MultiDataSourceDerivedQueryUtils;
 import io.github.dhi13man.spring.datasource.utils.MultiDataSourceGeneratorUtils;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.processing.Messager;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
 import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 import javax.tools.Diagnostic.Kind;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.jdbc.core.SingleColumnRowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -41,22 +104,131 @@ public class MultiDataSourceRepositoryGenerator {
 
   private static final String REPOSITORY_BEAN_NAME = "REPOSITORY_BEAN_NAME";
 
+  private static final String HEDGED_READS_BEAN_NAME = "HEDGED_READS_BEAN_NAME";
+
+  private static final String HEDGED_READS_SUFFIX = "HedgedReads";
+
+  private static final String SHARDS_BEAN_NAME = "SHARDS_BEAN_NAME";
+
+  private static final String SHARDS_SUFFIX = "Shards";
+
+  private static final String SCATTER_GATHER_BEAN_NAME = "SCATTER_GATHER_BEAN_NAME";
+
+  private static final String SCATTER_GATHER_SUFFIX = "ScatterGather";
+
+  private static final String FIND_ALL_BY_ID_METHOD_NAME = "findAllById";
+
+  private static final String SPRING_DATA_REPOSITORY_CLASS_NAME =
+      "org.springframework.data.repository.Repository";
+
+  private static final Set<String> ID_ANNOTATIONS = Set.of(
+      "javax.persistence.Id",
+      "jakarta.persistence.Id",
+      "org.springframework.data.annotation.Id"
+  );
+
+  private static final String HIBERNATE_READ_ONLY_QUERY_HINT = "org.hibernate.readOnly";
+
+  private static final String HIBERNATE_FETCH_SIZE_QUERY_HINT = "org.hibernate.fetchSize";
+
+  private static final String JAKARTA_PERSISTENCE_PACKAGE = "jakarta.persistence";
+
+  private static final String JAVAX_PERSISTENCE_PACKAGE = "javax.persistence";
+
+  private static final String QUERY_HINT_SIMPLE_NAME = "QueryHint";
+
+  private static final String ENTITY_SIMPLE_NAME = "Entity";
+
+  private static final String NAMED_QUERY_SIMPLE_NAME = "NamedQuery";
+
+  private static final String NAMED_QUERIES_SIMPLE_NAME = "NamedQueries";
+
+  private static final String EMBEDDABLE_SIMPLE_NAME = "Embeddable";
+
+  private static final String MAPPED_SUPERCLASS_SIMPLE_NAME = "MappedSuperclass";
+
+  private static final String TRANSIENT_SIMPLE_NAME = "Transient";
+
+  private static final String TABLE_SIMPLE_NAME = "Table";
+
+  private static final String COLUMN_SIMPLE_NAME = "Column";
+
+  private static final String ENUMERATED_SIMPLE_NAME = "Enumerated";
+
+  private static final String ENUM_TYPE_STRING = "STRING";
+
+  private static final String FIND_ALL_METHOD_NAME = "findAll";
+
+  private static final String COUNT_METHOD_NAME = "count";
+
+  private static final String SPEL_EXPRESSION_PREFIX = "#{";
+
+  private static final String JDBC_ROW_MAPPER_PREFIX = "map";
+
+  private static final Pattern NATIVE_POSITIONAL_PARAMETER_PATTERN = Pattern.compile("\\?(\\d+)");
+
+  private static final Pattern JPQL_IDENTIFIER_PATTERN = Pattern
+      .compile("(?<![\\w$.:?])[\\p{L}_$][\\w$]*(\\.[\\p{L}_$][\\w$]*)*");
+
+  private static final Set<String> JDBC_COLUMN_TYPE_NAMES = Set.of(
+      "java.lang.String",
+      "java.lang.Boolean",
+      "java.lang.Byte",
+      "java.lang.Short",
+      "java.lang.Integer",
+      "java.lang.Long",
+      "java.lang.Float",
+      "java.lang.Double",
+      "java.math.BigDecimal",
+      "java.sql.Date",
+      "java.sql.Time",
+      "java.sql.Timestamp",
+      "java.time.LocalDate",
+      "java.time.LocalTime",
+      "java.time.LocalDateTime",
+      "java.time.OffsetTime",
+      "java.time.OffsetDateTime",
+      "java.util.UUID"
+  );
+
+  private static final Set<TypeName> JDBC_CONTAINER_TYPES = Set.of(
+      ClassName.get(List.class),
+      ClassName.get(Collection.class),
+      ClassName.get(Iterable.class),
+      ClassName.get(Set.class),
+      ClassName.get(Optional.class),
+      ClassName.get(Stream.class)
+  );
+
+  private static final Set<TypeName> UNSUPPORTED_JDBC_RETURN_TYPES = Set.of(
+      ClassName.get(CompletableFuture.class),
+      ClassName.get(Page.class),
+      ClassName.get(Slice.class)
+  );
+
   private final @Nonnull Messager messager;
 
   private final @Nonnull Types typeUtils;
 
+  private final @Nonnull Elements elementUtils;
+
   private final @Nonnull MultiDataSourceCommonStringUtils multiDataSourceCommonStringUtils;
 
   private final @Nonnull MultiDataSourceGeneratorUtils multiDataSourceGeneratorUtils;
 
+  private final @Nonnull MultiDataSourceDerivedQueryUtils multiDataSourceDerivedQueryUtils =
+      MultiDataSourceDerivedQueryUtils.getInstance();
+
   public MultiDataSourceRepositoryGenerator(
       @Nonnull Messager messager,
       @Nonnull Types typeUtils,
+      @Nonnull Elements elementUtils,
       @Nonnull MultiDataSourceCommonStringUtils multiDataSourceCommonStringUtils,
       @Nonnull MultiDataSourceGeneratorUtils multiDataSourceGeneratorUtils
   ) {
     this.messager = messager;
     this.typeUtils = typeUtils;
+    this.elementUtils = elementUtils;
     this.multiDataSourceCommonStringUtils = multiDataSourceCommonStringUtils;
     this.multiDataSourceGeneratorUtils = multiDataSourceGeneratorUtils;
   }
@@ -68,17 +240,25 @@ public class MultiDataSourceRepositoryGenerator {
    * The generated interface will have the same name as the given {@link TypeElement} with the
    * prefix as the PascalCase version of the given {@code dataSourceName}.
    *
-   * @param typeElement    the {@link TypeElement} to generate the interface for (must be an
-   *                       interface or class)
-   * @param methods        the {@link ExecutableElement} methods to generate annotated methods for
-   *                       (must be methods of the given {@link TypeElement})
-   * @param dataSourceName the name of the data source the generated interface is for
+   * @param typeElement              the {@link TypeElement} to generate the interface for (must
+   *                                 be an interface or class)
+   * @param methods                  the {@link ExecutableElement} methods to generate annotated
+   *                                 methods for (must be methods of the given {@link TypeElement})
+   * @param dataSourceName           the name of the data source the generated interface is for
+   * @param dataSourceConfig         the {@link DataSourceConfig} of the data source the generated
+   *                                 interface is for, or null if it is not declared in this
+   *                                 compilation unit
+   * @param precomputeDerivedQueries whether the JPQL of the derived query methods is added to them
+   *                                 as a {@link Query} (see
+   *                                 {@link EnableMultiDataSourceConfig#precomputeDerivedQueries()})
    * @return the {@link TypeSpec} for a generated Spring Repository interface with annotated methods
    */
   public @Nonnull TypeSpec generateRepositoryTypeElementWithAnnotatedMethods(
       @Nonnull TypeElement typeElement,
       @Nonnull Set<ExecutableElement> methods,
-      @Nonnull String dataSourceName
+      @Nonnull String dataSourceName,
+      @Nullable DataSourceConfig dataSourceConfig,
+      boolean precomputeDerivedQueries
   ) {
     // Generate the class/interface definition
     final String generatedTypename = multiDataSourceCommonStringUtils.toPascalCase(dataSourceName)
@@ -120,8 +300,21 @@ public class MultiDataSourceRepositoryGenerator {
     builder.addSuperinterface(IGeneratedDataSourceRepository.class);
 
     // Create all necessary methods to be copied to the generated class
-    final List<MethodSpec> methodSpecs = methods.stream()
-        .map(this::convertExecutableMethodElementToMethodSpec)
+    final Stream<MethodSpec> keysetPagedMethodSpecs = methods.stream()
+        .filter(method -> method.getAnnotation(KeysetPaged.class) != null)
+        .map(method -> this.createKeysetPagedMethodSpec(typeElement, method));
+    final TypeElement entityElement = precomputeDerivedQueries
+        ? this.findEntityElement(typeElement) : null;
+    final List<MethodSpec> methodSpecs = Stream
+        .concat(
+            methods.stream().map(this::convertExecutableMethodElementToMethodSpec),
+            keysetPagedMethodSpecs
+        )
+        .map(methodSpec -> entityElement == null ? methodSpec
+            : this.addDerivedQuery(typeElement, entityElement, methodSpec))
+        .map(methodSpec -> this.addQueryHints(methodSpec, dataSourceConfig))
+        .map(methodSpec -> this.addAsyncIfCompletableFuture(methodSpec, dataSourceName,
+            dataSourceConfig))
         .collect(Collectors.toList());
 
     // Create the bean name constant
@@ -144,49 +337,2175 @@ public class MultiDataSourceRepositoryGenerator {
   }
 
   /**
-   * Convert a {@link VariableElement} to a {@link ParameterSpec}.
+   * Create the {@link TypeSpec} for a generated JDBC repository class of a
+   * {@link DataSourceConfig#jdbcOnly()} data source, implementing the given
+   * {@link ExecutableElement} methods of the given {@link TypeElement} with the SQL of their native
+   * queries or derived queries, run on the {@link NamedParameterJdbcTemplate} of the data source.
+   * <p>
+   * The generated class has the same name as the generated repository copies, and extends
+   * {@link MultiDataSourceJdbcRepository}. It only has the given methods, and a static row mapper
+   * setting the columns of each row on a new instance of the entity of the repository, generated
+   * from the basic fields of the entity. Its SQL and row mapper follow the {@code @Table},
+   * {@code @Column} and {@code @Enumerated} annotations of the entity, with the snake case default
+   * naming strategy of Spring Boot.
    *
-   * @param parameter the {@link VariableElement} to convert
-   * @return the {@link ParameterSpec} for the given {@link VariableElement}
+   * @param typeElement    the {@link TypeElement} of the repository to generate the class for
+   * @param methods        the {@link ExecutableElement} methods to implement (must be methods of
+   *                       the given {@link TypeElement})
+   * @param dataSourceName the name of the data source the generated class is for
+   * @return the {@link TypeSpec} for a generated JDBC repository class
+   * @throws IllegalArgumentException if the rows of the entity of the repository can not be mapped,
+   *                                  or a method can not be run on plain JDBC
    */
-  private @Nonnull ParameterSpec convertParameterVariableElementToParameterSpec(
-      @Nonnull VariableElement parameter
+  public @Nonnull TypeSpec generateJdbcRepositoryTypeElement(
+      @Nonnull TypeElement typeElement,
+      @Nonnull Set<ExecutableElement> methods,
+      @Nonnull String dataSourceName
   ) {
-    // Copy all annotations
-    final List<AnnotationSpec> annotationSpecs = parameter.getAnnotationMirrors().stream()
-        .map(AnnotationSpec::get)
+    final String generatedTypename = multiDataSourceCommonStringUtils.toPascalCase(dataSourceName)
+        + typeElement.getSimpleName().toString();
+    final TypeElement entityElement = this.findEntityElement(typeElement);
+    if (entityElement == null || !typeElement.getTypeParameters().isEmpty()) {
+      final String errorMessage = "Repository " + typeElement.getQualifiedName() + " targets the"
+          + " JDBC only data source " + dataSourceName + ", but has no JPA entity type argument"
+          + " to map its rows to.";
+      messager.printMessage(Kind.ERROR, errorMessage);
+      throw new IllegalArgumentException(errorMessage);
+    }
+
+    // Map the columns of the entity
+    final Map<String, VariableElement> propertyToColumnField = this
+        .getJdbcColumnFields(entityElement, dataSourceName);
+    final MethodSpec rowMapperMethodSpec = this
+        .createJdbcRowMapperMethodSpec(entityElement, propertyToColumnField);
+
+    // Create the constructor, injecting the JDBC template of the data source
+    final ParameterSpec jdbcTemplateParameter = ParameterSpec
+        .builder(NamedParameterJdbcTemplate.class, "jdbcTemplate")
+        .addAnnotation(
+            AnnotationSpec.builder(Qualifier.class)
+                .addMember(
+                    "value",
+                    "$S",
+                    dataSourceName + MultiDataSourceJdbcRepository.JDBC_TEMPLATE_BEAN_NAME_SUFFIX
+                )
+                .build()
+        )
+        .build();
+    final MethodSpec constructorSpec = MethodSpec.constructorBuilder()
+        .addModifiers(Modifier.PUBLIC)
+        .addParameter(jdbcTemplateParameter)
+        .addStatement("super($N)", jdbcTemplateParameter)
+        .build();
+
+    // Create the methods running the SQL of the annotated methods
+    final CodeBlock rowMapper = CodeBlock.of("$L::$N", generatedTypename, rowMapperMethodSpec);
+    final List<MethodSpec> methodSpecs = methods.stream()
+        .map(method -> this.createJdbcMethodSpec(
+            typeElement,
+            entityElement,
+            propertyToColumnField,
+            rowMapper,
+            method,
+            dataSourceName
+        ))
         .collect(Collectors.toList());
 
-    // Create the parameter spec
-    return ParameterSpec
-        .builder(TypeName.get(parameter.asType()), parameter.getSimpleName().toString())
-        .addAnnotations(annotationSpecs)
+    // Create the bean name constant and the Repository annotation
+    final FieldSpec repositoryBeanNameFieldSpec = multiDataSourceGeneratorUtils
+        .createConstantStringFieldSpec(REPOSITORY_BEAN_NAME, generatedTypename);
+    final AnnotationSpec repositoryAnnotation = AnnotationSpec.builder(Repository.class)
+        .addMember("value", "$L.$N", generatedTypename, repositoryBeanNameFieldSpec)
+        .build();
+
+    // Return the generated class
+    return TypeSpec.classBuilder(generatedTypename)
+        .superclass(MultiDataSourceJdbcRepository.class)
+        .addModifiers(Modifier.PUBLIC)
+        .addAnnotation(repositoryAnnotation)
+        .addField(repositoryBeanNameFieldSpec)
+        .addMethod(constructorSpec)
+        .addMethods(methodSpecs)
+        .addMethod(rowMapperMethodSpec)
         .build();
   }
 
   /**
-   * Override all non-annotated methods from the superclass and disable them by throwing an
-   * {@link UnsupportedOperationException}.
+   * Create the {@link TypeSpec} for a generated Spring component hedging the {@link HedgedRead}
+   * annotated methods of the given {@link TypeElement} across its generated repository copies.
+   * <p>
+   * The generated class will have the same name as the given {@link TypeElement} with the suffix
+   * {@code HedgedReads}. Each of its methods has the signature of a hedged method, and issues the
+   * call to the repository copies of the data sources of that method, in their declaration order,
+   * through a {@link MultiDataSourceHedgedRead}.
    *
-   * @param annotatedMethods the annotated methods to exclude from overriding and disabling
-   * @param declaredType     the {@link DeclaredType} of the superclass (must be an interface or
-   *                         class) to override and disable methods from
-   * @return the {@link MethodSpec}s for all overridden and disabled methods
+   * @param typeElement                         the {@link TypeElement} of the repository with the
+   *                                            hedged methods
+   * @param methodToDataSourceNames             the hedged methods of the repository, mapped to the
+   *                                            names of the data sources they are hedged across
+   * @param dataSourceToRepositoryCopyClassName the names of the data sources of the hedged methods,
+   *                                            mapped to the {@link ClassName}s of the repository
+   *                                            copies generated for them
+   * @return the {@link TypeSpec} for a generated Spring component hedging the annotated methods
    */
-  private @Nonnull Set<MethodSpec> generateOverridenAndDisabledSuperMethods(
-      @Nonnull Set<ExecutableElement> annotatedMethods,
-      @Nonnull DeclaredType declaredType
+  public @Nonnull TypeSpec generateHedgedReadsTypeElement(
+      @Nonnull TypeElement typeElement,
+      @Nonnull Map<ExecutableElement, List<String>> methodToDataSourceNames,
+      @Nonnull Map<String, ClassName> dataSourceToRepositoryCopyClassName
   ) {
-    final TypeElement superTypeElement = (TypeElement) declaredType.asElement();
-    final Map<TypeName, TypeName> baseTypeNameToDerived = this
-        .getBaseTypeNameToDerived(declaredType, superTypeElement);
-    final List<ExecutableElement> superMethods = ElementFilter
-        .methodsIn(superTypeElement.getEnclosedElements());
+    final String repositoryName = typeElement.getSimpleName().toString();
+    final String generatedTypename = repositoryName + HEDGED_READS_SUFFIX;
+    final TypeSpec.Builder builder = TypeSpec.classBuilder(generatedTypename);
+
+    // Inject the repository copies of all the data sources involved
+    final MethodSpec.Builder constructorBuilder = MethodSpec.constructorBuilder()
+        .addModifiers(Modifier.PUBLIC);
+    final Map<String, FieldSpec> dataSourceToRepositoryFieldSpec = new LinkedHashMap<>();
+    for (final var repositoryCopyEntry : dataSourceToRepositoryCopyClassName.entrySet()) {
+      final String pascalCaseDataSourceName = multiDataSourceCommonStringUtils
+          .toPascalCase(repositoryCopyEntry.getKey());
+      final String fieldName = Character.toLowerCase(pascalCaseDataSourceName.charAt(0))
+          + pascalCaseDataSourceName.substring(1) + "Repository";
+      final FieldSpec repositoryFieldSpec = FieldSpec
+          .builder(repositoryCopyEntry.getValue(), fieldName, Modifier.PRIVATE, Modifier.FINAL)
+          .build();
+      dataSourceToRepositoryFieldSpec.put(repositoryCopyEntry.getKey(), repositoryFieldSpec);
+      builder.addField(repositoryFieldSpec);
+      constructorBuilder
+          .addParameter(repositoryCopyEntry.getValue(), fieldName)
+          .addStatement("this.$N = $N", repositoryFieldSpec, fieldName);
+    }
+
+    // Create a hedged read with its own latencies and budget, and a hedging method for each method
+    final Set<String> hedgedReadFieldNames = new HashSet<>();
+    final List<MethodSpec> methodSpecs = new ArrayList<>();
+    for (final var methodEntry : methodToDataSourceNames.entrySet()) {
+      final ExecutableElement method = methodEntry.getKey();
+      final String methodName = method.getSimpleName().toString();
+      final HedgedRead hedgedRead = method.getAnnotation(HedgedRead.class);
+      String hedgedReadFieldName = methodName + "HedgedRead";
+      for (int i = 2; !hedgedReadFieldNames.add(hedgedReadFieldName); i++) {
+        hedgedReadFieldName = methodName + "HedgedRead" + i;
+      }
+      final FieldSpec hedgedReadFieldSpec = FieldSpec
+          .builder(MultiDataSourceHedgedRead.class, hedgedReadFieldName)
+          .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
+          .initializer(
+              "new $T($S, $L, $L, $L)",
+              MultiDataSourceHedgedRead.class,
+              repositoryName + "." + methodName,
+              hedgedRead.delayPercentile(),
+              hedgedRead.minDelayMillis(),
+              hedgedRead.maxExtraLoadPercent()
+          )
+          .build();
+      builder.addField(hedgedReadFieldSpec);
+      methodSpecs.add(
+          this.createHedgedReadMethodSpec(
+              method,
+              hedgedReadFieldSpec,
+              methodEntry.getValue().stream()
+                  .map(dataSourceToRepositoryFieldSpec::get)
+                  .collect(Collectors.toList())
+          )
+      );
+    }
+
+    // Create the bean name constant
+    final FieldSpec beanNameFieldSpec = multiDataSourceGeneratorUtils
+        .createConstantStringFieldSpec(HEDGED_READS_BEAN_NAME, generatedTypename);
+
+    // Add the Component annotation
+    final AnnotationSpec componentAnnotation = AnnotationSpec.builder(Component.class)
+        .addMember("value", "$L.$N", generatedTypename, beanNameFieldSpec)
+        .build();
+
+    // Return the generated class
+    return builder.addModifiers(Modifier.PUBLIC)
+        .addAnnotation(componentAnnotation)
+        .addField(beanNameFieldSpec)
+        .addMethod(constructorBuilder.build())
+        .addMethods(methodSpecs)
+        .build();
+  }
+
+  /**
+   * Create the {@link TypeSpec} for a generated Spring component running the methods of the given
+   * {@link TypeElement} with a {@link ShardKey} parameter on the shard of their key.
+   * <p>
+   * The generated class will have the same name as the given {@link TypeElement} with the suffix
+   * {@code Shards}. It holds a {@link MultiDataSourceShardRouter} for every shard set of the
+   * methods, and each of its methods has the signature of a sharded method and runs the call on
+   * the shard picked by the router for its key: on the repository copy of that shard, or on the
+   * original repository routed to that shard through the {@link MultiDataSourceRoutingContext} if
+   * no repository copies are given.
+   *
+   * @param typeElement                         the {@link TypeElement} of the repository with the
+   *                                            sharded methods
+   * @param methodToShardSetEntry               the sharded methods of the repository, mapped to
+   *                                            the name of their shard set and the names of its
+   *                                            shards
+   * @param dataSourceToRepositoryCopyClassName the names of the shards, mapped to the
+   *                                            {@link ClassName}s of the repository copies
+   *                                            generated for them, or null to route the original
+   *                                            repository at runtime instead
+   * @return the {@link TypeSpec} for a generated Spring component running the sharded methods
+   */
+  public @Nonnull TypeSpec generateShardsTypeElement(
+      @Nonnull TypeElement typeElement,
+      @Nonnull Map<ExecutableElement, Map.Entry<String, List<String>>> methodToShardSetEntry,
+      @Nullable Map<String, ClassName> dataSourceToRepositoryCopyClassName
+  ) {
+    final String repositoryName = typeElement.getSimpleName().toString();
+    final String generatedTypename = repositoryName + SHARDS_SUFFIX;
+    final TypeSpec.Builder builder = TypeSpec.classBuilder(generatedTypename);
+
+    // Inject the repository copies of all the shards, or the original repository to route
+    final MethodSpec.Builder constructorBuilder = MethodSpec.constructorBuilder()
+        .addModifiers(Modifier.PUBLIC);
+    final Map<ClassName, FieldSpec> repositoryClassNameToFieldSpec = this.addRepositoryFieldSpecs(
+        builder,
+        constructorBuilder,
+        typeElement,
+        dataSourceToRepositoryCopyClassName
+    );
+    final FieldSpec originalRepositoryFieldSpec = dataSourceToRepositoryCopyClassName == null
+        ? repositoryClassNameToFieldSpec.get(ClassName.get(typeElement)) : null;
+
+    // Create a shard router for every shard set, and a sharded method for each method
+    final Map<String, FieldSpec> shardSetToRouterFieldSpec = new LinkedHashMap<>();
+    final List<MethodSpec> methodSpecs = new ArrayList<>();
+    for (final var methodEntry : methodToShardSetEntry.entrySet()) {
+      final String shardSetName = methodEntry.getValue().getKey();
+      final List<String> shardNames = methodEntry.getValue().getValue();
+      final FieldSpec routerFieldSpec = shardSetToRouterFieldSpec.computeIfAbsent(
+          shardSetName,
+          ignored -> FieldSpec
+              .builder(
+                  MultiDataSourceShardRouter.class,
+                  this.toCamelCase(multiDataSourceCommonStringUtils.toPascalCase(shardSetName))
+                      + "ShardRouter"
+              )
+              .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
+              .initializer(
+                  "new $T($S, $T.of($L))",
+                  MultiDataSourceShardRouter.class,
+                  shardSetName,
+                  List.class,
+                  shardNames.stream()
+                      .map(shardName -> CodeBlock.of("$S", shardName))
+                      .collect(CodeBlock.joining(", "))
+              )
+              .build()
+      );
+      final Map<String, FieldSpec> shardToRepositoryFieldSpec = new LinkedHashMap<>();
+      if (dataSourceToRepositoryCopyClassName != null) {
+        shardNames.forEach(shardName -> shardToRepositoryFieldSpec.put(
+            shardName,
+            repositoryClassNameToFieldSpec.get(dataSourceToRepositoryCopyClassName.get(shardName))
+        ));
+      }
+      methodSpecs.add(
+          this.createShardedMethodSpec(
+              methodEntry.getKey(),
+              routerFieldSpec,
+              shardToRepositoryFieldSpec,
+              originalRepositoryFieldSpec
+          )
+      );
+    }
+
+    // Create the bean name constant
+    final FieldSpec beanNameFieldSpec = multiDataSourceGeneratorUtils
+        .createConstantStringFieldSpec(SHARDS_BEAN_NAME, generatedTypename);
+
+    // Add the Component annotation
+    final AnnotationSpec componentAnnotation = AnnotationSpec.builder(Component.class)
+        .addMember("value", "$L.$N", generatedTypename, beanNameFieldSpec)
+        .build();
+
+    // Return the generated class
+    return builder.addModifiers(Modifier.PUBLIC)
+        .addAnnotation(componentAnnotation)
+        .addField(beanNameFieldSpec)
+        .addFields(shardSetToRouterFieldSpec.values())
+        .addMethod(constructorBuilder.build())
+        .addMethods(methodSpecs)
+        .build();
+  }
+
+  /**
+   * Create the {@link TypeSpec} for a generated Spring component running the {@link ScatterGather}
+   * annotated methods of the given {@link TypeElement} on all the data sources of their groups at
+   * the same time.
+   * <p>
+   * The generated class will have the same name as the given {@link TypeElement} with the suffix
+   * {@code ScatterGather}. Each of its methods has the signature of an annotated method, and
+   * gathers the results of the call on every data source of the method through a
+   * {@link MultiDataSourceScatterGather}: on the repository copies of the data sources, or on the
+   * original repository routed to each data source through the
+   * {@link MultiDataSourceRoutingContext} if no repository copies are given. A {@link Pageable}
+   * parameter is pushed down to every data source.
+   *
+   * @param typeElement                         the {@link TypeElement} of the repository with the
+   *                                            annotated methods
+   * @param methodToDataSourceNames             the annotated methods of the repository, mapped to
+   *                                            the names of the data sources they are run on
+   * @param dataSourceToRepositoryCopyClassName the names of the data sources mapped to the
+   *                                            {@link ClassName}s of the repository copies
+   *                                            generated for them, or null to route the original
+   *                                            repository at runtime instead
+   * @return the {@link TypeSpec} for a generated Spring component running the annotated methods
+   */
+  public @Nonnull TypeSpec generateScatterGatherTypeElement(
+      @Nonnull TypeElement typeElement,
+      @Nonnull Map<ExecutableElement, List<String>> methodToDataSourceNames,
+      @Nullable Map<String, ClassName> dataSourceToRepositoryCopyClassName
+  ) {
+    final String repositoryName = typeElement.getSimpleName().toString();
+    final String generatedTypename = repositoryName + SCATTER_GATHER_SUFFIX;
+    final TypeSpec.Builder builder = TypeSpec.classBuilder(generatedTypename);
+
+    // Inject the repository copies of all the data sources, or the original repository to route
+    final MethodSpec.Builder constructorBuilder = MethodSpec.constructorBuilder()
+        .addModifiers(Modifier.PUBLIC);
+    final Map<ClassName, FieldSpec> repositoryClassNameToFieldSpec = this.addRepositoryFieldSpecs(
+        builder,
+        constructorBuilder,
+        typeElement,
+        dataSourceToRepositoryCopyClassName
+    );
+    final FieldSpec originalRepositoryFieldSpec = repositoryClassNameToFieldSpec
+        .get(ClassName.get(typeElement));
+
+    // Create a scatter-gather with its own merge, and a scatter-gather method for each method
+    final Set<String> scatterGatherFieldNames = new HashSet<>();
+    final List<MethodSpec> methodSpecs = new ArrayList<>();
+    for (final var methodEntry : methodToDataSourceNames.entrySet()) {
+      final ExecutableElement method = methodEntry.getKey();
+      final String methodName = method.getSimpleName().toString();
+      final ScatterGather scatterGather = method.getAnnotation(ScatterGather.class);
+      String scatterGatherFieldName = methodName + "ScatterGather";
+      for (int i = 2; !scatterGatherFieldNames.add(scatterGatherFieldName); i++) {
+        scatterGatherFieldName = methodName + "ScatterGather" + i;
+      }
+      final CodeBlock sortBy = Arrays.stream(scatterGather.sortBy())
+          .map(property -> CodeBlock.of(", $S", property))
+          .collect(CodeBlock.joining(""));
+      final FieldSpec scatterGatherFieldSpec = FieldSpec
+          .builder(MultiDataSourceScatterGather.class, scatterGatherFieldName)
+          .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
+          .initializer(
+              "new $T($S, $T.$L$L)",
+              MultiDataSourceScatterGather.class,
+              repositoryName + "." + methodName,
+              ScatterGather.Merge.class,
+              scatterGather.merge().name(),
+              sortBy
+          )
+          .build();
+      builder.addField(scatterGatherFieldSpec);
+
+      // Call every data source on its repository copy, or on the original repository routed to it
+      final Map<String, FieldSpec> dataSourceToRepositoryFieldSpec = new LinkedHashMap<>();
+      methodEntry.getValue().forEach(dataSourceName -> dataSourceToRepositoryFieldSpec.put(
+          dataSourceName,
+          dataSourceToRepositoryCopyClassName == null ? originalRepositoryFieldSpec
+              : repositoryClassNameToFieldSpec
+                  .get(dataSourceToRepositoryCopyClassName.get(dataSourceName))
+      ));
+      methodSpecs.add(
+          this.createScatterGatherMethodSpec(
+              method,
+              scatterGatherFieldSpec,
+              dataSourceToRepositoryFieldSpec,
+              dataSourceToRepositoryCopyClassName == null
+          )
+      );
+    }
+
+    // Create the bean name constant
+    final FieldSpec beanNameFieldSpec = multiDataSourceGeneratorUtils
+        .createConstantStringFieldSpec(SCATTER_GATHER_BEAN_NAME, generatedTypename);
+
+    // Add the Component annotation
+    final AnnotationSpec componentAnnotation = AnnotationSpec.builder(Component.class)
+        .addMember("value", "$L.$N", generatedTypename, beanNameFieldSpec)
+        .build();
+
+    // Return the generated class
+    return builder.addModifiers(Modifier.PUBLIC)
+        .addAnnotation(componentAnnotation)
+        .addField(beanNameFieldSpec)
+        .addMethod(constructorBuilder.build())
+        .addMethods(methodSpecs)
+        .build();
+  }
+
+  /**
+   * Get the JPA managed types the copies of some repositories use: the entities of the
+   * repositories, and transitively the entities, embeddables and mapped superclasses of their
+   * superclasses and persistent fields (including the element types of collections and maps),
+   * along with the entities named in the JPQL of their {@link Query} methods and the subclasses of
+   * those entities among the given elements.
+   *
+   * @param repositoryElements the {@link TypeElement}s of the repositories
+   * @param rootElements       the root elements of the compilation, to find the entity subclasses
+   *                           in
+   * @return the sorted binary names of the managed types the repositories use
+   */
+  public @Nonnull Set<String> getManagedTypeNames(
+      @Nonnull Set<TypeElement> repositoryElements,
+      @Nonnull Set<? extends Element> rootElements
+  ) {
+    final List<TypeElement> rootEntityElements = new ArrayList<>();
+    this.collectEntityElements(rootElements, rootEntityElements);
+    final Deque<TypeElement> pendingElements = new ArrayDeque<>();
+    for (final TypeElement repositoryElement : repositoryElements) {
+      final TypeElement entityElement = this.findEntityElement(repositoryElement);
+      if (entityElement != null) {
+        pendingElements.add(entityElement);
+      }
+      pendingElements.addAll(this.findQueryEntityElements(repositoryElement, rootEntityElements));
+    }
+
+    final Set<TypeElement> managedElements = new LinkedHashSet<>();
+    while (!pendingElements.isEmpty()) {
+      // Follow the superclasses and persistent fields of the managed types
+      while (!pendingElements.isEmpty()) {
+        final TypeElement managedElement = pendingElements.poll();
+        if (!managedElements.add(managedElement)) {
+          continue;
+        }
+
+        final List<TypeMirror> referencedTypes = new ArrayList<>();
+        referencedTypes.add(managedElement.getSuperclass());
+        for (final VariableElement field : ElementFilter
+            .fieldsIn(managedElement.getEnclosedElements())) {
+          final boolean isTransient = field.getModifiers().contains(Modifier.STATIC)
+              || field.getModifiers().contains(Modifier.TRANSIENT)
+              || this.findPersistenceAnnotation(field, TRANSIENT_SIMPLE_NAME) != null;
+          if (!isTransient) {
+            referencedTypes.add(field.asType());
+          }
+        }
+        for (final TypeElement referencedElement : this.getDeclaredElements(referencedTypes)) {
+          if (this.isPersistentType(referencedElement)) {
+            pendingElements.add(referencedElement);
+          }
+        }
+      }
+
+      // Add the entity subclasses of the managed entities, which their queries may return
+      for (final TypeElement rootEntityElement : rootEntityElements) {
+        final boolean isManagedSubclass = !managedElements.contains(rootEntityElement)
+            && managedElements.stream()
+            .filter(managedElement -> this
+                .findPersistenceAnnotation(managedElement, ENTITY_SIMPLE_NAME) != null)
+            .anyMatch(managedElement -> typeUtils.isSubtype(
+                typeUtils.erasure(rootEntityElement.asType()),
+                typeUtils.erasure(managedElement.asType())
+            ));
+        if (isManagedSubclass) {
+          pendingElements.add(rootEntityElement);
+        }
+      }
+    }
+    return managedElements.stream()
+        .map(managedElement -> elementUtils.getBinaryName(managedElement).toString())
+        .collect(Collectors.toCollection(TreeSet::new));
+  }
+
+  /**
+   * Find the entities named in the JPQL of the {@link Query} methods of a repository (eg. the
+   * {@code Customer} of {@code select o from Order o, Customer c where ...}), which its copies
+   * query without referencing them from its entity.
+   *
+   * @param repositoryElement  the {@link TypeElement} of the repository
+   * @param rootEntityElements the entities of the compilation, to find the named entities in
+   * @return the entities named by the entity or class name in the JPQL of the repository
+   */
+  private @Nonnull List<TypeElement> findQueryEntityElements(
+      @Nonnull TypeElement repositoryElement,
+      @Nonnull List<TypeElement> rootEntityElements
+  ) {
+    final Set<String> identifiers = new HashSet<>();
+    for (final ExecutableElement method : ElementFilter
+        .methodsIn(elementUtils.getAllMembers(repositoryElement))) {
+      final Query query = method.getAnnotation(Query.class);
+      if (query == null || query.nativeQuery()) {
+        continue;
+      }
+
+      for (final String jpql : List.of(query.value(), query.countQuery())) {
+        final Matcher identifierMatcher = JPQL_IDENTIFIER_PATTERN.matcher(jpql);
+        while (identifierMatcher.find()) {
+          identifiers.add(identifierMatcher.group());
+        }
+      }
+    }
+    return rootEntityElements.stream()
+        .filter(entityElement -> identifiers.contains(this.getEntityName(entityElement))
+            || identifiers.contains(entityElement.getQualifiedName().toString()))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Get the {@link ClassName} of the JPA {@code QueryHint} annotation available on the compilation
+   * classpath, preferring Jakarta Persistence over Java Persistence.
+   *
+   * @return the {@link ClassName} of the JPA {@code QueryHint} annotation
+   */
+  private @Nonnull ClassName getQueryHintClassName() {
+    final String jakartaQueryHint = JAKARTA_PERSISTENCE_PACKAGE + "." + QUERY_HINT_SIMPLE_NAME;
+    final boolean isJakartaPersistence = elementUtils.getTypeElement(jakartaQueryHint) != null;
+    return ClassName.get(
+        isJakartaPersistence ? JAKARTA_PERSISTENCE_PACKAGE : JAVAX_PERSISTENCE_PACKAGE,
+        QUERY_HINT_SIMPLE_NAME
+    );
+  }
+
+  /**
+   * Add the Hibernate query hints of the data source to the given repository method.
+   * <p>
+   * Methods of a read-only data source get the read-only hint, so that entities loaded by them are
+   * not snapshotted for dirty checking. The entities of the other data sources may be modified and
+   * flushed by their callers, so they never get it. Methods returning a {@link Stream} or a
+   * {@link Slice} get the {@link DataSourceConfig#streamFetchSize()} of the data source, so that
+   * large results are streamed rather than buffered. If the method already
+   * has a {@link QueryHints} annotation, the hints it does not declare yet are merged into it.
+   * Methods annotated with {@link Modifying} are returned as is.
+   *
+   * @param methodSpec       the {@link MethodSpec} of the repository method
+   * @param dataSourceConfig the {@link DataSourceConfig} of the data source, or null if it is not
+   *                         declared in this compilation unit
+   * @return the {@link MethodSpec} with the query hints added
+   */
+  private @Nonnull MethodSpec addQueryHints(
+      @Nonnull MethodSpec methodSpec,
+      @Nullable DataSourceConfig dataSourceConfig
+  ) {
+    final TypeName queryHintsTypeName = TypeName.get(QueryHints.class);
+    final boolean isModifying = methodSpec.annotations.stream()
+        .anyMatch(annotationSpec -> annotationSpec.type.equals(TypeName.get(Modifying.class)));
+    if (isModifying) {
+      return methodSpec;
+    }
+
+    // Collect the hints of the data source for the method
+    final TypeName rawReturnType = methodSpec.returnType instanceof ParameterizedTypeName
+        ? ((ParameterizedTypeName) methodSpec.returnType).rawType : methodSpec.returnType;
+    final boolean isStreaming = rawReturnType.equals(TypeName.get(Stream.class))
+        || rawReturnType.equals(TypeName.get(Slice.class));
+    final Map<String, String> hintNameToValueMap = new LinkedHashMap<>();
+    if (dataSourceConfig != null && dataSourceConfig.readOnly()) {
+      hintNameToValueMap.put(HIBERNATE_READ_ONLY_QUERY_HINT, Boolean.TRUE.toString());
+    }
+    if (isStreaming && dataSourceConfig != null
+        && dataSourceConfig.streamFetchSize() != PerformanceProfile.UNSET) {
+      hintNameToValueMap.put(
+          HIBERNATE_FETCH_SIZE_QUERY_HINT,
+          String.valueOf(dataSourceConfig.streamFetchSize())
+      );
+    }
+
+    // Merge the hints not declared yet into the existing hints of the method
+    final AnnotationSpec existingQueryHints = methodSpec.annotations.stream()
+        .filter(annotationSpec -> annotationSpec.type.equals(queryHintsTypeName))
+        .findFirst()
+        .orElse(null);
+    final List<CodeBlock> existingHints = existingQueryHints == null
+        ? List.of() : existingQueryHints.members.getOrDefault("value", List.of());
+    hintNameToValueMap.keySet().removeIf(hintName -> existingHints.stream()
+        .anyMatch(hint -> hint.toString().contains("\"" + hintName + "\"")));
+    if (hintNameToValueMap.isEmpty()) {
+      return methodSpec;
+    }
+
+    final AnnotationSpec.Builder queryHintsBuilder = existingQueryHints == null
+        ? AnnotationSpec.builder(QueryHints.class)
+        : existingQueryHints.toBuilder();
+    for (final Map.Entry<String, String> hint : hintNameToValueMap.entrySet()) {
+      queryHintsBuilder.addMember(
+          "value",
+          "$L",
+          AnnotationSpec.builder(this.getQueryHintClassName())
+              .addMember("name", "$S", hint.getKey())
+              .addMember("value", "$S", hint.getValue())
+              .build()
+      );
+    }
+
+    final MethodSpec.Builder builder = methodSpec.toBuilder();
+    builder.annotations.remove(existingQueryHints);
+    return builder.addAnnotation(queryHintsBuilder.build()).build();
+  }
+
+  /**
+   * Create the {@link MethodSpec} of the keyset variant of a {@link KeysetPaged} annotated method.
+   * <p>
+   * The variant is a derived query with the criteria of the method and a criterion on the key of
+   * the last row of the previous page, ordered by the key. It takes the parameters of the method,
+   * with a parameter for that key before the {@link Pageable}, and returns a {@link Slice} of the
+   * rows of the method, so no {@code count} query is run.
+   *
+   * @param typeElement the {@link TypeElement} of the repository of the method
+   * @param method      the {@link KeysetPaged} annotated method
+   * @return the {@link MethodSpec} of the keyset variant of the method
+   * @throws IllegalArgumentException if the key of the method is not a property of its entity
+   */
+  private @Nonnull MethodSpec createKeysetPagedMethodSpec(
+      @Nonnull TypeElement typeElement,
+      @Nonnull ExecutableElement method
+  ) {
+    final KeysetPaged keysetPaged = method.getAnnotation(KeysetPaged.class);
+    final Map.Entry<String, TypeMirror> key = this.getKeysetKey(typeElement, method, keysetPaged);
+    final String pascalCaseKey = Character.toUpperCase(key.getKey().charAt(0))
+        + key.getKey().substring(1);
+
+    // Add the key criterion and the order by the key to the derived query
+    final String methodName = method.getSimpleName().toString();
+    final String keyCriterion = pascalCaseKey
+        + (keysetPaged.descending() ? "LessThan" : "GreaterThan");
+    final String orderBy = "OrderBy" + pascalCaseKey + (keysetPaged.descending() ? "Desc" : "Asc");
+    final String keysetMethodName = methodName.contains("By")
+        ? methodName + "And" + keyCriterion + orderBy
+        : methodName + "By" + keyCriterion + orderBy;
+
+    // Return a slice of the rows of the method, from the key of the last row of the previous page
+    final List<? extends TypeMirror> returnTypeArguments = ((DeclaredType) method.getReturnType())
+        .getTypeArguments();
+    final TypeName rowTypeName = returnTypeArguments.isEmpty()
+        ? TypeName.OBJECT : TypeName.get(returnTypeArguments.get(0));
+    final MethodSpec.Builder builder = this.convertExecutableMethodElementToMethodSpec(method)
+        .toBuilder()
+        .setName(keysetMethodName)
+        .returns(ParameterizedTypeName.get(ClassName.get(Slice.class), rowTypeName));
+    builder.parameters.add(
+        builder.parameters.size() - 1,
+        ParameterSpec.builder(TypeName.get(key.getValue()), "last" + pascalCaseKey).build()
+    );
+    return builder.build();
+  }
+
+  /**
+   * Get the key property a {@link KeysetPaged} annotated method is keyed by, and its type.
+   * <p>
+   * The key is the declared property of the entity of the repository, or else its id: the
+   * property whose field or getter is annotated with an {@code @Id} annotation, in the entity or
+   * its superclasses.
+   *
+   * @param typeElement the {@link TypeElement} of the repository of the method
+   * @param method      the {@link KeysetPaged} annotated method
+   * @param keysetPaged the {@link KeysetPaged} annotation of the method
+   * @return the name of the key property mapped to its type
+   * @throws IllegalArgumentException if the repository has no entity, the declared key is not a
+   *                                  property of it, or it has no {@code @Id} property
+   */
+  private @Nonnull Map.Entry<String, TypeMirror> getKeysetKey(
+      @Nonnull TypeElement typeElement,
+      @Nonnull ExecutableElement method,
+      @Nonnull KeysetPaged keysetPaged
+  ) {
+    final String methodName = typeElement.getSimpleName() + "." + method.getSimpleName();
+    final DeclaredType repositoryType = this.findRepositorySupertype(typeElement.asType());
+    if (repositoryType == null || repositoryType.getTypeArguments().size() != 2) {
+      final String errorMessage = "@KeysetPaged method " + methodName + " is not in a repository"
+          + " of an entity. Please extend a Spring Data repository with its entity and id types.";
+      messager.printMessage(Kind.ERROR, errorMessage);
+      throw new IllegalArgumentException(errorMessage);
+    }
+
+    // Find the declared key, or else the id, in the fields and getters of the entity and its
+    // superclasses, as the entity may use field or property access
+    final TypeMirror entityType = repositoryType.getTypeArguments().get(0);
+    TypeElement entityElement = entityType.getKind() == TypeKind.DECLARED
+        ? (TypeElement) ((DeclaredType) entityType).asElement() : null;
+    while (entityElement != null) {
+      final List<VariableElement> fields = ElementFilter
+          .fieldsIn(entityElement.getEnclosedElements());
+      for (final VariableElement field : fields) {
+        final boolean isKey = keysetPaged.key().isEmpty()
+            ? this.hasIdAnnotation(field)
+            : field.getSimpleName().contentEquals(keysetPaged.key());
+        if (isKey) {
+          return Map.entry(field.getSimpleName().toString(), field.asType());
+        }
+      }
+
+      final List<ExecutableElement> methods = ElementFilter
+          .methodsIn(entityElement.getEnclosedElements());
+      for (final ExecutableElement getter : methods) {
+        final String propertyName = this.getGetterPropertyName(getter);
+        final boolean isKey = propertyName != null && (keysetPaged.key().isEmpty()
+            ? this.hasIdAnnotation(getter) : propertyName.equals(keysetPaged.key()));
+        if (isKey) {
+          return Map.entry(propertyName, getter.getReturnType());
+        }
+      }
+
+      final TypeMirror superclass = entityElement.getSuperclass();
+      entityElement = superclass.getKind() == TypeKind.DECLARED
+          ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+
+    final String errorMessage = keysetPaged.key().isEmpty()
+        ? "@KeysetPaged method " + methodName + " is keyed by the id of its entity " + entityType
+        + ", which has no field or getter annotated with @Id. Please annotate the id of the"
+        + " entity, or declare the key of the method."
+        : "@KeysetPaged method " + methodName + " is keyed by " + keysetPaged.key()
+            + ", which is not a property of its entity " + entityType + ".";
+    messager.printMessage(Kind.ERROR, errorMessage);
+    throw new IllegalArgumentException(errorMessage);
+  }
+
+  /**
+   * Whether an element of an entity is annotated with an {@code @Id} annotation.
+   *
+   * @param element the field or getter of the entity
+   * @return whether the element is annotated with an {@code @Id} annotation
+   */
+  private boolean hasIdAnnotation(@Nonnull Element element) {
+    return element.getAnnotationMirrors().stream().anyMatch(annotationMirror -> ID_ANNOTATIONS
+        .contains(annotationMirror.getAnnotationType().asElement().toString()));
+  }
+
+  /**
+   * Get the name of the property a getter of an entity reads, eg. {@code id} for {@code getId()}
+   * or {@code active} for {@code isActive()}.
+   *
+   * @param method the method of the entity
+   * @return the name of the property, or null if the method is not a getter
+   */
+  private @Nullable String getGetterPropertyName(@Nonnull ExecutableElement method) {
+    final String methodName = method.getSimpleName().toString();
+    if (!method.getParameters().isEmpty() || method.getModifiers().contains(Modifier.STATIC)
+        || method.getReturnType().getKind() == TypeKind.VOID) {
+      return null;
+    }
+
+    final int prefixLength = methodName.startsWith("get") ? 3
+        : methodName.startsWith("is") ? 2 : 0;
+    if (prefixLength == 0 || methodName.length() == prefixLength) {
+      return null;
+    }
+
+    // Decapitalized like the JavaBeans properties, keeping the names starting with an acronym
+    final String propertyName = methodName.substring(prefixLength);
+    return propertyName.length() > 1 && Character.isUpperCase(propertyName.charAt(1))
+        ? propertyName
+        : Character.toLowerCase(propertyName.charAt(0)) + propertyName.substring(1);
+  }
+
+  /**
+   * Find the JPA entity of a repository: the entity type argument of its Spring Data repository
+   * supertype, if it is annotated with {@code @Entity}.
+   *
+   * @param typeElement the {@link TypeElement} of the repository
+   * @return the {@link TypeElement} of the entity, or null if the repository has no JPA entity
+   */
+  private @Nullable TypeElement findEntityElement(@Nonnull TypeElement typeElement) {
+    final DeclaredType repositoryType = this.findRepositorySupertype(typeElement.asType());
+    if (repositoryType == null || repositoryType.getTypeArguments().isEmpty()
+        || repositoryType.getTypeArguments().get(0).getKind() != TypeKind.DECLARED) {
+      return null;
+    }
+
+    final TypeElement entityElement = (TypeElement) ((DeclaredType) repositoryType
+        .getTypeArguments().get(0)).asElement();
+    return this.findPersistenceAnnotation(entityElement, ENTITY_SIMPLE_NAME) == null
+        ? null : entityElement;
+  }
+
+  /**
+   * Find a Jakarta Persistence or Java Persistence annotation of an element.
+   *
+   * @param element    the annotated {@link Element}
+   * @param simpleName the simple name of the annotation, eg. {@code Entity}
+   * @return the {@link AnnotationMirror} of the annotation, or null if the element does not have it
+   */
+  private @Nullable AnnotationMirror findPersistenceAnnotation(
+      @Nonnull Element element,
+      @Nonnull String simpleName
+  ) {
+    return element.getAnnotationMirrors().stream()
+        .filter(annotationMirror -> Set.of(
+            JAKARTA_PERSISTENCE_PACKAGE + "." + simpleName,
+            JAVAX_PERSISTENCE_PACKAGE + "." + simpleName
+        ).contains(annotationMirror.getAnnotationType().asElement().toString()))
+        .findFirst()
+        .orElse(null);
+  }
+
+  /**
+   * Whether a type is a JPA managed type: an entity, an embeddable or a mapped superclass.
+   *
+   * @param typeElement the {@link TypeElement} of the type
+   * @return whether the type is a JPA managed type
+   */
+  private boolean isPersistentType(@Nonnull TypeElement typeElement) {
+    return Stream.of(ENTITY_SIMPLE_NAME, EMBEDDABLE_SIMPLE_NAME, MAPPED_SUPERCLASS_SIMPLE_NAME)
+        .anyMatch(simpleName -> this.findPersistenceAnnotation(typeElement, simpleName) != null);
+  }
+
+  /**
+   * Collect the entities among some elements and the types nested in them.
+   *
+   * @param elements       the elements to collect the entities of
+   * @param entityElements the list to collect the {@link TypeElement}s of the entities in
+   */
+  private void collectEntityElements(
+      @Nonnull Collection<? extends Element> elements,
+      @Nonnull List<TypeElement> entityElements
+  ) {
+    for (final TypeElement typeElement : ElementFilter.typesIn(elements)) {
+      if (this.findPersistenceAnnotation(typeElement, ENTITY_SIMPLE_NAME) != null) {
+        entityElements.add(typeElement);
+      }
+      this.collectEntityElements(typeElement.getEnclosedElements(), entityElements);
+    }
+  }
+
+  /**
+   * Get the elements of the declared types among some types and their type arguments, and the
+   * component types of arrays among them.
+   *
+   * @param types the types to get the declared elements of
+   * @return the {@link TypeElement}s of the declared types
+   */
+  private @Nonnull Set<TypeElement> getDeclaredElements(@Nonnull List<TypeMirror> types) {
+    final Set<TypeElement> declaredElements = new LinkedHashSet<>();
+    final Deque<TypeMirror> pendingTypes = new ArrayDeque<>(types);
+    while (!pendingTypes.isEmpty()) {
+      final TypeMirror type = pendingTypes.poll();
+      if (type.getKind() == TypeKind.ARRAY) {
+        pendingTypes.add(((ArrayType) type).getComponentType());
+      } else if (type.getKind() == TypeKind.DECLARED
+          && declaredElements.add((TypeElement) ((DeclaredType) type).asElement())) {
+        pendingTypes.addAll(((DeclaredType) type).getTypeArguments());
+      }
+    }
+    return declaredElements;
+  }
+
+  /**
+   * Get the value of a member of an annotation, as declared or else defaulted.
+   *
+   * @param annotationMirror the {@link AnnotationMirror} of the annotation
+   * @param memberName       the name of the member
+   * @return the value of the member, or null if the annotation has no such member
+   */
+  private @Nullable Object getAnnotationValue(
+      @Nonnull AnnotationMirror annotationMirror,
+      @Nonnull String memberName
+  ) {
+    return elementUtils.getElementValuesWithDefaults(annotationMirror).entrySet().stream()
+        .filter(entry -> entry.getKey().getSimpleName().contentEquals(memberName))
+        .map(entry -> entry.getValue().getValue())
+        .findFirst()
+        .orElse(null);
+  }
+
+  /**
+   * Add the JPQL Spring Data JPA would derive from the name of a derived query method to it, as a
+   * {@link Query}, so that the name is not parsed at startup.
+   * <p>
+   * Methods which already have a {@link Query}, are backed by a named query of the entity, have
+   * type parameters, or do not derive a query reading rows, are returned as is, as are those
+   * returning projections rather than the entity, or deriving queries beyond plain JPQL (see
+   * {@link MultiDataSourceDerivedQueryUtils#toJpql(DerivedQuery, String, Set)}).
+   *
+   * @param typeElement   the {@link TypeElement} of the repository of the method
+   * @param entityElement the {@link TypeElement} of the entity of the repository
+   * @param methodSpec    the {@link MethodSpec} of the repository method
+   * @return the {@link MethodSpec} with the {@link Query} added
+   * @throws IllegalArgumentException if the name of the method can not be parsed, or its criteria
+   *                                  do not bind its parameters
+   */
+  private @Nonnull MethodSpec addDerivedQuery(
+      @Nonnull TypeElement typeElement,
+      @Nonnull TypeElement entityElement,
+      @Nonnull MethodSpec methodSpec
+  ) {
+    final boolean hasQuery = methodSpec.annotations.stream()
+        .anyMatch(annotationSpec -> annotationSpec.type.equals(TypeName.get(Query.class)));
+    final String entityName = this.getEntityName(entityElement);
+    if (hasQuery || !methodSpec.typeVariables.isEmpty()
+        || this.getNamedQueryNames(entityElement).contains(entityName + "." + methodSpec.name)) {
+      return methodSpec;
+    }
+
+    // Parse the name of the method against the entity
+    final String methodName = typeElement.getSimpleName() + "." + methodSpec.name;
+    final DerivedQuery derivedQuery;
+    try {
+      derivedQuery = multiDataSourceDerivedQueryUtils
+          .parse(methodSpec.name, this.createPropertyResolver(entityElement.asType()));
+    } catch (IllegalArgumentException e) {
+      final String errorMessage = "Derived query method " + methodName + " can not be parsed: "
+          + e.getMessage();
+      messager.printMessage(Kind.ERROR, errorMessage);
+      throw new IllegalArgumentException(errorMessage, e);
+    }
+    if (derivedQuery == null) {
+      return methodSpec;
+    }
+
+    // The criteria must bind every parameter but the paging and sorting ones
+    final List<ParameterSpec> argumentParameters = methodSpec.parameters.stream()
+        .filter(parameterSpec -> !Set.of(TypeName.get(Pageable.class), TypeName.get(Sort.class))
+            .contains(parameterSpec.type))
+        .collect(Collectors.toList());
+    final int argumentCount = argumentParameters.size();
+    if (argumentCount != derivedQuery.getArgumentCount()) {
+      final String errorMessage = "Derived query method " + methodName + " has " + argumentCount
+          + " query parameters, but its criteria bind " + derivedQuery.getArgumentCount() + ".";
+      messager.printMessage(Kind.ERROR, errorMessage);
+      throw new IllegalArgumentException(errorMessage);
+    }
+
+    // Rows must be read as the entity itself, as projections are selected at startup
+    TypeName rowTypeName = methodSpec.returnType;
+    while (rowTypeName instanceof ParameterizedTypeName) {
+      rowTypeName = ((ParameterizedTypeName) rowTypeName).typeArguments.get(0);
+    }
+    final Set<Integer> nullableArgumentIndexes = IntStream.range(0, argumentParameters.size())
+        .filter(index -> !argumentParameters.get(index).type.isPrimitive())
+        .boxed()
+        .collect(Collectors.toSet());
+    final String jpql = multiDataSourceDerivedQueryUtils
+        .toJpql(derivedQuery, entityName, nullableArgumentIndexes);
+    final boolean isReadingEntity = derivedQuery.getAction() != Action.FIND
+        || rowTypeName.equals(ClassName.get(entityElement));
+    if (jpql == null || !isReadingEntity) {
+      return methodSpec;
+    }
+
+    return methodSpec.toBuilder()
+        .addAnnotation(AnnotationSpec.builder(Query.class).addMember("value", "$S", jpql).build())
+        .build();
+  }
+
+  /**
+   * Get the JPA entity name of an entity: the name of its {@code @Entity} annotation, or else its
+   * simple name.
+   *
+   * @param entityElement the {@link TypeElement} of the entity
+   * @return the JPA entity name of the entity
+   */
+  private @Nonnull String getEntityName(@Nonnull TypeElement entityElement) {
+    final AnnotationMirror entityAnnotation = this
+        .findPersistenceAnnotation(entityElement, ENTITY_SIMPLE_NAME);
+    final Object name = entityAnnotation == null ? null
+        : this.getAnnotationValue(entityAnnotation, "name");
+    return name == null || name.toString().isEmpty()
+        ? entityElement.getSimpleName().toString() : name.toString();
+  }
+
+  /**
+   * Get the names of the named queries declared on an entity with {@code @NamedQuery} and
+   * {@code @NamedQueries} annotations, which Spring Data prefers over deriving queries.
+   *
+   * @param entityElement the {@link TypeElement} of the entity
+   * @return the names of the named queries of the entity
+   */
+  private @Nonnull Set<String> getNamedQueryNames(@Nonnull TypeElement entityElement) {
+    final List<AnnotationMirror> namedQueries = new ArrayList<>();
+    final AnnotationMirror namedQuery = this
+        .findPersistenceAnnotation(entityElement, NAMED_QUERY_SIMPLE_NAME);
+    if (namedQuery != null) {
+      namedQueries.add(namedQuery);
+    }
+    final AnnotationMirror namedQueriesContainer = this
+        .findPersistenceAnnotation(entityElement, NAMED_QUERIES_SIMPLE_NAME);
+    if (namedQueriesContainer != null) {
+      ((List<?>) this.getAnnotationValue(namedQueriesContainer, "value")).stream()
+          .map(value -> (AnnotationMirror) ((AnnotationValue) value).getValue())
+          .forEach(namedQueries::add);
+    }
+    return namedQueries.stream()
+        .map(annotationMirror -> String.valueOf(this.getAnnotationValue(annotationMirror, "name")))
+        .collect(Collectors.toSet());
+  }
+
+  /**
+   * Create the {@link MethodSpec} of a method of a generated JDBC repository, running the SQL of
+   * the native query or of the derived query of the given repository method with its arguments.
+   * <p>
+   * Native queries bind the arguments both by name ({@code :name}, from the {@link Param} or the
+   * parameter name) and by position ({@code ?1}), enums by name. Derived queries bind them by
+   * position, enums as their columns store them. {@code findAll()} and {@code count()} read the
+   * whole table, and the {@code First} and {@code Top} limits stop reading the rows. The empty
+   * collection arguments of {@code In} and {@code NotIn} criteria, which would render the invalid
+   * {@code in ()}, are checked before running the query: the criteria an empty {@code In} rules
+   * out are left out of the SQL, returning an empty result without running the query if it rules
+   * them all out, and an empty {@code NotIn} is left out of its criteria.
+   *
+   * @param typeElement           the {@link TypeElement} of the repository of the method
+   * @param entityElement         the {@link TypeElement} of the entity of the repository
+   * @param propertyToColumnField the column fields of the entity, by their property names
+   * @param entityRowMapper       the {@link CodeBlock} of the row mapper of the entity
+   * @param method                the repository method
+   * @param dataSourceName        the name of the JDBC only data source, for the error messages
+   * @return the {@link MethodSpec} of the method of the generated JDBC repository
+   * @throws IllegalArgumentException if the method can not be run on plain JDBC
+   */
+  private @Nonnull MethodSpec createJdbcMethodSpec(
+      @Nonnull TypeElement typeElement,
+      @Nonnull TypeElement entityElement,
+      @Nonnull Map<String, VariableElement> propertyToColumnField,
+      @Nonnull CodeBlock entityRowMapper,
+      @Nonnull ExecutableElement method,
+      @Nonnull String dataSourceName
+  ) {
+    final String methodName = typeElement.getSimpleName() + "." + method.getSimpleName();
+    final List<? extends VariableElement> parameters = method.getParameters();
+    final TypeName returnType = TypeName.get(method.getReturnType());
+    final TypeName rawReturnType = returnType instanceof ParameterizedTypeName
+        ? ((ParameterizedTypeName) returnType).rawType : returnType;
+    final boolean hasPagingParameter = parameters.stream()
+        .anyMatch(parameter -> Set.of(TypeName.get(Pageable.class), TypeName.get(Sort.class))
+            .contains(TypeName.get(parameter.asType())));
+    final boolean hasProxyAnnotation = Stream.of(
+        Modifying.class,
+        KeysetPaged.class,
+        CachedRead.class,
+        CoalescedRead.class,
+        BatchedFindById.class
+    ).anyMatch(annotationClass -> method.getAnnotation(annotationClass) != null);
+    if (!method.getTypeParameters().isEmpty() || hasPagingParameter || hasProxyAnnotation
+        || returnType.equals(TypeName.VOID)
+        || UNSUPPORTED_JDBC_RETURN_TYPES.contains(rawReturnType)) {
+      throw this.createJdbcMethodException(
+          methodName,
+          dataSourceName,
+          "it is not a read without type parameters, Pageable or Sort parameters, annotations"
+              + " for the repository proxies (eg. @Modifying or @CachedRead), or a"
+              + " CompletableFuture, Page or Slice result"
+      );
+    }
+
+    // Get the type of the rows read by the method
+    final boolean isContainer = returnType instanceof ParameterizedTypeName
+        && JDBC_CONTAINER_TYPES.contains(rawReturnType);
+    final TypeName rowTypeName = isContainer
+        ? ((ParameterizedTypeName) returnType).typeArguments.get(0) : returnType;
+    final ClassName entityClassName = ClassName.get(entityElement);
+
+    // Get the SQL of the method, and the binding of its arguments
+    final List<CodeBlock> parameterBindings = new ArrayList<>();
+    final Query query = method.getAnnotation(Query.class);
+    final Function<Set<Integer>, String> sqlRenderer;
+    final Predicate<Set<Integer>> noRowMatcher;
+    final List<Integer> collectionArgumentIndexes;
+    final Action action;
+    final int maxRows;
+    if (query != null) {
+      if (!query.nativeQuery() || query.value().contains(SPEL_EXPRESSION_PREFIX)) {
+        throw this.createJdbcMethodException(
+            methodName,
+            dataSourceName,
+            "its @Query is not a native query without SpEL"
+        );
+      }
+
+      final String sql = NATIVE_POSITIONAL_PARAMETER_PATTERN.matcher(query.value())
+          .replaceAll(matchResult -> ":" + MultiDataSourceDerivedQueryUtils.SQL_PARAMETER_PREFIX
+              + (Integer.parseInt(matchResult.group(1)) - 1));
+      sqlRenderer = emptyArgumentIndexes -> sql;
+      noRowMatcher = emptyArgumentIndexes -> false;
+      collectionArgumentIndexes = List.of();
+      action = Action.FIND;
+      maxRows = 0;
+      for (int i = 0; i < parameters.size(); i++) {
+        final VariableElement parameter = parameters.get(i);
+        final Param param = parameter.getAnnotation(Param.class);
+        final CodeBlock argument = this.createJdbcArgument(parameter, true);
+        parameterBindings.add(CodeBlock.of(
+            "sqlParameters.put($S, $L)",
+            MultiDataSourceDerivedQueryUtils.SQL_PARAMETER_PREFIX + i,
+            argument
+        ));
+        parameterBindings.add(CodeBlock.of(
+            "sqlParameters.put($S, $L)",
+            param == null ? parameter.getSimpleName().toString() : param.value(),
+            argument
+        ));
+      }
+    } else {
+      // Parse the name of the method against the entity, findAll() and count() reading the table
+      final String name = method.getSimpleName().toString();
+      DerivedQuery derivedQuery;
+      try {
+        derivedQuery = multiDataSourceDerivedQueryUtils
+            .parse(name, this.createPropertyResolver(entityElement.asType()));
+      } catch (IllegalArgumentException e) {
+        final String errorMessage = "Derived query method " + methodName + " can not be parsed: "
+            + e.getMessage();
+        messager.printMessage(Kind.ERROR, errorMessage);
+        throw new IllegalArgumentException(errorMessage, e);
+      }
+      if (derivedQuery == null && parameters.isEmpty()
+          && Set.of(FIND_ALL_METHOD_NAME, COUNT_METHOD_NAME).contains(name)) {
+        derivedQuery = new DerivedQuery(
+            COUNT_METHOD_NAME.equals(name) ? Action.COUNT : Action.FIND,
+            false,
+            null,
+            false,
+            List.of(),
+            List.of(),
+            Set.of()
+        );
+      }
+      if (derivedQuery == null || derivedQuery.getArgumentCount() != parameters.size()) {
+        throw this.createJdbcMethodException(
+            methodName,
+            dataSourceName,
+            "it is neither a native query nor a derived query binding all its parameters"
+        );
+      }
+
+      final DerivedQuery jdbcQuery = derivedQuery;
+      final String tableName = this.getJdbcTableName(entityElement);
+      final List<String> columnNames = propertyToColumnField.values().stream()
+          .map(this::getJdbcColumnName)
+          .collect(Collectors.toList());
+      final Function<String, String> columnResolver = propertyPath -> propertyToColumnField
+          .containsKey(propertyPath)
+          ? this.getJdbcColumnName(propertyToColumnField.get(propertyPath)) : null;
+      sqlRenderer = emptyArgumentIndexes -> multiDataSourceDerivedQueryUtils.toSql(
+          jdbcQuery,
+          tableName,
+          columnNames,
+          columnResolver,
+          emptyArgumentIndexes
+      );
+      noRowMatcher = emptyArgumentIndexes -> multiDataSourceDerivedQueryUtils
+          .isMatchingNoRow(jdbcQuery, emptyArgumentIndexes);
+      collectionArgumentIndexes = multiDataSourceDerivedQueryUtils
+          .getCollectionArgumentIndexes(jdbcQuery).stream()
+          .filter(argumentIndex -> this
+              .createJdbcEmptyCollectionCheck(parameters.get(argumentIndex)) != null)
+          .collect(Collectors.toList());
+      if (sqlRenderer.apply(Set.of()) == null
+          || (derivedQuery.getAction() == Action.FIND && !rowTypeName.equals(entityClassName))) {
+        throw this.createJdbcMethodException(
+            methodName,
+            dataSourceName,
+            "its derived query is beyond plain SQL on the columns of its entity, or reads a"
+                + " projection"
+        );
+      }
+
+      // Bind the arguments of the criteria in order, enums as their columns store them
+      action = derivedQuery.getAction();
+      maxRows = derivedQuery.getMaxResults() == null ? 0 : derivedQuery.getMaxResults();
+      final List<VariableElement> argumentColumnFields = derivedQuery.getCriteriaGroups().stream()
+          .flatMap(List::stream)
+          .flatMap(criterion -> Collections.nCopies(
+              criterion.getOperator().getArgumentCount(),
+              propertyToColumnField.get(criterion.getPropertyPath())
+          ).stream())
+          .collect(Collectors.toList());
+      for (int i = 0; i < parameters.size(); i++) {
+        parameterBindings.add(CodeBlock.of(
+            "sqlParameters.put($S, $L)",
+            MultiDataSourceDerivedQueryUtils.SQL_PARAMETER_PREFIX + i,
+            this.createJdbcArgument(
+                parameters.get(i),
+                this.isEnumeratedByName(argumentColumnFields.get(i))
+            )
+        ));
+      }
+    }
+
+    // Create the method, binding its arguments
+    final MethodSpec.Builder methodBuilder = MethodSpec
+        .methodBuilder(method.getSimpleName().toString())
+        .addModifiers(Modifier.PUBLIC)
+        .returns(returnType)
+        .addParameters(parameters.stream()
+            .map(parameter -> ParameterSpec
+                .builder(TypeName.get(parameter.asType()), parameter.getSimpleName().toString())
+                .build())
+            .collect(Collectors.toList()));
+    final CodeBlock sqlParameters;
+    if (parameterBindings.isEmpty()) {
+      sqlParameters = CodeBlock.of("$T.of()", Map.class);
+    } else {
+      methodBuilder.addStatement(
+          "final $T<String, Object> sqlParameters = new $T<>()",
+          Map.class,
+          HashMap.class
+      );
+      parameterBindings.forEach(methodBuilder::addStatement);
+      sqlParameters = CodeBlock.of("sqlParameters");
+    }
+
+    // Run the query as the method returns it, or return its empty result
+    final TypeName boxedReturnType = returnType.isPrimitive() ? returnType.box() : returnType;
+    final Function<String, CodeBlock> resultCreator;
+    final CodeBlock emptyResult;
+    if (action == Action.COUNT && boxedReturnType.equals(ClassName.get(Long.class))) {
+      resultCreator = sql -> CodeBlock.of("this.queryForCount($S, $L)", sql, sqlParameters);
+      emptyResult = CodeBlock.of("0L");
+    } else if (action == Action.COUNT && boxedReturnType.equals(ClassName.get(Integer.class))) {
+      resultCreator = sql -> CodeBlock.of(
+          "$T.toIntExact(this.queryForCount($S, $L))",
+          Math.class,
+          sql,
+          sqlParameters
+      );
+      emptyResult = CodeBlock.of("0");
+    } else if (action == Action.EXISTS && boxedReturnType.equals(ClassName.get(Boolean.class))) {
+      resultCreator = sql -> CodeBlock.of("this.queryForExists($S, $L)", sql, sqlParameters);
+      emptyResult = CodeBlock.of("false");
+    } else {
+      final boolean isScalar = rowTypeName.isPrimitive() || (rowTypeName instanceof ClassName
+          && !rowTypeName.equals(entityClassName));
+      if (action != Action.FIND || (!rowTypeName.equals(entityClassName) && !isScalar)) {
+        throw this.createJdbcMethodException(
+            methodName,
+            dataSourceName,
+            "its return type " + returnType + " is not a result of its query"
+        );
+      }
+
+      final CodeBlock rowMapper = isScalar
+          ? CodeBlock.of("$T.newInstance($T.class)", SingleColumnRowMapper.class, rowTypeName.box())
+          : entityRowMapper;
+      resultCreator = sql -> this.createJdbcFindResult(
+          sql,
+          sqlParameters,
+          rowMapper,
+          maxRows,
+          isContainer ? rawReturnType : null
+      );
+      if (!isContainer) {
+        emptyResult = CodeBlock.of("null");
+      } else if (rawReturnType.equals(ClassName.get(Optional.class))
+          || rawReturnType.equals(ClassName.get(Stream.class))) {
+        emptyResult = CodeBlock.of("$T.empty()", rawReturnType);
+      } else if (rawReturnType.equals(ClassName.get(Set.class))) {
+        emptyResult = CodeBlock.of("new $T<>()", LinkedHashSet.class);
+      } else {
+        emptyResult = CodeBlock.of("$T.of()", List.class);
+      }
+    }
+    return methodBuilder
+        .addCode(this.createJdbcResultCode(
+            parameters,
+            collectionArgumentIndexes,
+            Set.of(),
+            emptyArgumentIndexes -> noRowMatcher.test(emptyArgumentIndexes) ? emptyResult
+                : resultCreator.apply(sqlRenderer.apply(emptyArgumentIndexes))
+        ))
+        .build();
+  }
+
+  /**
+   * Create the {@link CodeBlock} of the result of a generated JDBC repository method finding rows,
+   * as the method returns it.
+   *
+   * @param sql              the SQL of the query
+   * @param sqlParameters    the {@link CodeBlock} of the parameters of the query
+   * @param rowMapper        the {@link CodeBlock} of the row mapper of the rows
+   * @param maxRows          the most rows read, or 0 to read them all
+   * @param rawContainerType the raw type of the container of the rows returned, or null if the
+   *                         method returns a single row
+   * @return the {@link CodeBlock} of the result
+   */
+  private @Nonnull CodeBlock createJdbcFindResult(
+      @Nonnull String sql,
+      @Nonnull CodeBlock sqlParameters,
+      @Nonnull CodeBlock rowMapper,
+      int maxRows,
+      @Nullable TypeName rawContainerType
+  ) {
+    final CodeBlock queryForList = CodeBlock
+        .of("this.queryForList($S, $L, $L, $L)", sql, sqlParameters, rowMapper, maxRows);
+    if (rawContainerType == null) {
+      return maxRows > 0 ? CodeBlock.of("$L.stream().findFirst().orElse(null)", queryForList)
+          : CodeBlock.of("this.queryForNullable($S, $L, $L)", sql, sqlParameters, rowMapper);
+    } else if (rawContainerType.equals(ClassName.get(Optional.class))) {
+      return maxRows > 0 ? CodeBlock.of("$L.stream().findFirst()", queryForList)
+          : CodeBlock.of("this.queryForOptional($S, $L, $L)", sql, sqlParameters, rowMapper);
+    } else if (rawContainerType.equals(ClassName.get(Stream.class))) {
+      final CodeBlock queryForStream = CodeBlock
+          .of("this.queryForStream($S, $L, $L)", sql, sqlParameters, rowMapper);
+      return maxRows > 0 ? CodeBlock.of("$L.limit($L)", queryForStream, maxRows)
+          : queryForStream;
+    } else if (rawContainerType.equals(ClassName.get(Set.class))) {
+      return CodeBlock.of("new $T<>($L)", LinkedHashSet.class, queryForList);
+    }
+    return queryForList;
+  }
+
+  /**
+   * Create the {@link CodeBlock} returning the result of a generated JDBC repository method,
+   * branching on whether each of the remaining collection arguments is empty, as the SQL of the
+   * query depends on it.
+   *
+   * @param parameters                the parameters of the method
+   * @param collectionArgumentIndexes the indexes of the remaining collection arguments to branch on
+   * @param emptyArgumentIndexes      the indexes of the collection arguments empty in the branch
+   * @param resultCreator             creates the result for the empty collection arguments
+   * @return the {@link CodeBlock} returning the result
+   */
+  private @Nonnull CodeBlock createJdbcResultCode(
+      @Nonnull List<? extends VariableElement> parameters,
+      @Nonnull List<Integer> collectionArgumentIndexes,
+      @Nonnull Set<Integer> emptyArgumentIndexes,
+      @Nonnull Function<Set<Integer>, CodeBlock> resultCreator
+  ) {
+    if (collectionArgumentIndexes.isEmpty()) {
+      return CodeBlock.builder()
+          .addStatement("return $L", resultCreator.apply(emptyArgumentIndexes))
+          .build();
+    }
+
+    final int argumentIndex = collectionArgumentIndexes.get(0);
+    final List<Integer> remainingArgumentIndexes = collectionArgumentIndexes
+        .subList(1, collectionArgumentIndexes.size());
+    final Set<Integer> emptyArgumentIndexesWithArgument = new HashSet<>(emptyArgumentIndexes);
+    emptyArgumentIndexesWithArgument.add(argumentIndex);
+    final CodeBlock emptyArgumentCode = this.createJdbcResultCode(
+        parameters,
+        remainingArgumentIndexes,
+        emptyArgumentIndexesWithArgument,
+        resultCreator
+    );
+    final CodeBlock nonEmptyArgumentCode = this.createJdbcResultCode(
+        parameters,
+        remainingArgumentIndexes,
+        emptyArgumentIndexes,
+        resultCreator
+    );
+    if (emptyArgumentCode.equals(nonEmptyArgumentCode)) {
+      return nonEmptyArgumentCode;
+    }
+
+    return CodeBlock.builder()
+        .beginControlFlow(
+            "if ($L)",
+            this.createJdbcEmptyCollectionCheck(parameters.get(argumentIndex))
+        )
+        .add(emptyArgumentCode)
+        .endControlFlow()
+        .add(nonEmptyArgumentCode)
+        .build();
+  }
+
+  /**
+   * Create the {@link CodeBlock} checking whether a method argument is an empty collection or
+   * array, bound to an {@code In} or {@code NotIn} criterion.
+   *
+   * @param parameter the parameter of the argument
+   * @return the {@link CodeBlock} of the check, or null if the argument is neither a collection
+   * nor an array
+   */
+  private @Nullable CodeBlock createJdbcEmptyCollectionCheck(@Nonnull VariableElement parameter) {
+    final String name = parameter.getSimpleName().toString();
+    final TypeMirror type = parameter.asType();
+    if (type.getKind() == TypeKind.ARRAY) {
+      return CodeBlock.of("$N != null && $N.length == 0", name, name);
+    }
+
+    final TypeElement collectionElement = elementUtils
+        .getTypeElement(Collection.class.getCanonicalName());
+    final boolean isCollection = type.getKind() == TypeKind.DECLARED && typeUtils.isAssignable(
+        typeUtils.erasure(type),
+        typeUtils.erasure(collectionElement.asType())
+    );
+    return isCollection ? CodeBlock.of("$N != null && $N.isEmpty()", name, name) : null;
+  }
+
+  /**
+   * Create the {@link CodeBlock} of the value a method argument is bound to in the SQL of a
+   * generated JDBC repository: enums, and collections of enums, are bound as their columns store
+   * them, and any other argument as is.
+   *
+   * @param parameter    the parameter of the argument
+   * @param isEnumByName whether enums are bound by name, rather than by ordinal
+   * @return the {@link CodeBlock} of the bound value
+   */
+  private @Nonnull CodeBlock createJdbcArgument(
+      @Nonnull VariableElement parameter,
+      boolean isEnumByName
+  ) {
+    final String name = parameter.getSimpleName().toString();
+    final String enumMethodName = isEnumByName ? "name" : "ordinal";
+    final TypeMirror type = parameter.asType();
+    if (this.isEnumType(type)) {
+      return CodeBlock.of("$N == null ? null : $N.$N()", name, name, enumMethodName);
+    }
+
+    final TypeElement collectionElement = elementUtils
+        .getTypeElement(Collection.class.getCanonicalName());
+    final boolean isEnumCollection = type.getKind() == TypeKind.DECLARED
+        && typeUtils.isAssignable(
+        typeUtils.erasure(type),
+        typeUtils.erasure(collectionElement.asType())
+    )
+        && ((DeclaredType) type).getTypeArguments().size() == 1
+        && this.isEnumType(((DeclaredType) type).getTypeArguments().get(0));
+    if (isEnumCollection) {
+      return CodeBlock.of(
+          "$N == null ? null : $N.stream().map($T::$N).collect($T.toList())",
+          name,
+          name,
+          TypeName.get(((DeclaredType) type).getTypeArguments().get(0)),
+          enumMethodName,
+          Collectors.class
+      );
+    }
+    return CodeBlock.of("$N", name);
+  }
+
+  /**
+   * Create the {@link MethodSpec} of the static row mapper of a generated JDBC repository, reading
+   * the columns of a row into a new instance of its entity through the public setters of the
+   * entity.
+   *
+   * @param entityElement         the {@link TypeElement} of the entity
+   * @param propertyToColumnField the column fields of the entity, by their property names
+   * @return the {@link MethodSpec} of the row mapper
+   */
+  private @Nonnull MethodSpec createJdbcRowMapperMethodSpec(
+      @Nonnull TypeElement entityElement,
+      @Nonnull Map<String, VariableElement> propertyToColumnField
+  ) {
+    final ClassName entityClassName = ClassName.get(entityElement);
+    final MethodSpec.Builder rowMapperBuilder = MethodSpec
+        .methodBuilder(JDBC_ROW_MAPPER_PREFIX + entityElement.getSimpleName())
+        .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+        .returns(entityClassName)
+        .addParameter(ResultSet.class, "resultSet")
+        .addParameter(int.class, "rowNum")
+        .addException(SQLException.class)
+        .addStatement("final $T entity = new $T()", entityClassName, entityClassName);
+    for (final var columnFieldEntry : propertyToColumnField.entrySet()) {
+      rowMapperBuilder.addStatement(
+          "entity.$N($L)",
+          this.getSetterName(columnFieldEntry.getKey()),
+          this.createJdbcColumnValue(columnFieldEntry.getValue())
+      );
+    }
+    return rowMapperBuilder.addStatement("return entity").build();
+  }
+
+  /**
+   * Create the {@link CodeBlock} reading the column of a field from the {@code resultSet} of a
+   * generated row mapper.
+   *
+   * @param field the column field of the entity
+   * @return the {@link CodeBlock} of the value of the column
+   */
+  private @Nonnull CodeBlock createJdbcColumnValue(@Nonnull VariableElement field) {
+    final String columnName = this.getJdbcColumnName(field);
+    final TypeMirror type = field.asType();
+    switch (type.getKind()) {
+      case BOOLEAN:
+        return CodeBlock.of("resultSet.getBoolean($S)", columnName);
+      case BYTE:
+        return CodeBlock.of("resultSet.getByte($S)", columnName);
+      case SHORT:
+        return CodeBlock.of("resultSet.getShort($S)", columnName);
+      case INT:
+        return CodeBlock.of("resultSet.getInt($S)", columnName);
+      case LONG:
+        return CodeBlock.of("resultSet.getLong($S)", columnName);
+      case FLOAT:
+        return CodeBlock.of("resultSet.getFloat($S)", columnName);
+      case DOUBLE:
+        return CodeBlock.of("resultSet.getDouble($S)", columnName);
+      case ARRAY:
+        return CodeBlock.of("resultSet.getBytes($S)", columnName);
+      default:
+        break;
+    }
+
+    final TypeName typeName = TypeName.get(typeUtils.erasure(type));
+    if (this.isEnumType(type)) {
+      return CodeBlock.of(
+          "$T.$N(resultSet, $S, $T.class)",
+          MultiDataSourceJdbcRepository.class,
+          this.isEnumeratedByName(field) ? "getEnumByName" : "getEnumByOrdinal",
+          columnName,
+          typeName
+      );
+    }
+    return CodeBlock.of("resultSet.getObject($S, $T.class)", columnName, typeName);
+  }
+
+  /**
+   * Get the fields of an entity and its superclasses mapped to columns, which the row mappers of
+   * the generated JDBC repositories read. Static, transient and {@code @Transient} fields are not
+   * mapped.
+   *
+   * @param entityElement  the {@link TypeElement} of the entity
+   * @param dataSourceName the name of the JDBC only data source, for the error messages
+   * @return the column fields of the entity by their property names, superclass fields first
+   * @throws IllegalArgumentException if the entity has no public no-argument constructor, or a
+   *                                  mapped field which is not a basic column or has no public
+   *                                  setter
+   */
+  private @Nonnull Map<String, VariableElement> getJdbcColumnFields(
+      @Nonnull TypeElement entityElement,
+      @Nonnull String dataSourceName
+  ) {
+    final String entityName = entityElement.getQualifiedName().toString();
+    final boolean hasPublicNoArgumentConstructor = ElementFilter
+        .constructorsIn(entityElement.getEnclosedElements()).stream()
+        .anyMatch(constructor -> constructor.getModifiers().contains(Modifier.PUBLIC)
+            && constructor.getParameters().isEmpty());
+    if (!hasPublicNoArgumentConstructor) {
+      final String errorMessage = "Entity " + entityName + ", read by the JDBC only data source "
+          + dataSourceName + ", has no public no-argument constructor to map its rows with.";
+      messager.printMessage(Kind.ERROR, errorMessage);
+      throw new IllegalArgumentException(errorMessage);
+    }
+
+    // Get the entity and its superclasses, superclasses first
+    final Deque<TypeElement> typeElements = new ArrayDeque<>();
+    TypeElement element = entityElement;
+    while (element != null) {
+      typeElements.push(element);
+      final TypeMirror superclass = element.getSuperclass();
+      element = superclass.getKind() == TypeKind.DECLARED
+          ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+
+    // Map their persistent fields, which must be basic columns with a public setter
+    final List<ExecutableElement> publicSetters = ElementFilter
+        .methodsIn(elementUtils.getAllMembers(entityElement)).stream()
+        .filter(method -> method.getModifiers().contains(Modifier.PUBLIC)
+            && method.getParameters().size() == 1)
+        .collect(Collectors.toList());
+    final Map<String, VariableElement> propertyToColumnField = new LinkedHashMap<>();
+    for (final TypeElement typeElement : typeElements) {
+      for (final VariableElement field : ElementFilter
+          .fieldsIn(typeElement.getEnclosedElements())) {
+        if (field.getModifiers().contains(Modifier.STATIC)
+            || field.getModifiers().contains(Modifier.TRANSIENT)
+            || this.findPersistenceAnnotation(field, TRANSIENT_SIMPLE_NAME) != null) {
+          continue;
+        }
+
+        final String propertyName = field.getSimpleName().toString();
+        if (!this.isJdbcColumnType(field.asType())) {
+          final String errorMessage = "Field " + propertyName + " of entity " + entityName
+              + ", read by the JDBC only data source " + dataSourceName + ", is not a basic column"
+              + " the generated row mapper can read.";
+          messager.printMessage(Kind.ERROR, errorMessage);
+          throw new IllegalArgumentException(errorMessage);
+        }
+        final String setterName = this.getSetterName(propertyName);
+        final boolean hasPublicSetter = publicSetters.stream()
+            .anyMatch(method -> method.getSimpleName().contentEquals(setterName)
+                && typeUtils.isSameType(method.getParameters().get(0).asType(), field.asType()));
+        if (!hasPublicSetter) {
+          final String errorMessage = "Field " + propertyName + " of entity " + entityName
+              + ", read by the JDBC only data source " + dataSourceName + ", has no public setter "
+              + setterName + " for the generated row mapper to set it with.";
+          messager.printMessage(Kind.ERROR, errorMessage);
+          throw new IllegalArgumentException(errorMessage);
+        }
+        propertyToColumnField.put(propertyName, field);
+      }
+    }
+    return propertyToColumnField;
+  }
+
+  /**
+   * Whether a type is a basic column type the generated row mappers can read: a primitive but
+   * {@code char}, a {@code byte[]}, an enum, or one of the standard JDBC object types.
+   *
+   * @param type the type of the field
+   * @return whether the type is a basic column type
+   */
+  private boolean isJdbcColumnType(@Nonnull TypeMirror type) {
+    if (type.getKind().isPrimitive()) {
+      return type.getKind() != TypeKind.CHAR;
+    }
+    if (type.getKind() == TypeKind.ARRAY) {
+      return ((ArrayType) type).getComponentType().getKind() == TypeKind.BYTE;
+    }
+    return this.isEnumType(type) || (type.getKind() == TypeKind.DECLARED
+        && JDBC_COLUMN_TYPE_NAMES.contains(
+        ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString()
+    ));
+  }
+
+  private boolean isEnumType(@Nonnull TypeMirror type) {
+    return type.getKind() == TypeKind.DECLARED
+        && ((DeclaredType) type).asElement().getKind() == ElementKind.ENUM;
+  }
+
+  /**
+   * Whether an enum field is stored by name, with {@code @Enumerated(EnumType.STRING)}, rather
+   * than by ordinal.
+   *
+   * @param field the field, or null if the argument is not bound to a column
+   * @return whether the field is stored by name
+   */
+  private boolean isEnumeratedByName(@Nullable VariableElement field) {
+    final AnnotationMirror enumeratedAnnotation = field == null ? null
+        : this.findPersistenceAnnotation(field, ENUMERATED_SIMPLE_NAME);
+    return enumeratedAnnotation != null && ENUM_TYPE_STRING
+        .equals(String.valueOf(this.getAnnotationValue(enumeratedAnnotation, "value")));
+  }
+
+  /**
+   * Get the name of the column of a field, as the default naming strategy of Spring Boot derives
+   * it from the name of its {@code @Column} annotation, or else from the name of the field.
+   *
+   * @param field the column field of the entity
+   * @return the snake case name of the column
+   */
+  private @Nonnull String getJdbcColumnName(@Nonnull VariableElement field) {
+    final AnnotationMirror columnAnnotation = this
+        .findPersistenceAnnotation(field, COLUMN_SIMPLE_NAME);
+    final Object name = columnAnnotation == null ? null
+        : this.getAnnotationValue(columnAnnotation, "name");
+    return multiDataSourceCommonStringUtils.toSnakeCase(
+        name == null || name.toString().isEmpty() ? field.getSimpleName().toString()
+            : name.toString()
+    );
+  }
+
+  /**
+   * Get the name of the table of an entity, as the default naming strategy of Spring Boot derives
+   * it from the name and schema of its {@code @Table} annotation, or else from its entity name.
+   *
+   * @param entityElement the {@link TypeElement} of the entity
+   * @return the snake case name of the table, qualified by its schema if it has one
+   */
+  private @Nonnull String getJdbcTableName(@Nonnull TypeElement entityElement) {
+    final AnnotationMirror tableAnnotation = this
+        .findPersistenceAnnotation(entityElement, TABLE_SIMPLE_NAME);
+    final Object name = tableAnnotation == null ? null
+        : this.getAnnotationValue(tableAnnotation, "name");
+    final Object schema = tableAnnotation == null ? null
+        : this.getAnnotationValue(tableAnnotation, "schema");
+    final String tableName = multiDataSourceCommonStringUtils.toSnakeCase(
+        name == null || name.toString().isEmpty() ? this.getEntityName(entityElement)
+            : name.toString()
+    );
+    return schema == null || schema.toString().isEmpty() ? tableName
+        : multiDataSourceCommonStringUtils.toSnakeCase(schema.toString()) + "." + tableName;
+  }
+
+  private @Nonnull String getSetterName(@Nonnull String propertyName) {
+    return "set" + Character.toUpperCase(propertyName.charAt(0)) + propertyName.substring(1);
+  }
+
+  /**
+   * Print and create the error of a repository method which can not run on a JDBC only data
+   * source.
+   *
+   * @param methodName     the name of the repository method, with its repository
+   * @param dataSourceName the name of the JDBC only data source
+   * @param reason         why the method can not run on plain JDBC
+   * @return the {@link IllegalArgumentException} to throw
+   */
+  private @Nonnull IllegalArgumentException createJdbcMethodException(
+      @Nonnull String methodName,
+      @Nonnull String dataSourceName,
+      @Nonnull String reason
+  ) {
+    final String errorMessage = "Method " + methodName + " can not run on the JDBC only data"
+        + " source " + dataSourceName + ", as " + reason + ".";
+    messager.printMessage(Kind.ERROR, errorMessage);
+    return new IllegalArgumentException(errorMessage);
+  }
+
+  /**
+   * Create the {@link PropertyResolver} of a type, resolving its properties from its non-static
+   * fields and those of its superclasses. Collection properties resolve to their elements.
+   *
+   * @param type the type to resolve the properties of
+   * @return the {@link PropertyResolver} of the type
+   */
+  private @Nonnull PropertyResolver createPropertyResolver(@Nonnull TypeMirror type) {
+    return new PropertyResolver() {
+      @Override
+      public @Nullable PropertyResolver resolve(@Nonnull String propertyName) {
+        final VariableElement field = findPropertyField(type, propertyName);
+        return field == null
+            ? null : createPropertyResolver(getPropertyElementType(field.asType()));
+      }
+
+      @Override
+      public boolean isCollection(@Nonnull String propertyName) {
+        final VariableElement field = findPropertyField(type, propertyName);
+        return field != null && isContainer(field.asType());
+      }
+    };
+  }
+
+  /**
+   * Find the non-static field of a property of a type or of its superclasses.
+   *
+   * @param type         the type to find the field in
+   * @param propertyName the camelCase name of the property
+   * @return the {@link VariableElement} of the field, or null if the type has no such property
+   */
+  private @Nullable VariableElement findPropertyField(
+      @Nonnull TypeMirror type,
+      @Nonnull String propertyName
+  ) {
+    TypeElement element = type.getKind() == TypeKind.DECLARED
+        ? (TypeElement) ((DeclaredType) type).asElement() : null;
+    while (element != null && element.getKind() != ElementKind.ENUM) {
+      for (final VariableElement field : ElementFilter.fieldsIn(element.getEnclosedElements())) {
+        if (!field.getModifiers().contains(Modifier.STATIC)
+            && field.getSimpleName().contentEquals(propertyName)) {
+          return field;
+        }
+      }
+
+      final TypeMirror superclass = element.getSuperclass();
+      element = superclass.getKind() == TypeKind.DECLARED
+          ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+    return null;
+  }
+
+  /**
+   * Get the type the property paths through a property continue from: the element type of
+   * collections and the value type of maps, or else the type of the property.
+   *
+   * @param propertyType the type of the property
+   * @return the type the property paths through the property continue from
+   */
+  private @Nonnull TypeMirror getPropertyElementType(@Nonnull TypeMirror propertyType) {
+    if (!this.isContainer(propertyType)) {
+      return propertyType;
+    }
+
+    final List<? extends TypeMirror> typeArguments = ((DeclaredType) propertyType)
+        .getTypeArguments();
+    return typeArguments.isEmpty() ? propertyType : typeArguments.get(typeArguments.size() - 1);
+  }
+
+  /**
+   * Check whether the type of a property is a collection or a map.
+   *
+   * @param propertyType the type of the property
+   * @return true if the type is an {@link Iterable} or a {@link Map}
+   */
+  private boolean isContainer(@Nonnull TypeMirror propertyType) {
+    return propertyType.getKind() == TypeKind.DECLARED && Stream.of(Iterable.class, Map.class)
+        .map(containerClass -> elementUtils.getTypeElement(containerClass.getCanonicalName()))
+        .anyMatch(containerElement -> typeUtils.isAssignable(
+            typeUtils.erasure(propertyType),
+            typeUtils.erasure(containerElement.asType())
+        ));
+  }
+
+  /**
+   * Find the Spring Data {@link org.springframework.data.repository.Repository} supertype of a
+   * type, with the entity and id types as its type arguments.
+   *
+   * @param type the type to find the repository supertype of
+   * @return the repository supertype, or null if the type is not a repository
+   */
+  private @Nullable DeclaredType findRepositorySupertype(@Nonnull TypeMirror type) {
+    for (final TypeMirror supertype : typeUtils.directSupertypes(type)) {
+      if (supertype.getKind() == TypeKind.DECLARED && ((TypeElement) ((DeclaredType) supertype)
+          .asElement()).getQualifiedName().contentEquals(SPRING_DATA_REPOSITORY_CLASS_NAME)) {
+        return (DeclaredType) supertype;
+      }
+
+      final DeclaredType repositorySupertype = this.findRepositorySupertype(supertype);
+      if (repositorySupertype != null) {
+        return repositorySupertype;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Add {@link Async} on the async executor of the data source to the given repository method, if
+   * it returns a {@link CompletableFuture}, so that it runs on that bounded executor instead of the
+   * thread of the caller.
+   * <p>
+   * Methods already annotated with {@link Async} are returned as is. If the data source is declared
+   * in this compilation unit without an enabled {@link AsyncExecutor}, or is not declared in it, a
+   * warning is printed instead, as the method would then run synchronously.
+   *
+   * @param methodSpec       the {@link MethodSpec} of the repository method
+   * @param dataSourceName   the name of the data source the generated repository is for
+   * @param dataSourceConfig the {@link DataSourceConfig} of the data source, or null if it is not
+   *                         declared in this compilation unit
+   * @return the {@link MethodSpec} with {@link Async} added
+   */
+  private @Nonnull MethodSpec addAsyncIfCompletableFuture(
+      @Nonnull MethodSpec methodSpec,
+      @Nonnull String dataSourceName,
+      @Nullable DataSourceConfig dataSourceConfig
+  ) {
+    final TypeName rawReturnType = methodSpec.returnType instanceof ParameterizedTypeName
+        ? ((ParameterizedTypeName) methodSpec.returnType).rawType : methodSpec.returnType;
+    final boolean isAsync = methodSpec.annotations.stream()
+        .anyMatch(annotationSpec -> annotationSpec.type.equals(TypeName.get(Async.class)));
+    if (!rawReturnType.equals(TypeName.get(CompletableFuture.class)) || isAsync) {
+      return methodSpec;
+    }
+
+    if (dataSourceConfig == null || !dataSourceConfig.asyncExecutor().enabled()) {
+      messager.printMessage(
+          Kind.WARNING,
+          "Method " + methodSpec.name + " returns a CompletableFuture, but data source "
+              + dataSourceName + " has no enabled @AsyncExecutor in this compilation unit, so it"
+              + " will run synchronously on the thread of the caller."
+      );
+      return methodSpec;
+    }
+
+    final AnnotationSpec asyncAnnotation = AnnotationSpec.builder(Async.class)
+        .addMember("value", "$S", dataSourceName + MultiDataSourceBulkheadExecutor.BEAN_NAME_SUFFIX)
+        .build();
+    return methodSpec.toBuilder().addAnnotation(asyncAnnotation).build();
+  }
+
+  /**
+   * Create the {@link MethodSpec} of a method hedging the given {@link HedgedRead} annotated method
+   * across the given repository copies, with the same signature as the annotated method.
+   *
+   * @param method               the {@link HedgedRead} annotated {@link ExecutableElement}
+   * @param hedgedReadFieldSpec  the {@link FieldSpec} of the {@link MultiDataSourceHedgedRead} of
+   *                             the method
+   * @param repositoryFieldSpecs the {@link FieldSpec}s of the repository copies to hedge the method
+   *                             across, in the order of their data sources
+   * @return the {@link MethodSpec} of the hedging method
+   */
+  private @Nonnull MethodSpec createHedgedReadMethodSpec(
+      @Nonnull ExecutableElement method,
+      @Nonnull FieldSpec hedgedReadFieldSpec,
+      @Nonnull List<FieldSpec> repositoryFieldSpecs
+  ) {
+    final String methodName = method.getSimpleName().toString();
+    final List<ParameterSpec> parameterSpecs = method.getParameters().stream()
+        .map(parameter -> ParameterSpec
+            .builder(TypeName.get(parameter.asType()), parameter.getSimpleName().toString())
+            .build())
+        .collect(Collectors.toList());
+    final String arguments = parameterSpecs.stream()
+        .map(parameterSpec -> parameterSpec.name)
+        .collect(Collectors.joining(", "));
+
+    // Issue the same call to every repository copy, as a supplier for the hedged read
+    final CodeBlock calls = repositoryFieldSpecs.stream()
+        .map(repositoryFieldSpec -> CodeBlock
+            .of("() -> $N.$L($L)", repositoryFieldSpec, methodName, arguments))
+        .collect(CodeBlock.joining(",\n"));
+    return MethodSpec.methodBuilder(methodName)
+        .addModifiers(Modifier.PUBLIC)
+        .addTypeVariables(
+            method.getTypeParameters().stream()
+                .map(TypeVariableName::get)
+                .collect(Collectors.toList())
+        )
+        .addParameters(parameterSpecs)
+        .varargs(method.isVarArgs())
+        .returns(TypeName.get(method.getReturnType()))
+        .addCode("return $N.execute(\n$>$L\n$<);\n", hedgedReadFieldSpec, calls)
+        .build();
+  }
+
+  /**
+   * Create the {@link MethodSpec} of a method running the given {@link ScatterGather} annotated
+   * method on all its data sources at the same time, with the same signature as the annotated
+   * method.
+   * <p>
+   * A {@link Pageable} parameter is replaced by its push down in the calls, and passed to the
+   * {@link MultiDataSourceScatterGather} with any {@link Sort} parameter to merge the results by.
+   *
+   * @param method                          the {@link ScatterGather} annotated
+   *                                        {@link ExecutableElement}
+   * @param scatterGatherFieldSpec          the {@link FieldSpec} of the
+   *                                        {@link MultiDataSourceScatterGather} of the method
+   * @param dataSourceToRepositoryFieldSpec the names of the data sources of the method mapped to
+   *                                        the {@link FieldSpec}s of the repositories to call on
+   * @param isRuntimeRouting                whether the repositories are routed to the data
+   *                                        sources at runtime
+   * @return the {@link MethodSpec} of the scatter-gather method
+   */
+  private @Nonnull MethodSpec createScatterGatherMethodSpec(
+      @Nonnull ExecutableElement method,
+      @Nonnull FieldSpec scatterGatherFieldSpec,
+      @Nonnull Map<String, FieldSpec> dataSourceToRepositoryFieldSpec,
+      boolean isRuntimeRouting
+  ) {
+    final String methodName = method.getSimpleName().toString();
+    final List<ParameterSpec> parameterSpecs = method.getParameters().stream()
+        .map(parameter -> ParameterSpec
+            .builder(TypeName.get(parameter.asType()), parameter.getSimpleName().toString())
+            .build())
+        .collect(Collectors.toList());
+    final String pageableName = parameterSpecs.stream()
+        .filter(parameterSpec -> parameterSpec.type.equals(TypeName.get(Pageable.class)))
+        .map(parameterSpec -> parameterSpec.name)
+        .findFirst()
+        .orElse(null);
+    final String sortName = parameterSpecs.stream()
+        .filter(parameterSpec -> parameterSpec.type.equals(TypeName.get(Sort.class)))
+        .map(parameterSpec -> parameterSpec.name)
+        .findFirst()
+        .orElse(null);
+    final String pushedDownPageableName = pageableName + "PushedDown";
+    final String arguments = parameterSpecs.stream()
+        .map(parameterSpec -> parameterSpec.name.equals(pageableName) ? pushedDownPageableName
+            : parameterSpec.name)
+        .collect(Collectors.joining(", "));
+
+    // Issue the same call to every data source, as a supplier for the scatter-gather
+    final CodeBlock calls = dataSourceToRepositoryFieldSpec.entrySet().stream()
+        .map(repositoryEntry -> isRuntimeRouting
+            ? CodeBlock.of(
+                "() -> $T.callWithDataSource($S, () -> $N.$L($L))",
+                MultiDataSourceRoutingContext.class,
+                repositoryEntry.getKey(),
+                repositoryEntry.getValue(),
+                methodName,
+                arguments
+            )
+            : CodeBlock.of("() -> $N.$L($L)", repositoryEntry.getValue(), methodName, arguments))
+        .collect(CodeBlock.joining(",\n"));
+    final CodeBlock.Builder codeBuilder = CodeBlock.builder();
+    if (pageableName != null) {
+      codeBuilder.addStatement(
+          "final $T $L = $T.pushDown($L)",
+          Pageable.class,
+          pushedDownPageableName,
+          MultiDataSourceScatterGather.class,
+          pageableName
+      );
+    }
+    codeBuilder.add(
+        "return $N.<$T>gather(\n$>$L,\n$L,\n$L\n$<);\n",
+        scatterGatherFieldSpec,
+        TypeName.get(method.getReturnType()).box(),
+        pageableName == null ? "null" : pageableName,
+        sortName == null ? "null" : sortName,
+        calls
+    );
+    return MethodSpec.methodBuilder(methodName)
+        .addModifiers(Modifier.PUBLIC)
+        .addTypeVariables(
+            method.getTypeParameters().stream()
+                .map(TypeVariableName::get)
+                .collect(Collectors.toList())
+        )
+        .addParameters(parameterSpecs)
+        .varargs(method.isVarArgs())
+        .returns(TypeName.get(method.getReturnType()))
+        .addCode(codeBuilder.build())
+        .build();
+  }
+
+  /**
+   * Add a field for each repository copy, or for the original repository if there are no copies,
+   * to a generated component, and inject them through its constructor.
+   *
+   * @param builder                             the {@link TypeSpec.Builder} of the component
+   * @param constructorBuilder                  the {@link MethodSpec.Builder} of its constructor
+   * @param typeElement                         the {@link TypeElement} of the original repository
+   * @param dataSourceToRepositoryCopyClassName the names of the data sources mapped to the
+   *                                            {@link ClassName}s of their repository copies, or
+   *                                            null to inject the original repository instead
+   * @return the {@link ClassName}s of the injected repositories mapped to their {@link FieldSpec}s
+   */
+  private @Nonnull Map<ClassName, FieldSpec> addRepositoryFieldSpecs(
+      @Nonnull TypeSpec.Builder builder,
+      @Nonnull MethodSpec.Builder constructorBuilder,
+      @Nonnull TypeElement typeElement,
+      @Nullable Map<String, ClassName> dataSourceToRepositoryCopyClassName
+  ) {
+    final Map<ClassName, String> repositoryClassNameToFieldName = new LinkedHashMap<>();
+    if (dataSourceToRepositoryCopyClassName == null) {
+      repositoryClassNameToFieldName.put(
+          ClassName.get(typeElement),
+          this.toCamelCase(typeElement.getSimpleName().toString())
+      );
+    } else {
+      dataSourceToRepositoryCopyClassName.forEach((dataSourceName, className) ->
+          repositoryClassNameToFieldName.put(
+              className,
+              this.toCamelCase(multiDataSourceCommonStringUtils.toPascalCase(dataSourceName))
+                  + "Repository"
+          ));
+    }
+    final Map<ClassName, FieldSpec> repositoryClassNameToFieldSpec = new LinkedHashMap<>();
+    for (final var repositoryEntry : repositoryClassNameToFieldName.entrySet()) {
+      final FieldSpec repositoryFieldSpec = FieldSpec
+          .builder(repositoryEntry.getKey(), repositoryEntry.getValue())
+          .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
+          .build();
+      repositoryClassNameToFieldSpec.put(repositoryEntry.getKey(), repositoryFieldSpec);
+      builder.addField(repositoryFieldSpec);
+      constructorBuilder
+          .addParameter(repositoryEntry.getKey(), repositoryEntry.getValue())
+          .addStatement("this.$N = $N", repositoryFieldSpec, repositoryEntry.getValue());
+    }
+    return repositoryClassNameToFieldSpec;
+  }
+
+  /**
+   * Create the {@link MethodSpec} of a method running the given method with a {@link ShardKey}
+   * parameter on the shard of its key, with the same signature as the sharded method.
+   *
+   * @param method                      the sharded {@link ExecutableElement}
+   * @param routerFieldSpec             the {@link FieldSpec} of the
+   *                                    {@link MultiDataSourceShardRouter} of the shard set of the
+   *                                    method
+   * @param shardToRepositoryFieldSpec  the names of the shards mapped to the {@link FieldSpec}s of
+   *                                    their repository copies
+   * @param originalRepositoryFieldSpec the {@link FieldSpec} of the original repository to route
+   *                                    at runtime, or null to call the repository copies instead
+   * @return the {@link MethodSpec} of the sharded method
+   */
+  private @Nonnull MethodSpec createShardedMethodSpec(
+      @Nonnull ExecutableElement method,
+      @Nonnull FieldSpec routerFieldSpec,
+      @Nonnull Map<String, FieldSpec> shardToRepositoryFieldSpec,
+      @Nullable FieldSpec originalRepositoryFieldSpec
+  ) {
+    final String methodName = method.getSimpleName().toString();
+    final List<ParameterSpec> parameterSpecs = method.getParameters().stream()
+        .map(parameter -> ParameterSpec
+            .builder(TypeName.get(parameter.asType()), parameter.getSimpleName().toString())
+            .build())
+        .collect(Collectors.toList());
+    final String arguments = parameterSpecs.stream()
+        .map(parameterSpec -> parameterSpec.name)
+        .collect(Collectors.joining(", "));
+    final String shardKeyName = method.getParameters().stream()
+        .filter(parameter -> parameter.getAnnotation(ShardKey.class) != null)
+        .map(parameter -> parameter.getSimpleName().toString())
+        .findFirst()
+        .orElseThrow();
+    final boolean isVoid = method.getReturnType().getKind() == TypeKind.VOID;
+    final CodeBlock shardName = CodeBlock.of("$N.getShardName($L)", routerFieldSpec, shardKeyName);
+
+    final CodeBlock.Builder codeBuilder = CodeBlock.builder();
+    if (originalRepositoryFieldSpec != null) {
+      // Route the original repository to the shard of the key
+      codeBuilder.addStatement(
+          "$L$T.$L($L, () -> $N.$L($L))",
+          isVoid ? "" : "return ",
+          MultiDataSourceRoutingContext.class,
+          isVoid ? "runWithDataSource" : "callWithDataSource",
+          shardName,
+          originalRepositoryFieldSpec,
+          methodName,
+          arguments
+      );
+    } else {
+      // Call the repository copy of the shard of the key
+      codeBuilder.beginControlFlow("switch ($L)", shardName);
+      for (final var shardEntry : shardToRepositoryFieldSpec.entrySet()) {
+        codeBuilder.add("case $S:\n$>", shardEntry.getKey());
+        if (isVoid) {
+          codeBuilder.addStatement("$N.$L($L)", shardEntry.getValue(), methodName, arguments)
+              .addStatement("return");
+        } else {
+          codeBuilder
+              .addStatement("return $N.$L($L)", shardEntry.getValue(), methodName, arguments);
+        }
+        codeBuilder.add("$<");
+      }
+      codeBuilder.add("default:\n$>")
+          .addStatement(
+              "throw new $T($S + $N.getShardSetName())",
+              IllegalStateException.class,
+              "Unknown shard of shard set ",
+              routerFieldSpec
+          )
+          .add("$<")
+          .endControlFlow();
+    }
+    return MethodSpec.methodBuilder(methodName)
+        .addModifiers(Modifier.PUBLIC)
+        .addTypeVariables(
+            method.getTypeParameters().stream()
+                .map(TypeVariableName::get)
+                .collect(Collectors.toList())
+        )
+        .addParameters(parameterSpecs)
+        .varargs(method.isVarArgs())
+        .returns(TypeName.get(method.getReturnType()))
+        .addCode(codeBuilder.build())
+        .build();
+  }
+
+  /**
+   * Convert a PascalCase name to camelCase.
+   *
+   * @param pascalCaseName the PascalCase name
+   * @return the camelCase name
+   */
+  private @Nonnull String toCamelCase(@Nonnull String pascalCaseName) {
+    return Character.toLowerCase(pascalCaseName.charAt(0)) + pascalCaseName.substring(1);
+  }
+
+  /**
+   * Convert a {@link VariableElement} to a {@link ParameterSpec}, without its {@link ShardKey}.
+   *
+   * @param parameter the {@link VariableElement} to convert
+   * @return the {@link ParameterSpec} for the given {@link VariableElement}
+   */
+  private @Nonnull ParameterSpec convertParameterVariableElementToParameterSpec(
+      @Nonnull VariableElement parameter
+  ) {
+    // Copy all annotations but the shard key, as the copies are bound to a single shard
+    final TypeName shardKeyTypeName = TypeName.get(ShardKey.class);
+    final List<AnnotationSpec> annotationSpecs = parameter.getAnnotationMirrors().stream()
+        .map(AnnotationSpec::get)
+        .filter(annotationSpec -> !annotationSpec.type.equals(shardKeyTypeName))
+        .collect(Collectors.toList());
+
+    // Create the parameter spec
+    return ParameterSpec
+        .builder(TypeName.get(parameter.asType()), parameter.getSimpleName().toString())
+        .addAnnotations(annotationSpecs)
+        .build();
+  }
+
+  /**
+   * Override all non-annotated methods from the superclass and disable them by throwing an
+   * {@link UnsupportedOperationException}.
+   * <p>
+   * {@code findAllById} is kept enabled if a {@link BatchedFindById} method is annotated, as the
+   * batched lookups are loaded through it.
+   *
+   * @param annotatedMethods the annotated methods to exclude from overriding and disabling
+   * @param declaredType     the {@link DeclaredType} of the superclass (must be an interface or
+   *                         class) to override and disable methods from
+   * @return the {@link MethodSpec}s for all overridden and disabled methods
+   */
+  private @Nonnull Set<MethodSpec> generateOverridenAndDisabledSuperMethods(
+      @Nonnull Set<ExecutableElement> annotatedMethods,
+      @Nonnull DeclaredType declaredType
+  ) {
+    final TypeElement superTypeElement = (TypeElement) declaredType.asElement();
+    final Map<TypeName, TypeName> baseTypeNameToDerived = this
+        .getBaseTypeNameToDerived(declaredType, superTypeElement);
+    final List<ExecutableElement> superMethods = ElementFilter
+        .methodsIn(superTypeElement.getEnclosedElements());
+
+    // Batched findById lookups are loaded through findAllById, which must then stay enabled
+    final boolean isBatchingFindById = annotatedMethods.stream()
+        .anyMatch(method -> method.getAnnotation(BatchedFindById.class) != null);
 
     final Set<MethodSpec> overridenMethods = new HashSet<>();
     for (final ExecutableElement superMethod : superMethods) {
       final boolean shouldExcludeMethod = superMethod.getModifiers().contains(Modifier.PRIVATE)
           || superMethod.getModifiers().contains(Modifier.FINAL)
+          || (isBatchingFindById
+          && FIND_ALL_BY_ID_METHOD_NAME.contentEquals(superMethod.getSimpleName()))
           || annotatedMethods.stream().anyMatch(
           method -> this.isMethodSignatureMatching(superMethod, method, baseTypeNameToDerived)
       );
@@ -265,13 +2584,17 @@ public class MultiDataSourceRepositoryGenerator {
       @Nonnull ExecutableElement method
   ) {
     // Copy all annotations other than the ones used to mark the method as a repository method
-    // (i.e. @TargetSecondaryDataSources and @TargetSecondaryDataSource)
+    // (i.e. @TargetSecondaryDataSources, @TargetSecondaryDataSource, @HedgedRead, @ScatterGather
+    // and @KeysetPaged)
     final List<AnnotationSpec> annotationsToSpec = method.getAnnotationMirrors().stream()
         .map(AnnotationSpec::get)
         .filter(
             annotationSpec -> !Set.of(
                 TypeName.get(TargetSecondaryDataSources.class),
-                TypeName.get(TargetSecondaryDataSource.class)
+                TypeName.get(TargetSecondaryDataSource.class),
+                TypeName.get(HedgedRead.class),
+                TypeName.get(ScatterGather.class),
+                TypeName.get(KeysetPaged.class)
             ).contains(annotationSpec.type)
         )
         .collect(Collectors.toList());
@@ -0,0 +1,88 @@
+package io.github.dhi13man.spring.datasource.pool;
+
+import io.github.dhi13man.spring.datasource.annotations.AsyncExecutor;
+import io.github.dhi13man.spring.datasource.routing.MultiDataSourceRoutingTaskDecorator;
+import io.github.dhi13man.spring.datasource.utils.MultiDataSourceConnectionPoolUtils;
+import java.util.concurrent.ThreadFactory;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.sql.DataSource;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * {@link AsyncExecutor} of a data source: a {@link ThreadPoolTaskExecutor} acting as a bulkhead
+ * around the connection pool of the data source.
+ * <p>
+ * Its concurrency is the maximum pool size of the data source, as more threads could only wait for
+ * a connection. Tasks beyond the concurrency wait in a bounded queue, and tasks beyond the queue
+ * are rejected with a {@code TaskRejectedException} straight away, so a slow data source never
+ * ties up the threads of its callers or of the other data sources.
+ * <p>
+ * Tasks are decorated with the {@link MultiDataSourceRoutingTaskDecorator}, so they keep the data
+ * source the submitting call is routed to.
+ */
+public class MultiDataSourceBulkheadExecutor extends ThreadPoolTaskExecutor {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Suffix of the bean name of the executor, after the name of its data source.
+   */
+  public static final String BEAN_NAME_SUFFIX = "-async-executor";
+
+  private static final Log LOGGER = LogFactory.getLog(MultiDataSourceBulkheadExecutor.class);
+
+  /**
+   * Constructor for the executor of a data source.
+   *
+   * @param dataSourceBeanName    the bean name of the data source, naming the threads
+   * @param dataSource            the data source, whose maximum pool size caps the concurrency
+   * @param queueCapacity         the number of tasks which may wait for a thread
+   * @param isUsingVirtualThreads whether to use virtual threads, if the JDK supports them
+   */
+  public MultiDataSourceBulkheadExecutor(
+      @Nonnull String dataSourceBeanName,
+      @Nonnull DataSource dataSource,
+      int queueCapacity,
+      boolean isUsingVirtualThreads
+  ) {
+    // As many threads as the data source, or the connection pool it shares, has connections
+    final int concurrency = MultiDataSourceConnectionPoolUtils.getInstance()
+        .getMaximumPoolSizeOrDefault(dataSource);
+    final String threadNamePrefix = dataSourceBeanName + BEAN_NAME_SUFFIX + "-";
+    this.setCorePoolSize(concurrency);
+    this.setMaxPoolSize(concurrency);
+    this.setAllowCoreThreadTimeOut(true);
+    this.setQueueCapacity(queueCapacity);
+    this.setThreadNamePrefix(threadNamePrefix);
+    this.setTaskDecorator(new MultiDataSourceRoutingTaskDecorator());
+    if (isUsingVirtualThreads) {
+      this.setThreadFactory(createVirtualThreadFactory(threadNamePrefix));
+    }
+  }
+
+  /**
+   * Create a factory of virtual threads, accessed reflectively as the library is built for JDKs
+   * without them.
+   *
+   * @param threadNamePrefix the prefix of the names of the threads
+   * @return the factory of virtual threads, or null to use platform threads if the JDK does not
+   * support them
+   */
+  private static @Nullable ThreadFactory createVirtualThreadFactory(
+      @Nonnull String threadNamePrefix
+  ) {
+    try {
+      final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      builderClass.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix, 1L);
+      return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+    } catch (ReflectiveOperationException e) {
+      LOGGER.warn("Virtual threads are not supported by this JDK, " + threadNamePrefix
+          + "* threads are platform threads");
+      return null;
+    }
+  }
+}
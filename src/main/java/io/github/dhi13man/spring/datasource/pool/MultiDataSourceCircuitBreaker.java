@@ -0,0 +1,217 @@
+package io.github.dhi13man.spring.datasource.pool;
+
+import io.github.dhi13man.spring.datasource.annotations.CircuitBreaker;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * {@link CircuitBreaker} of a data source: a state machine of its consecutive connection failures.
+ * <p>
+ * The circuit is {@link State#CLOSED} while the data source is healthy, {@link State#OPEN} once
+ * the failure threshold is reached, and {@link State#HALF_OPEN} once the open duration is over,
+ * letting a limited number of probes through. A successful probe closes the circuit, and a failed
+ * one opens it again.
+ * <p>
+ * The circuit breaker never blocks or synchronizes, so checking it takes microseconds.
+ */
+public class MultiDataSourceCircuitBreaker {
+
+  /**
+   * Suffix of the bean name of the circuit breaker, after the name of its data source.
+   */
+  public static final String BEAN_NAME_SUFFIX = "-circuit-breaker";
+
+  private static final Log LOGGER = LogFactory.getLog(MultiDataSourceCircuitBreaker.class);
+
+  private final @Nonnull String dataSourceName;
+
+  private final int failureThreshold;
+
+  private final long openDurationNanos;
+
+  private final int halfOpenProbes;
+
+  private final @Nullable String failoverDataSourceBeanName;
+
+  private final @Nonnull LongSupplier nanoClock;
+
+  private final @Nonnull AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+
+  private final @Nonnull AtomicInteger consecutiveFailures = new AtomicInteger();
+
+  private final @Nonnull AtomicInteger halfOpenProbesInFlight = new AtomicInteger();
+
+  private volatile long openedAtNanos;
+
+  /**
+   * Constructor for the circuit breaker of a data source.
+   *
+   * @param dataSourceName             the name of the data source
+   * @param failureThreshold           the number of consecutive failures which open the circuit
+   * @param openDurationMillis         the time the circuit stays open for before probing again
+   * @param halfOpenProbes             the number of probes at a time while half-open
+   * @param failoverDataSourceBeanName the bean name of the data source to fail over to while the
+   *                                   circuit is open, or null to fail straight away
+   */
+  public MultiDataSourceCircuitBreaker(
+      @Nonnull String dataSourceName,
+      int failureThreshold,
+      long openDurationMillis,
+      int halfOpenProbes,
+      @Nullable String failoverDataSourceBeanName
+  ) {
+    this(
+        dataSourceName,
+        failureThreshold,
+        openDurationMillis,
+        halfOpenProbes,
+        failoverDataSourceBeanName,
+        System::nanoTime
+    );
+  }
+
+  /**
+   * Constructor for the circuit breaker of a data source, with the clock it measures time with.
+   *
+   * @param dataSourceName             the name of the data source
+   * @param failureThreshold           the number of consecutive failures which open the circuit
+   * @param openDurationMillis         the time the circuit stays open for before probing again
+   * @param halfOpenProbes             the number of probes at a time while half-open
+   * @param failoverDataSourceBeanName the bean name of the data source to fail over to while the
+   *                                   circuit is open, or null to fail straight away
+   * @param nanoClock                  the clock giving the current time in nanoseconds
+   */
+  MultiDataSourceCircuitBreaker(
+      @Nonnull String dataSourceName,
+      int failureThreshold,
+      long openDurationMillis,
+      int halfOpenProbes,
+      @Nullable String failoverDataSourceBeanName,
+      @Nonnull LongSupplier nanoClock
+  ) {
+    this.dataSourceName = dataSourceName;
+    this.failureThreshold = Math.max(1, failureThreshold);
+    this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMillis);
+    this.halfOpenProbes = Math.max(1, halfOpenProbes);
+    this.failoverDataSourceBeanName = failoverDataSourceBeanName;
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * Check whether a new connection may be opened on the data source.
+   * <p>
+   * Every permitted connection must report its outcome with {@link #recordSuccess()} or
+   * {@link #recordFailure()}.
+   *
+   * @return whether the connection may be opened on the data source
+   */
+  public boolean tryAcquirePermission() {
+    final State currentState = state.get();
+    if (currentState == State.CLOSED) {
+      return true;
+    }
+    if (currentState == State.OPEN) {
+      if (nanoClock.getAsLong() - openedAtNanos < openDurationNanos) {
+        return false;
+      }
+      if (state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+        LOGGER.info("Circuit breaker of data source " + dataSourceName + " is half-open, probing"
+            + " the data source again");
+      }
+    }
+
+    // Half-open: only let a limited number of probes through at a time
+    while (true) {
+      final int currentProbes = halfOpenProbesInFlight.get();
+      if (state.get() == State.CLOSED) {
+        return true;
+      }
+      if (currentProbes >= halfOpenProbes) {
+        return false;
+      }
+      if (halfOpenProbesInFlight.compareAndSet(currentProbes, currentProbes + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Record a connection used on the data source without a connection failure, closing the circuit
+   * if it was half-open.
+   */
+  public void recordSuccess() {
+    consecutiveFailures.set(0);
+    if (state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+      halfOpenProbesInFlight.set(0);
+      LOGGER.info("Circuit breaker of data source " + dataSourceName + " is closed again");
+    }
+  }
+
+  /**
+   * Record a connection failure of the data source, opening the circuit if it was half-open or
+   * the failure threshold is reached.
+   */
+  public void recordFailure() {
+    final State currentState = state.get();
+    if (currentState == State.HALF_OPEN
+        || currentState == State.CLOSED
+        && consecutiveFailures.incrementAndGet() >= failureThreshold) {
+      this.open(currentState);
+    }
+  }
+
+  public @Nonnull String getDataSourceName() {
+    return dataSourceName;
+  }
+
+  public @Nullable String getFailoverDataSourceBeanName() {
+    return failoverDataSourceBeanName;
+  }
+
+  public @Nonnull State getState() {
+    return state.get();
+  }
+
+  /**
+   * Open the circuit, unless another thread changed its state in the meantime.
+   *
+   * @param expectedState the state the circuit is expected to be in
+   */
+  private void open(@Nonnull State expectedState) {
+    openedAtNanos = nanoClock.getAsLong();
+    if (state.compareAndSet(expectedState, State.OPEN)) {
+      consecutiveFailures.set(0);
+      halfOpenProbesInFlight.set(0);
+      LOGGER.warn("Circuit breaker of data source " + dataSourceName + " is open, "
+          + (failoverDataSourceBeanName == null ? "failing connections straight away"
+          : "failing over to " + failoverDataSourceBeanName));
+    }
+  }
+
+  /**
+   * The states of the circuit.
+   */
+  public enum State {
+
+    /**
+     * The data source is healthy, and every connection is opened on it.
+     */
+    CLOSED,
+
+    /**
+     * The data source is down, and no connection is opened on it.
+     */
+    OPEN,
+
+    /**
+     * The data source is being probed, and only a limited number of connections are opened on it.
+     */
+    HALF_OPEN
+  }
+}
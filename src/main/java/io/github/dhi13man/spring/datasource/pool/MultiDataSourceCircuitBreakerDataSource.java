@@ -0,0 +1,216 @@
+package io.github.dhi13man.spring.datasource.pool;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * {@link DataSource} opening the connections of a data source through its
+ * {@link MultiDataSourceCircuitBreaker}.
+ * <p>
+ * Every connection reports a failure to the circuit breaker as soon as it, or one of its
+ * statements, fails with a connection error, and a success when it is closed otherwise. While the
+ * circuit is open, connections are opened on the failover data source of the circuit breaker, or
+ * fail straight away with a {@link SQLTransientConnectionException}.
+ */
+public class MultiDataSourceCircuitBreakerDataSource extends DelegatingDataSource {
+
+  private static final String CONNECTION_EXCEPTION_SQL_STATE_CLASS = "08";
+
+  private final @Nonnull MultiDataSourceCircuitBreaker circuitBreaker;
+
+  private final @Nonnull BeanFactory beanFactory;
+
+  /**
+   * Constructor for a circuit breaking data source.
+   *
+   * @param targetDataSource the data source to break the circuit of
+   * @param circuitBreaker   the circuit breaker of the data source
+   * @param beanFactory      the {@link BeanFactory} to get the failover data source from
+   */
+  public MultiDataSourceCircuitBreakerDataSource(
+      @Nonnull DataSource targetDataSource,
+      @Nonnull MultiDataSourceCircuitBreaker circuitBreaker,
+      @Nonnull BeanFactory beanFactory
+  ) {
+    super(targetDataSource);
+    this.circuitBreaker = circuitBreaker;
+    this.beanFactory = beanFactory;
+  }
+
+  @Override
+  public @Nonnull Connection getConnection() throws SQLException {
+    if (!circuitBreaker.tryAcquirePermission()) {
+      return this.getFailoverDataSource().getConnection();
+    }
+
+    try {
+      return this.createReportingConnectionProxy(super.getConnection());
+    } catch (SQLException | RuntimeException e) {
+      circuitBreaker.recordFailure();
+      throw e;
+    }
+  }
+
+  @Override
+  public @Nonnull Connection getConnection(
+      @Nonnull String username,
+      @Nonnull String password
+  ) throws SQLException {
+    if (!circuitBreaker.tryAcquirePermission()) {
+      return this.getFailoverDataSource().getConnection(username, password);
+    }
+
+    try {
+      return this.createReportingConnectionProxy(super.getConnection(username, password));
+    } catch (SQLException | RuntimeException e) {
+      circuitBreaker.recordFailure();
+      throw e;
+    }
+  }
+
+  public @Nonnull MultiDataSourceCircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  /**
+   * Get the data source to open a connection on while the circuit is open.
+   *
+   * @return the failover data source, if the circuit breaker has one
+   * @throws SQLTransientConnectionException if the circuit breaker has no failover data source
+   */
+  private @Nonnull DataSource getFailoverDataSource() throws SQLTransientConnectionException {
+    final String failoverDataSourceBeanName = circuitBreaker.getFailoverDataSourceBeanName();
+    if (failoverDataSourceBeanName == null) {
+      throw new SQLTransientConnectionException("Data source "
+          + circuitBreaker.getDataSourceName() + " is unavailable: its circuit breaker is "
+          + circuitBreaker.getState());
+    }
+
+    return beanFactory.getBean(failoverDataSourceBeanName, DataSource.class);
+  }
+
+  /**
+   * Create a proxy of a connection, which reports its outcome to the circuit breaker.
+   *
+   * @param connection the connection opened on the data source
+   * @return the proxy of the connection
+   */
+  private @Nonnull Connection createReportingConnectionProxy(@Nonnull Connection connection) {
+    final AtomicBoolean isReported = new AtomicBoolean();
+    return (Connection) Proxy.newProxyInstance(
+        ConnectionProxy.class.getClassLoader(),
+        new Class<?>[]{ConnectionProxy.class},
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getTargetConnection":
+              return connection;
+            case "equals":
+              return proxy == args[0];
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            case "close":
+              if (isReported.compareAndSet(false, true)) {
+                circuitBreaker.recordSuccess();
+              }
+              break;
+            default:
+              break;
+          }
+
+          final Object result = this.invokeReporting(connection, method, args, isReported);
+          return result instanceof Statement && method.getReturnType().isInterface()
+              ? this.createReportingStatementProxy(result, method.getReturnType(), isReported)
+              : result;
+        }
+    );
+  }
+
+  /**
+   * Create a proxy of a statement of a connection, which reports its connection failures to the
+   * circuit breaker.
+   *
+   * @param statement     the statement created by the connection
+   * @param statementType the {@link Statement} interface the connection returned it as
+   * @param isReported    whether the outcome of the connection is already reported
+   * @return the proxy of the statement
+   */
+  private @Nonnull Object createReportingStatementProxy(
+      @Nonnull Object statement,
+      @Nonnull Class<?> statementType,
+      @Nonnull AtomicBoolean isReported
+  ) {
+    return Proxy.newProxyInstance(
+        statementType.getClassLoader(),
+        new Class<?>[]{statementType},
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "equals":
+              return proxy == args[0];
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            default:
+              return this.invokeReporting(statement, method, args, isReported);
+          }
+        }
+    );
+  }
+
+  /**
+   * Invoke a method of a JDBC object, reporting a failure to the circuit breaker if it fails with a
+   * connection error, unless the outcome of its connection is already reported.
+   *
+   * @param target     the JDBC object
+   * @param method     the method to invoke
+   * @param args       the arguments of the method
+   * @param isReported whether the outcome of the connection is already reported
+   * @return the result of the method
+   * @throws Throwable the exception thrown by the method
+   */
+  private @Nullable Object invokeReporting(
+      @Nonnull Object target,
+      @Nonnull Method method,
+      @Nullable Object[] args,
+      @Nonnull AtomicBoolean isReported
+  ) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      final Throwable targetException = e.getTargetException();
+      if (targetException instanceof SQLException
+          && this.isConnectionFailure((SQLException) targetException)
+          && isReported.compareAndSet(false, true)) {
+        circuitBreaker.recordFailure();
+      }
+      throw targetException;
+    }
+  }
+
+  /**
+   * Check whether an exception means that the connection to the data source failed, rather than
+   * the statement itself (eg. a constraint violation).
+   *
+   * @param exception the exception thrown by the connection or one of its statements
+   * @return whether the exception is a connection failure
+   */
+  private boolean isConnectionFailure(@Nonnull SQLException exception) {
+    final String sqlState = exception.getSQLState();
+    return exception instanceof SQLNonTransientConnectionException
+        || exception instanceof SQLTransientConnectionException
+        || exception instanceof SQLRecoverableException
+        || sqlState != null && sqlState.startsWith(CONNECTION_EXCEPTION_SQL_STATE_CLASS);
+  }
+}
@@ -0,0 +1,209 @@
+package io.github.dhi13man.spring.datasource.pool;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.annotation.Nonnull;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * {@link DataSource} opening the connections of a data source through its
+ * {@link MultiDataSourceConcurrencyLimiter}.
+ * <p>
+ * Every connection holds a slot of the limit until it is closed, and its latency is reported to
+ * the limiter then: the time the connection took to open plus the slowest statement executed on
+ * it. The time the application holds the connection between statements (eg. inside a long read
+ * transaction) is not a sign of congestion, so it is left out. Connections requested while the
+ * limit is reached fail straight away with a
+ * {@link SQLTransientConnectionException}, or are opened on the primary data source if the limiter
+ * diverts to it.
+ */
+public class MultiDataSourceConcurrencyLimitedDataSource extends DelegatingDataSource {
+
+  private final @Nonnull MultiDataSourceConcurrencyLimiter concurrencyLimiter;
+
+  private final @Nonnull Supplier<DataSource> primaryDataSourceSupplier;
+
+  /**
+   * Constructor for a concurrency limited data source.
+   *
+   * @param targetDataSource          the data source to limit
+   * @param concurrencyLimiter        the concurrency limiter of the data source
+   * @param primaryDataSourceSupplier the supplier of the primary data source, to divert to
+   */
+  public MultiDataSourceConcurrencyLimitedDataSource(
+      @Nonnull DataSource targetDataSource,
+      @Nonnull MultiDataSourceConcurrencyLimiter concurrencyLimiter,
+      @Nonnull Supplier<DataSource> primaryDataSourceSupplier
+  ) {
+    super(targetDataSource);
+    this.concurrencyLimiter = concurrencyLimiter;
+    this.primaryDataSourceSupplier = primaryDataSourceSupplier;
+  }
+
+  @Override
+  public @Nonnull Connection getConnection() throws SQLException {
+    if (!concurrencyLimiter.tryAcquire()) {
+      return this.handleOverload().getConnection();
+    }
+
+    final long startNanos = System.nanoTime();
+    try {
+      final Connection connection = super.getConnection();
+      return this.createReleasingConnectionProxy(connection, System.nanoTime() - startNanos);
+    } catch (SQLException | RuntimeException e) {
+      concurrencyLimiter.release(System.nanoTime() - startNanos, true);
+      throw e;
+    }
+  }
+
+  @Override
+  public @Nonnull Connection getConnection(
+      @Nonnull String username,
+      @Nonnull String password
+  ) throws SQLException {
+    if (!concurrencyLimiter.tryAcquire()) {
+      return this.handleOverload().getConnection(username, password);
+    }
+
+    final long startNanos = System.nanoTime();
+    try {
+      final Connection connection = super.getConnection(username, password);
+      return this.createReleasingConnectionProxy(connection, System.nanoTime() - startNanos);
+    } catch (SQLException | RuntimeException e) {
+      concurrencyLimiter.release(System.nanoTime() - startNanos, true);
+      throw e;
+    }
+  }
+
+  public @Nonnull MultiDataSourceConcurrencyLimiter getConcurrencyLimiter() {
+    return concurrencyLimiter;
+  }
+
+  /**
+   * Get the data source to open a connection on while the limit is reached.
+   *
+   * @return the primary data source, if the limiter diverts to it
+   * @throws SQLTransientConnectionException if the limiter does not divert to the primary
+   */
+  private @Nonnull DataSource handleOverload() throws SQLTransientConnectionException {
+    if (!concurrencyLimiter.isDivertingToPrimary()) {
+      throw new SQLTransientConnectionException("Data source "
+          + concurrencyLimiter.getDataSourceName() + " is overloaded: its concurrency limit of "
+          + concurrencyLimiter.getLimit() + " connections is reached");
+    }
+
+    concurrencyLimiter.recordDiverted();
+    return primaryDataSourceSupplier.get();
+  }
+
+  /**
+   * Create a proxy of a connection, which times the statements executed on it and returns its slot
+   * of the limit when it is closed.
+   *
+   * @param connection      the connection opened on the data source
+   * @param connectionNanos the time the connection took to open
+   * @return the proxy of the connection
+   */
+  private @Nonnull Connection createReleasingConnectionProxy(
+      @Nonnull Connection connection,
+      long connectionNanos
+  ) {
+    final AtomicBoolean isReleased = new AtomicBoolean();
+    final AtomicLong slowestStatementNanos = new AtomicLong();
+    return (Connection) Proxy.newProxyInstance(
+        ConnectionProxy.class.getClassLoader(),
+        new Class<?>[]{ConnectionProxy.class},
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getTargetConnection":
+              return connection;
+            case "equals":
+              return proxy == args[0];
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            case "close":
+              if (isReleased.compareAndSet(false, true)) {
+                concurrencyLimiter
+                    .release(connectionNanos + slowestStatementNanos.get(), false);
+              }
+              break;
+            default:
+              break;
+          }
+
+          final Object result;
+          try {
+            result = method.invoke(connection, args);
+          } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+          }
+          if (!(result instanceof Statement)
+              || !Statement.class.isAssignableFrom(method.getReturnType())) {
+            return result;
+          }
+
+          return this.createTimedStatementProxy(
+              (Statement) result,
+              method.getReturnType(),
+              (Connection) proxy,
+              slowestStatementNanos
+          );
+        }
+    );
+  }
+
+  /**
+   * Create a proxy of a statement, which records the time its slowest execution took.
+   *
+   * @param statement             the statement created on the connection
+   * @param statementType         the {@link Statement} interface the statement was created as
+   * @param connectionProxy       the proxy of the connection of the statement
+   * @param slowestStatementNanos the time the slowest execution on the connection took
+   * @return the proxy of the statement
+   */
+  private @Nonnull Statement createTimedStatementProxy(
+      @Nonnull Statement statement,
+      @Nonnull Class<?> statementType,
+      @Nonnull Connection connectionProxy,
+      @Nonnull AtomicLong slowestStatementNanos
+  ) {
+    return (Statement) Proxy.newProxyInstance(
+        ConnectionProxy.class.getClassLoader(),
+        new Class<?>[]{statementType},
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getConnection":
+              return connectionProxy;
+            case "equals":
+              return proxy == args[0];
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            default:
+              break;
+          }
+
+          final boolean isExecution = method.getName().startsWith("execute");
+          final long startNanos = isExecution ? System.nanoTime() : 0;
+          try {
+            return method.invoke(statement, args);
+          } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+          } finally {
+            if (isExecution) {
+              final long statementNanos = System.nanoTime() - startNanos;
+              slowestStatementNanos.accumulateAndGet(statementNanos, Math::max);
+            }
+          }
+        }
+    );
+  }
+}
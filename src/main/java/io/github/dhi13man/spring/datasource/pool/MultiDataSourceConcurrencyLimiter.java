@@ -0,0 +1,140 @@
+package io.github.dhi13man.spring.datasource.pool;
+
+import io.github.dhi13man.spring.datasource.annotations.ConcurrencyLimit;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nonnull;
+
+/**
+ * {@link ConcurrencyLimit} of a data source: an AIMD (additive increase, multiplicative decrease)
+ * limit of its connections in use at the same time.
+ * <p>
+ * Every connection is a sample of the latency of the data source. A sample which took longer than
+ * the latency threshold, or failed, multiplies the limit by the backoff ratio, and a fast sample
+ * taken while at least half the limit is in use increases the limit by one. The limit never leaves
+ * the range between the minimum and the maximum limit.
+ * <p>
+ * The limiter never blocks or synchronizes, so it adds no waiting to a saturated data source.
+ */
+public class MultiDataSourceConcurrencyLimiter {
+
+  /**
+   * Suffix of the bean name of the limiter, after the name of its data source.
+   */
+  public static final String BEAN_NAME_SUFFIX = "-concurrency-limiter";
+
+  private final @Nonnull String dataSourceName;
+
+  private final int minLimit;
+
+  private final int maxLimit;
+
+  private final long latencyThresholdNanos;
+
+  private final double backoffRatio;
+
+  private final boolean isDivertingToPrimary;
+
+  private final @Nonnull AtomicInteger limit;
+
+  private final @Nonnull AtomicInteger inFlight = new AtomicInteger();
+
+  private final @Nonnull LongAdder rejectedCount = new LongAdder();
+
+  private final @Nonnull LongAdder divertedCount = new LongAdder();
+
+  /**
+   * Constructor for the concurrency limiter of a data source.
+   *
+   * @param dataSourceName         the name of the data source
+   * @param minLimit               the lowest limit
+   * @param maxLimit               the highest limit, which is also the initial limit
+   * @param latencyThresholdMillis the latency above which a sample is a sign of congestion
+   * @param backoffPercent         the percentage of the limit kept on every sign of congestion
+   * @param isDivertingToPrimary   whether connections beyond the limit are opened on the primary
+   *                               data source, instead of failing
+   */
+  public MultiDataSourceConcurrencyLimiter(
+      @Nonnull String dataSourceName,
+      int minLimit,
+      int maxLimit,
+      long latencyThresholdMillis,
+      int backoffPercent,
+      boolean isDivertingToPrimary
+  ) {
+    this.dataSourceName = dataSourceName;
+    this.minLimit = Math.max(1, Math.min(minLimit, maxLimit));
+    this.maxLimit = Math.max(this.minLimit, maxLimit);
+    this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMillis);
+    this.backoffRatio = backoffPercent / 100.0;
+    this.isDivertingToPrimary = isDivertingToPrimary;
+    this.limit = new AtomicInteger(this.maxLimit);
+  }
+
+  /**
+   * Take a slot of the limit for a new connection, unless the limit is reached.
+   * <p>
+   * Every slot taken must be returned with {@link #release(long, boolean)}.
+   *
+   * @return whether a slot was taken
+   */
+  public boolean tryAcquire() {
+    while (true) {
+      final int currentInFlight = inFlight.get();
+      if (currentInFlight >= limit.get()) {
+        rejectedCount.increment();
+        return false;
+      }
+      if (inFlight.compareAndSet(currentInFlight, currentInFlight + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Return a slot of the limit, and adapt the limit to the latency the connection was used with.
+   *
+   * @param latencyNanos the time the connection took to open plus its slowest statement
+   * @param isFailed     whether the connection failed to open
+   */
+  public void release(long latencyNanos, boolean isFailed) {
+    final int inFlightBeforeRelease = inFlight.getAndDecrement();
+    if (isFailed || latencyNanos > latencyThresholdNanos) {
+      limit.updateAndGet(current -> Math.max(minLimit, (int) (current * backoffRatio)));
+    } else if (inFlightBeforeRelease * 2 >= limit.get()) {
+      limit.updateAndGet(current -> Math.min(maxLimit, current + 1));
+    }
+  }
+
+  /**
+   * Record a connection opened on the primary data source, as the limit was reached.
+   */
+  public void recordDiverted() {
+    divertedCount.increment();
+  }
+
+  public @Nonnull String getDataSourceName() {
+    return dataSourceName;
+  }
+
+  public boolean isDivertingToPrimary() {
+    return isDivertingToPrimary;
+  }
+
+  public int getLimit() {
+    return limit.get();
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  public long getRejectedCount() {
+    return rejectedCount.sum();
+  }
+
+  public long getDivertedCount() {
+    return divertedCount.sum();
+  }
+}
@@ -0,0 +1,64 @@
+package io.github.dhi13man.spring.datasource.pool;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import javax.annotation.Nonnull;
+
+/**
+ * {@link MeterBinder} exposing the state of the {@link MultiDataSourceConcurrencyLimiter} of a data
+ * source as Micrometer metrics, tagged with the name of the data source.
+ * <p>
+ * It is only loaded by the generated configs if Micrometer is on the classpath.
+ */
+public class MultiDataSourceConcurrencyLimiterMetrics implements MeterBinder {
+
+  /**
+   * Prefix of the names of the metrics.
+   */
+  public static final String METRIC_NAME_PREFIX = "multi.data.source.concurrency.";
+
+  /**
+   * Name of the tag holding the name of the data source.
+   */
+  public static final String DATA_SOURCE_TAG = "data.source";
+
+  private final @Nonnull MultiDataSourceConcurrencyLimiter concurrencyLimiter;
+
+  /**
+   * Constructor for the metrics of a concurrency limiter.
+   *
+   * @param concurrencyLimiter the concurrency limiter of the data source
+   */
+  public MultiDataSourceConcurrencyLimiterMetrics(
+      @Nonnull MultiDataSourceConcurrencyLimiter concurrencyLimiter
+  ) {
+    this.concurrencyLimiter = concurrencyLimiter;
+  }
+
+  @Override
+  public void bindTo(@Nonnull MeterRegistry registry) {
+    final String dataSourceName = concurrencyLimiter.getDataSourceName();
+    Gauge.builder(METRIC_NAME_PREFIX + "limit", concurrencyLimiter,
+            MultiDataSourceConcurrencyLimiter::getLimit)
+        .description("Current concurrency limit of the connections of the data source")
+        .tag(DATA_SOURCE_TAG, dataSourceName)
+        .register(registry);
+    Gauge.builder(METRIC_NAME_PREFIX + "in.flight", concurrencyLimiter,
+            MultiDataSourceConcurrencyLimiter::getInFlight)
+        .description("Connections of the data source in use through the concurrency limit")
+        .tag(DATA_SOURCE_TAG, dataSourceName)
+        .register(registry);
+    FunctionCounter.builder(METRIC_NAME_PREFIX + "rejected", concurrencyLimiter,
+            MultiDataSourceConcurrencyLimiter::getRejectedCount)
+        .description("Connections of the data source requested while the limit was reached")
+        .tag(DATA_SOURCE_TAG, dataSourceName)
+        .register(registry);
+    FunctionCounter.builder(METRIC_NAME_PREFIX + "diverted", concurrencyLimiter,
+            MultiDataSourceConcurrencyLimiter::getDivertedCount)
+        .description("Connections of the data source diverted to the primary data source")
+        .tag(DATA_SOURCE_TAG, dataSourceName)
+        .register(registry);
+  }
+}
@@ -0,0 +1,104 @@
+package io.github.dhi13man.spring.datasource.pool;
+
+import io.github.dhi13man.spring.datasource.annotations.ConnectionBudget;
+import io.github.dhi13man.spring.datasource.utils.MultiDataSourceConnectionPoolUtils;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.Nonnull;
+import javax.sql.DataSource;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+
+/**
+ * Enforces the {@link ConnectionBudget} of the data sources at startup.
+ * <p>
+ * Once all the singletons are instantiated (and hence all the pool settings are bound from the
+ * application properties), the maximum pool size of every data source is read and summed. The
+ * startup fails with a report of every data source if the sum exceeds the budget, and the report is
+ * logged otherwise.
+ * <p>
+ * The data sources whose maximum pool size can not be read (eg. unsupported pools) are assumed to
+ * use their share of the budget, and the data sources sharing the connection pool of another data
+ * source use none of it.
+ */
+public class MultiDataSourceConnectionBudgetValidator implements SmartInitializingSingleton {
+
+  private static final Log LOGGER = LogFactory
+      .getLog(MultiDataSourceConnectionBudgetValidator.class);
+
+  private final @Nonnull BeanFactory beanFactory;
+
+  private final int maxConnections;
+
+  private final @Nonnull Map<String, Integer> dataSourceBeanNameToShare;
+
+  private final @Nonnull MultiDataSourceConnectionPoolUtils connectionPoolUtils;
+
+  /**
+   * Constructor for the connection budget validator.
+   *
+   * @param beanFactory               the {@link BeanFactory} to get the data sources from
+   * @param maxConnections            the {@link ConnectionBudget#maxConnections()}
+   * @param dataSourceBeanNameToShare the {@link DataSource} bean names mapped to their share of the
+   *                                  budget, in the order to report them in
+   */
+  public MultiDataSourceConnectionBudgetValidator(
+      @Nonnull BeanFactory beanFactory,
+      int maxConnections,
+      @Nonnull Map<String, Integer> dataSourceBeanNameToShare
+  ) {
+    this.beanFactory = beanFactory;
+    this.maxConnections = maxConnections;
+    this.dataSourceBeanNameToShare = new LinkedHashMap<>(dataSourceBeanNameToShare);
+    this.connectionPoolUtils = MultiDataSourceConnectionPoolUtils.getInstance();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Validates the maximum pool sizes of all the data sources against the budget.
+   *
+   * @throws IllegalStateException if the maximum pool sizes exceed the budget
+   */
+  @Override
+  public void afterSingletonsInstantiated() {
+    final StringBuilder report = new StringBuilder();
+    int totalMaximumPoolSize = 0;
+    for (final Map.Entry<String, Integer> entry : dataSourceBeanNameToShare.entrySet()) {
+      final String dataSourceBeanName = entry.getKey();
+      final int share = entry.getValue();
+      final DataSource dataSource = beanFactory.getBean(dataSourceBeanName, DataSource.class);
+      if (dataSource instanceof SharedConnectionPoolDataSource) {
+        report.append("\n  ").append(dataSourceBeanName)
+            .append(": share ").append(share)
+            .append(", shares the connection pool of ")
+            .append(((SharedConnectionPoolDataSource) dataSource).getOwningDataSourceBeanName());
+        continue;
+      }
+
+      final Integer maximumPoolSize = connectionPoolUtils.getMaximumPoolSize(dataSource);
+      final int countedMaximumPoolSize = Objects.nonNull(maximumPoolSize) ? maximumPoolSize : share;
+      totalMaximumPoolSize += countedMaximumPoolSize;
+
+      report.append("\n  ").append(dataSourceBeanName)
+          .append(": share ").append(share)
+          .append(", maximum pool size ")
+          .append(Objects.nonNull(maximumPoolSize) ? maximumPoolSize : "unknown (share assumed)");
+      if (countedMaximumPoolSize > share) {
+        report.append(" (exceeds share by ").append(countedMaximumPoolSize - share).append(")");
+      }
+    }
+    report.insert(0, "Connection budget: " + totalMaximumPoolSize + " of " + maxConnections
+        + " connections used by the data sources:");
+
+    if (totalMaximumPoolSize > maxConnections) {
+      final String errorMessage = report + "\nThe maximum pool sizes of the data sources exceed"
+          + " the connection budget. Please reduce them, or leave them unset to use the shares.";
+      throw new IllegalStateException(errorMessage);
+    }
+    LOGGER.info(report);
+  }
+}
@@ -0,0 +1,156 @@
+package io.github.dhi13man.spring.datasource.pool;
+
+import io.github.dhi13man.spring.datasource.utils.MultiDataSourceConnectionPoolUtils;
+import java.util.List;
+import java.util.Objects;
+import javax.annotation.Nonnull;
+import javax.sql.DataSource;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+/**
+ * Detects the data sources with the same connection identity (JDBC URL and username) at startup,
+ * and optionally makes them share one connection pool.
+ * <p>
+ * Each data source is compared with the data sources declared before it, once its pool settings
+ * are bound from the application properties. If an earlier data source has the same connection
+ * identity and the same connection settings (eg. connection init SQL or read-only default), the
+ * first such data source owns the connection pool:
+ * <p>
+ * 1. If sharing is disabled, this is only logged, as the data sources open separate pools for the
+ * same database.
+ * <p>
+ * 2. If sharing is enabled, the unused pool of the later data source is closed before it opens
+ * any connection, and a {@link SharedConnectionPoolDataSource} delegating to the owning pool is
+ * exposed as its bean instead. Its entity manager factory and transaction manager stay separate.
+ * <p>
+ * Data sources with the same connection identity but different connection settings never share a
+ * connection pool, as the connections of the owning pool would silently drop their settings.
+ */
+public class MultiDataSourceSharedConnectionPoolPostProcessor implements BeanPostProcessor,
+    BeanFactoryAware {
+
+  private static final Log LOGGER = LogFactory
+      .getLog(MultiDataSourceSharedConnectionPoolPostProcessor.class);
+
+  private final @Nonnull List<String> dataSourceBeanNames;
+
+  private final boolean isSharingConnectionPools;
+
+  private final @Nonnull MultiDataSourceConnectionPoolUtils connectionPoolUtils;
+
+  private BeanFactory beanFactory;
+
+  /**
+   * Constructor for the shared connection pool post processor.
+   *
+   * @param dataSourceBeanNames      the bean names of the data sources, in order of declaration
+   * @param isSharingConnectionPools whether data sources with the same connection identity share
+   *                                 one connection pool, or are only reported
+   */
+  public MultiDataSourceSharedConnectionPoolPostProcessor(
+      @Nonnull List<String> dataSourceBeanNames,
+      boolean isSharingConnectionPools
+  ) {
+    this.dataSourceBeanNames = List.copyOf(dataSourceBeanNames);
+    this.isSharingConnectionPools = isSharingConnectionPools;
+    this.connectionPoolUtils = MultiDataSourceConnectionPoolUtils.getInstance();
+  }
+
+  @Override
+  public void setBeanFactory(@Nonnull BeanFactory beanFactory) throws BeansException {
+    this.beanFactory = beanFactory;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Replaces the data source with a {@link SharedConnectionPoolDataSource} if an earlier data
+   * source has the same connection identity and connection settings, and sharing is enabled.
+   *
+   * @param bean     the new bean instance
+   * @param beanName the name of the bean
+   * @return the bean instance to use
+   */
+  @Override
+  public Object postProcessAfterInitialization(@Nonnull Object bean, @Nonnull String beanName)
+      throws BeansException {
+    final int dataSourceIndex = dataSourceBeanNames.indexOf(beanName);
+    if (dataSourceIndex <= 0 || !(bean instanceof DataSource)) {
+      return bean;
+    }
+    final DataSource dataSource = (DataSource) bean;
+    final String connectionIdentity = connectionPoolUtils.getConnectionIdentity(dataSource);
+    if (connectionIdentity == null) {
+      return bean;
+    }
+
+    // Find the first earlier data source with the same connection identity
+    for (final String owningDataSourceBeanName : dataSourceBeanNames.subList(0, dataSourceIndex)) {
+      final DataSource owningConnectionPool = this
+          .getConnectionPool(beanFactory.getBean(owningDataSourceBeanName, DataSource.class));
+      final String owningConnectionIdentity = connectionPoolUtils
+          .getConnectionIdentity(owningConnectionPool);
+      if (!connectionIdentity.equals(owningConnectionIdentity)) {
+        continue;
+      }
+      if (!connectionPoolUtils.getConnectionSettings(dataSource)
+          .equals(connectionPoolUtils.getConnectionSettings(owningConnectionPool))) {
+        LOGGER.info("Data sources " + owningDataSourceBeanName + " and " + beanName + " open"
+            + " connections for the same database and user with different connection settings,"
+            + " so they do not share a connection pool.");
+        continue;
+      }
+
+      if (!isSharingConnectionPools) {
+        LOGGER.warn("Data sources " + owningDataSourceBeanName + " and " + beanName + " open"
+            + " separate connection pools for the same database and user. Enable"
+            + " shareConnectionPools in @EnableMultiDataSourceConfig to share one pool.");
+        return bean;
+      }
+      LOGGER.info("Data source " + beanName + " shares the connection pool of data source "
+          + owningDataSourceBeanName + " with the same database and user.");
+      this.closeUnusedConnectionPool(dataSource, beanName);
+      return new SharedConnectionPoolDataSource(owningConnectionPool, owningDataSourceBeanName);
+    }
+    return bean;
+  }
+
+  /**
+   * Get the connection pool behind a data source, which may already be shared.
+   *
+   * @param dataSource the data source to get the connection pool of
+   * @return the connection pool behind the data source
+   */
+  private @Nonnull DataSource getConnectionPool(@Nonnull DataSource dataSource) {
+    return dataSource instanceof SharedConnectionPoolDataSource
+        ? Objects.requireNonNull(((SharedConnectionPoolDataSource) dataSource).getTargetDataSource())
+        : dataSource;
+  }
+
+  /**
+   * Close the connection pool of a data source replaced by a shared connection pool, if it can be
+   * closed.
+   *
+   * @param dataSource the data source whose connection pool is no longer used
+   * @param beanName   the bean name of the data source
+   */
+  private void closeUnusedConnectionPool(
+      @Nonnull DataSource dataSource,
+      @Nonnull String beanName
+  ) {
+    if (!(dataSource instanceof AutoCloseable)) {
+      return;
+    }
+
+    try {
+      ((AutoCloseable) dataSource).close();
+    } catch (Exception e) {
+      LOGGER.warn("Could not close the unused connection pool of data source " + beanName, e);
+    }
+  }
+}
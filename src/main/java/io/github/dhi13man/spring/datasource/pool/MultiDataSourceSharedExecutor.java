@@ -0,0 +1,119 @@
+package io.github.dhi13man.spring.datasource.pool;
+
+import io.github.dhi13man.spring.datasource.routing.MultiDataSourceRoutingContext;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+
+/**
+ * Shared bounded executor of the calls the library runs off the calling thread: the hedged calls of
+ * the hedged reads, and the calls of the scatter-gathers and range scans which are not given an
+ * executor of their own.
+ * <p>
+ * It runs at most {@link #MAX_THREADS} daemon threads, which time out when idle, and queues at
+ * most {@link #QUEUE_CAPACITY} more calls. Calls beyond that are rejected with a
+ * {@link RejectedExecutionException} straight away, so a burst of reads never starts a thread per
+ * call: the hedged reads then run the first call on the calling thread or skip the hedge, and the
+ * fan-outs run the rejected calls on the calling thread through
+ * {@link #submitOrRun(ExecutorService, Callable)}.
+ */
+public final class MultiDataSourceSharedExecutor {
+
+  /**
+   * Most threads of the shared executor.
+   */
+  public static final int MAX_THREADS = Math
+      .max(8, 2 * Runtime.getRuntime().availableProcessors());
+
+  /**
+   * Most calls waiting for a thread of the shared executor.
+   */
+  public static final int QUEUE_CAPACITY = 4 * MAX_THREADS;
+
+  private static final long KEEP_ALIVE_SECONDS = 60;
+
+  private MultiDataSourceSharedExecutor() {
+  }
+
+  /**
+   * Get the shared bounded executor, created on first use.
+   *
+   * @return the shared executor
+   */
+  public static @Nonnull ExecutorService getExecutor() {
+    return SharedExecutorHolder.EXECUTOR;
+  }
+
+  /**
+   * Submit a call to an executor, carrying over the data source and the writes of the current
+   * session, or run it on the calling thread if the executor rejects it.
+   *
+   * @param executor the executor to submit the call to
+   * @param call     the call to run
+   * @param <T>      the type of the result of the call
+   * @return the {@link Future} of the call, already done if it ran on the calling thread
+   */
+  public static <T> @Nonnull Future<T> submitOrRun(
+      @Nonnull ExecutorService executor,
+      @Nonnull Callable<T> call
+  ) {
+    try {
+      return executor.submit(MultiDataSourceRoutingContext.wrapCallable(call));
+    } catch (RejectedExecutionException e) {
+      final FutureTask<T> task = new FutureTask<>(call);
+      task.run();
+      return task;
+    }
+  }
+
+  /**
+   * Holder of the shared executor, created on first use.
+   */
+  private static class SharedExecutorHolder {
+
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    private static @Nonnull ThreadPoolExecutor createExecutor() {
+      final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+          MAX_THREADS,
+          MAX_THREADS,
+          KEEP_ALIVE_SECONDS,
+          TimeUnit.SECONDS,
+          new LinkedBlockingQueue<>(QUEUE_CAPACITY),
+          new SharedThreadFactory("multi-data-source-shared-"),
+          new ThreadPoolExecutor.AbortPolicy()
+      );
+      executor.allowCoreThreadTimeOut(true);
+      return executor;
+    }
+  }
+
+  /**
+   * {@link ThreadFactory} of the shared daemon threads.
+   */
+  private static class SharedThreadFactory implements ThreadFactory {
+
+    private final @Nonnull String threadNamePrefix;
+
+    private final @Nonnull AtomicInteger threadCount = new AtomicInteger();
+
+    SharedThreadFactory(@Nonnull String threadNamePrefix) {
+      this.threadNamePrefix = threadNamePrefix;
+    }
+
+    @Override
+    public @Nonnull Thread newThread(@Nonnull Runnable runnable) {
+      final Thread thread = new Thread(runnable, threadNamePrefix + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package io.github.dhi13man.spring.datasource.pool;
+
+import javax.annotation.Nonnull;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * {@link DataSource} of a data source which shares the connection pool of another data source with
+ * the same connection identity.
+ * <p>
+ * All calls are delegated to the shared pool, which is never closed through this data source, so
+ * that it is only closed once along with the data source owning it.
+ */
+public class SharedConnectionPoolDataSource extends DelegatingDataSource {
+
+  private final @Nonnull String owningDataSourceBeanName;
+
+  /**
+   * Constructor for a data source sharing the connection pool of another data source.
+   *
+   * @param sharedConnectionPool     the connection pool to share
+   * @param owningDataSourceBeanName the bean name of the data source owning the connection pool
+   */
+  public SharedConnectionPoolDataSource(
+      @Nonnull DataSource sharedConnectionPool,
+      @Nonnull String owningDataSourceBeanName
+  ) {
+    super(sharedConnectionPool);
+    this.owningDataSourceBeanName = owningDataSourceBeanName;
+  }
+
+  /**
+   * Get the bean name of the data source owning the shared connection pool.
+   *
+   * @return the bean name of the data source owning the shared connection pool
+   */
+  public @Nonnull String getOwningDataSourceBeanName() {
+    return owningDataSourceBeanName;
+  }
+}
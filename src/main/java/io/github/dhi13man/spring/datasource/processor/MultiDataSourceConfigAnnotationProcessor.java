@@ -7,16 +7,30 @@ import static io.github.dhi13man.spring.datasource.constants.MultiDataSourceErro
 import com.google.auto.service.AutoService;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.TypeSpec;
+import io.github.dhi13man.spring.datasource.annotations.AsyncExecutor;
+import io.github.dhi13man.spring.datasource.annotations.CircuitBreaker;
+import io.github.dhi13man.spring.datasource.annotations.ConcurrencyLimit;
+import io.github.dhi13man.spring.datasource.annotations.ConcurrencyLimit.OverloadAction;
+import io.github.dhi13man.spring.datasource.annotations.ConnectionBudget;
 import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig;
 import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.DataSourceConfig;
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.RoutingMode;
+import io.github.dhi13man.spring.datasource.annotations.PerformanceProfile;
+import io.github.dhi13man.spring.datasource.annotations.ReadYourWrites;
+import io.github.dhi13man.spring.datasource.annotations.ScatterGather;
+import io.github.dhi13man.spring.datasource.annotations.ShardKey;
 import io.github.dhi13man.spring.datasource.annotations.TargetSecondaryDataSource;
+import io.github.dhi13man.spring.datasource.annotations.TargetSecondaryDataSources;
 import io.github.dhi13man.spring.datasource.dto.EnableConfigAnnotationAndElementHolder;
 import io.github.dhi13man.spring.datasource.generators.MultiDataSourceConfigGenerator;
 import io.github.dhi13man.spring.datasource.generators.MultiDataSourceRepositoryGenerator;
 import io.github.dhi13man.spring.datasource.utils.MultiDataSourceCommonStringUtils;
 import io.github.dhi13man.spring.datasource.utils.MultiDataSourceGeneratorUtils;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -32,10 +46,12 @@ import javax.annotation.processing.Processor;
 import javax.annotation.processing.RoundEnvironment;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 import javax.tools.Diagnostic.Kind;
@@ -54,8 +70,20 @@ public class MultiDataSourceConfigAnnotationProcessor extends AbstractProcessor
 
   private static final String CONFIG_PACKAGE_SUFFIX = ".generated.config";
 
+  private static final String CONNECTION_BUDGET_CONFIG_CLASS_NAME = "MultiDataSourceConnectionBudgetConfig";
+
+  private static final String SHARED_CONNECTION_POOL_CONFIG_CLASS_NAME = "MultiDataSourceSharedConnectionPoolConfig";
+
+  private static final String ROUTING_CONFIG_CLASS_NAME = "MultiDataSourceRoutingConfig";
+
+  private static final String REPOSITORY_CONFIG_CLASS_NAME = "MultiDataSourceRepositoryConfig";
+
+  private static final String QUERY_PLAN_WARM_UP_CONFIG_CLASS_NAME = "MultiDataSourceQueryPlanWarmUpConfig";
+
   private static final String ERROR_WHILE_WRITING_THE_CLASS = "Error while writing the class: ";
 
+  private static final int MIN_TIMEOUT_MILLIS = 1000;
+
   private Filer filer;
 
   private Messager messager;
@@ -139,6 +167,7 @@ public class MultiDataSourceConfigAnnotationProcessor extends AbstractProcessor
         : new MultiDataSourceRepositoryGenerator(
             this.messager,
             processingEnv.getTypeUtils(),
+            processingEnv.getElementUtils(),
             this.commonStringUtils,
             this.generatorUtils
         );
@@ -157,6 +186,14 @@ public class MultiDataSourceConfigAnnotationProcessor extends AbstractProcessor
    * 3. Creates copies of the repositories with only the annotated methods in the relevant packages,
    * for package segregated data source injection which is required for multiple data source support
    * in Spring.
+   * <p>
+   * 4. Generates a config detecting (and optionally sharing) connection pools of data sources with
+   * the same connection identity, and one enforcing their connection budget, if one is provided.
+   * <p>
+   * 5. Generates a config routing the repositories to their data sources at runtime, in
+   * {@link RoutingMode#RUNTIME_ROUTING}.
+   * <p>
+   * 6. Generates a config adding the read optimizations to the repositories annotated for them.
    *
    * @param annotations the annotation types requested to be processed
    * @param roundEnv    environment for information about the current and prior round
@@ -180,11 +217,18 @@ public class MultiDataSourceConfigAnnotationProcessor extends AbstractProcessor
     final PackageElement annotatedElementPackage = elementUtils.getPackageOf(annotatedElement);
     final String nonEmptyGeneratedConfigPackage = this
         .getGeneratedConfigPackage(annotation, annotatedElementPackage);
+    final Map<String, Integer> dataSourceToMaximumPoolSizeMap = this
+        .validateAndPartitionConnectionBudget(annotation);
+    final boolean isRuntimeRouting = annotation.routingMode() == RoutingMode.RUNTIME_ROUTING;
     this.createDataSourceConfigurationClass(
         primaryConfig,
         annotation,
         nonEmptyGeneratedConfigPackage,
-        annotation.repositoryPackages()
+        annotation.repositoryPackages(),
+        dataSourceToMaximumPoolSizeMap
+            .getOrDefault(primaryConfig.dataSourceName(), ConnectionBudget.UNLIMITED),
+        isRuntimeRouting ? ROUTING_CONFIG_CLASS_NAME : null,
+        null
     );
 
     // Get the data source config maps
@@ -193,22 +237,101 @@ public class MultiDataSourceConfigAnnotationProcessor extends AbstractProcessor
 
     final Map<String, DataSourceConfig> secondaryDataSourceConfigMap = this
         .createDataSourceToConfigMap(secondaryDataSourceConfigs);
+    final Map<String, Set<TypeElement>> dataSourceToRepositoriesMap =
+        annotation.minimizeEntitySets() && !isRuntimeRouting
+            ? this.createDataSourceToRepositoriesMap(roundEnv, secondaryDataSourceConfigs)
+            : null;
     // Process the target executable elements to produce the alternate data source config classes
     for (final var executableElementsEntry : secondaryDataSourceConfigMap.entrySet()) {
       // Get the relevant details for this data source
       final String dataSourceName = executableElementsEntry.getKey();
       final DataSourceConfig dataSourceConfig = executableElementsEntry.getValue();
+      // Data sources without repositories here may be used from another compilation unit
       this.createDataSourceConfigurationClass(
           dataSourceConfig,
           annotation,
           nonEmptyGeneratedConfigPackage,
-          annotation.repositoryPackages()
+          annotation.repositoryPackages(),
+          dataSourceToMaximumPoolSizeMap
+              .getOrDefault(dataSourceName, ConnectionBudget.UNLIMITED),
+          isRuntimeRouting && dataSourceConfig.schemaEquivalent()
+              ? ROUTING_CONFIG_CLASS_NAME : null,
+          dataSourceToRepositoriesMap == null
+              || !dataSourceToRepositoriesMap.containsKey(dataSourceName) ? null
+              : repositoryGenerator
+                  .getManagedTypeNames(
+                      dataSourceToRepositoriesMap.get(dataSourceName),
+                      roundEnv.getRootElements()
+                  )
+                  .toArray(String[]::new)
       );
 
       final String generatedInfoString = "Generated config class for data source " + dataSourceName
           + ".\nPlease add the config values to the relevant properties file.";
       messager.printMessage(Kind.NOTE, generatedInfoString);
     }
+
+    // Create the config class detecting, and optionally sharing, identical connection pools
+    final Map<String, DataSourceConfig> configClassNameToDataSource = new LinkedHashMap<>();
+    configClassNameToDataSource
+        .put(this.getDataSourceConfigClassName(primaryConfig.dataSourceName()), primaryConfig);
+    for (final DataSourceConfig dataSourceConfig : secondaryDataSourceConfigs) {
+      final String dataSourceConfigClassName = this
+          .getDataSourceConfigClassName(dataSourceConfig.dataSourceName());
+      configClassNameToDataSource.put(dataSourceConfigClassName, dataSourceConfig);
+    }
+    final List<String> dataSourceConfigClassNames = new ArrayList<>(
+        configClassNameToDataSource.keySet()
+    );
+    final TypeSpec sharedConnectionPoolTypeSpec = configGenerator
+        .generateSharedConnectionPoolConfigTypeElement(
+            SHARED_CONNECTION_POOL_CONFIG_CLASS_NAME,
+            annotation.shareConnectionPools(),
+            dataSourceConfigClassNames
+        );
+    this.writeTypeSpecToPackage(nonEmptyGeneratedConfigPackage, sharedConnectionPoolTypeSpec);
+
+    // Create the connection budget config class enforcing the budget, if there is one
+    if (!dataSourceToMaximumPoolSizeMap.isEmpty()) {
+      final TypeSpec connectionBudgetTypeSpec = configGenerator
+          .generateConnectionBudgetConfigTypeElement(
+              CONNECTION_BUDGET_CONFIG_CLASS_NAME,
+              annotation.connectionBudget().maxConnections(),
+              dataSourceConfigClassNames
+          );
+      this.writeTypeSpecToPackage(nonEmptyGeneratedConfigPackage, connectionBudgetTypeSpec);
+    }
+
+    // Create the routing config class replacing the repository copies, in runtime routing mode
+    if (isRuntimeRouting) {
+      final TypeSpec routingTypeSpec = configGenerator
+          .generateRoutingConfigTypeElement(ROUTING_CONFIG_CLASS_NAME, configClassNameToDataSource);
+      this.writeTypeSpecToPackage(nonEmptyGeneratedConfigPackage, routingTypeSpec);
+    }
+
+    // Create the config class warming up the query plans of the repository copies, if enabled
+    if (annotation.warmUpQueryPlans() && !isRuntimeRouting) {
+      final Map<String, DataSourceConfig> secondaryConfigClassNameToDataSource =
+          new LinkedHashMap<>(configClassNameToDataSource);
+      secondaryConfigClassNameToDataSource.remove(dataSourceConfigClassNames.get(0));
+      secondaryConfigClassNameToDataSource.values().removeIf(DataSourceConfig::jdbcOnly);
+      final TypeSpec queryPlanWarmUpTypeSpec = configGenerator
+          .generateQueryPlanWarmUpConfigTypeElement(
+              QUERY_PLAN_WARM_UP_CONFIG_CLASS_NAME,
+              secondaryConfigClassNameToDataSource
+          );
+      this.writeTypeSpecToPackage(nonEmptyGeneratedConfigPackage, queryPlanWarmUpTypeSpec);
+    }
+
+    // Create the repository config class adding the read optimizations to the repositories
+    final TypeSpec repositoryTypeSpec = configGenerator
+        .generateRepositoryConfigTypeElement(
+            REPOSITORY_CONFIG_CLASS_NAME,
+            secondaryDataSourceConfigs.stream()
+                .anyMatch(dataSourceConfig -> dataSourceConfig.readYourWrites() != null
+                    && dataSourceConfig.readYourWrites().enabled())
+        );
+    this.writeTypeSpecToPackage(nonEmptyGeneratedConfigPackage, repositoryTypeSpec);
     // As per sonatype, return false to indicate that the annotation processor is not claiming
     // the annotations: https://errorprone.info/bugpattern/DoNotClaimAnnotations
     return false;
@@ -301,6 +424,157 @@ public class MultiDataSourceConfigAnnotationProcessor extends AbstractProcessor
     return secondaryDataSourceConfigMap;
   }
 
+  /**
+   * Creates a map of the secondary data source names to the repositories whose copies are generated
+   * for them: those with methods annotated with {@link TargetSecondaryDataSource} for the data
+   * source, or run on the shards of a shard set the data source belongs to with {@link ShardKey}
+   * or {@link ScatterGather}.
+   *
+   * @param roundEnv                   environment for information about the current and prior
+   *                                   round
+   * @param secondaryDataSourceConfigs the {@link DataSourceConfig}s of the secondary data sources
+   * @return map of the secondary data source names to their repositories, without the data sources
+   * no repositories were found for, or null if there are no repositories in this compilation unit
+   */
+  private @Nullable Map<String, Set<TypeElement>> createDataSourceToRepositoriesMap(
+      @Nonnull RoundEnvironment roundEnv,
+      @Nonnull List<DataSourceConfig> secondaryDataSourceConfigs
+  ) {
+    final Map<String, Set<TypeElement>> dataSourceToRepositoriesMap = new HashMap<>();
+    final Map<String, List<String>> shardSetToDataSourcesMap = new HashMap<>();
+    for (final DataSourceConfig dataSourceConfig : secondaryDataSourceConfigs) {
+      if (StringUtils.hasText(dataSourceConfig.shardSet())) {
+        shardSetToDataSourcesMap
+            .computeIfAbsent(dataSourceConfig.shardSet(), ignored -> new ArrayList<>())
+            .add(dataSourceConfig.dataSourceName());
+      }
+    }
+
+    // Collect the repositories of the targeted and shard set methods for their data sources
+    final Set<? extends Element> targetMethods = roundEnv.getElementsAnnotatedWithAny(Set.of(
+        TargetSecondaryDataSource.class,
+        TargetSecondaryDataSources.class,
+        ScatterGather.class
+    ));
+    for (final ExecutableElement method : ElementFilter.methodsIn(targetMethods)) {
+      final List<String> dataSourceNames = new ArrayList<>();
+      for (final TargetSecondaryDataSource target : method
+          .getAnnotationsByType(TargetSecondaryDataSource.class)) {
+        dataSourceNames.add(target.value());
+      }
+      final ScatterGather scatterGather = method.getAnnotation(ScatterGather.class);
+      if (scatterGather != null) {
+        dataSourceNames.addAll(
+            shardSetToDataSourcesMap.getOrDefault(scatterGather.shardSet(), List.of())
+        );
+      }
+      this.addRepository(dataSourceToRepositoriesMap, dataSourceNames, method);
+    }
+    final Set<? extends Element> shardKeys = roundEnv.getElementsAnnotatedWith(ShardKey.class);
+    for (final Element shardKey : shardKeys) {
+      this.addRepository(
+          dataSourceToRepositoriesMap,
+          shardSetToDataSourcesMap
+              .getOrDefault(shardKey.getAnnotation(ShardKey.class).value(), List.of()),
+          shardKey.getEnclosingElement()
+      );
+    }
+
+    // Without any repositories, they are in another compilation unit, so nothing can be minimized
+    if (targetMethods.isEmpty() && shardKeys.isEmpty()) {
+      messager.printMessage(
+          Kind.WARNING,
+          "No repository methods targeting the secondary data sources were found in this"
+              + " compilation unit, so their entity sets are not minimized."
+      );
+      return null;
+    }
+    return dataSourceToRepositoriesMap;
+  }
+
+  /**
+   * Add the repository of a repository method to the repositories of some data sources.
+   *
+   * @param dataSourceToRepositoriesMap map of the data source names to their repositories
+   * @param dataSourceNames             the names of the data sources
+   * @param method                      the repository method
+   */
+  private void addRepository(
+      @Nonnull Map<String, Set<TypeElement>> dataSourceToRepositoriesMap,
+      @Nonnull List<String> dataSourceNames,
+      @Nonnull Element method
+  ) {
+    if (!(method.getEnclosingElement() instanceof TypeElement)) {
+      return;
+    }
+
+    final TypeElement repositoryElement = (TypeElement) method.getEnclosingElement();
+    for (final String dataSourceName : dataSourceNames) {
+      dataSourceToRepositoriesMap
+          .computeIfAbsent(dataSourceName, ignored -> new HashSet<>())
+          .add(repositoryElement);
+    }
+  }
+
+  /**
+   * Validates the {@link ConnectionBudget} of the annotation and partitions it across the primary
+   * and secondary data sources by their weights.
+   *
+   * @param annotation the {@link EnableMultiDataSourceConfig} annotation
+   * @return the data source names mapped to their share of the budget (primary first, then the
+   * secondaries in order of declaration), or an empty map if there is no budget
+   * @throws IllegalArgumentException if the budget, any weight or any resulting share is not
+   *                                  positive
+   */
+  private @Nonnull Map<String, Integer> validateAndPartitionConnectionBudget(
+      @Nonnull EnableMultiDataSourceConfig annotation
+  ) {
+    final int maxConnections = annotation.connectionBudget().maxConnections();
+    if (maxConnections == ConnectionBudget.UNLIMITED) {
+      return Map.of();
+    }
+    if (maxConnections <= 0) {
+      final String errorMessage = "Invalid @ConnectionBudget.maxConnections " + maxConnections
+          + ". Please provide a positive value or leave it unset for no budget.";
+      messager.printMessage(Kind.ERROR, errorMessage);
+      throw new IllegalArgumentException(errorMessage);
+    }
+
+    // Validate the weights of all the data sources, primary first
+    final Map<String, Integer> dataSourceToWeightMap = new LinkedHashMap<>();
+    final List<DataSourceConfig> dataSourceConfigs = new ArrayList<>();
+    dataSourceConfigs.add(annotation.primaryDataSourceConfig());
+    dataSourceConfigs.addAll(List.of(annotation.secondaryDataSourceConfigs()));
+    for (final DataSourceConfig dataSourceConfig : dataSourceConfigs) {
+      final int weight = dataSourceConfig.connectionBudgetWeight();
+      if (weight <= 0) {
+        final String errorMessage = "Invalid @DataSourceConfig.connectionBudgetWeight " + weight
+            + " for data source " + dataSourceConfig.dataSourceName()
+            + ". Please provide a positive value.";
+        messager.printMessage(Kind.ERROR, errorMessage);
+        throw new IllegalArgumentException(errorMessage);
+      }
+      dataSourceToWeightMap.put(dataSourceConfig.dataSourceName(), weight);
+    }
+
+    // Partition the budget and validate that every data source gets at least one connection
+    final Map<String, Integer> dataSourceToShareMap = generatorUtils
+        .partitionConnectionBudget(maxConnections, dataSourceToWeightMap);
+    for (final Map.Entry<String, Integer> share : dataSourceToShareMap.entrySet()) {
+      if (share.getValue() > 0) {
+        continue;
+      }
+
+      final String errorMessage = "@ConnectionBudget.maxConnections " + maxConnections
+          + " leaves no connections for data source " + share.getKey() + " with weight "
+          + dataSourceToWeightMap.get(share.getKey()) + ". Please increase the budget or the"
+          + " weight of the data source.";
+      messager.printMessage(Kind.ERROR, errorMessage);
+      throw new IllegalArgumentException(errorMessage);
+    }
+    return dataSourceToShareMap;
+  }
+
   /**
    * Get the generated config package from the annotation or the element package.
    * <p>
@@ -331,14 +605,31 @@ public class MultiDataSourceConfigAnnotationProcessor extends AbstractProcessor
    *                                          configuration will be placed
    * @param repositoryPackagesToIncludeInScan the repository packages to be scanned for
    *                                          repositories, specifically for this data source
+   * @param maximumPoolSize                   the share of the connection budget of this data
+   *                                          source, or {@link ConnectionBudget#UNLIMITED}
+   * @param routingConfigClassName            the name of the generated routing config class whose
+   *                                          routing data source the entity manager factory uses,
+   *                                          or whose primary entity manager factory a
+   *                                          schema-equivalent secondary data source shares, or
+   *                                          null to use the data source itself
+   * @param managedTypeNames                  the binary names of the only managed types to
+   *                                          register in the entity manager factory, or null to
+   *                                          register all the types in the entity packages
    * @throws IllegalArgumentException if no entity packages or repository packages are provided in
-   *                                  the annotation
+   *                                  the annotation, or the performance profile, timeouts,
+   *                                  stream fetch size, async executor, concurrency limit or
+   *                                  circuit breaker are invalid, the data source is
+   *                                  schema-equivalent outside runtime routing, or it can not be
+   *                                  JDBC only
    */
   private void createDataSourceConfigurationClass(
       @Nonnull DataSourceConfig dataSourceConfig,
       @Nonnull EnableMultiDataSourceConfig annotation,
       @Nonnull String generatedConfigPackage,
-      @Nonnull String[] repositoryPackagesToIncludeInScan
+      @Nonnull String[] repositoryPackagesToIncludeInScan,
+      int maximumPoolSize,
+      @Nullable String routingConfigClassName,
+      @Nullable String[] managedTypeNames
   ) {
     final String dataSourceName = dataSourceConfig.dataSourceName();
     final String dataSourceConfigClassName = this.getDataSourceConfigClassName(dataSourceName);
@@ -358,23 +649,336 @@ public class MultiDataSourceConfigAnnotationProcessor extends AbstractProcessor
       messager.printMessage(Kind.ERROR, NO_REPOSITORY_PACKAGES_PROVIDED_IN_CONFIG);
       throw new IllegalArgumentException(NO_REPOSITORY_PACKAGES_PROVIDED_IN_CONFIG);
     }
-
-    // Create the data source config class
+    this.validatePerformanceProfile(dataSourceName, dataSourceConfig.performanceProfile());
+    this.validateTimeouts(dataSourceName, Map.of(
+        "queryTimeoutMillis", dataSourceConfig.queryTimeoutMillis(),
+        "lockTimeoutMillis", dataSourceConfig.lockTimeoutMillis()
+    ));
+    if (dataSourceConfig.streamFetchSize() != Integer.MIN_VALUE) {
+      this.validatePositiveOrUnset(dataSourceName, "@DataSourceConfig", Map.of(
+          "streamFetchSize", dataSourceConfig.streamFetchSize()
+      ));
+    }
+    final AsyncExecutor asyncExecutor = dataSourceConfig.asyncExecutor();
+    if (asyncExecutor != null && asyncExecutor.queueCapacity() < 0) {
+      final String errorMessage = "Invalid @AsyncExecutor.queueCapacity "
+          + asyncExecutor.queueCapacity() + " for data source " + dataSourceName
+          + ". Please provide a non-negative value.";
+      messager.printMessage(Kind.ERROR, errorMessage);
+      throw new IllegalArgumentException(errorMessage);
+    }
     final boolean isPrimaryConfig = dataSourceName
         .equals(annotation.primaryDataSourceConfig().dataSourceName());
-    final TypeSpec configurationTypeSpec = configGenerator.generateMultiDataSourceConfigTypeElement(
-        dataSourceConfig,
-        isPrimaryConfig,
-        dataSourceConfigClassName,
-        dataSourceConfigPropertiesPath,
-        repositoryPackagesToIncludeInScan,
-        entityPackages.toArray(String[]::new)
-    );
+    final ConcurrencyLimit concurrencyLimit = dataSourceConfig.concurrencyLimit();
+    if (concurrencyLimit != null && concurrencyLimit.enabled()) {
+      this.validateConcurrencyLimit(dataSourceName, concurrencyLimit, isPrimaryConfig);
+    }
+    final CircuitBreaker circuitBreaker = dataSourceConfig.circuitBreaker();
+    if (circuitBreaker != null && circuitBreaker.enabled()) {
+      this.validateCircuitBreaker(dataSourceName, circuitBreaker, annotation);
+    }
+    final ReadYourWrites readYourWrites = dataSourceConfig.readYourWrites();
+    if (readYourWrites != null && readYourWrites.enabled()) {
+      this.validateReadYourWrites(dataSourceName, readYourWrites, isPrimaryConfig);
+    }
+    final String shardSet = dataSourceConfig.shardSet();
+    if (isPrimaryConfig && shardSet != null && !shardSet.isEmpty()) {
+      final String errorMessage = "The primary data source " + dataSourceName + " can not be a"
+          + " shard of shard set " + shardSet + ". Please only declare secondary data sources as"
+          + " shards.";
+      messager.printMessage(Kind.ERROR, errorMessage);
+      throw new IllegalArgumentException(errorMessage);
+    }
+    if (dataSourceConfig.schemaEquivalent()
+        && annotation.routingMode() != RoutingMode.RUNTIME_ROUTING) {
+      final String errorMessage = "Data source " + dataSourceName + " can only be schema-equivalent"
+          + " in " + RoutingMode.RUNTIME_ROUTING + ", as only the routing data source of the"
+          + " primary entity manager factory can be shared. Please remove schemaEquivalent or use "
+          + RoutingMode.RUNTIME_ROUTING + ".";
+      messager.printMessage(Kind.ERROR, errorMessage);
+      throw new IllegalArgumentException(errorMessage);
+    }
+
+    // Create the data source config class, without an entity manager factory if JDBC only
+    final TypeSpec configurationTypeSpec;
+    if (dataSourceConfig.jdbcOnly()) {
+      this.validateJdbcOnly(dataSourceName, dataSourceConfig, annotation, isPrimaryConfig);
+      configurationTypeSpec = configGenerator.generateJdbcDataSourceConfigTypeElement(
+          dataSourceConfig,
+          dataSourceConfigClassName,
+          dataSourceConfigPropertiesPath,
+          repositoryPackagesToIncludeInScan,
+          maximumPoolSize
+      );
+    } else {
+      configurationTypeSpec = configGenerator.generateMultiDataSourceConfigTypeElement(
+          dataSourceConfig,
+          isPrimaryConfig,
+          dataSourceConfigClassName,
+          dataSourceConfigPropertiesPath,
+          repositoryPackagesToIncludeInScan,
+          entityPackages.toArray(String[]::new),
+          maximumPoolSize,
+          routingConfigClassName,
+          managedTypeNames
+      );
+    }
 
     // Write the data source config class to the relevant package
     this.writeTypeSpecToPackage(generatedConfigPackage, configurationTypeSpec);
   }
 
+  /**
+   * Validates that a {@link DataSourceConfig#jdbcOnly()} data source is a secondary data source of
+   * a {@link RoutingMode#REPOSITORY_COPIES} configuration, without the features wrapping the
+   * connections or running the methods of its entity manager factory.
+   *
+   * @param dataSourceName   the name of the JDBC only data source
+   * @param dataSourceConfig the {@link DataSourceConfig} of the data source
+   * @param annotation       the {@link EnableMultiDataSourceConfig} annotation
+   * @param isPrimaryConfig  whether the data source is the primary data source
+   * @throws IllegalArgumentException if the data source can not be JDBC only
+   */
+  private void validateJdbcOnly(
+      @Nonnull String dataSourceName,
+      @Nonnull DataSourceConfig dataSourceConfig,
+      @Nonnull EnableMultiDataSourceConfig annotation,
+      boolean isPrimaryConfig
+  ) {
+    final List<String> conflicts = new ArrayList<>();
+    if (isPrimaryConfig) {
+      conflicts.add("it is the primary data source");
+    }
+    if (annotation.routingMode() == RoutingMode.RUNTIME_ROUTING) {
+      conflicts.add("it is routed at runtime through the primary entity manager factory");
+    }
+    final AsyncExecutor asyncExecutor = dataSourceConfig.asyncExecutor();
+    if (asyncExecutor != null && asyncExecutor.enabled()) {
+      conflicts.add("it has an @AsyncExecutor");
+    }
+    final ConcurrencyLimit concurrencyLimit = dataSourceConfig.concurrencyLimit();
+    if (concurrencyLimit != null && concurrencyLimit.enabled()) {
+      conflicts.add("it has a @ConcurrencyLimit");
+    }
+    final CircuitBreaker circuitBreaker = dataSourceConfig.circuitBreaker();
+    if (circuitBreaker != null && circuitBreaker.enabled()) {
+      conflicts.add("it has a @CircuitBreaker");
+    }
+    final ReadYourWrites readYourWrites = dataSourceConfig.readYourWrites();
+    if (readYourWrites != null && readYourWrites.enabled()) {
+      conflicts.add("it has @ReadYourWrites stickiness");
+    }
+    if (conflicts.isEmpty()) {
+      return;
+    }
+
+    final String errorMessage = "Data source " + dataSourceName + " can not be JDBC only, as "
+        + String.join(" and ", conflicts) + ". Please remove jdbcOnly or these settings.";
+    messager.printMessage(Kind.ERROR, errorMessage);
+    throw new IllegalArgumentException(errorMessage);
+  }
+
+  /**
+   * Validates that every numeric attribute of the {@link PerformanceProfile} of a data source is
+   * either positive or {@link PerformanceProfile#UNSET}.
+   *
+   * @param dataSourceName     the name of the data source the profile belongs to
+   * @param performanceProfile the {@link PerformanceProfile} to validate
+   * @throws IllegalArgumentException if any numeric attribute is invalid
+   */
+  private void validatePerformanceProfile(
+      @Nonnull String dataSourceName,
+      @Nonnull PerformanceProfile performanceProfile
+  ) {
+    final Map<String, Integer> numericAttributes = Map.of(
+        "jdbcBatchSize", performanceProfile.jdbcBatchSize(),
+        "jdbcFetchSize", performanceProfile.jdbcFetchSize(),
+        "defaultBatchFetchSize", performanceProfile.defaultBatchFetchSize(),
+        "queryPlanCacheMaxSize", performanceProfile.queryPlanCacheMaxSize()
+    );
+    this.validatePositiveOrUnset(dataSourceName, "@PerformanceProfile", numericAttributes);
+  }
+
+  /**
+   * Validates the enabled {@link ConcurrencyLimit} of a data source.
+   *
+   * @param dataSourceName   the name of the data source the limit belongs to
+   * @param concurrencyLimit the {@link ConcurrencyLimit} to validate
+   * @param isPrimaryConfig  whether the data source is the primary data source
+   * @throws IllegalArgumentException if any attribute is invalid, or the primary data source
+   *                                  diverts to itself
+   */
+  private void validateConcurrencyLimit(
+      @Nonnull String dataSourceName,
+      @Nonnull ConcurrencyLimit concurrencyLimit,
+      boolean isPrimaryConfig
+  ) {
+    this.validatePositiveOrUnset(dataSourceName, "@ConcurrencyLimit", Map.of(
+        "minLimit", concurrencyLimit.minLimit(),
+        "maxLimit", concurrencyLimit.maxLimit(),
+        "latencyThresholdMillis", concurrencyLimit.latencyThresholdMillis()
+    ));
+    final String errorMessage;
+    if (concurrencyLimit.minLimit() == PerformanceProfile.UNSET) {
+      errorMessage = "No @ConcurrencyLimit.minLimit is provided for data source " + dataSourceName
+          + ". Please provide a positive value.";
+    } else if (concurrencyLimit.maxLimit() != PerformanceProfile.UNSET
+        && concurrencyLimit.maxLimit() < concurrencyLimit.minLimit()) {
+      errorMessage = "Invalid @ConcurrencyLimit.maxLimit " + concurrencyLimit.maxLimit()
+          + " for data source " + dataSourceName + ". Please provide a value no lower than the"
+          + " minLimit " + concurrencyLimit.minLimit() + ".";
+    } else if (concurrencyLimit.backoffPercent() < 1 || concurrencyLimit.backoffPercent() > 99) {
+      errorMessage = "Invalid @ConcurrencyLimit.backoffPercent " + concurrencyLimit.backoffPercent()
+          + " for data source " + dataSourceName + ". Please provide a value between 1 and 99.";
+    } else if (isPrimaryConfig
+        && concurrencyLimit.overloadAction() == OverloadAction.DIVERT_TO_PRIMARY) {
+      errorMessage = "The primary data source " + dataSourceName + " can not divert to itself"
+          + " with @ConcurrencyLimit.overloadAction DIVERT_TO_PRIMARY. Please use FAIL_FAST.";
+    } else {
+      return;
+    }
+
+    messager.printMessage(Kind.ERROR, errorMessage);
+    throw new IllegalArgumentException(errorMessage);
+  }
+
+  /**
+   * Validates the enabled {@link CircuitBreaker} of a data source.
+   *
+   * @param dataSourceName the name of the data source the circuit breaker belongs to
+   * @param circuitBreaker the {@link CircuitBreaker} to validate
+   * @param annotation     the {@link EnableMultiDataSourceConfig} annotation declaring the data
+   *                       sources which can be failed over to
+   * @throws IllegalArgumentException if any attribute is invalid, or the failover data source is
+   *                                  unknown or the data source itself
+   */
+  private void validateCircuitBreaker(
+      @Nonnull String dataSourceName,
+      @Nonnull CircuitBreaker circuitBreaker,
+      @Nonnull EnableMultiDataSourceConfig annotation
+  ) {
+    final Map<String, Integer> numericAttributes = Map.of(
+        "failureThreshold", circuitBreaker.failureThreshold(),
+        "openDurationMillis", circuitBreaker.openDurationMillis(),
+        "halfOpenProbes", circuitBreaker.halfOpenProbes()
+    );
+    for (final Map.Entry<String, Integer> attribute : numericAttributes.entrySet()) {
+      if (attribute.getValue() <= 0) {
+        final String errorMessage = "Invalid @CircuitBreaker." + attribute.getKey() + " "
+            + attribute.getValue() + " for data source " + dataSourceName + ". Please provide a"
+            + " positive value.";
+        messager.printMessage(Kind.ERROR, errorMessage);
+        throw new IllegalArgumentException(errorMessage);
+      }
+    }
+
+    final String failoverDataSourceName = circuitBreaker.failoverDataSourceName();
+    if (!StringUtils.hasText(failoverDataSourceName)) {
+      return;
+    }
+    final boolean isKnownFailoverDataSource = Stream
+        .concat(
+            Stream.of(annotation.primaryDataSourceConfig()),
+            Stream.of(annotation.secondaryDataSourceConfigs())
+        )
+        .map(DataSourceConfig::dataSourceName)
+        .anyMatch(failoverDataSourceName::equals);
+    if (!isKnownFailoverDataSource || failoverDataSourceName.equals(dataSourceName)) {
+      final String errorMessage = "Invalid @CircuitBreaker.failoverDataSourceName "
+          + failoverDataSourceName + " for data source " + dataSourceName + ". Please provide the"
+          + " name of another data source declared in @EnableMultiDataSourceConfig.";
+      messager.printMessage(Kind.ERROR, errorMessage);
+      throw new IllegalArgumentException(errorMessage);
+    }
+  }
+
+  /**
+   * Validates the enabled {@link ReadYourWrites} of a data source.
+   *
+   * @param dataSourceName  the name of the data source the stickiness belongs to
+   * @param readYourWrites  the {@link ReadYourWrites} to validate
+   * @param isPrimaryConfig whether the data source is the primary data source
+   * @throws IllegalArgumentException if the window is not positive, or the data source is the
+   *                                  primary data source
+   */
+  private void validateReadYourWrites(
+      @Nonnull String dataSourceName,
+      @Nonnull ReadYourWrites readYourWrites,
+      boolean isPrimaryConfig
+  ) {
+    final String errorMessage;
+    if (readYourWrites.windowMillis() <= 0) {
+      errorMessage = "Invalid @ReadYourWrites.windowMillis " + readYourWrites.windowMillis()
+          + " for data source " + dataSourceName + ". Please provide a positive value.";
+    } else if (isPrimaryConfig) {
+      errorMessage = "The primary data source " + dataSourceName + " can not stick to itself with"
+          + " @ReadYourWrites. Please enable it on the secondary data sources.";
+    } else {
+      return;
+    }
+
+    messager.printMessage(Kind.ERROR, errorMessage);
+    throw new IllegalArgumentException(errorMessage);
+  }
+
+  /**
+   * Validates that every given numeric annotation attribute of a data source is either positive or
+   * {@link PerformanceProfile#UNSET}.
+   *
+   * @param dataSourceName    the name of the data source the attributes belong to
+   * @param annotationName    the name of the annotation the attributes belong to
+   * @param numericAttributes the names of the attributes mapped to their values
+   * @throws IllegalArgumentException if any numeric attribute is invalid
+   */
+  private void validatePositiveOrUnset(
+      @Nonnull String dataSourceName,
+      @Nonnull String annotationName,
+      @Nonnull Map<String, Integer> numericAttributes
+  ) {
+    for (final Map.Entry<String, Integer> attribute : numericAttributes.entrySet()) {
+      final int value = attribute.getValue();
+      if (value > 0 || value == PerformanceProfile.UNSET) {
+        continue;
+      }
+
+      final String errorMessage = "Invalid " + annotationName + "." + attribute.getKey() + " "
+          + value + " for data source " + dataSourceName + ". Please provide a positive value or"
+          + " leave it unset.";
+      messager.printMessage(Kind.ERROR, errorMessage);
+      throw new IllegalArgumentException(errorMessage);
+    }
+  }
+
+  /**
+   * Validate that the timeouts of a {@link DataSourceConfig} are at least one second, or left at
+   * {@link PerformanceProfile#UNSET}.
+   * <p>
+   * Hibernate applies the timeouts in whole seconds, rounded down, so that a timeout below one
+   * second would silently become no timeout at all.
+   *
+   * @param dataSourceName    the name of the data source, for the error message
+   * @param timeoutAttributes the timeout attribute names mapped to their values in milliseconds
+   * @throws IllegalArgumentException if a timeout is set below one second
+   */
+  private void validateTimeouts(
+      @Nonnull String dataSourceName,
+      @Nonnull Map<String, Integer> timeoutAttributes
+  ) {
+    for (final Map.Entry<String, Integer> attribute : timeoutAttributes.entrySet()) {
+      final int value = attribute.getValue();
+      if (value >= MIN_TIMEOUT_MILLIS || value == PerformanceProfile.UNSET) {
+        continue;
+      }
+
+      final String errorMessage = "Invalid @DataSourceConfig." + attribute.getKey() + " " + value
+          + " for data source " + dataSourceName + ". Hibernate applies timeouts in whole"
+          + " seconds, so please provide at least " + MIN_TIMEOUT_MILLIS + " milliseconds or leave"
+          + " it unset.";
+      messager.printMessage(Kind.ERROR, errorMessage);
+      throw new IllegalArgumentException(errorMessage);
+    }
+  }
+
   /**
    * Use a data source name to generate a PascalCase data source config class name.
    *
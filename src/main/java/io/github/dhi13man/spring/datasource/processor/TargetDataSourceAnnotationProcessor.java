@@ -3,8 +3,20 @@ package io.github.dhi13man.spring.datasource.processor;
 import static io.github.dhi13man.spring.datasource.constants.MultiDataSourceErrorConstants.NO_REPOSITORY_METHOD_ANNOTATED_WITH_TARGET_SECONDARY_DATA_SOURCE;
 
 import com.google.auto.service.AutoService;
+import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.TypeSpec;
+import io.github.dhi13man.spring.datasource.annotations.BatchedFindById;
+import io.github.dhi13man.spring.datasource.annotations.CachedRead;
+import io.github.dhi13man.spring.datasource.annotations.CoalescedRead;
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig;
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.DataSourceConfig;
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.RoutingMode;
+import io.github.dhi13man.spring.datasource.annotations.HedgedRead;
+import io.github.dhi13man.spring.datasource.annotations.KeysetPaged;
+import io.github.dhi13man.spring.datasource.annotations.ScatterGather;
+import io.github.dhi13man.spring.datasource.annotations.ScatterGather.Merge;
+import io.github.dhi13man.spring.datasource.annotations.ShardKey;
 import io.github.dhi13man.spring.datasource.annotations.TargetSecondaryDataSource;
 import io.github.dhi13man.spring.datasource.annotations.TargetSecondaryDataSources;
 import io.github.dhi13man.spring.datasource.generators.MultiDataSourceConfigGenerator;
@@ -12,14 +24,27 @@ import io.github.dhi13man.spring.datasource.generators.MultiDataSourceRepository
 import io.github.dhi13man.spring.datasource.utils.MultiDataSourceCommonStringUtils;
 import io.github.dhi13man.spring.datasource.utils.MultiDataSourceGeneratorUtils;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.stream.BaseStream;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.Filer;
 import javax.annotation.processing.Messager;
@@ -27,12 +52,21 @@ import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.Processor;
 import javax.annotation.processing.RoundEnvironment;
 import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 import javax.tools.Diagnostic.Kind;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Query;
 
 /**
  * Annotation processor to  create copies of the repositories in relevant packages for all the
@@ -45,6 +79,47 @@ public class TargetDataSourceAnnotationProcessor extends AbstractProcessor {
 
   private static final String ERROR_WHILE_WRITING_THE_CLASS = "Error while writing the class: ";
 
+  private static final String FIND_BY_ID_METHOD_NAME = "findById";
+
+  private static final String PAGE_CLASS_NAME = Page.class.getCanonicalName();
+
+  private static final String SLICE_CLASS_NAME = Slice.class.getCanonicalName();
+
+  private static final String PAGEABLE_CLASS_NAME = Pageable.class.getCanonicalName();
+
+  /**
+   * Canonical names of the return types whose results can neither be shared by several calls nor
+   * handed over between threads: asynchronous results and single-use cursors.
+   */
+  private static final List<String> NON_REUSABLE_RESULT_CLASS_NAMES = List.of(
+      Future.class.getCanonicalName(),
+      CompletionStage.class.getCanonicalName(),
+      BaseStream.class.getCanonicalName(),
+      Iterator.class.getCanonicalName()
+  );
+
+  /**
+   * Canonical names of the classes, besides {@link CharSequence}s and enums, whose string form
+   * is a stable shard key.
+   */
+  private static final List<String> STABLE_SHARD_KEY_CLASS_NAMES = Stream.of(
+      Boolean.class,
+      Byte.class,
+      Short.class,
+      Integer.class,
+      Long.class,
+      Character.class,
+      Float.class,
+      Double.class,
+      UUID.class
+  ).map(Class::getCanonicalName).collect(Collectors.toList());
+
+  private static final Pattern DERIVED_QUERY_METHOD_NAME_PATTERN = Pattern
+      .compile("^(find|read|get|query|search|stream)\\p{Alnum}*$");
+
+  private static final Pattern OR_CRITERIA_OR_ORDER_BY_PATTERN = Pattern
+      .compile("By.*(Or\\p{Lu}|OrderBy)");
+
   private Filer filer;
 
   private Messager messager;
@@ -128,6 +203,7 @@ public class TargetDataSourceAnnotationProcessor extends AbstractProcessor {
         : new MultiDataSourceRepositoryGenerator(
             this.messager,
             processingEnv.getTypeUtils(),
+            processingEnv.getElementUtils(),
             this.commonStringUtils,
             this.generatorUtils
         );
@@ -146,6 +222,20 @@ public class TargetDataSourceAnnotationProcessor extends AbstractProcessor {
    * 3. Creates copies of the repositories with only the annotated methods in the relevant packages,
    * for package segregated data source injection which is required for multiple data source support
    * in Spring.
+   * <p>
+   * 4. Creates a component for each repository with {@link HedgedRead} annotated methods, hedging
+   * them across the copies of the repository.
+   * <p>
+   * 5. Creates a component for each repository with {@link ShardKey} methods, running them on the
+   * copy of the repository for the shard of their key.
+   * <p>
+   * 6. Creates a component for each repository with {@link ScatterGather} annotated methods,
+   * running them on the copies of the repository for all their data sources at the same time.
+   * <p>
+   * In {@link RoutingMode#RUNTIME_ROUTING}, no copies are created, the data sources of the
+   * annotated methods are only validated against the configured secondary data sources, and the
+   * components for {@link ShardKey} and {@link ScatterGather} methods route the original repository
+   * to the data sources instead.
    *
    * @param annotations the annotation types requested to be processed
    * @param roundEnv    environment for information about the current and prior round
@@ -153,8 +243,28 @@ public class TargetDataSourceAnnotationProcessor extends AbstractProcessor {
    */
   @Override
   public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    final Map<ExecutableElement, List<String>> hedgedReadMethodToDataSourcesMap = this
+        .createHedgedReadMethodToDataSourcesMap(roundEnv);
+    this.validateCoalescedReadMethods(roundEnv);
+    this.validateBatchedFindByIdMethods(roundEnv);
+    this.validateCachedReadMethods(roundEnv);
+    this.validateKeysetPagedMethods(roundEnv);
+    final Map<ExecutableElement, Map.Entry<String, List<String>>> shardedMethodToShardSetMap = this
+        .createShardedMethodToShardSetMap(roundEnv);
+    final Map<ExecutableElement, List<String>> scatterGatherMethodToDataSourcesMap = this
+        .createScatterGatherMethodToDataSourcesMap(roundEnv);
     final Map<String, Set<ExecutableElement>> dataSourceToTargetRepositoryMethodMap = this
         .createDataSourceToTargetRepositoryMethodMap(roundEnv);
+    shardedMethodToShardSetMap.forEach((method, shardSet) -> shardSet.getValue().forEach(
+        shardName -> dataSourceToTargetRepositoryMethodMap
+            .computeIfAbsent(shardName, ignored -> new HashSet<>())
+            .add(method)
+    ));
+    scatterGatherMethodToDataSourcesMap.forEach((method, dataSourceNames) -> dataSourceNames
+        .forEach(dataSourceName -> dataSourceToTargetRepositoryMethodMap
+            .computeIfAbsent(dataSourceName, ignored -> new HashSet<>())
+            .add(method)
+        ));
     if (dataSourceToTargetRepositoryMethodMap.isEmpty()) {
       messager.printMessage(
           Kind.NOTE,
@@ -162,22 +272,56 @@ public class TargetDataSourceAnnotationProcessor extends AbstractProcessor {
       );
       return false;
     }
+    final Map<String, DataSourceConfig> dataSourceToConfigMap = this
+        .createDataSourceToConfigMap(roundEnv);
+    if (this.isRuntimeRouting(roundEnv)) {
+      this.validateRuntimeRoutingDataSources(
+          dataSourceToTargetRepositoryMethodMap.keySet(),
+          dataSourceToConfigMap.keySet()
+      );
+      this.groupByRepository(shardedMethodToShardSetMap)
+          .forEach((typeElement, methods) -> this.generateShards(typeElement, methods, true));
+      this.groupByRepository(scatterGatherMethodToDataSourcesMap).forEach(
+          (typeElement, methods) -> this.generateScatterGather(typeElement, methods, true)
+      );
+      return false;
+    }
 
     // Process the target executable elements to produce the alternate data source config classes
+    final boolean precomputeDerivedQueries = this.isPrecomputingDerivedQueries(roundEnv);
     for (final var executableElementsEntry : dataSourceToTargetRepositoryMethodMap.entrySet()) {
       // Get the relevant details for this data source
       final String dataSourceName = executableElementsEntry.getKey();
       final Set<ExecutableElement> executableElements = executableElementsEntry.getValue();
+      final DataSourceConfig dataSourceConfig = dataSourceToConfigMap.get(dataSourceName);
 
       // Create map of type elements (repositories) to executable elements (methods) for this source
       final Map<TypeElement, Set<ExecutableElement>> repositoryToMethodMap = this
           .createTypeElementToExecutableElementsMap(executableElements);
-      repositoryToMethodMap.forEach((k, v) -> this.generateRepositories(k, v, dataSourceName));
+      repositoryToMethodMap.forEach((k, v) -> this.generateRepositories(
+          k,
+          v,
+          dataSourceName,
+          dataSourceConfig,
+          precomputeDerivedQueries
+      ));
 
       final String generatedInfoString = executableElements.size()
           + " Repositories for data source " + dataSourceName + " generated.";
       messager.printMessage(Kind.NOTE, generatedInfoString);
     }
+
+    // Hedge the @HedgedRead annotated methods across the copies of their repositories
+    this.groupByRepository(hedgedReadMethodToDataSourcesMap).forEach(this::generateHedgedReads);
+
+    // Run the @ShardKey methods on the copies of their repositories for the shards of their keys
+    this.groupByRepository(shardedMethodToShardSetMap)
+        .forEach((typeElement, methods) -> this.generateShards(typeElement, methods, false));
+
+    // Run the @ScatterGather annotated methods on the copies of their repositories at the same time
+    this.groupByRepository(scatterGatherMethodToDataSourcesMap).forEach(
+        (typeElement, methods) -> this.generateScatterGather(typeElement, methods, false)
+    );
     // As per sonatype, return false to indicate that the annotation processor is not claiming
     // the annotations: https://errorprone.info/bugpattern/DoNotClaimAnnotations
     return false;
@@ -187,7 +331,14 @@ public class TargetDataSourceAnnotationProcessor extends AbstractProcessor {
   public Set<String> getSupportedAnnotationTypes() {
     return Set.of(
         TargetSecondaryDataSource.class.getCanonicalName(),
-        TargetSecondaryDataSources.class.getCanonicalName()
+        TargetSecondaryDataSources.class.getCanonicalName(),
+        HedgedRead.class.getCanonicalName(),
+        CoalescedRead.class.getCanonicalName(),
+        BatchedFindById.class.getCanonicalName(),
+        CachedRead.class.getCanonicalName(),
+        KeysetPaged.class.getCanonicalName(),
+        ShardKey.class.getCanonicalName(),
+        ScatterGather.class.getCanonicalName()
     );
   }
 
@@ -199,30 +350,702 @@ public class TargetDataSourceAnnotationProcessor extends AbstractProcessor {
   /**
    * Generate the repositories for the given type element and annotated methods.
    * <p>
-   * Creates a copy of the repository in the relevant package with only the annotated methods.
+   * Creates a copy of the repository in the relevant package with only the annotated methods, or
+   * a JDBC repository class implementing them if the target data source is
+   * {@link DataSourceConfig#jdbcOnly()}.
    *
-   * @param typeElement      the type element for the source repository
-   * @param annotatedMethods the set of annotated methods for the source repository that need to be
-   *                         copied for the target data source
-   * @param dataSourceName   the name of the target data source to generate the repository for
+   * @param typeElement              the type element for the source repository
+   * @param annotatedMethods         the set of annotated methods for the source repository that
+   *                                 need to be copied for the target data source
+   * @param dataSourceName           the name of the target data source to generate the repository
+   *                                 for
+   * @param dataSourceConfig         the {@link DataSourceConfig} of the target data source, or
+   *                                 null if it is not declared in this compilation unit
+   * @param precomputeDerivedQueries whether the JPQL of the derived query methods is derived at
+   *                                 compile time
    */
   private void generateRepositories(
       @Nonnull TypeElement typeElement,
       @Nonnull Set<ExecutableElement> annotatedMethods,
-      @Nonnull String dataSourceName
+      @Nonnull String dataSourceName,
+      @Nullable DataSourceConfig dataSourceConfig,
+      boolean precomputeDerivedQueries
   ) {
     // Generate the repository type element with only the annotated methods as allowed
-    final TypeSpec copiedTypeSpec = repositoryGenerator.generateRepositoryTypeElementWithAnnotatedMethods(
-        typeElement,
-        annotatedMethods,
-        dataSourceName
-    );
+    final TypeSpec copiedTypeSpec = dataSourceConfig != null && dataSourceConfig.jdbcOnly()
+        ? repositoryGenerator
+        .generateJdbcRepositoryTypeElement(typeElement, annotatedMethods, dataSourceName)
+        : repositoryGenerator.generateRepositoryTypeElementWithAnnotatedMethods(
+            typeElement,
+            annotatedMethods,
+            dataSourceName,
+            dataSourceConfig,
+            precomputeDerivedQueries
+        );
     final PackageElement elementPackage = elementUtils.getPackageOf(typeElement);
     final String repositoryDataSourceSubPackage = this
         .generateNonPrimaryDataSourceRepositoryPackage(elementPackage, dataSourceName);
     writeTypeSpecToPackage(repositoryDataSourceSubPackage, copiedTypeSpec);
   }
 
+  /**
+   * Generate the component hedging the {@link HedgedRead} annotated methods of the given
+   * repository across its copies.
+   *
+   * @param typeElement            the type element for the source repository
+   * @param methodToDataSourcesMap the {@link HedgedRead} annotated methods of the repository,
+   *                               mapped to the names of the data sources they are hedged across
+   * @throws IllegalArgumentException if the repository has type parameters
+   */
+  private void generateHedgedReads(
+      @Nonnull TypeElement typeElement,
+      @Nonnull Map<ExecutableElement, List<String>> methodToDataSourcesMap
+  ) {
+    if (!typeElement.getTypeParameters().isEmpty()) {
+      final String errorMessage = "Repository " + typeElement.getQualifiedName()
+          + " has @HedgedRead methods, but also type parameters. Only repositories without type"
+          + " parameters can be hedged.";
+      messager.printMessage(Kind.ERROR, errorMessage);
+      throw new IllegalArgumentException(errorMessage);
+    }
+
+    final PackageElement elementPackage = elementUtils.getPackageOf(typeElement);
+    final Map<String, ClassName> dataSourceToRepositoryCopyClassName = new LinkedHashMap<>();
+    methodToDataSourcesMap.values().stream()
+        .flatMap(List::stream)
+        .forEach(dataSourceName -> dataSourceToRepositoryCopyClassName.put(
+            dataSourceName,
+            ClassName.get(
+                this.generateNonPrimaryDataSourceRepositoryPackage(elementPackage, dataSourceName),
+                commonStringUtils.toPascalCase(dataSourceName) + typeElement.getSimpleName()
+            )
+        ));
+    final TypeSpec hedgedReadsTypeSpec = repositoryGenerator.generateHedgedReadsTypeElement(
+        typeElement,
+        methodToDataSourcesMap,
+        dataSourceToRepositoryCopyClassName
+    );
+    writeTypeSpecToPackage(
+        elementPackage + GENERATED_REPOSITORIES_PACKAGE_SUFFIX,
+        hedgedReadsTypeSpec
+    );
+  }
+
+  /**
+   * Generate the component running the {@link ShardKey} methods of the given repository on the
+   * shards of their keys.
+   *
+   * @param typeElement         the type element for the source repository
+   * @param methodToShardSetMap the {@link ShardKey} methods of the repository, mapped to the name of
+   *                            their shard set and the names of its shards
+   * @param isRuntimeRouting    whether the original repository is routed to the shards at runtime,
+   *                            instead of calling its copies
+   * @throws IllegalArgumentException if the repository has type parameters
+   */
+  private void generateShards(
+      @Nonnull TypeElement typeElement,
+      @Nonnull Map<ExecutableElement, Map.Entry<String, List<String>>> methodToShardSetMap,
+      boolean isRuntimeRouting
+  ) {
+    if (!typeElement.getTypeParameters().isEmpty()) {
+      final String errorMessage = "Repository " + typeElement.getQualifiedName()
+          + " has @ShardKey methods, but also type parameters. Only repositories without type"
+          + " parameters can be sharded.";
+      messager.printMessage(Kind.ERROR, errorMessage);
+      throw new IllegalArgumentException(errorMessage);
+    }
+
+    final PackageElement elementPackage = elementUtils.getPackageOf(typeElement);
+    final Map<String, ClassName> dataSourceToRepositoryCopyClassName = new LinkedHashMap<>();
+    methodToShardSetMap.values().stream()
+        .flatMap(shardSet -> shardSet.getValue().stream())
+        .forEach(dataSourceName -> dataSourceToRepositoryCopyClassName.put(
+            dataSourceName,
+            ClassName.get(
+                this.generateNonPrimaryDataSourceRepositoryPackage(elementPackage, dataSourceName),
+                commonStringUtils.toPascalCase(dataSourceName) + typeElement.getSimpleName()
+            )
+        ));
+    final TypeSpec shardsTypeSpec = repositoryGenerator.generateShardsTypeElement(
+        typeElement,
+        methodToShardSetMap,
+        isRuntimeRouting ? null : dataSourceToRepositoryCopyClassName
+    );
+    writeTypeSpecToPackage(elementPackage + GENERATED_REPOSITORIES_PACKAGE_SUFFIX, shardsTypeSpec);
+  }
+
+  /**
+   * Generate the component running the {@link ScatterGather} annotated methods of the given
+   * repository on all their data sources at the same time.
+   *
+   * @param typeElement            the type element for the source repository
+   * @param methodToDataSourcesMap the {@link ScatterGather} annotated methods of the repository,
+   *                               mapped to the names of the data sources they are run on
+   * @param isRuntimeRouting       whether the original repository is routed to the data sources
+   *                               at runtime, instead of calling its copies
+   * @throws IllegalArgumentException if the repository has type parameters
+   */
+  private void generateScatterGather(
+      @Nonnull TypeElement typeElement,
+      @Nonnull Map<ExecutableElement, List<String>> methodToDataSourcesMap,
+      boolean isRuntimeRouting
+  ) {
+    if (!typeElement.getTypeParameters().isEmpty()) {
+      final String errorMessage = "Repository " + typeElement.getQualifiedName()
+          + " has @ScatterGather methods, but also type parameters. Only repositories without"
+          + " type parameters can be scattered.";
+      messager.printMessage(Kind.ERROR, errorMessage);
+      throw new IllegalArgumentException(errorMessage);
+    }
+
+    final PackageElement elementPackage = elementUtils.getPackageOf(typeElement);
+    final Map<String, ClassName> dataSourceToRepositoryCopyClassName = new LinkedHashMap<>();
+    methodToDataSourcesMap.values().stream()
+        .flatMap(List::stream)
+        .forEach(dataSourceName -> dataSourceToRepositoryCopyClassName.put(
+            dataSourceName,
+            ClassName.get(
+                this.generateNonPrimaryDataSourceRepositoryPackage(elementPackage, dataSourceName),
+                commonStringUtils.toPascalCase(dataSourceName) + typeElement.getSimpleName()
+            )
+        ));
+    final TypeSpec scatterGatherTypeSpec = repositoryGenerator.generateScatterGatherTypeElement(
+        typeElement,
+        methodToDataSourcesMap,
+        isRuntimeRouting ? null : dataSourceToRepositoryCopyClassName
+    );
+    writeTypeSpecToPackage(
+        elementPackage + GENERATED_REPOSITORIES_PACKAGE_SUFFIX,
+        scatterGatherTypeSpec
+    );
+  }
+
+  /**
+   * Groups a map of repository methods by the repositories declaring them, keeping their order.
+   *
+   * @param methodMap the map of the repository methods
+   * @param <V>       the type of the values of the map
+   * @return map of the repositories to the map of their methods
+   */
+  private @Nonnull <V> Map<TypeElement, Map<ExecutableElement, V>> groupByRepository(
+      @Nonnull Map<ExecutableElement, V> methodMap
+  ) {
+    return methodMap.entrySet().stream()
+        .collect(
+            Collectors.groupingBy(
+                entry -> (TypeElement) entry.getKey().getEnclosingElement(),
+                LinkedHashMap::new,
+                Collectors.toMap(
+                    Map.Entry::getKey,
+                    Map.Entry::getValue,
+                    (a, b) -> a,
+                    LinkedHashMap::new
+                )
+            )
+        );
+  }
+
+  /**
+   * Creates a map of the repository methods with a {@link ShardKey} parameter to the name of their
+   * shard set and the names of the secondary data sources which are its shards, in declaration
+   * order.
+   *
+   * @param roundEnv environment for information about the current and prior round
+   * @return map of the sharded methods to the name of their shard set and the names of its shards
+   * @throws IllegalArgumentException if any {@link ShardKey} method can not be sharded
+   */
+  private @Nonnull Map<ExecutableElement, Map.Entry<String, List<String>>>
+  createShardedMethodToShardSetMap(@Nonnull RoundEnvironment roundEnv) {
+    final Map<ExecutableElement, Map.Entry<String, List<String>>> shardedMethodToShardSetMap =
+        new LinkedHashMap<>();
+    final List<ExecutableElement> shardedMethods = roundEnv
+        .getElementsAnnotatedWith(ShardKey.class)
+        .stream()
+        .filter(element -> element instanceof VariableElement)
+        .map(Element::getEnclosingElement)
+        .filter(element -> element instanceof ExecutableElement)
+        .map(ExecutableElement.class::cast)
+        .distinct()
+        .collect(Collectors.toList());
+    if (shardedMethods.isEmpty()) {
+      return shardedMethodToShardSetMap;
+    }
+
+    final Map<String, List<String>> shardSetToDataSourcesMap = this
+        .createShardSetToDataSourcesMap(roundEnv);
+    for (final ExecutableElement method : shardedMethods) {
+      final List<VariableElement> shardKeyParameters = method.getParameters().stream()
+          .filter(parameter -> parameter.getAnnotation(ShardKey.class) != null)
+          .collect(Collectors.toList());
+      final String methodName = method.getEnclosingElement().getSimpleName() + "."
+          + method.getSimpleName();
+      final TypeMirror shardKeyType = shardKeyParameters.get(0).asType();
+      final String shardSetName = shardKeyParameters.get(0).getAnnotation(ShardKey.class).value();
+      final String errorMessage;
+      if (shardKeyParameters.size() > 1) {
+        errorMessage = "Method " + methodName + " has " + shardKeyParameters.size() + " @ShardKey"
+            + " parameters. Please mark only one parameter as its shard key.";
+      } else if (!shardSetToDataSourcesMap.containsKey(shardSetName)) {
+        errorMessage = "Shard set " + shardSetName + " of @ShardKey method " + methodName
+            + " is not the shardSet of any secondary data source in the"
+            + " @EnableMultiDataSourceConfig of this module. Please declare its shards.";
+      } else if (method.getAnnotationsByType(TargetSecondaryDataSource.class).length > 0) {
+        errorMessage = "@ShardKey method " + methodName + " is also annotated with"
+            + " @TargetSecondaryDataSource. Please only run it on its shards.";
+      } else if (!this.isStableShardKeyType(shardKeyType)) {
+        errorMessage = "@ShardKey parameter of method " + methodName + " is a " + shardKeyType
+            + ", whose string form may not be the same on every call and instance. Please make"
+            + " the shard key a primitive, a boxed primitive, a CharSequence, a UUID or an enum.";
+      } else {
+        shardedMethodToShardSetMap.put(
+            method,
+            Map.entry(shardSetName, shardSetToDataSourcesMap.get(shardSetName))
+        );
+        continue;
+      }
+
+      messager.printMessage(Kind.ERROR, errorMessage);
+      throw new IllegalArgumentException(errorMessage);
+    }
+    return shardedMethodToShardSetMap;
+  }
+
+  /**
+   * Whether the values of a type can be shard keys: their string form, which the
+   * {@code MultiDataSourceShardRouter} hashes, depends only on their value, as for primitives and
+   * their boxes, {@link CharSequence}s, {@link UUID}s and enums.
+   *
+   * @param type the type of the {@link ShardKey} parameter
+   * @return whether the type can be a shard key type
+   */
+  private boolean isStableShardKeyType(@Nullable TypeMirror type) {
+    if (type == null) {
+      return false;
+    }
+    if (type.getKind().isPrimitive()) {
+      return true;
+    }
+
+    final Element typeElement = typeUtils.asElement(type);
+    return typeElement != null && typeElement.getKind() == ElementKind.ENUM
+        || STABLE_SHARD_KEY_CLASS_NAMES.stream()
+        .anyMatch(className -> this.isErasureOf(type, className))
+        || this.isAssignableToErasureOf(type, CharSequence.class.getCanonicalName());
+  }
+
+  /**
+   * Creates a map of the shard sets declared in the {@link EnableMultiDataSourceConfig} annotation
+   * to the names of the secondary data sources which are their shards, in declaration order.
+   *
+   * @param roundEnv environment for information about the current and prior round
+   * @return map of the names of the shard sets to the names of their shards
+   */
+  private @Nonnull Map<String, List<String>> createShardSetToDataSourcesMap(
+      @Nonnull RoundEnvironment roundEnv
+  ) {
+    final Map<String, List<String>> shardSetToDataSourcesMap = new LinkedHashMap<>();
+    roundEnv.getElementsAnnotatedWith(EnableMultiDataSourceConfig.class).stream()
+        .map(element -> element.getAnnotation(EnableMultiDataSourceConfig.class))
+        .flatMap(annotation -> Arrays.stream(annotation.secondaryDataSourceConfigs()))
+        .filter(config -> config.shardSet() != null && !config.shardSet().isEmpty())
+        .forEach(config -> shardSetToDataSourcesMap
+            .computeIfAbsent(config.shardSet(), ignored -> new ArrayList<>())
+            .add(config.dataSourceName()));
+    return shardSetToDataSourcesMap;
+  }
+
+  /**
+   * Creates a map of the {@link ScatterGather} annotated methods to the names of the data sources
+   * they are run on: the shards of their shard set, or else the distinct data sources of their
+   * {@link TargetSecondaryDataSource} annotations, in declaration order.
+   *
+   * @param roundEnv environment for information about the current and prior round
+   * @return map of the {@link ScatterGather} annotated methods to the names of their data sources
+   * @throws IllegalArgumentException if any {@link ScatterGather} annotated method can not be run
+   *                                  on all its data sources
+   */
+  private @Nonnull Map<ExecutableElement, List<String>> createScatterGatherMethodToDataSourcesMap(
+      @Nonnull RoundEnvironment roundEnv
+  ) {
+    final Map<ExecutableElement, List<String>> scatterGatherMethodToDataSourcesMap =
+        new LinkedHashMap<>();
+    final List<ExecutableElement> annotatedElements = roundEnv
+        .getElementsAnnotatedWith(ScatterGather.class)
+        .stream()
+        .filter(element -> element instanceof ExecutableElement)
+        .map(ExecutableElement.class::cast)
+        .collect(Collectors.toList());
+    if (annotatedElements.isEmpty()) {
+      return scatterGatherMethodToDataSourcesMap;
+    }
+
+    final Map<String, List<String>> shardSetToDataSourcesMap = this
+        .createShardSetToDataSourcesMap(roundEnv);
+    for (final ExecutableElement element : annotatedElements) {
+      final ScatterGather scatterGather = element.getAnnotation(ScatterGather.class);
+      final List<String> targetDataSourceNames = Arrays
+          .stream(element.getAnnotationsByType(TargetSecondaryDataSource.class))
+          .map(TargetSecondaryDataSource::value)
+          .distinct()
+          .collect(Collectors.toList());
+      final boolean isShardSet = !scatterGather.shardSet().isEmpty();
+      final List<String> dataSourceNames = isShardSet
+          ? shardSetToDataSourcesMap.getOrDefault(scatterGather.shardSet(), List.of())
+          : targetDataSourceNames;
+      this.validateScatterGatherMethod(element, dataSourceNames, isShardSet
+          && !targetDataSourceNames.isEmpty());
+      scatterGatherMethodToDataSourcesMap.put(element, dataSourceNames);
+    }
+    return scatterGatherMethodToDataSourcesMap;
+  }
+
+  /**
+   * Validates that a {@link ScatterGather} annotated method can be run on all its data sources:
+   * it has several data sources, no {@link ShardKey}, and a result its {@link Merge} can merge.
+   *
+   * @param method                    the {@link ScatterGather} annotated method
+   * @param dataSourceNames           the names of the data sources the method is run on
+   * @param isShardSetAndTargeted     whether the method has both a shard set and
+   *                                  {@link TargetSecondaryDataSource} annotations
+   * @throws IllegalArgumentException if the method can not be run on all its data sources
+   */
+  private void validateScatterGatherMethod(
+      @Nonnull ExecutableElement method,
+      @Nonnull List<String> dataSourceNames,
+      boolean isShardSetAndTargeted
+  ) {
+    final ScatterGather scatterGather = method.getAnnotation(ScatterGather.class);
+    final String methodName = method.getEnclosingElement().getSimpleName() + "."
+        + method.getSimpleName();
+    final String errorMessage;
+    if (isShardSetAndTargeted) {
+      errorMessage = "@ScatterGather method " + methodName + " has both a shardSet and"
+          + " @TargetSecondaryDataSource annotations. Please only provide one group of data"
+          + " sources.";
+    } else if (dataSourceNames.size() < 2) {
+      errorMessage = "@ScatterGather method " + methodName + " runs on " + dataSourceNames.size()
+          + " data sources. Please target at least 2 data sources with @TargetSecondaryDataSource,"
+          + " or a shardSet with at least 2 shards.";
+    } else if (method.getParameters().stream()
+        .anyMatch(parameter -> parameter.getAnnotation(ShardKey.class) != null)) {
+      errorMessage = "@ScatterGather method " + methodName + " has a @ShardKey parameter. Please"
+          + " either run it on all the shards or on the shard of its key.";
+    } else if (!this.isReturningReusableResult(method)) {
+      errorMessage = "@ScatterGather method " + methodName + " returns " + method.getReturnType()
+          + ". Only methods returning a reusable result synchronously can be scattered.";
+    } else if (!this.isMergeable(method.getReturnType(), scatterGather.merge())) {
+      errorMessage = "@ScatterGather method " + methodName + " returns " + method.getReturnType()
+          + ", which can not be merged with " + scatterGather.merge() + ". Please return a List"
+          + " or a Page to CONCATENATE or SORTED merge, and a number to SUM.";
+    } else {
+      return;
+    }
+
+    messager.printMessage(Kind.ERROR, errorMessage);
+    throw new IllegalArgumentException(errorMessage);
+  }
+
+  /**
+   * Whether results of a return type can be merged with a {@link Merge} strategy.
+   *
+   * @param returnType the return type of the method
+   * @param merge      the {@link Merge} strategy of the method
+   * @return whether the results can be merged
+   */
+  private boolean isMergeable(@Nonnull TypeMirror returnType, @Nonnull Merge merge) {
+    switch (merge) {
+      case CONCATENATE:
+      case SORTED:
+        return this.isErasureOf(returnType, List.class.getCanonicalName())
+            || this.isErasureOf(returnType, PAGE_CLASS_NAME);
+      case SUM:
+        return returnType.getKind().isPrimitive() && returnType.getKind() != TypeKind.BOOLEAN
+            && returnType.getKind() != TypeKind.CHAR
+            || this.isAssignableToErasureOf(returnType, Number.class.getCanonicalName());
+      default:
+        return true;
+    }
+  }
+
+  /**
+   * Whether the erasure of a type is the given class.
+   *
+   * @param type      the type
+   * @param className the canonical name of the class
+   * @return whether the erasure of the type is the class
+   */
+  private boolean isErasureOf(@Nonnull TypeMirror type, @Nonnull String className) {
+    final TypeElement typeElement = elementUtils.getTypeElement(className);
+    return typeElement != null
+        && typeUtils.isSameType(typeUtils.erasure(type), typeUtils.erasure(typeElement.asType()));
+  }
+
+  /**
+   * Whether a type is assignable to the erasure of the given class.
+   *
+   * @param type      the type
+   * @param className the canonical name of the class
+   * @return whether the type is assignable to the class
+   */
+  private boolean isAssignableToErasureOf(@Nonnull TypeMirror type, @Nonnull String className) {
+    final TypeElement typeElement = elementUtils.getTypeElement(className);
+    return typeElement != null
+        && typeUtils.isAssignable(type, typeUtils.erasure(typeElement.asType()));
+  }
+
+  /**
+   * Creates a map of the {@link HedgedRead} annotated methods to the names of the distinct data
+   * sources of their {@link TargetSecondaryDataSource} annotations, in declaration order, which
+   * they are hedged across.
+   *
+   * @param roundEnv environment for information about the current and prior round
+   * @return map of the {@link HedgedRead} annotated methods to the names of their data sources
+   * @throws IllegalArgumentException if any {@link HedgedRead} annotated method can not be hedged
+   */
+  private @Nonnull Map<ExecutableElement, List<String>> createHedgedReadMethodToDataSourcesMap(
+      @Nonnull RoundEnvironment roundEnv
+  ) {
+    final Map<ExecutableElement, List<String>> hedgedReadMethodToDataSourcesMap =
+        new LinkedHashMap<>();
+    final List<ExecutableElement> annotatedElements = roundEnv
+        .getElementsAnnotatedWith(HedgedRead.class)
+        .stream()
+        .filter(element -> element instanceof ExecutableElement)
+        .map(ExecutableElement.class::cast)
+        .collect(Collectors.toList());
+    for (final ExecutableElement element : annotatedElements) {
+      final List<String> dataSourceNames = Arrays
+          .stream(element.getAnnotationsByType(TargetSecondaryDataSource.class))
+          .map(TargetSecondaryDataSource::value)
+          .distinct()
+          .collect(Collectors.toList());
+      this.validateHedgedReadMethod(element, dataSourceNames);
+      hedgedReadMethodToDataSourcesMap.put(element, dataSourceNames);
+    }
+    return hedgedReadMethodToDataSourcesMap;
+  }
+
+  /**
+   * Validates that a {@link HedgedRead} annotated method can be hedged: it targets several data
+   * sources, returns a result synchronously, and its {@link HedgedRead} attributes are in range.
+   *
+   * @param method          the {@link HedgedRead} annotated method
+   * @param dataSourceNames the names of the distinct data sources targeted by the method
+   * @throws IllegalArgumentException if the method can not be hedged
+   */
+  private void validateHedgedReadMethod(
+      @Nonnull ExecutableElement method,
+      @Nonnull List<String> dataSourceNames
+  ) {
+    final HedgedRead hedgedRead = method.getAnnotation(HedgedRead.class);
+    final String methodName = method.getEnclosingElement().getSimpleName() + "."
+        + method.getSimpleName();
+    final String errorMessage;
+    if (dataSourceNames.size() < 2) {
+      errorMessage = "@HedgedRead method " + methodName + " targets " + dataSourceNames.size()
+          + " data sources. Please target at least 2 data sources with @TargetSecondaryDataSource"
+          + " to hedge it across.";
+    } else if (!this.isReturningReusableResult(method)) {
+      errorMessage = "@HedgedRead method " + methodName + " returns " + method.getReturnType()
+          + ". Only methods returning a reusable result synchronously can be hedged.";
+    } else if (hedgedRead.delayPercentile() < 1 || hedgedRead.delayPercentile() > 99) {
+      errorMessage = "@HedgedRead method " + methodName + " has a delayPercentile of "
+          + hedgedRead.delayPercentile() + ". Please keep it between 1 and 99.";
+    } else if (hedgedRead.minDelayMillis() < 0) {
+      errorMessage = "@HedgedRead method " + methodName + " has a negative minDelayMillis of "
+          + hedgedRead.minDelayMillis() + ".";
+    } else if (hedgedRead.maxExtraLoadPercent() < 1 || hedgedRead.maxExtraLoadPercent() > 100) {
+      errorMessage = "@HedgedRead method " + methodName + " has a maxExtraLoadPercent of "
+          + hedgedRead.maxExtraLoadPercent() + ". Please keep it between 1 and 100.";
+    } else {
+      return;
+    }
+
+    messager.printMessage(Kind.ERROR, errorMessage);
+    throw new IllegalArgumentException(errorMessage);
+  }
+
+  /**
+   * Validates that every {@link CoalescedRead} annotated method returns a result synchronously,
+   * which can be shared by the coalesced calls.
+   *
+   * @param roundEnv environment for information about the current and prior round
+   * @throws IllegalArgumentException if any {@link CoalescedRead} annotated method can not be
+   *                                  coalesced
+   */
+  private void validateCoalescedReadMethods(@Nonnull RoundEnvironment roundEnv) {
+    final List<ExecutableElement> annotatedElements = roundEnv
+        .getElementsAnnotatedWith(CoalescedRead.class)
+        .stream()
+        .filter(element -> element instanceof ExecutableElement)
+        .map(ExecutableElement.class::cast)
+        .collect(Collectors.toList());
+    for (final ExecutableElement element : annotatedElements) {
+      if (this.isReturningReusableResult(element)) {
+        continue;
+      }
+
+      final String errorMessage = "@CoalescedRead method " + element.getEnclosingElement()
+          .getSimpleName() + "." + element.getSimpleName() + " returns " + element.getReturnType()
+          + ". Only methods returning a reusable result synchronously can be coalesced.";
+      messager.printMessage(Kind.ERROR, errorMessage);
+      throw new IllegalArgumentException(errorMessage);
+    }
+  }
+
+  /**
+   * Validates that every {@link BatchedFindById} annotated method is a {@code findById} method
+   * returning an {@link Optional}, with a batch size and wait in range, and that the repositories
+   * are copied, as only the copies batch their lookups.
+   *
+   * @param roundEnv environment for information about the current and prior round
+   * @throws IllegalArgumentException if any {@link BatchedFindById} annotated method can not be
+   *                                  batched
+   */
+  private void validateBatchedFindByIdMethods(@Nonnull RoundEnvironment roundEnv) {
+    final List<ExecutableElement> annotatedElements = roundEnv
+        .getElementsAnnotatedWith(BatchedFindById.class)
+        .stream()
+        .filter(element -> element instanceof ExecutableElement)
+        .map(ExecutableElement.class::cast)
+        .collect(Collectors.toList());
+    for (final ExecutableElement element : annotatedElements) {
+      final BatchedFindById batchedFindById = element.getAnnotation(BatchedFindById.class);
+      final String methodName = element.getEnclosingElement().getSimpleName() + "."
+          + element.getSimpleName();
+      final TypeElement optionalElement = elementUtils
+          .getTypeElement(Optional.class.getCanonicalName());
+      final boolean isReturningOptional = optionalElement != null && typeUtils.isSameType(
+          typeUtils.erasure(element.getReturnType()),
+          typeUtils.erasure(optionalElement.asType())
+      );
+      final String errorMessage;
+      if (!FIND_BY_ID_METHOD_NAME.contentEquals(element.getSimpleName())
+          || element.getParameters().size() != 1 || !isReturningOptional) {
+        errorMessage = "@BatchedFindById method " + methodName + " is not a findById method"
+            + " returning an Optional. Only findById overrides can be batched.";
+      } else if (batchedFindById.maxBatchSize() < 2) {
+        errorMessage = "@BatchedFindById method " + methodName + " has a maxBatchSize of "
+            + batchedFindById.maxBatchSize() + ". Please make it at least 2.";
+      } else if (batchedFindById.maxWaitMillis() <= 0) {
+        errorMessage = "@BatchedFindById method " + methodName + " has a maxWaitMillis of "
+            + batchedFindById.maxWaitMillis() + ". Please make it positive.";
+      } else if (this.isRuntimeRouting(roundEnv)) {
+        errorMessage = "@BatchedFindById method " + methodName + " is not supported in "
+            + RoutingMode.RUNTIME_ROUTING + ", as only the repository copies batch their lookups.";
+      } else {
+        continue;
+      }
+
+      messager.printMessage(Kind.ERROR, errorMessage);
+      throw new IllegalArgumentException(errorMessage);
+    }
+  }
+
+  /**
+   * Validates that every {@link CachedRead} annotated method returns a result synchronously, which
+   * can be cached, with a positive time to live and maximum entries.
+   *
+   * @param roundEnv environment for information about the current and prior round
+   * @throws IllegalArgumentException if any {@link CachedRead} annotated method can not be cached
+   */
+  private void validateCachedReadMethods(@Nonnull RoundEnvironment roundEnv) {
+    final List<ExecutableElement> annotatedElements = roundEnv
+        .getElementsAnnotatedWith(CachedRead.class)
+        .stream()
+        .filter(element -> element instanceof ExecutableElement)
+        .map(ExecutableElement.class::cast)
+        .collect(Collectors.toList());
+    for (final ExecutableElement element : annotatedElements) {
+      final CachedRead cachedRead = element.getAnnotation(CachedRead.class);
+      final String methodName = element.getEnclosingElement().getSimpleName() + "."
+          + element.getSimpleName();
+      final String errorMessage;
+      if (!this.isReturningReusableResult(element)) {
+        errorMessage = "@CachedRead method " + methodName + " returns " + element.getReturnType()
+            + ". Only methods returning a reusable result synchronously can be cached.";
+      } else if (cachedRead.ttlMillis() <= 0) {
+        errorMessage = "@CachedRead method " + methodName + " has a ttlMillis of "
+            + cachedRead.ttlMillis() + ". Please make it positive.";
+      } else if (cachedRead.maxEntries() <= 0) {
+        errorMessage = "@CachedRead method " + methodName + " has a maxEntries of "
+            + cachedRead.maxEntries() + ". Please make it positive.";
+      } else {
+        continue;
+      }
+
+      messager.printMessage(Kind.ERROR, errorMessage);
+      throw new IllegalArgumentException(errorMessage);
+    }
+  }
+
+  /**
+   * Validates that every {@link KeysetPaged} annotated method is a paged derived query of secondary
+   * data sources which can be extended with a keyset criterion, and that the repositories are
+   * copied, as only the copies get the keyset variants.
+   *
+   * @param roundEnv environment for information about the current and prior round
+   * @throws IllegalArgumentException if any {@link KeysetPaged} annotated method can not be keyset
+   *                                  paged
+   */
+  private void validateKeysetPagedMethods(@Nonnull RoundEnvironment roundEnv) {
+    final List<ExecutableElement> annotatedElements = roundEnv
+        .getElementsAnnotatedWith(KeysetPaged.class)
+        .stream()
+        .filter(element -> element instanceof ExecutableElement)
+        .map(ExecutableElement.class::cast)
+        .collect(Collectors.toList());
+    for (final ExecutableElement element : annotatedElements) {
+      final String simpleName = element.getSimpleName().toString();
+      final String methodName = element.getEnclosingElement().getSimpleName() + "." + simpleName;
+      final List<? extends VariableElement> parameters = element.getParameters();
+      final boolean isPaged = this.isErasureOf(element.getReturnType(), PAGE_CLASS_NAME)
+          || this.isErasureOf(element.getReturnType(), SLICE_CLASS_NAME);
+      final boolean isLastParameterPageable = !parameters.isEmpty() && this.isErasureOf(
+          parameters.get(parameters.size() - 1).asType(),
+          PAGEABLE_CLASS_NAME
+      );
+      final boolean isTargeted = element.getAnnotation(TargetSecondaryDataSource.class) != null
+          || element.getAnnotation(TargetSecondaryDataSources.class) != null;
+      final String errorMessage;
+      if (!isPaged || !isLastParameterPageable) {
+        errorMessage = "@KeysetPaged method " + methodName + " does not return a Page or Slice"
+            + " with a Pageable last parameter. Only paged methods can be keyset paged.";
+      } else if (!DERIVED_QUERY_METHOD_NAME_PATTERN.matcher(simpleName).matches()
+          || element.getAnnotation(Query.class) != null
+          || OR_CRITERIA_OR_ORDER_BY_PATTERN.matcher(simpleName).find()) {
+        errorMessage = "@KeysetPaged method " + methodName + " is not a derived query without Or"
+            + " criteria or an OrderBy clause, so a keyset criterion can not be added to it.";
+      } else if (!isTargeted) {
+        errorMessage = "@KeysetPaged method " + methodName + " has no @TargetSecondaryDataSource."
+            + " Please target the secondary data sources to generate its keyset variant for.";
+      } else if (this.isRuntimeRouting(roundEnv)) {
+        errorMessage = "@KeysetPaged method " + methodName + " is not supported in "
+            + RoutingMode.RUNTIME_ROUTING + ", as only the repository copies get keyset variants.";
+      } else {
+        continue;
+      }
+
+      messager.printMessage(Kind.ERROR, errorMessage);
+      throw new IllegalArgumentException(errorMessage);
+    }
+  }
+
+  /**
+   * Whether a method returns a reusable result synchronously, ie. neither nothing, an asynchronous
+   * result (eg. a {@link CompletableFuture} or a {@code ListenableFuture}) nor a single-use cursor
+   * (a {@link java.util.stream.Stream} or an {@link Iterator}).
+   *
+   * @param method the method
+   * @return whether the method returns a reusable result synchronously
+   */
+  private boolean isReturningReusableResult(@Nonnull ExecutableElement method) {
+    final TypeMirror returnType = typeUtils.erasure(method.getReturnType());
+    return returnType != null && returnType.getKind() != TypeKind.VOID
+        && NON_REUSABLE_RESULT_CLASS_NAMES.stream()
+        .noneMatch(className -> this.isAssignableToErasureOf(returnType, className));
+  }
+
   /**
    * Creates a map of the data source name to the set of ExecutableElements that are annotated with
    * {@link TargetSecondaryDataSource} for that data source.
@@ -273,6 +1096,91 @@ public class TargetDataSourceAnnotationProcessor extends AbstractProcessor {
     return targetDataSourceAnnotatedMethodMap;
   }
 
+  /**
+   * Creates a map of the secondary data source name to the {@link DataSourceConfig} declared for it
+   * in the {@link EnableMultiDataSourceConfig} annotation.
+   * <p>
+   * The {@link EnableMultiDataSourceConfig} annotation may live in another module, in which case
+   * the map is empty and the repositories are generated with the default data source config. Its
+   * validation is left to the {@link MultiDataSourceConfigAnnotationProcessor}.
+   *
+   * @param roundEnv environment for information about the current and prior round
+   * @return map of the secondary data source name to the {@link DataSourceConfig} declared for it
+   */
+  private @Nonnull Map<String, DataSourceConfig> createDataSourceToConfigMap(
+      @Nonnull RoundEnvironment roundEnv
+  ) {
+    final Map<String, DataSourceConfig> dataSourceToConfigMap = new HashMap<>();
+    final Set<? extends Element> annotatedElements = roundEnv
+        .getElementsAnnotatedWith(EnableMultiDataSourceConfig.class);
+    for (final Element element : annotatedElements) {
+      final EnableMultiDataSourceConfig annotation = element
+          .getAnnotation(EnableMultiDataSourceConfig.class);
+      for (final DataSourceConfig dataSourceConfig : annotation.secondaryDataSourceConfigs()) {
+        dataSourceToConfigMap.put(dataSourceConfig.dataSourceName(), dataSourceConfig);
+      }
+    }
+    return dataSourceToConfigMap;
+  }
+
+  /**
+   * Whether the {@link EnableMultiDataSourceConfig} annotation in this compilation unit uses
+   * {@link RoutingMode#RUNTIME_ROUTING}.
+   * <p>
+   * If the {@link EnableMultiDataSourceConfig} annotation lives in another module, the repository
+   * copies are generated as this can not be known.
+   *
+   * @param roundEnv environment for information about the current and prior round
+   * @return whether the repositories are routed at runtime instead of being copied
+   */
+  private boolean isRuntimeRouting(@Nonnull RoundEnvironment roundEnv) {
+    return roundEnv.getElementsAnnotatedWith(EnableMultiDataSourceConfig.class).stream()
+        .map(element -> element.getAnnotation(EnableMultiDataSourceConfig.class))
+        .anyMatch(annotation -> annotation.routingMode() == RoutingMode.RUNTIME_ROUTING);
+  }
+
+  /**
+   * Whether the {@link EnableMultiDataSourceConfig} annotation in this compilation unit enables
+   * {@link EnableMultiDataSourceConfig#precomputeDerivedQueries()}.
+   *
+   * @param roundEnv environment for information about the current and prior round
+   * @return whether the JPQL of the derived query methods of the copies is derived at compile time
+   */
+  private boolean isPrecomputingDerivedQueries(@Nonnull RoundEnvironment roundEnv) {
+    return roundEnv.getElementsAnnotatedWith(EnableMultiDataSourceConfig.class).stream()
+        .map(element -> element.getAnnotation(EnableMultiDataSourceConfig.class))
+        .anyMatch(EnableMultiDataSourceConfig::precomputeDerivedQueries);
+  }
+
+  /**
+   * Validates that every data source targeted by a {@link TargetSecondaryDataSource} annotated
+   * method is a configured secondary data source, as it is only routed to at runtime.
+   *
+   * @param targetDataSourceNames     the names of the data sources targeted by annotated methods
+   * @param secondaryDataSourceNames  the names of the configured secondary data sources
+   * @throws IllegalArgumentException if any targeted data source is not configured
+   */
+  private void validateRuntimeRoutingDataSources(
+      @Nonnull Set<String> targetDataSourceNames,
+      @Nonnull Set<String> secondaryDataSourceNames
+  ) {
+    for (final String dataSourceName : targetDataSourceNames) {
+      if (secondaryDataSourceNames.contains(dataSourceName)) {
+        continue;
+      }
+
+      final String errorMessage = "Data source " + dataSourceName + " of @TargetSecondaryDataSource"
+          + " is not configured in the @EnableMultiDataSourceConfig secondaryDataSourceConfigs."
+          + " Please configure it, as it is routed to at runtime.";
+      messager.printMessage(Kind.ERROR, errorMessage);
+      throw new IllegalArgumentException(errorMessage);
+    }
+    messager.printMessage(
+        Kind.NOTE,
+        "Repositories of " + targetDataSourceNames.size() + " data sources routed at runtime."
+    );
+  }
+
   /**
    * Creates a map of the {@link TypeElement} to the set of {@link ExecutableElement}s that are
    * annotated with {@link TargetSecondaryDataSource}.
@@ -0,0 +1,226 @@
+package io.github.dhi13man.spring.datasource.repository;
+
+import io.github.dhi13man.spring.datasource.annotations.BatchedFindById;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.core.EntityInformation;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * {@link MethodInterceptor} batching the concurrent lookups of the {@code findById} methods
+ * annotated with {@link BatchedFindById} into {@code findAllById} queries (DataLoader-style).
+ * <p>
+ * Every annotated method has its own batch loader. The first lookup opens a batch and waits for
+ * other lookups to join it until the maximum wait elapses or the batch is full, then loads the
+ * batch through the {@code findAllById} method of the same repository on its own thread. The
+ * other lookups wait for that load, and each picks its own entity from the result by its id.
+ */
+public class MultiDataSourceBatchingInterceptor implements MethodInterceptor {
+
+  private static final String FIND_BY_ID_METHOD_NAME = "findById";
+
+  private final @Nonnull Map<Method, BatchLoader> methodToBatchLoaderMap =
+      new ConcurrentHashMap<>();
+
+  private final @Nonnull LongAdder lookupCount = new LongAdder();
+
+  private final @Nonnull LongAdder batchCount = new LongAdder();
+
+  /**
+   * Whether a repository interface has a {@code findById} method annotated with
+   * {@link BatchedFindById}, and hence needs this interceptor.
+   *
+   * @param repositoryInterface the repository interface
+   * @return whether the repository interface has a batched {@code findById} method
+   */
+  public boolean hasBatchedFindByIdMethods(@Nonnull Class<?> repositoryInterface) {
+    return CrudRepository.class.isAssignableFrom(repositoryInterface)
+        && Arrays.stream(repositoryInterface.getMethods())
+        .anyMatch(MultiDataSourceBatchingInterceptor::isBatched);
+  }
+
+  /**
+   * Create the batch loaders of the batched {@code findById} methods of a repository.
+   *
+   * @param repositoryInterface the repository interface
+   * @param entityInformation   the {@link EntityInformation} of the entity of the repository, to
+   *                            get the ids of the loaded entities
+   */
+  public void addRepository(
+      @Nonnull Class<?> repositoryInterface,
+      @Nonnull EntityInformation<?, ?> entityInformation
+  ) {
+    Arrays.stream(repositoryInterface.getMethods())
+        .filter(MultiDataSourceBatchingInterceptor::isBatched)
+        .forEach(method -> methodToBatchLoaderMap.put(
+            method,
+            new BatchLoader(method.getAnnotation(BatchedFindById.class), entityInformation)
+        ));
+  }
+
+  @Override
+  public @Nullable Object invoke(@Nonnull MethodInvocation invocation) throws Throwable {
+    final BatchLoader batchLoader = methodToBatchLoaderMap.get(invocation.getMethod());
+    if (batchLoader == null || !(invocation instanceof ProxyMethodInvocation)
+        || TransactionSynchronizationManager.isActualTransactionActive()) {
+      return invocation.proceed();
+    }
+
+    lookupCount.increment();
+    final Object repository = ((ProxyMethodInvocation) invocation).getProxy();
+    return batchLoader.load(invocation.getArguments()[0], (CrudRepository<?, ?>) repository);
+  }
+
+  public long getLookupCount() {
+    return lookupCount.sum();
+  }
+
+  public long getBatchCount() {
+    return batchCount.sum();
+  }
+
+  /**
+   * Whether a repository method is a {@code findById} method annotated with
+   * {@link BatchedFindById}.
+   *
+   * @param method the repository method
+   * @return whether the lookups of the method are batched
+   */
+  private static boolean isBatched(@Nonnull Method method) {
+    return method.isAnnotationPresent(BatchedFindById.class)
+        && FIND_BY_ID_METHOD_NAME.equals(method.getName())
+        && method.getParameterCount() == 1
+        && Optional.class.equals(method.getReturnType());
+  }
+
+  /**
+   * The batch loader of a batched {@code findById} method, holding its open batch.
+   */
+  private class BatchLoader {
+
+    private final int maxBatchSize;
+
+    private final long maxWaitNanos;
+
+    private final @Nonnull EntityInformation<?, ?> entityInformation;
+
+    private @Nullable Batch openBatch;
+
+    BatchLoader(
+        @Nonnull BatchedFindById batchedFindById,
+        @Nonnull EntityInformation<?, ?> entityInformation
+    ) {
+      this.maxBatchSize = Math.max(2, batchedFindById.maxBatchSize());
+      this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(batchedFindById.maxWaitMillis());
+      this.entityInformation = entityInformation;
+    }
+
+    /**
+     * Look an entity up in a batch, dispatching the batch if this lookup opened it.
+     *
+     * @param id         the id of the entity
+     * @param repository the repository to load the batch with
+     * @return the entity with the id, if any
+     * @throws Throwable the exception of the load of the batch
+     */
+    @Nonnull Optional<Object> load(
+        @Nonnull Object id,
+        @Nonnull CrudRepository<?, ?> repository
+    ) throws Throwable {
+      final Batch batch;
+      final boolean isOpeningBatch;
+      synchronized (this) {
+        isOpeningBatch = openBatch == null;
+        if (isOpeningBatch) {
+          openBatch = new Batch();
+        }
+        batch = openBatch;
+        batch.ids.add(id);
+        if (batch.ids.size() >= maxBatchSize) {
+          openBatch = null;
+          batch.fullLatch.countDown();
+        }
+      }
+
+      if (isOpeningBatch) {
+        this.awaitAndDispatch(batch, repository);
+      }
+      try {
+        return Optional.ofNullable(batch.result.join().get(id));
+      } catch (CompletionException e) {
+        throw e.getCause();
+      }
+    }
+
+    /**
+     * Wait for the batch to fill up or the maximum wait to elapse, close it, and load it.
+     *
+     * @param batch      the batch opened by this lookup
+     * @param repository the repository to load the batch with
+     */
+    @SuppressWarnings("unchecked")
+    private void awaitAndDispatch(
+        @Nonnull Batch batch,
+        @Nonnull CrudRepository<?, ?> repository
+    ) {
+      try {
+        batch.fullLatch.await(maxWaitNanos, TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        // Dispatch straight away, as the other lookups of the batch are waiting for it
+        Thread.currentThread().interrupt();
+      }
+
+      final Set<Object> ids;
+      synchronized (this) {
+        if (openBatch == batch) {
+          openBatch = null;
+        }
+        ids = batch.ids;
+      }
+      try {
+        final Map<Object, Object> idToEntity = new HashMap<>();
+        final EntityInformation<Object, ?> objectEntityInformation =
+            (EntityInformation<Object, ?>) entityInformation;
+        for (final Object entity : ((CrudRepository<Object, Object>) repository)
+            .findAllById(new ArrayList<>(ids))) {
+          idToEntity.put(objectEntityInformation.getId(entity), entity);
+        }
+        batchCount.increment();
+        batch.result.complete(idToEntity);
+      } catch (Throwable e) {
+        batch.result.completeExceptionally(e);
+      }
+    }
+  }
+
+  /**
+   * A batch of ids to load together, and the entities loaded by their ids.
+   */
+  private static class Batch {
+
+    private final @Nonnull Set<Object> ids = new LinkedHashSet<>();
+
+    private final @Nonnull CountDownLatch fullLatch = new CountDownLatch(1);
+
+    private final @Nonnull CompletableFuture<Map<Object, Object>> result =
+        new CompletableFuture<>();
+  }
+}
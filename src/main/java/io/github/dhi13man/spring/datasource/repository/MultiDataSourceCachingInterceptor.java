@@ -0,0 +1,358 @@
+package io.github.dhi13man.spring.datasource.repository;
+
+import io.github.dhi13man.spring.datasource.annotations.CachedRead;
+import io.github.dhi13man.spring.datasource.routing.MultiDataSourceRoutingContext;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * {@link MethodInterceptor} caching the results of the repository methods annotated with
+ * {@link CachedRead}, and clearing them on the writes of their entities.
+ * <p>
+ * Every annotated method has its own bounded cache, keyed by the arguments of the calls and the
+ * data source they are routed to explicitly. As the generated repository copies have their own
+ * methods, each data source has its own caches. The writes through any repository of an entity
+ * clear the caches of all the repositories of that entity straight away, and again when the
+ * transaction of the write completes, so that reads made before its commit are not kept. Calls
+ * inside a transaction, or on a thread with an entity manager of its own (eg. open in view),
+ * neither use nor fill the caches, as their entities are managed by that entity manager.
+ */
+public class MultiDataSourceCachingInterceptor implements MethodInterceptor {
+
+  private static final List<String> WRITE_METHOD_NAME_PREFIXES = List.of("save", "delete");
+
+  private final @Nonnull Map<Method, ResultCache> methodToResultCacheMap =
+      new ConcurrentHashMap<>();
+
+  private final @Nonnull Map<Class<?>, List<ResultCache>> domainTypeToResultCachesMap =
+      new ConcurrentHashMap<>();
+
+  private final @Nonnull Map<Method, Boolean> methodToIsWriteMap = new ConcurrentHashMap<>();
+
+  private final @Nonnull Map<Class<?>, Class<?>> repositoryInterfaceToDomainTypeMap =
+      new ConcurrentHashMap<>();
+
+  private final @Nonnull Map<Class<?>, Optional<Class<?>>> proxyClassToDomainTypeMap =
+      new ConcurrentHashMap<>();
+
+  private final @Nonnull LongAdder hitCount = new LongAdder();
+
+  private final @Nonnull LongAdder missCount = new LongAdder();
+
+  private final @Nonnull LongAdder evictionCount = new LongAdder();
+
+  private final @Nonnull LongAdder invalidationCount = new LongAdder();
+
+  /**
+   * Whether any method of a repository interface is annotated with {@link CachedRead}.
+   *
+   * @param repositoryInterface the repository interface
+   * @return whether any method of the repository interface is annotated
+   */
+  public boolean hasCachedReadMethods(@Nonnull Class<?> repositoryInterface) {
+    return Arrays.stream(repositoryInterface.getMethods())
+        .anyMatch(MultiDataSourceCachingInterceptor::isCached);
+  }
+
+  /**
+   * Create the caches of the {@link CachedRead} methods of a repository, and track the entity of
+   * the repository, so that its writes clear the caches of that entity.
+   *
+   * @param repositoryInterface the repository interface
+   * @param domainType          the class of the entity of the repository
+   */
+  public void addRepository(@Nonnull Class<?> repositoryInterface, @Nonnull Class<?> domainType) {
+    repositoryInterfaceToDomainTypeMap.put(repositoryInterface, domainType);
+    Arrays.stream(repositoryInterface.getMethods())
+        .filter(MultiDataSourceCachingInterceptor::isCached)
+        .forEach(method -> {
+          final ResultCache resultCache = new ResultCache(method.getAnnotation(CachedRead.class));
+          methodToResultCacheMap.put(method, resultCache);
+          domainTypeToResultCachesMap
+              .computeIfAbsent(domainType, key -> new CopyOnWriteArrayList<>())
+              .add(resultCache);
+        });
+  }
+
+  @Override
+  public @Nullable Object invoke(@Nonnull MethodInvocation invocation) throws Throwable {
+    final ResultCache resultCache = methodToResultCacheMap.get(invocation.getMethod());
+    if (resultCache == null) {
+      return this.invokeUncached(invocation);
+    }
+    if (TransactionSynchronizationManager.isActualTransactionActive()
+        || MultiDataSourceCoalescingInterceptor.isEntityManagerBound()) {
+      return invocation.proceed();
+    }
+
+    final CacheKey cacheKey = new CacheKey(
+        invocation.getArguments(),
+        MultiDataSourceRoutingContext.getCurrentDataSourceName()
+    );
+    final CacheEntry cachedEntry = resultCache.get(cacheKey);
+    if (cachedEntry != null) {
+      hitCount.increment();
+      return cachedEntry.result;
+    }
+
+    missCount.increment();
+    final long generation = resultCache.getGeneration();
+    final Object result = invocation.proceed();
+    resultCache.put(cacheKey, result, generation);
+    return result;
+  }
+
+  /**
+   * Clear the caches of all the repositories of an entity.
+   *
+   * @param domainType the class of the entity
+   */
+  public void invalidate(@Nonnull Class<?> domainType) {
+    final List<ResultCache> resultCaches = domainTypeToResultCachesMap.get(domainType);
+    if (resultCaches == null) {
+      return;
+    }
+
+    invalidationCount.increment();
+    resultCaches.forEach(ResultCache::clear);
+  }
+
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  public long getEvictionCount() {
+    return evictionCount.sum();
+  }
+
+  public long getInvalidationCount() {
+    return invalidationCount.sum();
+  }
+
+  public int getSize() {
+    return methodToResultCacheMap.values().stream().mapToInt(ResultCache::size).sum();
+  }
+
+  /**
+   * Invoke a method without caching, clearing the caches of the entity of its repository if it is
+   * a write.
+   *
+   * @param invocation the invocation of the method
+   * @return the result of the method
+   * @throws Throwable the exception of the method
+   */
+  private @Nullable Object invokeUncached(@Nonnull MethodInvocation invocation) throws Throwable {
+    final boolean isWrite = methodToIsWriteMap
+        .computeIfAbsent(invocation.getMethod(), MultiDataSourceCachingInterceptor::isWrite);
+    if (!isWrite || domainTypeToResultCachesMap.isEmpty()) {
+      return invocation.proceed();
+    }
+
+    final Class<?> domainType = this.findDomainType(invocation);
+    if (domainType == null) {
+      return invocation.proceed();
+    }
+
+    try {
+      return invocation.proceed();
+    } finally {
+      this.invalidate(domainType);
+      if (TransactionSynchronizationManager.isSynchronizationActive()) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+          @Override
+          public void afterCompletion(int status) {
+            MultiDataSourceCachingInterceptor.this.invalidate(domainType);
+          }
+        });
+      }
+    }
+  }
+
+  /**
+   * Find the class of the entity of the repository proxy an invocation is made on.
+   *
+   * @param invocation the invocation of the method
+   * @return the class of the entity, if the repository is tracked
+   */
+  private @Nullable Class<?> findDomainType(@Nonnull MethodInvocation invocation) {
+    if (!(invocation instanceof ProxyMethodInvocation)) {
+      return null;
+    }
+
+    final Object repository = ((ProxyMethodInvocation) invocation).getProxy();
+    return proxyClassToDomainTypeMap.computeIfAbsent(
+        repository.getClass(),
+        proxyClass -> repositoryInterfaceToDomainTypeMap.entrySet().stream()
+            .filter(entry -> entry.getKey().isAssignableFrom(proxyClass))
+            .map(Map.Entry::getValue)
+            .findFirst()
+    ).orElse(null);
+  }
+
+  /**
+   * Whether a repository method is annotated with {@link CachedRead} and returns a result which
+   * can be cached, ie. reused by later calls.
+   *
+   * @param method the repository method
+   * @return whether the results of the method are cached
+   * @see MultiDataSourceCoalescingInterceptor#isReusableResultType(Class)
+   */
+  private static boolean isCached(@Nonnull Method method) {
+    return method.isAnnotationPresent(CachedRead.class)
+        && MultiDataSourceCoalescingInterceptor.isReusableResultType(method.getReturnType());
+  }
+
+  /**
+   * Whether a repository method writes its entities: a {@code save*} or {@code delete*} method, or
+   * a {@link Modifying} query.
+   *
+   * @param method the repository method
+   * @return whether the method is a write
+   */
+  static boolean isWrite(@Nonnull Method method) {
+    return method.isAnnotationPresent(Modifying.class)
+        || WRITE_METHOD_NAME_PREFIXES.stream().anyMatch(method.getName()::startsWith);
+  }
+
+  /**
+   * The bounded cache of the results of a {@link CachedRead} method, evicting the least recently
+   * used results beyond its maximum entries and the expired results on access.
+   */
+  private class ResultCache {
+
+    private final long ttlNanos;
+
+    private final int maxEntries;
+
+    private final @Nonnull LinkedHashMap<CacheKey, CacheEntry> entries;
+
+    private long generation;
+
+    ResultCache(@Nonnull CachedRead cachedRead) {
+      this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(cachedRead.ttlMillis());
+      this.maxEntries = Math.max(1, cachedRead.maxEntries());
+      this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(@Nonnull Map.Entry<CacheKey, CacheEntry> eldest) {
+          final boolean isEvicted = size() > ResultCache.this.maxEntries;
+          if (isEvicted) {
+            evictionCount.increment();
+          }
+          return isEvicted;
+        }
+      };
+    }
+
+    synchronized @Nullable CacheEntry get(@Nonnull CacheKey cacheKey) {
+      final CacheEntry cacheEntry = entries.get(cacheKey);
+      if (cacheEntry != null && System.nanoTime() - cacheEntry.loadedNanos > ttlNanos) {
+        entries.remove(cacheKey);
+        evictionCount.increment();
+        return null;
+      }
+
+      return cacheEntry;
+    }
+
+    /**
+     * Cache a result, unless the cache was cleared since it started loading, as the result may
+     * then miss the write which cleared it.
+     *
+     * @param cacheKey   the key of the result
+     * @param result     the result
+     * @param generation the generation of the cache when the result started loading
+     */
+    synchronized void put(@Nonnull CacheKey cacheKey, @Nullable Object result, long generation) {
+      if (this.generation == generation) {
+        entries.put(cacheKey, new CacheEntry(result, System.nanoTime()));
+      }
+    }
+
+    synchronized long getGeneration() {
+      return generation;
+    }
+
+    synchronized void clear() {
+      generation++;
+      entries.clear();
+    }
+
+    synchronized int size() {
+      return entries.size();
+    }
+  }
+
+  /**
+   * A cached result, and the time it was loaded at.
+   */
+  private static class CacheEntry {
+
+    private final @Nullable Object result;
+
+    private final long loadedNanos;
+
+    CacheEntry(@Nullable Object result, long loadedNanos) {
+      this.result = result;
+      this.loadedNanos = loadedNanos;
+    }
+  }
+
+  /**
+   * The key of a cached result: the arguments of its call and the data source it is routed to
+   * explicitly.
+   */
+  private static class CacheKey {
+
+    private final @Nonnull Object[] arguments;
+
+    private final @Nullable String dataSourceName;
+
+    private final int hashCode;
+
+    CacheKey(@Nonnull Object[] arguments, @Nullable String dataSourceName) {
+      this.arguments = arguments.clone();
+      this.dataSourceName = dataSourceName;
+      this.hashCode = Objects.hash(Arrays.deepHashCode(this.arguments), dataSourceName);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof CacheKey)) {
+        return false;
+      }
+
+      final CacheKey otherCacheKey = (CacheKey) other;
+      return Arrays.deepEquals(arguments, otherCacheKey.arguments)
+          && Objects.equals(dataSourceName, otherCacheKey.dataSourceName);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
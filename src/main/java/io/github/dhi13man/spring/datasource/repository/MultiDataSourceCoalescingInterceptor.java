@@ -0,0 +1,190 @@
+package io.github.dhi13man.spring.datasource.repository;
+
+import io.github.dhi13man.spring.datasource.annotations.CoalescedRead;
+import io.github.dhi13man.spring.datasource.routing.MultiDataSourceRoutingContext;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.BaseStream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * {@link MethodInterceptor} coalescing the identical concurrent calls of the repository methods
+ * annotated with {@link CoalescedRead} into one (single-flight).
+ * <p>
+ * The first call of a method with some arguments runs on the thread of its caller and becomes the
+ * call in flight. Calls with equal arguments on the same data source arriving until it returns
+ * wait for it instead of running, and return its result or throw its exception. Calls inside a
+ * transaction, or on a thread with an entity manager of its own (eg. open in view), are never
+ * coalesced, as their entities are managed by that entity manager.
+ */
+public class MultiDataSourceCoalescingInterceptor implements MethodInterceptor {
+
+  private static final List<Class<?>> NON_REUSABLE_RESULT_TYPES =
+      List.of(Future.class, CompletionStage.class, BaseStream.class, Iterator.class);
+
+  private final @Nonnull Map<CallKey, CompletableFuture<Object>> inFlightCalls =
+      new ConcurrentHashMap<>();
+
+  private final @Nonnull Map<Method, Boolean> methodToIsCoalescedMap = new ConcurrentHashMap<>();
+
+  private final @Nonnull LongAdder callCount = new LongAdder();
+
+  private final @Nonnull LongAdder coalescedCount = new LongAdder();
+
+  /**
+   * Whether any method of a repository interface is annotated with {@link CoalescedRead}, and
+   * hence needs this interceptor.
+   *
+   * @param repositoryInterface the repository interface
+   * @return whether any method of the repository interface is annotated
+   */
+  public boolean hasCoalescedReadMethods(@Nonnull Class<?> repositoryInterface) {
+    return Arrays.stream(repositoryInterface.getMethods())
+        .anyMatch(MultiDataSourceCoalescingInterceptor::isCoalesced);
+  }
+
+  @Override
+  public @Nullable Object invoke(@Nonnull MethodInvocation invocation) throws Throwable {
+    final boolean isCoalesced = methodToIsCoalescedMap
+        .computeIfAbsent(invocation.getMethod(), MultiDataSourceCoalescingInterceptor::isCoalesced);
+    if (!isCoalesced || TransactionSynchronizationManager.isActualTransactionActive()
+        || isEntityManagerBound()) {
+      return invocation.proceed();
+    }
+
+    callCount.increment();
+    final CallKey callKey = new CallKey(
+        invocation.getMethod(),
+        invocation.getArguments(),
+        MultiDataSourceRoutingContext.getCurrentDataSourceName()
+    );
+    final CompletableFuture<Object> call = new CompletableFuture<>();
+    final CompletableFuture<Object> inFlightCall = inFlightCalls.putIfAbsent(callKey, call);
+    if (inFlightCall != null) {
+      coalescedCount.increment();
+      try {
+        return inFlightCall.join();
+      } catch (CompletionException e) {
+        throw e.getCause();
+      }
+    }
+
+    // Leave the calls arriving from now on to a new call in flight, before sharing the result
+    try {
+      final Object result = invocation.proceed();
+      inFlightCalls.remove(callKey, call);
+      call.complete(result);
+      return result;
+    } catch (Throwable e) {
+      inFlightCalls.remove(callKey, call);
+      call.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  public long getCallCount() {
+    return callCount.sum();
+  }
+
+  public long getCoalescedCount() {
+    return coalescedCount.sum();
+  }
+
+  public int getInFlightCount() {
+    return inFlightCalls.size();
+  }
+
+  /**
+   * Whether a repository method is annotated with {@link CoalescedRead} and returns a result which
+   * can be shared.
+   *
+   * @param method the repository method
+   * @return whether the calls of the method are coalesced
+   */
+  private static boolean isCoalesced(@Nonnull Method method) {
+    return method.isAnnotationPresent(CoalescedRead.class)
+        && isReusableResultType(method.getReturnType());
+  }
+
+  /**
+   * Whether an entity manager is bound to the current thread outside a transaction, eg. by the
+   * open-in-view interceptor, so that the entities read by the thread are managed by it and must
+   * not be shared with other threads or calls.
+   *
+   * @return whether an entity manager is bound to the current thread
+   */
+  static boolean isEntityManagerBound() {
+    return TransactionSynchronizationManager.getResourceMap().values().stream()
+        .anyMatch(EntityManagerHolder.class::isInstance);
+  }
+
+  /**
+   * Whether the results of a return type can be shared by several calls, ie. it is neither
+   * {@code void}, an asynchronous result (eg. a {@link CompletableFuture} or a
+   * {@code ListenableFuture}) nor a single-use cursor (a {@link java.util.stream.Stream} or an
+   * {@link Iterator}).
+   *
+   * @param returnType the return type of a repository method
+   * @return whether the results of the return type can be shared
+   */
+  static boolean isReusableResultType(@Nonnull Class<?> returnType) {
+    return !void.class.equals(returnType) && NON_REUSABLE_RESULT_TYPES.stream()
+        .noneMatch(nonReusableType -> nonReusableType.isAssignableFrom(returnType));
+  }
+
+  /**
+   * The key of a call: its method, arguments and the data source it is routed to explicitly.
+   */
+  private static class CallKey {
+
+    private final @Nonnull Method method;
+
+    private final @Nonnull Object[] arguments;
+
+    private final @Nullable String dataSourceName;
+
+    private final int hashCode;
+
+    CallKey(@Nonnull Method method, @Nonnull Object[] arguments, @Nullable String dataSourceName) {
+      this.method = method;
+      this.arguments = arguments.clone();
+      this.dataSourceName = dataSourceName;
+      this.hashCode = Objects.hash(method, Arrays.deepHashCode(this.arguments), dataSourceName);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof CallKey)) {
+        return false;
+      }
+
+      final CallKey otherCallKey = (CallKey) other;
+      return method.equals(otherCallKey.method)
+          && Arrays.deepEquals(arguments, otherCallKey.arguments)
+          && Objects.equals(dataSourceName, otherCallKey.dataSourceName);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
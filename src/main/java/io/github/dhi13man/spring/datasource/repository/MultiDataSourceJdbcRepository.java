@@ -0,0 +1,249 @@
+package io.github.dhi13man.spring.datasource.repository;
+
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.DataSourceConfig;
+import io.github.dhi13man.spring.datasource.config.IGeneratedDataSourceRepository;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+/**
+ * Base class of the repository copies generated for the {@link DataSourceConfig#jdbcOnly()}
+ * secondary data sources, which run the SQL rendered for their methods at compile time on the
+ * {@link NamedParameterJdbcTemplate} of their data source, without any entity manager factory.
+ * <p>
+ * The rows are mapped to the entities by the row mappers generated with the copies, and the
+ * arguments of the methods are bound to named parameters.
+ */
+public abstract class MultiDataSourceJdbcRepository implements IGeneratedDataSourceRepository {
+
+  /**
+   * Suffix of the bean name of the {@link NamedParameterJdbcTemplate} of a data source, after the
+   * name of the data source.
+   */
+  public static final String JDBC_TEMPLATE_BEAN_NAME_SUFFIX = "-jdbc-template";
+
+  private static final int MAX_ROWS_OF_SINGLE_RESULT = 2;
+
+  private final @Nonnull NamedParameterJdbcTemplate jdbcTemplate;
+
+  /**
+   * Constructor for the JDBC repository.
+   *
+   * @param jdbcTemplate the {@link NamedParameterJdbcTemplate} of the data source of the repository
+   */
+  protected MultiDataSourceJdbcRepository(@Nonnull NamedParameterJdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  public @Nonnull NamedParameterJdbcTemplate getJdbcTemplate() {
+    return jdbcTemplate;
+  }
+
+  /**
+   * Query the rows of a query, reading at most the given number of them.
+   * <p>
+   * The limit is set as the maximum rows and fetch size of the statement, so that the database
+   * stops after the rows read instead of sending all of them to be dropped.
+   *
+   * @param sql        the SQL of the query, with named parameters
+   * @param parameters the arguments bound to the named parameters
+   * @param rowMapper  the {@link RowMapper} of the rows
+   * @param maxRows    the maximum number of rows to read, or 0 to read all of them
+   * @param <T>        the type of the mapped rows
+   * @return the mapped rows
+   */
+  protected <T> @Nonnull List<T> queryForList(
+      @Nonnull String sql,
+      @Nonnull Map<String, ?> parameters,
+      @Nonnull RowMapper<T> rowMapper,
+      int maxRows
+  ) {
+    if (maxRows <= 0) {
+      return jdbcTemplate.query(sql, parameters, rowMapper);
+    }
+
+    final List<T> rows = jdbcTemplate.getJdbcOperations().query(
+        this.createLimitedStatementCreator(sql, parameters, maxRows),
+        resultSet -> {
+          // Drivers may ignore the maximum rows of the statement
+          final List<T> mappedRows = new ArrayList<>();
+          while (mappedRows.size() < maxRows && resultSet.next()) {
+            mappedRows.add(rowMapper.mapRow(resultSet, mappedRows.size()));
+          }
+          return mappedRows;
+        }
+    );
+    return rows == null ? List.of() : rows;
+  }
+
+  /**
+   * Query the single row of a query, if any.
+   *
+   * @param sql        the SQL of the query, with named parameters
+   * @param parameters the arguments bound to the named parameters
+   * @param rowMapper  the {@link RowMapper} of the row
+   * @param <T>        the type of the mapped row
+   * @return the mapped row, or null if the query has no row
+   * @throws IncorrectResultSizeDataAccessException if the query has more than one row
+   */
+  protected <T> @Nullable T queryForNullable(
+      @Nonnull String sql,
+      @Nonnull Map<String, ?> parameters,
+      @Nonnull RowMapper<T> rowMapper
+  ) {
+    final List<T> rows = this.queryForList(sql, parameters, rowMapper, MAX_ROWS_OF_SINGLE_RESULT);
+    if (rows.size() > 1) {
+      throw new IncorrectResultSizeDataAccessException(
+          "Query returned more than one row: " + sql,
+          1
+      );
+    }
+    return rows.isEmpty() ? null : rows.get(0);
+  }
+
+  /**
+   * Query the single row of a query, if any.
+   *
+   * @param sql        the SQL of the query, with named parameters
+   * @param parameters the arguments bound to the named parameters
+   * @param rowMapper  the {@link RowMapper} of the row
+   * @param <T>        the type of the mapped row
+   * @return the mapped row, or an empty {@link Optional} if the query has no row
+   * @throws IncorrectResultSizeDataAccessException if the query has more than one row
+   */
+  protected <T> @Nonnull Optional<T> queryForOptional(
+      @Nonnull String sql,
+      @Nonnull Map<String, ?> parameters,
+      @Nonnull RowMapper<T> rowMapper
+  ) {
+    return Optional.ofNullable(this.queryForNullable(sql, parameters, rowMapper));
+  }
+
+  /**
+   * Stream the rows of a query. The stream holds a connection until it is closed.
+   *
+   * @param sql        the SQL of the query, with named parameters
+   * @param parameters the arguments bound to the named parameters
+   * @param rowMapper  the {@link RowMapper} of the rows
+   * @param <T>        the type of the mapped rows
+   * @return the {@link Stream} of the mapped rows, to be closed by the caller
+   */
+  protected <T> @Nonnull Stream<T> queryForStream(
+      @Nonnull String sql,
+      @Nonnull Map<String, ?> parameters,
+      @Nonnull RowMapper<T> rowMapper
+  ) {
+    return jdbcTemplate.queryForStream(sql, parameters, rowMapper);
+  }
+
+  /**
+   * Query the count of a {@code select count(*)} query.
+   *
+   * @param sql        the SQL of the query, with named parameters
+   * @param parameters the arguments bound to the named parameters
+   * @return the count
+   */
+  protected long queryForCount(@Nonnull String sql, @Nonnull Map<String, ?> parameters) {
+    final Long count = jdbcTemplate.queryForObject(sql, parameters, Long.class);
+    return count == null ? 0 : count;
+  }
+
+  /**
+   * Check whether a query has any row, reading at most one of them on a statement limited to one
+   * row.
+   *
+   * @param sql        the SQL of the query, with named parameters
+   * @param parameters the arguments bound to the named parameters
+   * @return whether the query has any row
+   */
+  protected boolean queryForExists(@Nonnull String sql, @Nonnull Map<String, ?> parameters) {
+    return !this.queryForList(sql, parameters, (resultSet, rowNum) -> Boolean.TRUE, 1).isEmpty();
+  }
+
+  /**
+   * Create the {@link PreparedStatementCreator} of a query whose statement reads at most the given
+   * number of rows, binding the named parameters as the {@link NamedParameterJdbcTemplate} does.
+   *
+   * @param sql        the SQL of the query, with named parameters
+   * @param parameters the arguments bound to the named parameters
+   * @param maxRows    the maximum number of rows to read
+   * @return the {@link PreparedStatementCreator} of the query
+   */
+  private @Nonnull PreparedStatementCreator createLimitedStatementCreator(
+      @Nonnull String sql,
+      @Nonnull Map<String, ?> parameters,
+      int maxRows
+  ) {
+    final SqlParameterSource parameterSource = new MapSqlParameterSource(parameters);
+    final ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(sql);
+    final PreparedStatementCreatorFactory statementCreatorFactory =
+        new PreparedStatementCreatorFactory(
+            NamedParameterUtils.substituteNamedParameters(parsedSql, parameterSource),
+            NamedParameterUtils.buildSqlParameterList(parsedSql, parameterSource)
+        );
+    final PreparedStatementCreator statementCreator = statementCreatorFactory
+        .newPreparedStatementCreator(
+            NamedParameterUtils.buildValueArray(parsedSql, parameterSource, null)
+        );
+    return connection -> {
+      final PreparedStatement statement = statementCreator.createPreparedStatement(connection);
+      statement.setMaxRows(maxRows);
+      statement.setFetchSize(maxRows);
+      return statement;
+    };
+  }
+
+  /**
+   * Read an enum column stored by name, as with {@code @Enumerated(EnumType.STRING)}.
+   *
+   * @param resultSet   the {@link ResultSet} positioned on the row
+   * @param columnLabel the label of the column
+   * @param enumType    the type of the enum
+   * @param <E>         the type of the enum
+   * @return the enum constant of the column, or null if the column is null
+   * @throws SQLException if the column can not be read
+   */
+  protected static <E extends Enum<E>> @Nullable E getEnumByName(
+      @Nonnull ResultSet resultSet,
+      @Nonnull String columnLabel,
+      @Nonnull Class<E> enumType
+  ) throws SQLException {
+    final String name = resultSet.getString(columnLabel);
+    return name == null ? null : Enum.valueOf(enumType, name);
+  }
+
+  /**
+   * Read an enum column stored by ordinal, as with the default {@code @Enumerated} mapping.
+   *
+   * @param resultSet   the {@link ResultSet} positioned on the row
+   * @param columnLabel the label of the column
+   * @param enumType    the type of the enum
+   * @param <E>         the type of the enum
+   * @return the enum constant of the column, or null if the column is null
+   * @throws SQLException if the column can not be read
+   */
+  protected static <E extends Enum<E>> @Nullable E getEnumByOrdinal(
+      @Nonnull ResultSet resultSet,
+      @Nonnull String columnLabel,
+      @Nonnull Class<E> enumType
+  ) throws SQLException {
+    final int ordinal = resultSet.getInt(columnLabel);
+    return resultSet.wasNull() ? null : enumType.getEnumConstants()[ordinal];
+  }
+}
@@ -0,0 +1,399 @@
+package io.github.dhi13man.spring.datasource.repository;
+
+import io.github.dhi13man.spring.datasource.config.IGeneratedDataSourceRepository;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.data.domain.Page;
+import org.springframework.data.jpa.provider.PersistenceProvider;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.query.DefaultJpaQueryMethodFactory;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+import org.springframework.data.jpa.repository.query.JpaParametersParameterAccessor;
+import org.springframework.data.jpa.repository.query.JpaQueryLookupStrategy;
+import org.springframework.data.jpa.repository.query.PartTreeJpaQuery;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.repository.core.NamedQueries;
+import org.springframework.data.repository.core.RepositoryMetadata;
+import org.springframework.data.repository.core.support.AbstractRepositoryMetadata;
+import org.springframework.data.repository.core.support.PropertiesBasedNamedQueries;
+import org.springframework.data.repository.query.Parameter;
+import org.springframework.data.repository.query.Parameters;
+import org.springframework.data.repository.query.QueryLookupStrategy;
+import org.springframework.data.repository.query.QueryLookupStrategy.Key;
+import org.springframework.data.repository.query.QueryMethodEvaluationContextProvider;
+import org.springframework.data.repository.query.RepositoryQuery;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Prepares the Hibernate query plans of the derived query methods of the generated repository
+ * copies of every data source once the application context is refreshed, so that the first calls
+ * to them after a deploy do not compile them.
+ * <p>
+ * Spring Data JPA already compiles the JPQL of every {@link Query} and named query method (and the
+ * {@code count} queries of their {@link Page} methods) when it validates them at startup, but only
+ * builds the criteria queries of the derived query methods when they are first called. Every
+ * derived query method of the copies of a data source is therefore looked up the way Spring Data
+ * JPA looks it up, and its criteria query (and the {@code count} query of a {@link Page} method)
+ * is created, but not executed, on an entity manager of the entity manager factory of the data
+ * source, which compiles and caches its query plan. The queries are created with non-null sample
+ * arguments, unpaged and unsorted, so the plans warmed up are those of calls with non-null
+ * arguments and no dynamic sort. The data sources are warmed up in parallel, and the refresh waits
+ * for them, so that the warm-up is over before the application is ready. A report of the warm-up
+ * of every data source is logged, and exposed by {@link #getReports()}.
+ * <p>
+ * Methods which are not derived queries, and those with arguments of types no sample is known for,
+ * are skipped. Queries which fail to compile are reported and skipped, without failing the
+ * startup.
+ */
+public class MultiDataSourceQueryPlanWarmer implements ApplicationListener<ContextRefreshedEvent> {
+
+  private static final Log LOGGER = LogFactory.getLog(MultiDataSourceQueryPlanWarmer.class);
+
+  private static final String THREAD_NAME_PREFIX = "multi-data-source-query-plan-warmer-";
+
+  private static final ProjectionFactory PROJECTION_FACTORY =
+      new SpelAwareProxyProjectionFactory();
+
+  private static final NamedQueries NAMED_QUERIES = new PropertiesBasedNamedQueries(
+      new Properties()
+  );
+
+  private static final Map<Class<?>, Object> SAMPLE_ARGUMENTS = Map.ofEntries(
+      Map.entry(String.class, ""),
+      Map.entry(Boolean.class, false),
+      Map.entry(Character.class, ' '),
+      Map.entry(Byte.class, (byte) 0),
+      Map.entry(Short.class, (short) 0),
+      Map.entry(Integer.class, 0),
+      Map.entry(Long.class, 0L),
+      Map.entry(Float.class, 0F),
+      Map.entry(Double.class, 0D),
+      Map.entry(BigInteger.class, BigInteger.ZERO),
+      Map.entry(BigDecimal.class, BigDecimal.ZERO),
+      Map.entry(UUID.class, new UUID(0, 0)),
+      Map.entry(Instant.class, Instant.EPOCH),
+      Map.entry(LocalDate.class, LocalDate.EPOCH),
+      Map.entry(LocalTime.class, LocalTime.MIDNIGHT),
+      Map.entry(LocalDateTime.class, LocalDateTime.of(LocalDate.EPOCH, LocalTime.MIDNIGHT)),
+      Map.entry(OffsetDateTime.class, Instant.EPOCH.atOffset(ZoneOffset.UTC)),
+      Map.entry(ZonedDateTime.class, Instant.EPOCH.atZone(ZoneOffset.UTC))
+  );
+
+  private final @Nonnull ListableBeanFactory beanFactory;
+
+  private final @Nonnull Map<String, String> emfBeanNameToRepositoryPackageSuffix;
+
+  private final @Nonnull AtomicBoolean isWarmedUp = new AtomicBoolean();
+
+  private volatile @Nonnull List<WarmUpReport> reports = List.of();
+
+  /**
+   * Constructor for the query plan warmer.
+   *
+   * @param beanFactory                          the {@link ListableBeanFactory} to get the entity
+   *                                             manager factories and the repository copies from
+   * @param emfBeanNameToRepositoryPackageSuffix the {@link EntityManagerFactory} bean names of the
+   *                                             data sources mapped to the package suffix of their
+   *                                             repository copies (eg.
+   *                                             {@code .generated.repositories.replica}), in the
+   *                                             order to report them in
+   */
+  public MultiDataSourceQueryPlanWarmer(
+      @Nonnull ListableBeanFactory beanFactory,
+      @Nonnull Map<String, String> emfBeanNameToRepositoryPackageSuffix
+  ) {
+    this.beanFactory = beanFactory;
+    this.emfBeanNameToRepositoryPackageSuffix = new LinkedHashMap<>(
+        emfBeanNameToRepositoryPackageSuffix
+    );
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Warms up the query plans of all the data sources in parallel, on the first refresh only.
+   */
+  @Override
+  public void onApplicationEvent(@Nonnull ContextRefreshedEvent event) {
+    if (emfBeanNameToRepositoryPackageSuffix.isEmpty()
+        || !isWarmedUp.compareAndSet(false, true)) {
+      return;
+    }
+
+    // Find the repository copies of all the data sources
+    final List<Class<?>> repositoryInterfaces = new ArrayList<>();
+    for (final String beanName : beanFactory
+        .getBeanNamesForType(IGeneratedDataSourceRepository.class)) {
+      final Class<?> repositoryInterface = beanFactory.getType(beanName);
+      if (repositoryInterface != null) {
+        repositoryInterfaces.add(repositoryInterface);
+      }
+    }
+
+    // Warm up the data sources in parallel, waiting for all of them
+    final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(
+        THREAD_NAME_PREFIX
+    );
+    threadFactory.setDaemon(true);
+    final ExecutorService executor = Executors.newFixedThreadPool(
+        Math.min(
+            emfBeanNameToRepositoryPackageSuffix.size(),
+            Runtime.getRuntime().availableProcessors()
+        ),
+        threadFactory
+    );
+    try {
+      final List<CompletableFuture<WarmUpReport>> futures = emfBeanNameToRepositoryPackageSuffix
+          .entrySet().stream()
+          .map(entry -> CompletableFuture.supplyAsync(
+              () -> this.warmUp(
+                  entry.getKey(),
+                  repositoryInterfaces.stream()
+                      .filter(repositoryInterface -> repositoryInterface.getPackageName()
+                          .endsWith(entry.getValue()))
+                      .collect(Collectors.toList())
+              ),
+              executor
+          ))
+          .collect(Collectors.toList());
+      this.reports = futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    } finally {
+      executor.shutdown();
+    }
+
+    LOGGER.info("Warmed up the query plans of the data sources:" + reports.stream()
+        .map(report -> "\n  " + report)
+        .collect(Collectors.joining()));
+  }
+
+  /**
+   * The reports of the warm-up of every data source, in the order of the data sources, or an empty
+   * list if the context has not been refreshed yet.
+   *
+   * @return the {@link WarmUpReport}s of the data sources
+   */
+  public @Nonnull List<WarmUpReport> getReports() {
+    return reports;
+  }
+
+  /**
+   * Warm up the query plans of the derived query methods of the repository copies of a data source
+   * on its entity manager factory.
+   *
+   * @param entityManagerFactoryBeanName the {@link EntityManagerFactory} bean name of the data
+   *                                     source
+   * @param repositoryInterfaces         the repository copies of the data source
+   * @return the {@link WarmUpReport} of the data source
+   */
+  private @Nonnull WarmUpReport warmUp(
+      @Nonnull String entityManagerFactoryBeanName,
+      @Nonnull List<Class<?>> repositoryInterfaces
+  ) {
+    final long start = System.nanoTime();
+    int preparedQueryCount = 0;
+    int skippedMethodCount = 0;
+    final List<String> failedQueries = new ArrayList<>();
+    if (!repositoryInterfaces.isEmpty()) {
+      final EntityManager entityManager = beanFactory
+          .getBean(entityManagerFactoryBeanName, EntityManagerFactory.class)
+          .createEntityManager();
+      try {
+        final QueryLookupStrategy queryLookupStrategy = JpaQueryLookupStrategy.create(
+            entityManager,
+            new DefaultJpaQueryMethodFactory(PersistenceProvider.fromEntityManager(entityManager)),
+            Key.CREATE_IF_NOT_FOUND,
+            QueryMethodEvaluationContextProvider.DEFAULT,
+            EscapeCharacter.DEFAULT
+        );
+        for (final Class<?> repositoryInterface : repositoryInterfaces) {
+          final RepositoryMetadata repositoryMetadata = AbstractRepositoryMetadata
+              .getMetadata(repositoryInterface);
+          for (final Method method : repositoryInterface.getDeclaredMethods()) {
+            if (method.isDefault() || method.isSynthetic()
+                || Modifier.isStatic(method.getModifiers())) {
+              continue;
+            }
+
+            // Create the criteria query of the method, compiling and caching its plan
+            final String queryName = repositoryInterface.getSimpleName() + "." + method.getName();
+            try {
+              final RepositoryQuery repositoryQuery = method.isAnnotationPresent(Query.class)
+                  ? null : queryLookupStrategy.resolveQuery(
+                      method,
+                      repositoryMetadata,
+                      PROJECTION_FACTORY,
+                      NAMED_QUERIES
+                  );
+              final Object[] arguments = repositoryQuery instanceof PartTreeJpaQuery
+                  ? this.createSampleArguments(repositoryQuery.getQueryMethod().getParameters())
+                  : null;
+              if (arguments == null) {
+                skippedMethodCount++;
+                continue;
+              }
+
+              final PartTreeJpaQuery partTreeQuery = (PartTreeJpaQuery) repositoryQuery;
+              final JpaParametersParameterAccessor accessor = new JpaParametersParameterAccessor(
+                  partTreeQuery.getQueryMethod().getParameters(),
+                  arguments
+              );
+              partTreeQuery.doCreateQuery(accessor);
+              if (partTreeQuery.getQueryMethod().isPageQuery()) {
+                partTreeQuery.doCreateCountQuery(accessor);
+              }
+              preparedQueryCount++;
+            } catch (RuntimeException e) {
+              failedQueries.add(queryName);
+              LOGGER.warn("Failed to warm up the query plan of " + queryName + " on "
+                  + entityManagerFactoryBeanName, e);
+            }
+          }
+        }
+      } finally {
+        entityManager.close();
+      }
+    }
+
+    return new WarmUpReport(
+        entityManagerFactoryBeanName,
+        preparedQueryCount,
+        skippedMethodCount,
+        failedQueries,
+        (System.nanoTime() - start) / 1_000_000
+    );
+  }
+
+  /**
+   * Create non-null sample arguments for the bindable parameters of a derived query method, as
+   * Spring Data JPA derives a different query ({@code is null}) for null arguments of equality
+   * criteria. The paging, sorting and projection parameters are left null (ie. unpaged, unsorted,
+   * and projected to the domain type).
+   *
+   * @param parameters the {@link Parameters} of the method
+   * @return the sample arguments of the method, or null if a parameter has no known sample
+   */
+  private @Nullable Object[] createSampleArguments(@Nonnull Parameters<?, ?> parameters) {
+    final Object[] arguments = new Object[parameters.getNumberOfParameters()];
+    for (final Parameter parameter : parameters.getBindableParameters()) {
+      final Object argument = this.createSampleArgument(parameter.getType());
+      if (argument == null) {
+        return null;
+      }
+      arguments[parameter.getIndex()] = argument;
+    }
+    return arguments;
+  }
+
+  /**
+   * Create a non-null sample argument of a type.
+   *
+   * @param type the type of the argument
+   * @return the sample argument, or null if no sample of the type is known
+   */
+  private @Nullable Object createSampleArgument(@Nonnull Class<?> type) {
+    final Class<?> boxedType = ClassUtils.resolvePrimitiveIfNecessary(type);
+    if (SAMPLE_ARGUMENTS.containsKey(boxedType)) {
+      return SAMPLE_ARGUMENTS.get(boxedType);
+    } else if (type.isEnum()) {
+      final Object[] enumConstants = type.getEnumConstants();
+      return enumConstants.length == 0 ? null : enumConstants[0];
+    } else if (type.isArray()) {
+      return Array.newInstance(type.getComponentType(), 0);
+    } else if (type.isAssignableFrom(List.class)) {
+      return List.of();
+    } else if (type.isAssignableFrom(Set.class)) {
+      return Set.of();
+    }
+    return null;
+  }
+
+  /**
+   * Report of the warm-up of the query plans of one data source.
+   */
+  public static class WarmUpReport {
+
+    private final @Nonnull String entityManagerFactoryBeanName;
+
+    private final int preparedQueryCount;
+
+    private final int skippedMethodCount;
+
+    private final @Nonnull List<String> failedQueries;
+
+    private final long durationMillis;
+
+    public WarmUpReport(
+        @Nonnull String entityManagerFactoryBeanName,
+        int preparedQueryCount,
+        int skippedMethodCount,
+        @Nonnull List<String> failedQueries,
+        long durationMillis
+    ) {
+      this.entityManagerFactoryBeanName = entityManagerFactoryBeanName;
+      this.preparedQueryCount = preparedQueryCount;
+      this.skippedMethodCount = skippedMethodCount;
+      this.failedQueries = List.copyOf(failedQueries);
+      this.durationMillis = durationMillis;
+    }
+
+    public @Nonnull String getEntityManagerFactoryBeanName() {
+      return entityManagerFactoryBeanName;
+    }
+
+    public int getPreparedQueryCount() {
+      return preparedQueryCount;
+    }
+
+    public int getSkippedMethodCount() {
+      return skippedMethodCount;
+    }
+
+    public @Nonnull List<String> getFailedQueries() {
+      return failedQueries;
+    }
+
+    public long getDurationMillis() {
+      return durationMillis;
+    }
+
+    @Override
+    public @Nonnull String toString() {
+      return entityManagerFactoryBeanName + ": " + preparedQueryCount + " query plans prepared, "
+          + failedQueries.size() + " failed, " + skippedMethodCount + " methods skipped, in "
+          + durationMillis + " ms";
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package io.github.dhi13man.spring.datasource.repository;
+
+import io.github.dhi13man.spring.datasource.annotations.ReadYourWrites;
+import io.github.dhi13man.spring.datasource.routing.MultiDataSourceReadYourWritesContext;
+import io.github.dhi13man.spring.datasource.routing.MultiDataSourceRoutingContext;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * {@link MethodInterceptor} recording the writes through the original repositories to the primary
+ * data source in the {@link MultiDataSourceReadYourWritesContext}, for the {@link ReadYourWrites}
+ * stickiness of the secondary data sources.
+ * <p>
+ * A write is recorded once it returns, and again when its transaction commits, as the replication
+ * of the write only starts then. Writes routed explicitly to another data source are not recorded.
+ */
+public class MultiDataSourceReadYourWritesInterceptor implements MethodInterceptor {
+
+  private final @Nonnull Map<Method, Boolean> methodToIsWriteMap = new ConcurrentHashMap<>();
+
+  @Override
+  public @Nullable Object invoke(@Nonnull MethodInvocation invocation) throws Throwable {
+    final boolean isWrite = methodToIsWriteMap
+        .computeIfAbsent(invocation.getMethod(), MultiDataSourceCachingInterceptor::isWrite);
+    if (!isWrite || MultiDataSourceRoutingContext.getCurrentDataSourceName() != null) {
+      return invocation.proceed();
+    }
+
+    final Object result = invocation.proceed();
+    MultiDataSourceReadYourWritesContext.recordPrimaryWrite();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          MultiDataSourceReadYourWritesContext.recordPrimaryWrite();
+        }
+      });
+    }
+    return result;
+  }
+}
@@ -0,0 +1,86 @@
+package io.github.dhi13man.spring.datasource.repository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import javax.annotation.Nonnull;
+
+/**
+ * {@link MeterBinder} exposing the state of the interceptors of the
+ * {@link MultiDataSourceRepositoryPostProcessor} as Micrometer metrics.
+ * <p>
+ * It is only loaded by the generated configs if Micrometer is on the classpath.
+ */
+public class MultiDataSourceRepositoryMetrics implements MeterBinder {
+
+  /**
+   * Prefix of the names of the metrics.
+   */
+  public static final String METRIC_NAME_PREFIX = "multi.data.source.repository.";
+
+  private final @Nonnull MultiDataSourceRepositoryPostProcessor repositoryPostProcessor;
+
+  /**
+   * Constructor for the metrics of the repository interceptors.
+   *
+   * @param repositoryPostProcessor the repository post processor holding the interceptors
+   */
+  public MultiDataSourceRepositoryMetrics(
+      @Nonnull MultiDataSourceRepositoryPostProcessor repositoryPostProcessor
+  ) {
+    this.repositoryPostProcessor = repositoryPostProcessor;
+  }
+
+  @Override
+  public void bindTo(@Nonnull MeterRegistry registry) {
+    final MultiDataSourceCoalescingInterceptor coalescingInterceptor = repositoryPostProcessor
+        .getCoalescingInterceptor();
+    FunctionCounter.builder(METRIC_NAME_PREFIX + "coalescing.calls", coalescingInterceptor,
+            MultiDataSourceCoalescingInterceptor::getCallCount)
+        .description("Calls of the coalesced repository methods outside transactions")
+        .register(registry);
+    FunctionCounter.builder(METRIC_NAME_PREFIX + "coalescing.coalesced", coalescingInterceptor,
+            MultiDataSourceCoalescingInterceptor::getCoalescedCount)
+        .description("Calls of the coalesced repository methods which shared a call in flight")
+        .register(registry);
+    Gauge.builder(METRIC_NAME_PREFIX + "coalescing.in.flight", coalescingInterceptor,
+            MultiDataSourceCoalescingInterceptor::getInFlightCount)
+        .description("Calls of the coalesced repository methods in flight")
+        .register(registry);
+
+    final MultiDataSourceBatchingInterceptor batchingInterceptor = repositoryPostProcessor
+        .getBatchingInterceptor();
+    FunctionCounter.builder(METRIC_NAME_PREFIX + "batching.lookups", batchingInterceptor,
+            MultiDataSourceBatchingInterceptor::getLookupCount)
+        .description("Lookups of the batched findById methods outside transactions")
+        .register(registry);
+    FunctionCounter.builder(METRIC_NAME_PREFIX + "batching.batches", batchingInterceptor,
+            MultiDataSourceBatchingInterceptor::getBatchCount)
+        .description("Batches of lookups loaded with one findAllById query")
+        .register(registry);
+
+    final MultiDataSourceCachingInterceptor cachingInterceptor = repositoryPostProcessor
+        .getCachingInterceptor();
+    FunctionCounter.builder(METRIC_NAME_PREFIX + "caching.hits", cachingInterceptor,
+            MultiDataSourceCachingInterceptor::getHitCount)
+        .description("Calls of the cached repository methods served from the cache")
+        .register(registry);
+    FunctionCounter.builder(METRIC_NAME_PREFIX + "caching.misses", cachingInterceptor,
+            MultiDataSourceCachingInterceptor::getMissCount)
+        .description("Calls of the cached repository methods which queried the data source")
+        .register(registry);
+    FunctionCounter.builder(METRIC_NAME_PREFIX + "caching.evictions", cachingInterceptor,
+            MultiDataSourceCachingInterceptor::getEvictionCount)
+        .description("Cached results evicted as they expired or the cache was full")
+        .register(registry);
+    FunctionCounter.builder(METRIC_NAME_PREFIX + "caching.invalidations", cachingInterceptor,
+            MultiDataSourceCachingInterceptor::getInvalidationCount)
+        .description("Clearings of the caches of an entity by its writes")
+        .register(registry);
+    Gauge.builder(METRIC_NAME_PREFIX + "caching.size", cachingInterceptor,
+            MultiDataSourceCachingInterceptor::getSize)
+        .description("Results cached for the cached repository methods")
+        .register(registry);
+  }
+}
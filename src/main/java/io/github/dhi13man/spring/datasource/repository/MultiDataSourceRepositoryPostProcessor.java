@@ -0,0 +1,159 @@
+package io.github.dhi13man.spring.datasource.repository;
+
+import io.github.dhi13man.spring.datasource.annotations.BatchedFindById;
+import io.github.dhi13man.spring.datasource.annotations.CachedRead;
+import io.github.dhi13man.spring.datasource.annotations.CoalescedRead;
+import io.github.dhi13man.spring.datasource.annotations.ReadYourWrites;
+import io.github.dhi13man.spring.datasource.config.IGeneratedDataSourceRepository;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * {@link BeanPostProcessor} adding the interceptors of the read optimizations to every repository
+ * with methods annotated for them, be it an original repository or a generated repository copy.
+ * <p>
+ * The interceptors are added to the repository proxy itself, before its transaction interceptor,
+ * so that cached results ({@link CachedRead}), coalesced calls of a method ({@link CoalescedRead})
+ * and batched lookups ({@link BatchedFindById}) do not open transactions or connections of their
+ * own. Lookups are only batched on the generated repository copies, and the caching interceptor is
+ * also added to every original repository, so that its writes clear the cached results of its
+ * entity. If any data source has {@link ReadYourWrites} stickiness, the writes through every
+ * original repository are also recorded for it. The generated repository copies with methods
+ * returning a {@code Stream} keep a read-only transaction of their data source open around the
+ * streams opened outside a transaction, with a {@link MultiDataSourceStreamingInterceptor}.
+ */
+public class MultiDataSourceRepositoryPostProcessor implements BeanPostProcessor,
+    BeanFactoryAware {
+
+  private static final String TRANSACTION_MANAGER_PROPERTY_NAME = "transactionManager";
+
+  private final @Nonnull MultiDataSourceCoalescingInterceptor coalescingInterceptor;
+
+  private final @Nonnull MultiDataSourceBatchingInterceptor batchingInterceptor;
+
+  private final @Nonnull MultiDataSourceCachingInterceptor cachingInterceptor;
+
+  private final @Nullable MultiDataSourceReadYourWritesInterceptor readYourWritesInterceptor;
+
+  private @Nullable ConfigurableListableBeanFactory beanFactory;
+
+  /**
+   * Constructor for the repository post processor, not recording the writes to the primary data
+   * source.
+   */
+  public MultiDataSourceRepositoryPostProcessor() {
+    this(false);
+  }
+
+  /**
+   * Constructor for the repository post processor.
+   *
+   * @param isRecordingPrimaryWrites whether the writes through the original repositories are
+   *                                 recorded for the {@link ReadYourWrites} stickiness
+   */
+  public MultiDataSourceRepositoryPostProcessor(boolean isRecordingPrimaryWrites) {
+    this.coalescingInterceptor = new MultiDataSourceCoalescingInterceptor();
+    this.batchingInterceptor = new MultiDataSourceBatchingInterceptor();
+    this.cachingInterceptor = new MultiDataSourceCachingInterceptor();
+    this.readYourWritesInterceptor = isRecordingPrimaryWrites
+        ? new MultiDataSourceReadYourWritesInterceptor() : null;
+  }
+
+  @Override
+  public void setBeanFactory(@Nonnull BeanFactory beanFactory) {
+    this.beanFactory = beanFactory instanceof ConfigurableListableBeanFactory
+        ? (ConfigurableListableBeanFactory) beanFactory : null;
+  }
+
+  @Override
+  public @Nonnull Object postProcessBeforeInitialization(
+      @Nonnull Object bean,
+      @Nonnull String beanName
+  ) {
+    if (!(bean instanceof RepositoryFactoryBeanSupport)) {
+      return bean;
+    }
+
+    final String transactionManagerName = this.getTransactionManagerName(beanName);
+    ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(
+        repositoryFactory -> repositoryFactory.addRepositoryProxyPostProcessor(
+            (proxyFactory, repositoryInformation) -> {
+              final Class<?> repositoryInterface = repositoryInformation.getRepositoryInterface();
+              final boolean isGeneratedRepository = IGeneratedDataSourceRepository.class
+                  .isAssignableFrom(repositoryInterface);
+              if (isGeneratedRepository && transactionManagerName != null
+                  && MultiDataSourceStreamingInterceptor.hasStreamMethods(repositoryInterface)) {
+                final ConfigurableListableBeanFactory repositoryBeanFactory = beanFactory;
+                proxyFactory.addAdvice(0, new MultiDataSourceStreamingInterceptor(
+                    () -> repositoryBeanFactory
+                        .getBean(transactionManagerName, PlatformTransactionManager.class)
+                ));
+              }
+              if (isGeneratedRepository
+                  && batchingInterceptor.hasBatchedFindByIdMethods(repositoryInterface)) {
+                batchingInterceptor.addRepository(
+                    repositoryInterface,
+                    repositoryFactory.getEntityInformation(repositoryInformation.getDomainType())
+                );
+                proxyFactory.addAdvice(0, batchingInterceptor);
+              }
+              if (coalescingInterceptor.hasCoalescedReadMethods(repositoryInterface)) {
+                proxyFactory.addAdvice(0, coalescingInterceptor);
+              }
+              if (!isGeneratedRepository
+                  || cachingInterceptor.hasCachedReadMethods(repositoryInterface)) {
+                cachingInterceptor
+                    .addRepository(repositoryInterface, repositoryInformation.getDomainType());
+                proxyFactory.addAdvice(0, cachingInterceptor);
+              }
+              if (!isGeneratedRepository && readYourWritesInterceptor != null) {
+                proxyFactory.addAdvice(0, readYourWritesInterceptor);
+              }
+            }
+        )
+    );
+    return bean;
+  }
+
+  /**
+   * Get the name of the transaction manager bean of a repository, from the bean definition of its
+   * repository factory bean.
+   *
+   * @param beanName the name of the repository factory bean
+   * @return the name of the transaction manager bean, or null if it is not known
+   */
+  private @Nullable String getTransactionManagerName(@Nonnull String beanName) {
+    if (beanFactory == null || !beanFactory.containsBeanDefinition(beanName)) {
+      return null;
+    }
+
+    final PropertyValue transactionManager = beanFactory.getBeanDefinition(beanName)
+        .getPropertyValues()
+        .getPropertyValue(TRANSACTION_MANAGER_PROPERTY_NAME);
+    return transactionManager != null && transactionManager.getValue() instanceof String
+        ? (String) transactionManager.getValue() : null;
+  }
+
+  public @Nonnull MultiDataSourceCoalescingInterceptor getCoalescingInterceptor() {
+    return coalescingInterceptor;
+  }
+
+  public @Nonnull MultiDataSourceBatchingInterceptor getBatchingInterceptor() {
+    return batchingInterceptor;
+  }
+
+  public @Nonnull MultiDataSourceCachingInterceptor getCachingInterceptor() {
+    return cachingInterceptor;
+  }
+
+  public @Nullable MultiDataSourceReadYourWritesInterceptor getReadYourWritesInterceptor() {
+    return readYourWritesInterceptor;
+  }
+}
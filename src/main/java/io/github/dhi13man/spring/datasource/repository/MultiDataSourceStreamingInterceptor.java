@@ -0,0 +1,110 @@
+package io.github.dhi13man.spring.datasource.repository;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * {@link MethodInterceptor} keeping a read-only transaction open around the {@link Stream}
+ * returned by a repository method called outside a transaction, until the stream is closed.
+ * <p>
+ * Spring Data JPA only streams results inside a surrounding transaction, as the rows are read from
+ * an open cursor of the connection of the transaction. Calls made outside one begin a read-only
+ * transaction on the transaction manager of the repository, which is committed when the stream is
+ * closed, so the stream has to be consumed and closed on the thread of the call (eg. with
+ * try-with-resources). Calls inside a transaction, and methods not returning a stream, proceed as
+ * is.
+ */
+public class MultiDataSourceStreamingInterceptor implements MethodInterceptor {
+
+  private static final @Nonnull TransactionDefinition READ_ONLY_TRANSACTION_DEFINITION =
+      createReadOnlyTransactionDefinition();
+
+  private final @Nonnull Supplier<PlatformTransactionManager> transactionManagerSupplier;
+
+  /**
+   * Constructor for the streaming interceptor of a repository.
+   *
+   * @param transactionManagerSupplier the supplier of the transaction manager of the repository,
+   *                                   called on the first stream opened outside a transaction
+   */
+  public MultiDataSourceStreamingInterceptor(
+      @Nonnull Supplier<PlatformTransactionManager> transactionManagerSupplier
+  ) {
+    this.transactionManagerSupplier = transactionManagerSupplier;
+  }
+
+  /**
+   * Whether any method of a repository interface returns a {@link Stream}, and hence needs this
+   * interceptor.
+   *
+   * @param repositoryInterface the repository interface
+   * @return whether any method of the repository interface returns a stream
+   */
+  public static boolean hasStreamMethods(@Nonnull Class<?> repositoryInterface) {
+    return Arrays.stream(repositoryInterface.getMethods())
+        .anyMatch(MultiDataSourceStreamingInterceptor::isStream);
+  }
+
+  @Override
+  public @Nullable Object invoke(@Nonnull MethodInvocation invocation) throws Throwable {
+    if (!isStream(invocation.getMethod())
+        || TransactionSynchronizationManager.isActualTransactionActive()) {
+      return invocation.proceed();
+    }
+
+    final PlatformTransactionManager transactionManager = transactionManagerSupplier.get();
+    final TransactionStatus transaction = transactionManager
+        .getTransaction(READ_ONLY_TRANSACTION_DEFINITION);
+    final Stream<?> stream;
+    try {
+      stream = (Stream<?>) invocation.proceed();
+    } catch (Throwable e) {
+      transactionManager.rollback(transaction);
+      throw e;
+    }
+
+    if (stream == null) {
+      transactionManager.commit(transaction);
+      return null;
+    }
+
+    // The close handler of the cursor was registered first, so it is closed before the commit
+    return stream.onClose(() -> {
+      if (!transaction.isCompleted()) {
+        transactionManager.commit(transaction);
+      }
+    });
+  }
+
+  /**
+   * Whether a repository method returns a {@link Stream}.
+   *
+   * @param method the repository method
+   * @return whether the method returns a stream
+   */
+  private static boolean isStream(@Nonnull Method method) {
+    return Stream.class.isAssignableFrom(method.getReturnType());
+  }
+
+  /**
+   * Create the {@link TransactionDefinition} of the read-only transactions opened for the streams.
+   *
+   * @return the read-only {@link TransactionDefinition}
+   */
+  private static @Nonnull TransactionDefinition createReadOnlyTransactionDefinition() {
+    final DefaultTransactionDefinition transactionDefinition = new DefaultTransactionDefinition();
+    transactionDefinition.setReadOnly(true);
+    return transactionDefinition;
+  }
+}
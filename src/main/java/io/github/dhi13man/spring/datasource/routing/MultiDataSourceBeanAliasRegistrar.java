@@ -0,0 +1,53 @@
+package io.github.dhi13man.spring.datasource.routing;
+
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.DataSourceConfig;
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.RoutingMode;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+
+/**
+ * {@link BeanDefinitionRegistryPostProcessor} registering the entity manager factory bean names of
+ * the {@link DataSourceConfig#schemaEquivalent()} secondary data sources as aliases of the primary
+ * entity manager factory in {@link RoutingMode#RUNTIME_ROUTING}, as they share it instead of
+ * building their own.
+ * <p>
+ * The aliases are registered before any bean is created, so that the beans and qualifiers
+ * referring to the entity manager factories of these data sources by name get the shared one.
+ */
+public class MultiDataSourceBeanAliasRegistrar implements BeanDefinitionRegistryPostProcessor {
+
+  private static final Log LOGGER = LogFactory.getLog(MultiDataSourceBeanAliasRegistrar.class);
+
+  private final @Nonnull Map<String, String> aliasToBeanName;
+
+  /**
+   * Constructor for the bean alias registrar.
+   *
+   * @param aliasToBeanName the aliases to register, mapped to the bean names they are aliases of
+   */
+  public MultiDataSourceBeanAliasRegistrar(@Nonnull Map<String, String> aliasToBeanName) {
+    this.aliasToBeanName = new LinkedHashMap<>(aliasToBeanName);
+  }
+
+  @Override
+  public void postProcessBeanDefinitionRegistry(@Nonnull BeanDefinitionRegistry registry)
+      throws BeansException {
+    aliasToBeanName.forEach((alias, beanName) -> {
+      registry.registerAlias(beanName, alias);
+      LOGGER.info("Registered bean " + alias + " as an alias of the shared bean " + beanName);
+    });
+  }
+
+  @Override
+  public void postProcessBeanFactory(@Nonnull ConfigurableListableBeanFactory beanFactory)
+      throws BeansException {
+    // The aliases are registered with the bean definitions
+  }
+}
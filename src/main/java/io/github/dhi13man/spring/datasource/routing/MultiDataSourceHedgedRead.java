@@ -0,0 +1,317 @@
+package io.github.dhi13man.spring.datasource.routing;
+
+import io.github.dhi13man.spring.datasource.annotations.HedgedRead;
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceSharedExecutor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * {@link HedgedRead} of a repository method: runs every call on one of its data sources, and
+ * hedges it on the next one if it is slow.
+ * <p>
+ * The hedging delay is the delay percentile of a window of the recent latencies of the method,
+ * recomputed every few calls, and never below the minimum delay. No calls are hedged until the
+ * window holds enough latencies. Every call earns a fraction of a hedge (the maximum extra load
+ * percentage), and every hedge spends a whole one, which caps the extra calls.
+ * <p>
+ * Hedged calls run both attempts on the executor, with the data source and the writes of the
+ * calling thread, and the loser is cancelled by interrupting its executor thread, never the calling
+ * thread. Calls inside an active transaction are never hedged, and run on the calling thread with
+ * its connection. A call the executor has no room for runs on the calling thread, and a hedge the
+ * executor has no room for is skipped.
+ */
+public class MultiDataSourceHedgedRead {
+
+  /**
+   * Number of recent latencies the hedging delay is computed from.
+   */
+  static final int LATENCY_WINDOW_SIZE = 128;
+
+  /**
+   * Number of latencies observed before any call is hedged.
+   */
+  static final int MIN_LATENCY_SAMPLES = 16;
+
+  private static final int DELAY_RECOMPUTE_INTERVAL = 16;
+
+  private static final int HEDGE_COST = 100;
+
+  private static final int MAX_HEDGE_BURST = 10;
+
+  private final @Nonnull String name;
+
+  private final int delayPercentile;
+
+  private final long minDelayNanos;
+
+  private final int maxExtraLoadPercent;
+
+  private final @Nonnull ExecutorService executor;
+
+  private final @Nonnull AtomicLongArray latencyWindow = new AtomicLongArray(LATENCY_WINDOW_SIZE);
+
+  private final @Nonnull AtomicLong latencyCount = new AtomicLong();
+
+  private final @Nonnull AtomicInteger nextIndex = new AtomicInteger();
+
+  private final @Nonnull AtomicLong hedgeBudget = new AtomicLong();
+
+  private final @Nonnull LongAdder hedgedCount = new LongAdder();
+
+  private volatile long hedgeDelayNanos = Long.MAX_VALUE;
+
+  /**
+   * Constructor for the hedged read of a repository method, hedging on the shared bounded
+   * executor.
+   *
+   * @param name                the name of the repository method, for the errors
+   * @param delayPercentile     the percentile of the recent latencies to hedge after
+   * @param minDelayMillis      the lowest delay to hedge after
+   * @param maxExtraLoadPercent the cap on the extra calls, as a percentage of the calls
+   */
+  public MultiDataSourceHedgedRead(
+      @Nonnull String name,
+      int delayPercentile,
+      long minDelayMillis,
+      int maxExtraLoadPercent
+  ) {
+    this(
+        name,
+        delayPercentile,
+        minDelayMillis,
+        maxExtraLoadPercent,
+        MultiDataSourceSharedExecutor.getExecutor()
+    );
+  }
+
+  /**
+   * Constructor for the hedged read of a repository method.
+   *
+   * @param name                the name of the repository method, for the errors
+   * @param delayPercentile     the percentile of the recent latencies to hedge after
+   * @param minDelayMillis      the lowest delay to hedge after
+   * @param maxExtraLoadPercent the cap on the extra calls, as a percentage of the calls
+   * @param executor            the executor to run the hedged calls on
+   */
+  public MultiDataSourceHedgedRead(
+      @Nonnull String name,
+      int delayPercentile,
+      long minDelayMillis,
+      int maxExtraLoadPercent,
+      @Nonnull ExecutorService executor
+  ) {
+    this.name = name;
+    this.delayPercentile = Math.min(99, Math.max(1, delayPercentile));
+    this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+    this.maxExtraLoadPercent = Math.min(100, Math.max(1, maxExtraLoadPercent));
+    this.executor = executor;
+  }
+
+  /**
+   * Run a call of the repository method on one of its data sources, hedging it on the next one if
+   * it is slow.
+   *
+   * @param calls the call of the repository method on each of its data sources
+   * @param <T>   the type of the result of the method
+   * @return the first successful result
+   * @throws RuntimeException      the exception of the first call, if every call fails
+   * @throws CancellationException if the thread is interrupted while waiting for the result
+   */
+  @SafeVarargs
+  public final <T> T execute(@Nonnull Supplier<T>... calls) {
+    final List<Callable<T>> callables = new ArrayList<>(calls.length);
+    for (final Supplier<T> call : calls) {
+      callables.add(call::get);
+    }
+    try {
+      return this.invoke(callables);
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IllegalStateException("Hedged read " + name + " failed", e);
+    }
+  }
+
+  public long getHedgedCount() {
+    return hedgedCount.sum();
+  }
+
+  public long getHedgeDelayNanos() {
+    return hedgeDelayNanos;
+  }
+
+  /**
+   * Run a call of the repository method on one of its data sources, and hedge it on the next one
+   * if it is slow.
+   * <p>
+   * Calls which can not be hedged (before the warm-up, with a single data source, or inside an
+   * active transaction whose connection the other data sources could not share) run on the calling
+   * thread. Hedged calls run both attempts on the executor, and the calling thread only waits for
+   * them, so cancelling the loser never interrupts the calling thread.
+   *
+   * @param calls the call of the repository method on each of its data sources
+   * @param <T>   the type of the result of the method
+   * @return the first successful result
+   * @throws Exception             the exception of the first call, if every call fails
+   * @throws CancellationException if the thread is interrupted while waiting for the result
+   */
+  <T> T invoke(@Nonnull List<Callable<T>> calls) throws Exception {
+    final int firstIndex = Math.floorMod(nextIndex.getAndIncrement(), calls.size());
+    hedgeBudget.updateAndGet(
+        budget -> Math.min((long) HEDGE_COST * MAX_HEDGE_BURST, budget + maxExtraLoadPercent)
+    );
+
+    final long startNanos = System.nanoTime();
+    final long delayNanos = hedgeDelayNanos;
+    final Callable<T> firstCall = calls.get(firstIndex);
+    if (calls.size() < 2 || delayNanos == Long.MAX_VALUE
+        || TransactionSynchronizationManager.isActualTransactionActive()) {
+      return this.recordResult(firstCall.call(), startNanos);
+    }
+
+    final CompletionService<T> completionService = new ExecutorCompletionService<>(executor);
+    final List<Future<T>> futures = new ArrayList<>(2);
+    try {
+      // Wrapped on the calling thread, so both attempts read with its data source and writes
+      final Future<T> firstFuture;
+      try {
+        firstFuture = completionService
+            .submit(MultiDataSourceRoutingContext.wrapCallable(firstCall));
+      } catch (RejectedExecutionException e) {
+        return this.recordResult(firstCall.call(), startNanos);
+      }
+      futures.add(firstFuture);
+
+      Future<T> doneFuture = completionService.poll(delayNanos, TimeUnit.NANOSECONDS);
+      final Future<T> hedgeFuture = doneFuture != null ? null
+          : this.startHedge(completionService, calls.get((firstIndex + 1) % calls.size()));
+      if (hedgeFuture != null) {
+        futures.add(hedgeFuture);
+      }
+
+      // The first successful result wins, and a failure only counts once every call failed
+      Exception firstFailure = null;
+      for (int pendingCount = futures.size(); pendingCount > 0; pendingCount--) {
+        final Future<T> future = doneFuture != null ? doneFuture : completionService.take();
+        doneFuture = null;
+        try {
+          return this.recordResult(future.get(), startNanos);
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof Error) {
+            throw (Error) e.getCause();
+          }
+          if (future == firstFuture || firstFailure == null) {
+            firstFailure = (Exception) e.getCause();
+          }
+        }
+      }
+      throw firstFailure;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      final CancellationException cancellationException =
+          new CancellationException("Interrupted while waiting for hedged read " + name);
+      cancellationException.initCause(e);
+      throw cancellationException;
+    } finally {
+      // Only interrupts the executor thread of the call still running, if any
+      futures.forEach(future -> future.cancel(true));
+    }
+  }
+
+  /**
+   * Start the hedge of a call which is still running, if the budget allows one and the executor
+   * has room for it.
+   *
+   * @param completionService the completion service running the attempts of the call
+   * @param hedgeCall         the call to hedge with
+   * @param <T>               the type of the result of the method
+   * @return the {@link Future} of the hedge, or null if it was skipped
+   */
+  private <T> @Nullable Future<T> startHedge(
+      @Nonnull CompletionService<T> completionService,
+      @Nonnull Callable<T> hedgeCall
+  ) {
+    if (!this.tryAcquireHedge()) {
+      return null;
+    }
+    try {
+      final Future<T> hedgeFuture = completionService
+          .submit(MultiDataSourceRoutingContext.wrapCallable(hedgeCall));
+      hedgedCount.increment();
+      return hedgeFuture;
+    } catch (RejectedExecutionException e) {
+      hedgeBudget.addAndGet(HEDGE_COST);
+      return null;
+    }
+  }
+
+  /**
+   * Record the latency of a successful call, and return its result.
+   *
+   * @param result     the result of the call
+   * @param startNanos the time the call started at
+   * @param <T>        the type of the result of the method
+   * @return the result of the call
+   */
+  private <T> T recordResult(T result, long startNanos) {
+    this.recordLatency(System.nanoTime() - startNanos);
+    return result;
+  }
+
+  /**
+   * Spend a hedge from the budget, if there is one left.
+   *
+   * @return whether a hedge was spent
+   */
+  private boolean tryAcquireHedge() {
+    while (true) {
+      final long budget = hedgeBudget.get();
+      if (budget < HEDGE_COST) {
+        return false;
+      }
+      if (hedgeBudget.compareAndSet(budget, budget - HEDGE_COST)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Record the latency of a call in the window, and recompute the hedging delay every few calls.
+   *
+   * @param latencyNanos the time the call took to return a result
+   */
+  private void recordLatency(long latencyNanos) {
+    final long count = latencyCount.incrementAndGet();
+    latencyWindow.set((int) ((count - 1) % LATENCY_WINDOW_SIZE), latencyNanos);
+    if (count < MIN_LATENCY_SAMPLES || count % DELAY_RECOMPUTE_INTERVAL != 0) {
+      return;
+    }
+
+    final int sampleCount = (int) Math.min(count, LATENCY_WINDOW_SIZE);
+    final long[] latencies = new long[sampleCount];
+    for (int i = 0; i < sampleCount; i++) {
+      latencies[i] = latencyWindow.get(i);
+    }
+    Arrays.sort(latencies);
+    final int percentileIndex = (int) Math.ceil(delayPercentile / 100.0 * sampleCount) - 1;
+    hedgeDelayNanos = Math.max(minDelayNanos, latencies[Math.max(0, percentileIndex)]);
+  }
+}
@@ -0,0 +1,248 @@
+package io.github.dhi13man.spring.datasource.routing;
+
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceSharedExecutor;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.annotation.Nonnull;
+
+/**
+ * Range-partitioned scan of a large keyed range (eg. for exports and reindexing), read in parallel
+ * from one or more data sources.
+ * <p>
+ * The range of keys is split into sub-ranges, which are read by the readers of the data sources in
+ * a round-robin, at most the maximum concurrency at the same time. The rows are streamed back in
+ * the order of the sub-ranges, and only the sub-ranges being read or waiting to be consumed are
+ * held in memory, so a scan of millions of rows keeps a bounded footprint while the data sources
+ * are read in parallel.
+ * <p>
+ * The reads run on a shared bounded pool of daemon threads (or the consuming thread, when the pool
+ * is full), with the data source routing of the consuming thread but outside its transaction. The
+ * maximum concurrency should leave connections of the data sources to the rest of the service, ie.
+ * stay below the sum of the maximum pool sizes of the data sources. Readers of repositories routed
+ * at runtime can be routed to their data sources with {@link #routedTo(String, RangeReader)}.
+ *
+ * @param <T> the type of the rows scanned
+ */
+public class MultiDataSourceRangeScan<T> {
+
+  private final @Nonnull String name;
+
+  private final int maxConcurrency;
+
+  private final @Nonnull List<RangeReader<T>> readers;
+
+  private final @Nonnull ExecutorService executor;
+
+  /**
+   * Constructor for a range scan, on the shared bounded executor.
+   *
+   * @param name           the name of the scan, for the errors
+   * @param maxConcurrency the most sub-ranges read at the same time
+   * @param readers        the reader of the rows of a sub-range on each data source to scan
+   * @throws IllegalArgumentException if there are no readers or the concurrency is not positive
+   */
+  public MultiDataSourceRangeScan(
+      @Nonnull String name,
+      int maxConcurrency,
+      @Nonnull List<RangeReader<T>> readers
+  ) {
+    this(name, maxConcurrency, readers, MultiDataSourceSharedExecutor.getExecutor());
+  }
+
+  /**
+   * Constructor for a range scan.
+   *
+   * @param name           the name of the scan, for the errors
+   * @param maxConcurrency the most sub-ranges read at the same time
+   * @param readers        the reader of the rows of a sub-range on each data source to scan
+   * @param executor       the executor to read the sub-ranges on, which may be bounded
+   * @throws IllegalArgumentException if there are no readers or the concurrency is not positive
+   */
+  public MultiDataSourceRangeScan(
+      @Nonnull String name,
+      int maxConcurrency,
+      @Nonnull List<RangeReader<T>> readers,
+      @Nonnull ExecutorService executor
+  ) {
+    if (readers.isEmpty() || maxConcurrency < 1) {
+      throw new IllegalArgumentException("Range scan " + name + " needs at least one reader and a"
+          + " positive maximum concurrency, but got " + readers.size() + " readers and a maximum"
+          + " concurrency of " + maxConcurrency);
+    }
+
+    this.name = name;
+    this.maxConcurrency = maxConcurrency;
+    this.readers = List.copyOf(readers);
+    this.executor = executor;
+  }
+
+  /**
+   * Wrap a reader so that it reads from a data source routed at runtime, through the
+   * {@link MultiDataSourceRoutingContext}.
+   *
+   * @param dataSourceName the name of the data source to route the reader to
+   * @param reader         the reader of an original repository
+   * @param <T>            the type of the rows read
+   * @return the reader routed to the data source
+   */
+  public static <T> @Nonnull RangeReader<T> routedTo(
+      @Nonnull String dataSourceName,
+      @Nonnull RangeReader<T> reader
+  ) {
+    return (fromInclusive, toExclusive) -> MultiDataSourceRoutingContext.callWithDataSource(
+        dataSourceName,
+        () -> reader.read(fromInclusive, toExclusive)
+    );
+  }
+
+  /**
+   * Scan a range of keys, split into sub-ranges of about the same length read in parallel.
+   * <p>
+   * The sub-ranges are only read as the stream is consumed, keeping at most the maximum
+   * concurrency of them ahead of it. Closing the stream cancels the reads in flight. The first
+   * failed read is thrown when the stream reaches its sub-range.
+   *
+   * @param fromInclusive  the lowest key of the range
+   * @param toExclusive    the key after the highest key of the range
+   * @param partitionCount the number of sub-ranges to split the range into, at most one per key
+   * @return the stream of the rows of the sub-ranges, in the order of the sub-ranges
+   * @throws IllegalArgumentException if the number of sub-ranges is not positive
+   */
+  public @Nonnull Stream<T> scan(long fromInclusive, long toExclusive, int partitionCount) {
+    if (partitionCount < 1) {
+      throw new IllegalArgumentException("Range scan " + name + " can not be split into "
+          + partitionCount + " sub-ranges");
+    }
+
+    final SubRangeIterator iterator = new SubRangeIterator(
+        fromInclusive,
+        toExclusive,
+        partitionCount
+    );
+    return StreamSupport
+        .stream(
+            Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL),
+            false
+        )
+        .onClose(iterator::cancel)
+        .flatMap(List::stream);
+  }
+
+  /**
+   * Reader of the rows of a sub-range of keys on a data source, eg. a repository method like
+   * {@code findAllByIdGreaterThanEqualAndIdLessThanOrderById}.
+   *
+   * @param <T> the type of the rows read
+   */
+  @FunctionalInterface
+  public interface RangeReader<T> {
+
+    /**
+     * Read the rows of a sub-range of keys.
+     *
+     * @param fromInclusive the lowest key of the sub-range
+     * @param toExclusive   the key after the highest key of the sub-range
+     * @return the rows of the sub-range
+     */
+    @Nonnull List<T> read(long fromInclusive, long toExclusive);
+  }
+
+  /**
+   * {@link Iterator} over the rows of the sub-ranges of a scan, reading the sub-ranges ahead of it
+   * in parallel.
+   */
+  private class SubRangeIterator implements Iterator<List<T>> {
+
+    private final long fromInclusive;
+
+    private final long partitionLength;
+
+    private final long remainder;
+
+    private final int partitionCount;
+
+    private final @Nonnull Queue<Future<List<T>>> reads = new ArrayDeque<>();
+
+    private int nextPartition;
+
+    SubRangeIterator(long fromInclusive, long toExclusive, int partitionCount) {
+      final long length = toExclusive > fromInclusive
+          ? Math.subtractExact(toExclusive, fromInclusive) : 0;
+      this.fromInclusive = fromInclusive;
+      this.partitionCount = (int) Math.min(partitionCount, length);
+      this.partitionLength = this.partitionCount == 0 ? 0 : length / this.partitionCount;
+      this.remainder = this.partitionCount == 0 ? 0 : length % this.partitionCount;
+    }
+
+    @Override
+    public boolean hasNext() {
+      this.readAhead();
+      return !reads.isEmpty();
+    }
+
+    @Override
+    public @Nonnull List<T> next() {
+      this.readAhead();
+      final Future<List<T>> read = reads.poll();
+      if (read == null) {
+        throw new NoSuchElementException();
+      }
+
+      try {
+        return read.get();
+      } catch (ExecutionException e) {
+        this.cancel();
+        final Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new IllegalStateException("Range scan " + name + " failed", cause);
+      } catch (InterruptedException e) {
+        this.cancel();
+        Thread.currentThread().interrupt();
+        final CancellationException cancellationException = new CancellationException(
+            "Range scan " + name + " was interrupted"
+        );
+        cancellationException.initCause(e);
+        throw cancellationException;
+      }
+    }
+
+    /**
+     * Start reading the next sub-ranges, until the maximum concurrency of them are ahead.
+     */
+    private void readAhead() {
+      while (reads.size() < maxConcurrency && nextPartition < partitionCount) {
+        // The first sub-ranges are one key longer, to spread the remainder of the keys
+        final int partition = nextPartition++;
+        final long from = fromInclusive + partition * partitionLength
+            + Math.min(partition, remainder);
+        final long to = from + partitionLength + (partition < remainder ? 1 : 0);
+        final RangeReader<T> reader = readers.get(partition % readers.size());
+        reads.add(MultiDataSourceSharedExecutor.submitOrRun(executor, () -> reader.read(from, to)));
+      }
+    }
+
+    /**
+     * Cancel the reads in flight, and stop reading further sub-ranges.
+     */
+    void cancel() {
+      nextPartition = partitionCount;
+      reads.forEach(read -> read.cancel(true));
+      reads.clear();
+    }
+  }
+}
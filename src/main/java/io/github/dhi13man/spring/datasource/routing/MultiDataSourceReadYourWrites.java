@@ -0,0 +1,62 @@
+package io.github.dhi13man.spring.datasource.routing;
+
+import io.github.dhi13man.spring.datasource.annotations.ReadYourWrites;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nonnull;
+
+/**
+ * {@link ReadYourWrites} stickiness of a secondary data source, deciding whether its connections
+ * are opened on the primary data source, as the current session wrote to it recently.
+ */
+public class MultiDataSourceReadYourWrites {
+
+  /**
+   * Suffix of the bean name of the stickiness, after the name of its data source.
+   */
+  public static final String BEAN_NAME_SUFFIX = "-read-your-writes";
+
+  private final @Nonnull String dataSourceName;
+
+  private final long windowMillis;
+
+  private final @Nonnull LongAdder stickyCount = new LongAdder();
+
+  /**
+   * Constructor for the read-your-writes stickiness of a data source.
+   *
+   * @param dataSourceName the name of the data source
+   * @param windowMillis   the time after the last write of a session during which its connections
+   *                       are opened on the primary data source
+   */
+  public MultiDataSourceReadYourWrites(@Nonnull String dataSourceName, long windowMillis) {
+    this.dataSourceName = dataSourceName;
+    this.windowMillis = windowMillis;
+  }
+
+  /**
+   * Whether a connection requested now by the current session is opened on the primary data
+   * source, and record it if so.
+   *
+   * @return whether the connection sticks to the primary data source
+   */
+  public boolean tryStickToPrimary() {
+    if (!MultiDataSourceReadYourWritesContext.isWithinWindow(windowMillis)) {
+      return false;
+    }
+
+    stickyCount.increment();
+    return true;
+  }
+
+  public @Nonnull String getDataSourceName() {
+    return dataSourceName;
+  }
+
+  public long getWindowMillis() {
+    return windowMillis;
+  }
+
+  public long getStickyCount() {
+    return stickyCount.sum();
+  }
+}
@@ -0,0 +1,104 @@
+package io.github.dhi13man.spring.datasource.routing;
+
+import io.github.dhi13man.spring.datasource.annotations.ReadYourWrites;
+import io.github.dhi13man.spring.datasource.routing.MultiDataSourceRoutingContext.RoutedCall;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Holds the time of the last write of the current session to the primary data source, for the
+ * {@link ReadYourWrites} stickiness of the secondary data sources.
+ * <p>
+ * The writes are recorded by the repositories on the current thread, and stay recorded until the
+ * context is cleared, eg. by the {@link MultiDataSourceReadYourWritesFilter} at the end of every
+ * request, so that a pooled thread does not carry them over to the next session. The tasks wrapped
+ * by {@link MultiDataSourceRoutingContext} (and its task decorator) run with the last write of the
+ * thread which submitted them. To keep a session sticky across requests served by different
+ * threads (or instances), its last write can be saved at the end of every request and restored at
+ * the start of the next one, as the filter does in the HTTP session. The time is a wall clock time
+ * in milliseconds, so that it can be carried over.
+ */
+public final class MultiDataSourceReadYourWritesContext {
+
+  private static final ThreadLocal<Long> LAST_PRIMARY_WRITE_MILLIS = new ThreadLocal<>();
+
+  private MultiDataSourceReadYourWritesContext() {
+  }
+
+  /**
+   * Record a write of the current session to the primary data source, made just now.
+   */
+  public static void recordPrimaryWrite() {
+    LAST_PRIMARY_WRITE_MILLIS.set(System.currentTimeMillis());
+  }
+
+  /**
+   * Restore the time of the last write of the current session to the primary data source, unless
+   * a later write is already recorded.
+   *
+   * @param lastPrimaryWriteMillis the wall clock time of the last write, in milliseconds
+   */
+  public static void restoreLastPrimaryWrite(long lastPrimaryWriteMillis) {
+    final Long currentLastPrimaryWriteMillis = LAST_PRIMARY_WRITE_MILLIS.get();
+    if (currentLastPrimaryWriteMillis == null
+        || currentLastPrimaryWriteMillis < lastPrimaryWriteMillis) {
+      LAST_PRIMARY_WRITE_MILLIS.set(lastPrimaryWriteMillis);
+    }
+  }
+
+  /**
+   * Get the time of the last write of the current session to the primary data source.
+   *
+   * @return the wall clock time of the last write in milliseconds, or null if none is recorded
+   */
+  public static @Nullable Long getLastPrimaryWriteMillis() {
+    return LAST_PRIMARY_WRITE_MILLIS.get();
+  }
+
+  /**
+   * Whether the last write of the current session to the primary data source was made within a
+   * window before now.
+   *
+   * @param windowMillis the window in milliseconds
+   * @return whether the current session wrote to the primary data source within the window
+   */
+  public static boolean isWithinWindow(long windowMillis) {
+    final Long lastPrimaryWriteMillis = LAST_PRIMARY_WRITE_MILLIS.get();
+    return lastPrimaryWriteMillis != null
+        && System.currentTimeMillis() - lastPrimaryWriteMillis < windowMillis;
+  }
+
+  /**
+   * Forget the writes of the current session, eg. at the end of a request.
+   */
+  public static void clear() {
+    LAST_PRIMARY_WRITE_MILLIS.remove();
+  }
+
+  /**
+   * Invoke a call with the last write of another thread (eg. the thread which submitted the call
+   * to an executor), restoring the writes of the current thread after it.
+   *
+   * @param lastPrimaryWriteMillis the wall clock time of the last write, in milliseconds
+   * @param call                   the call to invoke
+   * @param <T>                    the type of the result of the call
+   * @return the result of the call
+   * @throws Throwable whatever the call throws
+   */
+  static <T> T invokeWithLastPrimaryWrite(
+      long lastPrimaryWriteMillis,
+      @Nonnull RoutedCall<T> call
+  ) throws Throwable {
+    final Long previousLastPrimaryWriteMillis = LAST_PRIMARY_WRITE_MILLIS.get();
+    LAST_PRIMARY_WRITE_MILLIS.set(lastPrimaryWriteMillis);
+    try {
+      return call.call();
+    } finally {
+      if (previousLastPrimaryWriteMillis == null) {
+        LAST_PRIMARY_WRITE_MILLIS.remove();
+      } else {
+        LAST_PRIMARY_WRITE_MILLIS.set(previousLastPrimaryWriteMillis);
+      }
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package io.github.dhi13man.spring.datasource.routing;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+import javax.annotation.Nonnull;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * {@link DataSource} opening the connections of a secondary data source on the primary data source
+ * instead, while its {@link MultiDataSourceReadYourWrites} sticks the current session to the
+ * primary data source.
+ */
+public class MultiDataSourceReadYourWritesDataSource extends DelegatingDataSource {
+
+  private final @Nonnull MultiDataSourceReadYourWrites readYourWrites;
+
+  private final @Nonnull Supplier<DataSource> primaryDataSourceSupplier;
+
+  /**
+   * Constructor for a read-your-writes data source.
+   *
+   * @param targetDataSource          the secondary data source
+   * @param readYourWrites            the read-your-writes stickiness of the data source
+   * @param primaryDataSourceSupplier the supplier of the primary data source, to stick to
+   */
+  public MultiDataSourceReadYourWritesDataSource(
+      @Nonnull DataSource targetDataSource,
+      @Nonnull MultiDataSourceReadYourWrites readYourWrites,
+      @Nonnull Supplier<DataSource> primaryDataSourceSupplier
+  ) {
+    super(targetDataSource);
+    this.readYourWrites = readYourWrites;
+    this.primaryDataSourceSupplier = primaryDataSourceSupplier;
+  }
+
+  @Override
+  public @Nonnull Connection getConnection() throws SQLException {
+    return readYourWrites.tryStickToPrimary()
+        ? primaryDataSourceSupplier.get().getConnection()
+        : super.getConnection();
+  }
+
+  @Override
+  public @Nonnull Connection getConnection(
+      @Nonnull String username,
+      @Nonnull String password
+  ) throws SQLException {
+    return readYourWrites.tryStickToPrimary()
+        ? primaryDataSourceSupplier.get().getConnection(username, password)
+        : super.getConnection(username, password);
+  }
+
+  public @Nonnull MultiDataSourceReadYourWrites getReadYourWrites() {
+    return readYourWrites;
+  }
+}
@@ -0,0 +1,92 @@
+package io.github.dhi13man.spring.datasource.routing;
+
+import io.github.dhi13man.spring.datasource.annotations.ReadYourWrites;
+import java.io.IOException;
+import javax.annotation.Nonnull;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+/**
+ * Opt-in servlet {@link Filter} scoping the {@link MultiDataSourceReadYourWritesContext} of the
+ * {@link ReadYourWrites} data sources to a request, registered by declaring it as a bean.
+ * <p>
+ * The context is cleared before and after every request, so that a pooled server thread never
+ * carries the writes of one session over to the next. When session sticky, the last write is also
+ * restored from the HTTP session at the start of every request, and saved in it at the end of the
+ * request if the application has created one, so that a session reads its own writes across
+ * requests served by different threads.
+ */
+public class MultiDataSourceReadYourWritesFilter implements Filter {
+
+  /**
+   * Name of the HTTP session attribute holding the last write of a sticky session.
+   */
+  public static final String LAST_PRIMARY_WRITE_MILLIS_ATTRIBUTE_NAME =
+      MultiDataSourceReadYourWritesFilter.class.getName() + ".LAST_PRIMARY_WRITE_MILLIS";
+
+  private final boolean isSessionSticky;
+
+  /**
+   * Constructor for a filter only clearing the context around every request.
+   */
+  public MultiDataSourceReadYourWritesFilter() {
+    this(false);
+  }
+
+  /**
+   * Constructor for a filter clearing the context around every request.
+   *
+   * @param isSessionSticky whether to carry the last write over to the next requests of the HTTP
+   *                        session
+   */
+  public MultiDataSourceReadYourWritesFilter(boolean isSessionSticky) {
+    this.isSessionSticky = isSessionSticky;
+  }
+
+  @Override
+  public void doFilter(
+      @Nonnull ServletRequest request,
+      @Nonnull ServletResponse response,
+      @Nonnull FilterChain chain
+  ) throws IOException, ServletException {
+    final HttpSession session = isSessionSticky && request instanceof HttpServletRequest
+        ? ((HttpServletRequest) request).getSession(false) : null;
+    MultiDataSourceReadYourWritesContext.clear();
+    try {
+      if (session != null) {
+        final Object lastPrimaryWriteMillis = session
+            .getAttribute(LAST_PRIMARY_WRITE_MILLIS_ATTRIBUTE_NAME);
+        if (lastPrimaryWriteMillis instanceof Long) {
+          MultiDataSourceReadYourWritesContext
+              .restoreLastPrimaryWrite((Long) lastPrimaryWriteMillis);
+        }
+      }
+
+      chain.doFilter(request, response);
+      if (isSessionSticky && request instanceof HttpServletRequest) {
+        this.saveLastPrimaryWrite((HttpServletRequest) request);
+      }
+    } finally {
+      MultiDataSourceReadYourWritesContext.clear();
+    }
+  }
+
+  /**
+   * Save the last write of the request in its HTTP session, if the application has created one.
+   *
+   * @param request the request
+   */
+  private void saveLastPrimaryWrite(@Nonnull HttpServletRequest request) {
+    final Long lastPrimaryWriteMillis =
+        MultiDataSourceReadYourWritesContext.getLastPrimaryWriteMillis();
+    final HttpSession session = request.getSession(false);
+    if (lastPrimaryWriteMillis != null && session != null) {
+      session.setAttribute(LAST_PRIMARY_WRITE_MILLIS_ATTRIBUTE_NAME, lastPrimaryWriteMillis);
+    }
+  }
+}
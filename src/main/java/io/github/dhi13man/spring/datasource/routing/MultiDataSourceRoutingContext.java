@@ -0,0 +1,391 @@
+package io.github.dhi13man.spring.datasource.routing;
+
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.RoutingMode;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Holds the name of the data source the current call is routed to, for
+ * {@link RoutingMode#RUNTIME_ROUTING}.
+ * <p>
+ * The {@link MultiDataSourceRoutingDataSource} opens connections on this data source, and falls
+ * back to the primary data source when none is set.
+ * <p>
+ * The data source is bound in a {@code java.lang.ScopedValue} when the JDK supports it, so that
+ * routing millions of virtual threads costs no thread local maps, and in a {@link ThreadLocal}
+ * otherwise. Either way it is only bound for the duration of a call, never synchronizes, and is
+ * not inherited by other threads: tasks handed to executors or {@code CompletableFuture}s carry it
+ * over, along with the last primary write of {@link MultiDataSourceReadYourWritesContext}, only
+ * when wrapped with the {@code wrap} methods or the {@link MultiDataSourceRoutingTaskDecorator}.
+ */
+public final class MultiDataSourceRoutingContext {
+
+  private static final Log LOGGER = LogFactory.getLog(MultiDataSourceRoutingContext.class);
+
+  private static final RoutingContextStorage STORAGE = createStorage();
+
+  private MultiDataSourceRoutingContext() {
+  }
+
+  /**
+   * Get the name of the data source the current call is routed to.
+   *
+   * @return the name of the data source, or null if the current call is not routed
+   */
+  public static @Nullable String getCurrentDataSourceName() {
+    return STORAGE.get();
+  }
+
+  /**
+   * Whether the data source is bound in a {@code java.lang.ScopedValue} rather than a
+   * {@link ThreadLocal} on this JDK.
+   *
+   * @return whether the routing context is backed by a scoped value
+   */
+  public static boolean isScopedValueBacked() {
+    return STORAGE instanceof ScopedValueStorage;
+  }
+
+  /**
+   * Run an action routed to a data source.
+   * <p>
+   * The data source takes precedence over the data sources of any annotated repository method
+   * called by the action. The routing only affects connections opened by the action, so a
+   * transaction already running on the current thread stays on its data source.
+   *
+   * @param dataSourceName the name of the data source to route to
+   * @param action         the action to run
+   */
+  public static void runWithDataSource(
+      @Nonnull String dataSourceName,
+      @Nonnull Runnable action
+  ) {
+    callWithDataSource(dataSourceName, () -> {
+      action.run();
+      return null;
+    });
+  }
+
+  /**
+   * Call a function routed to a data source, and get its result.
+   *
+   * @param dataSourceName the name of the data source to route to
+   * @param function       the function to call
+   * @param <T>            the type of the result of the function
+   * @return the result of the function
+   * @see #runWithDataSource(String, Runnable)
+   */
+  public static <T> T callWithDataSource(
+      @Nonnull String dataSourceName,
+      @Nonnull Supplier<T> function
+  ) {
+    try {
+      return invokeWithDataSource(dataSourceName, function::get);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      // A supplier can only throw unchecked exceptions
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Wrap a {@link Runnable} to run routed to the data source of the current call, with the last
+   * primary write of the current thread ({@link MultiDataSourceReadYourWritesContext}), on
+   * whichever thread it is run.
+   *
+   * @param action the action to wrap
+   * @return the wrapped action, or the action itself if there is no context to carry over
+   */
+  public static @Nonnull Runnable wrapRunnable(@Nonnull Runnable action) {
+    final CapturedContext context = CapturedContext.capture();
+    return context == null ? action : () -> context.callUnchecked(() -> {
+      action.run();
+      return null;
+    });
+  }
+
+  /**
+   * Wrap a {@link Supplier} to be called routed to the data source of the current call, with the
+   * last primary write of the current thread, on whichever thread it is called (eg. for
+   * {@code CompletableFuture.supplyAsync}).
+   *
+   * @param function the function to wrap
+   * @param <T>      the type of the result of the function
+   * @return the wrapped function, or the function itself if there is no context to carry over
+   */
+  public static @Nonnull <T> Supplier<T> wrapSupplier(@Nonnull Supplier<T> function) {
+    final CapturedContext context = CapturedContext.capture();
+    return context == null ? function : () -> context.callUnchecked(function::get);
+  }
+
+  /**
+   * Wrap a {@link Callable} to be called routed to the data source of the current call, with the
+   * last primary write of the current thread, on whichever thread it is called (eg. for
+   * {@code ExecutorService.submit}).
+   *
+   * @param function the function to wrap
+   * @param <T>      the type of the result of the function
+   * @return the wrapped function, or the function itself if there is no context to carry over
+   */
+  public static @Nonnull <T> Callable<T> wrapCallable(@Nonnull Callable<T> function) {
+    final CapturedContext context = CapturedContext.capture();
+    if (context == null) {
+      return function;
+    }
+
+    return () -> {
+      try {
+        return context.call(function::call);
+      } catch (Exception | Error e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new IllegalStateException(e);
+      }
+    };
+  }
+
+  /**
+   * Wrap an {@link Executor} to run every task routed to the data source of the call submitting
+   * it, with its last primary write (eg. as the executor of {@code CompletableFuture}s).
+   *
+   * @param executor the executor to wrap
+   * @return the wrapped executor
+   */
+  public static @Nonnull Executor wrapExecutor(@Nonnull Executor executor) {
+    return task -> executor.execute(wrapRunnable(task));
+  }
+
+  /**
+   * Invoke a call routed to a data source, rethrowing whatever it throws.
+   *
+   * @param dataSourceName the name of the data source to route to
+   * @param call           the call to invoke
+   * @param <T>            the type of the result of the call
+   * @return the result of the call
+   * @throws Throwable whatever the call throws
+   */
+  static <T> T invokeWithDataSource(
+      @Nonnull String dataSourceName,
+      @Nonnull RoutedCall<T> call
+  ) throws Throwable {
+    return STORAGE.invokeWith(dataSourceName, call);
+  }
+
+  /**
+   * Use a {@code java.lang.ScopedValue} if this JDK supports one, and a {@link ThreadLocal}
+   * otherwise.
+   * <p>
+   * The scoped value is only used after binding and reading it once succeeds, as it is a preview
+   * API before JDK 25 which may not be enabled.
+   *
+   * @return the storage of the routing context
+   */
+  private static @Nonnull RoutingContextStorage createStorage() {
+    try {
+      final ScopedValueStorage scopedValueStorage = new ScopedValueStorage();
+      final String probe = MultiDataSourceRoutingContext.class.getName();
+      if (probe.equals(scopedValueStorage.invokeWith(probe, scopedValueStorage::get))
+          && scopedValueStorage.get() == null) {
+        LOGGER.debug("Routing context is backed by java.lang.ScopedValue");
+        return scopedValueStorage;
+      }
+    } catch (Throwable e) {
+      LOGGER.debug("java.lang.ScopedValue is not usable, routing context is backed by a"
+          + " ThreadLocal: " + e);
+    }
+    return new ThreadLocalStorage();
+  }
+
+  /**
+   * A call routed to a data source, which may throw anything (eg. a repository method invocation).
+   *
+   * @param <T> the type of the result of the call
+   */
+  @FunctionalInterface
+  interface RoutedCall<T> {
+
+    T call() throws Throwable;
+  }
+
+  /**
+   * The data source and the last primary write of a thread, captured to call a wrapped task with
+   * them on another thread.
+   */
+  private static class CapturedContext {
+
+    private final @Nullable String dataSourceName;
+
+    private final @Nullable Long lastPrimaryWriteMillis;
+
+    private CapturedContext(
+        @Nullable String dataSourceName,
+        @Nullable Long lastPrimaryWriteMillis
+    ) {
+      this.dataSourceName = dataSourceName;
+      this.lastPrimaryWriteMillis = lastPrimaryWriteMillis;
+    }
+
+    /**
+     * Capture the context of the current thread.
+     *
+     * @return the captured context, or null if there is nothing to carry over
+     */
+    static @Nullable CapturedContext capture() {
+      final String dataSourceName = getCurrentDataSourceName();
+      final Long lastPrimaryWriteMillis =
+          MultiDataSourceReadYourWritesContext.getLastPrimaryWriteMillis();
+      return dataSourceName == null && lastPrimaryWriteMillis == null
+          ? null : new CapturedContext(dataSourceName, lastPrimaryWriteMillis);
+    }
+
+    /**
+     * Call a task with the captured context, restoring the context of the current thread after.
+     *
+     * @param call the call to invoke
+     * @param <T>  the type of the result of the call
+     * @return the result of the call
+     * @throws Throwable whatever the call throws
+     */
+    <T> T call(@Nonnull RoutedCall<T> call) throws Throwable {
+      final RoutedCall<T> routedCall = dataSourceName == null
+          ? call : () -> invokeWithDataSource(dataSourceName, call);
+      if (lastPrimaryWriteMillis == null) {
+        return routedCall.call();
+      }
+      return MultiDataSourceReadYourWritesContext
+          .invokeWithLastPrimaryWrite(lastPrimaryWriteMillis, routedCall);
+    }
+
+    /**
+     * Call a task which can only throw unchecked exceptions with the captured context.
+     *
+     * @param call the call to invoke
+     * @param <T>  the type of the result of the call
+     * @return the result of the call
+     */
+    <T> T callUnchecked(@Nonnull RoutedCall<T> call) {
+      try {
+        return this.call(call);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable e) {
+        // The wrapped runnables and suppliers can only throw unchecked exceptions
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  /**
+   * Storage binding the data source name for the duration of a call.
+   */
+  private interface RoutingContextStorage {
+
+    @Nullable String get();
+
+    <T> T invokeWith(@Nonnull String dataSourceName, @Nonnull RoutedCall<T> call)
+        throws Throwable;
+  }
+
+  /**
+   * {@link RoutingContextStorage} in a {@link ThreadLocal}, restoring the previous data source
+   * after every call.
+   */
+  private static class ThreadLocalStorage implements RoutingContextStorage {
+
+    private final ThreadLocal<String> currentDataSourceName = new ThreadLocal<>();
+
+    @Override
+    public @Nullable String get() {
+      return currentDataSourceName.get();
+    }
+
+    @Override
+    public <T> T invokeWith(
+        @Nonnull String dataSourceName,
+        @Nonnull RoutedCall<T> call
+    ) throws Throwable {
+      final String previousDataSourceName = currentDataSourceName.get();
+      currentDataSourceName.set(dataSourceName);
+      try {
+        return call.call();
+      } finally {
+        if (previousDataSourceName == null) {
+          currentDataSourceName.remove();
+        } else {
+          currentDataSourceName.set(previousDataSourceName);
+        }
+      }
+    }
+  }
+
+  /**
+   * {@link RoutingContextStorage} in a {@code java.lang.ScopedValue}, accessed reflectively as the
+   * library is built for JDKs without it.
+   */
+  private static class ScopedValueStorage implements RoutingContextStorage {
+
+    private final Object scopedValue;
+
+    private final Method whereMethod;
+
+    private final Method runMethod;
+
+    private final Method isBoundMethod;
+
+    private final Method getMethod;
+
+    ScopedValueStorage() throws ReflectiveOperationException {
+      final Class<?> scopedValueClass = Class.forName("java.lang.ScopedValue");
+      final Class<?> carrierClass = Class.forName("java.lang.ScopedValue$Carrier");
+      this.scopedValue = scopedValueClass.getMethod("newInstance").invoke(null);
+      this.whereMethod = scopedValueClass.getMethod("where", scopedValueClass, Object.class);
+      this.runMethod = carrierClass.getMethod("run", Runnable.class);
+      this.isBoundMethod = scopedValueClass.getMethod("isBound");
+      this.getMethod = scopedValueClass.getMethod("get");
+    }
+
+    @Override
+    public @Nullable String get() {
+      try {
+        return (boolean) isBoundMethod.invoke(scopedValue)
+            ? (String) getMethod.invoke(scopedValue) : null;
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T invokeWith(
+        @Nonnull String dataSourceName,
+        @Nonnull RoutedCall<T> call
+    ) throws Throwable {
+      final Object[] result = new Object[1];
+      final Throwable[] failure = new Throwable[1];
+      final Runnable boundCall = () -> {
+        try {
+          result[0] = call.call();
+        } catch (Throwable e) {
+          failure[0] = e;
+        }
+      };
+      try {
+        runMethod.invoke(whereMethod.invoke(null, scopedValue, dataSourceName), boundCall);
+      } catch (InvocationTargetException e) {
+        throw e.getCause();
+      }
+      if (failure[0] != null) {
+        throw failure[0];
+      }
+      return (T) result[0];
+    }
+  }
+}
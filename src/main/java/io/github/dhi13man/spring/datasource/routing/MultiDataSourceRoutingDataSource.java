@@ -0,0 +1,137 @@
+package io.github.dhi13man.spring.datasource.routing;
+
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.DataSourceConfig;
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.RoutingMode;
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceCircuitBreaker;
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceCircuitBreakerDataSource;
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceConcurrencyLimitedDataSource;
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceConcurrencyLimiter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.jdbc.datasource.lookup.BeanFactoryDataSourceLookup;
+
+/**
+ * {@link DataSource} of the primary entity manager factory in {@link RoutingMode#RUNTIME_ROUTING},
+ * opening connections on the data source in the {@link MultiDataSourceRoutingContext}.
+ * <p>
+ * Connections are opened on the primary data source when the current thread is not routed, and
+ * routing to an unknown data source fails instead of silently falling back to the primary. The
+ * connections of {@link DataSourceConfig#readOnly()} data sources are marked read-only. The data
+ * sources with a {@link DataSourceConfig#circuitBreaker()}, a
+ * {@link DataSourceConfig#concurrencyLimit()} or {@link DataSourceConfig#readYourWrites()} are
+ * opened through their {@link MultiDataSourceCircuitBreaker},
+ * {@link MultiDataSourceConcurrencyLimiter} and {@link MultiDataSourceReadYourWrites} beans.
+ */
+public class MultiDataSourceRoutingDataSource extends AbstractRoutingDataSource {
+
+  private final @Nonnull BeanFactory beanFactory;
+
+  private final @Nonnull String primaryDataSourceBeanName;
+
+  private final @Nonnull Map<String, String> beanNameToDataSourceName;
+
+  private final @Nonnull Set<String> readOnlyDataSourceNames;
+
+  /**
+   * Constructor for the routing data source.
+   *
+   * @param beanFactory               the {@link BeanFactory} to get the data sources from
+   * @param primaryDataSourceBeanName the bean name of the primary {@link DataSource}
+   * @param dataSourceNameToBeanName  the names of all the data sources mapped to their
+   *                                  {@link DataSource} bean names
+   * @param readOnlyDataSourceNames   the names of the read-only data sources
+   */
+  public MultiDataSourceRoutingDataSource(
+      @Nonnull BeanFactory beanFactory,
+      @Nonnull String primaryDataSourceBeanName,
+      @Nonnull Map<String, String> dataSourceNameToBeanName,
+      @Nonnull Set<String> readOnlyDataSourceNames
+  ) {
+    this.beanFactory = beanFactory;
+    this.primaryDataSourceBeanName = primaryDataSourceBeanName;
+    this.beanNameToDataSourceName = dataSourceNameToBeanName.entrySet().stream()
+        .collect(Collectors.toMap(Map.Entry::getValue, Map.Entry::getKey, (first, later) -> first));
+    this.readOnlyDataSourceNames = Set.copyOf(readOnlyDataSourceNames);
+    this.setDataSourceLookup(new BeanFactoryDataSourceLookup(beanFactory));
+    this.setDefaultTargetDataSource(primaryDataSourceBeanName);
+    this.setTargetDataSources(new HashMap<>(dataSourceNameToBeanName));
+    this.setLenientFallback(false);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return this.applyReadOnly(super.getConnection());
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return this.applyReadOnly(super.getConnection(username, password));
+  }
+
+  @Override
+  protected @Nonnull DataSource resolveSpecifiedDataSource(@Nonnull Object dataSource) {
+    DataSource resolvedDataSource = super.resolveSpecifiedDataSource(dataSource);
+    final String dataSourceName = beanNameToDataSourceName.get(dataSource);
+    if (dataSourceName == null) {
+      return resolvedDataSource;
+    }
+
+    final String circuitBreakerBeanName = dataSourceName
+        + MultiDataSourceCircuitBreaker.BEAN_NAME_SUFFIX;
+    if (beanFactory.containsBean(circuitBreakerBeanName)) {
+      resolvedDataSource = new MultiDataSourceCircuitBreakerDataSource(
+          resolvedDataSource,
+          beanFactory.getBean(circuitBreakerBeanName, MultiDataSourceCircuitBreaker.class),
+          beanFactory
+      );
+    }
+    final String concurrencyLimiterBeanName = dataSourceName
+        + MultiDataSourceConcurrencyLimiter.BEAN_NAME_SUFFIX;
+    if (beanFactory.containsBean(concurrencyLimiterBeanName)) {
+      resolvedDataSource = new MultiDataSourceConcurrencyLimitedDataSource(
+          resolvedDataSource,
+          beanFactory.getBean(concurrencyLimiterBeanName, MultiDataSourceConcurrencyLimiter.class),
+          () -> beanFactory.getBean(primaryDataSourceBeanName, DataSource.class)
+      );
+    }
+    final String readYourWritesBeanName = dataSourceName
+        + MultiDataSourceReadYourWrites.BEAN_NAME_SUFFIX;
+    if (beanFactory.containsBean(readYourWritesBeanName)) {
+      resolvedDataSource = new MultiDataSourceReadYourWritesDataSource(
+          resolvedDataSource,
+          beanFactory.getBean(readYourWritesBeanName, MultiDataSourceReadYourWrites.class),
+          () -> beanFactory.getBean(primaryDataSourceBeanName, DataSource.class)
+      );
+    }
+    return resolvedDataSource;
+  }
+
+  @Override
+  protected @Nullable Object determineCurrentLookupKey() {
+    return MultiDataSourceRoutingContext.getCurrentDataSourceName();
+  }
+
+  /**
+   * Mark a connection read-only if it was opened on a read-only data source.
+   *
+   * @param connection the connection opened on the current data source
+   * @return the connection
+   * @throws SQLException if the connection can not be marked read-only
+   */
+  private @Nonnull Connection applyReadOnly(@Nonnull Connection connection) throws SQLException {
+    final Object dataSourceName = this.determineCurrentLookupKey();
+    if (dataSourceName != null && readOnlyDataSourceNames.contains(dataSourceName)) {
+      connection.setReadOnly(true);
+    }
+    return connection;
+  }
+}
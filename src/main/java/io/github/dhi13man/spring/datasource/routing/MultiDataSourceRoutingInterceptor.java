@@ -0,0 +1,226 @@
+package io.github.dhi13man.spring.datasource.routing;
+
+import io.github.dhi13man.spring.datasource.annotations.AsyncExecutor;
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.RoutingMode;
+import io.github.dhi13man.spring.datasource.annotations.HedgedRead;
+import io.github.dhi13man.spring.datasource.annotations.TargetSecondaryDataSource;
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceBulkheadExecutor;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+
+/**
+ * {@link MethodInterceptor} of the repositories in {@link RoutingMode#RUNTIME_ROUTING}, routing
+ * every call of a method annotated with {@link TargetSecondaryDataSource} to its data source.
+ * <p>
+ * Methods annotated with several data sources are routed to them in a round-robin. Calls made while
+ * the current thread is already routed (eg. through
+ * {@link MultiDataSourceRoutingContext#callWithDataSource}) keep that data source.
+ * <p>
+ * Methods returning a {@link CompletableFuture} are run on the {@link AsyncExecutor} of their data
+ * source, if it has one, as the repository copies would with {@code @Async}. Methods annotated with
+ * {@link HedgedRead} are hedged across their data sources.
+ */
+public class MultiDataSourceRoutingInterceptor implements MethodInterceptor, BeanFactoryAware {
+
+  private final @Nonnull Map<Method, RoutingTarget> methodToRoutingTargetMap =
+      new ConcurrentHashMap<>();
+
+  private final @Nonnull Map<String, Executor> dataSourceNameToAsyncExecutorMap =
+      new ConcurrentHashMap<>();
+
+  private @Nullable BeanFactory beanFactory;
+
+  @Override
+  public void setBeanFactory(@Nonnull BeanFactory beanFactory) {
+    this.beanFactory = beanFactory;
+  }
+
+  /**
+   * Whether any method of a repository interface is annotated with
+   * {@link TargetSecondaryDataSource}, and hence needs this interceptor.
+   *
+   * @param repositoryInterface the repository interface
+   * @return whether any method of the repository interface is annotated
+   */
+  public boolean hasTargetSecondaryDataSourceMethods(@Nonnull Class<?> repositoryInterface) {
+    return Arrays.stream(repositoryInterface.getMethods())
+        .map(method -> method.getAnnotationsByType(TargetSecondaryDataSource.class))
+        .anyMatch(annotations -> annotations.length > 0);
+  }
+
+  @Override
+  public @Nullable Object invoke(@Nonnull MethodInvocation invocation) throws Throwable {
+    if (MultiDataSourceRoutingContext.getCurrentDataSourceName() != null) {
+      return invocation.proceed();
+    }
+
+    final RoutingTarget routingTarget = methodToRoutingTargetMap
+        .computeIfAbsent(invocation.getMethod(), RoutingTarget::new);
+    if (routingTarget.hedgedRead != null && invocation instanceof ProxyMethodInvocation) {
+      final ProxyMethodInvocation proxyInvocation = (ProxyMethodInvocation) invocation;
+      final List<Callable<Object>> calls = Arrays.stream(routingTarget.dataSourceNames)
+          .map(name -> this.createRoutedCall(name, proxyInvocation.invocableClone()))
+          .collect(Collectors.toList());
+      return routingTarget.hedgedRead.invoke(calls);
+    }
+
+    final String dataSourceName = routingTarget.nextDataSourceName();
+    if (dataSourceName == null) {
+      return invocation.proceed();
+    }
+
+    final Executor asyncExecutor = routingTarget.isCompletableFuture
+        ? this.getAsyncExecutor(dataSourceName) : null;
+    if (asyncExecutor == null) {
+      return MultiDataSourceRoutingContext
+          .invokeWithDataSource(dataSourceName, invocation::proceed);
+    }
+
+    return CompletableFuture
+        .supplyAsync(() -> this.invokeAsync(dataSourceName, invocation), asyncExecutor)
+        .thenCompose(Function.identity());
+  }
+
+  /**
+   * Get the {@link AsyncExecutor} bean of a data source.
+   *
+   * @param dataSourceName the name of the data source
+   * @return the executor, or null if the data source has none
+   */
+  private @Nullable Executor getAsyncExecutor(@Nonnull String dataSourceName) {
+    final BeanFactory currentBeanFactory = beanFactory;
+    if (currentBeanFactory == null) {
+      return null;
+    }
+
+    final Executor asyncExecutor = dataSourceNameToAsyncExecutorMap.get(dataSourceName);
+    if (asyncExecutor != null) {
+      return asyncExecutor;
+    }
+
+    final String beanName = dataSourceName + MultiDataSourceBulkheadExecutor.BEAN_NAME_SUFFIX;
+    if (!currentBeanFactory.containsBean(beanName)) {
+      return null;
+    }
+
+    return dataSourceNameToAsyncExecutorMap.computeIfAbsent(
+        dataSourceName,
+        ignored -> currentBeanFactory.getBean(beanName, Executor.class)
+    );
+  }
+
+  /**
+   * Invoke a repository method returning a {@link CompletableFuture} routed to a data source, on a
+   * thread of its executor.
+   *
+   * @param dataSourceName the name of the data source to route to
+   * @param invocation     the repository method invocation
+   * @return the future returned by the repository method
+   */
+  @SuppressWarnings("unchecked")
+  private @Nonnull CompletionStage<Object> invokeAsync(
+      @Nonnull String dataSourceName,
+      @Nonnull MethodInvocation invocation
+  ) {
+    try {
+      final Object result = MultiDataSourceRoutingContext
+          .invokeWithDataSource(dataSourceName, invocation::proceed);
+      return result == null ? CompletableFuture.completedFuture(null)
+          : (CompletionStage<Object>) result;
+    } catch (Throwable e) {
+      throw new CompletionException(e);
+    }
+  }
+
+  /**
+   * Create a call of a repository method routed to a data source, to be hedged.
+   *
+   * @param dataSourceName the name of the data source to route to
+   * @param invocation     the clone of the repository method invocation for this call
+   * @return the routed call
+   */
+  private @Nonnull Callable<Object> createRoutedCall(
+      @Nonnull String dataSourceName,
+      @Nonnull MethodInvocation invocation
+  ) {
+    return () -> {
+      try {
+        return MultiDataSourceRoutingContext
+            .invokeWithDataSource(dataSourceName, invocation::proceed);
+      } catch (Exception | Error e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new UndeclaredThrowableException(e);
+      }
+    };
+  }
+
+  /**
+   * The data sources a repository method is annotated with, the round-robin over them, and their
+   * {@link HedgedRead} if the method is hedged across them.
+   */
+  private static class RoutingTarget {
+
+    private final @Nonnull String[] dataSourceNames;
+
+    private final @Nonnull AtomicInteger nextIndex = new AtomicInteger();
+
+    private final boolean isCompletableFuture;
+
+    private final @Nullable MultiDataSourceHedgedRead hedgedRead;
+
+    RoutingTarget(@Nonnull Method method) {
+      this.isCompletableFuture = CompletableFuture.class.equals(method.getReturnType());
+      this.dataSourceNames = Arrays
+          .stream(method.getAnnotationsByType(TargetSecondaryDataSource.class))
+          .map(TargetSecondaryDataSource::value)
+          .distinct()
+          .toArray(String[]::new);
+      final HedgedRead hedgedReadAnnotation = method.getAnnotation(HedgedRead.class);
+      final boolean isHedged = hedgedReadAnnotation != null && dataSourceNames.length > 1
+          && !isCompletableFuture && !void.class.equals(method.getReturnType());
+      this.hedgedRead = !isHedged ? null : new MultiDataSourceHedgedRead(
+          method.getDeclaringClass().getSimpleName() + "." + method.getName(),
+          hedgedReadAnnotation.delayPercentile(),
+          hedgedReadAnnotation.minDelayMillis(),
+          hedgedReadAnnotation.maxExtraLoadPercent()
+      );
+    }
+
+    /**
+     * Get the data source to route the next call of the method to.
+     *
+     * @return the name of the data source, or null if the method is not annotated
+     */
+    @Nullable String nextDataSourceName() {
+      switch (dataSourceNames.length) {
+        case 0:
+          return null;
+        case 1:
+          return dataSourceNames[0];
+        default:
+          final int index = Math.floorMod(nextIndex.getAndIncrement(), dataSourceNames.length);
+          return dataSourceNames[index];
+      }
+    }
+  }
+}
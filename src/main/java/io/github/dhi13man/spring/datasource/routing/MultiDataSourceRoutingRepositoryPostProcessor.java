@@ -0,0 +1,59 @@
+package io.github.dhi13man.spring.datasource.routing;
+
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.RoutingMode;
+import io.github.dhi13man.spring.datasource.annotations.TargetSecondaryDataSource;
+import javax.annotation.Nonnull;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * {@link BeanPostProcessor} adding the {@link MultiDataSourceRoutingInterceptor} to every
+ * repository with methods annotated with {@link TargetSecondaryDataSource}, in
+ * {@link RoutingMode#RUNTIME_ROUTING}.
+ * <p>
+ * The interceptor is added first in the repository proxy itself, so that the data source is routed
+ * before the transaction of the repository method opens its connection, and no further proxy is
+ * created around the repository.
+ */
+public class MultiDataSourceRoutingRepositoryPostProcessor implements BeanPostProcessor,
+    BeanFactoryAware {
+
+  private final @Nonnull MultiDataSourceRoutingInterceptor routingInterceptor;
+
+  /**
+   * Constructor for the routing repository post processor.
+   */
+  public MultiDataSourceRoutingRepositoryPostProcessor() {
+    this.routingInterceptor = new MultiDataSourceRoutingInterceptor();
+  }
+
+  @Override
+  public void setBeanFactory(@Nonnull BeanFactory beanFactory) {
+    // The interceptor looks the async executors of the data sources up lazily in the bean factory
+    routingInterceptor.setBeanFactory(beanFactory);
+  }
+
+  @Override
+  public @Nonnull Object postProcessBeforeInitialization(
+      @Nonnull Object bean,
+      @Nonnull String beanName
+  ) {
+    if (!(bean instanceof RepositoryFactoryBeanSupport)) {
+      return bean;
+    }
+
+    ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(
+        repositoryFactory -> repositoryFactory.addRepositoryProxyPostProcessor(
+            (proxyFactory, repositoryInformation) -> {
+              final Class<?> repositoryInterface = repositoryInformation.getRepositoryInterface();
+              if (routingInterceptor.hasTargetSecondaryDataSourceMethods(repositoryInterface)) {
+                proxyFactory.addAdvice(0, routingInterceptor);
+              }
+            }
+        )
+    );
+    return bean;
+  }
+}
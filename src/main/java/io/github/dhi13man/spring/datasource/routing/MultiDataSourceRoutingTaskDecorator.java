@@ -0,0 +1,17 @@
+package io.github.dhi13man.spring.datasource.routing;
+
+import javax.annotation.Nonnull;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * {@link TaskDecorator} carrying the data source of the {@link MultiDataSourceRoutingContext} and
+ * the last primary write of the {@link MultiDataSourceReadYourWritesContext} over to the tasks of a
+ * Spring task executor (eg. {@code @Async} methods).
+ */
+public class MultiDataSourceRoutingTaskDecorator implements TaskDecorator {
+
+  @Override
+  public @Nonnull Runnable decorate(@Nonnull Runnable runnable) {
+    return MultiDataSourceRoutingContext.wrapRunnable(runnable);
+  }
+}
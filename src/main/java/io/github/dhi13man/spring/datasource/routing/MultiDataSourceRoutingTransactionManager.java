@@ -0,0 +1,205 @@
+package io.github.dhi13man.spring.datasource.routing;
+
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.DataSourceConfig;
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.RoutingMode;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.persistence.EntityManagerFactory;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * {@link JpaTransactionManager} of a {@link DataSourceConfig#schemaEquivalent()} secondary data
+ * source in {@link RoutingMode#RUNTIME_ROUTING}, running its transactions on the entity manager
+ * factory shared with the primary data source, or of the primary data source itself.
+ * <p>
+ * Every transaction begins routed to the data source, so that the {@link
+ * MultiDataSourceRoutingDataSource} of the shared entity manager factory opens the connection of
+ * the transaction on it, and the transaction then stays on that connection. The transactions of a
+ * {@link DataSourceConfig#readOnly()} data source are begun as read-only.
+ * <p>
+ * The primary data source and its schema-equivalent data sources bind their transactions to the
+ * same shared entity manager factory, so a transaction begun while another one is already running
+ * on it would join that one, on its connection. Joining is only allowed when the running
+ * transaction is routed to the same data source, and otherwise fails with an
+ * {@link IllegalTransactionStateException} instead of silently running on the connection of
+ * another data source. The transaction manager of the primary data source does not route its
+ * transactions, and only joins the running transactions which are not routed either. A
+ * transaction on another data source can still be nested with
+ * {@link TransactionDefinition#PROPAGATION_REQUIRES_NEW}, which suspends the running one.
+ */
+public class MultiDataSourceRoutingTransactionManager extends JpaTransactionManager {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The data sources the running transactions of the routing transaction managers are routed to,
+   * by the {@link EntityManagerHolder} they are bound to the shared entity manager factory with.
+   * The transactions of the primary data source are not routed, and thus not in it.
+   */
+  private static final @Nonnull Map<EntityManagerHolder, String> ROUTED_DATA_SOURCE_NAMES =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
+  private final @Nullable String dataSourceName;
+
+  private final boolean isReadOnly;
+
+  /**
+   * Constructor for the routing transaction manager.
+   *
+   * @param entityManagerFactory the {@link EntityManagerFactory} shared with the primary data
+   *                             source, on the {@link MultiDataSourceRoutingDataSource}
+   * @param dataSourceName       the name of the data source the transactions are routed to
+   * @param isReadOnly           whether every transaction is begun as read-only
+   */
+  public MultiDataSourceRoutingTransactionManager(
+      @Nonnull EntityManagerFactory entityManagerFactory,
+      @Nonnull String dataSourceName,
+      boolean isReadOnly
+  ) {
+    super(entityManagerFactory);
+    this.dataSourceName = dataSourceName;
+    this.isReadOnly = isReadOnly;
+  }
+
+  /**
+   * Constructor for the transaction manager of the primary data source, whose transactions are
+   * not routed.
+   *
+   * @param entityManagerFactory the {@link EntityManagerFactory} of the primary data source, on
+   *                             the {@link MultiDataSourceRoutingDataSource}
+   * @param isReadOnly           whether every transaction is begun as read-only
+   */
+  public MultiDataSourceRoutingTransactionManager(
+      @Nonnull EntityManagerFactory entityManagerFactory,
+      boolean isReadOnly
+  ) {
+    super(entityManagerFactory);
+    this.dataSourceName = null;
+    this.isReadOnly = isReadOnly;
+  }
+
+  /**
+   * The name of the data source the transactions are routed to.
+   *
+   * @return the name of the data source, or null for the primary data source
+   */
+  public @Nullable String getDataSourceName() {
+    return dataSourceName;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Begins the transaction routed to the data source, so that its connection is opened on it,
+   * unless it is the primary data source.
+   *
+   * @param transaction the transaction object returned by {@code doGetTransaction}
+   * @param definition  the {@link TransactionDefinition} of the transaction
+   */
+  @Override
+  protected void doBegin(@Nonnull Object transaction, @Nonnull TransactionDefinition definition) {
+    final TransactionDefinition routedDefinition;
+    if (isReadOnly) {
+      final DefaultTransactionDefinition readOnlyDefinition = new DefaultTransactionDefinition(
+          definition
+      );
+      readOnlyDefinition.setReadOnly(true);
+      routedDefinition = readOnlyDefinition;
+    } else {
+      routedDefinition = definition;
+    }
+    if (dataSourceName == null) {
+      super.doBegin(transaction, routedDefinition);
+      return;
+    }
+
+    MultiDataSourceRoutingContext.runWithDataSource(
+        dataSourceName,
+        () -> super.doBegin(transaction, routedDefinition)
+    );
+    final Object entityManagerHolder = TransactionSynchronizationManager
+        .getResource(this.obtainEntityManagerFactory());
+    if (entityManagerHolder instanceof EntityManagerHolder) {
+      ROUTED_DATA_SOURCE_NAMES.put((EntityManagerHolder) entityManagerHolder, dataSourceName);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Rejects joining a running transaction routed to another data source, or not routed at all
+   * for a secondary data source, or routed at all for the primary data source.
+   *
+   * @throws IllegalTransactionStateException if the running transaction to join is not routed like
+   *                                          the transactions of the data source
+   */
+  @Override
+  protected @Nonnull DefaultTransactionStatus newTransactionStatus(
+      @Nonnull TransactionDefinition definition,
+      @Nullable Object transaction,
+      boolean newTransaction,
+      boolean newSynchronization,
+      boolean debug,
+      @Nullable Object suspendedResources
+  ) {
+    if (!newTransaction && transaction != null && this.isExistingTransaction(transaction)) {
+      final Object entityManagerHolder = TransactionSynchronizationManager
+          .getResource(this.obtainEntityManagerFactory());
+      final String runningDataSourceName = ROUTED_DATA_SOURCE_NAMES.get(entityManagerHolder);
+      if (!Objects.equals(runningDataSourceName, dataSourceName)) {
+        throw new IllegalTransactionStateException("Transaction of "
+            + this.describeDataSource(dataSourceName) + " can not join the running transaction"
+            + " of " + this.describeDataSource(runningDataSourceName) + " on the shared entity"
+            + " manager factory, as it would run on its connection. Begin it with"
+            + " PROPAGATION_REQUIRES_NEW instead.");
+      }
+    }
+
+    return super.newTransactionStatus(
+        definition,
+        transaction,
+        newTransaction,
+        newSynchronization,
+        debug,
+        suspendedResources
+    );
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Forgets the data source the transaction was routed to.
+   *
+   * @param transaction the transaction object returned by {@code doGetTransaction}
+   */
+  @Override
+  protected void doCleanupAfterCompletion(@Nonnull Object transaction) {
+    final Object entityManagerHolder = TransactionSynchronizationManager
+        .getResource(this.obtainEntityManagerFactory());
+    if (entityManagerHolder != null) {
+      ROUTED_DATA_SOURCE_NAMES.remove(entityManagerHolder);
+    }
+    super.doCleanupAfterCompletion(transaction);
+  }
+
+  /**
+   * Describe a data source the transactions are routed to, for the errors.
+   *
+   * @param routedDataSourceName the name of the data source, or null for the primary data source
+   * @return the description of the data source
+   */
+  private @Nonnull String describeDataSource(@Nullable String routedDataSourceName) {
+    return routedDataSourceName == null ? "the primary data source"
+        : "data source " + routedDataSourceName;
+  }
+}
@@ -0,0 +1,384 @@
+package io.github.dhi13man.spring.datasource.routing;
+
+import io.github.dhi13man.spring.datasource.annotations.ScatterGather;
+import io.github.dhi13man.spring.datasource.annotations.ScatterGather.Merge;
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceSharedExecutor;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Order;
+
+/**
+ * {@link ScatterGather} of a repository method: runs every call on all the data sources of its
+ * group at the same time, and merges their results.
+ * <p>
+ * The calls run on a shared bounded pool of daemon threads (or the calling thread, when the pool is
+ * full), and the first failure cancels the other calls by interrupting their threads and is thrown
+ * to the caller. Paged calls are given the
+ * {@link #pushDown(Pageable)} of their {@link Pageable}, so every data source returns all the rows
+ * the requested page could hold, and the merged results are cut down to the requested page.
+ */
+public class MultiDataSourceScatterGather {
+
+  private final @Nonnull String name;
+
+  private final @Nonnull Merge merge;
+
+  private final @Nonnull Sort defaultSort;
+
+  private final @Nonnull ExecutorService executor;
+
+  /**
+   * Constructor for the scatter-gather of a repository method, on the shared bounded executor.
+   *
+   * @param name   the name of the repository method, for the errors
+   * @param merge  the strategy of merging the results
+   * @param sortBy the properties the {@link Merge#SORTED} merge orders the results by, if the call
+   *               has no sort of its own
+   */
+  public MultiDataSourceScatterGather(
+      @Nonnull String name,
+      @Nonnull Merge merge,
+      @Nonnull String... sortBy
+  ) {
+    this(name, merge, MultiDataSourceSharedExecutor.getExecutor(), sortBy);
+  }
+
+  /**
+   * Constructor for the scatter-gather of a repository method.
+   *
+   * @param name     the name of the repository method, for the errors
+   * @param merge    the strategy of merging the results
+   * @param executor the executor to run the calls on, which may be bounded
+   * @param sortBy   the properties the {@link Merge#SORTED} merge orders the results by, if the
+   *                 call has no sort of its own
+   */
+  public MultiDataSourceScatterGather(
+      @Nonnull String name,
+      @Nonnull Merge merge,
+      @Nonnull ExecutorService executor,
+      @Nonnull String... sortBy
+  ) {
+    this.name = name;
+    this.merge = merge;
+    this.executor = executor;
+    this.defaultSort = sortBy.length == 0 ? Sort.unsorted() : Sort.by(sortBy);
+  }
+
+  /**
+   * Get the {@link Pageable} to give every data source for a requested page: the first page of
+   * the same sort covering all the rows up to the end of the requested page.
+   *
+   * @param pageable the requested page, or null
+   * @return the page to request from every data source
+   */
+  public static @Nullable Pageable pushDown(@Nullable Pageable pageable) {
+    if (pageable == null || pageable.isUnpaged()) {
+      return pageable;
+    }
+
+    final long size = Math.min(Integer.MAX_VALUE, pageable.getOffset() + pageable.getPageSize());
+    return PageRequest.of(0, (int) size, pageable.getSort());
+  }
+
+  /**
+   * Run a call of the repository method on all its data sources at the same time, and merge their
+   * results.
+   *
+   * @param pageable the requested page of the call, or null if it is not paged
+   * @param sort     the requested sort of the call, or null if it has none
+   * @param calls    the call of the repository method on each of its data sources
+   * @param <T>      the type of the result of the method
+   * @return the merged result
+   * @throws RuntimeException      the exception of the first failed call
+   * @throws CancellationException if the thread is interrupted while waiting for the results
+   */
+  @SafeVarargs
+  public final <T> T gather(
+      @Nullable Pageable pageable,
+      @Nullable Sort sort,
+      @Nonnull Supplier<T>... calls
+  ) {
+    final List<Supplier<T>> callList = new ArrayList<>(calls.length);
+    for (final Supplier<T> call : calls) {
+      callList.add(call);
+    }
+    return this.merge(pageable, sort, this.scatter(callList));
+  }
+
+  /**
+   * Run the calls on the executor at the same time, with the data source and the writes of the
+   * calling thread, and wait for all their results. The calls the executor has no room for run on
+   * the calling thread.
+   *
+   * @param calls the calls to run
+   * @param <T>   the type of the results of the calls
+   * @return the results of the calls, in their order
+   */
+  private <T> @Nonnull List<T> scatter(@Nonnull List<Supplier<T>> calls) {
+    final List<Future<T>> futures = new ArrayList<>(calls.size());
+    try {
+      for (final Supplier<T> call : calls) {
+        futures.add(MultiDataSourceSharedExecutor.submitOrRun(executor, call::get));
+      }
+      final List<T> results = new ArrayList<>(calls.size());
+      for (final Future<T> future : futures) {
+        results.add(future.get());
+      }
+      return results;
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException("Scatter-gather " + name + " failed", cause);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      final CancellationException cancellationException = new CancellationException(
+          "Scatter-gather " + name + " was interrupted"
+      );
+      cancellationException.initCause(e);
+      throw cancellationException;
+    } finally {
+      futures.forEach(future -> future.cancel(true));
+    }
+  }
+
+  /**
+   * Merge the results of the data sources by the strategy of the method.
+   *
+   * @param pageable the requested page of the call, or null if it is not paged
+   * @param sort     the requested sort of the call, or null if it has none
+   * @param results  the results of the data sources
+   * @param <T>      the type of the results
+   * @return the merged result
+   */
+  @SuppressWarnings("unchecked")
+  private <T> @Nullable T merge(
+      @Nullable Pageable pageable,
+      @Nullable Sort sort,
+      @Nonnull List<T> results
+  ) {
+    switch (merge) {
+      case SUM:
+        return (T) this.sum(results);
+      case MIN:
+        return results.stream().filter(Objects::nonNull)
+            .min((a, b) -> ((Comparable<Object>) a).compareTo(b)).orElse(null);
+      case MAX:
+        return results.stream().filter(Objects::nonNull)
+            .max((a, b) -> ((Comparable<Object>) a).compareTo(b)).orElse(null);
+      default:
+        break;
+    }
+
+    // Merge the rows of every data source, and cut them down to the requested page
+    final List<List<Object>> rows = results.stream()
+        .map(this::getRows)
+        .collect(Collectors.toList());
+    List<Object> mergedRows = merge == Merge.SORTED
+        ? this.mergeSorted(rows, this.createComparator(pageable, sort))
+        : rows.stream().flatMap(List::stream).collect(Collectors.toList());
+    if (pageable != null && pageable.isPaged()) {
+      final int fromIndex = (int) Math.min(mergedRows.size(), pageable.getOffset());
+      final int toIndex = Math.min(mergedRows.size(), fromIndex + pageable.getPageSize());
+      mergedRows = new ArrayList<>(mergedRows.subList(fromIndex, toIndex));
+    }
+
+    final boolean isPage = results.stream().anyMatch(Page.class::isInstance);
+    if (!isPage) {
+      return (T) mergedRows;
+    }
+
+    final long totalElements = results.stream()
+        .filter(Page.class::isInstance)
+        .mapToLong(result -> ((Page<?>) result).getTotalElements())
+        .sum();
+    return (T) new PageImpl<>(
+        mergedRows,
+        pageable == null ? Pageable.unpaged() : pageable,
+        totalElements
+    );
+  }
+
+  /**
+   * Get the rows of a result of a data source.
+   *
+   * @param result the {@code Iterable} (eg. {@code List} or {@code Page}) result, or null
+   * @return the rows of the result
+   * @throws IllegalStateException if the result is not an {@code Iterable}
+   */
+  private @Nonnull List<Object> getRows(@Nullable Object result) {
+    if (result == null) {
+      return List.of();
+    }
+    if (!(result instanceof Iterable)) {
+      throw new IllegalStateException("Scatter-gather " + name + " can not " + merge
+          + " the result of type " + result.getClass().getName());
+    }
+
+    return StreamSupport.stream(((Iterable<?>) result).spliterator(), false)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Merge the sorted rows of every data source into one sorted list, taking the lowest head of
+   * the lists every time (k-way merge).
+   *
+   * @param rows       the sorted rows of every data source
+   * @param comparator the order of the rows
+   * @return the merged rows
+   */
+  private @Nonnull List<Object> mergeSorted(
+      @Nonnull List<List<Object>> rows,
+      @Nonnull Comparator<Object> comparator
+  ) {
+    final List<Iterator<Object>> iterators = rows.stream()
+        .map(List::iterator)
+        .collect(Collectors.toList());
+    final PriorityQueue<Head> heads = new PriorityQueue<>(
+        Math.max(1, iterators.size()),
+        Comparator.<Head, Object>comparing(head -> head.row, comparator)
+            .thenComparingInt(head -> head.index)
+    );
+    for (int i = 0; i < iterators.size(); i++) {
+      if (iterators.get(i).hasNext()) {
+        heads.add(new Head(iterators.get(i).next(), i));
+      }
+    }
+
+    final List<Object> mergedRows = new ArrayList<>(rows.stream().mapToInt(List::size).sum());
+    while (!heads.isEmpty()) {
+      final Head head = heads.poll();
+      mergedRows.add(head.row);
+      final Iterator<Object> iterator = iterators.get(head.index);
+      if (iterator.hasNext()) {
+        heads.add(new Head(iterator.next(), head.index));
+      }
+    }
+    return mergedRows;
+  }
+
+  /**
+   * Create the order of the rows of the {@link Merge#SORTED} merge: the sort of the call, or else
+   * of its page, or else the default sort of the method, or else the natural order of the rows.
+   *
+   * @param pageable the requested page of the call, or null if it is not paged
+   * @param sort     the requested sort of the call, or null if it has none
+   * @return the order of the rows
+   */
+  @SuppressWarnings("unchecked")
+  private @Nonnull Comparator<Object> createComparator(
+      @Nullable Pageable pageable,
+      @Nullable Sort sort
+  ) {
+    Sort mergeSort = sort == null ? Sort.unsorted() : sort;
+    if (mergeSort.isUnsorted() && pageable != null) {
+      mergeSort = pageable.getSort();
+    }
+    if (mergeSort.isUnsorted()) {
+      mergeSort = defaultSort;
+    }
+    if (mergeSort.isUnsorted()) {
+      return Comparator.nullsLast((a, b) -> ((Comparable<Object>) a).compareTo(b));
+    }
+
+    Comparator<Object> comparator = (a, b) -> 0;
+    for (final Order order : mergeSort) {
+      final Comparator<Object> propertyComparator = Comparator.comparing(
+          row -> (Comparable<Object>) new BeanWrapperImpl(row).getPropertyValue(order.getProperty()),
+          Comparator.nullsLast(Comparator.naturalOrder())
+      );
+      comparator = comparator.thenComparing(
+          order.isDescending() ? propertyComparator.reversed() : propertyComparator
+      );
+    }
+    return comparator;
+  }
+
+  /**
+   * Sum up the numeric results of the data sources, in the type of the results.
+   *
+   * @param results the numeric results, where nulls are skipped
+   * @return the sum, or null if every result is null
+   * @throws IllegalStateException if a result is not a number
+   */
+  private @Nullable Number sum(@Nonnull List<?> results) {
+    Number sum = null;
+    for (final Object result : results) {
+      if (result == null) {
+        continue;
+      }
+      if (!(result instanceof Number)) {
+        throw new IllegalStateException("Scatter-gather " + name + " can not SUM the result of"
+            + " type " + result.getClass().getName());
+      }
+
+      sum = sum == null ? (Number) result : add(sum, (Number) result);
+    }
+    return sum;
+  }
+
+  /**
+   * Add two numbers of the same type.
+   *
+   * @param a the first number
+   * @param b the second number
+   * @return the sum, in the type of the first number
+   */
+  private static @Nonnull Number add(@Nonnull Number a, @Nonnull Number b) {
+    if (a instanceof Long) {
+      return a.longValue() + b.longValue();
+    } else if (a instanceof Integer) {
+      return a.intValue() + b.intValue();
+    } else if (a instanceof Short) {
+      return (short) (a.shortValue() + b.shortValue());
+    } else if (a instanceof Byte) {
+      return (byte) (a.byteValue() + b.byteValue());
+    } else if (a instanceof Float) {
+      return a.floatValue() + b.floatValue();
+    } else if (a instanceof BigDecimal) {
+      return ((BigDecimal) a).add(new BigDecimal(b.toString()));
+    } else if (a instanceof BigInteger) {
+      return ((BigInteger) a).add(new BigInteger(b.toString()));
+    }
+    return a.doubleValue() + b.doubleValue();
+  }
+
+  /**
+   * The next row of the sorted rows of a data source, in the k-way merge.
+   */
+  private static class Head {
+
+    private final @Nullable Object row;
+
+    private final int index;
+
+    Head(@Nullable Object row, int index) {
+      this.row = row;
+      this.index = index;
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package io.github.dhi13man.spring.datasource.routing;
+
+import io.github.dhi13man.spring.datasource.annotations.ShardKey;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Consistent hash ring of the shards of a shard set, picking the shard of every {@link ShardKey}.
+ * <p>
+ * Every shard is placed on the ring at {@link #VIRTUAL_NODES_PER_SHARD} points hashed from its
+ * name, and a key belongs to the first shard point at or after the hash of the key. The ring only
+ * depends on the names of the shards, so every instance of the service picks the same shard for a
+ * key, and adding a shard only moves the keys now closest to its points onto it.
+ * <p>
+ * Keys are hashed by their string form, so that numeric keys of different types pick the same
+ * shard. The ring is immutable, so it never synchronizes.
+ */
+public class MultiDataSourceShardRouter {
+
+  /**
+   * Number of points of every shard on the ring, evening out the share of the keys of the shards.
+   */
+  public static final int VIRTUAL_NODES_PER_SHARD = 160;
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final @Nonnull String shardSetName;
+
+  private final @Nonnull List<String> shardNames;
+
+  private final @Nonnull NavigableMap<Long, String> ring = new TreeMap<>();
+
+  /**
+   * Constructor for the consistent hash ring of a shard set.
+   *
+   * @param shardSetName the name of the shard set
+   * @param shardNames   the names of the data sources which are the shards of the set
+   * @throws IllegalArgumentException if the shard set has no shards
+   */
+  public MultiDataSourceShardRouter(
+      @Nonnull String shardSetName,
+      @Nonnull List<String> shardNames
+  ) {
+    if (shardNames.isEmpty()) {
+      throw new IllegalArgumentException("Shard set " + shardSetName + " has no shards");
+    }
+
+    this.shardSetName = shardSetName;
+    this.shardNames = List.copyOf(shardNames);
+    for (final String shardName : this.shardNames) {
+      for (int i = 0; i < VIRTUAL_NODES_PER_SHARD; i++) {
+        ring.putIfAbsent(hash(shardName + "#" + i), shardName);
+      }
+    }
+  }
+
+  /**
+   * Get the shard a shard key belongs to.
+   *
+   * @param shardKey the value of the {@link ShardKey} parameter
+   * @return the name of the data source which is the shard of the key
+   * @throws IllegalArgumentException if the shard key is null
+   */
+  public @Nonnull String getShardName(@Nullable Object shardKey) {
+    if (shardKey == null) {
+      throw new IllegalArgumentException("The shard key of shard set " + shardSetName
+          + " is null, so its shard can not be picked");
+    }
+
+    final Map.Entry<Long, String> shard = ring.ceilingEntry(hash(shardKey.toString()));
+    return shard == null ? ring.firstEntry().getValue() : shard.getValue();
+  }
+
+  public @Nonnull String getShardSetName() {
+    return shardSetName;
+  }
+
+  public @Nonnull List<String> getShardNames() {
+    return shardNames;
+  }
+
+  /**
+   * Hash a value onto the ring, with the 64-bit FNV-1a hash of its UTF-8 bytes followed by the
+   * MurmurHash3 finalizer to spread similar values (eg. consecutive ids) across the ring.
+   *
+   * @param value the value to hash
+   * @return the position of the value on the ring
+   */
+  static long hash(@Nonnull String value) {
+    long hash = FNV_OFFSET_BASIS;
+    for (final byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b & 0xff;
+      hash *= FNV_PRIME;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
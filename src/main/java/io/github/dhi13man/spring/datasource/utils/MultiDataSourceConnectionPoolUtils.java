@@ -0,0 +1,284 @@
+package io.github.dhi13man.spring.datasource.utils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.sql.DataSource;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Utility class used by the generated code at runtime to access the settings of connection pools,
+ * without depending on any specific connection pool implementation.
+ */
+public class MultiDataSourceConnectionPoolUtils {
+
+  /**
+   * Maximum pool size assumed for a {@link DataSource} which is not a supported pool, which is the
+   * default maximum pool size of HikariCP.
+   */
+  public static final int DEFAULT_MAXIMUM_POOL_SIZE = 10;
+
+  private static final Log LOGGER = LogFactory.getLog(MultiDataSourceConnectionPoolUtils.class);
+
+  /**
+   * Names of the maximum pool size property of the supported connection pools: HikariCP, Tomcat
+   * JDBC, Commons DBCP2 and Oracle UCP / C3P0 respectively.
+   */
+  private static final List<String> MAXIMUM_POOL_SIZE_PROPERTY_NAMES = List
+      .of("maximumPoolSize", "maxActive", "maxTotal", "maxPoolSize");
+
+  /**
+   * Names of the pool name property of the supported connection pools: HikariCP, Tomcat JDBC and
+   * Oracle UCP respectively.
+   */
+  private static final List<String> POOL_NAME_PROPERTY_NAMES = List
+      .of("poolName", "name", "connectionPoolName");
+
+  /**
+   * Names of the connection init SQL property of the supported connection pools taking a single
+   * statement: HikariCP and Tomcat JDBC respectively.
+   */
+  private static final List<String> CONNECTION_INIT_SQL_PROPERTY_NAMES = List
+      .of("connectionInitSql", "initSQL");
+
+  /**
+   * Name of the connection init SQL property of Commons DBCP2, which takes a list of statements.
+   */
+  private static final String CONNECTION_INIT_SQLS_PROPERTY_NAME = "connectionInitSqls";
+
+  /**
+   * Names of the JDBC URL property of the supported connection pools and plain data sources.
+   */
+  private static final List<String> URL_PROPERTY_NAMES = List.of("jdbcUrl", "url", "URL");
+
+  /**
+   * Names of the username property of the supported connection pools and plain data sources.
+   */
+  private static final List<String> USERNAME_PROPERTY_NAMES = List.of("username", "user");
+
+  /**
+   * Names of the properties of the supported connection pools changing the state of the
+   * connections they open: init SQL, read-only, auto-commit, isolation, catalog and schema
+   * defaults, under their HikariCP, Tomcat JDBC and Commons DBCP2 names.
+   */
+  private static final List<String> CONNECTION_SETTING_PROPERTY_NAMES = List.of(
+      "connectionInitSql",
+      "initSQL",
+      CONNECTION_INIT_SQLS_PROPERTY_NAME,
+      "readOnly",
+      "defaultReadOnly",
+      "autoCommit",
+      "defaultAutoCommit",
+      "transactionIsolation",
+      "defaultTransactionIsolation",
+      "catalog",
+      "defaultCatalog",
+      "schema",
+      "defaultSchema"
+  );
+
+  private static MultiDataSourceConnectionPoolUtils instance;
+
+  private MultiDataSourceConnectionPoolUtils() {
+  }
+
+  public static MultiDataSourceConnectionPoolUtils getInstance() {
+    if (instance == null) {
+      instance = new MultiDataSourceConnectionPoolUtils();
+    }
+    return instance;
+  }
+
+  /**
+   * Get the maximum pool size of the connection pool behind a {@link DataSource}.
+   *
+   * @param dataSource the {@link DataSource} to get the maximum pool size of
+   * @return the maximum pool size, or null if the {@link DataSource} is not a supported pool
+   */
+  public @Nullable Integer getMaximumPoolSize(@Nonnull DataSource dataSource) {
+    final BeanWrapper beanWrapper = PropertyAccessorFactory.forBeanPropertyAccess(dataSource);
+    for (final String propertyName : MAXIMUM_POOL_SIZE_PROPERTY_NAMES) {
+      if (beanWrapper.isReadableProperty(propertyName)) {
+        final Object maximumPoolSize = beanWrapper.getPropertyValue(propertyName);
+        return maximumPoolSize instanceof Number ? ((Number) maximumPoolSize).intValue() : null;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Get the maximum pool size of the connection pool behind a {@link DataSource}, looking through
+   * any {@link DelegatingDataSource} (eg. a data source sharing the connection pool of another).
+   *
+   * @param dataSource the {@link DataSource} to get the maximum pool size of
+   * @return the maximum pool size, or {@link #DEFAULT_MAXIMUM_POOL_SIZE} if the connection pool is
+   * not supported
+   */
+  public int getMaximumPoolSizeOrDefault(@Nonnull DataSource dataSource) {
+    DataSource connectionPool = dataSource;
+    while (connectionPool instanceof DelegatingDataSource
+        && ((DelegatingDataSource) connectionPool).getTargetDataSource() != null) {
+      connectionPool = ((DelegatingDataSource) connectionPool).getTargetDataSource();
+    }
+
+    final Integer maximumPoolSize = this.getMaximumPoolSize(connectionPool);
+    return maximumPoolSize == null || maximumPoolSize < 1 ? DEFAULT_MAXIMUM_POOL_SIZE
+        : maximumPoolSize;
+  }
+
+  /**
+   * Get the connection identity of a {@link DataSource}, ie. the database and user its connections
+   * are opened for.
+   * <p>
+   * Two data sources with the same connection identity open interchangeable connections, and hence
+   * can share one connection pool.
+   *
+   * @param dataSource the {@link DataSource} to get the connection identity of
+   * @return the JDBC URL and username of the {@link DataSource}, or null if the JDBC URL can not be
+   * read
+   */
+  public @Nullable String getConnectionIdentity(@Nonnull DataSource dataSource) {
+    final BeanWrapper beanWrapper = PropertyAccessorFactory.forBeanPropertyAccess(dataSource);
+    final Object url = this.getFirstReadableProperty(beanWrapper, URL_PROPERTY_NAMES);
+    if (url == null) {
+      return null;
+    }
+
+    final Object username = this.getFirstReadableProperty(beanWrapper, USERNAME_PROPERTY_NAMES);
+    return username == null ? url.toString() : username + "@" + url;
+  }
+
+  /**
+   * Get the settings of the connection pool behind a {@link DataSource} changing the state of the
+   * connections it opens, such as its connection init SQL or its read-only default.
+   * <p>
+   * Two data sources with the same connection identity but different connection settings open
+   * connections which are not interchangeable, and hence can not share one connection pool.
+   *
+   * @param dataSource the {@link DataSource} to get the connection settings of
+   * @return the set connection settings of the {@link DataSource}, by property name
+   */
+  public @Nonnull Map<String, Object> getConnectionSettings(@Nonnull DataSource dataSource) {
+    final BeanWrapper beanWrapper = PropertyAccessorFactory.forBeanPropertyAccess(dataSource);
+    final Map<String, Object> connectionSettings = new TreeMap<>();
+    for (final String propertyName : CONNECTION_SETTING_PROPERTY_NAMES) {
+      final Object value = this.getFirstReadableProperty(beanWrapper, List.of(propertyName));
+      if (value != null) {
+        connectionSettings.put(propertyName, value);
+      }
+    }
+    return connectionSettings;
+  }
+
+  /**
+   * Set the maximum pool size of the connection pool behind a {@link DataSource}.
+   * <p>
+   * Does nothing if the {@link DataSource} is not a supported pool.
+   *
+   * @param dataSource      the {@link DataSource} to set the maximum pool size of
+   * @param maximumPoolSize the maximum pool size to set
+   * @return whether the maximum pool size was set
+   */
+  public boolean setMaximumPoolSize(@Nonnull DataSource dataSource, int maximumPoolSize) {
+    return this.setFirstWritableProperty(
+        dataSource,
+        MAXIMUM_POOL_SIZE_PROPERTY_NAMES,
+        maximumPoolSize
+    );
+  }
+
+  /**
+   * Set the name of the connection pool behind a {@link DataSource}, which is used in its logs,
+   * JMX beans and metrics.
+   * <p>
+   * Does nothing if the {@link DataSource} is not a supported pool.
+   *
+   * @param dataSource the {@link DataSource} to set the pool name of
+   * @param poolName   the pool name to set
+   * @return whether the pool name was set
+   */
+  public boolean setPoolName(@Nonnull DataSource dataSource, @Nonnull String poolName) {
+    return this.setFirstWritableProperty(dataSource, POOL_NAME_PROPERTY_NAMES, poolName);
+  }
+
+  /**
+   * Set the SQL statement the connection pool behind a {@link DataSource} executes on every new
+   * physical connection.
+   * <p>
+   * Logs a warning and does nothing else if the {@link DataSource} is not a supported pool.
+   *
+   * @param dataSource        the {@link DataSource} to set the connection init SQL of
+   * @param connectionInitSql the SQL statement to execute on every new connection
+   * @return whether the connection init SQL was set
+   */
+  public boolean setConnectionInitSql(
+      @Nonnull DataSource dataSource,
+      @Nonnull String connectionInitSql
+  ) {
+    final boolean isSet = this.setFirstWritableProperty(
+        dataSource,
+        CONNECTION_INIT_SQL_PROPERTY_NAMES,
+        connectionInitSql
+    ) || this.setFirstWritableProperty(
+        dataSource,
+        List.of(CONNECTION_INIT_SQLS_PROPERTY_NAME),
+        List.of(connectionInitSql)
+    );
+    if (!isSet) {
+      LOGGER.warn("Connection init SQL is not supported by " + dataSource.getClass().getName()
+          + " and will not be executed: " + connectionInitSql);
+    }
+    return isSet;
+  }
+
+  /**
+   * Get the value of the first of the given properties that is readable and set.
+   *
+   * @param beanWrapper   the {@link BeanWrapper} of the {@link DataSource} to read
+   * @param propertyNames the names of the property in the supported data sources
+   * @return the value of the first readable and set property, or null if there is none
+   */
+  private @Nullable Object getFirstReadableProperty(
+      @Nonnull BeanWrapper beanWrapper,
+      @Nonnull List<String> propertyNames
+  ) {
+    for (final String propertyName : propertyNames) {
+      if (beanWrapper.isReadableProperty(propertyName)) {
+        final Object value = beanWrapper.getPropertyValue(propertyName);
+        if (value != null) {
+          return value;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Set the first of the given properties that is writable on a {@link DataSource}.
+   *
+   * @param dataSource    the {@link DataSource} to set the property of
+   * @param propertyNames the names of the property in the supported connection pools
+   * @param value         the value to set
+   * @return whether any property was set
+   */
+  private boolean setFirstWritableProperty(
+      @Nonnull DataSource dataSource,
+      @Nonnull List<String> propertyNames,
+      @Nonnull Object value
+  ) {
+    final BeanWrapper beanWrapper = PropertyAccessorFactory.forBeanPropertyAccess(dataSource);
+    for (final String propertyName : propertyNames) {
+      if (beanWrapper.isWritableProperty(propertyName)) {
+        beanWrapper.setPropertyValue(propertyName, value);
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,844 @@
+package io.github.dhi13man.spring.datasource.utils;
+
+import io.github.dhi13man.spring.datasource.dto.DerivedQuery;
+import io.github.dhi13man.spring.datasource.dto.DerivedQuery.Action;
+import io.github.dhi13man.spring.datasource.dto.DerivedQuery.Criterion;
+import io.github.dhi13man.spring.datasource.dto.DerivedQuery.Operator;
+import io.github.dhi13man.spring.datasource.dto.DerivedQuery.Order;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Utility class for parsing Spring Data derived query method names at compile time, and rendering
+ * the queries they derive.
+ * <p>
+ * The method names are parsed the way Spring Data parses them at startup: a subject prefix up to
+ * the first {@code By}, criteria joined by {@code Or} and {@code And}, each a property path with
+ * an optional operator keyword and {@code IgnoreCase} suffix, and an optional {@code OrderBy}
+ * clause.
+ */
+public class MultiDataSourceDerivedQueryUtils {
+
+  /**
+   * Prefix of the named parameters the arguments of the SQL of a derived query are bound to,
+   * followed by the zero-based index of the argument.
+   */
+  public static final String SQL_PARAMETER_PREFIX = "p";
+
+  private static final Pattern PREFIX_PATTERN = Pattern.compile(
+      "^(find|read|get|query|search|stream|count|exists|delete|remove)((\\p{Lu}.*?))??By"
+  );
+
+  private static final Pattern MAX_RESULTS_PATTERN = Pattern.compile("^(First|Top)(\\d*)?");
+
+  private static final Pattern IGNORE_CASE_PATTERN = Pattern.compile("Ignor(ing|e)Case$");
+
+  private static final Pattern ALL_IGNORE_CASE_PATTERN = Pattern.compile("AllIgnor(ing|e)Case");
+
+  private static final Pattern ORDER_PATTERN = Pattern.compile("(.+?)(Asc|Desc)?$");
+
+  private static final String ORDER_SPLIT_REGEX = "(?<=Asc|Desc)(?=\\p{Lu})";
+
+  private static final String ORDER_BY = "OrderBy";
+
+  private static final String DISTINCT = "Distinct";
+
+  private static final String PROPERTY_SEPARATOR = "_";
+
+  private static final String QUERY_ALIAS = "e";
+
+  private static final Set<Operator> ESCAPED_OPERATORS = EnumSet.of(
+      Operator.STARTING_WITH,
+      Operator.ENDING_WITH,
+      Operator.NOT_CONTAINING,
+      Operator.CONTAINING
+  );
+
+  private static final Set<Operator> EMPTINESS_OPERATORS = EnumSet.of(
+      Operator.IS_NOT_EMPTY,
+      Operator.IS_EMPTY
+  );
+
+  private static final Set<Operator> SQL_UNSUPPORTED_OPERATORS = EnumSet.of(
+      Operator.STARTING_WITH,
+      Operator.ENDING_WITH,
+      Operator.NOT_CONTAINING,
+      Operator.CONTAINING,
+      Operator.IS_NOT_EMPTY,
+      Operator.IS_EMPTY
+  );
+
+  private static MultiDataSourceDerivedQueryUtils instance;
+
+  private MultiDataSourceDerivedQueryUtils() {
+  }
+
+  public static MultiDataSourceDerivedQueryUtils getInstance() {
+    if (instance == null) {
+      instance = new MultiDataSourceDerivedQueryUtils();
+    }
+    return instance;
+  }
+
+  /**
+   * Parse a derived query method name, resolving its property paths against the entity.
+   *
+   * @param methodName     the name of the repository method
+   * @param entityResolver the {@link PropertyResolver} of the entity of the repository
+   * @return the parsed {@link DerivedQuery}, or null if the method is not a derived query reading
+   * rows (it has no {@code By} criteria, or it deletes rows)
+   * @throws IllegalArgumentException if the method name can not be parsed, or a property path in
+   *                                  it is not a property of the entity
+   */
+  public @Nullable DerivedQuery parse(
+      @Nonnull String methodName,
+      @Nonnull PropertyResolver entityResolver
+  ) {
+    final Matcher prefixMatcher = PREFIX_PATTERN.matcher(methodName);
+    if (!prefixMatcher.find() || methodName.startsWith("delete")
+        || methodName.startsWith("remove")) {
+      return null;
+    }
+
+    // Parse the subject of the query
+    final String prefix = prefixMatcher.group(1);
+    final Action action = "count".equals(prefix) ? Action.COUNT
+        : "exists".equals(prefix) ? Action.EXISTS : Action.FIND;
+    final String subject = prefixMatcher.group(2) == null ? "" : prefixMatcher.group(2);
+    final boolean distinct = subject.contains(DISTINCT);
+    final Matcher maxResultsMatcher = MAX_RESULTS_PATTERN
+        .matcher(subject.replace(DISTINCT, ""));
+    final Integer maxResults = !maxResultsMatcher.find() ? null
+        : maxResultsMatcher.group(2).isEmpty() ? 1 : Integer.valueOf(maxResultsMatcher.group(2));
+
+    // Split the predicate into its criteria and its order
+    String predicate = methodName.substring(prefixMatcher.end());
+    final Matcher allIgnoreCaseMatcher = ALL_IGNORE_CASE_PATTERN.matcher(predicate);
+    final boolean allIgnoringCase = allIgnoreCaseMatcher.find();
+    if (allIgnoringCase) {
+      predicate = predicate.substring(0, allIgnoreCaseMatcher.start())
+          + predicate.substring(allIgnoreCaseMatcher.end());
+    }
+    final String[] predicateParts = predicate.split(ORDER_BY, -1);
+    if (predicateParts.length > 2) {
+      throw new IllegalArgumentException(
+          methodName + " has more than one " + ORDER_BY + " clause."
+      );
+    }
+
+    final List<List<Criterion>> criteriaGroups = new ArrayList<>();
+    final List<String> criteriaGroupParts = predicateParts[0].isEmpty()
+        ? List.of() : this.splitByKeyword(predicateParts[0], "Or");
+    for (final String criteriaGroup : criteriaGroupParts) {
+      final List<Criterion> criteria = new ArrayList<>();
+      for (final String criterion : this.splitByKeyword(criteriaGroup, "And")) {
+        criteria.add(this.parseCriterion(methodName, criterion, entityResolver));
+      }
+      criteriaGroups.add(criteria);
+    }
+
+    final List<Order> orders = new ArrayList<>();
+    if (predicateParts.length == 2) {
+      for (final String order : predicateParts[1].split(ORDER_SPLIT_REGEX)) {
+        final Matcher orderMatcher = ORDER_PATTERN.matcher(order);
+        if (order.isEmpty() || !orderMatcher.matches()) {
+          throw new IllegalArgumentException(
+              methodName + " has an invalid " + ORDER_BY + " clause " + predicateParts[1] + "."
+          );
+        }
+
+        orders.add(new Order(
+            this.resolvePropertyPath(methodName, orderMatcher.group(1), entityResolver),
+            "Desc".equals(orderMatcher.group(2))
+        ));
+      }
+    }
+
+    // Keep the collection properties the paths go through, which JPQL does not navigate with a .
+    final Set<String> collectionPropertyPaths = new HashSet<>();
+    Stream
+        .concat(
+            criteriaGroups.stream().flatMap(List::stream).map(Criterion::getPropertyPath),
+            orders.stream().map(Order::getPropertyPath)
+        )
+        .forEach(propertyPath -> this
+            .addCollectionPropertyPaths(propertyPath, entityResolver, collectionPropertyPaths));
+
+    return new DerivedQuery(
+        action,
+        distinct,
+        maxResults,
+        allIgnoringCase,
+        criteriaGroups,
+        orders,
+        collectionPropertyPaths
+    );
+  }
+
+  /**
+   * Render the JPQL of a parsed derived query on an entity, as Spring Data JPA would derive it,
+   * with the arguments of the criteria bound by position.
+   * <p>
+   * Queries Spring Data JPA derives beyond plain JPQL are not rendered: those limiting their
+   * results ({@code First} or {@code Top}), ignoring the case of every property
+   * ({@code AllIgnoreCase}), or ignoring the case of criteria other than equality and
+   * {@code Like} ones. {@code StartingWith}, {@code EndingWith} and {@code Containing} criteria
+   * escape the wildcards of their arguments through the SpEL functions of Spring Data JPA, so the
+   * arguments of their queries are all bound through SpEL.
+   * <p>
+   * Neither are queries on property paths through collections (eg. {@code findByOrdersStatus}),
+   * which Spring Data JPA joins, nor those comparing collections other than by {@code IsEmpty} or
+   * {@code IsNotEmpty} (eg. {@code findByTagsContaining}, which it renders as {@code member of}).
+   *
+   * <p>
+   * As Spring Data JPA derives an {@code is null} criterion from an equality criterion given a
+   * null argument, every equality criterion also matches the null properties when its argument is
+   * null.
+   *
+   * @param derivedQuery the parsed {@link DerivedQuery}
+   * @param entityName   the JPA entity name of the entity
+   * @return the JPQL of the query, or null if it can not be rendered as plain JPQL
+   */
+  public @Nullable String toJpql(@Nonnull DerivedQuery derivedQuery, @Nonnull String entityName) {
+    final Set<Integer> argumentIndexes = IntStream.range(0, derivedQuery.getArgumentCount())
+        .boxed()
+        .collect(Collectors.toSet());
+    return this.toJpql(derivedQuery, entityName, argumentIndexes);
+  }
+
+  /**
+   * Render the JPQL of a parsed derived query on an entity, as {@link #toJpql} does, matching the
+   * null properties only in the equality criteria of the given nullable arguments. The arguments
+   * of primitive parameters can not be null, so their criteria are rendered as plain equalities.
+   *
+   * @param derivedQuery            the parsed {@link DerivedQuery}
+   * @param entityName              the JPA entity name of the entity
+   * @param nullableArgumentIndexes the zero-based indexes of the method arguments which may be
+   *                                null
+   * @return the JPQL of the query, or null if it can not be rendered as plain JPQL
+   */
+  public @Nullable String toJpql(
+      @Nonnull DerivedQuery derivedQuery,
+      @Nonnull String entityName,
+      @Nonnull Set<Integer> nullableArgumentIndexes
+  ) {
+    final boolean isRenderable = derivedQuery.getMaxResults() == null
+        && !derivedQuery.isAllIgnoringCase()
+        && derivedQuery.getCriteriaGroups().stream()
+        .flatMap(List::stream)
+        .allMatch(criterion -> !criterion.isIgnoringCase()
+            || criterion.getOperator() == Operator.SIMPLE_PROPERTY
+            || criterion.getOperator() == Operator.NEGATING_SIMPLE_PROPERTY
+            || criterion.getOperator() == Operator.LIKE
+            || criterion.getOperator() == Operator.NOT_LIKE)
+        && derivedQuery.getCriteriaGroups().stream()
+        .flatMap(List::stream)
+        .allMatch(criterion -> this.isNavigable(
+            derivedQuery,
+            criterion.getPropertyPath(),
+            EMPTINESS_OPERATORS.contains(criterion.getOperator())
+        ))
+        && derivedQuery.getOrders().stream()
+        .allMatch(order -> this.isNavigable(derivedQuery, order.getPropertyPath(), false));
+    if (!isRenderable) {
+      return null;
+    }
+
+    // Select what the query returns
+    final String distinct = derivedQuery.isDistinct() ? "distinct " : "";
+    final StringBuilder jpql = new StringBuilder("select ");
+    switch (derivedQuery.getAction()) {
+      case COUNT: {
+        jpql.append("count(").append(distinct).append(QUERY_ALIAS).append(')');
+        break;
+      }
+
+      case EXISTS: {
+        jpql.append("case when count(").append(QUERY_ALIAS)
+            .append(") > 0 then true else false end");
+        break;
+      }
+
+      default: {
+        jpql.append(distinct).append(QUERY_ALIAS);
+        break;
+      }
+    }
+    jpql.append(" from ").append(entityName).append(' ').append(QUERY_ALIAS);
+
+    // Add the criteria, binding their arguments in order. Positional parameters can not be mixed
+    // with the SpEL ones escaping wildcards, so all the arguments are then bound through SpEL.
+    final boolean isBindingBySpel = derivedQuery.getCriteriaGroups().stream()
+        .flatMap(List::stream)
+        .anyMatch(criterion -> ESCAPED_OPERATORS.contains(criterion.getOperator()));
+    final int[] argumentIndex = {0};
+    final String criteria = derivedQuery.getCriteriaGroups().stream()
+        .map(criteriaGroup -> criteriaGroup.stream()
+            .map(criterion -> {
+              final String renderedCriterion = this.renderCriterion(
+                  criterion,
+                  argumentIndex[0],
+                  isBindingBySpel,
+                  nullableArgumentIndexes.contains(argumentIndex[0])
+              );
+              argumentIndex[0] += criterion.getOperator().getArgumentCount();
+              return renderedCriterion;
+            })
+            .collect(Collectors.joining(" and ")))
+        .collect(Collectors.joining(" or "));
+    if (!criteria.isEmpty()) {
+      jpql.append(" where ").append(criteria);
+    }
+
+    // Add the order
+    if (!derivedQuery.getOrders().isEmpty() && derivedQuery.getAction() == Action.FIND) {
+      jpql.append(" order by ").append(derivedQuery.getOrders().stream()
+          .map(order -> QUERY_ALIAS + "." + order.getPropertyPath()
+              + (order.isDescending() ? " desc" : " asc"))
+          .collect(Collectors.joining(", ")));
+    }
+    return jpql.toString();
+  }
+
+  /**
+   * Check whether a property path of a derived query can be navigated with {@code .} in JPQL, ie.
+   * it goes through no collection property.
+   *
+   * @param derivedQuery         the parsed {@link DerivedQuery}
+   * @param propertyPath         the property path, with {@code .} between the properties
+   * @param isEndingAtCollection whether the path may end at a collection property
+   * @return true if the path can be navigated with {@code .}
+   */
+  private boolean isNavigable(
+      @Nonnull DerivedQuery derivedQuery,
+      @Nonnull String propertyPath,
+      boolean isEndingAtCollection
+  ) {
+    final Set<String> collectionPropertyPaths = derivedQuery.getCollectionPropertyPaths();
+    for (int end = propertyPath.indexOf('.'); end != -1; end = propertyPath.indexOf('.', end + 1)) {
+      if (collectionPropertyPaths.contains(propertyPath.substring(0, end))) {
+        return false;
+      }
+    }
+    return isEndingAtCollection || !collectionPropertyPaths.contains(propertyPath);
+  }
+
+  /**
+   * Render the JPQL of a criterion, binding its arguments from the given index on.
+   *
+   * @param criterion       the {@link Criterion} to render
+   * @param argumentIndex   the zero-based index of the first method argument bound by the
+   *                        criterion
+   * @param isBindingBySpel whether the arguments are bound through SpEL rather than by position
+   * @param isNullable      whether the first method argument bound by the criterion may be null
+   * @return the JPQL of the criterion
+   */
+  private @Nonnull String renderCriterion(
+      @Nonnull Criterion criterion,
+      int argumentIndex,
+      boolean isBindingBySpel,
+      boolean isNullable
+  ) {
+    final String property = criterion.isIgnoringCase()
+        ? "upper(" + QUERY_ALIAS + "." + criterion.getPropertyPath() + ")"
+        : QUERY_ALIAS + "." + criterion.getPropertyPath();
+    final String argument = criterion.isIgnoringCase()
+        ? "upper(" + this.renderArgument(argumentIndex, isBindingBySpel) + ")"
+        : this.renderArgument(argumentIndex, isBindingBySpel);
+    final String escapedArgument = "?#{escape([" + argumentIndex + "])}";
+    final String escape = " escape ?#{escapeCharacter()}";
+    switch (criterion.getOperator()) {
+      case IS_NOT_NULL:
+        return property + " is not null";
+      case IS_NULL:
+        return property + " is null";
+      case BETWEEN:
+        return property + " between " + argument + " and "
+            + this.renderArgument(argumentIndex + 1, isBindingBySpel);
+      case LESS_THAN:
+      case BEFORE:
+        return property + " < " + argument;
+      case LESS_THAN_EQUAL:
+        return property + " <= " + argument;
+      case GREATER_THAN:
+      case AFTER:
+        return property + " > " + argument;
+      case GREATER_THAN_EQUAL:
+        return property + " >= " + argument;
+      case NOT_LIKE:
+        return property + " not like " + argument;
+      case LIKE:
+        return property + " like " + argument;
+      case STARTING_WITH:
+        return property + " like " + escapedArgument + "%" + escape;
+      case ENDING_WITH:
+        return property + " like %" + escapedArgument + escape;
+      case NOT_CONTAINING:
+        return property + " not like %" + escapedArgument + "%" + escape;
+      case CONTAINING:
+        return property + " like %" + escapedArgument + "%" + escape;
+      case IS_NOT_EMPTY:
+        return property + " is not empty";
+      case IS_EMPTY:
+        return property + " is empty";
+      case NOT_IN:
+        return property + " not in " + argument;
+      case IN:
+        return property + " in " + argument;
+      case TRUE:
+        return property + " = true";
+      case FALSE:
+        return property + " = false";
+      case NEGATING_SIMPLE_PROPERTY:
+        return property + " <> " + argument;
+      default:
+        return !isNullable ? property + " = " + argument
+            : "(" + this.renderArgument(argumentIndex, isBindingBySpel) + " is null and "
+                + QUERY_ALIAS + "." + criterion.getPropertyPath() + " is null or "
+                + property + " = " + argument + ")";
+    }
+  }
+
+  /**
+   * Render the parameter binding a method argument.
+   *
+   * @param argumentIndex   the zero-based index of the method argument
+   * @param isBindingBySpel whether the argument is bound through SpEL rather than by position
+   * @return the parameter binding the argument, eg. {@code ?1} or {@code ?#{[0]}}
+   */
+  private @Nonnull String renderArgument(int argumentIndex, boolean isBindingBySpel) {
+    return isBindingBySpel ? "?#{[" + argumentIndex + "]}" : "?" + (argumentIndex + 1);
+  }
+
+  /**
+   * Render the SQL of a parsed derived query on the table of an entity, for a JDBC template with
+   * named parameters, the arguments of the criteria being bound to {@code :p0}, {@code :p1}... in
+   * order.
+   * <p>
+   * Only the queries on the columns of the table itself are rendered: not those with nested
+   * property paths or {@code IsEmpty} criteria on collections, nor {@code StartingWith},
+   * {@code EndingWith} and {@code Containing} criteria, whose wildcard escaping is not portable
+   * SQL. As for {@link #toJpql}, ignoring the case of every property ({@code AllIgnoreCase}) or of
+   * criteria other than equality and {@code Like} ones is not rendered either, nor is counting
+   * distinct rows. The {@code First} and {@code Top} limits are left to the caller, and unlike
+   * Spring Data JPA, a null argument of an equality criterion matches no row.
+   *
+   * @param derivedQuery   the parsed {@link DerivedQuery}
+   * @param tableName      the name of the table of the entity
+   * @param columnNames    the names of the columns selected by the queries finding rows
+   * @param columnResolver resolves the column name of a property path, or null if it has none
+   * @return the SQL of the query, or null if it can not be rendered as plain SQL
+   */
+  public @Nullable String toSql(
+      @Nonnull DerivedQuery derivedQuery,
+      @Nonnull String tableName,
+      @Nonnull List<String> columnNames,
+      @Nonnull Function<String, String> columnResolver
+  ) {
+    return this.toSql(derivedQuery, tableName, columnNames, columnResolver, Set.of());
+  }
+
+  /**
+   * Render the SQL of a parsed derived query on the table of an entity, as {@link #toSql} does,
+   * for the given {@code In} and {@code NotIn} arguments bound to empty collections, which would
+   * otherwise render the invalid {@code in ()}.
+   * <p>
+   * An empty {@code In} matches no row, so the criteria joined by {@code And} with it are left
+   * out, and an empty {@code NotIn} matches every row, so it is left out of its criteria. A query
+   * whose every criteria are left out by empty {@code In} arguments matches no row, and should not
+   * be run at all: see {@link #isMatchingNoRow}.
+   *
+   * @param derivedQuery         the parsed {@link DerivedQuery}
+   * @param tableName            the name of the table of the entity
+   * @param columnNames          the names of the columns selected by the queries finding rows
+   * @param columnResolver       resolves the column name of a property path, or null if it has
+   *                             none
+   * @param emptyArgumentIndexes the zero-based indexes of the {@code In} and {@code NotIn}
+   *                             arguments bound to empty collections
+   * @return the SQL of the query, or null if it can not be rendered as plain SQL
+   */
+  public @Nullable String toSql(
+      @Nonnull DerivedQuery derivedQuery,
+      @Nonnull String tableName,
+      @Nonnull List<String> columnNames,
+      @Nonnull Function<String, String> columnResolver,
+      @Nonnull Set<Integer> emptyArgumentIndexes
+  ) {
+    final List<Criterion> criteria = derivedQuery.getCriteriaGroups().stream()
+        .flatMap(List::stream)
+        .collect(Collectors.toList());
+    final boolean isRenderable = !derivedQuery.isAllIgnoringCase()
+        && !(derivedQuery.isDistinct() && derivedQuery.getAction() == Action.COUNT)
+        && criteria.stream().allMatch(criterion -> !SQL_UNSUPPORTED_OPERATORS
+        .contains(criterion.getOperator())
+        && columnResolver.apply(criterion.getPropertyPath()) != null
+        && (!criterion.isIgnoringCase()
+        || criterion.getOperator() == Operator.SIMPLE_PROPERTY
+        || criterion.getOperator() == Operator.NEGATING_SIMPLE_PROPERTY
+        || criterion.getOperator() == Operator.LIKE
+        || criterion.getOperator() == Operator.NOT_LIKE))
+        && derivedQuery.getOrders().stream()
+        .allMatch(order -> columnResolver.apply(order.getPropertyPath()) != null);
+    if (!isRenderable) {
+      return null;
+    }
+
+    // Select what the query returns
+    final StringBuilder sql = new StringBuilder("select ");
+    switch (derivedQuery.getAction()) {
+      case COUNT: {
+        sql.append("count(*)");
+        break;
+      }
+
+      case EXISTS: {
+        sql.append('1');
+        break;
+      }
+
+      default: {
+        sql.append(derivedQuery.isDistinct() ? "distinct " : "")
+            .append(String.join(", ", columnNames));
+        break;
+      }
+    }
+    sql.append(" from ").append(tableName);
+
+    // Add the criteria, binding their arguments in order and leaving out the empty collections
+    int argumentIndex = 0;
+    final List<String> renderedCriteriaGroups = new ArrayList<>();
+    boolean isMatchingEveryRow = false;
+    for (final List<Criterion> criteriaGroup : derivedQuery.getCriteriaGroups()) {
+      final List<String> renderedCriteria = new ArrayList<>();
+      boolean isMatchingNoRow = false;
+      for (final Criterion criterion : criteriaGroup) {
+        final boolean isEmptyArgument = emptyArgumentIndexes.contains(argumentIndex);
+        if (isEmptyArgument && criterion.getOperator() == Operator.IN) {
+          isMatchingNoRow = true;
+        } else if (!isEmptyArgument || criterion.getOperator() != Operator.NOT_IN) {
+          renderedCriteria.add(this.renderSqlCriterion(
+              criterion,
+              columnResolver.apply(criterion.getPropertyPath()),
+              argumentIndex
+          ));
+        }
+        argumentIndex += criterion.getOperator().getArgumentCount();
+      }
+      if (!isMatchingNoRow) {
+        isMatchingEveryRow |= renderedCriteria.isEmpty();
+        renderedCriteriaGroups.add(String.join(" and ", renderedCriteria));
+      }
+    }
+    if (!derivedQuery.getCriteriaGroups().isEmpty() && !isMatchingEveryRow) {
+      sql.append(" where ").append(renderedCriteriaGroups.isEmpty()
+          ? "1 = 0" : String.join(" or ", renderedCriteriaGroups));
+    }
+
+    // Add the order
+    if (!derivedQuery.getOrders().isEmpty() && derivedQuery.getAction() == Action.FIND) {
+      sql.append(" order by ").append(derivedQuery.getOrders().stream()
+          .map(order -> columnResolver.apply(order.getPropertyPath())
+              + (order.isDescending() ? " desc" : " asc"))
+          .collect(Collectors.joining(", ")));
+    }
+    return sql.toString();
+  }
+
+  /**
+   * Get the zero-based indexes of the arguments of the {@code In} and {@code NotIn} criteria of a
+   * parsed derived query, which may be bound to empty collections.
+   *
+   * @param derivedQuery the parsed {@link DerivedQuery}
+   * @return the indexes of the collection arguments, in order
+   */
+  public @Nonnull List<Integer> getCollectionArgumentIndexes(@Nonnull DerivedQuery derivedQuery) {
+    final List<Integer> collectionArgumentIndexes = new ArrayList<>();
+    int argumentIndex = 0;
+    for (final List<Criterion> criteriaGroup : derivedQuery.getCriteriaGroups()) {
+      for (final Criterion criterion : criteriaGroup) {
+        if (criterion.getOperator() == Operator.IN || criterion.getOperator() == Operator.NOT_IN) {
+          collectionArgumentIndexes.add(argumentIndex);
+        }
+        argumentIndex += criterion.getOperator().getArgumentCount();
+      }
+    }
+    return collectionArgumentIndexes;
+  }
+
+  /**
+   * Whether a parsed derived query matches no row for the given {@code In} arguments bound to empty
+   * collections, ie. whether every one of its criteria joined by {@code Or} has an empty
+   * {@code In}.
+   *
+   * @param derivedQuery         the parsed {@link DerivedQuery}
+   * @param emptyArgumentIndexes the zero-based indexes of the {@code In} and {@code NotIn}
+   *                             arguments bound to empty collections
+   * @return whether the query matches no row, and need not be run
+   */
+  public boolean isMatchingNoRow(
+      @Nonnull DerivedQuery derivedQuery,
+      @Nonnull Set<Integer> emptyArgumentIndexes
+  ) {
+    if (derivedQuery.getCriteriaGroups().isEmpty()) {
+      return false;
+    }
+
+    int argumentIndex = 0;
+    boolean isMatchingNoRow = true;
+    for (final List<Criterion> criteriaGroup : derivedQuery.getCriteriaGroups()) {
+      boolean hasEmptyIn = false;
+      for (final Criterion criterion : criteriaGroup) {
+        hasEmptyIn |= criterion.getOperator() == Operator.IN
+            && emptyArgumentIndexes.contains(argumentIndex);
+        argumentIndex += criterion.getOperator().getArgumentCount();
+      }
+      isMatchingNoRow &= hasEmptyIn;
+    }
+    return isMatchingNoRow;
+  }
+
+  /**
+   * Render the SQL of a criterion on a column, binding its arguments from the given index on.
+   *
+   * @param criterion     the {@link Criterion} to render
+   * @param columnName    the name of the column of the property of the criterion
+   * @param argumentIndex the zero-based index of the first method argument bound by the criterion
+   * @return the SQL of the criterion
+   */
+  private @Nonnull String renderSqlCriterion(
+      @Nonnull Criterion criterion,
+      @Nonnull String columnName,
+      int argumentIndex
+  ) {
+    final String column = criterion.isIgnoringCase() ? "upper(" + columnName + ")" : columnName;
+    final String argument = criterion.isIgnoringCase()
+        ? "upper(:" + SQL_PARAMETER_PREFIX + argumentIndex + ")"
+        : ":" + SQL_PARAMETER_PREFIX + argumentIndex;
+    switch (criterion.getOperator()) {
+      case IS_NOT_NULL:
+        return column + " is not null";
+      case IS_NULL:
+        return column + " is null";
+      case BETWEEN:
+        return column + " between " + argument + " and :" + SQL_PARAMETER_PREFIX
+            + (argumentIndex + 1);
+      case LESS_THAN:
+      case BEFORE:
+        return column + " < " + argument;
+      case LESS_THAN_EQUAL:
+        return column + " <= " + argument;
+      case GREATER_THAN:
+      case AFTER:
+        return column + " > " + argument;
+      case GREATER_THAN_EQUAL:
+        return column + " >= " + argument;
+      case NOT_LIKE:
+        return column + " not like " + argument;
+      case LIKE:
+        return column + " like " + argument;
+      case NOT_IN:
+        return column + " not in (" + argument + ")";
+      case IN:
+        return column + " in (" + argument + ")";
+      case TRUE:
+        return column + " = true";
+      case FALSE:
+        return column + " = false";
+      case NEGATING_SIMPLE_PROPERTY:
+        return column + " <> " + argument;
+      default:
+        return column + " = " + argument;
+    }
+  }
+
+  /**
+   * Parse a criterion of a derived query method name.
+   *
+   * @param methodName     the name of the repository method, for the error messages
+   * @param criterion      the criterion, eg. {@code CustomIdGreaterThanEqual}
+   * @param entityResolver the {@link PropertyResolver} of the entity of the repository
+   * @return the parsed {@link Criterion}
+   * @throws IllegalArgumentException if the criterion has no property of the entity
+   */
+  private @Nonnull Criterion parseCriterion(
+      @Nonnull String methodName,
+      @Nonnull String criterion,
+      @Nonnull PropertyResolver entityResolver
+  ) {
+    final Matcher ignoreCaseMatcher = IGNORE_CASE_PATTERN.matcher(criterion);
+    final boolean ignoringCase = ignoreCaseMatcher.find();
+    final String criterionWithoutIgnoreCase = ignoringCase
+        ? criterion.substring(0, ignoreCaseMatcher.start()) : criterion;
+
+    // Match the first operator with a keyword ending the criterion, as Spring Data does
+    for (final Operator operator : Operator.values()) {
+      for (final String keyword : operator.getKeywords()) {
+        if (criterionWithoutIgnoreCase.endsWith(keyword)) {
+          final String property = criterionWithoutIgnoreCase
+              .substring(0, criterionWithoutIgnoreCase.length() - keyword.length());
+          return new Criterion(
+              this.resolvePropertyPath(methodName, property, entityResolver),
+              operator,
+              ignoringCase
+          );
+        }
+      }
+    }
+    return new Criterion(
+        this.resolvePropertyPath(methodName, criterionWithoutIgnoreCase, entityResolver),
+        Operator.SIMPLE_PROPERTY,
+        ignoringCase
+    );
+  }
+
+  /**
+   * Resolve a property path of a derived query method name against the entity.
+   * <p>
+   * As in Spring Data, the whole path is tried as a property first, and then the longest heads of
+   * its camel case words, each resolved property being traversed for the rest of the path. An
+   * {@code _} separates the properties of the path explicitly.
+   *
+   * @param methodName     the name of the repository method, for the error messages
+   * @param propertyPath   the PascalCase property path, eg. {@code AddressZipCode}
+   * @param entityResolver the {@link PropertyResolver} of the entity of the repository
+   * @return the property path with {@code .} between the properties, eg. {@code address.zipCode}
+   * @throws IllegalArgumentException if the path is not a property path of the entity
+   */
+  private @Nonnull String resolvePropertyPath(
+      @Nonnull String methodName,
+      @Nonnull String propertyPath,
+      @Nonnull PropertyResolver entityResolver
+  ) {
+    final String resolvedPath = this.resolvePropertyPath(
+        Arrays.asList(propertyPath.split(PROPERTY_SEPARATOR, -1)),
+        entityResolver
+    );
+    if (propertyPath.isEmpty() || resolvedPath == null) {
+      throw new IllegalArgumentException(
+          methodName + " refers to " + (propertyPath.isEmpty() ? "no property" : propertyPath)
+              + ", which is not a property of its entity."
+      );
+    }
+    return resolvedPath;
+  }
+
+  /**
+   * Resolve the explicitly separated parts of a property path against the given type.
+   *
+   * @param parts    the PascalCase parts of the property path, separated by {@code _}
+   * @param resolver the {@link PropertyResolver} of the type the path starts from
+   * @return the property path with {@code .} between the properties, or null if it is not one
+   */
+  private @Nullable String resolvePropertyPath(
+      @Nonnull List<String> parts,
+      @Nonnull PropertyResolver resolver
+  ) {
+    if (parts.isEmpty()) {
+      return "";
+    }
+
+    final String part = parts.get(0);
+    for (int end = part.length(); end > 0; end--) {
+      final boolean isWordBoundary = end == part.length()
+          || Character.isUpperCase(part.charAt(end));
+      if (!isWordBoundary) {
+        continue;
+      }
+
+      final String property = Character.toLowerCase(part.charAt(0)) + part.substring(1, end);
+      final PropertyResolver propertyResolver = resolver.resolve(property);
+      if (propertyResolver == null) {
+        continue;
+      }
+
+      // Resolve the rest of this part, or else the next parts, against the property
+      final List<String> remainingParts = end == part.length()
+          ? parts.subList(1, parts.size())
+          : this.concat(part.substring(end), parts.subList(1, parts.size()));
+      final String remainingPath = this.resolvePropertyPath(remainingParts, propertyResolver);
+      if (remainingPath != null) {
+        return remainingPath.isEmpty() ? property : property + "." + remainingPath;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Add the paths of the collection properties a resolved property path goes through or ends at.
+   *
+   * @param propertyPath            the property path, with {@code .} between the properties
+   * @param entityResolver          the {@link PropertyResolver} of the entity of the repository
+   * @param collectionPropertyPaths the paths of the collection properties to add to
+   */
+  private void addCollectionPropertyPaths(
+      @Nonnull String propertyPath,
+      @Nonnull PropertyResolver entityResolver,
+      @Nonnull Set<String> collectionPropertyPaths
+  ) {
+    PropertyResolver resolver = entityResolver;
+    final String[] properties = propertyPath.split("\\.");
+    for (int i = 0; i < properties.length && resolver != null; i++) {
+      if (resolver.isCollection(properties[i])) {
+        collectionPropertyPaths.add(String.join(".", Arrays.asList(properties).subList(0, i + 1)));
+      }
+      resolver = resolver.resolve(properties[i]);
+    }
+  }
+
+  /**
+   * Split a part of a derived query method name by a keyword followed by a capitalized word.
+   *
+   * @param text    the part of the method name
+   * @param keyword the keyword to split by, eg. {@code And}
+   * @return the parts of the text between the keywords
+   */
+  private @Nonnull List<String> splitByKeyword(@Nonnull String text, @Nonnull String keyword) {
+    return Arrays.asList(text.split(keyword + "(?=(\\p{Lu}|\\P{InBASIC_LATIN}))", -1));
+  }
+
+  private @Nonnull List<String> concat(@Nonnull String head, @Nonnull List<String> tail) {
+    final List<String> list = new ArrayList<>();
+    list.add(head);
+    list.addAll(tail);
+    return list;
+  }
+
+  /**
+   * Resolver of the properties of a type, eg. the entity of a repository.
+   */
+  @FunctionalInterface
+  public interface PropertyResolver {
+
+    /**
+     * Resolve a property of the type.
+     *
+     * @param propertyName the camelCase name of the property
+     * @return the {@link PropertyResolver} of the type of the property (or of its elements, if it
+     * is a collection), or null if the type has no such property
+     */
+    @Nullable PropertyResolver resolve(@Nonnull String propertyName);
+
+    /**
+     * Check whether a property of the type is a collection (or a map), whose elements the
+     * {@link PropertyResolver} of the property resolves.
+     *
+     * @param propertyName the camelCase name of the property
+     * @return true if the property is a collection
+     */
+    default boolean isCollection(@Nonnull String propertyName) {
+      return false;
+    }
+  }
+}
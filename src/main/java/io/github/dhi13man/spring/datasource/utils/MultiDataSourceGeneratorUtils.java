@@ -1,6 +1,15 @@
 package io.github.dhi13man.spring.datasource.utils;
 
 import com.squareup.javapoet.FieldSpec;
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.DataSourceConfig;
+import io.github.dhi13man.spring.datasource.annotations.PerformanceProfile;
+import io.github.dhi13man.spring.datasource.annotations.PerformanceProfile.Preset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
 import javax.lang.model.element.Modifier;
 
 /**
@@ -8,6 +17,22 @@ import javax.lang.model.element.Modifier;
  */
 public class MultiDataSourceGeneratorUtils {
 
+  public static final String HIBERNATE_JDBC_BATCH_SIZE_PROPERTY = "hibernate.jdbc.batch_size";
+
+  public static final String HIBERNATE_JDBC_FETCH_SIZE_PROPERTY = "hibernate.jdbc.fetch_size";
+
+  public static final String HIBERNATE_DEFAULT_BATCH_FETCH_SIZE_PROPERTY = "hibernate.default_batch_fetch_size";
+
+  public static final String HIBERNATE_QUERY_PLAN_CACHE_MAX_SIZE_PROPERTY = "hibernate.query.plan_cache_max_size";
+
+  public static final String HIBERNATE_ORDER_INSERTS_PROPERTY = "hibernate.order_inserts";
+
+  public static final String HIBERNATE_ORDER_UPDATES_PROPERTY = "hibernate.order_updates";
+
+  public static final String JPA_QUERY_TIMEOUT_PROPERTY = "javax.persistence.query.timeout";
+
+  public static final String JPA_LOCK_TIMEOUT_PROPERTY = "javax.persistence.lock.timeout";
+
   private static MultiDataSourceGeneratorUtils instance;
 
   private MultiDataSourceGeneratorUtils() {
@@ -51,4 +76,155 @@ public class MultiDataSourceGeneratorUtils {
         .build();
   }
 
+  /**
+   * Create the {@link FieldSpec} for a constant (public static final) int.
+   *
+   * @param fieldName  the name of the field
+   * @param fieldValue the value of the field
+   * @return the {@link FieldSpec} for a constant int
+   */
+  public FieldSpec createConstantIntFieldSpec(String fieldName, int fieldValue) {
+    return FieldSpec.builder(int.class, fieldName)
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+        .initializer("$L", fieldValue)
+        .build();
+  }
+
+  /**
+   * Resolve the Hibernate JPA properties of a {@link PerformanceProfile}.
+   * <p>
+   * Every numeric attribute left at {@link PerformanceProfile#UNSET} is taken from the
+   * {@link Preset} of the profile, and omitted if the preset does not set it either. The ordering
+   * of inserts and updates is enabled if either the profile or its preset enables it.
+   *
+   * @param performanceProfile the {@link PerformanceProfile} to resolve
+   * @return the Hibernate JPA property names mapped to their values, in a stable order
+   */
+  public @Nonnull Map<String, String> getPerformanceProfileJpaProperties(
+      @Nonnull PerformanceProfile performanceProfile
+  ) {
+    final Preset preset = performanceProfile.preset();
+    final Map<String, String> jpaProperties = new LinkedHashMap<>();
+    putIfSet(
+        jpaProperties,
+        HIBERNATE_JDBC_BATCH_SIZE_PROPERTY,
+        performanceProfile.jdbcBatchSize(),
+        preset.getJdbcBatchSize()
+    );
+    putIfSet(
+        jpaProperties,
+        HIBERNATE_JDBC_FETCH_SIZE_PROPERTY,
+        performanceProfile.jdbcFetchSize(),
+        preset.getJdbcFetchSize()
+    );
+    putIfSet(
+        jpaProperties,
+        HIBERNATE_DEFAULT_BATCH_FETCH_SIZE_PROPERTY,
+        performanceProfile.defaultBatchFetchSize(),
+        preset.getDefaultBatchFetchSize()
+    );
+    putIfSet(
+        jpaProperties,
+        HIBERNATE_QUERY_PLAN_CACHE_MAX_SIZE_PROPERTY,
+        performanceProfile.queryPlanCacheMaxSize(),
+        preset.getQueryPlanCacheMaxSize()
+    );
+    if (performanceProfile.orderInserts() || preset.isOrderInserts()) {
+      jpaProperties.put(HIBERNATE_ORDER_INSERTS_PROPERTY, Boolean.TRUE.toString());
+    }
+    if (performanceProfile.orderUpdates() || preset.isOrderUpdates()) {
+      jpaProperties.put(HIBERNATE_ORDER_UPDATES_PROPERTY, Boolean.TRUE.toString());
+    }
+    return jpaProperties;
+  }
+
+  /**
+   * Resolve the JPA timeout properties of a {@link DataSourceConfig}.
+   * <p>
+   * Timeouts left at {@link PerformanceProfile#UNSET} are omitted.
+   *
+   * @param dataSourceConfig the {@link DataSourceConfig} to resolve the timeouts of
+   * @return the JPA timeout property names mapped to their values in milliseconds, in a stable
+   * order
+   */
+  public @Nonnull Map<String, String> getTimeoutJpaProperties(
+      @Nonnull DataSourceConfig dataSourceConfig
+  ) {
+    final Map<String, String> jpaProperties = new LinkedHashMap<>();
+    putIfSet(
+        jpaProperties,
+        JPA_QUERY_TIMEOUT_PROPERTY,
+        dataSourceConfig.queryTimeoutMillis(),
+        PerformanceProfile.UNSET
+    );
+    putIfSet(
+        jpaProperties,
+        JPA_LOCK_TIMEOUT_PROPERTY,
+        dataSourceConfig.lockTimeoutMillis(),
+        PerformanceProfile.UNSET
+    );
+    return jpaProperties;
+  }
+
+  /**
+   * Partition a connection budget across data sources proportionally to their weights.
+   * <p>
+   * Every data source first gets the floor of its proportional share, and the connections left
+   * over are then given one each to the data sources with the largest remainders (earlier data
+   * sources first on ties), so that the shares always add up to the whole budget.
+   *
+   * @param maxConnections         the number of connections to partition
+   * @param dataSourceNameToWeight the data source names mapped to their positive weights
+   * @return the data source names mapped to their shares, in the order of the weights
+   */
+  public @Nonnull Map<String, Integer> partitionConnectionBudget(
+      int maxConnections,
+      @Nonnull Map<String, Integer> dataSourceNameToWeight
+  ) {
+    final long totalWeight = dataSourceNameToWeight.values().stream()
+        .mapToLong(Integer::longValue)
+        .sum();
+    final Map<String, Integer> dataSourceNameToShare = new LinkedHashMap<>();
+    final Map<String, Long> dataSourceNameToRemainder = new LinkedHashMap<>();
+    int partitionedConnections = 0;
+    for (final Map.Entry<String, Integer> entry : dataSourceNameToWeight.entrySet()) {
+      final long weightedConnections = (long) maxConnections * entry.getValue();
+      final int share = (int) (weightedConnections / totalWeight);
+      dataSourceNameToShare.put(entry.getKey(), share);
+      dataSourceNameToRemainder.put(entry.getKey(), weightedConnections % totalWeight);
+      partitionedConnections += share;
+    }
+
+    // Give the left over connections to the largest remainders, stable sort keeps the order on ties
+    final List<String> dataSourceNamesByRemainder = new ArrayList<>(
+        dataSourceNameToRemainder.keySet()
+    );
+    dataSourceNamesByRemainder
+        .sort(Comparator.comparing(dataSourceNameToRemainder::get, Comparator.reverseOrder()));
+    for (int i = 0; i < maxConnections - partitionedConnections; i++) {
+      dataSourceNameToShare.merge(dataSourceNamesByRemainder.get(i), 1, Integer::sum);
+    }
+    return dataSourceNameToShare;
+  }
+
+  /**
+   * Put the given value, falling back to the preset value, into the map if either of them is set.
+   *
+   * @param jpaProperties the map to put the value into
+   * @param propertyName  the name of the property
+   * @param value         the value of the property, or {@link PerformanceProfile#UNSET}
+   * @param presetValue   the preset value of the property, or {@link PerformanceProfile#UNSET}
+   */
+  private void putIfSet(
+      @Nonnull Map<String, String> jpaProperties,
+      @Nonnull String propertyName,
+      int value,
+      int presetValue
+  ) {
+    final int resolvedValue = value == PerformanceProfile.UNSET ? presetValue : value;
+    if (resolvedValue != PerformanceProfile.UNSET) {
+      jpaProperties.put(propertyName, String.valueOf(resolvedValue));
+    }
+  }
+
 }
@@ -0,0 +1,86 @@
+package io.github.dhi13man.spring.datasource.config;
+
+import io.github.dhi13man.spring.datasource.generators.MockEntity;
+import io.github.dhi13man.spring.datasource.generators.MockEntitySubclass;
+import java.util.List;
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.jpa.persistenceunit.MutablePersistenceUnitInfo;
+
+public class MultiDataSourceManagedTypesPostProcessorTest {
+
+  @Test
+  void postProcessPersistenceUnitInfo() {
+    // Arrange
+    final MutablePersistenceUnitInfo persistenceUnitInfo = new MutablePersistenceUnitInfo();
+    persistenceUnitInfo.setPersistenceUnitName("replica-2");
+    persistenceUnitInfo.addManagedClassName(MockEntity.class.getName());
+    persistenceUnitInfo.addManagedClassName(MockEntity.MockAddress.class.getName());
+    persistenceUnitInfo.addManagedClassName(UnusedEntity.class.getName());
+    persistenceUnitInfo.addManagedClassName(MockEntitySubclass.class.getName());
+    persistenceUnitInfo.addManagedClassName(MockConverter.class.getName());
+    persistenceUnitInfo.addManagedClassName("io.github.dhi13man.spring.datasource.Unknown");
+
+    // Act
+    new MultiDataSourceManagedTypesPostProcessor(
+        MockEntity.class.getName(),
+        MockEntity.MockAddress.class.getName()
+    ).postProcessPersistenceUnitInfo(persistenceUnitInfo);
+
+    // Assert only the unused entity is dropped
+    Assertions.assertEquals(
+        List.of(
+            MockEntity.class.getName(),
+            MockEntity.MockAddress.class.getName(),
+            MockEntitySubclass.class.getName(),
+            MockConverter.class.getName(),
+            "io.github.dhi13man.spring.datasource.Unknown"
+        ),
+        persistenceUnitInfo.getManagedClassNames()
+    );
+    Assertions.assertTrue(persistenceUnitInfo.excludeUnlistedClasses());
+  }
+
+  @Test
+  void postProcessPersistenceUnitInfoNoManagedTypes() {
+    // Arrange
+    final MutablePersistenceUnitInfo persistenceUnitInfo = new MutablePersistenceUnitInfo();
+    persistenceUnitInfo.addManagedClassName(MockEntity.class.getName());
+    persistenceUnitInfo.addManagedClassName(MockConverter.class.getName());
+
+    // Act
+    new MultiDataSourceManagedTypesPostProcessor()
+        .postProcessPersistenceUnitInfo(persistenceUnitInfo);
+
+    // Assert
+    Assertions.assertEquals(
+        List.of(MockConverter.class.getName()),
+        persistenceUnitInfo.getManagedClassNames()
+    );
+  }
+
+  @Entity
+  public static class UnusedEntity {
+
+    @Id
+    private Long id;
+  }
+
+  @Converter(autoApply = true)
+  public static class MockConverter implements AttributeConverter<Boolean, String> {
+
+    @Override
+    public String convertToDatabaseColumn(Boolean attribute) {
+      return String.valueOf(attribute);
+    }
+
+    @Override
+    public Boolean convertToEntityAttribute(String dbData) {
+      return Boolean.valueOf(dbData);
+    }
+  }
+}
@@ -1,8 +1,16 @@
 package io.github.dhi13man.spring.datasource.config;
 
 
+import io.github.dhi13man.spring.datasource.annotations.AsyncExecutor;
+import io.github.dhi13man.spring.datasource.annotations.CircuitBreaker;
+import io.github.dhi13man.spring.datasource.annotations.ConcurrencyLimit;
+import io.github.dhi13man.spring.datasource.annotations.ConcurrencyLimit.OverloadAction;
+import io.github.dhi13man.spring.datasource.annotations.ConnectionBudget;
 import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig;
 import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.DataSourceConfig;
+import io.github.dhi13man.spring.datasource.annotations.PerformanceProfile;
+import io.github.dhi13man.spring.datasource.annotations.PerformanceProfile.Preset;
+import io.github.dhi13man.spring.datasource.annotations.ReadYourWrites;
 
 /**
  * Created to enable generation of the Multi Data Source classes for testing.
@@ -12,16 +20,49 @@ import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceCon
     generatedConfigPackage = "io.github.dhi13man.spring.datasource.generated.config",
     primaryDataSourceConfig = @DataSourceConfig(
         dataSourceName = "master",
-        exactEntityPackages = "java.lang"
+        exactEntityPackages = "java.lang",
+        connectionBudgetWeight = 2
     ),
     secondaryDataSourceConfigs = {
-        @DataSourceConfig(dataSourceName = "replica-2", exactEntityPackages = "java.lang"),
-        @DataSourceConfig(dataSourceName = "read-replica", exactEntityPackages = "java.lang"),
+        @DataSourceConfig(
+            dataSourceName = "replica-2",
+            exactEntityPackages = "java.lang",
+            poolPropertiesPerDataSource = true,
+            performanceProfile = @PerformanceProfile(preset = Preset.OLTP_READ, jdbcFetchSize = 250),
+            queryTimeoutMillis = 30000,
+            lockTimeoutMillis = 2000,
+            connectionInitSql = "SET LOCK_TIMEOUT 2000",
+            asyncExecutor = @AsyncExecutor(enabled = true, queueCapacity = 100),
+            readYourWrites = @ReadYourWrites(enabled = true, windowMillis = 2000),
+            shardSet = "objects",
+            streamFetchSize = 500
+        ),
+        @DataSourceConfig(
+            dataSourceName = "read-replica",
+            exactEntityPackages = "java.lang",
+            readOnly = true,
+            concurrencyLimit = @ConcurrencyLimit(
+                enabled = true,
+                overloadAction = OverloadAction.DIVERT_TO_PRIMARY
+            ),
+            shardSet = "objects"
+        ),
         @DataSourceConfig(
             dataSourceName = "replica-no-target-data-source",
-            exactEntityPackages = "java.lang"
+            exactEntityPackages = "java.lang",
+            circuitBreaker = @CircuitBreaker(enabled = true, failoverDataSourceName = "master")
+        ),
+        @DataSourceConfig(
+            dataSourceName = "replica-jdbc",
+            exactEntityPackages = "java.lang",
+            jdbcOnly = true
         ),
-    }
+    },
+    connectionBudget = @ConnectionBudget(maxConnections = 48),
+    shareConnectionPools = true,
+    precomputeDerivedQueries = true,
+    warmUpQueryPlans = true,
+    minimizeEntitySets = true
 )
 public class MultiDataSourceTestConfig {
 
@@ -0,0 +1,35 @@
+package io.github.dhi13man.spring.datasource.generators;
+
+import javax.persistence.Embeddable;
+import javax.persistence.Embedded;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * Entity of {@link TargetSecondaryDataSourceGeneratorTest.MockEntityTestRepository}, for the
+ * derived queries of its generated copies.
+ */
+@Entity(name = "MockEntity")
+public class MockEntity {
+
+  @Id
+  private Long id;
+
+  private String code;
+
+  private int size;
+
+  private boolean active;
+
+  @Embedded
+  private MockAddress address;
+
+  /**
+   * Embedded address of {@link MockEntity}.
+   */
+  @Embeddable
+  public static class MockAddress {
+
+    private String zipCode;
+  }
+}
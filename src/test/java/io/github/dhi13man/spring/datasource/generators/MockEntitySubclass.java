@@ -0,0 +1,12 @@
+package io.github.dhi13man.spring.datasource.generators;
+
+import javax.persistence.Entity;
+
+/**
+ * Entity subclass of {@link MockEntity}, which the minimized entity sets of the copies of its
+ * repositories register, as their queries may return it.
+ */
+@Entity
+public class MockEntitySubclass extends MockEntity {
+
+}
@@ -0,0 +1,18 @@
+package io.github.dhi13man.spring.datasource.generators;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * Entity only named in the JPQL of a query of
+ * {@link TargetSecondaryDataSourceGeneratorTest.MockEntityTestRepository}, which the minimized
+ * entity sets of its copies register.
+ */
+@Entity(name = "MockEntityTag")
+public class MockEntityTag {
+
+  @Id
+  private Long id;
+
+  private String code;
+}
@@ -0,0 +1,93 @@
+package io.github.dhi13man.spring.datasource.generators;
+
+import java.math.BigDecimal;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+/**
+ * Entity of {@link TargetSecondaryDataSourceGeneratorTest.MockJdbcEntityTestRepository}, whose
+ * rows the copies of the JDBC only data source map.
+ */
+@Entity(name = "MockJdbcEntity")
+@Table(name = "mockJdbcEntities")
+public class MockJdbcEntity {
+
+  @Id
+  private Long id;
+
+  private String code;
+
+  private int quantity;
+
+  private boolean active;
+
+  @Enumerated(EnumType.STRING)
+  private Status status;
+
+  @Column(name = "unitPrice")
+  private BigDecimal price;
+
+  @Transient
+  private String label;
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public String getCode() {
+    return code;
+  }
+
+  public void setCode(String code) {
+    this.code = code;
+  }
+
+  public int getQuantity() {
+    return quantity;
+  }
+
+  public void setQuantity(int quantity) {
+    this.quantity = quantity;
+  }
+
+  public boolean isActive() {
+    return active;
+  }
+
+  public void setActive(boolean active) {
+    this.active = active;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public void setStatus(Status status) {
+    this.status = status;
+  }
+
+  public BigDecimal getPrice() {
+    return price;
+  }
+
+  public void setPrice(BigDecimal price) {
+    this.price = price;
+  }
+
+  /**
+   * Status of {@link MockJdbcEntity}, stored by name.
+   */
+  public enum Status {
+    OPEN,
+    CLOSED
+  }
+}
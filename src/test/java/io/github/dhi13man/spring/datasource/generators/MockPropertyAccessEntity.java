@@ -0,0 +1,33 @@
+package io.github.dhi13man.spring.datasource.generators;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * Entity of {@link TargetSecondaryDataSourceGeneratorTest.MockPropertyAccessEntityTestRepository},
+ * mapped with property access, whose id is annotated on its getter.
+ */
+@Entity(name = "MockPropertyAccessEntity")
+public class MockPropertyAccessEntity {
+
+  private Long number;
+
+  private String code;
+
+  @Id
+  public Long getNumber() {
+    return number;
+  }
+
+  public void setNumber(Long number) {
+    this.number = number;
+  }
+
+  public String getCode() {
+    return code;
+  }
+
+  public void setCode(String code) {
+    this.code = code;
+  }
+}
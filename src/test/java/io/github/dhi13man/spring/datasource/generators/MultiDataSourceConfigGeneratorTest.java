@@ -1,30 +1,77 @@
 package io.github.dhi13man.spring.datasource.generators;
 
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeSpec;
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.DataSourceConfig;
 import io.github.dhi13man.spring.datasource.annotations.TargetSecondaryDataSource;
 import io.github.dhi13man.spring.datasource.config.IMultiDataSourceConfig;
+import io.github.dhi13man.spring.datasource.config.IMultiDataSourceEntityManagerFactoryConfig;
+import io.github.dhi13man.spring.datasource.config.IMultiDataSourceJdbcConfig;
 import io.github.dhi13man.spring.datasource.generated.config.MasterDataSourceConfig;
+import io.github.dhi13man.spring.datasource.generated.config.MultiDataSourceConnectionBudgetConfig;
+import io.github.dhi13man.spring.datasource.generated.config.MultiDataSourceQueryPlanWarmUpConfig;
+import io.github.dhi13man.spring.datasource.generated.config.MultiDataSourceRepositoryConfig;
+import io.github.dhi13man.spring.datasource.generated.config.MultiDataSourceSharedConnectionPoolConfig;
 import io.github.dhi13man.spring.datasource.generated.config.ReadReplicaDataSourceConfig;
 import io.github.dhi13man.spring.datasource.generated.config.Replica2DataSourceConfig;
+import io.github.dhi13man.spring.datasource.generated.config.ReplicaJdbcDataSourceConfig;
 import io.github.dhi13man.spring.datasource.generated.config.ReplicaNoTargetDataSourceDataSourceConfig;
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceBulkheadExecutor;
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceCircuitBreaker;
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceCircuitBreakerDataSource;
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceConcurrencyLimitedDataSource;
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceConcurrencyLimiter;
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceConcurrencyLimiterMetrics;
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceConnectionBudgetValidator;
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceSharedConnectionPoolPostProcessor;
+import io.github.dhi13man.spring.datasource.pool.SharedConnectionPoolDataSource;
+import io.github.dhi13man.spring.datasource.repository.MultiDataSourceJdbcRepository;
+import io.github.dhi13man.spring.datasource.repository.MultiDataSourceQueryPlanWarmer;
+import io.github.dhi13man.spring.datasource.repository.MultiDataSourceRepositoryMetrics;
+import io.github.dhi13man.spring.datasource.repository.MultiDataSourceRepositoryPostProcessor;
+import io.github.dhi13man.spring.datasource.routing.MultiDataSourceReadYourWrites;
+import io.github.dhi13man.spring.datasource.routing.MultiDataSourceReadYourWritesDataSource;
+import io.github.dhi13man.spring.datasource.utils.MultiDataSourceCommonStringUtils;
+import io.github.dhi13man.spring.datasource.utils.MultiDataSourceConnectionPoolUtilsTest.MockPooledDataSource;
+import io.github.dhi13man.spring.datasource.utils.MultiDataSourceGeneratorUtils;
+import java.sql.SQLException;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import javax.lang.model.element.Modifier;
 import javax.sql.DataSource;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.platform.commons.util.ReflectionUtils;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
 import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.context.annotation.ComponentScan;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.jdbc.datasource.SingleConnectionDataSource;
 import org.springframework.lang.NonNull;
+import org.springframework.orm.jpa.JpaDialect;
+import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.persistenceunit.DefaultPersistenceUnitManager;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
 
 class MultiDataSourceConfigGeneratorTest {
 
@@ -34,7 +81,7 @@ class MultiDataSourceConfigGeneratorTest {
    * Running mvn clean install will generate the classes in the
    * target/generated-test-sources/annotations directory.
    */
-  private final Set<IMultiDataSourceConfig> generatedConfigs = Set.of(
+  private final Set<IMultiDataSourceEntityManagerFactoryConfig> generatedConfigs = Set.of(
       new MasterDataSourceConfig(),
       new ReadReplicaDataSourceConfig(),
       new Replica2DataSourceConfig(),
@@ -43,7 +90,7 @@ class MultiDataSourceConfigGeneratorTest {
 
   @Test
   void generateMultiDataSourceConfigTypeElementGetDataSourceProperties() {
-    for (final IMultiDataSourceConfig generatedConfig : generatedConfigs) {
+    for (final IMultiDataSourceEntityManagerFactoryConfig generatedConfig : generatedConfigs) {
       // Act
       final DataSourceProperties dataSourceProperties = generatedConfig.dataSourceProperties();
 
@@ -54,7 +101,7 @@ class MultiDataSourceConfigGeneratorTest {
 
   @Test
   void generateMultiDataSourceConfigTypeElementGetDataSourceUsingProperties() {
-    for (final IMultiDataSourceConfig generatedConfig : generatedConfigs) {
+    for (final IMultiDataSourceEntityManagerFactoryConfig generatedConfig : generatedConfigs) {
       // Act
       final DataSourceProperties dataSourceProperties = generatedConfig.dataSourceProperties();
       dataSourceProperties.setEmbeddedDatabaseConnection(EmbeddedDatabaseConnection.H2);
@@ -66,9 +113,533 @@ class MultiDataSourceConfigGeneratorTest {
     }
   }
 
+  @Test
+  void generateMultiDataSourceConfigTypeElementGetDataSourceWithPoolDefaults() {
+    // Arrange
+    final IMultiDataSourceEntityManagerFactoryConfig generatedConfig = new MasterDataSourceConfig();
+    final DataSourceProperties dataSourceProperties = generatedConfig.dataSourceProperties();
+    dataSourceProperties.setEmbeddedDatabaseConnection(EmbeddedDatabaseConnection.H2);
+    dataSourceProperties.setType(MockPooledDataSource.class);
+
+    // Act
+    final MockPooledDataSource dataSource = (MockPooledDataSource) generatedConfig
+        .dataSource(dataSourceProperties);
+
+    // Assert 48 connections split by weights 2:1:1:1:1
+    Assertions.assertEquals(16, MasterDataSourceConfig.MAXIMUM_POOL_SIZE);
+    Assertions.assertEquals(8, Replica2DataSourceConfig.MAXIMUM_POOL_SIZE);
+    Assertions
+        .assertEquals(MasterDataSourceConfig.MAXIMUM_POOL_SIZE, dataSource.getMaximumPoolSize());
+    Assertions
+        .assertEquals(MasterDataSourceConfig.DATA_SOURCE_BEAN_NAME, dataSource.getPoolName());
+  }
+
+  @Test
+  void generateMultiDataSourceConfigTypeElementGetDataSourceClassPropertiesPath()
+      throws NoSuchMethodException {
+    // Act
+    final ConfigurationProperties masterProperties = MasterDataSourceConfig.class
+        .getMethod("dataSource", DataSourceProperties.class)
+        .getAnnotation(ConfigurationProperties.class);
+    final ConfigurationProperties replica2Properties = Replica2DataSourceConfig.class
+        .getMethod("dataSource", DataSourceProperties.class)
+        .getAnnotation(ConfigurationProperties.class);
+
+    // Assert the shared pool settings are read unless the data source reads its own
+    Assertions.assertEquals("spring.datasource.hikari", masterProperties.prefix());
+    Assertions.assertEquals("spring.datasource.replica-2.hikari", replica2Properties.prefix());
+  }
+
+  @Test
+  void generateMultiDataSourceConfigTypeElementGetDataSourceWithConnectionInitSql() {
+    // Arrange
+    final IMultiDataSourceEntityManagerFactoryConfig generatedConfig = new Replica2DataSourceConfig();
+    final DataSourceProperties dataSourceProperties = generatedConfig.dataSourceProperties();
+    dataSourceProperties.setEmbeddedDatabaseConnection(EmbeddedDatabaseConnection.H2);
+    dataSourceProperties.setType(MockPooledDataSource.class);
+
+    // Act
+    final MockPooledDataSource dataSource = (MockPooledDataSource) generatedConfig
+        .dataSource(dataSourceProperties);
+
+    // Assert
+    Assertions.assertEquals(
+        Replica2DataSourceConfig.CONNECTION_INIT_SQL,
+        dataSource.getConnectionInitSql()
+    );
+  }
+
+  @Test
+  void generateMultiDataSourceConfigTypeElementGetAsyncExecutor() {
+    // Arrange
+    final Replica2DataSourceConfig generatedConfig = new Replica2DataSourceConfig();
+    final DataSourceProperties dataSourceProperties = generatedConfig.dataSourceProperties();
+    dataSourceProperties.setEmbeddedDatabaseConnection(EmbeddedDatabaseConnection.H2);
+    dataSourceProperties.setType(MockPooledDataSource.class);
+    final DataSource dataSource = generatedConfig.dataSource(dataSourceProperties);
+
+    // Act
+    final MultiDataSourceBulkheadExecutor asyncExecutor = generatedConfig.asyncExecutor(dataSource);
+
+    // Assert the executor is capped at the pool size of replica-2, which alone enables one
+    Assertions.assertEquals(
+        "replica-2-async-executor",
+        Replica2DataSourceConfig.ASYNC_EXECUTOR_BEAN_NAME
+    );
+    Assertions.assertEquals(
+        Replica2DataSourceConfig.MAXIMUM_POOL_SIZE,
+        asyncExecutor.getCorePoolSize()
+    );
+    Assertions.assertEquals(
+        Replica2DataSourceConfig.MAXIMUM_POOL_SIZE,
+        asyncExecutor.getMaxPoolSize()
+    );
+    Assertions.assertNotNull(Replica2DataSourceConfig.class.getAnnotation(EnableAsync.class));
+    Assertions.assertNull(MasterDataSourceConfig.class.getAnnotation(EnableAsync.class));
+    Assertions.assertTrue(
+        ReflectionUtils.findMethod(MasterDataSourceConfig.class, "asyncExecutor", DataSource.class)
+            .isEmpty()
+    );
+  }
+
+  @Test
+  void generateMultiDataSourceConfigTypeElementGetConcurrencyLimiter() {
+    // Arrange
+    final ReadReplicaDataSourceConfig generatedConfig = new ReadReplicaDataSourceConfig();
+    final DataSourceProperties dataSourceProperties = generatedConfig.dataSourceProperties();
+    dataSourceProperties.setEmbeddedDatabaseConnection(EmbeddedDatabaseConnection.H2);
+    dataSourceProperties.setType(MockPooledDataSource.class);
+    final DataSource dataSource = generatedConfig.dataSource(dataSourceProperties);
+
+    // Act
+    final MultiDataSourceConcurrencyLimiter limiter = generatedConfig.concurrencyLimiter(dataSource);
+    final MultiDataSourceConcurrencyLimiterMetrics metrics =
+        new ReadReplicaDataSourceConfig.ConcurrencyLimiterMetricsConfig()
+            .concurrencyLimiterMetrics(limiter);
+
+    // Assert the limit starts at the pool size of read-replica, which alone enables one
+    Assertions.assertEquals(
+        "read-replica-concurrency-limiter",
+        ReadReplicaDataSourceConfig.CONCURRENCY_LIMITER_BEAN_NAME
+    );
+    Assertions.assertEquals("read-replica", limiter.getDataSourceName());
+    Assertions.assertEquals(ReadReplicaDataSourceConfig.MAXIMUM_POOL_SIZE, limiter.getLimit());
+    Assertions.assertTrue(limiter.isDivertingToPrimary());
+    Assertions.assertNotNull(metrics);
+    Assertions.assertTrue(
+        ReflectionUtils.findMethod(
+            Replica2DataSourceConfig.class,
+            "concurrencyLimiter",
+            DataSource.class
+        ).isEmpty()
+    );
+  }
+
+  @Test
+  void generateMultiDataSourceConfigTypeElementGetConcurrencyLimitedEntityManagerFactory() {
+    // Arrange
+    final IMultiDataSourceEntityManagerFactoryConfig generatedConfig = new ReadReplicaDataSourceConfig();
+    final EntityManagerFactoryBuilder mockEntityManagerFactoryBuilder = new EntityManagerFactoryBuilder(
+        new HibernateJpaVendorAdapter(),
+        new HashMap<>(),
+        new DefaultPersistenceUnitManager()
+    );
+    final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+    final MultiDataSourceConcurrencyLimiter limiter =
+        new MultiDataSourceConcurrencyLimiter("read-replica", 1, 2, 1000, 90, true);
+    beanFactory.registerSingleton(ReadReplicaDataSourceConfig.CONCURRENCY_LIMITER_BEAN_NAME, limiter);
+    final DataSource dataSource = Mockito.mock(DataSource.class);
+
+    // Act
+    final LocalContainerEntityManagerFactoryBean entityManagerFactory = generatedConfig
+        .entityManagerFactory(
+            generatedConfig.overridingJpaProperties(),
+            dataSource,
+            mockEntityManagerFactoryBuilder,
+            beanFactory
+        );
+
+    // Assert
+    final MultiDataSourceConcurrencyLimitedDataSource limitedDataSource = Assertions
+        .assertInstanceOf(
+            MultiDataSourceConcurrencyLimitedDataSource.class,
+            entityManagerFactory.getDataSource()
+        );
+    Assertions.assertSame(dataSource, limitedDataSource.getTargetDataSource());
+    Assertions.assertSame(limiter, limitedDataSource.getConcurrencyLimiter());
+  }
+
+  @Test
+  void generateMultiDataSourceConfigTypeElementGetCircuitBreaker() {
+    // Arrange
+    final ReplicaNoTargetDataSourceDataSourceConfig generatedConfig =
+        new ReplicaNoTargetDataSourceDataSourceConfig();
+
+    // Act
+    final MultiDataSourceCircuitBreaker circuitBreaker = generatedConfig.circuitBreaker();
+
+    // Assert
+    Assertions.assertEquals(
+        "replica-no-target-data-source-circuit-breaker",
+        ReplicaNoTargetDataSourceDataSourceConfig.CIRCUIT_BREAKER_BEAN_NAME
+    );
+    Assertions.assertEquals("replica-no-target-data-source", circuitBreaker.getDataSourceName());
+    Assertions.assertEquals(
+        MasterDataSourceConfig.DATA_SOURCE_BEAN_NAME,
+        circuitBreaker.getFailoverDataSourceBeanName()
+    );
+    Assertions.assertEquals(MultiDataSourceCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+  }
+
+  @Test
+  void generateMultiDataSourceConfigTypeElementGetCircuitBreakerEntityManagerFactory() {
+    // Arrange
+    final IMultiDataSourceEntityManagerFactoryConfig generatedConfig = new ReplicaNoTargetDataSourceDataSourceConfig();
+    final EntityManagerFactoryBuilder mockEntityManagerFactoryBuilder = new EntityManagerFactoryBuilder(
+        new HibernateJpaVendorAdapter(),
+        new HashMap<>(),
+        new DefaultPersistenceUnitManager()
+    );
+    final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+    final MultiDataSourceCircuitBreaker circuitBreaker =
+        new ReplicaNoTargetDataSourceDataSourceConfig().circuitBreaker();
+    beanFactory.registerSingleton(
+        ReplicaNoTargetDataSourceDataSourceConfig.CIRCUIT_BREAKER_BEAN_NAME,
+        circuitBreaker
+    );
+    final DataSource dataSource = Mockito.mock(DataSource.class);
+
+    // Act
+    final LocalContainerEntityManagerFactoryBean entityManagerFactory = generatedConfig
+        .entityManagerFactory(
+            generatedConfig.overridingJpaProperties(),
+            dataSource,
+            mockEntityManagerFactoryBuilder,
+            beanFactory
+        );
+
+    // Assert
+    final MultiDataSourceCircuitBreakerDataSource circuitBreakerDataSource = Assertions
+        .assertInstanceOf(
+            MultiDataSourceCircuitBreakerDataSource.class,
+            entityManagerFactory.getDataSource()
+        );
+    Assertions.assertSame(dataSource, circuitBreakerDataSource.getTargetDataSource());
+    Assertions.assertSame(circuitBreaker, circuitBreakerDataSource.getCircuitBreaker());
+  }
+
+  @Test
+  void generateMultiDataSourceConfigTypeElementGetReadYourWritesEntityManagerFactory() {
+    // Arrange
+    final IMultiDataSourceEntityManagerFactoryConfig generatedConfig = new Replica2DataSourceConfig();
+    final EntityManagerFactoryBuilder mockEntityManagerFactoryBuilder = new EntityManagerFactoryBuilder(
+        new HibernateJpaVendorAdapter(),
+        new HashMap<>(),
+        new DefaultPersistenceUnitManager()
+    );
+    final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+    final MultiDataSourceReadYourWrites readYourWrites = new Replica2DataSourceConfig()
+        .readYourWrites();
+    beanFactory.registerSingleton(Replica2DataSourceConfig.READ_YOUR_WRITES_BEAN_NAME,
+        readYourWrites);
+    final DataSource dataSource = Mockito.mock(DataSource.class);
+
+    // Act
+    final LocalContainerEntityManagerFactoryBean entityManagerFactory = generatedConfig
+        .entityManagerFactory(
+            generatedConfig.overridingJpaProperties(),
+            dataSource,
+            mockEntityManagerFactoryBuilder,
+            beanFactory
+        );
+
+    // Assert
+    Assertions.assertEquals(
+        "replica-2-read-your-writes",
+        Replica2DataSourceConfig.READ_YOUR_WRITES_BEAN_NAME
+    );
+    Assertions.assertEquals("replica-2", readYourWrites.getDataSourceName());
+    Assertions.assertEquals(2000, readYourWrites.getWindowMillis());
+    final MultiDataSourceReadYourWritesDataSource readYourWritesDataSource = Assertions
+        .assertInstanceOf(
+            MultiDataSourceReadYourWritesDataSource.class,
+            entityManagerFactory.getDataSource()
+        );
+    Assertions.assertSame(dataSource, readYourWritesDataSource.getTargetDataSource());
+    Assertions.assertSame(readYourWrites, readYourWritesDataSource.getReadYourWrites());
+  }
+
+  @Test
+  void generateConnectionBudgetConfigTypeElementGetValidator() {
+    // Arrange
+    final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+    final List<String> dataSourceBeanNames = List.of(
+        MasterDataSourceConfig.DATA_SOURCE_BEAN_NAME,
+        ReadReplicaDataSourceConfig.DATA_SOURCE_BEAN_NAME,
+        Replica2DataSourceConfig.DATA_SOURCE_BEAN_NAME,
+        ReplicaNoTargetDataSourceDataSourceConfig.DATA_SOURCE_BEAN_NAME,
+        ReplicaJdbcDataSourceConfig.DATA_SOURCE_BEAN_NAME
+    );
+    for (final String dataSourceBeanName : dataSourceBeanNames) {
+      final MockPooledDataSource dataSource = new MockPooledDataSource();
+      dataSource.setMaximumPoolSize(11);
+      beanFactory.registerSingleton(dataSourceBeanName, dataSource);
+    }
+
+    // Act
+    final MultiDataSourceConnectionBudgetValidator validator =
+        new MultiDataSourceConnectionBudgetConfig().connectionBudgetValidator(beanFactory);
+
+    // Assert 55 connections configured for a budget of 48
+    Assertions.assertEquals(48, MultiDataSourceConnectionBudgetConfig.MAX_CONNECTIONS);
+    Assertions.assertThrows(IllegalStateException.class, validator::afterSingletonsInstantiated);
+  }
+
+  @Test
+  void generateSharedConnectionPoolConfigTypeElementGetPostProcessor() {
+    // Arrange
+    final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+    final MockPooledDataSource masterDataSource = new MockPooledDataSource();
+    masterDataSource.setUrl("jdbc:h2:mem:test");
+    beanFactory.registerSingleton(MasterDataSourceConfig.DATA_SOURCE_BEAN_NAME, masterDataSource);
+    final MockPooledDataSource replicaDataSource = new MockPooledDataSource();
+    replicaDataSource.setUrl("jdbc:h2:mem:test");
+
+    // Act
+    final MultiDataSourceSharedConnectionPoolPostProcessor postProcessor =
+        MultiDataSourceSharedConnectionPoolConfig.sharedConnectionPoolPostProcessor();
+    postProcessor.setBeanFactory(beanFactory);
+    final Object processedReplicaDataSource = postProcessor.postProcessAfterInitialization(
+        replicaDataSource,
+        ReadReplicaDataSourceConfig.DATA_SOURCE_BEAN_NAME
+    );
+
+    // Assert sharing enabled in the test config
+    Assertions.assertTrue(processedReplicaDataSource instanceof SharedConnectionPoolDataSource);
+  }
+
+  @Test
+  void generateRepositoryConfigTypeElementGetPostProcessor() {
+    // Act
+    final MultiDataSourceRepositoryPostProcessor postProcessor =
+        MultiDataSourceRepositoryConfig.repositoryPostProcessor();
+    final MultiDataSourceRepositoryMetrics repositoryMetrics =
+        new MultiDataSourceRepositoryConfig.RepositoryMetricsConfig()
+            .repositoryMetrics(postProcessor);
+
+    // Assert replica-2 has read-your-writes stickiness, so the primary writes are recorded
+    Assertions.assertNotNull(postProcessor.getCoalescingInterceptor());
+    Assertions.assertNotNull(postProcessor.getReadYourWritesInterceptor());
+    Assertions.assertNotNull(repositoryMetrics);
+  }
+
+  @Test
+  void generateRoutingConfigTypeElement() {
+    // Arrange
+    final MultiDataSourceConfigGenerator configGenerator = new MultiDataSourceConfigGenerator(
+        MultiDataSourceGeneratorUtils.getInstance(),
+        MultiDataSourceCommonStringUtils.getInstance()
+    );
+    final DataSourceConfig masterConfig = Mockito.mock(DataSourceConfig.class);
+    Mockito.when(masterConfig.dataSourceName()).thenReturn("master");
+    final DataSourceConfig readReplicaConfig = Mockito.mock(DataSourceConfig.class);
+    Mockito.when(readReplicaConfig.dataSourceName()).thenReturn("read-replica");
+    Mockito.when(readReplicaConfig.readOnly()).thenReturn(true);
+    final Map<String, DataSourceConfig> configClassNameToDataSource = new LinkedHashMap<>();
+    configClassNameToDataSource.put("MasterDataSourceConfig", masterConfig);
+    configClassNameToDataSource.put("ReadReplicaDataSourceConfig", readReplicaConfig);
+
+    // Act
+    final TypeSpec routingTypeSpec = configGenerator.generateRoutingConfigTypeElement(
+        "MultiDataSourceRoutingConfig",
+        configClassNameToDataSource
+    );
+
+    // Assert
+    Assertions.assertEquals("MultiDataSourceRoutingConfig", routingTypeSpec.name);
+    final MethodSpec routingDataSourceMethod = routingTypeSpec.methodSpecs.get(0);
+    Assertions.assertEquals("routingDataSource", routingDataSourceMethod.name);
+    final String routingDataSourceCode = routingDataSourceMethod.code.toString();
+    Assertions.assertTrue(routingDataSourceCode.contains(
+        "dataSourceNameToBeanName.put(\"master\", MasterDataSourceConfig.DATA_SOURCE_BEAN_NAME)"
+    ));
+    Assertions.assertTrue(
+        routingDataSourceCode.contains("MasterDataSourceConfig.DATA_SOURCE_BEAN_NAME,")
+    );
+    Assertions.assertTrue(routingDataSourceCode.contains("Set.of(\"read-replica\")"));
+    final MethodSpec postProcessorMethod = routingTypeSpec.methodSpecs.get(1);
+    Assertions.assertEquals("routingRepositoryPostProcessor", postProcessorMethod.name);
+    Assertions.assertTrue(postProcessorMethod.modifiers.contains(Modifier.STATIC));
+  }
+
+  @Test
+  void generateRoutingConfigTypeElementWithSchemaEquivalentDataSource() {
+    // Arrange
+    final MultiDataSourceConfigGenerator configGenerator = new MultiDataSourceConfigGenerator(
+        MultiDataSourceGeneratorUtils.getInstance(),
+        MultiDataSourceCommonStringUtils.getInstance()
+    );
+    final DataSourceConfig masterConfig = Mockito.mock(DataSourceConfig.class);
+    Mockito.when(masterConfig.dataSourceName()).thenReturn("master");
+    Mockito.when(masterConfig.schemaEquivalent()).thenReturn(true);
+    final DataSourceConfig readReplicaConfig = Mockito.mock(DataSourceConfig.class);
+    Mockito.when(readReplicaConfig.dataSourceName()).thenReturn("read-replica");
+    Mockito.when(readReplicaConfig.schemaEquivalent()).thenReturn(true);
+    final DataSourceConfig replica2Config = Mockito.mock(DataSourceConfig.class);
+    Mockito.when(replica2Config.dataSourceName()).thenReturn("replica-2");
+    final Map<String, DataSourceConfig> configClassNameToDataSource = new LinkedHashMap<>();
+    configClassNameToDataSource.put("MasterDataSourceConfig", masterConfig);
+    configClassNameToDataSource.put("ReadReplicaDataSourceConfig", readReplicaConfig);
+    configClassNameToDataSource.put("Replica2DataSourceConfig", replica2Config);
+
+    // Act
+    final TypeSpec routingTypeSpec = configGenerator.generateRoutingConfigTypeElement(
+        "MultiDataSourceRoutingConfig",
+        configClassNameToDataSource
+    );
+
+    // Assert only the schema-equivalent secondary data source is aliased to the primary
+    Assertions.assertEquals(3, routingTypeSpec.methodSpecs.size());
+    final MethodSpec aliasRegistrarMethod = routingTypeSpec.methodSpecs.get(2);
+    Assertions.assertEquals("entityManagerFactoryAliasRegistrar", aliasRegistrarMethod.name);
+    Assertions.assertTrue(aliasRegistrarMethod.modifiers.contains(Modifier.STATIC));
+    final String aliasRegistrarCode = aliasRegistrarMethod.code.toString();
+    Assertions.assertTrue(aliasRegistrarCode.contains(
+        "aliasToBeanName.put(ReadReplicaDataSourceConfig.ENTITY_MANAGER_FACTORY_BEAN_NAME,"
+            + " MasterDataSourceConfig.ENTITY_MANAGER_FACTORY_BEAN_NAME)"
+    ));
+    Assertions.assertFalse(aliasRegistrarCode.contains("Replica2DataSourceConfig"));
+  }
+
+  @Test
+  void generateMultiDataSourceConfigTypeElementSchemaEquivalent() {
+    // Arrange
+    final MultiDataSourceConfigGenerator configGenerator = new MultiDataSourceConfigGenerator(
+        MultiDataSourceGeneratorUtils.getInstance(),
+        MultiDataSourceCommonStringUtils.getInstance()
+    );
+    final DataSourceConfig readReplicaConfig = Mockito
+        .mock(DataSourceConfig.class, Mockito.RETURNS_DEEP_STUBS);
+    Mockito.when(readReplicaConfig.dataSourceName()).thenReturn("read-replica");
+    Mockito.when(readReplicaConfig.overridingJpaPropertiesPath())
+        .thenReturn("spring.jpa.properties");
+    Mockito.when(readReplicaConfig.readOnly()).thenReturn(true);
+    Mockito.when(readReplicaConfig.schemaEquivalent()).thenReturn(true);
+
+    // Act
+    final TypeSpec configTypeSpec = configGenerator.generateMultiDataSourceConfigTypeElement(
+        readReplicaConfig,
+        false,
+        "ReadReplicaDataSourceConfig",
+        "spring.datasource.read-replica",
+        new String[]{"io.github.dhi13man.spring.datasource"},
+        new String[]{"io.github.dhi13man.spring.datasource.generators"},
+        -1,
+        "MultiDataSourceRoutingConfig",
+        null
+    );
+
+    // Assert no entity manager factory is built, and the transactions are routed
+    Assertions.assertEquals(
+        List.of(ClassName.get(IMultiDataSourceConfig.class)),
+        configTypeSpec.superinterfaces
+    );
+    Assertions.assertTrue(configTypeSpec.methodSpecs.stream()
+        .noneMatch(methodSpec -> methodSpec.name.equals("entityManagerFactory")));
+    final MethodSpec transactionManagerMethod = configTypeSpec.methodSpecs.stream()
+        .filter(methodSpec -> methodSpec.name.equals("transactionManager"))
+        .findFirst()
+        .orElseThrow();
+    final String transactionManagerCode = transactionManagerMethod.code.toString();
+    Assertions.assertTrue(
+        transactionManagerCode.contains("MultiDataSourceRoutingTransactionManager(")
+    );
+    Assertions.assertTrue(transactionManagerCode.contains("\"read-replica\", true)"));
+  }
+
+  @Test
+  void generateMultiDataSourceConfigTypeElementPrimaryOnRoutingDataSource() {
+    // Arrange
+    final MultiDataSourceConfigGenerator configGenerator = new MultiDataSourceConfigGenerator(
+        MultiDataSourceGeneratorUtils.getInstance(),
+        MultiDataSourceCommonStringUtils.getInstance()
+    );
+    final DataSourceConfig masterConfig = Mockito
+        .mock(DataSourceConfig.class, Mockito.RETURNS_DEEP_STUBS);
+    Mockito.when(masterConfig.dataSourceName()).thenReturn("master");
+    Mockito.when(masterConfig.overridingJpaPropertiesPath()).thenReturn("spring.jpa.properties");
+
+    // Act
+    final TypeSpec configTypeSpec = configGenerator.generateMultiDataSourceConfigTypeElement(
+        masterConfig,
+        true,
+        "MasterDataSourceConfig",
+        "spring.datasource.master",
+        new String[]{"io.github.dhi13man.spring.datasource"},
+        new String[]{"io.github.dhi13man.spring.datasource.generators"},
+        -1,
+        "MultiDataSourceRoutingConfig",
+        null
+    );
+
+    // Assert the entity manager factory is built, and the transactions are not routed, but never
+    // join the routed ones
+    Assertions.assertEquals(
+        List.of(ClassName.get(IMultiDataSourceEntityManagerFactoryConfig.class)),
+        configTypeSpec.superinterfaces
+    );
+    final MethodSpec transactionManagerMethod = configTypeSpec.methodSpecs.stream()
+        .filter(methodSpec -> methodSpec.name.equals("transactionManager"))
+        .findFirst()
+        .orElseThrow();
+    Assertions.assertTrue(transactionManagerMethod.code.toString().contains(
+        "new io.github.dhi13man.spring.datasource.routing.MultiDataSourceRoutingTransactionManager("
+            + "entityManagerFactoryBean.getObject(), false)"
+    ));
+  }
+
+  @Test
+  void generateQueryPlanWarmUpConfigTypeElement() {
+    // Arrange
+    final MultiDataSourceConfigGenerator configGenerator = new MultiDataSourceConfigGenerator(
+        MultiDataSourceGeneratorUtils.getInstance(),
+        MultiDataSourceCommonStringUtils.getInstance()
+    );
+    final DataSourceConfig readReplicaConfig = Mockito.mock(DataSourceConfig.class);
+    Mockito.when(readReplicaConfig.dataSourceName()).thenReturn("read-replica");
+
+    // Act
+    final TypeSpec queryPlanWarmUpTypeSpec = configGenerator
+        .generateQueryPlanWarmUpConfigTypeElement(
+            "MultiDataSourceQueryPlanWarmUpConfig",
+            Map.of("ReadReplicaDataSourceConfig", readReplicaConfig)
+        );
+
+    // Assert
+    Assertions.assertEquals("MultiDataSourceQueryPlanWarmUpConfig", queryPlanWarmUpTypeSpec.name);
+    final MethodSpec queryPlanWarmerMethod = queryPlanWarmUpTypeSpec.methodSpecs.get(0);
+    Assertions.assertEquals("queryPlanWarmer", queryPlanWarmerMethod.name);
+    Assertions.assertTrue(queryPlanWarmerMethod.code.toString().contains(
+        "entityManagerFactoryBeanNameToRepositoryPackageSuffix.put("
+            + "ReadReplicaDataSourceConfig.ENTITY_MANAGER_FACTORY_BEAN_NAME,"
+            + " \".generated.repositories.read_replica\")"
+    ));
+  }
+
+  @Test
+  void generateQueryPlanWarmUpConfigTypeElementGetQueryPlanWarmer() {
+    // Act
+    final MultiDataSourceQueryPlanWarmer queryPlanWarmer =
+        new MultiDataSourceQueryPlanWarmUpConfig().queryPlanWarmer(new DefaultListableBeanFactory());
+
+    // Assert
+    Assertions.assertNotNull(queryPlanWarmer);
+    Assertions.assertTrue(queryPlanWarmer.getReports().isEmpty());
+  }
+
   @Test
   void generateMultiDataSourceConfigTypeElementGetEntityManagerFactory() {
-    for (final IMultiDataSourceConfig generatedConfig : generatedConfigs) {
+    for (final IMultiDataSourceEntityManagerFactoryConfig generatedConfig : generatedConfigs) {
       // Arrange
       final DefaultPersistenceUnitManager mockPersistentUnitManager =
           new DefaultPersistenceUnitManager();
@@ -98,9 +669,64 @@ class MultiDataSourceConfigGeneratorTest {
     }
   }
 
+  @Test
+  void generateMultiDataSourceConfigTypeElementGetEntityManagerFactoryWithPerformanceProfile() {
+    // Arrange
+    final IMultiDataSourceEntityManagerFactoryConfig generatedConfig = new Replica2DataSourceConfig();
+    final EntityManagerFactoryBuilder mockEntityManagerFactoryBuilder = new EntityManagerFactoryBuilder(
+        new HibernateJpaVendorAdapter(),
+        new HashMap<>(),
+        new DefaultPersistenceUnitManager()
+    );
+    final ConfigurableListableBeanFactory mockBeanFactory = Mockito
+        .mock(ConfigurableListableBeanFactory.class);
+    final Properties overrideJpaProperties = generatedConfig.overridingJpaProperties();
+    overrideJpaProperties.put("hibernate.default_batch_fetch_size", "8");
+
+    // Act
+    final LocalContainerEntityManagerFactoryBean entityManagerFactory = generatedConfig
+        .entityManagerFactory(
+            overrideJpaProperties,
+            Mockito.mock(DataSource.class),
+            mockEntityManagerFactoryBuilder,
+            mockBeanFactory
+        );
+
+    // Assert OLTP_READ preset, with the explicit fetch size and the overriding JPA properties
+    final Map<String, Object> jpaPropertyMap = entityManagerFactory.getJpaPropertyMap();
+    Assertions.assertEquals("250", jpaPropertyMap.get("hibernate.jdbc.fetch_size"));
+    Assertions.assertEquals("4096", jpaPropertyMap.get("hibernate.query.plan_cache_max_size"));
+    Assertions.assertEquals("8", jpaPropertyMap.get("hibernate.default_batch_fetch_size"));
+    Assertions.assertFalse(jpaPropertyMap.containsKey("hibernate.jdbc.batch_size"));
+    Assertions.assertEquals("30000", jpaPropertyMap.get("javax.persistence.query.timeout"));
+    Assertions.assertEquals("2000", jpaPropertyMap.get("javax.persistence.lock.timeout"));
+  }
+
+  @Test
+  void generateMultiDataSourceConfigTypeElementMinimizedEntitySets() {
+    // Assert the entities of the copies of replica-2, with the embeddable, entity subclass and the
+    // entity named in the JPQL of the first, none for the non-entity repositories of read-replica,
+    // and no minimization of the data source without repositories
+    Assertions.assertArrayEquals(
+        new String[]{
+            MockEntity.class.getName(),
+            MockEntity.MockAddress.class.getName(),
+            MockEntitySubclass.class.getName(),
+            MockEntityTag.class.getName(),
+            MockPropertyAccessEntity.class.getName()
+        },
+        Replica2DataSourceConfig.DATA_SOURCE_MANAGED_TYPES
+    );
+    Assertions.assertEquals(0, ReadReplicaDataSourceConfig.DATA_SOURCE_MANAGED_TYPES.length);
+    Assertions.assertThrows(
+        NoSuchFieldException.class,
+        () -> ReplicaNoTargetDataSourceDataSourceConfig.class.getField("DATA_SOURCE_MANAGED_TYPES")
+    );
+  }
+
   @Test
   void generateMultiDataSourceConfigTypeElementGetTransactionManager() {
-    for (final IMultiDataSourceConfig generatedConfig : generatedConfigs) {
+    for (final IMultiDataSourceEntityManagerFactoryConfig generatedConfig : generatedConfigs) {
       // Arrange
       final LocalContainerEntityManagerFactoryBean mockEntityManagerFactory = Mockito
           .mock(LocalContainerEntityManagerFactoryBean.class);
@@ -116,6 +742,68 @@ class MultiDataSourceConfigGeneratorTest {
     }
   }
 
+  @Test
+  void generateMultiDataSourceConfigTypeElementGetReadOnlyTransactionManager() throws SQLException {
+    // Arrange
+    final Set<IMultiDataSourceEntityManagerFactoryConfig> readOnlyConfigs = Set.of(new ReadReplicaDataSourceConfig());
+    for (final IMultiDataSourceEntityManagerFactoryConfig generatedConfig : generatedConfigs) {
+      final LocalContainerEntityManagerFactoryBean mockEntityManagerFactory = Mockito
+          .mock(LocalContainerEntityManagerFactoryBean.class, Mockito.RETURNS_DEEP_STUBS);
+      final JpaDialect mockJpaDialect = Mockito.mock(JpaDialect.class);
+      final JpaTransactionManager transactionManager = (JpaTransactionManager) generatedConfig
+          .transactionManager(mockEntityManagerFactory);
+      transactionManager.setJpaDialect(mockJpaDialect);
+      final ArgumentCaptor<TransactionDefinition> definitionCaptor = ArgumentCaptor
+          .forClass(TransactionDefinition.class);
+
+      // Act
+      final TransactionStatus status = transactionManager
+          .getTransaction(new DefaultTransactionDefinition());
+      transactionManager.rollback(status);
+
+      // Assert
+      Mockito.verify(mockJpaDialect)
+          .beginTransaction(ArgumentMatchers.any(), definitionCaptor.capture());
+      final boolean isReadOnlyConfig = readOnlyConfigs.stream()
+          .anyMatch(config -> config.getClass().equals(generatedConfig.getClass()));
+      Assertions.assertEquals(isReadOnlyConfig, definitionCaptor.getValue().isReadOnly());
+    }
+  }
+
+  @Test
+  void generateJdbcDataSourceConfigTypeElement() {
+    // Arrange
+    final IMultiDataSourceJdbcConfig generatedConfig = new ReplicaJdbcDataSourceConfig();
+    final DataSourceProperties dataSourceProperties = generatedConfig.dataSourceProperties();
+    dataSourceProperties.setEmbeddedDatabaseConnection(EmbeddedDatabaseConnection.H2);
+    dataSourceProperties.setType(SingleConnectionDataSource.class);
+    final DataSource dataSource = generatedConfig.dataSource(dataSourceProperties);
+
+    // Act
+    final NamedParameterJdbcTemplate jdbcTemplate = generatedConfig.jdbcTemplate(dataSource);
+    final PlatformTransactionManager transactionManager = generatedConfig
+        .transactionManager(dataSource);
+
+    // Assert the data source has no entity manager factory, and scans only its JDBC repositories
+    Assertions.assertEquals(
+        "replica-jdbc" + MultiDataSourceJdbcRepository.JDBC_TEMPLATE_BEAN_NAME_SUFFIX,
+        ReplicaJdbcDataSourceConfig.JDBC_TEMPLATE_BEAN_NAME
+    );
+    Assertions.assertEquals(8, ReplicaJdbcDataSourceConfig.MAXIMUM_POOL_SIZE);
+    Assertions.assertEquals(
+        1,
+        jdbcTemplate.queryForObject("select 1", Map.of(), Integer.class)
+    );
+    Assertions.assertInstanceOf(DataSourceTransactionManager.class, transactionManager);
+    final ComponentScan componentScan = ReplicaJdbcDataSourceConfig.class
+        .getAnnotation(ComponentScan.class);
+    Assertions.assertFalse(componentScan.useDefaultFilters());
+    Assertions.assertEquals(
+        ".*.generated.repositories.replica_jdbc\\.[^.]+",
+        componentScan.includeFilters()[0].pattern()[0]
+    );
+  }
+
   public interface MockConfigTestRepository extends JpaRepository<Object, Long> {
 
     @Override
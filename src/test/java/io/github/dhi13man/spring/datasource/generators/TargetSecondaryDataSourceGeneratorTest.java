@@ -1,16 +1,58 @@
 package io.github.dhi13man.spring.datasource.generators;
 
+import io.github.dhi13man.spring.datasource.annotations.BatchedFindById;
+import io.github.dhi13man.spring.datasource.annotations.CachedRead;
+import io.github.dhi13man.spring.datasource.annotations.CoalescedRead;
+import io.github.dhi13man.spring.datasource.annotations.HedgedRead;
+import io.github.dhi13man.spring.datasource.annotations.KeysetPaged;
+import io.github.dhi13man.spring.datasource.annotations.ScatterGather;
+import io.github.dhi13man.spring.datasource.annotations.ScatterGather.Merge;
+import io.github.dhi13man.spring.datasource.annotations.ShardKey;
 import io.github.dhi13man.spring.datasource.annotations.TargetSecondaryDataSource;
+import io.github.dhi13man.spring.datasource.generators.generated.repositories.MockRepositoryTestRepositoryHedgedReads;
+import io.github.dhi13man.spring.datasource.generators.generated.repositories.MockRepositoryTestRepositoryScatterGather;
+import io.github.dhi13man.spring.datasource.generators.generated.repositories.MockRepositoryTestRepositoryShards;
 import io.github.dhi13man.spring.datasource.generators.generated.repositories.read_replica.ReadReplicaMockConfigTestRepository;
+import io.github.dhi13man.spring.datasource.generators.generated.repositories.read_replica.ReadReplicaMockRepositoryTestRepository;
+import io.github.dhi13man.spring.datasource.generators.generated.repositories.replica_2.Replica2MockEntityTestRepository;
 import io.github.dhi13man.spring.datasource.generators.generated.repositories.replica_2.Replica2MockRepositoryTestRepository;
+import io.github.dhi13man.spring.datasource.generators.generated.repositories.replica_2.Replica2MockPropertyAccessEntityTestRepository;
+import io.github.dhi13man.spring.datasource.generators.generated.repositories.replica_jdbc.ReplicaJdbcMockJdbcEntityTestRepository;
 import java.lang.reflect.Method;
+import io.github.dhi13man.spring.datasource.repository.MultiDataSourceJdbcRepository;
+import io.github.dhi13man.spring.datasource.routing.MultiDataSourceShardRouter;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.platform.commons.util.ReflectionUtils;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
 
 class TargetSecondaryDataSourceGeneratorTest {
 
@@ -73,16 +115,603 @@ class TargetSecondaryDataSourceGeneratorTest {
     Assertions.assertTrue(findAllReplica2MockConfigTestRepository.isPresent());
   }
 
+  @Test
+  void generateRepositoryTypeElementWithAnnotatedMethodsReadOnlyQueryHint() {
+    // Arrange
+    final Optional<Method> findAllReadReplicaMockConfigTestRepository = ReflectionUtils.findMethod(
+        ReadReplicaMockConfigTestRepository.class,
+        "findAll"
+    );
+    final Optional<Method> findByCustomObjectIdReplica2MockConfigTestRepository = ReflectionUtils
+        .findMethod(Replica2MockRepositoryTestRepository.class, "findByCustomObjectId", long.class);
+
+    // Assert
+    // read-replica is configured as read-only, so its methods carry the Hibernate read-only hint
+    Assertions.assertTrue(findAllReadReplicaMockConfigTestRepository.isPresent());
+    final QueryHints readReplicaQueryHints = findAllReadReplicaMockConfigTestRepository.get()
+        .getAnnotation(QueryHints.class);
+    Assertions.assertNotNull(readReplicaQueryHints);
+    Assertions.assertEquals(1, readReplicaQueryHints.value().length);
+    Assertions.assertEquals("org.hibernate.readOnly", readReplicaQueryHints.value()[0].name());
+    Assertions.assertEquals("true", readReplicaQueryHints.value()[0].value());
+
+    // replica-2 is not read-only
+    Assertions.assertTrue(findByCustomObjectIdReplica2MockConfigTestRepository.isPresent());
+    Assertions.assertNull(
+        findByCustomObjectIdReplica2MockConfigTestRepository.get().getAnnotation(QueryHints.class)
+    );
+  }
+
+  @Test
+  void generateRepositoryTypeElementWithAnnotatedMethodsStreamingQueryHints() {
+    // Arrange
+    final Optional<Method> replica2StreamMethod = ReflectionUtils.findMethod(
+        Replica2MockRepositoryTestRepository.class,
+        "streamAllByStreamedObjectIdGreaterThan",
+        long.class
+    );
+    final Optional<Method> replica2SliceMethod = ReflectionUtils.findMethod(
+        Replica2MockRepositoryTestRepository.class,
+        "findAllByStreamedObjectIdGreaterThan",
+        long.class,
+        Pageable.class
+    );
+    final Optional<Method> readReplicaStreamMethod = ReflectionUtils.findMethod(
+        ReadReplicaMockRepositoryTestRepository.class,
+        "streamAllByStreamedObjectIdGreaterThan",
+        long.class
+    );
+
+    // Assert
+    // replica-2 streams with its stream fetch size, and its entities stay writable as it is not
+    // read-only
+    Assertions.assertTrue(replica2StreamMethod.isPresent());
+    Assertions.assertTrue(replica2SliceMethod.isPresent());
+    for (final Method method : List.of(replica2StreamMethod.get(), replica2SliceMethod.get())) {
+      final QueryHints queryHints = method.getAnnotation(QueryHints.class);
+      Assertions.assertNotNull(queryHints);
+      Assertions.assertEquals(1, queryHints.value().length);
+      Assertions.assertEquals("org.hibernate.fetchSize", queryHints.value()[0].name());
+      Assertions.assertEquals("500", queryHints.value()[0].value());
+    }
+
+    // read-replica has no stream fetch size, and gets the read-only hint as it is read-only
+    Assertions.assertTrue(readReplicaStreamMethod.isPresent());
+    final QueryHints readReplicaQueryHints = readReplicaStreamMethod.get()
+        .getAnnotation(QueryHints.class);
+    Assertions.assertNotNull(readReplicaQueryHints);
+    Assertions.assertEquals(1, readReplicaQueryHints.value().length);
+    Assertions.assertEquals("org.hibernate.readOnly", readReplicaQueryHints.value()[0].name());
+  }
+
+  @Test
+  void generateRepositoryTypeElementWithAnnotatedMethodsKeysetPaged() {
+    // Arrange
+    final Optional<Method> replica2PagedMethod = ReflectionUtils.findMethod(
+        Replica2MockPropertyAccessEntityTestRepository.class,
+        "findAllByCode",
+        String.class,
+        Pageable.class
+    );
+    final Optional<Method> replica2KeysetPagedMethod = ReflectionUtils.findMethod(
+        Replica2MockPropertyAccessEntityTestRepository.class,
+        "findAllByCodeAndNumberGreaterThanOrderByNumberAsc",
+        String.class,
+        Long.class,
+        Pageable.class
+    );
+
+    // Assert the copy keeps the offset paged method, and gets its keyset variant keyed by the id
+    // annotated on the getter of the entity
+    Assertions.assertTrue(replica2PagedMethod.isPresent());
+    Assertions.assertNull(replica2PagedMethod.get().getAnnotation(KeysetPaged.class));
+    Assertions.assertTrue(replica2KeysetPagedMethod.isPresent());
+    Assertions.assertEquals(Slice.class, replica2KeysetPagedMethod.get().getReturnType());
+    Assertions.assertNull(replica2KeysetPagedMethod.get().getAnnotation(KeysetPaged.class));
+  }
+
+  @Test
+  void generateRepositoryTypeElementWithAnnotatedMethodsDerivedQueries() {
+    // Arrange
+    final Class<Replica2MockEntityTestRepository> replica2GeneratedClass =
+        Replica2MockEntityTestRepository.class;
+    final Optional<Method> findMethod = ReflectionUtils.findMethod(
+        replica2GeneratedClass,
+        "findByCodeAndSizeGreaterThanOrderBySizeDesc",
+        String.class,
+        int.class
+    );
+    final Optional<Method> countMethod = ReflectionUtils
+        .findMethod(replica2GeneratedClass, "countByActiveTrueOrAddressZipCode", String.class);
+    final Optional<Method> findBySizeMethod = ReflectionUtils
+        .findMethod(replica2GeneratedClass, "findBySize", int.class);
+    final Optional<Method> existsMethod = ReflectionUtils.findMethod(
+        replica2GeneratedClass,
+        "existsByCodeStartingWithAndSizeBetween",
+        String.class,
+        int.class,
+        int.class
+    );
+    final Optional<Method> findFirstMethod = ReflectionUtils
+        .findMethod(replica2GeneratedClass, "findFirstByCodeOrderByIdDesc", String.class);
+    final Optional<Method> keysetPagedMethod = ReflectionUtils.findMethod(
+        replica2GeneratedClass,
+        "findAllByActiveFalseAndIdGreaterThanOrderByIdAsc",
+        Long.class,
+        Pageable.class
+    );
+
+    // Assert the copies get the JPQL of their derived queries, matching null properties for the
+    // null arguments of their equality criteria as Spring Data JPA does, but primitive ones
+    Assertions.assertTrue(findMethod.isPresent());
+    Assertions.assertEquals(
+        "select e from MockEntity e where (?1 is null and e.code is null or e.code = ?1)"
+            + " and e.size > ?2 order by e.size desc",
+        findMethod.get().getAnnotation(Query.class).value()
+    );
+    Assertions.assertTrue(countMethod.isPresent());
+    Assertions.assertEquals(
+        "select count(e) from MockEntity e where e.active = true"
+            + " or (?1 is null and e.address.zipCode is null or e.address.zipCode = ?1)",
+        countMethod.get().getAnnotation(Query.class).value()
+    );
+    Assertions.assertTrue(findBySizeMethod.isPresent());
+    Assertions.assertEquals(
+        "select e from MockEntity e where e.size = ?1",
+        findBySizeMethod.get().getAnnotation(Query.class).value()
+    );
+    Assertions.assertTrue(existsMethod.isPresent());
+    Assertions.assertEquals(
+        "select case when count(e) > 0 then true else false end from MockEntity e"
+            + " where e.code like ?#{escape([0])}% escape ?#{escapeCharacter()}"
+            + " and e.size between ?#{[1]} and ?#{[2]}",
+        existsMethod.get().getAnnotation(Query.class).value()
+    );
+    Assertions.assertTrue(keysetPagedMethod.isPresent());
+    Assertions.assertEquals(
+        "select e from MockEntity e where e.active = false and e.id > ?1 order by e.id asc",
+        keysetPagedMethod.get().getAnnotation(Query.class).value()
+    );
+
+    // Assert queries limiting their results are still derived at startup
+    Assertions.assertTrue(findFirstMethod.isPresent());
+    Assertions.assertNull(findFirstMethod.get().getAnnotation(Query.class));
+  }
+
+  @Test
+  void generateJdbcRepositoryTypeElement() {
+    // Arrange
+    final DriverManagerDataSource dataSource = new DriverManagerDataSource(
+        "jdbc:h2:mem:jdbc_repository;DB_CLOSE_DELAY=-1"
+    );
+    final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute("create table mock_jdbc_entities (id bigint primary key,"
+        + " code varchar(16), quantity int, active boolean, status varchar(16),"
+        + " unit_price decimal(10, 2))");
+    jdbcTemplate.execute("insert into mock_jdbc_entities values"
+        + " (1, 'a', 5, true, 'OPEN', 1.50), (2, 'a', 9, false, 'CLOSED', null),"
+        + " (3, 'b', 7, true, 'OPEN', 2.00)");
+    final ReplicaJdbcMockJdbcEntityTestRepository repository =
+        new ReplicaJdbcMockJdbcEntityTestRepository(new NamedParameterJdbcTemplate(jdbcTemplate));
+
+    // Act
+    final List<MockJdbcEntity> entities = repository
+        .findByCodeAndQuantityGreaterThanOrderByQuantityDesc("a", 4);
+    final Optional<MockJdbcEntity> firstEntity = repository.findFirstByCodeOrderByIdDesc("a");
+    final Set<MockJdbcEntity> closedEntities = repository
+        .findAllByStatusIn(List.of(MockJdbcEntity.Status.CLOSED));
+    final MockJdbcEntity nativeEntity = repository.findNativeById(3);
+    final List<MockJdbcEntity> notClosedEntities = repository
+        .findByCodeAndStatusNotInOrderById("a", List.of(MockJdbcEntity.Status.CLOSED));
+    final List<MockJdbcEntity> notInNoStatusEntities = repository
+        .findByCodeAndStatusNotInOrderById("a", List.of());
+    final List<MockJdbcEntity> inNoStatusOrCodeEntities = repository
+        .findByStatusInOrCodeOrderById(List.of(), "b");
+
+    // Assert the copy is a JDBC repository running the SQL of its methods
+    Assertions.assertEquals(
+        MultiDataSourceJdbcRepository.class,
+        ReplicaJdbcMockJdbcEntityTestRepository.class.getSuperclass()
+    );
+    Assertions.assertEquals(3, repository.findAll().size());
+    Assertions.assertEquals(3, repository.count());
+    Assertions.assertEquals(
+        List.of(2L, 1L),
+        entities.stream().map(MockJdbcEntity::getId).collect(Collectors.toList())
+    );
+    Assertions.assertEquals(MockJdbcEntity.Status.CLOSED, entities.get(0).getStatus());
+    Assertions.assertNull(entities.get(0).getPrice());
+    Assertions.assertEquals(new BigDecimal("1.50"), entities.get(1).getPrice());
+    Assertions.assertTrue(entities.get(1).isActive());
+    Assertions.assertEquals(2, repository.countByActiveTrue());
+    Assertions.assertTrue(repository.existsByCodeIgnoreCase("B"));
+    Assertions.assertFalse(repository.existsByCodeIgnoreCase("c"));
+    Assertions.assertEquals(2L, firstEntity.map(MockJdbcEntity::getId).orElseThrow());
+    Assertions.assertEquals(1, closedEntities.size());
+    Assertions.assertTrue(repository.findAllByStatusIn(List.of()).isEmpty());
+    Assertions.assertEquals(
+        List.of(1L),
+        notClosedEntities.stream().map(MockJdbcEntity::getId).collect(Collectors.toList())
+    );
+    Assertions.assertEquals(
+        List.of(1L, 2L),
+        notInNoStatusEntities.stream().map(MockJdbcEntity::getId).collect(Collectors.toList())
+    );
+    Assertions.assertEquals(
+        List.of(3L),
+        inNoStatusOrCodeEntities.stream().map(MockJdbcEntity::getId).collect(Collectors.toList())
+    );
+    Assertions.assertEquals(List.of("a", "b"), repository.findCodesByMinimumQuantity(7));
+    Assertions.assertEquals(7, nativeEntity.getQuantity());
+    Assertions.assertNull(repository.findNativeById(4));
+  }
+
+  @Test
+  void generateJdbcRepositoryTypeElementLimitsRowsOnStatement() throws SQLException {
+    // Arrange
+    final ResultSet resultSet = Mockito.mock(ResultSet.class);
+    final PreparedStatement statement = Mockito.mock(PreparedStatement.class);
+    Mockito.when(statement.executeQuery()).thenReturn(resultSet);
+    final Connection connection = Mockito.mock(Connection.class);
+    Mockito.when(connection.prepareStatement(ArgumentMatchers.anyString())).thenReturn(statement);
+    final DataSource dataSource = Mockito.mock(DataSource.class);
+    Mockito.when(dataSource.getConnection()).thenReturn(connection);
+    final ReplicaJdbcMockJdbcEntityTestRepository repository =
+        new ReplicaJdbcMockJdbcEntityTestRepository(new NamedParameterJdbcTemplate(dataSource));
+
+    // Act
+    final boolean exists = repository.existsByCodeIgnoreCase("a");
+    final Optional<MockJdbcEntity> firstEntity = repository.findFirstByCodeOrderByIdDesc("a");
+    final List<MockJdbcEntity> entities = repository.findAll();
+
+    // Assert the database stops after the rows read, and unlimited queries are left alone
+    Assertions.assertFalse(exists);
+    Assertions.assertTrue(firstEntity.isEmpty());
+    Assertions.assertTrue(entities.isEmpty());
+    Mockito.verify(statement, Mockito.times(2)).setMaxRows(1);
+    Mockito.verify(statement, Mockito.times(2)).setFetchSize(1);
+    Mockito.verify(statement, Mockito.times(2)).setMaxRows(ArgumentMatchers.anyInt());
+    Mockito.verify(statement, Mockito.times(2)).setString(1, "a");
+  }
+
+  @Test
+  void generateRepositoryTypeElementWithAnnotatedMethodsCoalescedRead() {
+    // Arrange
+    final Optional<Method> replica2CoalescedMethod = ReflectionUtils
+        .findMethod(Replica2MockRepositoryTestRepository.class, "findByCustomObjectId", long.class);
+
+    // Assert the copy keeps @CoalescedRead, so that its calls are coalesced on its data source
+    Assertions.assertTrue(replica2CoalescedMethod.isPresent());
+    Assertions.assertNotNull(replica2CoalescedMethod.get().getAnnotation(CoalescedRead.class));
+  }
+
+  @Test
+  void generateRepositoryTypeElementWithAnnotatedMethodsCachedRead() {
+    // Arrange
+    final Optional<Method> readReplicaCachedMethod = ReflectionUtils
+        .findMethod(ReadReplicaMockRepositoryTestRepository.class, "findAll");
+
+    // Assert the copy keeps @CachedRead, so that it caches the results of its data source
+    Assertions.assertTrue(readReplicaCachedMethod.isPresent());
+    Assertions.assertNotNull(readReplicaCachedMethod.get().getAnnotation(CachedRead.class));
+  }
+
+  @Test
+  void generateRepositoryTypeElementWithAnnotatedMethodsAsyncExecutor() {
+    // Arrange
+    final Optional<Method> replica2AsyncMethod = ReflectionUtils.findMethod(
+        Replica2MockRepositoryTestRepository.class,
+        "findAllByCustomObjectIdIn",
+        List.class
+    );
+    final Optional<Method> readReplicaAsyncMethod = ReflectionUtils.findMethod(
+        ReadReplicaMockRepositoryTestRepository.class,
+        "findAllByCustomObjectIdIn",
+        List.class
+    );
+
+    // Assert
+    // replica-2 enables its async executor, so the method runs on it
+    Assertions.assertTrue(replica2AsyncMethod.isPresent());
+    final Async replica2Async = replica2AsyncMethod.get().getAnnotation(Async.class);
+    Assertions.assertNotNull(replica2Async);
+    Assertions.assertEquals("replica-2-async-executor", replica2Async.value());
+
+    // read-replica has no async executor, so the method runs synchronously
+    Assertions.assertTrue(readReplicaAsyncMethod.isPresent());
+    Assertions.assertNull(readReplicaAsyncMethod.get().getAnnotation(Async.class));
+  }
+
+  @Test
+  void generateRepositoryTypeElementWithAnnotatedMethodsBatchedFindById()
+      throws NoSuchMethodException {
+    // Arrange
+    final Method replica2FindAllById = Replica2MockRepositoryTestRepository.class
+        .getMethod("findAllById", Iterable.class);
+    final Method readReplicaFindAllById = ReadReplicaMockRepositoryTestRepository.class
+        .getMethod("findAllById", Iterable.class);
+
+    // Assert
+    // replica-2 batches its findById lookups through findAllById, so it stays enabled
+    Assertions.assertFalse(replica2FindAllById.isDefault());
+    Assertions.assertNotNull(
+        ReflectionUtils.findMethod(Replica2MockRepositoryTestRepository.class, "findById",
+            Long.class).orElseThrow().getAnnotation(BatchedFindById.class)
+    );
+
+    // read-replica does not, so findAllById is disabled like the other methods
+    Assertions.assertTrue(readReplicaFindAllById.isDefault());
+  }
+
+  @Test
+  void generateHedgedReadsTypeElement() {
+    // Arrange
+    final Replica2MockRepositoryTestRepository replica2Repository = Mockito
+        .mock(Replica2MockRepositoryTestRepository.class);
+    final ReadReplicaMockRepositoryTestRepository readReplicaRepository = Mockito
+        .mock(ReadReplicaMockRepositoryTestRepository.class);
+    final List<Long> customObjectIds = List.of(1L, 2L);
+    Mockito.when(replica2Repository.findAllByCustomObjectIdNotIn(customObjectIds))
+        .thenReturn(List.of("replica-2"));
+    Mockito.when(readReplicaRepository.findAllByCustomObjectIdNotIn(customObjectIds))
+        .thenReturn(List.of("read-replica"));
+    final MockRepositoryTestRepositoryHedgedReads hedgedReads =
+        new MockRepositoryTestRepositoryHedgedReads(replica2Repository, readReplicaRepository);
+
+    // Act
+    final List<String> firstResult = hedgedReads.findAllByCustomObjectIdNotIn(customObjectIds);
+    final List<String> secondResult = hedgedReads.findAllByCustomObjectIdNotIn(customObjectIds);
+
+    // Assert
+    // The component is generated next to the copies, and the copies do not keep @HedgedRead
+    final Component component = MockRepositoryTestRepositoryHedgedReads.class
+        .getAnnotation(Component.class);
+    Assertions.assertNotNull(component);
+    Assertions.assertEquals(
+        MockRepositoryTestRepositoryHedgedReads.HEDGED_READS_BEAN_NAME,
+        component.value()
+    );
+    final Optional<Method> replica2HedgedMethod = ReflectionUtils.findMethod(
+        Replica2MockRepositoryTestRepository.class,
+        "findAllByCustomObjectIdNotIn",
+        List.class
+    );
+    Assertions.assertTrue(replica2HedgedMethod.isPresent());
+    Assertions.assertNull(replica2HedgedMethod.get().getAnnotation(HedgedRead.class));
+
+    // The calls are spread over the copies in a round-robin, as there is no latency to hedge yet
+    Assertions.assertEquals(
+        Set.of(List.of("replica-2"), List.of("read-replica")),
+        Set.of(firstResult, secondResult)
+    );
+  }
+
+  @Test
+  void generateShardsTypeElement() {
+    // Arrange
+    final Replica2MockRepositoryTestRepository replica2Repository = Mockito
+        .mock(Replica2MockRepositoryTestRepository.class);
+    final ReadReplicaMockRepositoryTestRepository readReplicaRepository = Mockito
+        .mock(ReadReplicaMockRepositoryTestRepository.class);
+    Mockito.when(replica2Repository.findAllByShardedObjectId(Mockito.anyLong()))
+        .thenReturn(List.of("replica-2"));
+    Mockito.when(readReplicaRepository.findAllByShardedObjectId(Mockito.anyLong()))
+        .thenReturn(List.of("read-replica"));
+    final MockRepositoryTestRepositoryShards shards =
+        new MockRepositoryTestRepositoryShards(replica2Repository, readReplicaRepository);
+    final MultiDataSourceShardRouter shardRouter = new MultiDataSourceShardRouter(
+        "objects",
+        List.of("replica-2", "read-replica")
+    );
+
+    // Act and Assert
+    // The component is generated next to the copies
+    final Component component = MockRepositoryTestRepositoryShards.class
+        .getAnnotation(Component.class);
+    Assertions.assertNotNull(component);
+    Assertions.assertEquals(MockRepositoryTestRepositoryShards.SHARDS_BEAN_NAME, component.value());
+
+    // Every call runs on the copy of the shard of its key, which both shards get
+    for (long shardedObjectId = 0; shardedObjectId < 20; shardedObjectId++) {
+      Assertions.assertEquals(
+          List.of(shardRouter.getShardName(shardedObjectId)),
+          shards.findAllByShardedObjectId(shardedObjectId)
+      );
+    }
+    shards.deleteAllByShardedObjectId(7L);
+    final boolean isReplica2Shard = "replica-2".equals(shardRouter.getShardName(7L));
+    Mockito.verify(replica2Repository, Mockito.times(isReplica2Shard ? 1 : 0))
+        .deleteAllByShardedObjectId(7L);
+    Mockito.verify(readReplicaRepository, Mockito.times(isReplica2Shard ? 0 : 1))
+        .deleteAllByShardedObjectId(7L);
+  }
+
+  @Test
+  void generateScatterGatherTypeElement() {
+    // Arrange
+    final Replica2MockRepositoryTestRepository replica2Repository = Mockito
+        .mock(Replica2MockRepositoryTestRepository.class);
+    final ReadReplicaMockRepositoryTestRepository readReplicaRepository = Mockito
+        .mock(ReadReplicaMockRepositoryTestRepository.class);
+    final Pageable shardPageable = PageRequest.of(0, 4);
+    Mockito.when(replica2Repository.findAllByScatteredObjectIdLessThan(10L, shardPageable))
+        .thenReturn(new PageImpl<>(List.of("a", "c", "e"), shardPageable, 3));
+    Mockito.when(readReplicaRepository.findAllByScatteredObjectIdLessThan(10L, shardPageable))
+        .thenReturn(new PageImpl<>(List.of("b", "d"), shardPageable, 2));
+    Mockito.when(replica2Repository.countByScatteredObjectIdLessThan(10L)).thenReturn(3L);
+    Mockito.when(readReplicaRepository.countByScatteredObjectIdLessThan(10L)).thenReturn(4L);
+    final MockRepositoryTestRepositoryScatterGather scatterGather =
+        new MockRepositoryTestRepositoryScatterGather(replica2Repository, readReplicaRepository);
+
+    // Act
+    final Page<String> page = scatterGather
+        .findAllByScatteredObjectIdLessThan(10L, PageRequest.of(1, 2));
+    final long count = scatterGather.countByScatteredObjectIdLessThan(10L);
+
+    // Assert
+    // The component is generated next to the copies, and the copies do not keep @ScatterGather
+    final Component component = MockRepositoryTestRepositoryScatterGather.class
+        .getAnnotation(Component.class);
+    Assertions.assertNotNull(component);
+    Assertions.assertEquals(
+        MockRepositoryTestRepositoryScatterGather.SCATTER_GATHER_BEAN_NAME,
+        component.value()
+    );
+    final Optional<Method> replica2ScatteredMethod = ReflectionUtils.findMethod(
+        Replica2MockRepositoryTestRepository.class,
+        "countByScatteredObjectIdLessThan",
+        long.class
+    );
+    Assertions.assertTrue(replica2ScatteredMethod.isPresent());
+    Assertions.assertNull(replica2ScatteredMethod.get().getAnnotation(ScatterGather.class));
+
+    // Every shard is asked for the rows up to the end of the page, which are merged in order
+    Assertions.assertEquals(List.of("c", "d"), page.getContent());
+    Assertions.assertEquals(5, page.getTotalElements());
+    Assertions.assertEquals(1, page.getNumber());
+    Assertions.assertEquals(7L, count);
+  }
+
 
   public interface MockRepositoryTestRepository extends JpaRepository<String, Long> {
 
+    @CoalescedRead
     @TargetSecondaryDataSource("replica-2")
     Object findByCustomObjectId(long customObjectId);
 
     @Override
+    @CachedRead
     @TargetSecondaryDataSource("read-replica")
     @NonNull
     List<String> findAll();
+
+    @TargetSecondaryDataSource("replica-2")
+    @TargetSecondaryDataSource("read-replica")
+    CompletableFuture<List<String>> findAllByCustomObjectIdIn(List<Long> customObjectIds);
+
+    @Override
+    @BatchedFindById
+    @TargetSecondaryDataSource("replica-2")
+    @NonNull
+    Optional<String> findById(@NonNull Long id);
+
+    @HedgedRead
+    @TargetSecondaryDataSource("replica-2")
+    @TargetSecondaryDataSource("read-replica")
+    List<String> findAllByCustomObjectIdNotIn(List<Long> customObjectIds);
+
+    List<String> findAllByShardedObjectId(@ShardKey("objects") long shardedObjectId);
+
+    void deleteAllByShardedObjectId(@ShardKey("objects") long shardedObjectId);
+
+    @ScatterGather(shardSet = "objects", merge = Merge.SORTED)
+    Page<String> findAllByScatteredObjectIdLessThan(long scatteredObjectId, Pageable pageable);
+
+    @ScatterGather(merge = Merge.SUM)
+    @TargetSecondaryDataSource("replica-2")
+    @TargetSecondaryDataSource("read-replica")
+    long countByScatteredObjectIdLessThan(long scatteredObjectId);
+
+    @TargetSecondaryDataSource("replica-2")
+    @TargetSecondaryDataSource("read-replica")
+    Stream<String> streamAllByStreamedObjectIdGreaterThan(long streamedObjectId);
+
+    @TargetSecondaryDataSource("replica-2")
+    Slice<String> findAllByStreamedObjectIdGreaterThan(long streamedObjectId, Pageable pageable);
   }
 
-}
\ No newline at end of file
+  /**
+   * Repository of {@link MockEntity}, whose copies get the JPQL of their derived queries.
+   */
+  public interface MockEntityTestRepository extends JpaRepository<MockEntity, Long> {
+
+    @TargetSecondaryDataSource("replica-2")
+    List<MockEntity> findByCodeAndSizeGreaterThanOrderBySizeDesc(String code, int size);
+
+    @TargetSecondaryDataSource("replica-2")
+    long countByActiveTrueOrAddressZipCode(String zipCode);
+
+    @TargetSecondaryDataSource("replica-2")
+    List<MockEntity> findBySize(int size);
+
+    @TargetSecondaryDataSource("replica-2")
+    boolean existsByCodeStartingWithAndSizeBetween(String code, int minSize, int maxSize);
+
+    @TargetSecondaryDataSource("replica-2")
+    Optional<MockEntity> findFirstByCodeOrderByIdDesc(String code);
+
+    @KeysetPaged
+    @TargetSecondaryDataSource("replica-2")
+    Page<MockEntity> findAllByActiveFalse(Pageable pageable);
+
+    @Query("select e from MockEntity e where e.code in (select t.code from MockEntityTag t)")
+    @TargetSecondaryDataSource("replica-2")
+    List<MockEntity> findAllTagged();
+  }
+
+  /**
+   * Repository of {@link MockPropertyAccessEntity}, whose copies are keyset paged by its id getter.
+   */
+  public interface MockPropertyAccessEntityTestRepository
+      extends JpaRepository<MockPropertyAccessEntity, Long> {
+
+    @KeysetPaged
+    @TargetSecondaryDataSource("replica-2")
+    Page<MockPropertyAccessEntity> findAllByCode(String code, Pageable pageable);
+  }
+
+  /**
+   * Repository of {@link MockJdbcEntity}, whose copies run their SQL on plain JDBC.
+   */
+  public interface MockJdbcEntityTestRepository extends JpaRepository<MockJdbcEntity, Long> {
+
+    @Override
+    @TargetSecondaryDataSource("replica-jdbc")
+    List<MockJdbcEntity> findAll();
+
+    @Override
+    @TargetSecondaryDataSource("replica-jdbc")
+    long count();
+
+    @TargetSecondaryDataSource("replica-jdbc")
+    List<MockJdbcEntity> findByCodeAndQuantityGreaterThanOrderByQuantityDesc(
+        String code,
+        int quantity
+    );
+
+    @TargetSecondaryDataSource("replica-jdbc")
+    int countByActiveTrue();
+
+    @TargetSecondaryDataSource("replica-jdbc")
+    boolean existsByCodeIgnoreCase(String code);
+
+    @TargetSecondaryDataSource("replica-jdbc")
+    Optional<MockJdbcEntity> findFirstByCodeOrderByIdDesc(String code);
+
+    @TargetSecondaryDataSource("replica-jdbc")
+    Set<MockJdbcEntity> findAllByStatusIn(List<MockJdbcEntity.Status> statuses);
+
+    @TargetSecondaryDataSource("replica-jdbc")
+    List<MockJdbcEntity> findByCodeAndStatusNotInOrderById(
+        String code,
+        List<MockJdbcEntity.Status> statuses
+    );
+
+    @TargetSecondaryDataSource("replica-jdbc")
+    List<MockJdbcEntity> findByStatusInOrCodeOrderById(
+        List<MockJdbcEntity.Status> statuses,
+        String code
+    );
+
+    @Query(
+        value = "select code from mock_jdbc_entities where quantity >= :quantity order by id",
+        nativeQuery = true
+    )
+    @TargetSecondaryDataSource("replica-jdbc")
+    List<String> findCodesByMinimumQuantity(@Param("quantity") int quantity);
+
+    @Query(value = "select * from mock_jdbc_entities where id = ?1", nativeQuery = true)
+    @TargetSecondaryDataSource("replica-jdbc")
+    MockJdbcEntity findNativeById(long id);
+  }
+}
@@ -0,0 +1,139 @@
+package io.github.dhi13man.spring.datasource.pool;
+
+import io.github.dhi13man.spring.datasource.routing.MultiDataSourceRoutingContext;
+import io.github.dhi13man.spring.datasource.utils.MultiDataSourceConnectionPoolUtils;
+import io.github.dhi13man.spring.datasource.utils.MultiDataSourceConnectionPoolUtilsTest.MockPooledDataSource;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.core.task.TaskRejectedException;
+
+class MultiDataSourceBulkheadExecutorTest {
+
+  private static final String DATA_SOURCE_BEAN_NAME = "replica-data-source";
+
+  @Test
+  void constructorConcurrencyFromPoolSize() {
+    // Arrange
+    final MockPooledDataSource dataSource = new MockPooledDataSource();
+    dataSource.setMaximumPoolSize(4);
+
+    // Act
+    final MultiDataSourceBulkheadExecutor executor = new MultiDataSourceBulkheadExecutor(
+        DATA_SOURCE_BEAN_NAME,
+        dataSource,
+        0,
+        false
+    );
+
+    // Assert
+    Assertions.assertEquals(4, executor.getCorePoolSize());
+    Assertions.assertEquals(4, executor.getMaxPoolSize());
+  }
+
+  @Test
+  void constructorConcurrencyFromSharedPoolSize() {
+    // Arrange
+    final MockPooledDataSource sharedConnectionPool = new MockPooledDataSource();
+    sharedConnectionPool.setMaximumPoolSize(6);
+    final DataSource dataSource =
+        new SharedConnectionPoolDataSource(sharedConnectionPool, "master-data-source");
+
+    // Act
+    final MultiDataSourceBulkheadExecutor executor = new MultiDataSourceBulkheadExecutor(
+        DATA_SOURCE_BEAN_NAME,
+        dataSource,
+        0,
+        false
+    );
+
+    // Assert
+    Assertions.assertEquals(6, executor.getMaxPoolSize());
+  }
+
+  @Test
+  void constructorConcurrencyDefault() {
+    // Act
+    final MultiDataSourceBulkheadExecutor executor = new MultiDataSourceBulkheadExecutor(
+        DATA_SOURCE_BEAN_NAME,
+        Mockito.mock(DataSource.class),
+        0,
+        false
+    );
+
+    // Assert
+    Assertions.assertEquals(
+        MultiDataSourceConnectionPoolUtils.DEFAULT_MAXIMUM_POOL_SIZE,
+        executor.getMaxPoolSize()
+    );
+  }
+
+  @Test
+  void submitBeyondConcurrencyAndQueueRejected() throws Exception {
+    // Arrange
+    final MockPooledDataSource dataSource = new MockPooledDataSource();
+    dataSource.setMaximumPoolSize(1);
+    final MultiDataSourceBulkheadExecutor executor = new MultiDataSourceBulkheadExecutor(
+        DATA_SOURCE_BEAN_NAME,
+        dataSource,
+        1,
+        false
+    );
+    executor.initialize();
+    final CountDownLatch slowQueryLatch = new CountDownLatch(1);
+
+    try {
+      // Act
+      final Future<?> runningTask = executor.submit(() -> {
+        slowQueryLatch.await();
+        return null;
+      });
+      final Future<?> queuedTask = executor.submit(() -> null);
+
+      // Assert the third task fails fast instead of waiting for the slow data source
+      Assertions.assertThrows(TaskRejectedException.class, () -> executor.submit(() -> null));
+      slowQueryLatch.countDown();
+      runningTask.get();
+      queuedTask.get();
+    } finally {
+      slowQueryLatch.countDown();
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void executeKeepsRoutingContext() {
+    // Arrange
+    final MultiDataSourceBulkheadExecutor executor = new MultiDataSourceBulkheadExecutor(
+        DATA_SOURCE_BEAN_NAME,
+        Mockito.mock(DataSource.class),
+        0,
+        false
+    );
+    executor.initialize();
+
+    try {
+      // Act
+      final CompletableFuture<String> future = MultiDataSourceRoutingContext.callWithDataSource(
+          "replica",
+          () -> CompletableFuture.supplyAsync(
+              () -> MultiDataSourceRoutingContext.getCurrentDataSourceName() + "@"
+                  + Thread.currentThread().getName(),
+              executor
+          )
+      );
+
+      // Assert
+      Assertions.assertTrue(
+          future.join().startsWith("replica@replica-data-source-async-executor-"),
+          future.join()
+      );
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
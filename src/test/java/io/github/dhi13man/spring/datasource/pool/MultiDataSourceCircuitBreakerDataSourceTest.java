@@ -0,0 +1,177 @@
+package io.github.dhi13man.spring.datasource.pool;
+
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceCircuitBreaker.State;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class MultiDataSourceCircuitBreakerDataSourceTest {
+
+  private static final String FAILOVER_DATA_SOURCE_BEAN_NAME = "master-data-source";
+
+  private static final String SELECT_DATABASE_SQL = "SELECT DATABASE()";
+
+  private final FaultInjectingDataSource replicaDataSource =
+      new FaultInjectingDataSource("circuit-breaker-replica");
+
+  private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+  @Test
+  void getConnectionFailsFastOnceOpen() throws SQLException {
+    // Arrange
+    final MultiDataSourceCircuitBreakerDataSource dataSource = this.createDataSource(null);
+    replicaDataSource.isDown = true;
+    for (int i = 0; i < 3; i++) {
+      Assertions.assertThrows(SQLNonTransientConnectionException.class, dataSource::getConnection);
+    }
+
+    // Act
+    final long startNanos = System.nanoTime();
+    Assertions.assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+    final long elapsedNanos = System.nanoTime() - startNanos;
+
+    // Assert the data source is no longer tried while the circuit is open
+    Assertions.assertEquals(State.OPEN, dataSource.getCircuitBreaker().getState());
+    Assertions.assertEquals(3, replicaDataSource.connectionAttempts.get());
+    Assertions.assertTrue(elapsedNanos < TimeUnit.MILLISECONDS.toNanos(100));
+  }
+
+  @Test
+  void getConnectionFailsOverOnceOpen() throws SQLException {
+    // Arrange
+    beanFactory.registerSingleton(
+        FAILOVER_DATA_SOURCE_BEAN_NAME,
+        new FaultInjectingDataSource("circuit-breaker-master")
+    );
+    final MultiDataSourceCircuitBreakerDataSource dataSource =
+        this.createDataSource(FAILOVER_DATA_SOURCE_BEAN_NAME);
+    replicaDataSource.isDown = true;
+    for (int i = 0; i < 3; i++) {
+      Assertions.assertThrows(SQLNonTransientConnectionException.class, dataSource::getConnection);
+    }
+
+    // Act
+    final String databaseName;
+    try (final Connection connection = dataSource.getConnection()) {
+      databaseName = this.queryDatabaseName(connection);
+    }
+
+    // Assert
+    Assertions.assertEquals("CIRCUIT-BREAKER-MASTER", databaseName);
+    Assertions.assertEquals(3, replicaDataSource.connectionAttempts.get());
+  }
+
+  @Test
+  void getConnectionOpensOnQueryConnectionFailures() throws SQLException {
+    // Arrange
+    final MultiDataSourceCircuitBreakerDataSource dataSource = this.createDataSource(null);
+
+    // Act
+    for (int i = 0; i < 3; i++) {
+      try (final Connection connection = dataSource.getConnection()) {
+        replicaDataSource.isDown = true;
+        Assertions.assertThrows(
+            SQLNonTransientConnectionException.class,
+            () -> this.queryDatabaseName(connection)
+        );
+        replicaDataSource.isDown = false;
+      }
+    }
+
+    // Assert
+    Assertions.assertEquals(State.OPEN, dataSource.getCircuitBreaker().getState());
+  }
+
+  @Test
+  void getConnectionStaysClosedOnQueryErrors() throws SQLException {
+    // Arrange
+    final MultiDataSourceCircuitBreakerDataSource dataSource = this.createDataSource(null);
+
+    // Act
+    for (int i = 0; i < 3; i++) {
+      try (final Connection connection = dataSource.getConnection();
+          final Statement statement = connection.createStatement()) {
+        Assertions.assertThrows(
+            SQLException.class,
+            () -> statement.executeQuery("SELECT * FROM MISSING_TABLE")
+        );
+      }
+    }
+
+    // Assert syntax errors do not count as connection failures
+    Assertions.assertEquals(State.CLOSED, dataSource.getCircuitBreaker().getState());
+  }
+
+  private MultiDataSourceCircuitBreakerDataSource createDataSource(
+      String failoverDataSourceBeanName
+  ) {
+    return new MultiDataSourceCircuitBreakerDataSource(
+        replicaDataSource,
+        new MultiDataSourceCircuitBreaker("replica", 3, 60000, 1, failoverDataSourceBeanName),
+        beanFactory
+    );
+  }
+
+  private String queryDatabaseName(Connection connection) throws SQLException {
+    try (final Statement statement = connection.createStatement();
+        final ResultSet resultSet = statement.executeQuery(SELECT_DATABASE_SQL)) {
+      resultSet.next();
+      return resultSet.getString(1);
+    }
+  }
+
+  /**
+   * H2 data source which fails like an unreachable database while it is down: opening connections
+   * fails, and so does creating statements on the connections already open.
+   */
+  private static class FaultInjectingDataSource extends DelegatingDataSource {
+
+    private final AtomicInteger connectionAttempts = new AtomicInteger();
+
+    private volatile boolean isDown;
+
+    private FaultInjectingDataSource(String databaseName) {
+      super(new DriverManagerDataSource("jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1"));
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+      connectionAttempts.incrementAndGet();
+      this.failIfDown();
+      final Connection connection = super.getConnection();
+      return (Connection) Proxy.newProxyInstance(
+          Connection.class.getClassLoader(),
+          new Class<?>[]{Connection.class},
+          (proxy, method, args) -> {
+            if (method.getName().equals("createStatement")) {
+              this.failIfDown();
+            }
+            try {
+              return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+              throw e.getTargetException();
+            }
+          }
+      );
+    }
+
+    private void failIfDown() throws SQLNonTransientConnectionException {
+      if (isDown) {
+        throw new SQLNonTransientConnectionException("Connection refused", "08001");
+      }
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package io.github.dhi13man.spring.datasource.pool;
+
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceCircuitBreaker.State;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class MultiDataSourceCircuitBreakerTest {
+
+  private static final String DATA_SOURCE_NAME = "replica";
+
+  private static final long OPEN_DURATION_MILLIS = 1000;
+
+  private final AtomicLong nanoClock = new AtomicLong();
+
+  private final MultiDataSourceCircuitBreaker circuitBreaker = new MultiDataSourceCircuitBreaker(
+      DATA_SOURCE_NAME,
+      3,
+      OPEN_DURATION_MILLIS,
+      1,
+      null,
+      nanoClock::get
+  );
+
+  @Test
+  void recordFailureOpensAfterConsecutiveFailures() {
+    // Act
+    circuitBreaker.recordFailure();
+    circuitBreaker.recordFailure();
+    final State stateBeforeThreshold = circuitBreaker.getState();
+    circuitBreaker.recordFailure();
+
+    // Assert
+    Assertions.assertEquals(State.CLOSED, stateBeforeThreshold);
+    Assertions.assertEquals(State.OPEN, circuitBreaker.getState());
+    Assertions.assertFalse(circuitBreaker.tryAcquirePermission());
+  }
+
+  @Test
+  void recordSuccessResetsConsecutiveFailures() {
+    // Act
+    circuitBreaker.recordFailure();
+    circuitBreaker.recordFailure();
+    circuitBreaker.recordSuccess();
+    circuitBreaker.recordFailure();
+    circuitBreaker.recordFailure();
+
+    // Assert
+    Assertions.assertEquals(State.CLOSED, circuitBreaker.getState());
+    Assertions.assertTrue(circuitBreaker.tryAcquirePermission());
+  }
+
+  @Test
+  void tryAcquirePermissionHalfOpenAfterOpenDuration() {
+    // Arrange
+    this.open();
+    nanoClock.addAndGet(TimeUnit.MILLISECONDS.toNanos(OPEN_DURATION_MILLIS));
+
+    // Act
+    final boolean isProbePermitted = circuitBreaker.tryAcquirePermission();
+    final boolean isSecondProbePermitted = circuitBreaker.tryAcquirePermission();
+
+    // Assert only one probe at a time
+    Assertions.assertTrue(isProbePermitted);
+    Assertions.assertFalse(isSecondProbePermitted);
+    Assertions.assertEquals(State.HALF_OPEN, circuitBreaker.getState());
+  }
+
+  @Test
+  void recordSuccessClosesHalfOpen() {
+    // Arrange
+    this.open();
+    nanoClock.addAndGet(TimeUnit.MILLISECONDS.toNanos(OPEN_DURATION_MILLIS));
+    circuitBreaker.tryAcquirePermission();
+
+    // Act
+    circuitBreaker.recordSuccess();
+
+    // Assert
+    Assertions.assertEquals(State.CLOSED, circuitBreaker.getState());
+    Assertions.assertTrue(circuitBreaker.tryAcquirePermission());
+    Assertions.assertTrue(circuitBreaker.tryAcquirePermission());
+  }
+
+  @Test
+  void recordFailureReopensHalfOpen() {
+    // Arrange
+    this.open();
+    nanoClock.addAndGet(TimeUnit.MILLISECONDS.toNanos(OPEN_DURATION_MILLIS));
+    circuitBreaker.tryAcquirePermission();
+
+    // Act
+    circuitBreaker.recordFailure();
+
+    // Assert the open duration starts again
+    Assertions.assertEquals(State.OPEN, circuitBreaker.getState());
+    Assertions.assertFalse(circuitBreaker.tryAcquirePermission());
+  }
+
+  private void open() {
+    for (int i = 0; i < 3; i++) {
+      circuitBreaker.recordFailure();
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package io.github.dhi13man.spring.datasource.pool;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+
+class MultiDataSourceConcurrencyLimitedDataSourceTest {
+
+  private static final String DATA_SOURCE_NAME = "replica";
+
+  private final DataSource mockTargetDataSource = Mockito.mock(DataSource.class);
+
+  private final DataSource mockPrimaryDataSource = Mockito.mock(DataSource.class);
+
+  @Test
+  void getConnectionHoldsSlotUntilClosed() throws SQLException {
+    // Arrange
+    final Connection mockConnection = Mockito.mock(Connection.class);
+    Mockito.when(mockTargetDataSource.getConnection()).thenReturn(mockConnection);
+    final MultiDataSourceConcurrencyLimiter limiter =
+        new MultiDataSourceConcurrencyLimiter(DATA_SOURCE_NAME, 1, 2, 1000, 50, false);
+    final MultiDataSourceConcurrencyLimitedDataSource dataSource = this.createDataSource(limiter);
+
+    // Act
+    final Connection connection = dataSource.getConnection();
+    final int inFlightBeforeClose = limiter.getInFlight();
+    connection.close();
+    connection.close();
+
+    // Assert
+    Assertions.assertEquals(1, inFlightBeforeClose);
+    Assertions.assertEquals(0, limiter.getInFlight());
+    Assertions.assertSame(mockConnection, ((ConnectionProxy) connection).getTargetConnection());
+    Mockito.verify(mockConnection, Mockito.times(2)).close();
+  }
+
+  @Test
+  void getConnectionHeldBetweenStatementsKeepsLimit() throws Exception {
+    // Arrange
+    Mockito.when(mockTargetDataSource.getConnection())
+        .thenReturn(Mockito.mock(Connection.class));
+    final MultiDataSourceConcurrencyLimiter limiter =
+        new MultiDataSourceConcurrencyLimiter(DATA_SOURCE_NAME, 1, 4, 10, 50, false);
+    final MultiDataSourceConcurrencyLimitedDataSource dataSource = this.createDataSource(limiter);
+
+    // Act
+    final Connection connection = dataSource.getConnection();
+    Thread.sleep(50);
+    connection.close();
+
+    // Assert the time the connection was held without statements is not a sign of congestion
+    Assertions.assertEquals(4, limiter.getLimit());
+  }
+
+  @Test
+  void getConnectionSlowStatementBacksOff() throws SQLException {
+    // Arrange
+    final Connection mockConnection = Mockito.mock(Connection.class);
+    final PreparedStatement mockStatement = Mockito.mock(PreparedStatement.class);
+    Mockito.when(mockTargetDataSource.getConnection()).thenReturn(mockConnection);
+    Mockito.when(mockConnection.prepareStatement("select 1")).thenReturn(mockStatement);
+    Mockito.when(mockStatement.executeQuery()).thenAnswer(invocation -> {
+      Thread.sleep(50);
+      return Mockito.mock(ResultSet.class);
+    });
+    final MultiDataSourceConcurrencyLimiter limiter =
+        new MultiDataSourceConcurrencyLimiter(DATA_SOURCE_NAME, 1, 4, 10, 50, false);
+    final MultiDataSourceConcurrencyLimitedDataSource dataSource = this.createDataSource(limiter);
+
+    // Act
+    final Connection connection = dataSource.getConnection();
+    final PreparedStatement statement = connection.prepareStatement("select 1");
+    statement.executeQuery();
+    connection.close();
+
+    // Assert
+    Assertions.assertSame(connection, statement.getConnection());
+    Assertions.assertEquals(2, limiter.getLimit());
+    Mockito.verify(mockStatement).executeQuery();
+  }
+
+  @Test
+  void getConnectionFailFastWhenLimitReached() throws SQLException {
+    // Arrange
+    Mockito.when(mockTargetDataSource.getConnection())
+        .thenReturn(Mockito.mock(Connection.class));
+    final MultiDataSourceConcurrencyLimiter limiter =
+        new MultiDataSourceConcurrencyLimiter(DATA_SOURCE_NAME, 1, 1, 1000, 50, false);
+    final MultiDataSourceConcurrencyLimitedDataSource dataSource = this.createDataSource(limiter);
+    dataSource.getConnection();
+
+    // Act & Assert
+    Assertions.assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+    Assertions.assertEquals(1, limiter.getRejectedCount());
+    Mockito.verify(mockTargetDataSource, Mockito.times(1)).getConnection();
+    Mockito.verifyNoInteractions(mockPrimaryDataSource);
+  }
+
+  @Test
+  void getConnectionDivertToPrimaryWhenLimitReached() throws SQLException {
+    // Arrange
+    final Connection mockPrimaryConnection = Mockito.mock(Connection.class);
+    Mockito.when(mockTargetDataSource.getConnection())
+        .thenReturn(Mockito.mock(Connection.class));
+    Mockito.when(mockPrimaryDataSource.getConnection()).thenReturn(mockPrimaryConnection);
+    final MultiDataSourceConcurrencyLimiter limiter =
+        new MultiDataSourceConcurrencyLimiter(DATA_SOURCE_NAME, 1, 1, 1000, 50, true);
+    final MultiDataSourceConcurrencyLimitedDataSource dataSource = this.createDataSource(limiter);
+    dataSource.getConnection();
+
+    // Act
+    final Connection connection = dataSource.getConnection();
+
+    // Assert
+    Assertions.assertSame(mockPrimaryConnection, connection);
+    Assertions.assertEquals(1, limiter.getDivertedCount());
+    Assertions.assertEquals(1, limiter.getInFlight());
+  }
+
+  @Test
+  void getConnectionFailureReleasesSlotAndBacksOff() throws SQLException {
+    // Arrange
+    Mockito.when(mockTargetDataSource.getConnection()).thenThrow(new SQLException("Down"));
+    final MultiDataSourceConcurrencyLimiter limiter =
+        new MultiDataSourceConcurrencyLimiter(DATA_SOURCE_NAME, 1, 4, 1000, 50, false);
+    final MultiDataSourceConcurrencyLimitedDataSource dataSource = this.createDataSource(limiter);
+
+    // Act & Assert
+    Assertions.assertThrows(SQLException.class, dataSource::getConnection);
+    Assertions.assertEquals(0, limiter.getInFlight());
+    Assertions.assertEquals(2, limiter.getLimit());
+  }
+
+  private MultiDataSourceConcurrencyLimitedDataSource createDataSource(
+      MultiDataSourceConcurrencyLimiter limiter
+  ) {
+    return new MultiDataSourceConcurrencyLimitedDataSource(
+        mockTargetDataSource,
+        limiter,
+        () -> mockPrimaryDataSource
+    );
+  }
+}
@@ -0,0 +1,45 @@
+package io.github.dhi13man.spring.datasource.pool;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class MultiDataSourceConcurrencyLimiterMetricsTest {
+
+  private static final String DATA_SOURCE_NAME = "replica";
+
+  @Test
+  void bindToRegistersLimiterStateTaggedWithDataSourceName() {
+    // Arrange
+    final MultiDataSourceConcurrencyLimiter limiter =
+        new MultiDataSourceConcurrencyLimiter(DATA_SOURCE_NAME, 1, 1, 1000, 50, true);
+    final MeterRegistry registry = new SimpleMeterRegistry();
+    limiter.tryAcquire();
+    limiter.tryAcquire();
+    limiter.recordDiverted();
+
+    // Act
+    new MultiDataSourceConcurrencyLimiterMetrics(limiter).bindTo(registry);
+
+    // Assert
+    Assertions.assertEquals(1, this.getGauge(registry, "limit"));
+    Assertions.assertEquals(1, this.getGauge(registry, "in.flight"));
+    Assertions.assertEquals(1, this.getCounter(registry, "rejected"));
+    Assertions.assertEquals(1, this.getCounter(registry, "diverted"));
+  }
+
+  private double getGauge(MeterRegistry registry, String name) {
+    return registry.get(MultiDataSourceConcurrencyLimiterMetrics.METRIC_NAME_PREFIX + name)
+        .tag(MultiDataSourceConcurrencyLimiterMetrics.DATA_SOURCE_TAG, DATA_SOURCE_NAME)
+        .gauge()
+        .value();
+  }
+
+  private double getCounter(MeterRegistry registry, String name) {
+    return registry.get(MultiDataSourceConcurrencyLimiterMetrics.METRIC_NAME_PREFIX + name)
+        .tag(MultiDataSourceConcurrencyLimiterMetrics.DATA_SOURCE_TAG, DATA_SOURCE_NAME)
+        .functionCounter()
+        .count();
+  }
+}
@@ -0,0 +1,106 @@
+package io.github.dhi13man.spring.datasource.pool;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class MultiDataSourceConcurrencyLimiterTest {
+
+  private static final String DATA_SOURCE_NAME = "replica";
+
+  private static final long FAST_LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private static final long SLOW_LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+  @Test
+  void tryAcquireUntilLimitReached() {
+    // Arrange
+    final MultiDataSourceConcurrencyLimiter limiter =
+        new MultiDataSourceConcurrencyLimiter(DATA_SOURCE_NAME, 1, 2, 100, 50, false);
+
+    // Act
+    final boolean isFirstAcquired = limiter.tryAcquire();
+    final boolean isSecondAcquired = limiter.tryAcquire();
+    final boolean isThirdAcquired = limiter.tryAcquire();
+
+    // Assert
+    Assertions.assertTrue(isFirstAcquired);
+    Assertions.assertTrue(isSecondAcquired);
+    Assertions.assertFalse(isThirdAcquired);
+    Assertions.assertEquals(2, limiter.getInFlight());
+    Assertions.assertEquals(1, limiter.getRejectedCount());
+  }
+
+  @Test
+  void releaseSlowDecreasesLimitDownToMinimum() {
+    // Arrange
+    final MultiDataSourceConcurrencyLimiter limiter =
+        new MultiDataSourceConcurrencyLimiter(DATA_SOURCE_NAME, 3, 10, 100, 50, false);
+
+    // Act
+    limiter.tryAcquire();
+    limiter.release(SLOW_LATENCY_NANOS, false);
+    final int limitAfterFirstRelease = limiter.getLimit();
+    limiter.tryAcquire();
+    limiter.release(SLOW_LATENCY_NANOS, false);
+
+    // Assert
+    Assertions.assertEquals(5, limitAfterFirstRelease);
+    Assertions.assertEquals(3, limiter.getLimit());
+    Assertions.assertEquals(0, limiter.getInFlight());
+  }
+
+  @Test
+  void releaseFailedDecreasesLimit() {
+    // Arrange
+    final MultiDataSourceConcurrencyLimiter limiter =
+        new MultiDataSourceConcurrencyLimiter(DATA_SOURCE_NAME, 1, 10, 100, 50, false);
+
+    // Act
+    limiter.tryAcquire();
+    limiter.release(FAST_LATENCY_NANOS, true);
+
+    // Assert
+    Assertions.assertEquals(5, limiter.getLimit());
+  }
+
+  @Test
+  void releaseFastIncreasesLimitUpToMaximumWhenUsed() {
+    // Arrange
+    final MultiDataSourceConcurrencyLimiter limiter =
+        new MultiDataSourceConcurrencyLimiter(DATA_SOURCE_NAME, 1, 4, 100, 50, false);
+    limiter.tryAcquire();
+    limiter.release(SLOW_LATENCY_NANOS, false);
+
+    // Act
+    limiter.tryAcquire();
+    limiter.release(FAST_LATENCY_NANOS, false);
+    final int limitAfterUsedRelease = limiter.getLimit();
+    for (int i = 0; i < 4; i++) {
+      limiter.tryAcquire();
+      limiter.tryAcquire();
+      limiter.release(FAST_LATENCY_NANOS, false);
+      limiter.release(FAST_LATENCY_NANOS, false);
+    }
+
+    // Assert
+    Assertions.assertEquals(3, limitAfterUsedRelease);
+    Assertions.assertEquals(4, limiter.getLimit());
+  }
+
+  @Test
+  void releaseFastKeepsLimitWhenMostlyUnused() {
+    // Arrange
+    final MultiDataSourceConcurrencyLimiter limiter =
+        new MultiDataSourceConcurrencyLimiter(DATA_SOURCE_NAME, 1, 10, 100, 50, false);
+    limiter.tryAcquire();
+    limiter.release(SLOW_LATENCY_NANOS, false);
+
+    // Act
+    limiter.tryAcquire();
+    limiter.release(FAST_LATENCY_NANOS, false);
+
+    // Assert
+    Assertions.assertEquals(5, limiter.getLimit());
+  }
+}
@@ -0,0 +1,84 @@
+package io.github.dhi13man.spring.datasource.pool;
+
+import io.github.dhi13man.spring.datasource.utils.MultiDataSourceConnectionPoolUtilsTest.MockPooledDataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+class MultiDataSourceConnectionBudgetValidatorTest {
+
+  private static final String MASTER_DATA_SOURCE_BEAN_NAME = "master-data-source";
+
+  private static final String REPLICA_DATA_SOURCE_BEAN_NAME = "replica-data-source";
+
+  private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+  @Test
+  void afterSingletonsInstantiatedWithinBudget() {
+    // Arrange
+    this.registerPooledDataSource(MASTER_DATA_SOURCE_BEAN_NAME, 20);
+    beanFactory.registerSingleton(REPLICA_DATA_SOURCE_BEAN_NAME, new SingleConnectionDataSource());
+    final MultiDataSourceConnectionBudgetValidator validator = this.createValidator(40);
+
+    // Act and Assert replica assumed to use its share of 10, which fits in the budget
+    Assertions.assertDoesNotThrow(validator::afterSingletonsInstantiated);
+  }
+
+  @Test
+  void afterSingletonsInstantiatedExceedingBudget() {
+    // Arrange
+    this.registerPooledDataSource(MASTER_DATA_SOURCE_BEAN_NAME, 35);
+    this.registerPooledDataSource(REPLICA_DATA_SOURCE_BEAN_NAME, 10);
+    final MultiDataSourceConnectionBudgetValidator validator = this.createValidator(40);
+
+    // Act
+    final IllegalStateException exception = Assertions.assertThrows(
+        IllegalStateException.class,
+        validator::afterSingletonsInstantiated
+    );
+
+    // Assert the report covers every data source
+    final String report = exception.getMessage();
+    Assertions.assertTrue(report.contains("45 of 40"));
+    Assertions.assertTrue(report.contains(MASTER_DATA_SOURCE_BEAN_NAME
+        + ": share 30, maximum pool size 35 (exceeds share by 5)"));
+    Assertions.assertTrue(report.contains(REPLICA_DATA_SOURCE_BEAN_NAME
+        + ": share 10, maximum pool size 10"));
+  }
+
+  @Test
+  void afterSingletonsInstantiatedSharedConnectionPool() {
+    // Arrange
+    final MockPooledDataSource masterDataSource = this
+        .registerPooledDataSource(MASTER_DATA_SOURCE_BEAN_NAME, 40);
+    beanFactory.registerSingleton(
+        REPLICA_DATA_SOURCE_BEAN_NAME,
+        new SharedConnectionPoolDataSource(masterDataSource, MASTER_DATA_SOURCE_BEAN_NAME)
+    );
+    final MultiDataSourceConnectionBudgetValidator validator = this.createValidator(40);
+
+    // Act and Assert shared pool counted once
+    Assertions.assertDoesNotThrow(validator::afterSingletonsInstantiated);
+  }
+
+  private MockPooledDataSource registerPooledDataSource(String beanName, int maximumPoolSize) {
+    final MockPooledDataSource dataSource = new MockPooledDataSource();
+    dataSource.setMaximumPoolSize(maximumPoolSize);
+    beanFactory.registerSingleton(beanName, dataSource);
+    return dataSource;
+  }
+
+  private MultiDataSourceConnectionBudgetValidator createValidator(int maxConnections) {
+    final Map<String, Integer> dataSourceBeanNameToShare = new LinkedHashMap<>();
+    dataSourceBeanNameToShare.put(MASTER_DATA_SOURCE_BEAN_NAME, 30);
+    dataSourceBeanNameToShare.put(REPLICA_DATA_SOURCE_BEAN_NAME, 10);
+    return new MultiDataSourceConnectionBudgetValidator(
+        beanFactory,
+        maxConnections,
+        dataSourceBeanNameToShare
+    );
+  }
+}
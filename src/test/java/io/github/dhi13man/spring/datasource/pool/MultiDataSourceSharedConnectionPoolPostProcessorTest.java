@@ -0,0 +1,133 @@
+package io.github.dhi13man.spring.datasource.pool;
+
+import io.github.dhi13man.spring.datasource.utils.MultiDataSourceConnectionPoolUtilsTest.MockPooledDataSource;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+class MultiDataSourceSharedConnectionPoolPostProcessorTest {
+
+  private static final String MASTER_DATA_SOURCE_BEAN_NAME = "master-data-source";
+
+  private static final String REPLICA_DATA_SOURCE_BEAN_NAME = "replica-data-source";
+
+  private static final String REPORTING_DATA_SOURCE_BEAN_NAME = "reporting-data-source";
+
+  private static final String MOCK_URL = "jdbc:h2:mem:test";
+
+  private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+  @Test
+  void postProcessAfterInitializationSameConnectionIdentitySharing() {
+    // Arrange
+    final MockPooledDataSource masterDataSource = this
+        .registerDataSource(MASTER_DATA_SOURCE_BEAN_NAME, MOCK_URL, "user");
+    final MockPooledDataSource replicaDataSource = this
+        .createDataSource(MOCK_URL, "user");
+    final MultiDataSourceSharedConnectionPoolPostProcessor postProcessor = this
+        .createPostProcessor(true);
+
+    // Act
+    final Object processedMasterDataSource = postProcessor
+        .postProcessAfterInitialization(masterDataSource, MASTER_DATA_SOURCE_BEAN_NAME);
+    final Object processedReplicaDataSource = postProcessor
+        .postProcessAfterInitialization(replicaDataSource, REPLICA_DATA_SOURCE_BEAN_NAME);
+
+    // Assert
+    Assertions.assertSame(masterDataSource, processedMasterDataSource);
+    Assertions.assertTrue(processedReplicaDataSource instanceof SharedConnectionPoolDataSource);
+    final SharedConnectionPoolDataSource sharedDataSource =
+        (SharedConnectionPoolDataSource) processedReplicaDataSource;
+    Assertions.assertSame(masterDataSource, sharedDataSource.getTargetDataSource());
+    Assertions.assertEquals(
+        MASTER_DATA_SOURCE_BEAN_NAME,
+        sharedDataSource.getOwningDataSourceBeanName()
+    );
+  }
+
+  @Test
+  void postProcessAfterInitializationSameConnectionIdentityNotSharing() {
+    // Arrange
+    this.registerDataSource(MASTER_DATA_SOURCE_BEAN_NAME, MOCK_URL, "user");
+    final MockPooledDataSource replicaDataSource = this.createDataSource(MOCK_URL, "user");
+    final MultiDataSourceSharedConnectionPoolPostProcessor postProcessor = this
+        .createPostProcessor(false);
+
+    // Act
+    final Object processedReplicaDataSource = postProcessor
+        .postProcessAfterInitialization(replicaDataSource, REPLICA_DATA_SOURCE_BEAN_NAME);
+
+    // Assert
+    Assertions.assertSame(replicaDataSource, processedReplicaDataSource);
+  }
+
+  @Test
+  void postProcessAfterInitializationSameConnectionIdentityDifferentConnectionInitSql() {
+    // Arrange
+    final MockPooledDataSource masterDataSource = this
+        .registerDataSource(MASTER_DATA_SOURCE_BEAN_NAME, MOCK_URL, "user");
+    masterDataSource.setConnectionInitSql("SET LOCK_TIMEOUT 1000");
+    final MockPooledDataSource replicaDataSource = this.createDataSource(MOCK_URL, "user");
+    replicaDataSource.setConnectionInitSql("SET LOCK_TIMEOUT 2000");
+    final MultiDataSourceSharedConnectionPoolPostProcessor postProcessor = this
+        .createPostProcessor(true);
+
+    // Act
+    final Object processedReplicaDataSource = postProcessor
+        .postProcessAfterInitialization(replicaDataSource, REPLICA_DATA_SOURCE_BEAN_NAME);
+
+    // Assert the replica keeps its own pool, as the pool of the master drops its init SQL
+    Assertions.assertSame(replicaDataSource, processedReplicaDataSource);
+  }
+
+  @Test
+  void postProcessAfterInitializationDifferentConnectionIdentity() {
+    // Arrange
+    this.registerDataSource(MASTER_DATA_SOURCE_BEAN_NAME, MOCK_URL, "user");
+    this.registerDataSource(REPLICA_DATA_SOURCE_BEAN_NAME, MOCK_URL, "replica-user");
+    final MockPooledDataSource reportingDataSource = this
+        .createDataSource(MOCK_URL + "-reporting", "user");
+    final MultiDataSourceSharedConnectionPoolPostProcessor postProcessor = this
+        .createPostProcessor(true);
+
+    // Act
+    final Object processedReplicaDataSource = postProcessor.postProcessAfterInitialization(
+        beanFactory.getBean(REPLICA_DATA_SOURCE_BEAN_NAME),
+        REPLICA_DATA_SOURCE_BEAN_NAME
+    );
+    final Object processedReportingDataSource = postProcessor
+        .postProcessAfterInitialization(reportingDataSource, REPORTING_DATA_SOURCE_BEAN_NAME);
+
+    // Assert
+    Assertions.assertFalse(processedReplicaDataSource instanceof SharedConnectionPoolDataSource);
+    Assertions.assertSame(reportingDataSource, processedReportingDataSource);
+  }
+
+  private MultiDataSourceSharedConnectionPoolPostProcessor createPostProcessor(boolean isSharing) {
+    final MultiDataSourceSharedConnectionPoolPostProcessor postProcessor =
+        new MultiDataSourceSharedConnectionPoolPostProcessor(
+            List.of(
+                MASTER_DATA_SOURCE_BEAN_NAME,
+                REPLICA_DATA_SOURCE_BEAN_NAME,
+                REPORTING_DATA_SOURCE_BEAN_NAME
+            ),
+            isSharing
+        );
+    postProcessor.setBeanFactory(beanFactory);
+    return postProcessor;
+  }
+
+  private MockPooledDataSource registerDataSource(String beanName, String url, String username) {
+    final MockPooledDataSource dataSource = this.createDataSource(url, username);
+    beanFactory.registerSingleton(beanName, dataSource);
+    return dataSource;
+  }
+
+  private MockPooledDataSource createDataSource(String url, String username) {
+    final MockPooledDataSource dataSource = new MockPooledDataSource();
+    dataSource.setUrl(url);
+    dataSource.setUsername(username);
+    return dataSource;
+  }
+}
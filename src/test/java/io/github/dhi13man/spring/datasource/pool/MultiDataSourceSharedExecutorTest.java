@@ -0,0 +1,59 @@
+package io.github.dhi13man.spring.datasource.pool;
+
+import io.github.dhi13man.spring.datasource.routing.MultiDataSourceRoutingContext;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class MultiDataSourceSharedExecutorTest {
+
+  @Test
+  void getExecutorIsBounded() {
+    // Act
+    final ThreadPoolExecutor executor =
+        (ThreadPoolExecutor) MultiDataSourceSharedExecutor.getExecutor();
+
+    // Assert
+    Assertions
+        .assertEquals(MultiDataSourceSharedExecutor.MAX_THREADS, executor.getMaximumPoolSize());
+    Assertions.assertEquals(
+        MultiDataSourceSharedExecutor.QUEUE_CAPACITY,
+        executor.getQueue().remainingCapacity() + executor.getQueue().size()
+    );
+  }
+
+  @Test
+  void submitOrRunRoutedToDataSourceOfCallingThread()
+      throws ExecutionException, InterruptedException {
+    // Act
+    final Future<String> future = MultiDataSourceRoutingContext.callWithDataSource(
+        "replica",
+        () -> MultiDataSourceSharedExecutor.submitOrRun(
+            MultiDataSourceSharedExecutor.getExecutor(),
+            MultiDataSourceRoutingContext::getCurrentDataSourceName
+        )
+    );
+
+    // Assert
+    Assertions.assertEquals("replica", future.get());
+  }
+
+  @Test
+  void submitOrRunRejectedRunsOnCallingThread() throws ExecutionException, InterruptedException {
+    // Arrange
+    final ExecutorService rejectingExecutor = Executors.newSingleThreadExecutor();
+    rejectingExecutor.shutdown();
+
+    // Act
+    final Future<Thread> future = MultiDataSourceSharedExecutor
+        .submitOrRun(rejectingExecutor, Thread::currentThread);
+
+    // Assert
+    Assertions.assertTrue(future.isDone());
+    Assertions.assertSame(Thread.currentThread(), future.get());
+  }
+}
@@ -1,13 +1,21 @@
 package io.github.dhi13man.spring.datasource.processor;
 
 import com.squareup.javapoet.TypeSpec;
+import io.github.dhi13man.spring.datasource.annotations.AsyncExecutor;
+import io.github.dhi13man.spring.datasource.annotations.CircuitBreaker;
+import io.github.dhi13man.spring.datasource.annotations.ConcurrencyLimit;
+import io.github.dhi13man.spring.datasource.annotations.ConcurrencyLimit.OverloadAction;
+import io.github.dhi13man.spring.datasource.annotations.ConnectionBudget;
 import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig;
 import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.DataSourceConfig;
+import io.github.dhi13man.spring.datasource.annotations.PerformanceProfile;
+import io.github.dhi13man.spring.datasource.annotations.ReadYourWrites;
 import io.github.dhi13man.spring.datasource.generators.MultiDataSourceConfigGenerator;
 import io.github.dhi13man.spring.datasource.generators.MultiDataSourceRepositoryGenerator;
 import io.github.dhi13man.spring.datasource.utils.MultiDataSourceCommonStringUtils;
 import io.github.dhi13man.spring.datasource.utils.MultiDataSourceGeneratorUtils;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import javax.annotation.processing.Filer;
 import javax.annotation.processing.Messager;
@@ -18,8 +26,10 @@ import javax.lang.model.element.Element;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
+import javax.tools.Diagnostic.Kind;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 
 class MultiDataSourceConfigAnnotationProcessorTest {
@@ -114,6 +124,9 @@ class MultiDataSourceConfigAnnotationProcessorTest {
     Mockito.when(mockDataSourceConfig.exactEntityPackages()).thenReturn(new String[]{});
     Mockito.when(mockAnnotation.primaryDataSourceConfig()).thenReturn(mockDataSourceConfig);
     Mockito.when(mockAnnotation.secondaryDataSourceConfigs()).thenReturn(new DataSourceConfig[]{});
+    final ConnectionBudget mockConnectionBudget = this
+        .createMockConnectionBudget(ConnectionBudget.UNLIMITED);
+    Mockito.when(mockAnnotation.connectionBudget()).thenReturn(mockConnectionBudget);
 
     // Act and Assert IllegalArgumentException thrown
     Assertions.assertThrows(
@@ -143,6 +156,9 @@ class MultiDataSourceConfigAnnotationProcessorTest {
         .thenReturn(new String[]{MOCK_TEST_PACKAGE});
     Mockito.when(mockAnnotation.primaryDataSourceConfig()).thenReturn(mockDataSourceConfig);
     Mockito.when(mockAnnotation.secondaryDataSourceConfigs()).thenReturn(new DataSourceConfig[]{});
+    final ConnectionBudget mockConnectionBudget = this
+        .createMockConnectionBudget(ConnectionBudget.UNLIMITED);
+    Mockito.when(mockAnnotation.connectionBudget()).thenReturn(mockConnectionBudget);
 
     // Act and Assert IllegalArgumentException thrown
     Assertions.assertThrows(
@@ -175,6 +191,10 @@ class MultiDataSourceConfigAnnotationProcessorTest {
         mockDataSourceConfig
     });
     Mockito.when(mockDataSourceConfig.exactEntityPackages()).thenReturn(mockPackages);
+    final PerformanceProfile mockPerformanceProfile = this.createMockPerformanceProfile(
+        PerformanceProfile.UNSET
+    );
+    Mockito.when(mockDataSourceConfig.performanceProfile()).thenReturn(mockPerformanceProfile);
     final TypeSpec mockConfigTypeSpec = TypeSpec.classBuilder("MockConfig").build();
     Mockito.when(
         mockConfigGenerator.generateMultiDataSourceConfigTypeElement(
@@ -183,7 +203,10 @@ class MultiDataSourceConfigAnnotationProcessorTest {
             MOCK_MASTER_DATA_SOURCE_CONFIG_CLASS_NAME,
             MOCK_DATASOURCE_PROPERTIES_PREFIX + "." + MOCK_MASTER_DATA_SOURCE_NAME,
             mockPackages,
-            new String[]{MOCK_TEST_PACKAGE}
+            new String[]{MOCK_TEST_PACKAGE},
+            ConnectionBudget.UNLIMITED,
+            null,
+            null
         )
     ).thenReturn(mockConfigTypeSpec);
 
@@ -194,6 +217,458 @@ class MultiDataSourceConfigAnnotationProcessorTest {
     );
   }
 
+  @Test
+  void processOneAnnotatedElementInvalidPerformanceProfile() {
+    // Arrange
+    processor.init(mockProcessingEnvironment);
+    final Set<? extends TypeElement> annotations = Set.of(Mockito.mock(TypeElement.class));
+    final RoundEnvironment mockRoundEnvironment = Mockito.mock(RoundEnvironment.class);
+    final TypeElement mockAnnotatedElement = Mockito.mock(TypeElement.class);
+    Mockito.when(mockRoundEnvironment.getElementsAnnotatedWith(EnableMultiDataSourceConfig.class))
+        .then(invocation -> Set.of(mockAnnotatedElement));
+    final EnableMultiDataSourceConfig mockAnnotation = Mockito
+        .mock(EnableMultiDataSourceConfig.class);
+    Mockito.when(mockAnnotation.generatedConfigPackage()).thenReturn(MOCK_TEST_PACKAGE);
+    final String[] mockPackages = {MOCK_TEST_PACKAGE};
+    Mockito.when(mockAnnotation.repositoryPackages()).thenReturn(mockPackages);
+    Mockito.when(mockAnnotation.datasourcePropertiesPrefix())
+        .thenReturn(MOCK_DATASOURCE_PROPERTIES_PREFIX);
+    Mockito.when(mockAnnotatedElement.getAnnotation(EnableMultiDataSourceConfig.class))
+        .thenReturn(mockAnnotation);
+    final DataSourceConfig mockDataSourceConfig = Mockito.mock(DataSourceConfig.class);
+    Mockito.when(mockDataSourceConfig.dataSourceName()).thenReturn(MOCK_MASTER_DATA_SOURCE_NAME);
+    Mockito.when(mockDataSourceConfig.exactEntityPackages()).thenReturn(mockPackages);
+    final PerformanceProfile mockPerformanceProfile = this.createMockPerformanceProfile(0);
+    Mockito.when(mockDataSourceConfig.performanceProfile()).thenReturn(mockPerformanceProfile);
+    Mockito.when(mockAnnotation.primaryDataSourceConfig()).thenReturn(mockDataSourceConfig);
+    Mockito.when(mockAnnotation.secondaryDataSourceConfigs()).thenReturn(new DataSourceConfig[]{});
+    final ConnectionBudget mockConnectionBudget = this
+        .createMockConnectionBudget(ConnectionBudget.UNLIMITED);
+    Mockito.when(mockAnnotation.connectionBudget()).thenReturn(mockConnectionBudget);
+
+    // Act and Assert IllegalArgumentException thrown
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> processor.process(annotations, mockRoundEnvironment)
+    );
+  }
+
+  @Test
+  void processOneAnnotatedElementInvalidQueryTimeout() {
+    // Arrange
+    processor.init(mockProcessingEnvironment);
+    final Set<? extends TypeElement> annotations = Set.of(Mockito.mock(TypeElement.class));
+    final RoundEnvironment mockRoundEnvironment = Mockito.mock(RoundEnvironment.class);
+    final TypeElement mockAnnotatedElement = Mockito.mock(TypeElement.class);
+    Mockito.when(mockRoundEnvironment.getElementsAnnotatedWith(EnableMultiDataSourceConfig.class))
+        .then(invocation -> Set.of(mockAnnotatedElement));
+    final EnableMultiDataSourceConfig mockAnnotation = Mockito
+        .mock(EnableMultiDataSourceConfig.class);
+    Mockito.when(mockAnnotation.generatedConfigPackage()).thenReturn(MOCK_TEST_PACKAGE);
+    final String[] mockPackages = {MOCK_TEST_PACKAGE};
+    Mockito.when(mockAnnotation.repositoryPackages()).thenReturn(mockPackages);
+    Mockito.when(mockAnnotation.datasourcePropertiesPrefix())
+        .thenReturn(MOCK_DATASOURCE_PROPERTIES_PREFIX);
+    Mockito.when(mockAnnotatedElement.getAnnotation(EnableMultiDataSourceConfig.class))
+        .thenReturn(mockAnnotation);
+    final DataSourceConfig mockDataSourceConfig = Mockito.mock(DataSourceConfig.class);
+    Mockito.when(mockDataSourceConfig.dataSourceName()).thenReturn(MOCK_MASTER_DATA_SOURCE_NAME);
+    Mockito.when(mockDataSourceConfig.exactEntityPackages()).thenReturn(mockPackages);
+    final PerformanceProfile mockPerformanceProfile = this.createMockPerformanceProfile(
+        PerformanceProfile.UNSET
+    );
+    Mockito.when(mockDataSourceConfig.performanceProfile()).thenReturn(mockPerformanceProfile);
+    Mockito.when(mockDataSourceConfig.queryTimeoutMillis()).thenReturn(0);
+    Mockito.when(mockDataSourceConfig.lockTimeoutMillis()).thenReturn(PerformanceProfile.UNSET);
+    Mockito.when(mockAnnotation.primaryDataSourceConfig()).thenReturn(mockDataSourceConfig);
+    Mockito.when(mockAnnotation.secondaryDataSourceConfigs()).thenReturn(new DataSourceConfig[]{});
+    final ConnectionBudget mockConnectionBudget = this
+        .createMockConnectionBudget(ConnectionBudget.UNLIMITED);
+    Mockito.when(mockAnnotation.connectionBudget()).thenReturn(mockConnectionBudget);
+
+    // Act and Assert IllegalArgumentException thrown
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> processor.process(annotations, mockRoundEnvironment)
+    );
+  }
+
+  @Test
+  void processOneAnnotatedElementSubSecondLockTimeout() {
+    // Arrange
+    processor.init(mockProcessingEnvironment);
+    final Set<? extends TypeElement> annotations = Set.of(Mockito.mock(TypeElement.class));
+    final RoundEnvironment mockRoundEnvironment = Mockito.mock(RoundEnvironment.class);
+    final TypeElement mockAnnotatedElement = Mockito.mock(TypeElement.class);
+    Mockito.when(mockRoundEnvironment.getElementsAnnotatedWith(EnableMultiDataSourceConfig.class))
+        .then(invocation -> Set.of(mockAnnotatedElement));
+    final EnableMultiDataSourceConfig mockAnnotation = Mockito
+        .mock(EnableMultiDataSourceConfig.class);
+    Mockito.when(mockAnnotation.generatedConfigPackage()).thenReturn(MOCK_TEST_PACKAGE);
+    final String[] mockPackages = {MOCK_TEST_PACKAGE};
+    Mockito.when(mockAnnotation.repositoryPackages()).thenReturn(mockPackages);
+    Mockito.when(mockAnnotation.datasourcePropertiesPrefix())
+        .thenReturn(MOCK_DATASOURCE_PROPERTIES_PREFIX);
+    Mockito.when(mockAnnotatedElement.getAnnotation(EnableMultiDataSourceConfig.class))
+        .thenReturn(mockAnnotation);
+    final DataSourceConfig mockDataSourceConfig = Mockito.mock(DataSourceConfig.class);
+    Mockito.when(mockDataSourceConfig.dataSourceName()).thenReturn(MOCK_MASTER_DATA_SOURCE_NAME);
+    Mockito.when(mockDataSourceConfig.exactEntityPackages()).thenReturn(mockPackages);
+    final PerformanceProfile mockPerformanceProfile = this.createMockPerformanceProfile(
+        PerformanceProfile.UNSET
+    );
+    Mockito.when(mockDataSourceConfig.performanceProfile()).thenReturn(mockPerformanceProfile);
+    Mockito.when(mockDataSourceConfig.queryTimeoutMillis()).thenReturn(1000);
+    Mockito.when(mockDataSourceConfig.lockTimeoutMillis()).thenReturn(500);
+    Mockito.when(mockAnnotation.primaryDataSourceConfig()).thenReturn(mockDataSourceConfig);
+    Mockito.when(mockAnnotation.secondaryDataSourceConfigs()).thenReturn(new DataSourceConfig[]{});
+    final ConnectionBudget mockConnectionBudget = this
+        .createMockConnectionBudget(ConnectionBudget.UNLIMITED);
+    Mockito.when(mockAnnotation.connectionBudget()).thenReturn(mockConnectionBudget);
+
+    // Act and Assert IllegalArgumentException thrown
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> processor.process(annotations, mockRoundEnvironment)
+    );
+  }
+
+  @Test
+  void processOneAnnotatedElementInvalidStreamFetchSize() {
+    // Arrange
+    processor.init(mockProcessingEnvironment);
+    final Set<? extends TypeElement> annotations = Set.of(Mockito.mock(TypeElement.class));
+    final RoundEnvironment mockRoundEnvironment = Mockito.mock(RoundEnvironment.class);
+    final TypeElement mockAnnotatedElement = Mockito.mock(TypeElement.class);
+    Mockito.when(mockRoundEnvironment.getElementsAnnotatedWith(EnableMultiDataSourceConfig.class))
+        .then(invocation -> Set.of(mockAnnotatedElement));
+    final EnableMultiDataSourceConfig mockAnnotation = Mockito
+        .mock(EnableMultiDataSourceConfig.class);
+    Mockito.when(mockAnnotation.generatedConfigPackage()).thenReturn(MOCK_TEST_PACKAGE);
+    final String[] mockPackages = {MOCK_TEST_PACKAGE};
+    Mockito.when(mockAnnotation.repositoryPackages()).thenReturn(mockPackages);
+    Mockito.when(mockAnnotation.datasourcePropertiesPrefix())
+        .thenReturn(MOCK_DATASOURCE_PROPERTIES_PREFIX);
+    Mockito.when(mockAnnotatedElement.getAnnotation(EnableMultiDataSourceConfig.class))
+        .thenReturn(mockAnnotation);
+    final DataSourceConfig mockDataSourceConfig = Mockito.mock(DataSourceConfig.class);
+    Mockito.when(mockDataSourceConfig.dataSourceName()).thenReturn(MOCK_MASTER_DATA_SOURCE_NAME);
+    Mockito.when(mockDataSourceConfig.exactEntityPackages()).thenReturn(mockPackages);
+    final PerformanceProfile mockPerformanceProfile = this.createMockPerformanceProfile(
+        PerformanceProfile.UNSET
+    );
+    Mockito.when(mockDataSourceConfig.performanceProfile()).thenReturn(mockPerformanceProfile);
+    Mockito.when(mockDataSourceConfig.queryTimeoutMillis()).thenReturn(PerformanceProfile.UNSET);
+    Mockito.when(mockDataSourceConfig.lockTimeoutMillis()).thenReturn(PerformanceProfile.UNSET);
+    Mockito.when(mockDataSourceConfig.streamFetchSize()).thenReturn(-2);
+    Mockito.when(mockAnnotation.primaryDataSourceConfig()).thenReturn(mockDataSourceConfig);
+    Mockito.when(mockAnnotation.secondaryDataSourceConfigs()).thenReturn(new DataSourceConfig[]{});
+    final ConnectionBudget mockConnectionBudget = this
+        .createMockConnectionBudget(ConnectionBudget.UNLIMITED);
+    Mockito.when(mockAnnotation.connectionBudget()).thenReturn(mockConnectionBudget);
+
+    // Act and Assert IllegalArgumentException thrown
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> processor.process(annotations, mockRoundEnvironment)
+    );
+  }
+
+  @Test
+  void processOneAnnotatedElementInvalidAsyncExecutorQueueCapacity() {
+    // Arrange
+    processor.init(mockProcessingEnvironment);
+    final Set<? extends TypeElement> annotations = Set.of(Mockito.mock(TypeElement.class));
+    final RoundEnvironment mockRoundEnvironment = Mockito.mock(RoundEnvironment.class);
+    final TypeElement mockAnnotatedElement = Mockito.mock(TypeElement.class);
+    Mockito.when(mockRoundEnvironment.getElementsAnnotatedWith(EnableMultiDataSourceConfig.class))
+        .then(invocation -> Set.of(mockAnnotatedElement));
+    final EnableMultiDataSourceConfig mockAnnotation = Mockito
+        .mock(EnableMultiDataSourceConfig.class);
+    Mockito.when(mockAnnotation.generatedConfigPackage()).thenReturn(MOCK_TEST_PACKAGE);
+    final String[] mockPackages = {MOCK_TEST_PACKAGE};
+    Mockito.when(mockAnnotation.repositoryPackages()).thenReturn(mockPackages);
+    Mockito.when(mockAnnotation.datasourcePropertiesPrefix())
+        .thenReturn(MOCK_DATASOURCE_PROPERTIES_PREFIX);
+    Mockito.when(mockAnnotatedElement.getAnnotation(EnableMultiDataSourceConfig.class))
+        .thenReturn(mockAnnotation);
+    final DataSourceConfig mockDataSourceConfig = Mockito.mock(DataSourceConfig.class);
+    Mockito.when(mockDataSourceConfig.dataSourceName()).thenReturn(MOCK_MASTER_DATA_SOURCE_NAME);
+    Mockito.when(mockDataSourceConfig.exactEntityPackages()).thenReturn(mockPackages);
+    final PerformanceProfile mockPerformanceProfile = this.createMockPerformanceProfile(
+        PerformanceProfile.UNSET
+    );
+    Mockito.when(mockDataSourceConfig.performanceProfile()).thenReturn(mockPerformanceProfile);
+    Mockito.when(mockDataSourceConfig.queryTimeoutMillis()).thenReturn(PerformanceProfile.UNSET);
+    Mockito.when(mockDataSourceConfig.lockTimeoutMillis()).thenReturn(PerformanceProfile.UNSET);
+    final AsyncExecutor mockAsyncExecutor = Mockito.mock(AsyncExecutor.class);
+    Mockito.when(mockAsyncExecutor.enabled()).thenReturn(true);
+    Mockito.when(mockAsyncExecutor.queueCapacity()).thenReturn(-1);
+    Mockito.when(mockDataSourceConfig.asyncExecutor()).thenReturn(mockAsyncExecutor);
+    Mockito.when(mockAnnotation.primaryDataSourceConfig()).thenReturn(mockDataSourceConfig);
+    Mockito.when(mockAnnotation.secondaryDataSourceConfigs()).thenReturn(new DataSourceConfig[]{});
+    final ConnectionBudget mockConnectionBudget = this
+        .createMockConnectionBudget(ConnectionBudget.UNLIMITED);
+    Mockito.when(mockAnnotation.connectionBudget()).thenReturn(mockConnectionBudget);
+
+    // Act and Assert IllegalArgumentException thrown
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> processor.process(annotations, mockRoundEnvironment)
+    );
+  }
+
+  @Test
+  void processOneAnnotatedElementPrimaryConcurrencyLimitDivertingToPrimary() {
+    // Arrange
+    processor.init(mockProcessingEnvironment);
+    final Set<? extends TypeElement> annotations = Set.of(Mockito.mock(TypeElement.class));
+    final RoundEnvironment mockRoundEnvironment = Mockito.mock(RoundEnvironment.class);
+    final TypeElement mockAnnotatedElement = Mockito.mock(TypeElement.class);
+    Mockito.when(mockRoundEnvironment.getElementsAnnotatedWith(EnableMultiDataSourceConfig.class))
+        .then(invocation -> Set.of(mockAnnotatedElement));
+    final EnableMultiDataSourceConfig mockAnnotation = Mockito
+        .mock(EnableMultiDataSourceConfig.class);
+    Mockito.when(mockAnnotation.generatedConfigPackage()).thenReturn(MOCK_TEST_PACKAGE);
+    final String[] mockPackages = {MOCK_TEST_PACKAGE};
+    Mockito.when(mockAnnotation.repositoryPackages()).thenReturn(mockPackages);
+    Mockito.when(mockAnnotation.datasourcePropertiesPrefix())
+        .thenReturn(MOCK_DATASOURCE_PROPERTIES_PREFIX);
+    Mockito.when(mockAnnotatedElement.getAnnotation(EnableMultiDataSourceConfig.class))
+        .thenReturn(mockAnnotation);
+    final DataSourceConfig mockDataSourceConfig = Mockito.mock(DataSourceConfig.class);
+    Mockito.when(mockDataSourceConfig.dataSourceName()).thenReturn(MOCK_MASTER_DATA_SOURCE_NAME);
+    Mockito.when(mockDataSourceConfig.exactEntityPackages()).thenReturn(mockPackages);
+    final PerformanceProfile mockPerformanceProfile = this.createMockPerformanceProfile(
+        PerformanceProfile.UNSET
+    );
+    Mockito.when(mockDataSourceConfig.performanceProfile()).thenReturn(mockPerformanceProfile);
+    Mockito.when(mockDataSourceConfig.queryTimeoutMillis()).thenReturn(PerformanceProfile.UNSET);
+    Mockito.when(mockDataSourceConfig.lockTimeoutMillis()).thenReturn(PerformanceProfile.UNSET);
+    final ConcurrencyLimit mockConcurrencyLimit = Mockito.mock(ConcurrencyLimit.class);
+    Mockito.when(mockConcurrencyLimit.enabled()).thenReturn(true);
+    Mockito.when(mockConcurrencyLimit.minLimit()).thenReturn(1);
+    Mockito.when(mockConcurrencyLimit.maxLimit()).thenReturn(PerformanceProfile.UNSET);
+    Mockito.when(mockConcurrencyLimit.latencyThresholdMillis()).thenReturn(1000);
+    Mockito.when(mockConcurrencyLimit.backoffPercent()).thenReturn(90);
+    Mockito.when(mockConcurrencyLimit.overloadAction())
+        .thenReturn(OverloadAction.DIVERT_TO_PRIMARY);
+    Mockito.when(mockDataSourceConfig.concurrencyLimit()).thenReturn(mockConcurrencyLimit);
+    Mockito.when(mockAnnotation.primaryDataSourceConfig()).thenReturn(mockDataSourceConfig);
+    Mockito.when(mockAnnotation.secondaryDataSourceConfigs()).thenReturn(new DataSourceConfig[]{});
+    final ConnectionBudget mockConnectionBudget = this
+        .createMockConnectionBudget(ConnectionBudget.UNLIMITED);
+    Mockito.when(mockAnnotation.connectionBudget()).thenReturn(mockConnectionBudget);
+
+    // Act and Assert IllegalArgumentException thrown as the primary can not divert to itself
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> processor.process(annotations, mockRoundEnvironment)
+    );
+  }
+
+  @Test
+  void processOneAnnotatedElementUnknownCircuitBreakerFailoverDataSource() {
+    // Arrange
+    processor.init(mockProcessingEnvironment);
+    final Set<? extends TypeElement> annotations = Set.of(Mockito.mock(TypeElement.class));
+    final RoundEnvironment mockRoundEnvironment = Mockito.mock(RoundEnvironment.class);
+    final TypeElement mockAnnotatedElement = Mockito.mock(TypeElement.class);
+    Mockito.when(mockRoundEnvironment.getElementsAnnotatedWith(EnableMultiDataSourceConfig.class))
+        .then(invocation -> Set.of(mockAnnotatedElement));
+    final EnableMultiDataSourceConfig mockAnnotation = Mockito
+        .mock(EnableMultiDataSourceConfig.class);
+    Mockito.when(mockAnnotation.generatedConfigPackage()).thenReturn(MOCK_TEST_PACKAGE);
+    final String[] mockPackages = {MOCK_TEST_PACKAGE};
+    Mockito.when(mockAnnotation.repositoryPackages()).thenReturn(mockPackages);
+    Mockito.when(mockAnnotation.datasourcePropertiesPrefix())
+        .thenReturn(MOCK_DATASOURCE_PROPERTIES_PREFIX);
+    Mockito.when(mockAnnotatedElement.getAnnotation(EnableMultiDataSourceConfig.class))
+        .thenReturn(mockAnnotation);
+    final DataSourceConfig mockDataSourceConfig = Mockito.mock(DataSourceConfig.class);
+    Mockito.when(mockDataSourceConfig.dataSourceName()).thenReturn(MOCK_MASTER_DATA_SOURCE_NAME);
+    Mockito.when(mockDataSourceConfig.exactEntityPackages()).thenReturn(mockPackages);
+    final PerformanceProfile mockPerformanceProfile = this.createMockPerformanceProfile(
+        PerformanceProfile.UNSET
+    );
+    Mockito.when(mockDataSourceConfig.performanceProfile()).thenReturn(mockPerformanceProfile);
+    Mockito.when(mockDataSourceConfig.queryTimeoutMillis()).thenReturn(PerformanceProfile.UNSET);
+    Mockito.when(mockDataSourceConfig.lockTimeoutMillis()).thenReturn(PerformanceProfile.UNSET);
+    final CircuitBreaker mockCircuitBreaker = Mockito.mock(CircuitBreaker.class);
+    Mockito.when(mockCircuitBreaker.enabled()).thenReturn(true);
+    Mockito.when(mockCircuitBreaker.failureThreshold()).thenReturn(5);
+    Mockito.when(mockCircuitBreaker.openDurationMillis()).thenReturn(10000);
+    Mockito.when(mockCircuitBreaker.halfOpenProbes()).thenReturn(1);
+    Mockito.when(mockCircuitBreaker.failoverDataSourceName()).thenReturn("unknown");
+    Mockito.when(mockDataSourceConfig.circuitBreaker()).thenReturn(mockCircuitBreaker);
+    Mockito.when(mockAnnotation.primaryDataSourceConfig()).thenReturn(mockDataSourceConfig);
+    Mockito.when(mockAnnotation.secondaryDataSourceConfigs()).thenReturn(new DataSourceConfig[]{});
+    final ConnectionBudget mockConnectionBudget = this
+        .createMockConnectionBudget(ConnectionBudget.UNLIMITED);
+    Mockito.when(mockAnnotation.connectionBudget()).thenReturn(mockConnectionBudget);
+
+    // Act and Assert IllegalArgumentException thrown as the failover data source is unknown
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> processor.process(annotations, mockRoundEnvironment)
+    );
+  }
+
+  @Test
+  void processOneAnnotatedElementPrimaryReadYourWrites() {
+    // Arrange
+    processor.init(mockProcessingEnvironment);
+    final Set<? extends TypeElement> annotations = Set.of(Mockito.mock(TypeElement.class));
+    final RoundEnvironment mockRoundEnvironment = Mockito.mock(RoundEnvironment.class);
+    final TypeElement mockAnnotatedElement = Mockito.mock(TypeElement.class);
+    Mockito.when(mockRoundEnvironment.getElementsAnnotatedWith(EnableMultiDataSourceConfig.class))
+        .then(invocation -> Set.of(mockAnnotatedElement));
+    final EnableMultiDataSourceConfig mockAnnotation = Mockito
+        .mock(EnableMultiDataSourceConfig.class);
+    Mockito.when(mockAnnotation.generatedConfigPackage()).thenReturn(MOCK_TEST_PACKAGE);
+    final String[] mockPackages = {MOCK_TEST_PACKAGE};
+    Mockito.when(mockAnnotation.repositoryPackages()).thenReturn(mockPackages);
+    Mockito.when(mockAnnotation.datasourcePropertiesPrefix())
+        .thenReturn(MOCK_DATASOURCE_PROPERTIES_PREFIX);
+    Mockito.when(mockAnnotatedElement.getAnnotation(EnableMultiDataSourceConfig.class))
+        .thenReturn(mockAnnotation);
+    final DataSourceConfig mockDataSourceConfig = Mockito.mock(DataSourceConfig.class);
+    Mockito.when(mockDataSourceConfig.dataSourceName()).thenReturn(MOCK_MASTER_DATA_SOURCE_NAME);
+    Mockito.when(mockDataSourceConfig.exactEntityPackages()).thenReturn(mockPackages);
+    final PerformanceProfile mockPerformanceProfile = this.createMockPerformanceProfile(
+        PerformanceProfile.UNSET
+    );
+    Mockito.when(mockDataSourceConfig.performanceProfile()).thenReturn(mockPerformanceProfile);
+    Mockito.when(mockDataSourceConfig.queryTimeoutMillis()).thenReturn(PerformanceProfile.UNSET);
+    Mockito.when(mockDataSourceConfig.lockTimeoutMillis()).thenReturn(PerformanceProfile.UNSET);
+    final ReadYourWrites mockReadYourWrites = Mockito.mock(ReadYourWrites.class);
+    Mockito.when(mockReadYourWrites.enabled()).thenReturn(true);
+    Mockito.when(mockReadYourWrites.windowMillis()).thenReturn(1000);
+    Mockito.when(mockDataSourceConfig.readYourWrites()).thenReturn(mockReadYourWrites);
+    Mockito.when(mockAnnotation.primaryDataSourceConfig()).thenReturn(mockDataSourceConfig);
+    Mockito.when(mockAnnotation.secondaryDataSourceConfigs()).thenReturn(new DataSourceConfig[]{});
+    final ConnectionBudget mockConnectionBudget = this
+        .createMockConnectionBudget(ConnectionBudget.UNLIMITED);
+    Mockito.when(mockAnnotation.connectionBudget()).thenReturn(mockConnectionBudget);
+
+    // Act and Assert IllegalArgumentException thrown as the primary data source can not stick to
+    // itself
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> processor.process(annotations, mockRoundEnvironment)
+    );
+  }
+
+  @Test
+  void processOneAnnotatedElementPrimaryJdbcOnly() {
+    // Arrange
+    processor.init(mockProcessingEnvironment);
+    final Set<? extends TypeElement> annotations = Set.of(Mockito.mock(TypeElement.class));
+    final RoundEnvironment mockRoundEnvironment = Mockito.mock(RoundEnvironment.class);
+    final TypeElement mockAnnotatedElement = Mockito.mock(TypeElement.class);
+    Mockito.when(mockRoundEnvironment.getElementsAnnotatedWith(EnableMultiDataSourceConfig.class))
+        .then(invocation -> Set.of(mockAnnotatedElement));
+    final EnableMultiDataSourceConfig mockAnnotation = Mockito
+        .mock(EnableMultiDataSourceConfig.class);
+    Mockito.when(mockAnnotation.generatedConfigPackage()).thenReturn(MOCK_TEST_PACKAGE);
+    final String[] mockPackages = {MOCK_TEST_PACKAGE};
+    Mockito.when(mockAnnotation.repositoryPackages()).thenReturn(mockPackages);
+    Mockito.when(mockAnnotation.datasourcePropertiesPrefix())
+        .thenReturn(MOCK_DATASOURCE_PROPERTIES_PREFIX);
+    Mockito.when(mockAnnotatedElement.getAnnotation(EnableMultiDataSourceConfig.class))
+        .thenReturn(mockAnnotation);
+    final DataSourceConfig mockDataSourceConfig = Mockito.mock(DataSourceConfig.class);
+    Mockito.when(mockDataSourceConfig.dataSourceName()).thenReturn(MOCK_MASTER_DATA_SOURCE_NAME);
+    Mockito.when(mockDataSourceConfig.exactEntityPackages()).thenReturn(mockPackages);
+    final PerformanceProfile mockPerformanceProfile = this.createMockPerformanceProfile(
+        PerformanceProfile.UNSET
+    );
+    Mockito.when(mockDataSourceConfig.performanceProfile()).thenReturn(mockPerformanceProfile);
+    Mockito.when(mockDataSourceConfig.queryTimeoutMillis()).thenReturn(PerformanceProfile.UNSET);
+    Mockito.when(mockDataSourceConfig.lockTimeoutMillis()).thenReturn(PerformanceProfile.UNSET);
+    final ReadYourWrites mockReadYourWrites = Mockito.mock(ReadYourWrites.class);
+    Mockito.when(mockDataSourceConfig.readYourWrites()).thenReturn(mockReadYourWrites);
+    Mockito.when(mockDataSourceConfig.streamFetchSize()).thenReturn(PerformanceProfile.UNSET);
+    Mockito.when(mockDataSourceConfig.jdbcOnly()).thenReturn(true);
+    Mockito.when(mockAnnotation.primaryDataSourceConfig()).thenReturn(mockDataSourceConfig);
+    Mockito.when(mockAnnotation.secondaryDataSourceConfigs()).thenReturn(new DataSourceConfig[]{});
+    final ConnectionBudget mockConnectionBudget = this
+        .createMockConnectionBudget(ConnectionBudget.UNLIMITED);
+    Mockito.when(mockAnnotation.connectionBudget()).thenReturn(mockConnectionBudget);
+
+    // Act and Assert IllegalArgumentException thrown as the primary data source needs its entity
+    // manager factory
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> processor.process(annotations, mockRoundEnvironment)
+    );
+    Mockito.verify(mockMessager).printMessage(
+        ArgumentMatchers.eq(Kind.ERROR),
+        ArgumentMatchers.contains("can not be JDBC only")
+    );
+  }
+
+  @Test
+  void processOneAnnotatedElementInvalidConnectionBudgetWeight() {
+    // Arrange
+    processor.init(mockProcessingEnvironment);
+    final Set<? extends TypeElement> annotations = Set.of(Mockito.mock(TypeElement.class));
+    final RoundEnvironment mockRoundEnvironment = Mockito.mock(RoundEnvironment.class);
+    final TypeElement mockAnnotatedElement = Mockito.mock(TypeElement.class);
+    Mockito.when(mockRoundEnvironment.getElementsAnnotatedWith(EnableMultiDataSourceConfig.class))
+        .then(invocation -> Set.of(mockAnnotatedElement));
+    final EnableMultiDataSourceConfig mockAnnotation = Mockito
+        .mock(EnableMultiDataSourceConfig.class);
+    Mockito.when(mockAnnotation.generatedConfigPackage()).thenReturn(MOCK_TEST_PACKAGE);
+    Mockito.when(mockAnnotatedElement.getAnnotation(EnableMultiDataSourceConfig.class))
+        .thenReturn(mockAnnotation);
+    final DataSourceConfig mockDataSourceConfig = Mockito.mock(DataSourceConfig.class);
+    Mockito.when(mockDataSourceConfig.dataSourceName()).thenReturn(MOCK_MASTER_DATA_SOURCE_NAME);
+    Mockito.when(mockDataSourceConfig.connectionBudgetWeight()).thenReturn(0);
+    Mockito.when(mockAnnotation.primaryDataSourceConfig()).thenReturn(mockDataSourceConfig);
+    Mockito.when(mockAnnotation.secondaryDataSourceConfigs()).thenReturn(new DataSourceConfig[]{});
+    final ConnectionBudget mockConnectionBudget = this.createMockConnectionBudget(10);
+    Mockito.when(mockAnnotation.connectionBudget()).thenReturn(mockConnectionBudget);
+
+    // Act and Assert IllegalArgumentException thrown
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> processor.process(annotations, mockRoundEnvironment)
+    );
+  }
+
+  @Test
+  void processOneAnnotatedElementConnectionBudgetTooSmall() {
+    // Arrange
+    processor.init(mockProcessingEnvironment);
+    final Set<? extends TypeElement> annotations = Set.of(Mockito.mock(TypeElement.class));
+    final RoundEnvironment mockRoundEnvironment = Mockito.mock(RoundEnvironment.class);
+    final TypeElement mockAnnotatedElement = Mockito.mock(TypeElement.class);
+    Mockito.when(mockRoundEnvironment.getElementsAnnotatedWith(EnableMultiDataSourceConfig.class))
+        .then(invocation -> Set.of(mockAnnotatedElement));
+    final EnableMultiDataSourceConfig mockAnnotation = Mockito
+        .mock(EnableMultiDataSourceConfig.class);
+    Mockito.when(mockAnnotation.generatedConfigPackage()).thenReturn(MOCK_TEST_PACKAGE);
+    Mockito.when(mockAnnotatedElement.getAnnotation(EnableMultiDataSourceConfig.class))
+        .thenReturn(mockAnnotation);
+    final DataSourceConfig mockDataSourceConfig = Mockito.mock(DataSourceConfig.class);
+    Mockito.when(mockDataSourceConfig.dataSourceName()).thenReturn(MOCK_MASTER_DATA_SOURCE_NAME);
+    Mockito.when(mockDataSourceConfig.connectionBudgetWeight()).thenReturn(1);
+    Mockito.when(mockAnnotation.primaryDataSourceConfig()).thenReturn(mockDataSourceConfig);
+    Mockito.when(mockAnnotation.secondaryDataSourceConfigs()).thenReturn(new DataSourceConfig[]{});
+    final ConnectionBudget mockConnectionBudget = this.createMockConnectionBudget(1);
+    Mockito.when(mockAnnotation.connectionBudget()).thenReturn(mockConnectionBudget);
+    Mockito.when(mockGeneratorUtils.partitionConnectionBudget(1, Map.of(
+        MOCK_MASTER_DATA_SOURCE_NAME, 1
+    ))).thenReturn(Map.of(MOCK_MASTER_DATA_SOURCE_NAME, 0));
+
+    // Act and Assert IllegalArgumentException thrown
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> processor.process(annotations, mockRoundEnvironment)
+    );
+  }
+
   @Test
   void processOneAnnotatedElementMoreThanOneDataSourceSameDatasource() {
     // Arrange
@@ -307,4 +782,21 @@ class MultiDataSourceConfigAnnotationProcessorTest {
     // Assert
     Assertions.assertEquals(expectedSourceVersion, actualSourceVersion);
   }
-}
\ No newline at end of file
+
+  private ConnectionBudget createMockConnectionBudget(int maxConnections) {
+    final ConnectionBudget mockConnectionBudget = Mockito.mock(ConnectionBudget.class);
+    Mockito.when(mockConnectionBudget.maxConnections()).thenReturn(maxConnections);
+    return mockConnectionBudget;
+  }
+
+  private PerformanceProfile createMockPerformanceProfile(int jdbcBatchSize) {
+    final PerformanceProfile mockPerformanceProfile = Mockito.mock(PerformanceProfile.class);
+    Mockito.when(mockPerformanceProfile.jdbcBatchSize()).thenReturn(jdbcBatchSize);
+    Mockito.when(mockPerformanceProfile.jdbcFetchSize()).thenReturn(PerformanceProfile.UNSET);
+    Mockito.when(mockPerformanceProfile.defaultBatchFetchSize())
+        .thenReturn(PerformanceProfile.UNSET);
+    Mockito.when(mockPerformanceProfile.queryPlanCacheMaxSize())
+        .thenReturn(PerformanceProfile.UNSET);
+    return mockPerformanceProfile;
+  }
+}
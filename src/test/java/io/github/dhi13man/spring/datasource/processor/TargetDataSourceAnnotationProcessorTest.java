@@ -1,5 +1,15 @@
 package io.github.dhi13man.spring.datasource.processor;
 
+import io.github.dhi13man.spring.datasource.annotations.BatchedFindById;
+import io.github.dhi13man.spring.datasource.annotations.CachedRead;
+import io.github.dhi13man.spring.datasource.annotations.CoalescedRead;
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig;
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.DataSourceConfig;
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.RoutingMode;
+import io.github.dhi13man.spring.datasource.annotations.HedgedRead;
+import io.github.dhi13man.spring.datasource.annotations.KeysetPaged;
+import io.github.dhi13man.spring.datasource.annotations.ScatterGather;
+import io.github.dhi13man.spring.datasource.annotations.ShardKey;
 import io.github.dhi13man.spring.datasource.annotations.TargetSecondaryDataSource;
 import io.github.dhi13man.spring.datasource.annotations.TargetSecondaryDataSources;
 import io.github.dhi13man.spring.datasource.generators.MultiDataSourceConfigGenerator;
@@ -7,15 +17,24 @@ import io.github.dhi13man.spring.datasource.generators.MultiDataSourceRepository
 import io.github.dhi13man.spring.datasource.utils.MultiDataSourceCommonStringUtils;
 import io.github.dhi13man.spring.datasource.utils.MultiDataSourceGeneratorUtils;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.BaseStream;
 import javax.annotation.processing.Filer;
 import javax.annotation.processing.Messager;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.RoundEnvironment;
 import javax.lang.model.SourceVersion;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Name;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
+import javax.tools.Diagnostic.Kind;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -83,13 +102,294 @@ class TargetDataSourceAnnotationProcessorTest {
     Assertions.assertFalse(isClaimed);
   }
 
+  @Test
+  void processRuntimeRoutingNoRepositoriesGenerated() {
+    // Arrange
+    processor.init(mockProcessingEnvironment);
+    final RoundEnvironment mockRoundEnvironment = this
+        .createRuntimeRoutingRoundEnvironment("replica");
+
+    // Act
+    final boolean isClaimed = processor.process(new HashSet<>(), mockRoundEnvironment);
+
+    // Assert
+    Assertions.assertFalse(isClaimed);
+    Mockito.verifyNoInteractions(mockRepositoryGenerator);
+  }
+
+  @Test
+  void processRuntimeRoutingUnknownDataSource() {
+    // Arrange
+    processor.init(mockProcessingEnvironment);
+    final RoundEnvironment mockRoundEnvironment = this
+        .createRuntimeRoutingRoundEnvironment("unknown");
+
+    // Act and Assert IllegalArgumentException thrown
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> processor.process(new HashSet<>(), mockRoundEnvironment)
+    );
+    Mockito.verifyNoInteractions(mockRepositoryGenerator);
+  }
+
+  @Test
+  void processHedgedReadSingleDataSource() {
+    // Arrange
+    processor.init(mockProcessingEnvironment);
+    final RoundEnvironment mockRoundEnvironment = this
+        .createRuntimeRoutingRoundEnvironment("replica");
+    final ExecutableElement mockHedgedMethodElement = Mockito.mock(ExecutableElement.class);
+    final TargetSecondaryDataSource mockTargetAnnotation = Mockito
+        .mock(TargetSecondaryDataSource.class);
+    Mockito.when(mockTargetAnnotation.value()).thenReturn("replica");
+    Mockito.when(mockHedgedMethodElement.getAnnotationsByType(TargetSecondaryDataSource.class))
+        .thenReturn(new TargetSecondaryDataSource[]{mockTargetAnnotation});
+    Mockito.when(mockHedgedMethodElement.getAnnotation(HedgedRead.class))
+        .thenReturn(Mockito.mock(HedgedRead.class));
+    Mockito.when(mockHedgedMethodElement.getEnclosingElement())
+        .then(invocation -> Mockito.mock(TypeElement.class));
+    Mockito.when(mockRoundEnvironment.getElementsAnnotatedWith(HedgedRead.class))
+        .then(invocation -> Set.of(mockHedgedMethodElement));
+
+    // Act and Assert IllegalArgumentException thrown, as there is nothing to hedge across
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> processor.process(new HashSet<>(), mockRoundEnvironment)
+    );
+    Mockito.verifyNoInteractions(mockRepositoryGenerator);
+  }
+
+  @Test
+  void processHedgedReadStream() {
+    // Arrange
+    processor.init(mockProcessingEnvironment);
+    final RoundEnvironment mockRoundEnvironment = this
+        .createRuntimeRoutingRoundEnvironment("replica");
+    final ExecutableElement mockHedgedMethodElement = Mockito.mock(ExecutableElement.class);
+    final TargetSecondaryDataSource mockReplicaAnnotation = Mockito
+        .mock(TargetSecondaryDataSource.class);
+    Mockito.when(mockReplicaAnnotation.value()).thenReturn("replica");
+    final TargetSecondaryDataSource mockReportingAnnotation = Mockito
+        .mock(TargetSecondaryDataSource.class);
+    Mockito.when(mockReportingAnnotation.value()).thenReturn("reporting");
+    Mockito.when(mockHedgedMethodElement.getAnnotationsByType(TargetSecondaryDataSource.class))
+        .thenReturn(
+            new TargetSecondaryDataSource[]{mockReplicaAnnotation, mockReportingAnnotation}
+        );
+    Mockito.when(mockHedgedMethodElement.getAnnotation(HedgedRead.class))
+        .thenReturn(Mockito.mock(HedgedRead.class));
+    Mockito.when(mockHedgedMethodElement.getEnclosingElement())
+        .then(invocation -> Mockito.mock(TypeElement.class));
+    this.mockStreamReturnType(mockHedgedMethodElement);
+    Mockito.when(mockRoundEnvironment.getElementsAnnotatedWith(HedgedRead.class))
+        .then(invocation -> Set.of(mockHedgedMethodElement));
+
+    // Act and Assert IllegalArgumentException thrown, as the stream can not outlive its call
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> processor.process(new HashSet<>(), mockRoundEnvironment)
+    );
+    Mockito.verify(mockMessager).printMessage(
+        Mockito.eq(Kind.ERROR),
+        Mockito.contains("Only methods returning a reusable result synchronously can be hedged")
+    );
+    Mockito.verifyNoInteractions(mockRepositoryGenerator);
+  }
+
+  @Test
+  void processCoalescedReadStream() {
+    // Arrange
+    processor.init(mockProcessingEnvironment);
+    final RoundEnvironment mockRoundEnvironment = this
+        .createRuntimeRoutingRoundEnvironment("replica");
+    final ExecutableElement mockCoalescedMethodElement = Mockito.mock(ExecutableElement.class);
+    Mockito.when(mockCoalescedMethodElement.getEnclosingElement())
+        .then(invocation -> Mockito.mock(TypeElement.class));
+    this.mockStreamReturnType(mockCoalescedMethodElement);
+    Mockito.when(mockRoundEnvironment.getElementsAnnotatedWith(CoalescedRead.class))
+        .then(invocation -> Set.of(mockCoalescedMethodElement));
+
+    // Act and Assert IllegalArgumentException thrown, as a stream can not be shared
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> processor.process(new HashSet<>(), mockRoundEnvironment)
+    );
+    Mockito.verify(mockMessager).printMessage(
+        Mockito.eq(Kind.ERROR),
+        Mockito.contains("Only methods returning a reusable result synchronously can be coalesced")
+    );
+    Mockito.verifyNoInteractions(mockRepositoryGenerator);
+  }
+
+  @Test
+  void processCachedReadStream() {
+    // Arrange
+    processor.init(mockProcessingEnvironment);
+    final RoundEnvironment mockRoundEnvironment = this
+        .createRuntimeRoutingRoundEnvironment("replica");
+    final ExecutableElement mockCachedMethodElement = Mockito.mock(ExecutableElement.class);
+    Mockito.when(mockCachedMethodElement.getAnnotation(CachedRead.class))
+        .thenReturn(Mockito.mock(CachedRead.class));
+    Mockito.when(mockCachedMethodElement.getEnclosingElement())
+        .then(invocation -> Mockito.mock(TypeElement.class));
+    this.mockStreamReturnType(mockCachedMethodElement);
+    Mockito.when(mockRoundEnvironment.getElementsAnnotatedWith(CachedRead.class))
+        .then(invocation -> Set.of(mockCachedMethodElement));
+
+    // Act and Assert IllegalArgumentException thrown, as a consumed stream can not be reused
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> processor.process(new HashSet<>(), mockRoundEnvironment)
+    );
+    Mockito.verify(mockMessager).printMessage(
+        Mockito.eq(Kind.ERROR),
+        Mockito.contains("Only methods returning a reusable result synchronously can be cached")
+    );
+    Mockito.verifyNoInteractions(mockRepositoryGenerator);
+  }
+
+  @Test
+  void processShardKeyUnknownShardSet() {
+    // Arrange
+    processor.init(mockProcessingEnvironment);
+    final RoundEnvironment mockRoundEnvironment = this
+        .createRuntimeRoutingRoundEnvironment("replica");
+    final VariableElement mockShardKeyElement = Mockito.mock(VariableElement.class);
+    final ShardKey mockShardKey = Mockito.mock(ShardKey.class);
+    Mockito.when(mockShardKey.value()).thenReturn("unknown");
+    Mockito.when(mockShardKeyElement.getAnnotation(ShardKey.class)).thenReturn(mockShardKey);
+    final ExecutableElement mockShardedMethodElement = Mockito.mock(ExecutableElement.class);
+    Mockito.doReturn(List.of(mockShardKeyElement)).when(mockShardedMethodElement).getParameters();
+    Mockito.when(mockShardedMethodElement.getEnclosingElement())
+        .then(invocation -> Mockito.mock(TypeElement.class));
+    Mockito.when(mockShardKeyElement.getEnclosingElement())
+        .then(invocation -> mockShardedMethodElement);
+    Mockito.when(mockRoundEnvironment.getElementsAnnotatedWith(ShardKey.class))
+        .then(invocation -> Set.of(mockShardKeyElement));
+
+    // Act and Assert IllegalArgumentException thrown, as no data source is a shard of the set
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> processor.process(new HashSet<>(), mockRoundEnvironment)
+    );
+    Mockito.verifyNoInteractions(mockRepositoryGenerator);
+  }
+
+  @Test
+  void processShardKeyUnstableType() {
+    // Arrange
+    processor.init(mockProcessingEnvironment);
+    final RoundEnvironment mockRoundEnvironment = this
+        .createRuntimeRoutingRoundEnvironment("replica");
+    final TypeElement mockConfigElement = Mockito.mock(TypeElement.class);
+    final EnableMultiDataSourceConfig mockConfigAnnotation = Mockito
+        .mock(EnableMultiDataSourceConfig.class);
+    final DataSourceConfig mockShardConfig = Mockito.mock(DataSourceConfig.class);
+    Mockito.when(mockShardConfig.dataSourceName()).thenReturn("orders-1");
+    Mockito.when(mockShardConfig.shardSet()).thenReturn("orders");
+    Mockito.when(mockConfigAnnotation.secondaryDataSourceConfigs())
+        .thenReturn(new DataSourceConfig[]{mockShardConfig});
+    Mockito.when(mockConfigAnnotation.routingMode()).thenReturn(RoutingMode.RUNTIME_ROUTING);
+    Mockito.when(mockConfigElement.getAnnotation(EnableMultiDataSourceConfig.class))
+        .thenReturn(mockConfigAnnotation);
+    Mockito.when(mockRoundEnvironment.getElementsAnnotatedWith(EnableMultiDataSourceConfig.class))
+        .then(invocation -> Set.of(mockConfigElement));
+    final VariableElement mockShardKeyElement = Mockito.mock(VariableElement.class);
+    final ShardKey mockShardKey = Mockito.mock(ShardKey.class);
+    Mockito.when(mockShardKey.value()).thenReturn("orders");
+    Mockito.when(mockShardKeyElement.getAnnotation(ShardKey.class)).thenReturn(mockShardKey);
+    // A class without a stable string form, eg. an entity
+    final DeclaredType mockEntityType = Mockito.mock(DeclaredType.class);
+    Mockito.when(mockEntityType.getKind()).thenReturn(TypeKind.DECLARED);
+    Mockito.when(mockShardKeyElement.asType()).thenReturn(mockEntityType);
+    final ExecutableElement mockShardedMethodElement = Mockito.mock(ExecutableElement.class);
+    Mockito.doReturn(List.of(mockShardKeyElement)).when(mockShardedMethodElement).getParameters();
+    Mockito.when(mockShardedMethodElement.getAnnotationsByType(TargetSecondaryDataSource.class))
+        .thenReturn(new TargetSecondaryDataSource[0]);
+    Mockito.when(mockShardedMethodElement.getEnclosingElement())
+        .then(invocation -> Mockito.mock(TypeElement.class));
+    Mockito.when(mockShardKeyElement.getEnclosingElement())
+        .then(invocation -> mockShardedMethodElement);
+    Mockito.when(mockRoundEnvironment.getElementsAnnotatedWith(ShardKey.class))
+        .then(invocation -> Set.of(mockShardKeyElement));
+
+    // Act and Assert IllegalArgumentException thrown, as the key may not hash the same every time
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> processor.process(new HashSet<>(), mockRoundEnvironment)
+    );
+    Mockito.verify(mockMessager).printMessage(
+        Mockito.eq(Kind.ERROR),
+        Mockito.contains("Please make the shard key a primitive")
+    );
+    Mockito.verifyNoInteractions(mockRepositoryGenerator);
+  }
+
+  @Test
+  void processScatterGatherSingleDataSource() {
+    // Arrange
+    processor.init(mockProcessingEnvironment);
+    final RoundEnvironment mockRoundEnvironment = this
+        .createRuntimeRoutingRoundEnvironment("replica");
+    final ExecutableElement mockScatteredMethodElement = Mockito.mock(ExecutableElement.class);
+    final TargetSecondaryDataSource mockTargetAnnotation = Mockito
+        .mock(TargetSecondaryDataSource.class);
+    Mockito.when(mockTargetAnnotation.value()).thenReturn("replica");
+    Mockito.when(mockScatteredMethodElement.getAnnotationsByType(TargetSecondaryDataSource.class))
+        .thenReturn(new TargetSecondaryDataSource[]{mockTargetAnnotation});
+    final ScatterGather mockScatterGather = Mockito.mock(ScatterGather.class);
+    Mockito.when(mockScatterGather.shardSet()).thenReturn("");
+    Mockito.when(mockScatteredMethodElement.getAnnotation(ScatterGather.class))
+        .thenReturn(mockScatterGather);
+    Mockito.when(mockScatteredMethodElement.getEnclosingElement())
+        .then(invocation -> Mockito.mock(TypeElement.class));
+    Mockito.when(mockRoundEnvironment.getElementsAnnotatedWith(ScatterGather.class))
+        .then(invocation -> Set.of(mockScatteredMethodElement));
+
+    // Act and Assert IllegalArgumentException thrown, as there is nothing to scatter across
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> processor.process(new HashSet<>(), mockRoundEnvironment)
+    );
+    Mockito.verifyNoInteractions(mockRepositoryGenerator);
+  }
+
+  @Test
+  void processKeysetPagedNotPaged() {
+    // Arrange
+    processor.init(mockProcessingEnvironment);
+    final RoundEnvironment mockRoundEnvironment = Mockito.mock(RoundEnvironment.class);
+    final ExecutableElement mockKeysetPagedMethodElement = Mockito.mock(ExecutableElement.class);
+    final Name mockMethodName = Mockito.mock(Name.class);
+    Mockito.when(mockMethodName.toString()).thenReturn("findAllByCode");
+    Mockito.when(mockKeysetPagedMethodElement.getSimpleName()).thenReturn(mockMethodName);
+    Mockito.when(mockKeysetPagedMethodElement.getEnclosingElement())
+        .then(invocation -> Mockito.mock(TypeElement.class));
+    Mockito.when(mockRoundEnvironment.getElementsAnnotatedWith(KeysetPaged.class))
+        .then(invocation -> Set.of(mockKeysetPagedMethodElement));
+
+    // Act and Assert IllegalArgumentException thrown, as the method has no pages to key
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> processor.process(new HashSet<>(), mockRoundEnvironment)
+    );
+    Mockito.verifyNoInteractions(mockRepositoryGenerator);
+  }
+
   @Test
   void getSupportedAnnotationTypes() {
     // Arrange
     processor.init(mockProcessingEnvironment);
     final Set<String> expectedAnnotationTypes = Set.of(
         TargetSecondaryDataSource.class.getCanonicalName(),
-        TargetSecondaryDataSources.class.getCanonicalName()
+        TargetSecondaryDataSources.class.getCanonicalName(),
+        HedgedRead.class.getCanonicalName(),
+        CoalescedRead.class.getCanonicalName(),
+        BatchedFindById.class.getCanonicalName(),
+        CachedRead.class.getCanonicalName(),
+        KeysetPaged.class.getCanonicalName(),
+        ShardKey.class.getCanonicalName(),
+        ScatterGather.class.getCanonicalName()
     );
 
     // Act
@@ -111,4 +411,56 @@ class TargetDataSourceAnnotationProcessorTest {
     // Assert
     Assertions.assertEquals(expectedSourceVersion, actualSourceVersion);
   }
+
+  /**
+   * Make a mock method return a {@link java.util.stream.Stream}, assignable to {@link BaseStream}.
+   *
+   * @param mockMethodElement the mock method
+   */
+  private void mockStreamReturnType(ExecutableElement mockMethodElement) {
+    final DeclaredType mockStreamType = Mockito.mock(DeclaredType.class);
+    Mockito.when(mockStreamType.getKind()).thenReturn(TypeKind.DECLARED);
+    Mockito.when(mockMethodElement.getReturnType()).then(invocation -> mockStreamType);
+    Mockito.when(mockTypeUtils.erasure(Mockito.any()))
+        .then(invocation -> invocation.getArgument(0));
+    final TypeElement mockBaseStreamElement = Mockito.mock(TypeElement.class);
+    final TypeMirror mockBaseStreamType = Mockito.mock(TypeMirror.class);
+    Mockito.when(mockBaseStreamElement.asType()).thenReturn(mockBaseStreamType);
+    Mockito.when(mockElementUtils.getTypeElement(BaseStream.class.getCanonicalName()))
+        .thenReturn(mockBaseStreamElement);
+    Mockito.when(mockTypeUtils.isAssignable(mockStreamType, mockBaseStreamType)).thenReturn(true);
+  }
+
+  /**
+   * Create a mock {@link RoundEnvironment} with a repository method targeting a data source, and a
+   * runtime routing {@link EnableMultiDataSourceConfig} with a replica data source.
+   *
+   * @param targetDataSourceName the data source targeted by the repository method
+   * @return the mock {@link RoundEnvironment}
+   */
+  private RoundEnvironment createRuntimeRoutingRoundEnvironment(String targetDataSourceName) {
+    final RoundEnvironment mockRoundEnvironment = Mockito.mock(RoundEnvironment.class);
+    final ExecutableElement mockMethodElement = Mockito.mock(ExecutableElement.class);
+    final TargetSecondaryDataSource mockTargetAnnotation = Mockito
+        .mock(TargetSecondaryDataSource.class);
+    Mockito.when(mockTargetAnnotation.value()).thenReturn(targetDataSourceName);
+    Mockito.when(mockMethodElement.getAnnotation(TargetSecondaryDataSource.class))
+        .thenReturn(mockTargetAnnotation);
+    Mockito.when(mockRoundEnvironment.getElementsAnnotatedWith(TargetSecondaryDataSource.class))
+        .then(invocation -> Set.of(mockMethodElement));
+
+    final TypeElement mockConfigElement = Mockito.mock(TypeElement.class);
+    final EnableMultiDataSourceConfig mockConfigAnnotation = Mockito
+        .mock(EnableMultiDataSourceConfig.class);
+    final DataSourceConfig mockReplicaConfig = Mockito.mock(DataSourceConfig.class);
+    Mockito.when(mockReplicaConfig.dataSourceName()).thenReturn("replica");
+    Mockito.when(mockConfigAnnotation.secondaryDataSourceConfigs())
+        .thenReturn(new DataSourceConfig[]{mockReplicaConfig});
+    Mockito.when(mockConfigAnnotation.routingMode()).thenReturn(RoutingMode.RUNTIME_ROUTING);
+    Mockito.when(mockConfigElement.getAnnotation(EnableMultiDataSourceConfig.class))
+        .thenReturn(mockConfigAnnotation);
+    Mockito.when(mockRoundEnvironment.getElementsAnnotatedWith(EnableMultiDataSourceConfig.class))
+        .then(invocation -> Set.of(mockConfigElement));
+    return mockRoundEnvironment;
+  }
 }
\ No newline at end of file
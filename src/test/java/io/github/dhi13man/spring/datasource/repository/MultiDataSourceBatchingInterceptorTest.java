@@ -0,0 +1,128 @@
+package io.github.dhi13man.spring.datasource.repository;
+
+import io.github.dhi13man.spring.datasource.annotations.BatchedFindById;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.core.EntityInformation;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class MultiDataSourceBatchingInterceptorTest {
+
+  private final MultiDataSourceBatchingInterceptor batchingInterceptor =
+      new MultiDataSourceBatchingInterceptor();
+
+  private final MockBatchedRepository targetRepository = Mockito
+      .mock(MockBatchedRepository.class);
+
+  private final MockBatchedRepository repository = this.createBatchedRepository();
+
+  @Test
+  void invokeConcurrentLookupsBatched() {
+    // Act
+    final CompletableFuture<Optional<String>> firstLookup = CompletableFuture
+        .supplyAsync(() -> repository.findById(1L));
+    final CompletableFuture<Optional<String>> secondLookup = CompletableFuture
+        .supplyAsync(() -> repository.findById(2L));
+
+    // Assert the full batch is loaded with one query, and each lookup gets its own entity
+    Assertions.assertEquals(Optional.of("entity-1"), firstLookup.join());
+    Assertions.assertEquals(Optional.of("entity-2"), secondLookup.join());
+    final List<List<Long>> loadedBatches = this.getLoadedBatches();
+    Assertions.assertEquals(1, loadedBatches.size());
+    Assertions.assertEquals(Set.of(1L, 2L), Set.copyOf(loadedBatches.get(0)));
+    Assertions.assertEquals(2, batchingInterceptor.getLookupCount());
+    Assertions.assertEquals(1, batchingInterceptor.getBatchCount());
+    Mockito.verify(targetRepository, Mockito.never()).findById(ArgumentMatchers.anyLong());
+  }
+
+  @Test
+  void invokeSingleLookupBatchedAfterMaxWait() {
+    // Act
+    final Optional<String> entity = repository.findById(1L);
+    final Optional<String> missingEntity = repository.findById(404L);
+
+    // Assert
+    Assertions.assertEquals(Optional.of("entity-1"), entity);
+    Assertions.assertEquals(Optional.empty(), missingEntity);
+    Assertions.assertEquals(List.of(List.of(1L), List.of(404L)), this.getLoadedBatches());
+  }
+
+  @Test
+  void invokeInTransactionNotBatched() {
+    // Arrange
+    Mockito.when(targetRepository.findById(1L)).thenReturn(Optional.of("entity-1"));
+    TransactionSynchronizationManager.setActualTransactionActive(true);
+
+    try {
+      // Act
+      final Optional<String> entity = repository.findById(1L);
+
+      // Assert
+      Assertions.assertEquals(Optional.of("entity-1"), entity);
+      Assertions.assertEquals(0, batchingInterceptor.getLookupCount());
+      Mockito.verify(targetRepository, Mockito.never()).findAllById(ArgumentMatchers.any());
+    } finally {
+      TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+  }
+
+  @Test
+  void hasBatchedFindByIdMethods() {
+    // Act and Assert
+    Assertions.assertTrue(
+        batchingInterceptor.hasBatchedFindByIdMethods(MockBatchedRepository.class)
+    );
+    Assertions.assertFalse(batchingInterceptor.hasBatchedFindByIdMethods(Runnable.class));
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<List<Long>> getLoadedBatches() {
+    final ArgumentCaptor<Iterable<Long>> idsCaptor = ArgumentCaptor.forClass(Iterable.class);
+    Mockito.verify(targetRepository, Mockito.atLeastOnce()).findAllById(idsCaptor.capture());
+    return idsCaptor.getAllValues().stream()
+        .map(ids -> StreamSupport.stream(ids.spliterator(), false).collect(Collectors.toList()))
+        .collect(Collectors.toList());
+  }
+
+  @SuppressWarnings("unchecked")
+  private MockBatchedRepository createBatchedRepository() {
+    Mockito.when(targetRepository.findAllById(ArgumentMatchers.any())).then(invocation -> {
+      final Iterable<Long> ids = invocation.getArgument(0);
+      return StreamSupport.stream(ids.spliterator(), false)
+          .filter(id -> id != 404L)
+          .map(id -> "entity-" + id)
+          .collect(Collectors.toList());
+    });
+    final EntityInformation<String, Long> entityInformation = Mockito
+        .mock(EntityInformation.class);
+    Mockito.when(entityInformation.getId(ArgumentMatchers.anyString()))
+        .then(invocation -> Long.valueOf(invocation.<String>getArgument(0).substring(7)));
+    batchingInterceptor.addRepository(MockBatchedRepository.class, entityInformation);
+
+    final ProxyFactory proxyFactory = new ProxyFactory(targetRepository);
+    proxyFactory.addInterface(MockBatchedRepository.class);
+    proxyFactory.addAdvice(batchingInterceptor);
+    return (MockBatchedRepository) proxyFactory.getProxy();
+  }
+
+  /**
+   * Repository batching its lookups in full batches of 2, or after 1 second.
+   */
+  public interface MockBatchedRepository extends CrudRepository<String, Long> {
+
+    @Override
+    @BatchedFindById(maxBatchSize = 2, maxWaitMillis = 1000)
+    Optional<String> findById(Long id);
+  }
+}
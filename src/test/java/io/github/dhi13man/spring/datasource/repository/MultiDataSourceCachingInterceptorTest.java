@@ -0,0 +1,192 @@
+package io.github.dhi13man.spring.datasource.repository;
+
+import io.github.dhi13man.spring.datasource.annotations.CachedRead;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class MultiDataSourceCachingInterceptorTest {
+
+  private final MultiDataSourceCachingInterceptor cachingInterceptor =
+      new MultiDataSourceCachingInterceptor();
+
+  private final MockCachedRepository cachedTarget = Mockito.mock(MockCachedRepository.class);
+
+  private final MockWritingRepository writingTarget = Mockito.mock(MockWritingRepository.class);
+
+  private final MockCachedRepository cachedRepository = this
+      .createRepository(cachedTarget, MockCachedRepository.class);
+
+  private final MockWritingRepository writingRepository = this
+      .createRepository(writingTarget, MockWritingRepository.class);
+
+  @Test
+  void invokeRepeatedCallsCached() {
+    // Arrange
+    Mockito.when(cachedTarget.findByCode("a")).thenReturn("entity-a", "entity-a-reloaded");
+
+    // Act
+    final String firstResult = cachedRepository.findByCode("a");
+    final String secondResult = cachedRepository.findByCode("a");
+
+    // Assert
+    Assertions.assertEquals("entity-a", firstResult);
+    Assertions.assertEquals("entity-a", secondResult);
+    Mockito.verify(cachedTarget, Mockito.times(1)).findByCode("a");
+    Assertions.assertEquals(1, cachingInterceptor.getHitCount());
+    Assertions.assertEquals(1, cachingInterceptor.getMissCount());
+    Assertions.assertEquals(1, cachingInterceptor.getSize());
+  }
+
+  @Test
+  void invokeBeyondMaxEntriesLeastRecentlyUsedEvicted() {
+    // Arrange
+    Mockito.when(cachedTarget.findByCode(Mockito.anyString()))
+        .then(invocation -> "entity-" + invocation.getArgument(0));
+    cachedRepository.findByCode("a");
+    cachedRepository.findByCode("b");
+    cachedRepository.findByCode("a");
+
+    // Act
+    cachedRepository.findByCode("c");
+    cachedRepository.findByCode("a");
+    cachedRepository.findByCode("b");
+
+    // Assert b was the least recently used result when c was cached, so only b was reloaded
+    Mockito.verify(cachedTarget, Mockito.times(1)).findByCode("a");
+    Mockito.verify(cachedTarget, Mockito.times(2)).findByCode("b");
+    Assertions.assertEquals(2, cachingInterceptor.getSize());
+    Assertions.assertEquals(2, cachingInterceptor.getEvictionCount());
+  }
+
+  @Test
+  void invokeExpiredResultReloaded() throws InterruptedException {
+    // Arrange
+    Mockito.when(cachedTarget.findAllByCategory("a")).thenReturn(List.of("entity-a"));
+    cachedRepository.findAllByCategory("a");
+
+    // Act
+    Thread.sleep(20);
+    cachedRepository.findAllByCategory("a");
+
+    // Assert
+    Mockito.verify(cachedTarget, Mockito.times(2)).findAllByCategory("a");
+    Assertions.assertEquals(1, cachingInterceptor.getEvictionCount());
+  }
+
+  @Test
+  void invokeWriteOfSameEntityInvalidates() {
+    // Arrange
+    Mockito.when(cachedTarget.findByCode("a")).thenReturn("entity-a", "entity-a-saved");
+    cachedRepository.findByCode("a");
+
+    // Act
+    writingRepository.save("entity-a-saved");
+    final String result = cachedRepository.findByCode("a");
+
+    // Assert
+    Assertions.assertEquals("entity-a-saved", result);
+    Mockito.verify(writingTarget).save("entity-a-saved");
+    Assertions.assertEquals(1, cachingInterceptor.getInvalidationCount());
+  }
+
+  @Test
+  void invokeReadOfSameEntityNotInvalidating() {
+    // Arrange
+    Mockito.when(cachedTarget.findByCode("a")).thenReturn("entity-a");
+    cachedRepository.findByCode("a");
+
+    // Act
+    writingRepository.countByCode("a");
+    cachedRepository.findByCode("a");
+
+    // Assert
+    Mockito.verify(cachedTarget, Mockito.times(1)).findByCode("a");
+    Assertions.assertEquals(0, cachingInterceptor.getInvalidationCount());
+  }
+
+  @Test
+  void invokeInTransactionNotCached() {
+    // Arrange
+    Mockito.when(cachedTarget.findByCode("a")).thenReturn("entity-a");
+    TransactionSynchronizationManager.setActualTransactionActive(true);
+
+    try {
+      // Act
+      cachedRepository.findByCode("a");
+      cachedRepository.findByCode("a");
+
+      // Assert
+      Mockito.verify(cachedTarget, Mockito.times(2)).findByCode("a");
+      Assertions.assertEquals(0, cachingInterceptor.getSize());
+    } finally {
+      TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+  }
+
+  @Test
+  void invokeWithBoundEntityManagerNotCached() {
+    // Arrange
+    Mockito.when(cachedTarget.findByCode("a")).thenReturn("entity-a");
+    final EntityManagerFactory entityManagerFactory = Mockito.mock(EntityManagerFactory.class);
+    TransactionSynchronizationManager.bindResource(
+        entityManagerFactory,
+        new EntityManagerHolder(Mockito.mock(EntityManager.class))
+    );
+
+    try {
+      // Act
+      cachedRepository.findByCode("a");
+      cachedRepository.findByCode("a");
+
+      // Assert
+      Mockito.verify(cachedTarget, Mockito.times(2)).findByCode("a");
+      Assertions.assertEquals(0, cachingInterceptor.getSize());
+    } finally {
+      TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+    }
+  }
+
+  @Test
+  void hasCachedReadMethods() {
+    // Act and Assert
+    Assertions.assertTrue(cachingInterceptor.hasCachedReadMethods(MockCachedRepository.class));
+    Assertions.assertFalse(cachingInterceptor.hasCachedReadMethods(MockWritingRepository.class));
+  }
+
+  private <T> T createRepository(T target, Class<T> repositoryInterface) {
+    cachingInterceptor.addRepository(repositoryInterface, String.class);
+    final ProxyFactory proxyFactory = new ProxyFactory(target);
+    proxyFactory.addInterface(repositoryInterface);
+    proxyFactory.addAdvice(cachingInterceptor);
+    return repositoryInterface.cast(proxyFactory.getProxy());
+  }
+
+  /**
+   * Repository caching up to 2 results by code, and results by category for 10 milliseconds.
+   */
+  public interface MockCachedRepository {
+
+    @CachedRead(maxEntries = 2)
+    String findByCode(String code);
+
+    @CachedRead(ttlMillis = 10)
+    List<String> findAllByCategory(String category);
+  }
+
+  /**
+   * Repository of the same entity, writing it.
+   */
+  public interface MockWritingRepository {
+
+    String save(String entity);
+
+    long countByCode(String code);
+  }
+}
@@ -0,0 +1,211 @@
+package io.github.dhi13man.spring.datasource.repository;
+
+import io.github.dhi13man.spring.datasource.annotations.CoalescedRead;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.concurrent.ListenableFuture;
+
+class MultiDataSourceCoalescingInterceptorTest {
+
+  private static final long BLOCKING_ID = 1;
+
+  private final MultiDataSourceCoalescingInterceptor coalescingInterceptor =
+      new MultiDataSourceCoalescingInterceptor();
+
+  private final CountDownLatch releaseLatch = new CountDownLatch(1);
+
+  private final AtomicInteger queryCount = new AtomicInteger();
+
+  private final MockCoalescedRepository repository = this.createCoalescedRepository();
+
+  @Test
+  void invokeIdenticalConcurrentCallsCoalesced() {
+    // Arrange
+    final CompletableFuture<String> firstCall = CompletableFuture
+        .supplyAsync(() -> repository.findById(BLOCKING_ID));
+    awaitCondition(() -> coalescingInterceptor.getInFlightCount() == 1);
+    final CompletableFuture<String> secondCall = CompletableFuture
+        .supplyAsync(() -> repository.findById(BLOCKING_ID));
+    awaitCondition(() -> coalescingInterceptor.getCoalescedCount() == 1);
+
+    // Act
+    releaseLatch.countDown();
+
+    // Assert
+    Assertions.assertEquals("entity-1", firstCall.join());
+    Assertions.assertSame(firstCall.join(), secondCall.join());
+    Assertions.assertEquals(1, queryCount.get());
+    Assertions.assertEquals(2, coalescingInterceptor.getCallCount());
+    Assertions.assertEquals(0, coalescingInterceptor.getInFlightCount());
+  }
+
+  @Test
+  void invokeDifferentArgumentsNotCoalesced() {
+    // Arrange
+    final CompletableFuture<String> firstCall = CompletableFuture
+        .supplyAsync(() -> repository.findById(BLOCKING_ID));
+    awaitCondition(() -> coalescingInterceptor.getInFlightCount() == 1);
+
+    // Act
+    final String secondResult = repository.findById(2);
+    releaseLatch.countDown();
+
+    // Assert
+    Assertions.assertEquals("entity-2", secondResult);
+    Assertions.assertEquals("entity-1", firstCall.join());
+    Assertions.assertEquals(2, queryCount.get());
+    Assertions.assertEquals(0, coalescingInterceptor.getCoalescedCount());
+  }
+
+  @Test
+  void invokeFailureSharedWithCoalescedCalls() {
+    // Arrange
+    final CompletableFuture<String> firstCall = CompletableFuture
+        .supplyAsync(() -> repository.findFailing(BLOCKING_ID));
+    awaitCondition(() -> coalescingInterceptor.getInFlightCount() == 1);
+    final CompletableFuture<String> secondCall = CompletableFuture
+        .supplyAsync(() -> repository.findFailing(BLOCKING_ID));
+    awaitCondition(() -> coalescingInterceptor.getCoalescedCount() == 1);
+
+    // Act
+    releaseLatch.countDown();
+
+    // Assert
+    final Throwable firstFailure = Assertions
+        .assertThrows(Exception.class, firstCall::join).getCause();
+    final Throwable secondFailure = Assertions
+        .assertThrows(Exception.class, secondCall::join).getCause();
+    Assertions.assertTrue(firstFailure instanceof IllegalStateException);
+    Assertions.assertSame(firstFailure, secondFailure);
+    Assertions.assertEquals(1, queryCount.get());
+  }
+
+  @Test
+  void invokeInTransactionNotCoalesced() {
+    // Arrange
+    releaseLatch.countDown();
+    TransactionSynchronizationManager.setActualTransactionActive(true);
+
+    try {
+      // Act
+      final String result = repository.findById(BLOCKING_ID);
+
+      // Assert
+      Assertions.assertEquals("entity-1", result);
+      Assertions.assertEquals(0, coalescingInterceptor.getCallCount());
+    } finally {
+      TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+  }
+
+  @Test
+  void invokeWithBoundEntityManagerNotCoalesced() {
+    // Arrange
+    releaseLatch.countDown();
+    final EntityManagerFactory entityManagerFactory = Mockito.mock(EntityManagerFactory.class);
+    TransactionSynchronizationManager.bindResource(
+        entityManagerFactory,
+        new EntityManagerHolder(Mockito.mock(EntityManager.class))
+    );
+
+    try {
+      // Act
+      final String result = repository.findById(BLOCKING_ID);
+
+      // Assert
+      Assertions.assertEquals("entity-1", result);
+      Assertions.assertEquals(0, coalescingInterceptor.getCallCount());
+    } finally {
+      TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+    }
+  }
+
+  @Test
+  void hasCoalescedReadMethods() {
+    // Act and Assert
+    Assertions.assertTrue(
+        coalescingInterceptor.hasCoalescedReadMethods(MockCoalescedRepository.class)
+    );
+    Assertions.assertFalse(coalescingInterceptor.hasCoalescedReadMethods(Runnable.class));
+  }
+
+  @Test
+  void isReusableResultType() {
+    // Act and Assert the streams, iterators and futures are not shared by coalesced calls
+    Assertions.assertTrue(MultiDataSourceCoalescingInterceptor.isReusableResultType(List.class));
+    Assertions.assertTrue(MultiDataSourceCoalescingInterceptor.isReusableResultType(long.class));
+    Assertions.assertFalse(MultiDataSourceCoalescingInterceptor.isReusableResultType(void.class));
+    Assertions.assertFalse(MultiDataSourceCoalescingInterceptor.isReusableResultType(Stream.class));
+    Assertions
+        .assertFalse(MultiDataSourceCoalescingInterceptor.isReusableResultType(Iterator.class));
+    Assertions.assertFalse(MultiDataSourceCoalescingInterceptor.isReusableResultType(Future.class));
+    Assertions.assertFalse(
+        MultiDataSourceCoalescingInterceptor.isReusableResultType(ListenableFuture.class)
+    );
+  }
+
+  private static void awaitCondition(BooleanSupplier condition) {
+    final long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!condition.getAsBoolean()) {
+      Assertions.assertTrue(System.nanoTime() < deadlineNanos, "Condition not met in time");
+      Thread.onSpinWait();
+    }
+  }
+
+  private MockCoalescedRepository createCoalescedRepository() {
+    final ProxyFactory proxyFactory = new ProxyFactory(new MockCoalescedRepository() {
+      @Override
+      public String findById(long id) {
+        this.query(id);
+        return "entity-" + id;
+      }
+
+      @Override
+      public String findFailing(long id) {
+        this.query(id);
+        throw new IllegalStateException("Query of entity " + id + " failed");
+      }
+
+      private void query(long id) {
+        queryCount.incrementAndGet();
+        try {
+          if (id == BLOCKING_ID) {
+            releaseLatch.await(5, TimeUnit.SECONDS);
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    proxyFactory.addInterface(MockCoalescedRepository.class);
+    proxyFactory.addAdvice(coalescingInterceptor);
+    return (MockCoalescedRepository) proxyFactory.getProxy();
+  }
+
+  /**
+   * Repository whose queries of the blocking id wait for the release of the test.
+   */
+  public interface MockCoalescedRepository {
+
+    @CoalescedRead
+    String findById(long id);
+
+    @CoalescedRead
+    String findFailing(long id);
+  }
+}
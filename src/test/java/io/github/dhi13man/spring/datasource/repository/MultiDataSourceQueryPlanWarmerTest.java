@@ -0,0 +1,180 @@
+package io.github.dhi13man.spring.datasource.repository;
+
+import io.github.dhi13man.spring.datasource.config.IGeneratedDataSourceRepository;
+import io.github.dhi13man.spring.datasource.generators.MockEntity;
+import io.github.dhi13man.spring.datasource.generators.MockEntity.MockAddress;
+import io.github.dhi13man.spring.datasource.generators.MockEntityTag;
+import io.github.dhi13man.spring.datasource.generators.generated.repositories.replica_2.Replica2MockEntityTestRepository;
+import io.github.dhi13man.spring.datasource.repository.MultiDataSourceQueryPlanWarmer.WarmUpReport;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.jpa.HibernatePersistenceProvider;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.persistenceunit.MutablePersistenceUnitInfo;
+
+class MultiDataSourceQueryPlanWarmerTest {
+
+  private static final String REPLICA_ENTITY_MANAGER_FACTORY_BEAN_NAME =
+      "replica-2-entity-manager-factory";
+
+  private static final String READ_REPLICA_ENTITY_MANAGER_FACTORY_BEAN_NAME =
+      "read-replica-entity-manager-factory";
+
+  private final ListableBeanFactory beanFactory = Mockito.mock(ListableBeanFactory.class);
+
+  private final EntityManagerFactory entityManagerFactory = this.createEntityManagerFactory();
+
+  private final MultiDataSourceQueryPlanWarmer queryPlanWarmer = new MultiDataSourceQueryPlanWarmer(
+      beanFactory,
+      Map.of(
+          REPLICA_ENTITY_MANAGER_FACTORY_BEAN_NAME,
+          ".generated.repositories.replica_2",
+          READ_REPLICA_ENTITY_MANAGER_FACTORY_BEAN_NAME,
+          ".generated.repositories.read_replica"
+      )
+  );
+
+  @AfterEach
+  void tearDown() {
+    entityManagerFactory.close();
+  }
+
+  @Test
+  void onApplicationEventPreparesQueryPlans() {
+    // Arrange
+    this.mockRepositoryCopies();
+
+    // Act
+    queryPlanWarmer.onApplicationEvent(Mockito.mock(ContextRefreshedEvent.class));
+
+    // Assert the derived query is prepared, and the queries Spring Data JPA validates skipped
+    final List<WarmUpReport> reports = queryPlanWarmer.getReports();
+    Assertions.assertEquals(2, reports.size());
+    final WarmUpReport replicaReport = reports.stream()
+        .filter(report -> report.getEntityManagerFactoryBeanName()
+            .equals(REPLICA_ENTITY_MANAGER_FACTORY_BEAN_NAME))
+        .findFirst()
+        .orElseThrow();
+    Assertions.assertEquals(1, replicaReport.getPreparedQueryCount());
+    Assertions.assertEquals(7, replicaReport.getSkippedMethodCount());
+    Assertions.assertTrue(replicaReport.getFailedQueries().isEmpty());
+    final WarmUpReport readReplicaReport = reports.stream()
+        .filter(report -> report.getEntityManagerFactoryBeanName()
+            .equals(READ_REPLICA_ENTITY_MANAGER_FACTORY_BEAN_NAME))
+        .findFirst()
+        .orElseThrow();
+    Assertions.assertEquals(0, readReplicaReport.getPreparedQueryCount());
+    Mockito.verify(beanFactory, Mockito.never())
+        .getBean(READ_REPLICA_ENTITY_MANAGER_FACTORY_BEAN_NAME, EntityManagerFactory.class);
+  }
+
+  @Test
+  void onApplicationEventRemovesQueryPlanCacheMiss() {
+    // Arrange
+    this.mockRepositoryCopies();
+    queryPlanWarmer.onApplicationEvent(Mockito.mock(ContextRefreshedEvent.class));
+
+    // Act
+    final long queryPlanCacheMissCount = this.countQueryPlanCacheMissesOfFirstCall();
+
+    // Assert
+    Assertions.assertEquals(0, queryPlanCacheMissCount);
+  }
+
+  @Test
+  void queryPlanCacheMissWithoutWarmUp() {
+    // Act
+    final long queryPlanCacheMissCount = this.countQueryPlanCacheMissesOfFirstCall();
+
+    // Assert the first call to the derived query compiles its plan
+    Assertions.assertEquals(1, queryPlanCacheMissCount);
+  }
+
+  @Test
+  void onApplicationEventWarmsUpOnce() {
+    // Arrange
+    this.mockRepositoryCopies();
+
+    // Act
+    queryPlanWarmer.onApplicationEvent(Mockito.mock(ContextRefreshedEvent.class));
+    queryPlanWarmer.onApplicationEvent(Mockito.mock(ContextRefreshedEvent.class));
+
+    // Assert
+    Mockito.verify(beanFactory, Mockito.times(1))
+        .getBean(REPLICA_ENTITY_MANAGER_FACTORY_BEAN_NAME, EntityManagerFactory.class);
+    Assertions.assertEquals(2, queryPlanWarmer.getReports().size());
+  }
+
+  @Test
+  void getReportsBeforeRefresh() {
+    // Act and Assert
+    Assertions.assertTrue(queryPlanWarmer.getReports().isEmpty());
+  }
+
+  private void mockRepositoryCopies() {
+    Mockito.when(beanFactory.getBeanNamesForType(IGeneratedDataSourceRepository.class))
+        .thenReturn(new String[]{Replica2MockEntityTestRepository.REPOSITORY_BEAN_NAME});
+    Mockito.doReturn(Replica2MockEntityTestRepository.class)
+        .when(beanFactory).getType(Replica2MockEntityTestRepository.REPOSITORY_BEAN_NAME);
+    Mockito.when(beanFactory.getBean(
+        REPLICA_ENTITY_MANAGER_FACTORY_BEAN_NAME,
+        EntityManagerFactory.class
+    )).thenReturn(entityManagerFactory);
+  }
+
+  /**
+   * Count the query plan cache misses of the first call to the derived query of a repository copy.
+   *
+   * @return the number of query plans compiled by the call
+   */
+  private long countQueryPlanCacheMissesOfFirstCall() {
+    final EntityManager entityManager = entityManagerFactory.createEntityManager();
+    try {
+      final Replica2MockEntityTestRepository repository = new JpaRepositoryFactory(entityManager)
+          .getRepository(Replica2MockEntityTestRepository.class);
+      final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class)
+          .getStatistics();
+      statistics.clear();
+      repository.findFirstByCodeOrderByIdDesc("code");
+      return statistics.getQueryPlanCacheMissCount();
+    } finally {
+      entityManager.close();
+    }
+  }
+
+  private EntityManagerFactory createEntityManagerFactory() {
+    final MutablePersistenceUnitInfo persistenceUnitInfo = new MutablePersistenceUnitInfo() {
+      @Override
+      public ClassLoader getNewTempClassLoader() {
+        return this.getClassLoader();
+      }
+    };
+    persistenceUnitInfo.setPersistenceUnitName(REPLICA_ENTITY_MANAGER_FACTORY_BEAN_NAME);
+    persistenceUnitInfo.setNonJtaDataSource(new DriverManagerDataSource(
+        "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"
+    ));
+    persistenceUnitInfo.addManagedClassName(MockEntity.class.getName());
+    persistenceUnitInfo.addManagedClassName(MockAddress.class.getName());
+    persistenceUnitInfo.addManagedClassName(MockEntityTag.class.getName());
+    persistenceUnitInfo.setExcludeUnlistedClasses(true);
+    return new HibernatePersistenceProvider().createContainerEntityManagerFactory(
+        persistenceUnitInfo,
+        Map.of(
+            "hibernate.hbm2ddl.auto", "create-drop",
+            "hibernate.generate_statistics", "true"
+        )
+    );
+  }
+}
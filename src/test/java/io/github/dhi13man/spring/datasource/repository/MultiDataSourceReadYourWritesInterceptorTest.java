@@ -0,0 +1,99 @@
+package io.github.dhi13man.spring.datasource.repository;
+
+import io.github.dhi13man.spring.datasource.routing.MultiDataSourceReadYourWritesContext;
+import io.github.dhi13man.spring.datasource.routing.MultiDataSourceRoutingContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class MultiDataSourceReadYourWritesInterceptorTest {
+
+  private final MockWritingRepository target = Mockito.mock(MockWritingRepository.class);
+
+  private final MockWritingRepository repository = this.createRepository();
+
+  @AfterEach
+  void tearDown() {
+    MultiDataSourceReadYourWritesContext.clear();
+  }
+
+  @Test
+  void invokeWriteRecorded() {
+    // Act
+    repository.save("entity");
+
+    // Assert
+    Assertions.assertNotNull(MultiDataSourceReadYourWritesContext.getLastPrimaryWriteMillis());
+    Assertions.assertTrue(MultiDataSourceReadYourWritesContext.isWithinWindow(60000));
+  }
+
+  @Test
+  void invokeReadNotRecorded() {
+    // Act
+    repository.countByCode("code");
+
+    // Assert
+    Assertions.assertNull(MultiDataSourceReadYourWritesContext.getLastPrimaryWriteMillis());
+  }
+
+  @Test
+  void invokeWriteRoutedToOtherDataSourceNotRecorded() {
+    // Act
+    MultiDataSourceRoutingContext.runWithDataSource("replica", () -> repository.save("entity"));
+
+    // Assert
+    Assertions.assertNull(MultiDataSourceReadYourWritesContext.getLastPrimaryWriteMillis());
+  }
+
+  @Test
+  void invokeWriteInTransactionRecordedAgainOnCommit() {
+    // Arrange
+    TransactionSynchronizationManager.initSynchronization();
+
+    try {
+      // Act
+      repository.save("entity");
+      MultiDataSourceReadYourWritesContext.clear();
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(TransactionSynchronization::afterCommit);
+
+      // Assert
+      Assertions.assertNotNull(MultiDataSourceReadYourWritesContext.getLastPrimaryWriteMillis());
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void invokeFailedWriteNotRecorded() {
+    // Arrange
+    Mockito.when(target.save("invalid")).thenThrow(new IllegalArgumentException("invalid"));
+
+    // Act
+    Assertions.assertThrows(IllegalArgumentException.class, () -> repository.save("invalid"));
+
+    // Assert
+    Assertions.assertNull(MultiDataSourceReadYourWritesContext.getLastPrimaryWriteMillis());
+  }
+
+  private MockWritingRepository createRepository() {
+    final ProxyFactory proxyFactory = new ProxyFactory(target);
+    proxyFactory.addInterface(MockWritingRepository.class);
+    proxyFactory.addAdvice(new MultiDataSourceReadYourWritesInterceptor());
+    return (MockWritingRepository) proxyFactory.getProxy();
+  }
+
+  /**
+   * Repository of the primary data source, writing its entity.
+   */
+  public interface MockWritingRepository {
+
+    String save(String entity);
+
+    long countByCode(String code);
+  }
+}
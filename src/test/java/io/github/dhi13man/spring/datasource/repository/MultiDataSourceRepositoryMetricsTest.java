@@ -0,0 +1,42 @@
+package io.github.dhi13man.spring.datasource.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class MultiDataSourceRepositoryMetricsTest {
+
+  @Test
+  void bindToRegistersInterceptorState() {
+    // Arrange
+    final MultiDataSourceRepositoryPostProcessor postProcessor =
+        new MultiDataSourceRepositoryPostProcessor();
+    final MeterRegistry registry = new SimpleMeterRegistry();
+
+    // Act
+    new MultiDataSourceRepositoryMetrics(postProcessor).bindTo(registry);
+
+    // Assert
+    Assertions.assertEquals(0, this.getCounter(registry, "coalescing.calls"));
+    Assertions.assertEquals(0, this.getCounter(registry, "coalescing.coalesced"));
+    Assertions.assertEquals(0, this.getCounter(registry, "batching.lookups"));
+    Assertions.assertEquals(0, this.getCounter(registry, "batching.batches"));
+    Assertions.assertEquals(0, this.getCounter(registry, "caching.hits"));
+    Assertions.assertEquals(0, this.getCounter(registry, "caching.misses"));
+    Assertions.assertEquals(0, this.getCounter(registry, "caching.evictions"));
+    Assertions.assertEquals(0, this.getCounter(registry, "caching.invalidations"));
+    Assertions.assertEquals(
+        0,
+        registry.get(MultiDataSourceRepositoryMetrics.METRIC_NAME_PREFIX + "coalescing.in.flight")
+            .gauge()
+            .value()
+    );
+  }
+
+  private double getCounter(MeterRegistry registry, String name) {
+    return registry.get(MultiDataSourceRepositoryMetrics.METRIC_NAME_PREFIX + name)
+        .functionCounter()
+        .count();
+  }
+}
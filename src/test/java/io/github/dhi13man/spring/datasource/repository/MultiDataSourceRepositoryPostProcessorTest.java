@@ -0,0 +1,234 @@
+package io.github.dhi13man.spring.datasource.repository;
+
+import io.github.dhi13man.spring.datasource.config.IGeneratedDataSourceRepository;
+import io.github.dhi13man.spring.datasource.repository.MultiDataSourceBatchingInterceptorTest.MockBatchedRepository;
+import io.github.dhi13man.spring.datasource.repository.MultiDataSourceCachingInterceptorTest.MockCachedRepository;
+import io.github.dhi13man.spring.datasource.repository.MultiDataSourceCoalescingInterceptorTest.MockCoalescedRepository;
+import io.github.dhi13man.spring.datasource.repository.MultiDataSourceStreamingInterceptorTest.MockStreamingRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.data.repository.core.support.RepositoryFactoryCustomizer;
+import org.springframework.data.repository.core.support.RepositoryFactorySupport;
+import org.springframework.data.repository.core.support.RepositoryProxyPostProcessor;
+
+class MultiDataSourceRepositoryPostProcessorTest {
+
+  private final MultiDataSourceRepositoryPostProcessor postProcessor =
+      new MultiDataSourceRepositoryPostProcessor();
+
+  @Test
+  void postProcessBeforeInitializationCoalescedRepository() {
+    // Act
+    final ProxyFactory proxyFactory = this.postProcessRepository(MockCoalescedRepository.class);
+
+    // Assert the caching interceptor of the original repository is outermost
+    Assertions.assertEquals(2, proxyFactory.getAdvisorCount());
+    Assertions.assertSame(
+        postProcessor.getCachingInterceptor(),
+        proxyFactory.getAdvisors()[0].getAdvice()
+    );
+    Assertions.assertSame(
+        postProcessor.getCoalescingInterceptor(),
+        proxyFactory.getAdvisors()[1].getAdvice()
+    );
+  }
+
+  @Test
+  void postProcessBeforeInitializationBatchedGeneratedRepository() {
+    // Act
+    final ProxyFactory proxyFactory = this
+        .postProcessRepository(MockBatchedGeneratedRepository.class);
+
+    // Assert
+    Assertions.assertEquals(1, proxyFactory.getAdvisorCount());
+    Assertions.assertSame(
+        postProcessor.getBatchingInterceptor(),
+        proxyFactory.getAdvisors()[0].getAdvice()
+    );
+  }
+
+  @Test
+  void postProcessBeforeInitializationBatchedOriginalRepository() {
+    // Act
+    final ProxyFactory proxyFactory = this.postProcessRepository(MockBatchedRepository.class);
+
+    // Assert only the generated repository copies batch their lookups
+    Assertions.assertEquals(1, proxyFactory.getAdvisorCount());
+    Assertions.assertSame(
+        postProcessor.getCachingInterceptor(),
+        proxyFactory.getAdvisors()[0].getAdvice()
+    );
+  }
+
+  @Test
+  void postProcessBeforeInitializationCachedGeneratedRepository() {
+    // Act
+    final ProxyFactory proxyFactory = this
+        .postProcessRepository(MockCachedGeneratedRepository.class);
+
+    // Assert
+    Assertions.assertEquals(1, proxyFactory.getAdvisorCount());
+    Assertions.assertSame(
+        postProcessor.getCachingInterceptor(),
+        proxyFactory.getAdvisors()[0].getAdvice()
+    );
+  }
+
+  @Test
+  void postProcessBeforeInitializationNotAnnotatedGeneratedRepository() {
+    // Act
+    final ProxyFactory proxyFactory = this
+        .postProcessRepository(IGeneratedDataSourceRepository.class);
+
+    // Assert
+    Assertions.assertEquals(0, proxyFactory.getAdvisorCount());
+  }
+
+  @Test
+  void postProcessBeforeInitializationNotAnnotatedRepository() {
+    // Act
+    final ProxyFactory proxyFactory = this.postProcessRepository(Runnable.class);
+
+    // Assert the writes of every original repository clear the cached results of its entity
+    Assertions.assertEquals(1, proxyFactory.getAdvisorCount());
+    Assertions.assertSame(
+        postProcessor.getCachingInterceptor(),
+        proxyFactory.getAdvisors()[0].getAdvice()
+    );
+  }
+
+  @Test
+  void postProcessBeforeInitializationRecordingPrimaryWrites() {
+    // Arrange
+    final MultiDataSourceRepositoryPostProcessor recordingPostProcessor =
+        new MultiDataSourceRepositoryPostProcessor(true);
+
+    // Act
+    final ProxyFactory originalProxyFactory = this
+        .postProcessRepository(recordingPostProcessor, Runnable.class);
+    final ProxyFactory generatedProxyFactory = this
+        .postProcessRepository(recordingPostProcessor, IGeneratedDataSourceRepository.class);
+
+    // Assert only the writes through the original repositories are recorded
+    Assertions.assertEquals(2, originalProxyFactory.getAdvisorCount());
+    Assertions.assertSame(
+        recordingPostProcessor.getReadYourWritesInterceptor(),
+        originalProxyFactory.getAdvisors()[0].getAdvice()
+    );
+    Assertions.assertEquals(0, generatedProxyFactory.getAdvisorCount());
+    Assertions.assertNull(postProcessor.getReadYourWritesInterceptor());
+  }
+
+  @Test
+  void postProcessBeforeInitializationStreamingGeneratedRepository() {
+    // Arrange
+    final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+    final RootBeanDefinition repositoryDefinition = new RootBeanDefinition();
+    repositoryDefinition.getPropertyValues()
+        .add("transactionManager", "replica-transaction-manager");
+    beanFactory.registerBeanDefinition("repository", repositoryDefinition);
+    final MultiDataSourceRepositoryPostProcessor streamingPostProcessor =
+        new MultiDataSourceRepositoryPostProcessor();
+    streamingPostProcessor.setBeanFactory(beanFactory);
+
+    // Act
+    final ProxyFactory generatedProxyFactory = this
+        .postProcessRepository(streamingPostProcessor, MockStreamingGeneratedRepository.class);
+    final ProxyFactory unknownTransactionManagerProxyFactory = this
+        .postProcessRepository(MockStreamingGeneratedRepository.class);
+
+    // Assert streams are only kept in a transaction of the known transaction manager
+    Assertions.assertEquals(1, generatedProxyFactory.getAdvisorCount());
+    Assertions.assertInstanceOf(
+        MultiDataSourceStreamingInterceptor.class,
+        generatedProxyFactory.getAdvisors()[0].getAdvice()
+    );
+    Assertions.assertEquals(0, unknownTransactionManagerProxyFactory.getAdvisorCount());
+  }
+
+  @Test
+  void postProcessBeforeInitializationNotRepository() {
+    // Arrange
+    final Object bean = new Object();
+
+    // Act and Assert
+    Assertions.assertSame(bean, postProcessor.postProcessBeforeInitialization(bean, "bean"));
+  }
+
+  /**
+   * Post process a mock repository factory bean and run the repository proxy post processor it
+   * gets on a new {@link ProxyFactory}.
+   *
+   * @param repositoryInterface the interface of the repository
+   * @return the {@link ProxyFactory} of the repository after post processing
+   */
+  private ProxyFactory postProcessRepository(Class<?> repositoryInterface) {
+    return this.postProcessRepository(postProcessor, repositoryInterface);
+  }
+
+  /**
+   * Post process a mock repository factory bean with a repository post processor and run the
+   * repository proxy post processor it gets on a new {@link ProxyFactory}.
+   *
+   * @param repositoryPostProcessor the repository post processor
+   * @param repositoryInterface     the interface of the repository
+   * @return the {@link ProxyFactory} of the repository after post processing
+   */
+  private ProxyFactory postProcessRepository(
+      MultiDataSourceRepositoryPostProcessor repositoryPostProcessor,
+      Class<?> repositoryInterface
+  ) {
+    final RepositoryFactoryBeanSupport<?, ?, ?> factoryBean = Mockito
+        .mock(RepositoryFactoryBeanSupport.class);
+    final RepositoryFactorySupport repositoryFactory = Mockito
+        .mock(RepositoryFactorySupport.class);
+    final RepositoryInformation repositoryInformation = Mockito.mock(RepositoryInformation.class);
+    Mockito.doReturn(repositoryInterface).when(repositoryInformation).getRepositoryInterface();
+    Mockito.doReturn(String.class).when(repositoryInformation).getDomainType();
+
+    repositoryPostProcessor.postProcessBeforeInitialization(factoryBean, "repository");
+    final ArgumentCaptor<RepositoryFactoryCustomizer> customizerCaptor = ArgumentCaptor
+        .forClass(RepositoryFactoryCustomizer.class);
+    Mockito.verify(factoryBean).addRepositoryFactoryCustomizer(customizerCaptor.capture());
+    customizerCaptor.getValue().customize(repositoryFactory);
+    final ArgumentCaptor<RepositoryProxyPostProcessor> proxyPostProcessorCaptor = ArgumentCaptor
+        .forClass(RepositoryProxyPostProcessor.class);
+    Mockito.verify(repositoryFactory)
+        .addRepositoryProxyPostProcessor(proxyPostProcessorCaptor.capture());
+
+    final ProxyFactory proxyFactory = new ProxyFactory();
+    proxyPostProcessorCaptor.getValue().postProcess(proxyFactory, repositoryInformation);
+    return proxyFactory;
+  }
+
+  /**
+   * Generated repository copy batching its lookups.
+   */
+  public interface MockBatchedGeneratedRepository extends MockBatchedRepository,
+      IGeneratedDataSourceRepository {
+
+  }
+
+  /**
+   * Generated repository copy streaming its results.
+   */
+  public interface MockStreamingGeneratedRepository extends MockStreamingRepository,
+      IGeneratedDataSourceRepository {
+
+  }
+
+  /**
+   * Generated repository copy caching its results.
+   */
+  public interface MockCachedGeneratedRepository extends MockCachedRepository,
+      IGeneratedDataSourceRepository {
+
+  }
+}
@@ -0,0 +1,126 @@
+package io.github.dhi13man.spring.datasource.repository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class MultiDataSourceStreamingInterceptorTest {
+
+  private final MockStreamingRepository target = Mockito.mock(MockStreamingRepository.class);
+
+  private final PlatformTransactionManager transactionManager = Mockito
+      .mock(PlatformTransactionManager.class);
+
+  private final TransactionStatus transaction = Mockito.mock(TransactionStatus.class);
+
+  private final MockStreamingRepository repository = this.createRepository();
+
+  @Test
+  void invokeStreamOutsideTransaction() {
+    // Arrange
+    Mockito.when(transactionManager.getTransaction(Mockito.any())).thenReturn(transaction);
+    Mockito.when(target.streamAllByCode("code")).thenReturn(Stream.of("a", "b"));
+
+    // Act
+    final List<String> rows;
+    try (Stream<String> stream = repository.streamAllByCode("code")) {
+      rows = stream.collect(Collectors.toList());
+
+      // Assert the transaction stays open while the stream is open
+      Mockito.verify(transactionManager, Mockito.never()).commit(transaction);
+    }
+
+    // Assert the read-only transaction is committed once the stream is closed
+    Assertions.assertEquals(List.of("a", "b"), rows);
+    final ArgumentCaptor<TransactionDefinition> definitionCaptor = ArgumentCaptor
+        .forClass(TransactionDefinition.class);
+    Mockito.verify(transactionManager).getTransaction(definitionCaptor.capture());
+    Assertions.assertTrue(definitionCaptor.getValue().isReadOnly());
+    Mockito.verify(transactionManager).commit(transaction);
+  }
+
+  @Test
+  void invokeFailedStream() {
+    // Arrange
+    Mockito.when(transactionManager.getTransaction(Mockito.any())).thenReturn(transaction);
+    Mockito.when(target.streamAllByCode("invalid"))
+        .thenThrow(new IllegalArgumentException("invalid"));
+
+    // Act
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> repository.streamAllByCode("invalid")
+    );
+
+    // Assert
+    Mockito.verify(transactionManager).rollback(transaction);
+    Mockito.verify(transactionManager, Mockito.never()).commit(transaction);
+  }
+
+  @Test
+  void invokeStreamInsideTransaction() {
+    // Arrange
+    Mockito.when(target.streamAllByCode("code")).thenReturn(Stream.of("a"));
+    TransactionSynchronizationManager.setActualTransactionActive(true);
+
+    try {
+      // Act
+      try (Stream<String> stream = repository.streamAllByCode("code")) {
+        Assertions.assertEquals(1, stream.count());
+      }
+
+      // Assert the surrounding transaction is used
+      Mockito.verifyNoInteractions(transactionManager);
+    } finally {
+      TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+  }
+
+  @Test
+  void invokeNotStream() {
+    // Arrange
+    Mockito.when(target.countByCode("code")).thenReturn(2L);
+
+    // Act
+    final long count = repository.countByCode("code");
+
+    // Assert
+    Assertions.assertEquals(2L, count);
+    Mockito.verifyNoInteractions(transactionManager);
+  }
+
+  @Test
+  void hasStreamMethods() {
+    // Act and Assert
+    Assertions.assertTrue(
+        MultiDataSourceStreamingInterceptor.hasStreamMethods(MockStreamingRepository.class)
+    );
+    Assertions.assertFalse(MultiDataSourceStreamingInterceptor.hasStreamMethods(Runnable.class));
+  }
+
+  private MockStreamingRepository createRepository() {
+    final ProxyFactory proxyFactory = new ProxyFactory(target);
+    proxyFactory.addInterface(MockStreamingRepository.class);
+    proxyFactory.addAdvice(new MultiDataSourceStreamingInterceptor(() -> transactionManager));
+    return (MockStreamingRepository) proxyFactory.getProxy();
+  }
+
+  /**
+   * Repository streaming its entities.
+   */
+  public interface MockStreamingRepository {
+
+    Stream<String> streamAllByCode(String code);
+
+    long countByCode(String code);
+  }
+}
@@ -0,0 +1,37 @@
+package io.github.dhi13man.spring.datasource.routing;
+
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+class MultiDataSourceBeanAliasRegistrarTest {
+
+  private static final String MASTER_ENTITY_MANAGER_FACTORY_BEAN_NAME =
+      "master-entity-manager-factory";
+
+  private static final String REPLICA_ENTITY_MANAGER_FACTORY_BEAN_NAME =
+      "replica-entity-manager-factory";
+
+  @Test
+  void postProcessBeanDefinitionRegistry() {
+    // Arrange
+    final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+    final Object entityManagerFactory = new Object();
+    beanFactory.registerSingleton(MASTER_ENTITY_MANAGER_FACTORY_BEAN_NAME, entityManagerFactory);
+    final MultiDataSourceBeanAliasRegistrar aliasRegistrar = new MultiDataSourceBeanAliasRegistrar(
+        Map.of(REPLICA_ENTITY_MANAGER_FACTORY_BEAN_NAME, MASTER_ENTITY_MANAGER_FACTORY_BEAN_NAME)
+    );
+
+    // Act
+    aliasRegistrar.postProcessBeanDefinitionRegistry(beanFactory);
+    aliasRegistrar.postProcessBeanFactory(beanFactory);
+
+    // Assert
+    Assertions.assertTrue(beanFactory.isAlias(REPLICA_ENTITY_MANAGER_FACTORY_BEAN_NAME));
+    Assertions.assertSame(
+        entityManagerFactory,
+        beanFactory.getBean(REPLICA_ENTITY_MANAGER_FACTORY_BEAN_NAME)
+    );
+  }
+}
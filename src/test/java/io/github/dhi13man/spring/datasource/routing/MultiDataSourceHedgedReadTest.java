@@ -0,0 +1,258 @@
+package io.github.dhi13man.spring.datasource.routing;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class MultiDataSourceHedgedReadTest {
+
+  private static final String NAME = "MockRepository.findAll";
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void executeNotHedgedBeforeWarmUp() {
+    // Arrange
+    final MultiDataSourceHedgedRead hedgedRead =
+        new MultiDataSourceHedgedRead(NAME, 50, 1, 100, executor);
+
+    // Act
+    final String result = hedgedRead.execute(sleepThenReturn(50, "first"), () -> "second");
+
+    // Assert
+    Assertions.assertEquals("first", result);
+    Assertions.assertEquals(0, hedgedRead.getHedgedCount());
+    Assertions.assertEquals(Long.MAX_VALUE, hedgedRead.getHedgeDelayNanos());
+  }
+
+  @Test
+  void executeHedgesSlowCallAndCancelsIt() throws InterruptedException {
+    // Arrange
+    final MultiDataSourceHedgedRead hedgedRead =
+        new MultiDataSourceHedgedRead(NAME, 50, 1, 100, executor);
+    warmUp(hedgedRead);
+    final CountDownLatch interruptedLatch = new CountDownLatch(1);
+    final Supplier<String> blockedCall = () -> {
+      try {
+        Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+      } catch (InterruptedException e) {
+        interruptedLatch.countDown();
+      }
+      return "first";
+    };
+
+    // Act
+    final String result = hedgedRead.execute(blockedCall, () -> "second");
+
+    // Assert
+    Assertions.assertEquals("second", result);
+    Assertions.assertEquals(1, hedgedRead.getHedgedCount());
+    Assertions.assertTrue(interruptedLatch.await(5, TimeUnit.SECONDS));
+    Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(1), hedgedRead.getHedgeDelayNanos());
+  }
+
+  @Test
+  void executeHedgeFailureWaitsForFirstCall() {
+    // Arrange
+    final MultiDataSourceHedgedRead hedgedRead =
+        new MultiDataSourceHedgedRead(NAME, 50, 1, 100, executor);
+    warmUp(hedgedRead);
+
+    // Act
+    final String result = hedgedRead.execute(
+        sleepThenReturn(50, "first"),
+        () -> {
+          throw new IllegalStateException("second is down");
+        }
+    );
+
+    // Assert
+    Assertions.assertEquals("first", result);
+    Assertions.assertEquals(1, hedgedRead.getHedgedCount());
+  }
+
+  @Test
+  void executeHedgesCappedByBudget() {
+    // Arrange
+    // 1% of the 17 calls does not earn a whole hedge
+    final MultiDataSourceHedgedRead hedgedRead =
+        new MultiDataSourceHedgedRead(NAME, 50, 1, 1, executor);
+    warmUp(hedgedRead);
+
+    // Act
+    final String result = hedgedRead.execute(sleepThenReturn(50, "first"), () -> "second");
+
+    // Assert
+    Assertions.assertEquals("first", result);
+    Assertions.assertEquals(0, hedgedRead.getHedgedCount());
+  }
+
+  @Test
+  void executeNotHedgedRunsOnCallingThread() {
+    // Arrange
+    final MultiDataSourceHedgedRead hedgedRead =
+        new MultiDataSourceHedgedRead(NAME, 50, 1, 100, executor);
+    final Thread callingThread = Thread.currentThread();
+
+    // Act
+    final Thread result = hedgedRead.execute(Thread::currentThread, Thread::currentThread);
+
+    // Assert
+    Assertions.assertSame(callingThread, result);
+  }
+
+  @Test
+  void executeHedgedRunsFirstCallOnExecutor() {
+    // Arrange
+    final MultiDataSourceHedgedRead hedgedRead =
+        new MultiDataSourceHedgedRead(NAME, 50, 1, 100, executor);
+    warmUp(hedgedRead);
+    final Thread callingThread = Thread.currentThread();
+
+    // Act
+    final Thread result = hedgedRead.execute(Thread::currentThread, Thread::currentThread);
+
+    // Assert
+    Assertions.assertNotSame(callingThread, result);
+  }
+
+  @Test
+  void executeNotHedgedInActiveTransaction() {
+    // Arrange
+    final MultiDataSourceHedgedRead hedgedRead =
+        new MultiDataSourceHedgedRead(NAME, 50, 1, 100, executor);
+    warmUp(hedgedRead);
+    final Thread callingThread = Thread.currentThread();
+
+    // Act
+    final Thread result;
+    TransactionSynchronizationManager.setActualTransactionActive(true);
+    try {
+      result = hedgedRead.execute(Thread::currentThread, Thread::currentThread);
+    } finally {
+      TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    // Assert
+    Assertions.assertSame(callingThread, result);
+    Assertions.assertEquals(0, hedgedRead.getHedgedCount());
+  }
+
+  @Test
+  void executeInterruptedKeepsInterruptOfCallingThread() {
+    // Arrange
+    final MultiDataSourceHedgedRead hedgedRead =
+        new MultiDataSourceHedgedRead(NAME, 50, 1, 100, executor);
+    warmUp(hedgedRead);
+    Thread.currentThread().interrupt();
+
+    // Act
+    final CancellationException exception = Assertions.assertThrows(
+        CancellationException.class,
+        () -> hedgedRead.execute(sleepThenReturn(50, "first"), () -> "second")
+    );
+
+    // Assert
+    Assertions.assertTrue(Thread.interrupted());
+    Assertions.assertInstanceOf(InterruptedException.class, exception.getCause());
+  }
+
+  @Test
+  void executeHedgeRoutedToDataSourceOfCallingThread() {
+    // Arrange
+    final MultiDataSourceHedgedRead hedgedRead =
+        new MultiDataSourceHedgedRead(NAME, 50, 1, 100, executor);
+    warmUp(hedgedRead);
+    final Supplier<String> blockedCall = () -> {
+      try {
+        Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return "first";
+    };
+
+    // Act
+    final Supplier<String> hedgeCall = MultiDataSourceRoutingContext::getCurrentDataSourceName;
+    final String result = MultiDataSourceRoutingContext.callWithDataSource(
+        "replica",
+        () -> hedgedRead.execute(blockedCall, hedgeCall)
+    );
+
+    // Assert
+    Assertions.assertEquals("replica", result);
+    Assertions.assertEquals(1, hedgedRead.getHedgedCount());
+    Assertions.assertFalse(Thread.currentThread().isInterrupted());
+  }
+
+  @Test
+  void executeHedgeSkippedWhenExecutorRejectsIt() {
+    // Arrange
+    final ExecutorService rejectingExecutor = Executors.newSingleThreadExecutor();
+    rejectingExecutor.shutdown();
+    final MultiDataSourceHedgedRead hedgedRead =
+        new MultiDataSourceHedgedRead(NAME, 50, 1, 100, rejectingExecutor);
+    warmUp(hedgedRead);
+
+    // Act
+    final String result = hedgedRead.execute(sleepThenReturn(50, "first"), () -> "second");
+
+    // Assert
+    Assertions.assertEquals("first", result);
+    Assertions.assertEquals(0, hedgedRead.getHedgedCount());
+  }
+
+  @Test
+  void executeAllCallsFailed() {
+    // Arrange
+    final MultiDataSourceHedgedRead hedgedRead =
+        new MultiDataSourceHedgedRead(NAME, 50, 1, 100, executor);
+
+    // Act and Assert
+    final IllegalStateException exception = Assertions.assertThrows(
+        IllegalStateException.class,
+        () -> hedgedRead.execute(
+            () -> {
+              throw new IllegalStateException("first is down");
+            },
+            () -> {
+              throw new IllegalStateException("second is down");
+            }
+        )
+    );
+    Assertions.assertEquals("first is down", exception.getMessage());
+  }
+
+  /**
+   * Observe enough fast latencies for the hedged read to start hedging, ending on an even number
+   * of calls so that the next call starts on the first data source.
+   */
+  private static void warmUp(MultiDataSourceHedgedRead hedgedRead) {
+    for (int i = 0; i < MultiDataSourceHedgedRead.MIN_LATENCY_SAMPLES; i++) {
+      hedgedRead.execute(() -> "first", () -> "second");
+    }
+  }
+
+  private static Supplier<String> sleepThenReturn(long sleepMillis, String result) {
+    return () -> {
+      try {
+        Thread.sleep(sleepMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return result;
+    };
+  }
+}
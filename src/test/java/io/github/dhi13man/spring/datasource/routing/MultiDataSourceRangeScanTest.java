@@ -0,0 +1,196 @@
+package io.github.dhi13man.spring.datasource.routing;
+
+import io.github.dhi13man.spring.datasource.routing.MultiDataSourceRangeScan.RangeReader;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class MultiDataSourceRangeScanTest {
+
+  @Test
+  void scanSplitsRangeAcrossReaders() {
+    // Arrange
+    final List<String> replica1Reads = new CopyOnWriteArrayList<>();
+    final List<String> replica2Reads = new CopyOnWriteArrayList<>();
+    final MultiDataSourceRangeScan<Long> rangeScan = new MultiDataSourceRangeScan<>(
+        "MockRepository.findAllByIdRange",
+        2,
+        List.of(this.createReader(replica1Reads), this.createReader(replica2Reads))
+    );
+
+    // Act
+    final List<Long> rows = rangeScan.scan(0, 10, 3).collect(Collectors.toList());
+
+    // Assert the sub-ranges are spread over the readers, and the rows come back in order
+    Assertions.assertEquals(List.of("0-4", "7-10"), replica1Reads);
+    Assertions.assertEquals(List.of("4-7"), replica2Reads);
+    Assertions.assertEquals(
+        LongStream.range(0, 10).boxed().collect(Collectors.toList()),
+        rows
+    );
+  }
+
+  @Test
+  void scanBoundsConcurrency() {
+    // Arrange
+    final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger maxInFlight = new AtomicInteger();
+    final RangeReader<Long> slowReader = (fromInclusive, toExclusive) -> {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(20);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        inFlight.decrementAndGet();
+      }
+      return List.of(fromInclusive);
+    };
+    final MultiDataSourceRangeScan<Long> rangeScan = new MultiDataSourceRangeScan<>(
+        "MockRepository.findAllByIdRange",
+        2,
+        List.of(slowReader)
+    );
+
+    // Act
+    final List<Long> rows = rangeScan.scan(0, 8, 8).collect(Collectors.toList());
+
+    // Assert
+    Assertions.assertEquals(LongStream.range(0, 8).boxed().collect(Collectors.toList()), rows);
+    Assertions.assertTrue(maxInFlight.get() <= 2);
+  }
+
+  @Test
+  void scanReadsLazily() {
+    // Arrange
+    final List<String> reads = new CopyOnWriteArrayList<>();
+    final MultiDataSourceRangeScan<Long> rangeScan = new MultiDataSourceRangeScan<>(
+        "MockRepository.findAllByIdRange",
+        2,
+        List.of(this.createReader(reads))
+    );
+
+    // Act
+    final Optional<Long> firstRow;
+    try (Stream<Long> rows = rangeScan.scan(0, 100, 10)) {
+      firstRow = rows.findFirst();
+    }
+
+    // Assert only the sub-ranges ahead of the consumed one are read
+    Assertions.assertEquals(Optional.of(0L), firstRow);
+    Assertions.assertTrue(reads.size() <= 3);
+  }
+
+  @Test
+  void scanFailedRead() {
+    // Arrange
+    final MultiDataSourceRangeScan<Long> rangeScan = new MultiDataSourceRangeScan<>(
+        "MockRepository.findAllByIdRange",
+        2,
+        List.of((fromInclusive, toExclusive) -> {
+          throw new UnsupportedOperationException();
+        })
+    );
+
+    // Act and Assert the exception of the failed read is thrown
+    try (Stream<Long> rows = rangeScan.scan(0, 10, 2)) {
+      Assertions.assertThrows(UnsupportedOperationException.class, rows::count);
+    }
+  }
+
+  @Test
+  void scanEmptyRange() {
+    // Arrange
+    final MultiDataSourceRangeScan<Long> rangeScan = new MultiDataSourceRangeScan<>(
+        "MockRepository.findAllByIdRange",
+        2,
+        List.of(this.createReader(new CopyOnWriteArrayList<>()))
+    );
+
+    // Act and Assert
+    Assertions.assertEquals(0, rangeScan.scan(10, 10, 4).count());
+    Assertions.assertThrows(IllegalArgumentException.class, () -> rangeScan.scan(0, 10, 0));
+  }
+
+  @Test
+  void scanExecutorFullReadsOnConsumingThread() {
+    // Arrange
+    final ExecutorService rejectingExecutor = Executors.newSingleThreadExecutor();
+    rejectingExecutor.shutdown();
+    final MultiDataSourceRangeScan<Thread> rangeScan = new MultiDataSourceRangeScan<>(
+        "MockRepository.findAllByIdRange",
+        2,
+        List.of((fromInclusive, toExclusive) -> List.of(Thread.currentThread())),
+        rejectingExecutor
+    );
+
+    // Act
+    final List<Thread> rows = rangeScan.scan(0, 4, 2).collect(Collectors.toList());
+
+    // Assert
+    Assertions.assertEquals(List.of(Thread.currentThread(), Thread.currentThread()), rows);
+  }
+
+  @Test
+  void scanRoutedToDataSourceOfConsumingThread() {
+    // Arrange
+    final MultiDataSourceRangeScan<String> rangeScan = new MultiDataSourceRangeScan<>(
+        "MockRepository.findAllByIdRange",
+        2,
+        List.of((fromInclusive, toExclusive) -> List.of(
+            String.valueOf(MultiDataSourceRoutingContext.getCurrentDataSourceName())
+        ))
+    );
+
+    // Act
+    final List<String> rows = MultiDataSourceRoutingContext.callWithDataSource(
+        "replica",
+        () -> rangeScan.scan(0, 4, 2).collect(Collectors.toList())
+    );
+
+    // Assert
+    Assertions.assertEquals(List.of("replica", "replica"), rows);
+  }
+
+  @Test
+  void routedTo() {
+    // Arrange
+    final RangeReader<String> routedReader = MultiDataSourceRangeScan.routedTo(
+        "replica-2",
+        (fromInclusive, toExclusive) -> List.of(
+            MultiDataSourceRoutingContext.getCurrentDataSourceName()
+        )
+    );
+
+    // Act
+    final List<String> rows = routedReader.read(0, 10);
+
+    // Assert
+    Assertions.assertEquals(List.of("replica-2"), rows);
+    Assertions.assertNull(MultiDataSourceRoutingContext.getCurrentDataSourceName());
+  }
+
+  @Test
+  void constructorNoReaders() {
+    // Act and Assert IllegalArgumentException thrown, as there is nothing to read from
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> new MultiDataSourceRangeScan<Long>("MockRepository.findAllByIdRange", 2, List.of())
+    );
+  }
+
+  private RangeReader<Long> createReader(List<String> reads) {
+    return (fromInclusive, toExclusive) -> {
+      reads.add(fromInclusive + "-" + toExclusive);
+      return LongStream.range(fromInclusive, toExclusive).boxed().collect(Collectors.toList());
+    };
+  }
+}
@@ -0,0 +1,116 @@
+package io.github.dhi13man.spring.datasource.routing;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class MultiDataSourceReadYourWritesDataSourceTest {
+
+  private final DataSource primaryDataSource = Mockito.mock(DataSource.class);
+
+  private final DataSource replicaDataSource = Mockito.mock(DataSource.class);
+
+  private final Connection primaryConnection = Mockito.mock(Connection.class);
+
+  private final Connection replicaConnection = Mockito.mock(Connection.class);
+
+  private final MultiDataSourceReadYourWrites readYourWrites =
+      new MultiDataSourceReadYourWrites("replica", 60000);
+
+  private final MultiDataSourceReadYourWritesDataSource dataSource =
+      new MultiDataSourceReadYourWritesDataSource(
+          replicaDataSource,
+          readYourWrites,
+          () -> primaryDataSource
+      );
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    Mockito.when(primaryDataSource.getConnection()).thenReturn(primaryConnection);
+    Mockito.when(replicaDataSource.getConnection()).thenReturn(replicaConnection);
+  }
+
+  @AfterEach
+  void tearDown() {
+    MultiDataSourceReadYourWritesContext.clear();
+  }
+
+  @Test
+  void getConnectionWithoutWrite() throws SQLException {
+    // Act
+    final Connection connection = dataSource.getConnection();
+
+    // Assert
+    Assertions.assertSame(replicaConnection, connection);
+    Assertions.assertEquals(0, readYourWrites.getStickyCount());
+  }
+
+  @Test
+  void getConnectionWithinWindowOfWrite() throws SQLException {
+    // Arrange
+    MultiDataSourceReadYourWritesContext.recordPrimaryWrite();
+
+    // Act
+    final Connection connection = dataSource.getConnection();
+
+    // Assert
+    Assertions.assertSame(primaryConnection, connection);
+    Assertions.assertEquals(1, readYourWrites.getStickyCount());
+  }
+
+  @Test
+  void getConnectionAfterWindowOfWrite() throws SQLException {
+    // Arrange
+    MultiDataSourceReadYourWritesContext
+        .restoreLastPrimaryWrite(System.currentTimeMillis() - 120000);
+
+    // Act
+    final Connection connection = dataSource.getConnection();
+
+    // Assert
+    Assertions.assertSame(replicaConnection, connection);
+  }
+
+  @Test
+  void getConnectionOnOtherThread() throws Exception {
+    // Arrange
+    MultiDataSourceReadYourWritesContext.recordPrimaryWrite();
+    final Connection[] connection = new Connection[1];
+    final Thread otherSession = new Thread(() -> {
+      try {
+        connection[0] = dataSource.getConnection();
+      } catch (SQLException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+
+    // Act
+    otherSession.start();
+    otherSession.join();
+
+    // Assert the other sessions keep reading from the replica
+    Assertions.assertSame(replicaConnection, connection[0]);
+  }
+
+  @Test
+  void restoreLastPrimaryWriteKeepsLaterWrite() {
+    // Arrange
+    MultiDataSourceReadYourWritesContext.recordPrimaryWrite();
+    final Long lastPrimaryWriteMillis = MultiDataSourceReadYourWritesContext
+        .getLastPrimaryWriteMillis();
+
+    // Act
+    MultiDataSourceReadYourWritesContext.restoreLastPrimaryWrite(0);
+
+    // Assert
+    Assertions.assertEquals(
+        lastPrimaryWriteMillis,
+        MultiDataSourceReadYourWritesContext.getLastPrimaryWriteMillis()
+    );
+  }
+}
@@ -0,0 +1,91 @@
+package io.github.dhi13man.spring.datasource.routing;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class MultiDataSourceReadYourWritesFilterTest {
+
+  private final HttpServletRequest mockRequest = Mockito.mock(HttpServletRequest.class);
+
+  private final HttpServletResponse mockResponse = Mockito.mock(HttpServletResponse.class);
+
+  private final HttpSession mockSession = Mockito.mock(HttpSession.class);
+
+  @AfterEach
+  void tearDown() {
+    MultiDataSourceReadYourWritesContext.clear();
+  }
+
+  @Test
+  void doFilterClearsWritesOfPreviousRequest() throws Exception {
+    // Arrange
+    final MultiDataSourceReadYourWritesFilter filter = new MultiDataSourceReadYourWritesFilter();
+    MultiDataSourceReadYourWritesContext.recordPrimaryWrite();
+    final Long[] requestLastPrimaryWriteMillis = new Long[1];
+    final FilterChain chain = (request, response) -> {
+      requestLastPrimaryWriteMillis[0] =
+          MultiDataSourceReadYourWritesContext.getLastPrimaryWriteMillis();
+      MultiDataSourceReadYourWritesContext.recordPrimaryWrite();
+    };
+
+    // Act
+    filter.doFilter(mockRequest, mockResponse, chain);
+
+    // Assert
+    Assertions.assertNull(requestLastPrimaryWriteMillis[0]);
+    Assertions.assertNull(MultiDataSourceReadYourWritesContext.getLastPrimaryWriteMillis());
+    Mockito.verifyNoInteractions(mockRequest);
+  }
+
+  @Test
+  void doFilterFailedRequestCleared() {
+    // Arrange
+    final MultiDataSourceReadYourWritesFilter filter = new MultiDataSourceReadYourWritesFilter();
+    final FilterChain chain = (request, response) -> {
+      MultiDataSourceReadYourWritesContext.recordPrimaryWrite();
+      throw new ServletException("failed");
+    };
+
+    // Act and Assert
+    Assertions.assertThrows(
+        ServletException.class,
+        () -> filter.doFilter(mockRequest, mockResponse, chain)
+    );
+    Assertions.assertNull(MultiDataSourceReadYourWritesContext.getLastPrimaryWriteMillis());
+  }
+
+  @Test
+  void doFilterSessionStickyRestoresAndSavesLastWrite() throws Exception {
+    // Arrange
+    final MultiDataSourceReadYourWritesFilter filter =
+        new MultiDataSourceReadYourWritesFilter(true);
+    Mockito.when(mockRequest.getSession(false)).thenReturn(mockSession);
+    Mockito.when(mockSession.getAttribute(
+        MultiDataSourceReadYourWritesFilter.LAST_PRIMARY_WRITE_MILLIS_ATTRIBUTE_NAME
+    )).thenReturn(1234L);
+    final Long[] requestLastPrimaryWriteMillis = new Long[1];
+    final FilterChain chain = (request, response) -> {
+      requestLastPrimaryWriteMillis[0] =
+          MultiDataSourceReadYourWritesContext.getLastPrimaryWriteMillis();
+      MultiDataSourceReadYourWritesContext.restoreLastPrimaryWrite(5678);
+    };
+
+    // Act
+    filter.doFilter(mockRequest, mockResponse, chain);
+
+    // Assert
+    Assertions.assertEquals(1234L, requestLastPrimaryWriteMillis[0]);
+    Mockito.verify(mockSession).setAttribute(
+        MultiDataSourceReadYourWritesFilter.LAST_PRIMARY_WRITE_MILLIS_ATTRIBUTE_NAME,
+        5678L
+    );
+    Assertions.assertNull(MultiDataSourceReadYourWritesContext.getLastPrimaryWriteMillis());
+  }
+}
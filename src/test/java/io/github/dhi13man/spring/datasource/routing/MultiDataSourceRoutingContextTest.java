@@ -0,0 +1,293 @@
+package io.github.dhi13man.spring.datasource.routing;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+class MultiDataSourceRoutingContextTest {
+
+  private static final String MASTER_DATA_SOURCE_NAME = "master";
+
+  private static final String REPLICA_DATA_SOURCE_NAME = "replica";
+
+  private static final int CONNECTION_POOL_SIZE = 32;
+
+  @Test
+  void callWithDataSourceNested() {
+    // Act
+    final List<String> dataSourceNames = MultiDataSourceRoutingContext.callWithDataSource(
+        MASTER_DATA_SOURCE_NAME,
+        () -> List.of(
+            MultiDataSourceRoutingContext.getCurrentDataSourceName(),
+            MultiDataSourceRoutingContext.callWithDataSource(
+                REPLICA_DATA_SOURCE_NAME,
+                MultiDataSourceRoutingContext::getCurrentDataSourceName
+            ),
+            MultiDataSourceRoutingContext.getCurrentDataSourceName()
+        )
+    );
+
+    // Assert
+    Assertions.assertEquals(
+        List.of(MASTER_DATA_SOURCE_NAME, REPLICA_DATA_SOURCE_NAME, MASTER_DATA_SOURCE_NAME),
+        dataSourceNames
+    );
+    Assertions.assertNull(MultiDataSourceRoutingContext.getCurrentDataSourceName());
+  }
+
+  @Test
+  void invokeWithDataSourceRethrowsCheckedException() {
+    // Arrange
+    final SQLException exception = new SQLException("failed");
+
+    // Act and Assert the checked exception is rethrown as is, and the routing is cleared
+    final SQLException thrown = Assertions.assertThrows(
+        SQLException.class,
+        () -> MultiDataSourceRoutingContext.invokeWithDataSource(
+            REPLICA_DATA_SOURCE_NAME,
+            () -> {
+              throw exception;
+            }
+        )
+    );
+    Assertions.assertSame(exception, thrown);
+    Assertions.assertNull(MultiDataSourceRoutingContext.getCurrentDataSourceName());
+  }
+
+  @Test
+  void wrapSupplierCompletableFuture() {
+    // Arrange
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    try {
+      // Act
+      final CompletableFuture<String> future = MultiDataSourceRoutingContext.callWithDataSource(
+          REPLICA_DATA_SOURCE_NAME,
+          () -> CompletableFuture.supplyAsync(
+              MultiDataSourceRoutingContext
+                  .wrapSupplier(MultiDataSourceRoutingContext::getCurrentDataSourceName),
+              executor
+          )
+      );
+
+      // Assert
+      Assertions.assertEquals(REPLICA_DATA_SOURCE_NAME, future.join());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void wrapExecutorCompletableFuture() {
+    // Arrange
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    try {
+      // Act
+      final CompletableFuture<String> future = MultiDataSourceRoutingContext.callWithDataSource(
+          REPLICA_DATA_SOURCE_NAME,
+          () -> CompletableFuture
+              .supplyAsync(() -> "ignored", MultiDataSourceRoutingContext.wrapExecutor(executor))
+              .thenApply(ignored -> MultiDataSourceRoutingContext.getCurrentDataSourceName())
+      );
+
+      // Assert
+      Assertions.assertEquals(REPLICA_DATA_SOURCE_NAME, future.join());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void wrapCallableTaskDecorator() throws Exception {
+    // Arrange
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    final String[] decoratedDataSourceName = new String[1];
+
+    try {
+      // Act
+      final Future<String> future = MultiDataSourceRoutingContext.callWithDataSource(
+          REPLICA_DATA_SOURCE_NAME,
+          () -> executor.submit(
+              MultiDataSourceRoutingContext
+                  .wrapCallable(MultiDataSourceRoutingContext::getCurrentDataSourceName)
+          )
+      );
+      final Runnable decoratedTask = MultiDataSourceRoutingContext.callWithDataSource(
+          MASTER_DATA_SOURCE_NAME,
+          () -> new MultiDataSourceRoutingTaskDecorator().decorate(
+              () -> decoratedDataSourceName[0] = MultiDataSourceRoutingContext
+                  .getCurrentDataSourceName()
+          )
+      );
+      executor.submit(decoratedTask).get();
+
+      // Assert
+      Assertions.assertEquals(REPLICA_DATA_SOURCE_NAME, future.get());
+      Assertions.assertEquals(MASTER_DATA_SOURCE_NAME, decoratedDataSourceName[0]);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void wrapRunnableTaskDecoratorLastPrimaryWrite() throws Exception {
+    // Arrange
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    final Long[] workerLastPrimaryWriteMillis = new Long[2];
+
+    try {
+      MultiDataSourceReadYourWritesContext.restoreLastPrimaryWrite(1234);
+      final Runnable decoratedTask = new MultiDataSourceRoutingTaskDecorator().decorate(
+          () -> workerLastPrimaryWriteMillis[0] = MultiDataSourceReadYourWritesContext
+              .getLastPrimaryWriteMillis()
+      );
+      MultiDataSourceReadYourWritesContext.clear();
+
+      // Act
+      executor.submit(decoratedTask).get();
+      executor.submit(
+          () -> workerLastPrimaryWriteMillis[1] = MultiDataSourceReadYourWritesContext
+              .getLastPrimaryWriteMillis()
+      ).get();
+
+      // Assert the unrouted task runs with the last write of the submitting thread, only
+      Assertions.assertEquals(1234L, workerLastPrimaryWriteMillis[0]);
+      Assertions.assertNull(workerLastPrimaryWriteMillis[1]);
+    } finally {
+      MultiDataSourceReadYourWritesContext.clear();
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void routingDataSourcePlatformThreads() {
+    // Arrange
+    final ExecutorService executor = Executors.newFixedThreadPool(64);
+
+    try {
+      // Act and Assert every call opens its connection on its own data source
+      Assertions.assertTimeoutPreemptively(
+          Duration.ofMinutes(1),
+          () -> this.assertRoutedConcurrently(executor, 10_000)
+      );
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Routes 100k concurrent virtual threads across two H2 databases, with connections capped like a
+   * pool would, to check that the routing neither leaks between nor pins the virtual threads.
+   */
+  @Test
+  @EnabledForJreRange(min = JRE.JAVA_21)
+  void routingDataSourceVirtualThreads() throws ReflectiveOperationException {
+    // Arrange
+    final ExecutorService executor = (ExecutorService) Executors.class
+        .getMethod("newVirtualThreadPerTaskExecutor")
+        .invoke(null);
+
+    try {
+      // Act and Assert every call opens its connection on its own data source
+      Assertions.assertTimeoutPreemptively(
+          Duration.ofMinutes(2),
+          () -> this.assertRoutedConcurrently(executor, 100_000)
+      );
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Route concurrent calls alternately to a master and a replica H2 database through a
+   * {@link MultiDataSourceRoutingDataSource}, and assert that each call reaches its database.
+   *
+   * @param executor  the executor to run the calls on
+   * @param callCount the number of calls
+   * @throws Exception if any call fails
+   */
+  private void assertRoutedConcurrently(ExecutorService executor, int callCount) throws Exception {
+    final JdbcConnectionPool masterPool = this.createH2ConnectionPool("routing_master");
+    final JdbcConnectionPool replicaPool = this.createH2ConnectionPool("routing_replica");
+    final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+    beanFactory.registerSingleton("master-data-source", masterPool);
+    beanFactory.registerSingleton("replica-data-source", replicaPool);
+    final MultiDataSourceRoutingDataSource routingDataSource =
+        new MultiDataSourceRoutingDataSource(
+            beanFactory,
+            "master-data-source",
+            Map.of(
+                MASTER_DATA_SOURCE_NAME, "master-data-source",
+                REPLICA_DATA_SOURCE_NAME, "replica-data-source"
+            ),
+            Set.of()
+        );
+    routingDataSource.afterPropertiesSet();
+    // Acquired outside the H2 pools, as they wait for connections in synchronized blocks
+    final Semaphore connectionPool = new Semaphore(CONNECTION_POOL_SIZE);
+
+    final List<Future<Boolean>> results = new ArrayList<>(callCount);
+    for (int i = 0; i < callCount; i++) {
+      final String dataSourceName = i % 2 == 0 ? MASTER_DATA_SOURCE_NAME : REPLICA_DATA_SOURCE_NAME;
+      final Callable<Boolean> call = () -> MultiDataSourceRoutingContext.callWithDataSource(
+          dataSourceName,
+          () -> this.queryDatabaseName(routingDataSource, connectionPool)
+              .equalsIgnoreCase("routing_" + dataSourceName)
+      );
+      results.add(executor.submit(call));
+    }
+    try {
+      for (final Future<Boolean> result : results) {
+        Assertions.assertTrue(result.get());
+      }
+    } finally {
+      masterPool.dispose();
+      replicaPool.dispose();
+    }
+  }
+
+  private String queryDatabaseName(
+      MultiDataSourceRoutingDataSource routingDataSource,
+      Semaphore connectionPool
+  ) {
+    connectionPool.acquireUninterruptibly();
+    try (
+        final Connection connection = routingDataSource.getConnection();
+        final Statement statement = connection.createStatement();
+        final ResultSet resultSet = statement.executeQuery("SELECT DATABASE()")
+    ) {
+      resultSet.next();
+      return resultSet.getString(1);
+    } catch (SQLException e) {
+      throw new IllegalStateException(e);
+    } finally {
+      connectionPool.release();
+    }
+  }
+
+  private JdbcConnectionPool createH2ConnectionPool(String databaseName) {
+    final JdbcConnectionPool connectionPool = JdbcConnectionPool
+        .create("jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1", "", "");
+    connectionPool.setMaxConnections(CONNECTION_POOL_SIZE);
+    return connectionPool;
+  }
+}
@@ -0,0 +1,179 @@
+package io.github.dhi13man.spring.datasource.routing;
+
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceCircuitBreaker;
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceConcurrencyLimiter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Set;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+
+class MultiDataSourceRoutingDataSourceTest {
+
+  private static final String MASTER_DATA_SOURCE_BEAN_NAME = "master-data-source";
+
+  private static final String REPLICA_DATA_SOURCE_BEAN_NAME = "replica-data-source";
+
+  private static final String READ_REPLICA_DATA_SOURCE_BEAN_NAME = "read-replica-data-source";
+
+  private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+  private final Connection masterConnection = Mockito.mock(Connection.class);
+
+  private final Connection replicaConnection = Mockito.mock(Connection.class);
+
+  private final Connection readReplicaConnection = Mockito.mock(Connection.class);
+
+  private MultiDataSourceRoutingDataSource routingDataSource;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    this.registerDataSource(MASTER_DATA_SOURCE_BEAN_NAME, masterConnection);
+    this.registerDataSource(REPLICA_DATA_SOURCE_BEAN_NAME, replicaConnection);
+    this.registerDataSource(READ_REPLICA_DATA_SOURCE_BEAN_NAME, readReplicaConnection);
+    routingDataSource = this.createRoutingDataSource();
+  }
+
+  @Test
+  void getConnectionNotRouted() throws SQLException {
+    // Act
+    final Connection connection = routingDataSource.getConnection();
+
+    // Assert
+    Assertions.assertSame(masterConnection, connection);
+    Mockito.verify(masterConnection, Mockito.never()).setReadOnly(true);
+  }
+
+  @Test
+  void getConnectionRouted() {
+    // Act
+    final Connection connection = MultiDataSourceRoutingContext
+        .callWithDataSource("replica", this::getConnection);
+
+    // Assert
+    Assertions.assertSame(replicaConnection, connection);
+    Assertions.assertNull(MultiDataSourceRoutingContext.getCurrentDataSourceName());
+  }
+
+  @Test
+  void getConnectionRoutedReadOnly() throws SQLException {
+    // Act
+    final Connection connection = MultiDataSourceRoutingContext
+        .callWithDataSource("read-replica", this::getConnection);
+
+    // Assert
+    Assertions.assertSame(readReplicaConnection, connection);
+    Mockito.verify(readReplicaConnection).setReadOnly(true);
+  }
+
+  @Test
+  void getConnectionRoutedUnknownDataSource() {
+    // Act and Assert IllegalStateException thrown instead of falling back to the primary
+    Assertions.assertThrows(
+        IllegalStateException.class,
+        () -> MultiDataSourceRoutingContext.callWithDataSource("unknown", this::getConnection)
+    );
+  }
+
+  @Test
+  void getConnectionRoutedConcurrencyLimited() {
+    // Arrange
+    final MultiDataSourceConcurrencyLimiter limiter =
+        new MultiDataSourceConcurrencyLimiter("replica", 1, 1, 1000, 50, true);
+    beanFactory.registerSingleton("replica" + MultiDataSourceConcurrencyLimiter.BEAN_NAME_SUFFIX,
+        limiter);
+    routingDataSource = this.createRoutingDataSource();
+
+    // Act
+    final Connection connection = MultiDataSourceRoutingContext
+        .callWithDataSource("replica", this::getConnection);
+    final Connection divertedConnection = MultiDataSourceRoutingContext
+        .callWithDataSource("replica", this::getConnection);
+
+    // Assert
+    Assertions.assertSame(replicaConnection, ((ConnectionProxy) connection).getTargetConnection());
+    Assertions.assertSame(masterConnection, divertedConnection);
+    Assertions.assertEquals(1, limiter.getDivertedCount());
+  }
+
+  @Test
+  void getConnectionRoutedCircuitBroken() {
+    // Arrange
+    final MultiDataSourceCircuitBreaker circuitBreaker = new MultiDataSourceCircuitBreaker(
+        "replica",
+        1,
+        60000,
+        1,
+        MASTER_DATA_SOURCE_BEAN_NAME
+    );
+    beanFactory.registerSingleton("replica" + MultiDataSourceCircuitBreaker.BEAN_NAME_SUFFIX,
+        circuitBreaker);
+    routingDataSource = this.createRoutingDataSource();
+    circuitBreaker.recordFailure();
+
+    // Act
+    final Connection connection = MultiDataSourceRoutingContext
+        .callWithDataSource("replica", this::getConnection);
+
+    // Assert the open circuit fails over to the primary data source
+    Assertions.assertSame(masterConnection, connection);
+  }
+
+  @Test
+  void getConnectionRoutedReadYourWrites() {
+    // Arrange
+    final MultiDataSourceReadYourWrites readYourWrites =
+        new MultiDataSourceReadYourWrites("replica", 60000);
+    beanFactory.registerSingleton("replica" + MultiDataSourceReadYourWrites.BEAN_NAME_SUFFIX,
+        readYourWrites);
+    routingDataSource = this.createRoutingDataSource();
+    MultiDataSourceReadYourWritesContext.recordPrimaryWrite();
+
+    try {
+      // Act
+      final Connection connection = MultiDataSourceRoutingContext
+          .callWithDataSource("replica", this::getConnection);
+
+      // Assert the read after the write of the session sticks to the primary data source
+      Assertions.assertSame(masterConnection, connection);
+      Assertions.assertEquals(1, readYourWrites.getStickyCount());
+    } finally {
+      MultiDataSourceReadYourWritesContext.clear();
+    }
+  }
+
+  private MultiDataSourceRoutingDataSource createRoutingDataSource() {
+    final MultiDataSourceRoutingDataSource dataSource = new MultiDataSourceRoutingDataSource(
+        beanFactory,
+        MASTER_DATA_SOURCE_BEAN_NAME,
+        Map.of(
+            "master", MASTER_DATA_SOURCE_BEAN_NAME,
+            "replica", REPLICA_DATA_SOURCE_BEAN_NAME,
+            "read-replica", READ_REPLICA_DATA_SOURCE_BEAN_NAME
+        ),
+        Set.of("read-replica")
+    );
+    dataSource.afterPropertiesSet();
+    return dataSource;
+  }
+
+  private Connection getConnection() {
+    try {
+      return routingDataSource.getConnection();
+    } catch (SQLException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void registerDataSource(String beanName, Connection connection) throws SQLException {
+    final DataSource dataSource = Mockito.mock(DataSource.class);
+    Mockito.when(dataSource.getConnection()).thenReturn(connection);
+    beanFactory.registerSingleton(beanName, dataSource);
+  }
+}
@@ -0,0 +1,187 @@
+package io.github.dhi13man.spring.datasource.routing;
+
+import io.github.dhi13man.spring.datasource.annotations.HedgedRead;
+import io.github.dhi13man.spring.datasource.annotations.TargetSecondaryDataSource;
+import io.github.dhi13man.spring.datasource.pool.MultiDataSourceBulkheadExecutor;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+class MultiDataSourceRoutingInterceptorTest {
+
+  private final MultiDataSourceRoutingInterceptor routingInterceptor =
+      new MultiDataSourceRoutingInterceptor();
+
+  private final MockRoutedRepository repository = this.createRoutedRepository();
+
+  @Test
+  void invokeSingleDataSource() {
+    // Act
+    final String dataSourceName = repository.findOnReplica();
+
+    // Assert
+    Assertions.assertEquals("replica", dataSourceName);
+    Assertions.assertNull(MultiDataSourceRoutingContext.getCurrentDataSourceName());
+  }
+
+  @Test
+  void invokeMultipleDataSourcesRoundRobin() {
+    // Act
+    final List<String> dataSourceNames = List.of(
+        repository.findOnAnyReplica(),
+        repository.findOnAnyReplica(),
+        repository.findOnAnyReplica()
+    );
+
+    // Assert
+    Assertions.assertEquals(List.of("replica", "reporting", "replica"), dataSourceNames);
+  }
+
+  @Test
+  void invokeAlreadyRouted() {
+    // Act
+    final String dataSourceName = MultiDataSourceRoutingContext
+        .callWithDataSource("reporting", repository::findOnReplica);
+
+    // Assert
+    Assertions.assertEquals("reporting", dataSourceName);
+  }
+
+  @Test
+  void invokeNotAnnotated() {
+    // Act
+    final String dataSourceName = repository.findOnPrimary();
+
+    // Assert
+    Assertions.assertNull(dataSourceName);
+  }
+
+  @Test
+  void invokeCompletableFutureOnAsyncExecutor() {
+    // Arrange
+    final MultiDataSourceBulkheadExecutor asyncExecutor = new MultiDataSourceBulkheadExecutor(
+        "replica-data-source",
+        Mockito.mock(DataSource.class),
+        0,
+        false
+    );
+    asyncExecutor.initialize();
+    final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+    beanFactory.registerSingleton("replica" + MultiDataSourceBulkheadExecutor.BEAN_NAME_SUFFIX,
+        asyncExecutor);
+    routingInterceptor.setBeanFactory(beanFactory);
+
+    try {
+      // Act
+      final String dataSourceNameAndThread = repository.findOnReplicaAsync().join();
+
+      // Assert the method is routed on a thread of the executor of its data source
+      Assertions.assertTrue(
+          dataSourceNameAndThread.startsWith("replica@replica-data-source-async-executor-"),
+          dataSourceNameAndThread
+      );
+    } finally {
+      asyncExecutor.shutdown();
+    }
+  }
+
+  @Test
+  void invokeCompletableFutureWithoutAsyncExecutor() {
+    // Act
+    final String dataSourceNameAndThread = repository.findOnReplicaAsync().join();
+
+    // Assert the method is routed on the thread of the caller
+    Assertions
+        .assertEquals("replica@" + Thread.currentThread().getName(), dataSourceNameAndThread);
+  }
+
+  @Test
+  void invokeHedgedRead() {
+    // Act
+    final List<String> dataSourceNamesAndThreads = List.of(
+        repository.findOnAnyReplicaHedged(),
+        repository.findOnAnyReplicaHedged()
+    );
+
+    // Assert the calls are routed on the thread of the caller, in a round-robin until warmed up
+    final String threadName = Thread.currentThread().getName();
+    Assertions.assertEquals(
+        List.of("replica@" + threadName, "reporting@" + threadName),
+        dataSourceNamesAndThreads
+    );
+    Assertions.assertNull(MultiDataSourceRoutingContext.getCurrentDataSourceName());
+  }
+
+  @Test
+  void hasTargetSecondaryDataSourceMethods() {
+    // Act and Assert
+    Assertions.assertTrue(
+        routingInterceptor.hasTargetSecondaryDataSourceMethods(MockRoutedRepository.class)
+    );
+    Assertions.assertFalse(routingInterceptor.hasTargetSecondaryDataSourceMethods(Runnable.class));
+  }
+
+  private MockRoutedRepository createRoutedRepository() {
+    final ProxyFactory proxyFactory = new ProxyFactory(new MockRoutedRepository() {
+      @Override
+      public String findOnReplica() {
+        return MultiDataSourceRoutingContext.getCurrentDataSourceName();
+      }
+
+      @Override
+      public String findOnAnyReplica() {
+        return MultiDataSourceRoutingContext.getCurrentDataSourceName();
+      }
+
+      @Override
+      public String findOnAnyReplicaHedged() {
+        return MultiDataSourceRoutingContext.getCurrentDataSourceName()
+            + "@" + Thread.currentThread().getName();
+      }
+
+      @Override
+      public String findOnPrimary() {
+        return MultiDataSourceRoutingContext.getCurrentDataSourceName();
+      }
+
+      @Override
+      public CompletableFuture<String> findOnReplicaAsync() {
+        return CompletableFuture.completedFuture(
+            MultiDataSourceRoutingContext.getCurrentDataSourceName() + "@"
+                + Thread.currentThread().getName()
+        );
+      }
+    });
+    proxyFactory.addInterface(MockRoutedRepository.class);
+    proxyFactory.addAdvice(routingInterceptor);
+    return (MockRoutedRepository) proxyFactory.getProxy();
+  }
+
+  /**
+   * Repository returning the data source it is routed to.
+   */
+  public interface MockRoutedRepository {
+
+    @TargetSecondaryDataSource("replica")
+    String findOnReplica();
+
+    @TargetSecondaryDataSource("replica")
+    @TargetSecondaryDataSource("reporting")
+    String findOnAnyReplica();
+
+    @HedgedRead
+    @TargetSecondaryDataSource("replica")
+    @TargetSecondaryDataSource("reporting")
+    String findOnAnyReplicaHedged();
+
+    String findOnPrimary();
+
+    @TargetSecondaryDataSource("replica")
+    CompletableFuture<String> findOnReplicaAsync();
+  }
+}
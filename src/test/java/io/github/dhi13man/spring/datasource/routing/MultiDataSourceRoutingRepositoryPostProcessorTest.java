@@ -0,0 +1,79 @@
+package io.github.dhi13man.spring.datasource.routing;
+
+import io.github.dhi13man.spring.datasource.routing.MultiDataSourceRoutingInterceptorTest.MockRoutedRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.data.repository.core.support.RepositoryFactoryCustomizer;
+import org.springframework.data.repository.core.support.RepositoryFactorySupport;
+import org.springframework.data.repository.core.support.RepositoryProxyPostProcessor;
+
+class MultiDataSourceRoutingRepositoryPostProcessorTest {
+
+  private final MultiDataSourceRoutingRepositoryPostProcessor postProcessor =
+      new MultiDataSourceRoutingRepositoryPostProcessor();
+
+  @Test
+  void postProcessBeforeInitializationRoutedRepository() {
+    // Act
+    final ProxyFactory proxyFactory = this.postProcessRepository(MockRoutedRepository.class);
+
+    // Assert
+    Assertions.assertEquals(1, proxyFactory.getAdvisorCount());
+    Assertions.assertTrue(
+        proxyFactory.getAdvisors()[0].getAdvice() instanceof MultiDataSourceRoutingInterceptor
+    );
+  }
+
+  @Test
+  void postProcessBeforeInitializationNotRoutedRepository() {
+    // Act
+    final ProxyFactory proxyFactory = this.postProcessRepository(Runnable.class);
+
+    // Assert
+    Assertions.assertEquals(0, proxyFactory.getAdvisorCount());
+  }
+
+  @Test
+  void postProcessBeforeInitializationNotRepository() {
+    // Arrange
+    final Object bean = new Object();
+
+    // Act and Assert
+    Assertions.assertSame(bean, postProcessor.postProcessBeforeInitialization(bean, "bean"));
+  }
+
+  /**
+   * Post process a mock repository factory bean and run the repository proxy post processor it
+   * gets on a new {@link ProxyFactory}.
+   *
+   * @param repositoryInterface the interface of the repository
+   * @return the {@link ProxyFactory} of the repository after post processing
+   */
+  private ProxyFactory postProcessRepository(Class<?> repositoryInterface) {
+    final RepositoryFactoryBeanSupport<?, ?, ?> factoryBean = Mockito
+        .mock(RepositoryFactoryBeanSupport.class);
+    final RepositoryFactorySupport repositoryFactory = Mockito
+        .mock(RepositoryFactorySupport.class);
+    final RepositoryInformation repositoryInformation = Mockito.mock(RepositoryInformation.class);
+    Mockito.doReturn(repositoryInterface).when(repositoryInformation).getRepositoryInterface();
+
+    postProcessor.postProcessBeforeInitialization(factoryBean, "repository");
+    final ArgumentCaptor<RepositoryFactoryCustomizer> customizerCaptor = ArgumentCaptor
+        .forClass(RepositoryFactoryCustomizer.class);
+    Mockito.verify(factoryBean).addRepositoryFactoryCustomizer(customizerCaptor.capture());
+    customizerCaptor.getValue().customize(repositoryFactory);
+    final ArgumentCaptor<RepositoryProxyPostProcessor> proxyPostProcessorCaptor = ArgumentCaptor
+        .forClass(RepositoryProxyPostProcessor.class);
+    Mockito.verify(repositoryFactory)
+        .addRepositoryProxyPostProcessor(proxyPostProcessorCaptor.capture());
+
+    final ProxyFactory proxyFactory = new ProxyFactory();
+    proxyPostProcessorCaptor.getValue().postProcess(proxyFactory, repositoryInformation);
+    return proxyFactory;
+  }
+}
@@ -0,0 +1,234 @@
+package io.github.dhi13man.spring.datasource.routing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.orm.jpa.JpaDialect;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+class MultiDataSourceRoutingTransactionManagerTest {
+
+  private static final String REPLICA_DATA_SOURCE_NAME = "replica";
+
+  private static final String OTHER_REPLICA_DATA_SOURCE_NAME = "other-replica";
+
+  private final EntityManagerFactory entityManagerFactory = Mockito
+      .mock(EntityManagerFactory.class, Mockito.RETURNS_DEEP_STUBS);
+
+  private final JpaDialect jpaDialect = Mockito.mock(JpaDialect.class);
+
+  @Test
+  void getTransactionBeginsRoutedToDataSource() throws Exception {
+    // Arrange
+    final MultiDataSourceRoutingTransactionManager transactionManager =
+        new MultiDataSourceRoutingTransactionManager(
+            entityManagerFactory,
+            REPLICA_DATA_SOURCE_NAME,
+            false
+        );
+    transactionManager.setJpaDialect(jpaDialect);
+    final List<String> beginDataSourceNames = new ArrayList<>();
+    Mockito.when(jpaDialect.beginTransaction(ArgumentMatchers.any(), ArgumentMatchers.any()))
+        .thenAnswer(invocation -> {
+          beginDataSourceNames.add(MultiDataSourceRoutingContext.getCurrentDataSourceName());
+          return null;
+        });
+    final ArgumentCaptor<TransactionDefinition> definitionCaptor = ArgumentCaptor
+        .forClass(TransactionDefinition.class);
+
+    // Act
+    final TransactionStatus status = transactionManager
+        .getTransaction(new DefaultTransactionDefinition());
+    final String dataSourceNameInTransaction = MultiDataSourceRoutingContext
+        .getCurrentDataSourceName();
+    transactionManager.rollback(status);
+
+    // Assert the routing only lasts while the connection of the transaction is opened
+    Assertions.assertEquals(List.of(REPLICA_DATA_SOURCE_NAME), beginDataSourceNames);
+    Assertions.assertNull(dataSourceNameInTransaction);
+    Assertions.assertEquals(REPLICA_DATA_SOURCE_NAME, transactionManager.getDataSourceName());
+    Mockito.verify(jpaDialect)
+        .beginTransaction(ArgumentMatchers.any(), definitionCaptor.capture());
+    Assertions.assertFalse(definitionCaptor.getValue().isReadOnly());
+  }
+
+  @Test
+  void getTransactionReadOnly() throws Exception {
+    // Arrange
+    final MultiDataSourceRoutingTransactionManager transactionManager =
+        new MultiDataSourceRoutingTransactionManager(
+            entityManagerFactory,
+            REPLICA_DATA_SOURCE_NAME,
+            true
+        );
+    transactionManager.setJpaDialect(jpaDialect);
+    final ArgumentCaptor<TransactionDefinition> definitionCaptor = ArgumentCaptor
+        .forClass(TransactionDefinition.class);
+
+    // Act
+    final TransactionStatus status = transactionManager
+        .getTransaction(new DefaultTransactionDefinition());
+    transactionManager.rollback(status);
+
+    // Assert
+    Mockito.verify(jpaDialect)
+        .beginTransaction(ArgumentMatchers.any(), definitionCaptor.capture());
+    Assertions.assertTrue(definitionCaptor.getValue().isReadOnly());
+  }
+
+  @Test
+  void getTransactionJoinsTransactionOfDataSource() {
+    // Arrange
+    final MultiDataSourceRoutingTransactionManager transactionManager =
+        this.createTransactionManager(REPLICA_DATA_SOURCE_NAME);
+    final TransactionStatus outerStatus = transactionManager
+        .getTransaction(new DefaultTransactionDefinition());
+
+    // Act
+    final TransactionStatus innerStatus = transactionManager
+        .getTransaction(new DefaultTransactionDefinition());
+
+    // Assert
+    Assertions.assertFalse(innerStatus.isNewTransaction());
+    transactionManager.commit(innerStatus);
+    transactionManager.rollback(outerStatus);
+  }
+
+  @Test
+  void getTransactionRejectsJoiningTransactionOfPrimaryDataSource() {
+    // Arrange
+    final MultiDataSourceRoutingTransactionManager primaryTransactionManager =
+        this.createTransactionManager(null);
+    final MultiDataSourceRoutingTransactionManager transactionManager =
+        this.createTransactionManager(REPLICA_DATA_SOURCE_NAME);
+    final TransactionStatus primaryStatus = primaryTransactionManager
+        .getTransaction(new DefaultTransactionDefinition());
+
+    // Act and Assert
+    try {
+      Assertions.assertThrows(
+          IllegalTransactionStateException.class,
+          () -> transactionManager.getTransaction(new DefaultTransactionDefinition())
+      );
+    } finally {
+      primaryTransactionManager.rollback(primaryStatus);
+    }
+  }
+
+  @Test
+  void getTransactionPrimaryBeginsNotRouted() throws Exception {
+    // Arrange
+    final MultiDataSourceRoutingTransactionManager primaryTransactionManager =
+        this.createTransactionManager(null);
+    final List<String> beginDataSourceNames = new ArrayList<>();
+    Mockito.when(jpaDialect.beginTransaction(ArgumentMatchers.any(), ArgumentMatchers.any()))
+        .thenAnswer(invocation -> {
+          beginDataSourceNames.add(MultiDataSourceRoutingContext.getCurrentDataSourceName());
+          return null;
+        });
+
+    // Act
+    final TransactionStatus outerStatus = primaryTransactionManager
+        .getTransaction(new DefaultTransactionDefinition());
+    final TransactionStatus innerStatus = primaryTransactionManager
+        .getTransaction(new DefaultTransactionDefinition());
+
+    // Assert the primary transaction is not routed, and can be joined by the primary data source
+    Assertions.assertEquals(Collections.singletonList(null), beginDataSourceNames);
+    Assertions.assertNull(primaryTransactionManager.getDataSourceName());
+    Assertions.assertFalse(innerStatus.isNewTransaction());
+    primaryTransactionManager.commit(innerStatus);
+    primaryTransactionManager.rollback(outerStatus);
+  }
+
+  @Test
+  void getTransactionPrimaryRejectsJoiningTransactionOfDataSource() {
+    // Arrange
+    final MultiDataSourceRoutingTransactionManager transactionManager =
+        this.createTransactionManager(REPLICA_DATA_SOURCE_NAME);
+    final MultiDataSourceRoutingTransactionManager primaryTransactionManager =
+        this.createTransactionManager(null);
+    final TransactionStatus status = transactionManager
+        .getTransaction(new DefaultTransactionDefinition());
+
+    // Act and Assert
+    try {
+      Assertions.assertThrows(
+          IllegalTransactionStateException.class,
+          () -> primaryTransactionManager.getTransaction(new DefaultTransactionDefinition())
+      );
+    } finally {
+      transactionManager.rollback(status);
+    }
+  }
+
+  @Test
+  void getTransactionRejectsJoiningTransactionOfOtherDataSource() {
+    // Arrange
+    final MultiDataSourceRoutingTransactionManager otherTransactionManager =
+        this.createTransactionManager(OTHER_REPLICA_DATA_SOURCE_NAME);
+    final MultiDataSourceRoutingTransactionManager transactionManager =
+        this.createTransactionManager(REPLICA_DATA_SOURCE_NAME);
+    final TransactionStatus otherStatus = otherTransactionManager
+        .getTransaction(new DefaultTransactionDefinition());
+
+    // Act and Assert
+    try {
+      Assertions.assertThrows(
+          IllegalTransactionStateException.class,
+          () -> transactionManager.getTransaction(new DefaultTransactionDefinition())
+      );
+    } finally {
+      otherTransactionManager.rollback(otherStatus);
+    }
+  }
+
+  @Test
+  void getTransactionRequiresNewInTransactionOfOtherDataSource() {
+    // Arrange
+    final MultiDataSourceRoutingTransactionManager otherTransactionManager =
+        this.createTransactionManager(OTHER_REPLICA_DATA_SOURCE_NAME);
+    final MultiDataSourceRoutingTransactionManager transactionManager =
+        this.createTransactionManager(REPLICA_DATA_SOURCE_NAME);
+    final TransactionStatus otherStatus = otherTransactionManager
+        .getTransaction(new DefaultTransactionDefinition());
+    final DefaultTransactionDefinition requiresNewDefinition = new DefaultTransactionDefinition(
+        TransactionDefinition.PROPAGATION_REQUIRES_NEW
+    );
+
+    // Act
+    final TransactionStatus status = transactionManager.getTransaction(requiresNewDefinition);
+    transactionManager.rollback(status);
+
+    // Assert the suspended transaction can still be joined on its data source
+    final TransactionStatus joinedStatus = otherTransactionManager
+        .getTransaction(new DefaultTransactionDefinition());
+    Assertions.assertTrue(status.isNewTransaction());
+    Assertions.assertFalse(joinedStatus.isNewTransaction());
+    otherTransactionManager.commit(joinedStatus);
+    otherTransactionManager.rollback(otherStatus);
+  }
+
+  /**
+   * Create a routing transaction manager of a data source, or of the primary data source if the
+   * name is null.
+   */
+  private MultiDataSourceRoutingTransactionManager createTransactionManager(
+      String dataSourceName
+  ) {
+    final MultiDataSourceRoutingTransactionManager transactionManager = dataSourceName == null
+        ? new MultiDataSourceRoutingTransactionManager(entityManagerFactory, false)
+        : new MultiDataSourceRoutingTransactionManager(entityManagerFactory, dataSourceName, false);
+    transactionManager.setJpaDialect(jpaDialect);
+    return transactionManager;
+  }
+}
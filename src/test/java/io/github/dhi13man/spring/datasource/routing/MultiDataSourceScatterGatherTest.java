@@ -0,0 +1,203 @@
+package io.github.dhi13man.spring.datasource.routing;
+
+import io.github.dhi13man.spring.datasource.annotations.ScatterGather.Merge;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+class MultiDataSourceScatterGatherTest {
+
+  @Test
+  void gatherRunsCallsConcurrently() {
+    // Arrange
+    final MultiDataSourceScatterGather scatterGather =
+        new MultiDataSourceScatterGather("MockRepository.findAll", Merge.CONCATENATE);
+    final CountDownLatch startedCalls = new CountDownLatch(2);
+
+    // Act
+    final List<String> result = scatterGather.gather(
+        null,
+        null,
+        () -> this.awaitOtherCalls(startedCalls, "replica-1"),
+        () -> this.awaitOtherCalls(startedCalls, "replica-2")
+    );
+
+    // Assert every call ran while the other was waiting, in the order of the data sources
+    Assertions.assertEquals(List.of("replica-1: true", "replica-2: true"), result);
+  }
+
+  @Test
+  void gatherRoutedToDataSourceOfCallingThread() {
+    // Arrange
+    final MultiDataSourceScatterGather scatterGather =
+        new MultiDataSourceScatterGather("MockRepository.findAll", Merge.CONCATENATE);
+
+    // Act
+    final List<String> result = MultiDataSourceRoutingContext.callWithDataSource(
+        "replica",
+        () -> scatterGather.gather(
+            null,
+            null,
+            () -> List.of(MultiDataSourceRoutingContext.getCurrentDataSourceName()),
+            () -> List.of(MultiDataSourceRoutingContext.getCurrentDataSourceName())
+        )
+    );
+
+    // Assert
+    Assertions.assertEquals(List.of("replica", "replica"), result);
+  }
+
+  @Test
+  void gatherExecutorFullRunsOnCallingThread() {
+    // Arrange
+    final ExecutorService rejectingExecutor = Executors.newSingleThreadExecutor();
+    rejectingExecutor.shutdown();
+    final MultiDataSourceScatterGather scatterGather = new MultiDataSourceScatterGather(
+        "MockRepository.findAll",
+        Merge.CONCATENATE,
+        rejectingExecutor
+    );
+
+    // Act
+    final List<Thread> result = scatterGather.gather(
+        null,
+        null,
+        () -> List.of(Thread.currentThread()),
+        () -> List.of(Thread.currentThread())
+    );
+
+    // Assert
+    Assertions.assertEquals(List.of(Thread.currentThread(), Thread.currentThread()), result);
+  }
+
+  @Test
+  void gatherSortedBySortParameter() {
+    // Arrange
+    final MultiDataSourceScatterGather scatterGather =
+        new MultiDataSourceScatterGather("MockRepository.findAll", Merge.SORTED, "name");
+    final Sort sort = Sort.by(Sort.Direction.DESC, "id");
+
+    // Act
+    final List<MockRow> result = scatterGather.gather(
+        null,
+        sort,
+        () -> List.of(new MockRow(5, "b"), new MockRow(2, "e")),
+        () -> List.of(new MockRow(4, "c"), new MockRow(3, "d"), new MockRow(1, "f"))
+    );
+
+    // Assert the rows are merged by the sort of the call, rather than the default one
+    Assertions.assertEquals(
+        List.of(5L, 4L, 3L, 2L, 1L),
+        result.stream().map(MockRow::getId).collect(Collectors.toList())
+    );
+  }
+
+  @Test
+  void gatherSortedByDefaultSortPaged() {
+    // Arrange
+    final MultiDataSourceScatterGather scatterGather =
+        new MultiDataSourceScatterGather("MockRepository.findAll", Merge.SORTED, "name");
+    final Pageable pageable = PageRequest.of(1, 2);
+
+    // Act
+    final List<MockRow> result = scatterGather.gather(
+        pageable,
+        null,
+        () -> List.of(new MockRow(1, "a"), new MockRow(3, "c"), new MockRow(4, "d")),
+        () -> List.of(new MockRow(2, "b"), new MockRow(5, "e"))
+    );
+
+    // Assert the rows are merged by the default sort, and cut down to the requested page
+    Assertions.assertEquals(
+        List.of("c", "d"),
+        result.stream().map(MockRow::getName).collect(Collectors.toList())
+    );
+  }
+
+  @Test
+  void gatherReduced() {
+    // Arrange
+    final MultiDataSourceScatterGather sumScatterGather =
+        new MultiDataSourceScatterGather("MockRepository.count", Merge.SUM);
+    final MultiDataSourceScatterGather maxScatterGather =
+        new MultiDataSourceScatterGather("MockRepository.findMaxName", Merge.MAX);
+
+    // Act
+    final Long sum = sumScatterGather.gather(null, null, () -> 3L, () -> null, () -> 4L);
+    final String max = maxScatterGather.gather(null, null, () -> "b", () -> "c", () -> "a");
+
+    // Assert null results are skipped
+    Assertions.assertEquals(7L, sum);
+    Assertions.assertEquals("c", max);
+  }
+
+  @Test
+  void gatherFailedCall() {
+    // Arrange
+    final MultiDataSourceScatterGather scatterGather =
+        new MultiDataSourceScatterGather("MockRepository.findAll", Merge.CONCATENATE);
+
+    // Act and Assert the exception of the failed call is thrown
+    Assertions.assertThrows(
+        UnsupportedOperationException.class,
+        () -> scatterGather.<List<String>>gather(
+            null,
+            null,
+            () -> List.of("replica-1"),
+            () -> {
+              throw new UnsupportedOperationException();
+            }
+        )
+    );
+  }
+
+  @Test
+  void pushDown() {
+    // Act and Assert every data source is asked for the first page covering the requested one
+    Assertions.assertEquals(
+        PageRequest.of(0, 30, Sort.by("name")),
+        MultiDataSourceScatterGather.pushDown(PageRequest.of(2, 10, Sort.by("name")))
+    );
+    Assertions.assertEquals(Pageable.unpaged(), MultiDataSourceScatterGather
+        .pushDown(Pageable.unpaged()));
+    Assertions.assertNull(MultiDataSourceScatterGather.pushDown(null));
+  }
+
+  private List<String> awaitOtherCalls(CountDownLatch startedCalls, String dataSourceName) {
+    startedCalls.countDown();
+    try {
+      return List.of(dataSourceName + ": " + startedCalls.await(5, TimeUnit.SECONDS));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public static class MockRow {
+
+    private final long id;
+
+    private final String name;
+
+    MockRow(long id, String name) {
+      this.id = id;
+      this.name = name;
+    }
+
+    public long getId() {
+      return id;
+    }
+
+    public String getName() {
+      return name;
+    }
+  }
+}
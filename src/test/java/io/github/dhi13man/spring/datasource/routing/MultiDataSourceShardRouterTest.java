@@ -0,0 +1,91 @@
+package io.github.dhi13man.spring.datasource.routing;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class MultiDataSourceShardRouterTest {
+
+  private static final int KEY_COUNT = 10000;
+
+  private final MultiDataSourceShardRouter shardRouter = new MultiDataSourceShardRouter(
+      "objects",
+      List.of("shard-1", "shard-2", "shard-3")
+  );
+
+  @Test
+  void getShardNameSameKeySameShard() {
+    // Arrange
+    final MultiDataSourceShardRouter reorderedShardRouter = new MultiDataSourceShardRouter(
+        "objects",
+        List.of("shard-3", "shard-1", "shard-2")
+    );
+
+    // Act and Assert the shard only depends on the key and the names of the shards
+    for (long key = 0; key < 100; key++) {
+      Assertions.assertEquals(shardRouter.getShardName(key), shardRouter.getShardName(key));
+      Assertions.assertEquals(
+          shardRouter.getShardName(key),
+          reorderedShardRouter.getShardName(key)
+      );
+      Assertions.assertEquals(shardRouter.getShardName(key), shardRouter.getShardName((int) key));
+    }
+  }
+
+  @Test
+  void getShardNameSpreadsKeys() {
+    // Arrange
+    final Map<String, Integer> shardToKeyCount = new HashMap<>();
+
+    // Act
+    for (long key = 0; key < KEY_COUNT; key++) {
+      shardToKeyCount.merge(shardRouter.getShardName(key), 1, Integer::sum);
+    }
+
+    // Assert every shard gets a fair share of the keys
+    Assertions.assertEquals(3, shardToKeyCount.size());
+    shardToKeyCount.values().forEach(keyCount -> Assertions
+        .assertTrue(keyCount > KEY_COUNT / 4 && keyCount < KEY_COUNT / 2));
+  }
+
+  @Test
+  void getShardNameAddedShardOnlyTakesKeys() {
+    // Arrange
+    final MultiDataSourceShardRouter grownShardRouter = new MultiDataSourceShardRouter(
+        "objects",
+        List.of("shard-1", "shard-2", "shard-3", "shard-4")
+    );
+    int movedKeyCount = 0;
+
+    // Act
+    for (long key = 0; key < KEY_COUNT; key++) {
+      final String shardName = shardRouter.getShardName(key);
+      final String grownShardName = grownShardRouter.getShardName(key);
+      if (!shardName.equals(grownShardName)) {
+        // Assert keys only ever move onto the new shard
+        Assertions.assertEquals("shard-4", grownShardName);
+        movedKeyCount++;
+      }
+    }
+
+    // Assert about a quarter of the keys move
+    Assertions.assertTrue(movedKeyCount > KEY_COUNT / 8 && movedKeyCount < KEY_COUNT * 3 / 8);
+  }
+
+  @Test
+  void getShardNameNullKey() {
+    // Act and Assert IllegalArgumentException thrown, as a null key has no shard
+    Assertions.assertThrows(IllegalArgumentException.class, () -> shardRouter.getShardName(null));
+  }
+
+  @Test
+  void constructorNoShards() {
+    // Act and Assert IllegalArgumentException thrown, as keys can not be routed to no shards
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> new MultiDataSourceShardRouter("objects", List.of())
+    );
+  }
+}
@@ -0,0 +1,191 @@
+package io.github.dhi13man.spring.datasource.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+public class MultiDataSourceConnectionPoolUtilsTest {
+
+  private final MultiDataSourceConnectionPoolUtils connectionPoolUtils = MultiDataSourceConnectionPoolUtils
+      .getInstance();
+
+  @Test
+  public void setMaximumPoolSize_withSupportedPool_setsMaximumPoolSize() {
+    // Arrange
+    final MockPooledDataSource dataSource = new MockPooledDataSource();
+
+    // Act
+    final boolean isSet = connectionPoolUtils.setMaximumPoolSize(dataSource, 16);
+
+    // Assert
+    assertTrue(isSet);
+    assertEquals(16, dataSource.getMaximumPoolSize());
+    assertEquals(16, connectionPoolUtils.getMaximumPoolSize(dataSource));
+  }
+
+  @Test
+  public void setPoolName_withSupportedPool_setsPoolName() {
+    // Arrange
+    final MockPooledDataSource dataSource = new MockPooledDataSource();
+
+    // Act
+    final boolean isSet = connectionPoolUtils.setPoolName(dataSource, "master-data-source");
+
+    // Assert
+    assertTrue(isSet);
+    assertEquals("master-data-source", dataSource.getPoolName());
+  }
+
+  @Test
+  public void setMaximumPoolSize_withUnsupportedDataSource_doesNothing() {
+    // Arrange
+    final SingleConnectionDataSource dataSource = new SingleConnectionDataSource();
+
+    // Act
+    final boolean isMaximumPoolSizeSet = connectionPoolUtils.setMaximumPoolSize(dataSource, 16);
+    final boolean isPoolNameSet = connectionPoolUtils.setPoolName(dataSource, "master");
+
+    // Assert
+    assertFalse(isMaximumPoolSizeSet);
+    assertFalse(isPoolNameSet);
+    assertNull(connectionPoolUtils.getMaximumPoolSize(dataSource));
+  }
+
+  @Test
+  public void setConnectionInitSql_withSupportedPool_setsConnectionInitSql() {
+    // Arrange
+    final MockPooledDataSource dataSource = new MockPooledDataSource();
+
+    // Act
+    final boolean isSet = connectionPoolUtils
+        .setConnectionInitSql(dataSource, "SET statement_timeout = 5000");
+
+    // Assert
+    assertTrue(isSet);
+    assertEquals("SET statement_timeout = 5000", dataSource.getConnectionInitSql());
+    assertFalse(connectionPoolUtils
+        .setConnectionInitSql(new SingleConnectionDataSource(), "SET statement_timeout = 5000"));
+  }
+
+  @Test
+  public void getConnectionIdentity_withUrlAndUsername_returnsBoth() {
+    // Arrange
+    final MockPooledDataSource dataSource = new MockPooledDataSource();
+    dataSource.setUrl("jdbc:h2:mem:test");
+    dataSource.setUsername("user");
+
+    // Act
+    final String result = connectionPoolUtils.getConnectionIdentity(dataSource);
+
+    // Assert
+    assertEquals("user@jdbc:h2:mem:test", result);
+    assertNull(connectionPoolUtils.getConnectionIdentity(new MockPooledDataSource()));
+  }
+
+  @Test
+  public void getConnectionSettings_withConnectionInitSql_returnsConnectionInitSql() {
+    // Arrange
+    final MockPooledDataSource dataSource = new MockPooledDataSource();
+    dataSource.setConnectionInitSql("SET LOCK_TIMEOUT 2000");
+
+    // Act
+    final Map<String, Object> result = connectionPoolUtils.getConnectionSettings(dataSource);
+
+    // Assert
+    assertEquals(Map.of("connectionInitSql", "SET LOCK_TIMEOUT 2000"), result);
+    assertEquals(Map.of(), connectionPoolUtils.getConnectionSettings(new MockPooledDataSource()));
+  }
+
+  /**
+   * Data source exposing the connection and pool settings the same way HikariCP does.
+   */
+  public static class MockPooledDataSource extends AbstractDataSource {
+
+    private String url;
+
+    private String username;
+
+    private String password;
+
+    private String driverClassName;
+
+    private int maximumPoolSize = 10;
+
+    private String poolName;
+
+    private String connectionInitSql;
+
+    public String getConnectionInitSql() {
+      return connectionInitSql;
+    }
+
+    public void setConnectionInitSql(String connectionInitSql) {
+      this.connectionInitSql = connectionInitSql;
+    }
+
+    public String getUrl() {
+      return url;
+    }
+
+    public void setUrl(String url) {
+      this.url = url;
+    }
+
+    public String getUsername() {
+      return username;
+    }
+
+    public void setUsername(String username) {
+      this.username = username;
+    }
+
+    public String getPassword() {
+      return password;
+    }
+
+    public void setPassword(String password) {
+      this.password = password;
+    }
+
+    public String getDriverClassName() {
+      return driverClassName;
+    }
+
+    public void setDriverClassName(String driverClassName) {
+      this.driverClassName = driverClassName;
+    }
+
+    public int getMaximumPoolSize() {
+      return maximumPoolSize;
+    }
+
+    public void setMaximumPoolSize(int maximumPoolSize) {
+      this.maximumPoolSize = maximumPoolSize;
+    }
+
+    public String getPoolName() {
+      return poolName;
+    }
+
+    public void setPoolName(String poolName) {
+      this.poolName = poolName;
+    }
+
+    @Override
+    public Connection getConnection() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
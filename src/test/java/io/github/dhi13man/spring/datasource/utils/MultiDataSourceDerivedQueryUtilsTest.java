@@ -0,0 +1,283 @@
+package io.github.dhi13man.spring.datasource.utils;
+
+import io.github.dhi13man.spring.datasource.dto.DerivedQuery;
+import io.github.dhi13man.spring.datasource.dto.DerivedQuery.Action;
+import io.github.dhi13man.spring.datasource.dto.DerivedQuery.Operator;
+import io.github.dhi13man.spring.datasource.utils.MultiDataSourceDerivedQueryUtils.PropertyResolver;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class MultiDataSourceDerivedQueryUtilsTest {
+
+  private final MultiDataSourceDerivedQueryUtils derivedQueryUtils =
+      MultiDataSourceDerivedQueryUtils.getInstance();
+
+  /**
+   * Resolver of an order entity, with a nested customer having an address.
+   */
+  private final PropertyResolver orderResolver = this.createResolver(Map.of(
+      "id", this.createResolver(Map.of()),
+      "status", this.createResolver(Map.of()),
+      "orderDate", this.createResolver(Map.of()),
+      "customer", this.createResolver(Map.of(
+          "name", this.createResolver(Map.of()),
+          "address", this.createResolver(Map.of("zipCode", this.createResolver(Map.of())))
+      ))
+  ));
+
+  /**
+   * Resolver of a customer entity, with a collection of orders and a collection of tags.
+   */
+  private final PropertyResolver customerResolver = this.createResolver(
+      Map.of(
+          "name", this.createResolver(Map.of()),
+          "orders", orderResolver,
+          "tags", this.createResolver(Map.of())
+      ),
+      Set.of("orders", "tags")
+  );
+
+  /**
+   * Columns of the table of the order entity, which has no customer column.
+   */
+  private final List<String> orderColumns = List.of("id", "status", "order_date");
+
+  @Test
+  void parseAndRender() {
+    // Act
+    final DerivedQuery derivedQuery = derivedQueryUtils.parse(
+        "findDistinctByStatusIgnoreCaseAndOrderDateBetweenOrCustomerAddressZipCodeIn"
+            + "OrderByOrderDateDescIdAsc",
+        orderResolver
+    );
+
+    // Assert
+    Assertions.assertNotNull(derivedQuery);
+    Assertions.assertEquals(Action.FIND, derivedQuery.getAction());
+    Assertions.assertTrue(derivedQuery.isDistinct());
+    Assertions.assertEquals(2, derivedQuery.getCriteriaGroups().size());
+    Assertions.assertEquals(4, derivedQuery.getArgumentCount());
+    Assertions.assertEquals(
+        Operator.BETWEEN,
+        derivedQuery.getCriteriaGroups().get(0).get(1).getOperator()
+    );
+    Assertions.assertEquals(
+        "customer.address.zipCode",
+        derivedQuery.getCriteriaGroups().get(1).get(0).getPropertyPath()
+    );
+    Assertions.assertEquals(
+        "select distinct e from Order e"
+            + " where (?1 is null and e.status is null or upper(e.status) = upper(?1))"
+            + " and e.orderDate between ?2 and ?3 or e.customer.address.zipCode in ?4"
+            + " order by e.orderDate desc, e.id asc",
+        derivedQueryUtils.toJpql(derivedQuery, "Order")
+    );
+  }
+
+  @Test
+  void parseAndRenderEscapedCriteria() {
+    // Act
+    final DerivedQuery derivedQuery = derivedQueryUtils
+        .parse("countByCustomer_NameContainingAndStatusNot", orderResolver);
+
+    // Assert the arguments are all bound through SpEL
+    Assertions.assertNotNull(derivedQuery);
+    Assertions.assertEquals(Action.COUNT, derivedQuery.getAction());
+    Assertions.assertEquals(
+        "select count(e) from Order e where e.customer.name like %?#{escape([0])}%"
+            + " escape ?#{escapeCharacter()} and e.status <> ?#{[1]}",
+        derivedQueryUtils.toJpql(derivedQuery, "Order")
+    );
+  }
+
+  @Test
+  void parseAndRenderNullableEqualityCriteria() {
+    // Act
+    final DerivedQuery derivedQuery = derivedQueryUtils
+        .parse("findByStatusAndIdAndCustomer_NameStartingWith", orderResolver);
+
+    // Assert only the nullable arguments match null properties, bound through SpEL
+    Assertions.assertNotNull(derivedQuery);
+    Assertions.assertEquals(
+        "select e from Order e where (?#{[0]} is null and e.status is null"
+            + " or e.status = ?#{[0]}) and e.id = ?#{[1]}"
+            + " and e.customer.name like ?#{escape([2])}% escape ?#{escapeCharacter()}",
+        derivedQueryUtils.toJpql(derivedQuery, "Order", Set.of(0, 2))
+    );
+  }
+
+  @Test
+  void parseNotDerivedQuery() {
+    // Act and Assert
+    Assertions.assertNull(derivedQueryUtils.parse("findAll", orderResolver));
+    Assertions.assertNull(derivedQueryUtils.parse("deleteByStatus", orderResolver));
+    Assertions.assertNull(derivedQueryUtils.parse("process", orderResolver));
+  }
+
+  @Test
+  void parseUnknownProperty() {
+    // Act and Assert IllegalArgumentException thrown, as the entity has no such property
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> derivedQueryUtils.parse("findByCustomerPhone", orderResolver)
+    );
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> derivedQueryUtils.parse("findByStatusOrderByIdOrderByStatus", orderResolver)
+    );
+  }
+
+  @Test
+  void renderNotPlainJpql() {
+    // Arrange
+    final DerivedQuery limitedQuery = derivedQueryUtils
+        .parse("findTop3ByStatusOrderByIdDesc", orderResolver);
+    final DerivedQuery allIgnoringCaseQuery = derivedQueryUtils
+        .parse("findByStatusAllIgnoreCase", orderResolver);
+
+    // Act and Assert
+    Assertions.assertNotNull(limitedQuery);
+    Assertions.assertEquals(3, limitedQuery.getMaxResults());
+    Assertions.assertNull(derivedQueryUtils.toJpql(limitedQuery, "Order"));
+    Assertions.assertNotNull(allIgnoringCaseQuery);
+    Assertions.assertNull(derivedQueryUtils.toJpql(allIgnoringCaseQuery, "Order"));
+  }
+
+  @Test
+  void renderCollectionPaths() {
+    // Arrange
+    final DerivedQuery throughCollectionQuery = derivedQueryUtils
+        .parse("findByOrdersStatus", customerResolver);
+    final DerivedQuery containingQuery = derivedQueryUtils
+        .parse("findByTagsContaining", customerResolver);
+    final DerivedQuery orderedThroughCollectionQuery = derivedQueryUtils
+        .parse("findByNameOrderByOrdersOrderDate", customerResolver);
+    final DerivedQuery emptyQuery = derivedQueryUtils
+        .parse("findByTagsIsEmptyAndOrdersIsNotEmpty", customerResolver);
+
+    // Act and Assert the collections are only rendered when compared by emptiness
+    Assertions.assertNotNull(throughCollectionQuery);
+    Assertions.assertEquals(Set.of("orders"), throughCollectionQuery.getCollectionPropertyPaths());
+    Assertions.assertNull(derivedQueryUtils.toJpql(throughCollectionQuery, "Customer"));
+    Assertions.assertNotNull(containingQuery);
+    Assertions.assertNull(derivedQueryUtils.toJpql(containingQuery, "Customer"));
+    Assertions.assertNotNull(orderedThroughCollectionQuery);
+    Assertions.assertNull(derivedQueryUtils.toJpql(orderedThroughCollectionQuery, "Customer"));
+    Assertions.assertNotNull(emptyQuery);
+    Assertions.assertEquals(
+        "select e from Customer e where e.tags is empty and e.orders is not empty",
+        derivedQueryUtils.toJpql(emptyQuery, "Customer")
+    );
+  }
+
+  @Test
+  void parseAndRenderSql() {
+    // Arrange
+    final DerivedQuery derivedQuery = derivedQueryUtils.parse(
+        "findTop3ByStatusIgnoreCaseAndOrderDateBetweenOrIdNotInOrderByOrderDateDesc",
+        orderResolver
+    );
+    final DerivedQuery existsQuery = derivedQueryUtils
+        .parse("existsByStatusNotAndIdIsNotNull", orderResolver);
+
+    // Act
+    final String sql = derivedQueryUtils
+        .toSql(derivedQuery, "orders", orderColumns, this::resolveOrderColumn);
+    final String existsSql = derivedQueryUtils
+        .toSql(existsQuery, "orders", orderColumns, this::resolveOrderColumn);
+
+    // Assert the arguments are bound to named parameters, leaving the limit to the caller
+    Assertions.assertEquals(
+        "select id, status, order_date from orders where upper(status) = upper(:p0)"
+            + " and order_date between :p1 and :p2 or id not in (:p3)"
+            + " order by order_date desc",
+        sql
+    );
+    Assertions.assertEquals(
+        "select 1 from orders where status <> :p0 and id is not null",
+        existsSql
+    );
+  }
+
+  @Test
+  void renderSqlWithEmptyCollections() {
+    // Arrange
+    final DerivedQuery derivedQuery = derivedQueryUtils
+        .parse("findByStatusInAndIdNotInOrOrderDateAfterAndIdIn", orderResolver);
+
+    // Act
+    final String emptyNotInSql = derivedQueryUtils
+        .toSql(derivedQuery, "orders", orderColumns, this::resolveOrderColumn, Set.of(1));
+    final String emptyInSql = derivedQueryUtils
+        .toSql(derivedQuery, "orders", orderColumns, this::resolveOrderColumn, Set.of(0));
+    final String emptyInAndNotInSql = derivedQueryUtils
+        .toSql(derivedQuery, "orders", orderColumns, this::resolveOrderColumn, Set.of(0, 1));
+
+    // Assert an empty NotIn is left out, and an empty In leaves out the criteria it rules out
+    Assertions.assertNotNull(derivedQuery);
+    Assertions.assertEquals(List.of(0, 1, 3), derivedQueryUtils
+        .getCollectionArgumentIndexes(derivedQuery));
+    Assertions.assertEquals(
+        "select id, status, order_date from orders where status in (:p0)"
+            + " or order_date > :p2 and id in (:p3)",
+        emptyNotInSql
+    );
+    Assertions.assertEquals(
+        "select id, status, order_date from orders where order_date > :p2 and id in (:p3)",
+        emptyInSql
+    );
+    Assertions.assertEquals(emptyInSql, emptyInAndNotInSql);
+    Assertions.assertFalse(derivedQueryUtils.isMatchingNoRow(derivedQuery, Set.of(0, 1)));
+    Assertions.assertTrue(derivedQueryUtils.isMatchingNoRow(derivedQuery, Set.of(0, 3)));
+  }
+
+  @Test
+  void renderNotPlainSql() {
+    // Arrange
+    final DerivedQuery nestedQuery = derivedQueryUtils
+        .parse("findByCustomerName", orderResolver);
+    final DerivedQuery containingQuery = derivedQueryUtils
+        .parse("findByStatusContaining", orderResolver);
+    final DerivedQuery distinctCountQuery = derivedQueryUtils
+        .parse("countDistinctByStatus", orderResolver);
+
+    // Act and Assert
+    Assertions.assertNotNull(nestedQuery);
+    Assertions.assertNull(derivedQueryUtils
+        .toSql(nestedQuery, "orders", orderColumns, this::resolveOrderColumn));
+    Assertions.assertNotNull(containingQuery);
+    Assertions.assertNull(derivedQueryUtils
+        .toSql(containingQuery, "orders", orderColumns, this::resolveOrderColumn));
+    Assertions.assertNotNull(distinctCountQuery);
+    Assertions.assertNull(derivedQueryUtils
+        .toSql(distinctCountQuery, "orders", orderColumns, this::resolveOrderColumn));
+  }
+
+  private String resolveOrderColumn(String propertyPath) {
+    return Map.of("id", "id", "status", "status", "orderDate", "order_date").get(propertyPath);
+  }
+
+  private PropertyResolver createResolver(Map<String, PropertyResolver> properties) {
+    return properties::get;
+  }
+
+  private PropertyResolver createResolver(
+      Map<String, PropertyResolver> properties,
+      Set<String> collectionProperties
+  ) {
+    return new PropertyResolver() {
+      @Override
+      public PropertyResolver resolve(String propertyName) {
+        return properties.get(propertyName);
+      }
+
+      @Override
+      public boolean isCollection(String propertyName) {
+        return collectionProperties.contains(propertyName);
+      }
+    };
+  }
+}
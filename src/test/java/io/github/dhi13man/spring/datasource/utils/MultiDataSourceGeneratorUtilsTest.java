@@ -4,8 +4,14 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.squareup.javapoet.FieldSpec;
+import io.github.dhi13man.spring.datasource.annotations.EnableMultiDataSourceConfig.DataSourceConfig;
+import io.github.dhi13man.spring.datasource.annotations.PerformanceProfile;
+import io.github.dhi13man.spring.datasource.annotations.PerformanceProfile.Preset;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import javax.lang.model.element.Modifier;
 import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
 
 public class MultiDataSourceGeneratorUtilsTest {
 
@@ -68,4 +74,95 @@ public class MultiDataSourceGeneratorUtilsTest {
     assertTrue(result.modifiers.contains(Modifier.FINAL));
     assertEquals("new String[]{};", result.initializer.toString());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void getPerformanceProfileJpaProperties_withNonePreset_returnsOnlySetAttributes() {
+    // Arrange
+    final PerformanceProfile performanceProfile = createMockPerformanceProfile(Preset.NONE);
+    Mockito.when(performanceProfile.jdbcFetchSize()).thenReturn(250);
+
+    // Act
+    final Map<String, String> result = multiDataSourceCommonStringUtils
+        .getPerformanceProfileJpaProperties(performanceProfile);
+
+    // Assert
+    assertEquals(Map.of("hibernate.jdbc.fetch_size", "250"), result);
+  }
+
+  @Test
+  public void getPerformanceProfileJpaProperties_withPreset_overridesPresetWithSetAttributes() {
+    // Arrange
+    final PerformanceProfile performanceProfile = createMockPerformanceProfile(Preset.OLTP_WRITE);
+    Mockito.when(performanceProfile.jdbcBatchSize()).thenReturn(100);
+
+    // Act
+    final Map<String, String> result = multiDataSourceCommonStringUtils
+        .getPerformanceProfileJpaProperties(performanceProfile);
+
+    // Assert
+    assertEquals(
+        Map.of(
+            "hibernate.jdbc.batch_size", "100",
+            "hibernate.default_batch_fetch_size", "16",
+            "hibernate.order_inserts", "true",
+            "hibernate.order_updates", "true"
+        ),
+        result
+    );
+  }
+
+  @Test
+  public void getTimeoutJpaProperties_withQueryTimeoutOnly_returnsQueryTimeout() {
+    // Arrange
+    final DataSourceConfig dataSourceConfig = Mockito.mock(DataSourceConfig.class);
+    Mockito.when(dataSourceConfig.queryTimeoutMillis()).thenReturn(5000);
+    Mockito.when(dataSourceConfig.lockTimeoutMillis()).thenReturn(PerformanceProfile.UNSET);
+
+    // Act
+    final Map<String, String> result = multiDataSourceCommonStringUtils
+        .getTimeoutJpaProperties(dataSourceConfig);
+
+    // Assert
+    assertEquals(Map.of("javax.persistence.query.timeout", "5000"), result);
+  }
+
+  @Test
+  public void createConstantIntFieldSpec_createsIntConstant() {
+    // Act
+    final FieldSpec result = multiDataSourceCommonStringUtils
+        .createConstantIntFieldSpec("FIELD_NAME", 16);
+
+    // Assert
+    assertEquals("FIELD_NAME", result.name);
+    assertTrue(result.modifiers.contains(Modifier.STATIC));
+    assertEquals("16", result.initializer.toString());
+  }
+
+  @Test
+  public void partitionConnectionBudget_withUnevenWeights_givesLeftOversToLargestRemainders() {
+    // Arrange
+    final Map<String, Integer> dataSourceNameToWeight = new LinkedHashMap<>();
+    dataSourceNameToWeight.put("master", 2);
+    dataSourceNameToWeight.put("replica-1", 1);
+    dataSourceNameToWeight.put("replica-2", 1);
+    dataSourceNameToWeight.put("replica-3", 3);
+
+    // Act
+    final Map<String, Integer> result = multiDataSourceCommonStringUtils
+        .partitionConnectionBudget(10, dataSourceNameToWeight);
+
+    // Assert 20/7, 10/7, 10/7 and 30/7 floored to 2, 1, 1 and 4, with remainders 6, 3, 3 and 2
+    assertEquals(Map.of("master", 3, "replica-1", 2, "replica-2", 1, "replica-3", 4), result);
+    assertEquals(10, result.values().stream().mapToInt(Integer::intValue).sum());
+  }
+
+  private static PerformanceProfile createMockPerformanceProfile(Preset preset) {
+    final PerformanceProfile performanceProfile = Mockito.mock(PerformanceProfile.class);
+    Mockito.when(performanceProfile.preset()).thenReturn(preset);
+    Mockito.when(performanceProfile.jdbcBatchSize()).thenReturn(PerformanceProfile.UNSET);
+    Mockito.when(performanceProfile.jdbcFetchSize()).thenReturn(PerformanceProfile.UNSET);
+    Mockito.when(performanceProfile.defaultBatchFetchSize()).thenReturn(PerformanceProfile.UNSET);
+    Mockito.when(performanceProfile.queryPlanCacheMaxSize()).thenReturn(PerformanceProfile.UNSET);
+    return performanceProfile;
+  }
+}